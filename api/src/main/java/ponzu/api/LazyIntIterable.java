@@ -0,0 +1,121 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ponzu.api;
+
+import ponzu.api.block.function.primitive.IntToObjectFunction;
+import ponzu.api.block.function.primitive.ObjectIntToObjectFunction;
+import ponzu.api.block.predicate.primitive.IntPredicate;
+import ponzu.api.block.procedure.primitive.IntProcedure;
+import ponzu.api.iterator.IntIterator;
+
+/**
+ * A LazyIntIterable is a deferred iterable of primitive int values. It is usually created by calling
+ * {@link RichIterable#transformToInt(ponzu.api.block.function.primitive.IntFunction)} and allows a pipeline to keep
+ * working on int values without boxing each one to a Integer. Any methods that do not return a lazy iterable
+ * will cause evaluation to be forced.
+ *
+ * @since 1.1
+ */
+public interface LazyIntIterable
+{
+    /**
+     * Returns a primitive iterator that can be used to iterate over this iterable.
+     */
+    IntIterator intIterator();
+
+    /**
+     * Evaluates the procedure for each value of the iterable.
+     */
+    void forEach(IntProcedure procedure);
+
+    /**
+     * Returns the number of values in the iterable.
+     */
+    int size();
+
+    /**
+     * Returns true if the iterable has zero values.
+     */
+    boolean isEmpty();
+
+    /**
+     * The English equivalent of !this.isEmpty()
+     */
+    boolean notEmpty();
+
+    /**
+     * Returns the number of values that evaluate true for the specified predicate.
+     */
+    int count(IntPredicate predicate);
+
+    /**
+     * Returns true if the predicate evaluates to true for any value of the iterable.
+     */
+    boolean anySatisfy(IntPredicate predicate);
+
+    /**
+     * Returns true if the predicate evaluates to true for every value of the iterable or if the iterable is empty.
+     */
+    boolean allSatisfy(IntPredicate predicate);
+
+    /**
+     * Creates a deferred iterable for filtering values from the current iterable.
+     */
+    LazyIntIterable filter(IntPredicate predicate);
+
+    /**
+     * Creates a deferred iterable for transforming the values of the current iterable into objects.
+     */
+    <V> LazyIterable<V> transform(IntToObjectFunction<? extends V> function);
+
+    /**
+     * Returns the sum of all of the values of the iterable, or zero if the iterable is empty.
+     */
+    long sum();
+
+    /**
+     * Returns the minimum value of the iterable.
+     *
+     * @throws java.util.NoSuchElementException if the iterable is empty
+     */
+    int min();
+
+    /**
+     * Returns the maximum value of the iterable.
+     *
+     * @throws java.util.NoSuchElementException if the iterable is empty
+     */
+    int max();
+
+    /**
+     * Returns the arithmetic mean of all of the values of the iterable.
+     *
+     * @throws ArithmeticException if the iterable is empty
+     */
+    double average();
+
+    /**
+     * Converts the iterable to a primitive int array.
+     */
+    int[] toArray();
+
+    /**
+     * Returns the final result of evaluating function using each value of the iterable and the previous evaluation
+     * result as the parameters. The initial value is used for the first parameter of the first evaluation, and the
+     * current value in the iterable is used as the second parameter.
+     */
+    <T> T foldLeft(T initialValue, ObjectIntToObjectFunction<? super T, ? extends T> function);
+}
@@ -19,6 +19,9 @@ package ponzu.api;
 import java.util.Collection;
 
 import ponzu.api.block.function.Function;
+import ponzu.api.block.function.primitive.DoubleFunction;
+import ponzu.api.block.function.primitive.IntFunction;
+import ponzu.api.block.function.primitive.LongFunction;
 import ponzu.api.block.predicate.Predicate;
 import ponzu.api.tuple.Pair;
 
@@ -51,6 +54,21 @@ public interface LazyIterable<T>
      */
     <V> LazyIterable<V> transformIf(Predicate<? super T> predicate, Function<? super T, ? extends V> function);
 
+    /**
+     * Creates a deferred int iterable for transforming elements from the current iterable.
+     */
+    LazyIntIterable transformToInt(IntFunction<? super T> function);
+
+    /**
+     * Creates a deferred long iterable for transforming elements from the current iterable.
+     */
+    LazyLongIterable transformToLong(LongFunction<? super T> function);
+
+    /**
+     * Creates a deferred double iterable for transforming elements from the current iterable.
+     */
+    LazyDoubleIterable transformToDouble(DoubleFunction<? super T> function);
+
     /**
      * Creates a deferred take iterable for the current iterable using the specified count as the limit.
      */
@@ -24,8 +24,11 @@ import ponzu.api.bag.MutableBag;
 import ponzu.api.block.function.Function;
 import ponzu.api.block.function.Function2;
 import ponzu.api.block.function.Generator;
+import ponzu.api.block.function.primitive.DoubleFunction;
 import ponzu.api.block.function.primitive.DoubleObjectToDoubleFunction;
+import ponzu.api.block.function.primitive.IntFunction;
 import ponzu.api.block.function.primitive.IntObjectToIntFunction;
+import ponzu.api.block.function.primitive.LongFunction;
 import ponzu.api.block.function.primitive.LongObjectToLongFunction;
 import ponzu.api.block.predicate.Predicate;
 import ponzu.api.block.predicate.Predicate2;
@@ -462,6 +465,60 @@ public interface RichIterable<T>
      */
     boolean allSatisfy(Predicate<? super T> predicate);
 
+    /**
+     * Returns a lazy int iterable that transforms each element of the iterable using the specified function. The
+     * values are never boxed, so the result can be filtered, summed or folded without allocating an object per element.
+     * <p/>
+     * <pre>e.g.
+     * long totalAge = people.transformToInt(new IntFunction&lt;Person&gt;()
+     * {
+     *     public int intValueOf(Person person)
+     *     {
+     *         return person.getAge();
+     *     }
+     * }).sum();
+     * </pre>
+     *
+     * @since 1.1
+     */
+    LazyIntIterable transformToInt(IntFunction<? super T> function);
+
+    /**
+     * Returns a lazy long iterable that transforms each element of the iterable using the specified function. The
+     * values are never boxed, so the result can be filtered, summed or folded without allocating an object per element.
+     * <p/>
+     * <pre>e.g.
+     * long totalAge = people.transformToLong(new LongFunction&lt;Person&gt;()
+     * {
+     *     public long longValueOf(Person person)
+     *     {
+     *         return person.getAge();
+     *     }
+     * }).sum();
+     * </pre>
+     *
+     * @since 1.1
+     */
+    LazyLongIterable transformToLong(LongFunction<? super T> function);
+
+    /**
+     * Returns a lazy double iterable that transforms each element of the iterable using the specified function. The
+     * values are never boxed, so the result can be filtered, summed or folded without allocating an object per element.
+     * <p/>
+     * <pre>e.g.
+     * double totalAge = people.transformToDouble(new DoubleFunction&lt;Person&gt;()
+     * {
+     *     public double doubleValueOf(Person person)
+     *     {
+     *         return person.getAge();
+     *     }
+     * }).sum();
+     * </pre>
+     *
+     * @since 1.1
+     */
+    LazyDoubleIterable transformToDouble(DoubleFunction<? super T> function);
+
     /**
      * Returns the final result of evaluating function using each element of the iterable and the previous evaluation
      * result as the parameters. The initial value is used for the first parameter of the first evaluation, and the current
@@ -23,4 +23,17 @@ public interface MutableBagFactory
     <T> MutableBag<T> of();
 
     <T> MutableBag<T> of(T... elements);
+
+    /**
+     * Returns an empty bag presized for the typical number of distinct items in the bags created under the specified
+     * name.
+     * <p/>
+     * The hint learns only from the numbers of distinct items of the bags which were reported as complete under the
+     * same name, in the way the implementation of this factory documents, so a bag which is still being filled is never
+     * measured.  Until then the bag is created with the default capacity.  This method was added to the interface in
+     * 1.1, so implementations written against earlier versions must add it.
+     *
+     * @since 1.1
+     */
+    <T> MutableBag<T> ofSizeHint(String name);
 }
@@ -25,4 +25,16 @@ public interface MutableListFactory
     <T> MutableList<T> of(T... items);
 
     <T> MutableList<T> ofAll(Iterable<? extends T> iterable);
+
+    /**
+     * Returns an empty list presized for the typical final size of the lists created under the specified name.
+     * <p/>
+     * The hint learns only from the final sizes of the lists which were reported as complete under the same name, in
+     * the way the implementation of this factory documents, so a list which is still being filled is never
+     * measured.  Until then the list is created with the default capacity.  This method was added to the interface in
+     * 1.1, so implementations written against earlier versions must add it.
+     *
+     * @since 1.1
+     */
+    <T> MutableList<T> ofSizeHint(String name);
 }
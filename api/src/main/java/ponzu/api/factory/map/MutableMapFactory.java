@@ -29,4 +29,16 @@ public interface MutableMapFactory
     <K, V> MutableMap<K, V> of(K key1, V value1, K key2, V value2, K key3, V value3);
 
     <K, V> MutableMap<K, V> of(K key1, V value1, K key2, V value2, K key3, V value3, K key4, V value4);
+
+    /**
+     * Returns an empty map presized for the typical final size of the maps created under the specified name.
+     * <p/>
+     * The hint learns only from the final sizes of the maps which were reported as complete under the same name, in the
+     * way the implementation of this factory documents, so a map which is still being filled is never measured.  Until
+     * then the map is created with the default capacity.  This method was added to the interface in 1.1, so
+     * implementations written against earlier versions must add it.
+     *
+     * @since 1.1
+     */
+    <K, V> MutableMap<K, V> ofSizeHint(String name);
 }
@@ -25,4 +25,16 @@ public interface MutableSetFactory
     <T> MutableSet<T> of(T... items);
 
     <T> MutableSet<T> ofAll(Iterable<? extends T> items);
+
+    /**
+     * Returns an empty set presized for the typical final size of the sets created under the specified name.
+     * <p/>
+     * The hint learns only from the final sizes of the sets which were reported as complete under the same name, in the
+     * way the implementation of this factory documents, so a set which is still being filled is never measured.  Until
+     * then the set is created with the default capacity.  This method was added to the interface in 1.1, so
+     * implementations written against earlier versions must add it.
+     *
+     * @since 1.1
+     */
+    <T> MutableSet<T> ofSizeHint(String name);
 }
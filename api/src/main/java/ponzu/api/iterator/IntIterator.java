@@ -0,0 +1,35 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ponzu.api.iterator;
+
+/**
+ * IntIterator is an iterator over a stream of primitive int values, which avoids boxing each value
+ * to a Integer.
+ */
+public interface IntIterator
+{
+    /**
+     * Returns the next int value in the iteration.
+     *
+     * @throws java.util.NoSuchElementException if the iteration has no more elements
+     */
+    int next();
+
+    /**
+     * Returns true if the iteration has more elements.
+     */
+    boolean hasNext();
+}
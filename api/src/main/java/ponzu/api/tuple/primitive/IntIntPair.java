@@ -0,0 +1,32 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.api.tuple.primitive;
+
+import ponzu.api.tuple.Pair;
+
+/**
+ * A Pair of two ints, which can be read without unboxing.  getOne() and getTwo() box them.
+ *
+ * @since 1.1
+ */
+public interface IntIntPair
+        extends Pair<Integer, Integer>
+{
+    int getOneInt();
+
+    int getTwoInt();
+}
@@ -0,0 +1,30 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.api.tuple.primitive;
+
+import ponzu.api.tuple.Pair;
+
+/**
+ * A Pair whose first element is held as an int, so it can be read without unboxing.  getOne() boxes it.
+ *
+ * @since 1.1
+ */
+public interface IntObjectPair<T>
+        extends Pair<Integer, T>
+{
+    int getOneInt();
+}
@@ -21,14 +21,20 @@ import java.util.Collection;
 import java.util.Comparator;
 import java.util.Iterator;
 
+import ponzu.api.LazyDoubleIterable;
+import ponzu.api.LazyIntIterable;
 import ponzu.api.LazyIterable;
+import ponzu.api.LazyLongIterable;
 import ponzu.api.RichIterable;
 import ponzu.api.bag.MutableBag;
 import ponzu.api.block.function.Function;
 import ponzu.api.block.function.Function2;
 import ponzu.api.block.function.Generator;
+import ponzu.api.block.function.primitive.DoubleFunction;
 import ponzu.api.block.function.primitive.DoubleObjectToDoubleFunction;
+import ponzu.api.block.function.primitive.IntFunction;
 import ponzu.api.block.function.primitive.IntObjectToIntFunction;
+import ponzu.api.block.function.primitive.LongFunction;
 import ponzu.api.block.function.primitive.LongObjectToLongFunction;
 import ponzu.api.block.predicate.Predicate;
 import ponzu.api.block.predicate.Predicate2;
@@ -288,6 +294,21 @@ public class UnmodifiableRichIterable<T>
         return this.iterable.foldLeft(initialValue, function);
     }
 
+    public LazyIntIterable transformToInt(IntFunction<? super T> function)
+    {
+        return this.iterable.transformToInt(function);
+    }
+
+    public LazyLongIterable transformToLong(LongFunction<? super T> function)
+    {
+        return this.iterable.transformToLong(function);
+    }
+
+    public LazyDoubleIterable transformToDouble(DoubleFunction<? super T> function)
+    {
+        return this.iterable.transformToDouble(function);
+    }
+
     public MutableList<T> toList()
     {
         return this.iterable.toList();
@@ -24,7 +24,10 @@ import java.util.Iterator;
 import java.util.NoSuchElementException;
 
 import net.jcip.annotations.Immutable;
+import ponzu.api.LazyDoubleIterable;
+import ponzu.api.LazyIntIterable;
 import ponzu.api.LazyIterable;
+import ponzu.api.LazyLongIterable;
 import ponzu.api.RichIterable;
 import ponzu.api.bag.Bag;
 import ponzu.api.bag.ImmutableBag;
@@ -32,8 +35,11 @@ import ponzu.api.bag.MutableBag;
 import ponzu.api.block.function.Function;
 import ponzu.api.block.function.Function2;
 import ponzu.api.block.function.Generator;
+import ponzu.api.block.function.primitive.DoubleFunction;
 import ponzu.api.block.function.primitive.DoubleObjectToDoubleFunction;
+import ponzu.api.block.function.primitive.IntFunction;
 import ponzu.api.block.function.primitive.IntObjectToIntFunction;
+import ponzu.api.block.function.primitive.LongFunction;
 import ponzu.api.block.function.primitive.LongObjectToLongFunction;
 import ponzu.api.block.predicate.Predicate;
 import ponzu.api.block.predicate.Predicate2;
@@ -55,6 +61,9 @@ import ponzu.impl.block.factory.Comparators;
 import ponzu.impl.factory.Bags;
 import ponzu.impl.factory.Lists;
 import ponzu.impl.factory.Maps;
+import ponzu.impl.lazy.primitive.CollectDoubleIterable;
+import ponzu.impl.lazy.primitive.CollectIntIterable;
+import ponzu.impl.lazy.primitive.CollectLongIterable;
 import ponzu.impl.map.mutable.UnifiedMap;
 import ponzu.impl.map.sorted.mutable.TreeSortedMap;
 import ponzu.impl.multimap.bag.HashBagMultimap;
@@ -352,6 +361,21 @@ final class ImmutableEmptyBag<T>
         return initialValue;
     }
 
+    public LazyIntIterable transformToInt(IntFunction<? super T> function)
+    {
+        return new CollectIntIterable<T>(this, function);
+    }
+
+    public LazyLongIterable transformToLong(LongFunction<? super T> function)
+    {
+        return new CollectLongIterable<T>(this, function);
+    }
+
+    public LazyDoubleIterable transformToDouble(DoubleFunction<? super T> function)
+    {
+        return new CollectDoubleIterable<T>(this, function);
+    }
+
     public MutableList<T> toList()
     {
         return Lists.mutable.of();
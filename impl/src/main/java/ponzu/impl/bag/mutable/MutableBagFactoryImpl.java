@@ -18,6 +18,7 @@ package ponzu.impl.bag.mutable;
 
 import ponzu.api.bag.MutableBag;
 import ponzu.api.factory.bag.MutableBagFactory;
+import ponzu.impl.factory.SizeHints;
 
 public final class MutableBagFactoryImpl implements MutableBagFactory
 {
@@ -30,4 +31,12 @@ public final class MutableBagFactoryImpl implements MutableBagFactory
     {
         return HashBag.newBagWith(elements);
     }
+
+    /**
+     * Report the bag once it is complete with {@link SizeHints#done(String, Object)} so that the hint learns its size.
+     */
+    public <T> MutableBag<T> ofSizeHint(String name)
+    {
+        return HashBag.<T>newBag(SizeHints.getSizeHint(name));
+    }
 }
@@ -32,7 +32,9 @@ import ponzu.impl.block.comparator.primitive.DoubleFunctionComparator;
 import ponzu.impl.block.comparator.primitive.IntFunctionComparator;
 import ponzu.impl.block.comparator.primitive.LongFunctionComparator;
 import ponzu.impl.block.function.CaseFunction;
+import ponzu.impl.block.function.EvictionPolicy;
 import ponzu.impl.block.function.IfFunction;
+import ponzu.impl.block.function.MemoizingFunction;
 import ponzu.impl.block.function.primitive.IntegerFunctionImpl;
 import ponzu.impl.tuple.Tuples;
 import ponzu.impl.utility.Iterate;
@@ -383,6 +385,30 @@ public final class Functions
         return new SynchronizedFunction<T, V>(function);
     }
 
+    /**
+     * Returns a Function that caches up to maxSize results of the specified function, discarding results according
+     * to the evictionPolicy once it is full.  The returned Function is not thread-safe.
+     */
+    public static <T, V> MemoizingFunction<T, V> memoize(
+            Function<? super T, ? extends V> function,
+            int maxSize,
+            EvictionPolicy evictionPolicy)
+    {
+        return new MemoizingFunction<T, V>(function, maxSize, evictionPolicy);
+    }
+
+    /**
+     * Returns a thread-safe Function that caches up to maxSize results of the specified function in lock-striped
+     * segments, discarding results within each segment according to the evictionPolicy.
+     */
+    public static <T, V> MemoizingFunction<T, V> memoizeStriped(
+            Function<? super T, ? extends V> function,
+            int maxSize,
+            EvictionPolicy evictionPolicy)
+    {
+        return new MemoizingFunction<T, V>(function, maxSize, evictionPolicy, true);
+    }
+
     private static final class FirstNotNullFunction<T, V> implements Function<T, V>
     {
         private static final long serialVersionUID = 1L;
@@ -0,0 +1,643 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.block.factory;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Comparator;
+
+import ponzu.api.block.function.Function;
+import ponzu.api.block.predicate.Predicate;
+import ponzu.api.list.MutableList;
+import ponzu.api.map.MutableMap;
+import ponzu.impl.list.mutable.FastList;
+import ponzu.impl.map.mutable.UnifiedMap;
+
+/**
+ * PredicateCompiler turns a tree of predicates built with the Predicates factory methods into a single Predicate
+ * which is cheaper to evaluate.  Nested and/or/neither/noneOf predicates are flattened into one level per operator,
+ * and an attribute Function which is used by more than one attribute predicate is evaluated at most once for each
+ * element.  Predicates which were not created by Predicates are treated as opaque leaves.
+ * <p/>
+ * {@link #compileAdaptive(Predicate)} additionally reorders the operands of each and/or by their cost and by the
+ * selectivity observed as elements are evaluated, so that the operand most likely to decide the result cheaply is
+ * tried first.  It must only be used when the operands are independent of each other and free of side effects,
+ * since an operand which guards another (such as notNull before an attribute test) may be moved after it.
+ * <p/>
+ * A compiled predicate may be shared between threads.  Each thread evaluates it with its own buffer of attribute
+ * values and, for an adaptive predicate, its own statistics and operand order.
+ *
+ * @since 1.1
+ */
+public final class PredicateCompiler
+{
+    private PredicateCompiler()
+    {
+        throw new AssertionError("Suppress default constructor for noninstantiability");
+    }
+
+    /**
+     * Compiles the predicate, flattening nested and/or operators and sharing attribute evaluation.  The order in
+     * which the operands are evaluated is unchanged.
+     */
+    public static <T> Predicates<T> compile(Predicate<? super T> predicate)
+    {
+        return PredicateCompiler.compile(predicate, false);
+    }
+
+    /**
+     * Compiles the predicate like {@link #compile(Predicate)}, and reorders the operands of each and/or using
+     * statistics gathered while the compiled predicate is evaluated.
+     */
+    public static <T> Predicates<T> compileAdaptive(Predicate<? super T> predicate)
+    {
+        return PredicateCompiler.compile(predicate, true);
+    }
+
+    private static <T> Predicates<T> compile(Predicate<? super T> predicate, boolean adaptive)
+    {
+        MutableMap<Function<?, ?>, Integer> useCounts = UnifiedMap.newMap();
+        PredicateCompiler.countAttributeUses(predicate, useCounts);
+        MutableMap<Function<?, ?>, Integer> slots = UnifiedMap.newMap();
+        MutableList<AdaptiveJunctionNode> adaptiveJunctions =
+                adaptive ? FastList.<AdaptiveJunctionNode>newList() : null;
+        Node root = PredicateCompiler.toNode(predicate, useCounts, slots, adaptiveJunctions);
+        return new CompiledPredicate<T>(
+                root,
+                slots.size(),
+                adaptive ? adaptiveJunctions.toArray(new AdaptiveJunctionNode[adaptiveJunctions.size()]) : null);
+    }
+
+    /**
+     * Counts how many attribute predicates at the top level of the tree (applied to the element itself, rather than
+     * to the value of another attribute) use each Function.
+     */
+    private static void countAttributeUses(Predicate<?> predicate, MutableMap<Function<?, ?>, Integer> useCounts)
+    {
+        for (Predicate<?> each : PredicateCompiler.operands(predicate))
+        {
+            PredicateCompiler.countAttributeUses(each, useCounts);
+        }
+        if (predicate instanceof Predicates.AttributePredicate)
+        {
+            Function<?, ?> function = ((Predicates.AttributePredicate<?, ?>) predicate).function;
+            Integer count = useCounts.get(function);
+            useCounts.put(function, count == null ? 1 : count + 1);
+        }
+    }
+
+    /**
+     * Returns the operands of an and, or or not style predicate, or an empty list for any other predicate.
+     */
+    private static MutableList<Predicate<?>> operands(Predicate<?> predicate)
+    {
+        MutableList<Predicate<?>> operands = FastList.newList();
+        if (predicate instanceof Predicates.AndPredicate)
+        {
+            Predicates.AndPredicate<?> and = (Predicates.AndPredicate<?>) predicate;
+            operands.add(and.left);
+            operands.add(and.right);
+        }
+        else if (predicate instanceof Predicates.OrPredicate)
+        {
+            Predicates.OrPredicate<?> or = (Predicates.OrPredicate<?>) predicate;
+            operands.add(or.left);
+            operands.add(or.right);
+        }
+        else if (predicate instanceof Predicates.NeitherPredicate)
+        {
+            Predicates.NeitherPredicate<?> neither = (Predicates.NeitherPredicate<?>) predicate;
+            operands.add(neither.left);
+            operands.add(neither.right);
+        }
+        else if (predicate instanceof Predicates.AbstractIterablePredicate)
+        {
+            for (Predicate<?> each : ((Predicates.AbstractIterablePredicate<?>) predicate).predicates)
+            {
+                operands.add(each);
+            }
+        }
+        else if (predicate instanceof Predicates.NotPredicate)
+        {
+            operands.add(((Predicates.NotPredicate<?>) predicate).predicate);
+        }
+        return operands;
+    }
+
+    private static Node toNode(
+            Predicate<?> predicate,
+            MutableMap<Function<?, ?>, Integer> useCounts,
+            MutableMap<Function<?, ?>, Integer> slots,
+            MutableList<AdaptiveJunctionNode> adaptiveJunctions)
+    {
+        if (predicate instanceof Predicates.AndPredicate || predicate instanceof Predicates.AndIterablePredicate)
+        {
+            return PredicateCompiler.newJunction(
+                    true,
+                    PredicateCompiler.flatten(predicate, true, useCounts, slots, adaptiveJunctions),
+                    adaptiveJunctions);
+        }
+        if (predicate instanceof Predicates.OrPredicate || predicate instanceof Predicates.OrIterablePredicate)
+        {
+            return PredicateCompiler.newJunction(
+                    false,
+                    PredicateCompiler.flatten(predicate, false, useCounts, slots, adaptiveJunctions),
+                    adaptiveJunctions);
+        }
+        if (predicate instanceof Predicates.NeitherPredicate || predicate instanceof Predicates.NoneOfIterablePredicate)
+        {
+            MutableList<Node> children = FastList.newList();
+            for (Predicate<?> each : PredicateCompiler.operands(predicate))
+            {
+                children.add(PredicateCompiler.toNode(each, useCounts, slots, adaptiveJunctions));
+            }
+            return new NotNode(PredicateCompiler.newJunction(false, children, adaptiveJunctions));
+        }
+        if (predicate instanceof Predicates.NotPredicate)
+        {
+            Predicate<?> negated = ((Predicates.NotPredicate<?>) predicate).predicate;
+            return new NotNode(PredicateCompiler.toNode(negated, useCounts, slots, adaptiveJunctions));
+        }
+        if (predicate instanceof Predicates.AttributePredicate)
+        {
+            Predicates.AttributePredicate<?, ?> attribute = (Predicates.AttributePredicate<?, ?>) predicate;
+            Function<?, ?> function = attribute.function;
+            int slot = -1;
+            if (useCounts != null && useCounts.get(function) > 1)
+            {
+                Integer existingSlot = slots.get(function);
+                slot = existingSlot == null ? slots.size() : existingSlot;
+                slots.put(function, slot);
+            }
+            // The value predicate is applied to the attribute rather than the element, so it shares no attributes
+            Node valueNode = PredicateCompiler.toNode(attribute.predicate, null, null, adaptiveJunctions);
+            return new AttributeNode(function, slot, valueNode);
+        }
+        return new LeafNode(predicate);
+    }
+
+    /**
+     * Collects the operands of a tree of ands (or of ors) into a single list of nodes.
+     */
+    private static MutableList<Node> flatten(
+            Predicate<?> predicate,
+            boolean and,
+            MutableMap<Function<?, ?>, Integer> useCounts,
+            MutableMap<Function<?, ?>, Integer> slots,
+            MutableList<AdaptiveJunctionNode> adaptiveJunctions)
+    {
+        MutableList<Node> children = FastList.newList();
+        for (Predicate<?> each : PredicateCompiler.operands(predicate))
+        {
+            boolean sameOperator = and
+                    ? each instanceof Predicates.AndPredicate || each instanceof Predicates.AndIterablePredicate
+                    : each instanceof Predicates.OrPredicate || each instanceof Predicates.OrIterablePredicate;
+            if (sameOperator)
+            {
+                children.addAll(PredicateCompiler.flatten(each, and, useCounts, slots, adaptiveJunctions));
+            }
+            else
+            {
+                children.add(PredicateCompiler.toNode(each, useCounts, slots, adaptiveJunctions));
+            }
+        }
+        return children;
+    }
+
+    private static Node newJunction(
+            boolean and,
+            MutableList<Node> children,
+            MutableList<AdaptiveJunctionNode> adaptiveJunctions)
+    {
+        if (children.size() == 1)
+        {
+            return children.getFirst();
+        }
+        Node[] nodes = children.toArray(new Node[children.size()]);
+        if (adaptiveJunctions != null)
+        {
+            AdaptiveJunctionNode junction = new AdaptiveJunctionNode(and, nodes, adaptiveJunctions.size());
+            adaptiveJunctions.add(junction);
+            return junction;
+        }
+        return new JunctionNode(and, nodes);
+    }
+
+    private static final class CompiledPredicate<T>
+            extends Predicates<T>
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final Node root;
+        private final int attributeCount;
+        private final AdaptiveJunctionNode[] adaptiveJunctions;
+        private final transient ThreadLocal<Evaluation> evaluations;
+
+        private CompiledPredicate(Node root, int attributeCount, AdaptiveJunctionNode[] adaptiveJunctions)
+        {
+            this.root = root;
+            this.attributeCount = attributeCount;
+            this.adaptiveJunctions = adaptiveJunctions;
+            this.evaluations = attributeCount == 0 && adaptiveJunctions == null ? null : new ThreadLocal<Evaluation>()
+            {
+                @Override
+                protected Evaluation initialValue()
+                {
+                    return new Evaluation(
+                            CompiledPredicate.this.attributeCount,
+                            CompiledPredicate.this.adaptiveJunctions);
+                }
+            };
+        }
+
+        public boolean accept(T each)
+        {
+            if (this.evaluations == null)
+            {
+                return this.root.accept(each, null);
+            }
+            Evaluation evaluation = this.evaluations.get();
+            // Restored afterwards, so that a nested evaluation on the same thread does not invalidate this one
+            long generation = evaluation.generation;
+            evaluation.generation = ++evaluation.lastGeneration;
+            try
+            {
+                return this.root.accept(each, evaluation);
+            }
+            finally
+            {
+                evaluation.generation = generation;
+            }
+        }
+
+        private Object readResolve()
+        {
+            return new CompiledPredicate<T>(this.root, this.attributeCount, this.adaptiveJunctions);
+        }
+
+        @Override
+        public String toString()
+        {
+            return "PredicateCompiler.compile(" + this.root + ")";
+        }
+    }
+
+    /**
+     * One thread's state for evaluating a compiled predicate: the attribute values shared by the operands while an
+     * element is evaluated, and the statistics of each adaptive junction.  An attribute value belongs to the element
+     * being evaluated only if it was computed in the current generation, so the buffer is reused without clearing it.
+     */
+    private static final class Evaluation
+    {
+        private final Object[] attributes;
+        private final long[] attributeGenerations;
+        private final AdaptiveStatistics[] statistics;
+        private long generation;
+        private long lastGeneration;
+
+        private Evaluation(int attributeCount, AdaptiveJunctionNode[] adaptiveJunctions)
+        {
+            this.attributes = new Object[attributeCount];
+            this.attributeGenerations = new long[attributeCount];
+            if (adaptiveJunctions == null)
+            {
+                this.statistics = null;
+            }
+            else
+            {
+                this.statistics = new AdaptiveStatistics[adaptiveJunctions.length];
+                for (int i = 0; i < adaptiveJunctions.length; i++)
+                {
+                    this.statistics[i] = new AdaptiveStatistics(adaptiveJunctions[i].initialOrder);
+                }
+            }
+        }
+
+        private Object attribute(int slot, Function<Object, ?> function, Object object)
+        {
+            long current = this.generation;
+            if (this.attributeGenerations[slot] != current)
+            {
+                Object value = function.valueOf(object);
+                this.attributes[slot] = value;
+                this.attributeGenerations[slot] = current;
+                return value;
+            }
+            return this.attributes[slot];
+        }
+    }
+
+    private abstract static class Node
+            implements Serializable
+    {
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Evaluates this node against the object.  Evaluation holds the calling thread's shared attribute values and
+         * adaptive statistics, and is null when the compiled predicate has neither.
+         */
+        public abstract boolean accept(Object object, Evaluation evaluation);
+
+        /**
+         * A relative estimate of the cost of evaluating this node, used to order the operands of an adaptive junction.
+         */
+        public abstract int cost();
+    }
+
+    private static final class LeafNode
+            extends Node
+    {
+        private static final long serialVersionUID = 1L;
+        private final Predicate<Object> predicate;
+
+        @SuppressWarnings("unchecked")
+        private LeafNode(Predicate<?> predicate)
+        {
+            this.predicate = (Predicate<Object>) predicate;
+        }
+
+        @Override
+        public boolean accept(Object object, Evaluation evaluation)
+        {
+            return this.predicate.accept(object);
+        }
+
+        @Override
+        public int cost()
+        {
+            return 1;
+        }
+
+        @Override
+        public String toString()
+        {
+            return this.predicate.toString();
+        }
+    }
+
+    private static final class NotNode
+            extends Node
+    {
+        private static final long serialVersionUID = 1L;
+        private final Node node;
+
+        private NotNode(Node node)
+        {
+            this.node = node;
+        }
+
+        @Override
+        public boolean accept(Object object, Evaluation evaluation)
+        {
+            return !this.node.accept(object, evaluation);
+        }
+
+        @Override
+        public int cost()
+        {
+            return this.node.cost();
+        }
+
+        @Override
+        public String toString()
+        {
+            return "not(" + this.node + ')';
+        }
+    }
+
+    private static final class AttributeNode
+            extends Node
+    {
+        private static final long serialVersionUID = 1L;
+        private final Function<Object, ?> function;
+        private final int slot;
+        private final Node valueNode;
+
+        @SuppressWarnings("unchecked")
+        private AttributeNode(Function<?, ?> function, int slot, Node valueNode)
+        {
+            this.function = (Function<Object, ?>) function;
+            this.slot = slot;
+            this.valueNode = valueNode;
+        }
+
+        @Override
+        public boolean accept(Object object, Evaluation evaluation)
+        {
+            Object value = this.slot < 0
+                    ? this.function.valueOf(object)
+                    : evaluation.attribute(this.slot, this.function, object);
+            return this.valueNode.accept(value, evaluation);
+        }
+
+        @Override
+        public int cost()
+        {
+            return 2 + this.valueNode.cost();
+        }
+
+        @Override
+        public String toString()
+        {
+            return "attribute(" + this.function + ", " + this.valueNode + ')';
+        }
+    }
+
+    private static class JunctionNode
+            extends Node
+    {
+        private static final long serialVersionUID = 1L;
+        protected final boolean and;
+        protected final Node[] children;
+
+        private JunctionNode(boolean and, Node[] children)
+        {
+            this.and = and;
+            this.children = children;
+        }
+
+        @Override
+        public boolean accept(Object object, Evaluation evaluation)
+        {
+            // An and stops at the first false operand, and an or at the first true one
+            for (Node child : this.children)
+            {
+                if (child.accept(object, evaluation) != this.and)
+                {
+                    return !this.and;
+                }
+            }
+            return this.and;
+        }
+
+        @Override
+        public int cost()
+        {
+            int cost = 0;
+            for (Node child : this.children)
+            {
+                cost += child.cost();
+            }
+            return cost;
+        }
+
+        protected String toString(Node[] orderedChildren)
+        {
+            StringBuilder builder = new StringBuilder(this.and ? "and(" : "or(");
+            for (int i = 0; i < orderedChildren.length; i++)
+            {
+                if (i > 0)
+                {
+                    builder.append(", ");
+                }
+                builder.append(orderedChildren[i]);
+            }
+            return builder.append(')').toString();
+        }
+
+        @Override
+        public String toString()
+        {
+            return this.toString(this.children);
+        }
+    }
+
+    /**
+     * The statistics one thread has gathered for an adaptive junction, and the operand order derived from them.
+     */
+    private static final class AdaptiveStatistics
+    {
+        private final long[] evaluations;
+        private final long[] decisions;
+        private int[] order;
+        private int evaluationsSinceReorder;
+
+        private AdaptiveStatistics(int[] initialOrder)
+        {
+            this.evaluations = new long[initialOrder.length];
+            this.decisions = new long[initialOrder.length];
+            this.order = initialOrder.clone();
+        }
+    }
+
+    /**
+     * A junction which counts how often each operand decides the result, and periodically reorders its operands so
+     * that the ones which most often decide it, for the least cost, are evaluated first.  The counts and the order
+     * are kept per thread, in the AdaptiveStatistics found at this junction's index in the Evaluation.
+     */
+    private static final class AdaptiveJunctionNode
+            extends JunctionNode
+    {
+        private static final long serialVersionUID = 1L;
+        private static final int REORDER_INTERVAL = 1 << 10;
+
+        private final int[] costs;
+        private final int[] initialOrder;
+        private final int index;
+
+        private AdaptiveJunctionNode(boolean and, Node[] children, int index)
+        {
+            super(and, children);
+            this.index = index;
+            int size = children.length;
+            this.costs = new int[size];
+            Integer[] initialOrder = new Integer[size];
+            for (int i = 0; i < size; i++)
+            {
+                this.costs[i] = children[i].cost();
+                initialOrder[i] = i;
+            }
+            // Until there are statistics, the cheapest operands go first; the sort is stable for equal costs
+            Arrays.sort(initialOrder, new Comparator<Integer>()
+            {
+                public int compare(Integer one, Integer two)
+                {
+                    return AdaptiveJunctionNode.this.costs[one] - AdaptiveJunctionNode.this.costs[two];
+                }
+            });
+            this.initialOrder = PredicateCompiler.toIntArray(initialOrder);
+        }
+
+        @Override
+        public boolean accept(Object object, Evaluation evaluation)
+        {
+            AdaptiveStatistics statistics = evaluation.statistics[this.index];
+            if (++statistics.evaluationsSinceReorder >= REORDER_INTERVAL)
+            {
+                statistics.evaluationsSinceReorder = 0;
+                this.reorder(statistics);
+            }
+            for (int child : statistics.order)
+            {
+                statistics.evaluations[child]++;
+                if (this.children[child].accept(object, evaluation) != this.and)
+                {
+                    statistics.decisions[child]++;
+                    return !this.and;
+                }
+            }
+            return this.and;
+        }
+
+        /**
+         * Orders the operands by their expected cost per decision: cost divided by the observed probability that the
+         * operand decides the result (is false for an and, true for an or).
+         */
+        private void reorder(AdaptiveStatistics statistics)
+        {
+            int size = this.children.length;
+            final double[] ranks = new double[size];
+            Integer[] newOrder = new Integer[size];
+            for (int i = 0; i < size; i++)
+            {
+                // Laplace smoothing so that operands which have rarely been evaluated are not ranked on no evidence
+                double decisionRate = (statistics.decisions[i] + 1.0) / (statistics.evaluations[i] + 2.0);
+                ranks[i] = this.costs[i] / decisionRate;
+                newOrder[i] = i;
+            }
+            Arrays.sort(newOrder, new Comparator<Integer>()
+            {
+                public int compare(Integer one, Integer two)
+                {
+                    return Double.compare(ranks[one], ranks[two]);
+                }
+            });
+            statistics.order = PredicateCompiler.toIntArray(newOrder);
+        }
+
+        @Override
+        public String toString()
+        {
+            Node[] orderedChildren = new Node[this.initialOrder.length];
+            for (int i = 0; i < this.initialOrder.length; i++)
+            {
+                orderedChildren[i] = this.children[this.initialOrder[i]];
+            }
+            return this.toString(orderedChildren);
+        }
+    }
+
+    private static int[] toIntArray(Integer[] integers)
+    {
+        int[] result = new int[integers.length];
+        for (int i = 0; i < integers.length; i++)
+        {
+            result[i] = integers[i];
+        }
+        return result;
+    }
+}
@@ -16,10 +16,17 @@
 
 package ponzu.impl.block.factory;
 
+import java.io.Serializable;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Set;
 
 import ponzu.api.block.function.Function;
 import ponzu.api.block.predicate.Predicate;
+import ponzu.impl.list.Interval;
+import ponzu.impl.set.mutable.UnifiedSet;
+import ponzu.impl.set.mutable.primitive.IntHashSet;
+import ponzu.impl.set.mutable.primitive.LongHashSet;
 import ponzu.impl.utility.Iterate;
 
 /**
@@ -37,6 +44,11 @@ public abstract class Predicates<T>
     private static final Predicates<Object> IS_NULL = new IsNull();
     private static final Predicates<Object> NOT_NULL = new NotNull();
 
+    /**
+     * The largest number of values which in and notIn check by scanning an array rather than by building a hash index.
+     */
+    private static final int SMALL_IN_SIZE = 8;
+
     public static <T> Predicates<T> adapt(Predicate<T> predicate)
     {
         return new PredicateAdapter<T>(predicate);
@@ -167,21 +179,27 @@ public abstract class Predicates<T>
 
     /**
      * Creates a predicate which returns true if an object passed to accept method is contained in the iterable.
-     * This will clearly work faster if the specified iterable is a Set.
+     * A Set or Interval is used directly.  Any other iterable is copied when the predicate is created into an index
+     * suited to its contents: an array for a handful of values, a primitive hash set when all of the values are
+     * Integers or all are Longs, and otherwise a UnifiedSet.
      */
     public static Predicates<Object> in(Iterable<?> iterable)
     {
-        return new InPredicate(iterable);
+        return new InPredicate(Predicates.newMembership(iterable));
     }
 
+    /**
+     * Creates a predicate which returns true if an object passed to accept method is contained in the array.  The
+     * values are copied into an index in the same way as {@link #in(Iterable)}.
+     */
     public static Predicates<Object> in(Object[] array)
     {
-        return new InPredicate(Arrays.asList(array));
+        return new InPredicate(Predicates.newMembership(array));
     }
 
     /**
      * Creates a predicate which returns true if an attribute selected from an object passed to accept method
-     * is contained in the iterable.  This will clearly work faster if the specified iterable is a Set.
+     * is contained in the iterable.  The iterable is indexed in the same way as {@link #in(Iterable)}.
      */
     public static <T> Predicates<T> attributeIn(
             Function<? super T, ?> function,
@@ -224,21 +242,21 @@ public abstract class Predicates<T>
 
     /**
      * Creates a predicate which returns true if an object passed to accept method is not contained in
-     * the iterable.  This will clearly work faster if the specified iterable is a Set.
+     * the iterable.  The iterable is indexed in the same way as {@link #in(Iterable)}.
      */
     public static Predicates<Object> notIn(Iterable<?> iterable)
     {
-        return new NotInPredicate(iterable);
+        return new NotInPredicate(Predicates.newMembership(iterable));
     }
 
     public static Predicates<Object> notIn(Object[] array)
     {
-        return new NotInPredicate(Arrays.asList(array));
+        return new NotInPredicate(Predicates.newMembership(array));
     }
 
     /**
      * Creates a predicate which returns true if an attribute selected from an object passed to accept method
-     * is not contained in the iterable.  This will clearly work faster if the specified iterable is a Set.
+     * is not contained in the iterable.  The iterable is indexed in the same way as {@link #in(Iterable)}.
      */
     public static <T> Predicates<T> attributeNotIn(
             Function<? super T, ?> function,
@@ -247,6 +265,49 @@ public abstract class Predicates<T>
         return new AttributePredicate<T, Object>(function, Predicates.notIn(iterable));
     }
 
+    private static Membership newMembership(Iterable<?> iterable)
+    {
+        if (iterable instanceof Set<?> || iterable instanceof Interval)
+        {
+            return new CollectionMembership((Collection<?>) iterable);
+        }
+        return Predicates.newMembership(Iterate.toArray(iterable));
+    }
+
+    private static Membership newMembership(Object[] array)
+    {
+        if (array.length <= SMALL_IN_SIZE)
+        {
+            return new ArrayMembership(array.clone());
+        }
+        boolean allIntegers = true;
+        boolean allLongs = true;
+        for (Object each : array)
+        {
+            allIntegers &= each instanceof Integer;
+            allLongs &= each instanceof Long;
+        }
+        if (allIntegers)
+        {
+            IntHashSet set = new IntHashSet(array.length);
+            for (Object each : array)
+            {
+                set.add((Integer) each);
+            }
+            return new IntMembership(set);
+        }
+        if (allLongs)
+        {
+            LongHashSet set = new LongHashSet(array.length);
+            for (Object each : array)
+            {
+                set.add((Long) each);
+            }
+            return new LongMembership(set);
+        }
+        return new CollectionMembership(UnifiedSet.newSetWith(array));
+    }
+
     public static <T extends Comparable<? super T>> Predicates<T> lessThan(T object)
     {
         return new LessThanPredicate<T>(object);
@@ -745,7 +806,7 @@ public abstract class Predicates<T>
         }
     }
 
-    private static final class AndIterablePredicate<T>
+    static final class AndIterablePredicate<T>
             extends AbstractIterablePredicate<T>
     {
         private static final long serialVersionUID = 1L;
@@ -774,7 +835,7 @@ public abstract class Predicates<T>
         }
     }
 
-    private static final class OrIterablePredicate<T>
+    static final class OrIterablePredicate<T>
             extends AbstractIterablePredicate<T>
     {
         private static final long serialVersionUID = 1L;
@@ -803,7 +864,7 @@ public abstract class Predicates<T>
         }
     }
 
-    private static final class NoneOfIterablePredicate<T>
+    static final class NoneOfIterablePredicate<T>
             extends AbstractIterablePredicate<T>
     {
         private static final long serialVersionUID = 1L;
@@ -832,7 +893,7 @@ public abstract class Predicates<T>
         }
     }
 
-    private abstract static class AbstractIterablePredicate<T>
+    abstract static class AbstractIterablePredicate<T>
             extends Predicates<T>
     {
         private static final long serialVersionUID = 1L;
@@ -852,12 +913,12 @@ public abstract class Predicates<T>
         }
     }
 
-    private static final class AndPredicate<T>
+    static final class AndPredicate<T>
             extends Predicates<T>
     {
         private static final long serialVersionUID = 1L;
-        private final Predicate<? super T> left;
-        private final Predicate<? super T> right;
+        final Predicate<? super T> left;
+        final Predicate<? super T> right;
 
         private AndPredicate(Predicate<? super T> one, Predicate<? super T> two)
         {
@@ -877,12 +938,12 @@ public abstract class Predicates<T>
         }
     }
 
-    private static final class NeitherPredicate<T>
+    static final class NeitherPredicate<T>
             extends Predicates<T>
     {
         private static final long serialVersionUID = 1L;
-        private final Predicate<? super T> left;
-        private final Predicate<? super T> right;
+        final Predicate<? super T> left;
+        final Predicate<? super T> right;
 
         private NeitherPredicate(Predicate<? super T> one, Predicate<? super T> two)
         {
@@ -902,12 +963,12 @@ public abstract class Predicates<T>
         }
     }
 
-    private static final class OrPredicate<T>
+    static final class OrPredicate<T>
             extends Predicates<T>
     {
         private static final long serialVersionUID = 1L;
-        private final Predicate<? super T> left;
-        private final Predicate<? super T> right;
+        final Predicate<? super T> left;
+        final Predicate<? super T> right;
 
         private OrPredicate(Predicate<? super T> one, Predicate<? super T> two)
         {
@@ -927,11 +988,11 @@ public abstract class Predicates<T>
         }
     }
 
-    private static final class NotPredicate<T>
+    static final class NotPredicate<T>
             extends Predicates<T>
     {
         private static final long serialVersionUID = 1L;
-        private final Predicate<T> predicate;
+        final Predicate<T> predicate;
 
         private NotPredicate(Predicate<T> newPredicate)
         {
@@ -977,22 +1038,22 @@ public abstract class Predicates<T>
             extends Predicates<Object>
     {
         private static final long serialVersionUID = 1L;
-        private final Iterable<?> iterable;
+        private final Membership membership;
 
-        private InPredicate(Iterable<?> iterable)
+        private InPredicate(Membership membership)
         {
-            this.iterable = iterable;
+            this.membership = membership;
         }
 
         public boolean accept(Object anObject)
         {
-            return Iterate.contains(this.iterable, anObject);
+            return this.membership.contains(anObject);
         }
 
         @Override
         public String toString()
         {
-            return "Predicates.in(" + this.iterable + ')';
+            return "Predicates.in(" + this.membership + ')';
         }
     }
 
@@ -1000,22 +1061,136 @@ public abstract class Predicates<T>
             extends Predicates<Object>
     {
         private static final long serialVersionUID = 1L;
-        private final Iterable<?> iterable;
+        private final Membership membership;
 
-        private NotInPredicate(Iterable<?> iterable)
+        private NotInPredicate(Membership membership)
         {
-            this.iterable = iterable;
+            this.membership = membership;
         }
 
         public boolean accept(Object anObject)
         {
-            return !Iterate.contains(this.iterable, anObject);
+            return !this.membership.contains(anObject);
+        }
+
+        @Override
+        public String toString()
+        {
+            return "Predicates.notIn(" + this.membership + ')';
+        }
+    }
+
+    /**
+     * The index built by in and notIn to answer whether an object is one of the values they were created with.
+     */
+    private abstract static class Membership
+            implements Serializable
+    {
+        private static final long serialVersionUID = 1L;
+
+        public abstract boolean contains(Object object);
+    }
+
+    private static final class CollectionMembership
+            extends Membership
+    {
+        private static final long serialVersionUID = 1L;
+        private final Collection<?> collection;
+
+        private CollectionMembership(Collection<?> collection)
+        {
+            this.collection = collection;
+        }
+
+        @Override
+        public boolean contains(Object object)
+        {
+            return this.collection.contains(object);
+        }
+
+        @Override
+        public String toString()
+        {
+            return this.collection.toString();
+        }
+    }
+
+    private static final class ArrayMembership
+            extends Membership
+    {
+        private static final long serialVersionUID = 1L;
+        private final Object[] array;
+
+        private ArrayMembership(Object[] array)
+        {
+            this.array = array;
+        }
+
+        @Override
+        public boolean contains(Object object)
+        {
+            for (Object each : this.array)
+            {
+                if (object == null ? each == null : object.equals(each))
+                {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public String toString()
+        {
+            return Arrays.toString(this.array);
+        }
+    }
+
+    private static final class IntMembership
+            extends Membership
+    {
+        private static final long serialVersionUID = 1L;
+        private final IntHashSet set;
+
+        private IntMembership(IntHashSet set)
+        {
+            this.set = set;
+        }
+
+        @Override
+        public boolean contains(Object object)
+        {
+            return object instanceof Integer && this.set.contains((Integer) object);
+        }
+
+        @Override
+        public String toString()
+        {
+            return this.set.toString();
+        }
+    }
+
+    private static final class LongMembership
+            extends Membership
+    {
+        private static final long serialVersionUID = 1L;
+        private final LongHashSet set;
+
+        private LongMembership(LongHashSet set)
+        {
+            this.set = set;
+        }
+
+        @Override
+        public boolean contains(Object object)
+        {
+            return object instanceof Long && this.set.contains((Long) object);
         }
 
         @Override
         public String toString()
         {
-            return "Predicates.notIn(" + this.iterable + ')';
+            return this.set.toString();
         }
     }
 
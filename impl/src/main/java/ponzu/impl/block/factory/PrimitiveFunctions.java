@@ -0,0 +1,117 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ponzu.impl.block.factory;
+
+import ponzu.api.block.function.primitive.DoubleFunction;
+import ponzu.api.block.function.primitive.IntFunction;
+import ponzu.api.block.function.primitive.LongFunction;
+
+/**
+ * Factory for primitive functions which unbox Integer and Number values, for use with
+ * transformToInt, transformToLong and transformToDouble.
+ */
+public final class PrimitiveFunctions
+{
+    private static final IntFunction<Integer> UNBOX_INTEGER_TO_INT = new UnboxIntegerToInt();
+    private static final LongFunction<Integer> UNBOX_INTEGER_TO_LONG = new UnboxIntegerToLong();
+    private static final DoubleFunction<Integer> UNBOX_INTEGER_TO_DOUBLE = new UnboxIntegerToDouble();
+    private static final IntFunction<Number> UNBOX_NUMBER_TO_INT = new UnboxNumberToInt();
+    private static final LongFunction<Number> UNBOX_NUMBER_TO_LONG = new UnboxNumberToLong();
+    private static final DoubleFunction<Number> UNBOX_NUMBER_TO_DOUBLE = new UnboxNumberToDouble();
+
+    private PrimitiveFunctions()
+    {
+        throw new AssertionError("Suppress default constructor for noninstantiability");
+    }
+
+    public static IntFunction<Integer> unboxIntegerToInt()
+    {
+        return UNBOX_INTEGER_TO_INT;
+    }
+
+    public static LongFunction<Integer> unboxIntegerToLong()
+    {
+        return UNBOX_INTEGER_TO_LONG;
+    }
+
+    public static DoubleFunction<Integer> unboxIntegerToDouble()
+    {
+        return UNBOX_INTEGER_TO_DOUBLE;
+    }
+
+    public static IntFunction<Number> unboxNumberToInt()
+    {
+        return UNBOX_NUMBER_TO_INT;
+    }
+
+    public static LongFunction<Number> unboxNumberToLong()
+    {
+        return UNBOX_NUMBER_TO_LONG;
+    }
+
+    public static DoubleFunction<Number> unboxNumberToDouble()
+    {
+        return UNBOX_NUMBER_TO_DOUBLE;
+    }
+
+    private static class UnboxIntegerToInt implements IntFunction<Integer>
+    {
+        public int intValueOf(Integer integer)
+        {
+            return integer.intValue();
+        }
+    }
+
+    private static class UnboxIntegerToLong implements LongFunction<Integer>
+    {
+        public long longValueOf(Integer integer)
+        {
+            return integer.longValue();
+        }
+    }
+
+    private static class UnboxIntegerToDouble implements DoubleFunction<Integer>
+    {
+        public double doubleValueOf(Integer integer)
+        {
+            return integer.doubleValue();
+        }
+    }
+
+    private static class UnboxNumberToInt implements IntFunction<Number>
+    {
+        public int intValueOf(Number number)
+        {
+            return number.intValue();
+        }
+    }
+
+    private static class UnboxNumberToLong implements LongFunction<Number>
+    {
+        public long longValueOf(Number number)
+        {
+            return number.longValue();
+        }
+    }
+
+    private static class UnboxNumberToDouble implements DoubleFunction<Number>
+    {
+        public double doubleValueOf(Number number)
+        {
+            return number.doubleValue();
+        }
+    }
+}
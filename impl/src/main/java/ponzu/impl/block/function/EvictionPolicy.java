@@ -0,0 +1,47 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.block.function;
+
+/**
+ * The strategy a bounded cache uses to choose which entry to discard once it is full.
+ *
+ * @since 1.1
+ */
+public enum EvictionPolicy
+{
+    /**
+     * Discards the entry that was read or written least recently.
+     */
+    LRU,
+
+    /**
+     * Discards the entry that has been read the fewest times, breaking ties by discarding the eldest.
+     */
+    LFU,
+
+    /**
+     * Discards the entry that was inserted first, regardless of how often it has been read.
+     */
+    FIFO,
+
+    /**
+     * Admits new entries through a small LRU window; an entry leaving the window replaces the eldest entry of the main
+     * LRU region only if a frequency sketch estimates that it has been requested more often, so one-off entries cannot
+     * flush out frequently used ones.
+     */
+    TINY_LFU
+}
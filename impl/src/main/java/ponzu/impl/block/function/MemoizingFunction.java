@@ -0,0 +1,260 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.block.function;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+
+import ponzu.api.block.function.Function;
+import ponzu.api.block.function.Generator;
+import ponzu.impl.map.mutable.CacheMap;
+import ponzu.impl.map.mutable.CacheStatistics;
+
+/**
+ * A Function that remembers the results of its delegate in a bounded {@link CacheMap}.  Once the cache holds maxSize
+ * results, caching another one discards the result chosen by the {@link EvictionPolicy}.  Null arguments and null
+ * results are cached like any other.
+ * <p>
+ * A striped MemoizingFunction may be shared between threads.  Its cache is split into independently locked segments
+ * chosen by the argument's hash code, and the delegate is evaluated outside of any lock, so two threads that miss on
+ * the same argument at the same time may both evaluate it.  An unstriped MemoizingFunction is not thread-safe.
+ * <p>
+ * The cached results are not serialized; a deserialized MemoizingFunction starts out empty.
+ *
+ * @since 1.1
+ */
+public class MemoizingFunction<T, V> implements Function<T, V>
+{
+    private static final long serialVersionUID = 1L;
+
+    private static final int MAX_STRIPES = 4 * Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Returned by a lookup which finds no cached result, so that a cached null result is told apart in a single lookup.
+     */
+    private static final Object NOT_CACHED = new Object();
+
+    private static final Generator<Object> NOT_CACHED_GENERATOR = new Generator<Object>()
+    {
+        public Object value()
+        {
+            return NOT_CACHED;
+        }
+    };
+
+    private final Function<? super T, ? extends V> function;
+    private final int maxSize;
+    private final EvictionPolicy evictionPolicy;
+    private final boolean striped;
+    private transient CacheMap<T, V>[] segments;
+
+    public MemoizingFunction(Function<? super T, ? extends V> function, int maxSize, EvictionPolicy evictionPolicy)
+    {
+        this(function, maxSize, evictionPolicy, false);
+    }
+
+    public MemoizingFunction(
+            Function<? super T, ? extends V> function,
+            int maxSize,
+            EvictionPolicy evictionPolicy,
+            boolean striped)
+    {
+        if (function == null)
+        {
+            throw new IllegalArgumentException("Cannot memoize a null function");
+        }
+        if (maxSize < 1)
+        {
+            throw new IllegalArgumentException("maxSize must be positive but was " + maxSize);
+        }
+        if (evictionPolicy == null)
+        {
+            throw new IllegalArgumentException("evictionPolicy must not be null");
+        }
+        this.function = function;
+        this.maxSize = maxSize;
+        this.evictionPolicy = evictionPolicy;
+        this.striped = striped;
+        this.segments = this.newSegments();
+    }
+
+    @SuppressWarnings("unchecked")
+    private CacheMap<T, V>[] newSegments()
+    {
+        int stripes = 1;
+        if (this.striped)
+        {
+            while (stripes < MAX_STRIPES && stripes << 1 <= this.maxSize)
+            {
+                stripes <<= 1;
+            }
+        }
+        CacheMap<T, V>[] result = (CacheMap<T, V>[]) new CacheMap<?, ?>[stripes];
+        int capacity = this.maxSize / stripes;
+        int remainder = this.maxSize % stripes;
+        for (int i = 0; i < stripes; i++)
+        {
+            result[i] = CacheMap.newCache(i < remainder ? capacity + 1 : capacity, this.evictionPolicy);
+        }
+        return result;
+    }
+
+    private CacheMap<T, V> segmentFor(T argument)
+    {
+        if (this.segments.length == 1)
+        {
+            return this.segments[0];
+        }
+        int h = argument == null ? 0 : argument.hashCode();
+        h ^= h >>> 20 ^ h >>> 12;
+        h ^= h >>> 7 ^ h >>> 4;
+        return this.segments[h & this.segments.length - 1];
+    }
+
+    public V valueOf(T argument)
+    {
+        CacheMap<T, V> segment = this.segmentFor(argument);
+        if (!this.striped)
+        {
+            return segment.getIfAbsentPutWith(argument, this.function, argument);
+        }
+        synchronized (segment)
+        {
+            V result = segment.getIfAbsent(argument, MemoizingFunction.<V>notCached());
+            if (result != NOT_CACHED)
+            {
+                return result;
+            }
+        }
+        V value = this.function.valueOf(argument);
+        synchronized (segment)
+        {
+            V existing = segment.putIfAbsent(argument, value);
+            return existing == null ? value : existing;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> Generator<V> notCached()
+    {
+        return (Generator<V>) NOT_CACHED_GENERATOR;
+    }
+
+    public int getMaxSize()
+    {
+        return this.maxSize;
+    }
+
+    public EvictionPolicy getEvictionPolicy()
+    {
+        return this.evictionPolicy;
+    }
+
+    public boolean isStriped()
+    {
+        return this.striped;
+    }
+
+    /**
+     * Returns the number of results currently cached.
+     */
+    public int size()
+    {
+        int size = 0;
+        for (CacheMap<T, V> segment : this.segments)
+        {
+            synchronized (segment)
+            {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Returns the hit, miss and eviction counts summed over every segment.
+     */
+    public CacheStatistics getStatistics()
+    {
+        long hitCount = 0L;
+        long missCount = 0L;
+        long evictionCount = 0L;
+        long expirationCount = 0L;
+        for (CacheMap<T, V> segment : this.segments)
+        {
+            synchronized (segment)
+            {
+                CacheStatistics statistics = segment.getStatistics();
+                hitCount += statistics.getHitCount();
+                missCount += statistics.getMissCount();
+                evictionCount += statistics.getEvictionCount();
+                expirationCount += statistics.getExpirationCount();
+            }
+        }
+        return new CacheStatistics(hitCount, missCount, evictionCount, expirationCount);
+    }
+
+    /**
+     * Returns the number of evaluations that were answered from the cache.
+     */
+    public long getHitCount()
+    {
+        return this.getStatistics().getHitCount();
+    }
+
+    /**
+     * Returns the number of evaluations that had to call the delegate function.
+     */
+    public long getMissCount()
+    {
+        return this.getStatistics().getMissCount();
+    }
+
+    /**
+     * Returns the number of results that were discarded to make room for newer ones.
+     */
+    public long getEvictionCount()
+    {
+        return this.getStatistics().getEvictionCount();
+    }
+
+    /**
+     * Discards every cached result.  The hit, miss and eviction counts are kept.
+     */
+    public void clear()
+    {
+        for (CacheMap<T, V> segment : this.segments)
+        {
+            synchronized (segment)
+            {
+                segment.clear();
+            }
+        }
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException
+    {
+        in.defaultReadObject();
+        this.segments = this.newSegments();
+    }
+
+    @Override
+    public String toString()
+    {
+        return "MemoizingFunction(" + this.function + ", " + this.maxSize + ", " + this.evictionPolicy + ')';
+    }
+}
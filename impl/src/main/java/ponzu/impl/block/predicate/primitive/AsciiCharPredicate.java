@@ -0,0 +1,208 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.block.predicate.primitive;
+
+/**
+ * A CharPredicate backed by a lookup table for the 128 ASCII characters.  Scanning loops such as
+ * {@link ponzu.impl.utility.StringIterate#count(String, CharPredicate)} recognise this class and call it directly, so
+ * classifying a character costs a single array load rather than a call through the Character tables.
+ * <p/>
+ * Characters outside the ASCII range are passed to an optional fallback predicate, and are rejected if there is none.
+ * The ASCII constants therefore only accept ASCII characters, unlike their counterparts on {@link CharPredicate}.
+ *
+ * @since 1.1
+ */
+public final class AsciiCharPredicate
+        implements CharPredicate
+{
+    public static final AsciiCharPredicate IS_ASCII_UPPERCASE = AsciiCharPredicate.range('A', 'Z');
+    public static final AsciiCharPredicate IS_ASCII_LOWERCASE = AsciiCharPredicate.range('a', 'z');
+    public static final AsciiCharPredicate IS_ASCII_DIGIT = AsciiCharPredicate.range('0', '9');
+    public static final AsciiCharPredicate IS_ASCII_LETTER = IS_ASCII_UPPERCASE.or(IS_ASCII_LOWERCASE);
+    public static final AsciiCharPredicate IS_ASCII_LETTER_OR_DIGIT = IS_ASCII_LETTER.or(IS_ASCII_DIGIT);
+    public static final AsciiCharPredicate IS_ASCII_WHITESPACE = AsciiCharPredicate.anyOf(" \t\n\u000B\f\r");
+
+    private static final long serialVersionUID = 1L;
+    private static final int ASCII_SIZE = 128;
+
+    private final boolean[] table;
+    private final CharPredicate nonAsciiPredicate;
+
+    private AsciiCharPredicate(boolean[] table, CharPredicate nonAsciiPredicate)
+    {
+        this.table = table;
+        this.nonAsciiPredicate = nonAsciiPredicate;
+    }
+
+    /**
+     * Returns a predicate which accepts exactly the characters in the specified string.
+     */
+    public static AsciiCharPredicate anyOf(String characters)
+    {
+        boolean[] table = new boolean[ASCII_SIZE];
+        boolean hasNonAscii = false;
+        for (int i = 0; i < characters.length(); i++)
+        {
+            char each = characters.charAt(i);
+            if (each < ASCII_SIZE)
+            {
+                table[each] = true;
+            }
+            else
+            {
+                hasNonAscii = true;
+            }
+        }
+        return new AsciiCharPredicate(table, hasNonAscii ? new NonAsciiCharacters(characters) : null);
+    }
+
+    /**
+     * Returns a predicate which accepts the characters from {@code from} to {@code to} inclusive.  Both bounds must be
+     * ASCII characters.
+     */
+    public static AsciiCharPredicate range(char from, char to)
+    {
+        if (from > to || to >= ASCII_SIZE)
+        {
+            throw new IllegalArgumentException("Range must be ascending ASCII characters: " + from + ".." + to);
+        }
+        boolean[] table = new boolean[ASCII_SIZE];
+        for (int i = from; i <= to; i++)
+        {
+            table[i] = true;
+        }
+        return new AsciiCharPredicate(table, null);
+    }
+
+    /**
+     * Returns a predicate which answers the same as the specified predicate, with its answers for the ASCII characters
+     * computed once up front.  Non-ASCII characters are still passed to the specified predicate.
+     */
+    public static AsciiCharPredicate of(CharPredicate predicate)
+    {
+        if (predicate instanceof AsciiCharPredicate)
+        {
+            return (AsciiCharPredicate) predicate;
+        }
+        boolean[] table = new boolean[ASCII_SIZE];
+        for (char each = 0; each < ASCII_SIZE; each++)
+        {
+            table[each] = predicate.accept(each);
+        }
+        return new AsciiCharPredicate(table, predicate);
+    }
+
+    public boolean accept(char character)
+    {
+        if (character < ASCII_SIZE)
+        {
+            return this.table[character];
+        }
+        return this.nonAsciiPredicate != null && this.nonAsciiPredicate.accept(character);
+    }
+
+    /**
+     * Returns a predicate which accepts the ASCII characters accepted by either this or the specified predicate.
+     */
+    public AsciiCharPredicate or(AsciiCharPredicate other)
+    {
+        boolean[] table = new boolean[ASCII_SIZE];
+        for (int i = 0; i < ASCII_SIZE; i++)
+        {
+            table[i] = this.table[i] || other.table[i];
+        }
+        CharPredicate nonAscii = this.nonAsciiPredicate;
+        if (nonAscii == null)
+        {
+            nonAscii = other.nonAsciiPredicate;
+        }
+        else if (other.nonAsciiPredicate != null)
+        {
+            nonAscii = new OrCharPredicate(this.nonAsciiPredicate, other.nonAsciiPredicate);
+        }
+        return new AsciiCharPredicate(table, nonAscii);
+    }
+
+    /**
+     * Returns a predicate which accepts every character this predicate rejects.
+     */
+    public AsciiCharPredicate not()
+    {
+        boolean[] table = new boolean[ASCII_SIZE];
+        for (int i = 0; i < ASCII_SIZE; i++)
+        {
+            table[i] = !this.table[i];
+        }
+        return new AsciiCharPredicate(table, new NotCharPredicate(this.nonAsciiPredicate));
+    }
+
+    private static final class NonAsciiCharacters
+            implements CharPredicate
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final String characters;
+
+        private NonAsciiCharacters(String characters)
+        {
+            this.characters = characters;
+        }
+
+        public boolean accept(char character)
+        {
+            return this.characters.indexOf(character) >= 0;
+        }
+    }
+
+    private static final class OrCharPredicate
+            implements CharPredicate
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final CharPredicate left;
+        private final CharPredicate right;
+
+        private OrCharPredicate(CharPredicate left, CharPredicate right)
+        {
+            this.left = left;
+            this.right = right;
+        }
+
+        public boolean accept(char character)
+        {
+            return this.left.accept(character) || this.right.accept(character);
+        }
+    }
+
+    private static final class NotCharPredicate
+            implements CharPredicate
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final CharPredicate predicate;
+
+        private NotCharPredicate(CharPredicate predicate)
+        {
+            this.predicate = predicate;
+        }
+
+        public boolean accept(char character)
+        {
+            return this.predicate == null || !this.predicate.accept(character);
+        }
+    }
+}
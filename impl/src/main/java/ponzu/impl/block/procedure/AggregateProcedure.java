@@ -0,0 +1,49 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.block.procedure;
+
+import ponzu.api.block.function.Function2;
+import ponzu.api.block.procedure.Procedure;
+
+/**
+ * Folds each object into an accumulated result using an accumulator function, starting from an initial value.
+ *
+ * @since 1.1
+ */
+public class AggregateProcedure<T, A> implements Procedure<T>
+{
+    private static final long serialVersionUID = 1L;
+
+    private final Function2<? super A, ? super T, ? extends A> accumulator;
+    private A result;
+
+    public AggregateProcedure(A initialValue, Function2<? super A, ? super T, ? extends A> accumulator)
+    {
+        this.result = initialValue;
+        this.accumulator = accumulator;
+    }
+
+    public void value(T object)
+    {
+        this.result = this.accumulator.value(this.result, object);
+    }
+
+    public A getResult()
+    {
+        return this.result;
+    }
+}
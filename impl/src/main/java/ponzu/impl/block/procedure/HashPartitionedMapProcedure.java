@@ -0,0 +1,73 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.block.procedure;
+
+import ponzu.api.block.function.Function;
+import ponzu.api.block.procedure.Procedure;
+import ponzu.impl.map.mutable.UnifiedMap;
+
+/**
+ * Puts the key and value calculated for each object into one of several UnifiedMaps, chosen by
+ * {@link UnifiedMap#hashPartition(Object, int)}, so that the maps built by separate batches can later be merged
+ * partition by partition.
+ *
+ * @since 1.1
+ */
+public class HashPartitionedMapProcedure<T, K, V> implements Procedure<T>
+{
+    private static final long serialVersionUID = 1L;
+
+    private final Function<? super T, ? extends K> keyFunction;
+    private final Function<? super T, ? extends V> valueFunction;
+    private final UnifiedMap<K, V>[] partitions;
+
+    public HashPartitionedMapProcedure(
+            Function<? super T, ? extends K> keyFunction,
+            Function<? super T, ? extends V> valueFunction,
+            int partitionCount)
+    {
+        this.keyFunction = keyFunction;
+        this.valueFunction = valueFunction;
+        this.partitions = HashPartitionedMapProcedure.newPartitionArray(partitionCount);
+        for (int i = 0; i < partitionCount; i++)
+        {
+            this.partitions[i] = UnifiedMap.newMap();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K, V> UnifiedMap<K, V>[] newPartitionArray(int partitionCount)
+    {
+        return (UnifiedMap<K, V>[]) new UnifiedMap<?, ?>[partitionCount];
+    }
+
+    public void value(T object)
+    {
+        K key = this.keyFunction.valueOf(object);
+        this.partitions[UnifiedMap.hashPartition(key, this.partitions.length)].put(key, this.valueFunction.valueOf(object));
+    }
+
+    public int getPartitionCount()
+    {
+        return this.partitions.length;
+    }
+
+    public UnifiedMap<K, V> getPartition(int partitionIndex)
+    {
+        return this.partitions[partitionIndex];
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.block.procedure;
+
+import ponzu.api.block.procedure.Procedure;
+import ponzu.impl.set.mutable.UnifiedSet;
+
+/**
+ * Adds each object to one of several UnifiedSets, chosen by {@link UnifiedSet#hashPartition(Object, int)}, so that
+ * the sets built by separate batches can later be merged partition by partition.
+ *
+ * @since 1.1
+ */
+public class HashPartitionedSetProcedure<T> implements Procedure<T>
+{
+    private static final long serialVersionUID = 1L;
+
+    private final UnifiedSet<T>[] partitions;
+
+    public HashPartitionedSetProcedure(int partitionCount)
+    {
+        this.partitions = HashPartitionedSetProcedure.newPartitionArray(partitionCount);
+        for (int i = 0; i < partitionCount; i++)
+        {
+            this.partitions[i] = UnifiedSet.newSet();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> UnifiedSet<T>[] newPartitionArray(int partitionCount)
+    {
+        return (UnifiedSet<T>[]) new UnifiedSet<?>[partitionCount];
+    }
+
+    public void value(T object)
+    {
+        this.partitions[UnifiedSet.hashPartition(object, this.partitions.length)].add(object);
+    }
+
+    public int getPartitionCount()
+    {
+        return this.partitions.length;
+    }
+
+    public UnifiedSet<T> getPartition(int partitionIndex)
+    {
+        return this.partitions[partitionIndex];
+    }
+}
@@ -34,4 +34,9 @@ public final class PartitionAddProcedure<T> implements Procedure<T>
     {
         this.partitionMutableCollection.add(object);
     }
+
+    public PartitionMutableCollection<T> getResult()
+    {
+        return this.partitionMutableCollection;
+    }
 }
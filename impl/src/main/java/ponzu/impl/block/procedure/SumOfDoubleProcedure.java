@@ -0,0 +1,71 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.block.procedure;
+
+import ponzu.api.block.function.primitive.DoubleFunction;
+import ponzu.api.block.procedure.Procedure;
+
+/**
+ * Adds the double value of each object, as returned by the function, to a sum using Kahan summation, which carries
+ * the low order bits lost by each addition forward into the next one.  The error of the result therefore does not
+ * grow with the number of values added.
+ *
+ * @since 1.1
+ */
+public class SumOfDoubleProcedure<T> implements Procedure<T>
+{
+    private static final long serialVersionUID = 1L;
+
+    private final DoubleFunction<? super T> function;
+    private double sum;
+    private double compensation;
+
+    public SumOfDoubleProcedure(DoubleFunction<? super T> function)
+    {
+        this.function = function;
+    }
+
+    public void value(T object)
+    {
+        this.add(this.function.doubleValueOf(object));
+    }
+
+    /**
+     * Adds the value to the compensated sum.
+     */
+    public void add(double value)
+    {
+        double adjustedValue = value - this.compensation;
+        double nextSum = this.sum + adjustedValue;
+        this.compensation = nextSum - this.sum - adjustedValue;
+        this.sum = nextSum;
+    }
+
+    /**
+     * Adds the sum of another procedure, including the bits it has not yet carried forward.
+     */
+    public void add(SumOfDoubleProcedure<?> other)
+    {
+        this.add(other.sum);
+        this.add(-other.compensation);
+    }
+
+    public double getSum()
+    {
+        return this.sum;
+    }
+}
@@ -45,7 +45,7 @@ public final class ZipWithIndexProcedure<T, R extends Collection<Pair<T, Integer
 
     public void value(T each)
     {
-        this.target.add(Tuples.pair(each, Integer.valueOf(this.index)));
+        this.target.add(Tuples.objectIntPair(each, this.index));
         this.index += 1;
     }
 }
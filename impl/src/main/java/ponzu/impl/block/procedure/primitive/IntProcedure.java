@@ -16,7 +16,11 @@
 
 package ponzu.impl.block.procedure.primitive;
 
+/**
+ * @deprecated since 1.1, use {@link ponzu.api.block.procedure.primitive.IntProcedure} instead
+ */
+@Deprecated
 public interface IntProcedure
+        extends ponzu.api.block.procedure.primitive.IntProcedure
 {
-    void value(int each);
 }
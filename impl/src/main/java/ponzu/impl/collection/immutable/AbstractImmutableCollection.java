@@ -23,14 +23,20 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 
+import ponzu.api.LazyDoubleIterable;
+import ponzu.api.LazyIntIterable;
 import ponzu.api.LazyIterable;
+import ponzu.api.LazyLongIterable;
 import ponzu.api.RichIterable;
 import ponzu.api.bag.MutableBag;
 import ponzu.api.block.function.Function;
 import ponzu.api.block.function.Function2;
 import ponzu.api.block.function.Generator;
+import ponzu.api.block.function.primitive.DoubleFunction;
 import ponzu.api.block.function.primitive.DoubleObjectToDoubleFunction;
+import ponzu.api.block.function.primitive.IntFunction;
 import ponzu.api.block.function.primitive.IntObjectToIntFunction;
+import ponzu.api.block.function.primitive.LongFunction;
 import ponzu.api.block.function.primitive.LongObjectToLongFunction;
 import ponzu.api.block.predicate.Predicate;
 import ponzu.api.block.predicate.Predicate2;
@@ -52,6 +58,9 @@ import ponzu.impl.block.procedure.CollectProcedure;
 import ponzu.impl.block.procedure.FilterNotProcedure;
 import ponzu.impl.block.procedure.SelectProcedure;
 import ponzu.impl.factory.Lists;
+import ponzu.impl.lazy.primitive.CollectDoubleIterable;
+import ponzu.impl.lazy.primitive.CollectIntIterable;
+import ponzu.impl.lazy.primitive.CollectLongIterable;
 import ponzu.impl.map.mutable.UnifiedMap;
 import ponzu.impl.map.sorted.mutable.TreeSortedMap;
 import ponzu.impl.set.mutable.UnifiedSet;
@@ -341,6 +350,21 @@ public abstract class AbstractImmutableCollection<T> implements ImmutableCollect
         return IterableIterate.foldLeft(initialValue, this, function);
     }
 
+    public LazyIntIterable transformToInt(IntFunction<? super T> function)
+    {
+        return new CollectIntIterable<T>(this, function);
+    }
+
+    public LazyLongIterable transformToLong(LongFunction<? super T> function)
+    {
+        return new CollectLongIterable<T>(this, function);
+    }
+
+    public LazyDoubleIterable transformToDouble(DoubleFunction<? super T> function)
+    {
+        return new CollectDoubleIterable<T>(this, function);
+    }
+
     public void forEachWithIndex(ObjectIntProcedure<? super T> objectIntProcedure)
     {
         IterableIterate.forEachWithIndex(this, objectIntProcedure);
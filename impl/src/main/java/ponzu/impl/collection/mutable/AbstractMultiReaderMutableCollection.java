@@ -21,15 +21,21 @@ import java.util.Comparator;
 import java.util.Iterator;
 import java.util.concurrent.locks.ReadWriteLock;
 
+import ponzu.api.LazyDoubleIterable;
+import ponzu.api.LazyIntIterable;
 import ponzu.api.LazyIterable;
+import ponzu.api.LazyLongIterable;
 import ponzu.api.RichIterable;
 import ponzu.api.bag.MutableBag;
 import ponzu.api.block.function.Function;
 import ponzu.api.block.function.Function2;
 import ponzu.api.block.function.Function3;
 import ponzu.api.block.function.Generator;
+import ponzu.api.block.function.primitive.DoubleFunction;
 import ponzu.api.block.function.primitive.DoubleObjectToDoubleFunction;
+import ponzu.api.block.function.primitive.IntFunction;
 import ponzu.api.block.function.primitive.IntObjectToIntFunction;
+import ponzu.api.block.function.primitive.LongFunction;
 import ponzu.api.block.function.primitive.LongObjectToLongFunction;
 import ponzu.api.block.predicate.Predicate;
 import ponzu.api.block.predicate.Predicate2;
@@ -769,6 +775,45 @@ public abstract class AbstractMultiReaderMutableCollection<T> implements Mutable
         }
     }
 
+    public LazyIntIterable transformToInt(IntFunction<? super T> function)
+    {
+        this.acquireReadLock();
+        try
+        {
+            return this.getDelegate().transformToInt(function);
+        }
+        finally
+        {
+            this.unlockReadLock();
+        }
+    }
+
+    public LazyLongIterable transformToLong(LongFunction<? super T> function)
+    {
+        this.acquireReadLock();
+        try
+        {
+            return this.getDelegate().transformToLong(function);
+        }
+        finally
+        {
+            this.unlockReadLock();
+        }
+    }
+
+    public LazyDoubleIterable transformToDouble(DoubleFunction<? super T> function)
+    {
+        this.acquireReadLock();
+        try
+        {
+            return this.getDelegate().transformToDouble(function);
+        }
+        finally
+        {
+            this.unlockReadLock();
+        }
+    }
+
     public <IV, P> IV foldLeftWith(
             IV initialValue,
             Function3<? super IV, ? super T, ? super P, ? extends IV> function,
@@ -1438,6 +1483,21 @@ public abstract class AbstractMultiReaderMutableCollection<T> implements Mutable
             return this.delegate.foldLeft(initialValue, function);
         }
 
+        public LazyIntIterable transformToInt(IntFunction<? super T> function)
+        {
+            return this.delegate.transformToInt(function);
+        }
+
+        public LazyLongIterable transformToLong(LongFunction<? super T> function)
+        {
+            return this.delegate.transformToLong(function);
+        }
+
+        public LazyDoubleIterable transformToDouble(DoubleFunction<? super T> function)
+        {
+            return this.delegate.transformToDouble(function);
+        }
+
         public <IV, P> IV foldLeftWith(
                 IV initialValue,
                 Function3<? super IV, ? super T, ? super P, ? extends IV> function,
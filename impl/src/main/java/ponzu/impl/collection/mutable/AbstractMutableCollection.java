@@ -21,15 +21,21 @@ import java.util.Collection;
 import java.util.Comparator;
 import java.util.Iterator;
 
+import ponzu.api.LazyDoubleIterable;
+import ponzu.api.LazyIntIterable;
 import ponzu.api.LazyIterable;
+import ponzu.api.LazyLongIterable;
 import ponzu.api.RichIterable;
 import ponzu.api.bag.MutableBag;
 import ponzu.api.block.function.Function;
 import ponzu.api.block.function.Function2;
 import ponzu.api.block.function.Function3;
 import ponzu.api.block.function.Generator;
+import ponzu.api.block.function.primitive.DoubleFunction;
 import ponzu.api.block.function.primitive.DoubleObjectToDoubleFunction;
+import ponzu.api.block.function.primitive.IntFunction;
 import ponzu.api.block.function.primitive.IntObjectToIntFunction;
+import ponzu.api.block.function.primitive.LongFunction;
 import ponzu.api.block.function.primitive.LongObjectToLongFunction;
 import ponzu.api.block.predicate.Predicate;
 import ponzu.api.block.predicate.Predicate2;
@@ -49,6 +55,9 @@ import ponzu.impl.bag.mutable.HashBag;
 import ponzu.impl.block.factory.Comparators;
 import ponzu.impl.block.factory.Predicates2;
 import ponzu.impl.factory.Lists;
+import ponzu.impl.lazy.primitive.CollectDoubleIterable;
+import ponzu.impl.lazy.primitive.CollectIntIterable;
+import ponzu.impl.lazy.primitive.CollectLongIterable;
 import ponzu.impl.list.mutable.FastList;
 import ponzu.impl.map.mutable.UnifiedMap;
 import ponzu.impl.map.sorted.mutable.TreeSortedMap;
@@ -293,6 +302,21 @@ public abstract class AbstractMutableCollection<T>
         return IterableIterate.foldLeft(initialValue, this, function);
     }
 
+    public LazyIntIterable transformToInt(IntFunction<? super T> function)
+    {
+        return new CollectIntIterable<T>(this, function);
+    }
+
+    public LazyLongIterable transformToLong(LongFunction<? super T> function)
+    {
+        return new CollectLongIterable<T>(this, function);
+    }
+
+    public LazyDoubleIterable transformToDouble(DoubleFunction<? super T> function)
+    {
+        return new CollectDoubleIterable<T>(this, function);
+    }
+
     public <IV, P> IV foldLeftWith(
             IV initialValue,
             Function3<? super IV, ? super T, ? super P, ? extends IV> function,
@@ -23,15 +23,21 @@ import java.util.Iterator;
 
 import net.jcip.annotations.GuardedBy;
 import net.jcip.annotations.ThreadSafe;
+import ponzu.api.LazyDoubleIterable;
+import ponzu.api.LazyIntIterable;
 import ponzu.api.LazyIterable;
+import ponzu.api.LazyLongIterable;
 import ponzu.api.RichIterable;
 import ponzu.api.bag.MutableBag;
 import ponzu.api.block.function.Function;
 import ponzu.api.block.function.Function2;
 import ponzu.api.block.function.Function3;
 import ponzu.api.block.function.Generator;
+import ponzu.api.block.function.primitive.DoubleFunction;
 import ponzu.api.block.function.primitive.DoubleObjectToDoubleFunction;
+import ponzu.api.block.function.primitive.IntFunction;
 import ponzu.api.block.function.primitive.IntObjectToIntFunction;
+import ponzu.api.block.function.primitive.LongFunction;
 import ponzu.api.block.function.primitive.LongObjectToLongFunction;
 import ponzu.api.block.predicate.Predicate;
 import ponzu.api.block.predicate.Predicate2;
@@ -50,6 +56,9 @@ import ponzu.api.set.sorted.MutableSortedSet;
 import ponzu.api.tuple.Pair;
 import ponzu.api.tuple.Twin;
 import ponzu.impl.block.factory.Comparators;
+import ponzu.impl.lazy.primitive.CollectDoubleIterable;
+import ponzu.impl.lazy.primitive.CollectIntIterable;
+import ponzu.impl.lazy.primitive.CollectLongIterable;
 import ponzu.impl.set.sorted.mutable.TreeSortedSet;
 import ponzu.impl.utility.LazyIterate;
 import ponzu.impl.utility.internal.IterableIterate;
@@ -644,6 +653,21 @@ public class SynchronizedMutableCollection<E>
         }
     }
 
+    public LazyIntIterable transformToInt(IntFunction<? super E> function)
+    {
+        return new CollectIntIterable<E>(this, function);
+    }
+
+    public LazyLongIterable transformToLong(LongFunction<? super E> function)
+    {
+        return new CollectLongIterable<E>(this, function);
+    }
+
+    public LazyDoubleIterable transformToDouble(DoubleFunction<? super E> function)
+    {
+        return new CollectDoubleIterable<E>(this, function);
+    }
+
     public <IV, P> IV foldLeftWith(
             IV initialValue,
             Function3<? super IV, ? super E, ? super P, ? extends IV> function,
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.factory;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import ponzu.api.bag.Bag;
+
+/**
+ * SizeHints remembers the typical final size of the collections created under a name, so that later collections
+ * created under the same name can be presized and do not have to grow.  This is what the {@code ofSizeHint} methods
+ * of the mutable factories in {@link Lists}, {@link Sets}, {@link Maps} and {@link Bags} use.
+ * <p/>
+ * The hint learns from the collections reported complete with {@link #done(String, Object)}, which records their size,
+ * or number of distinct items for bags, at that point, or from sizes recorded with {@link #recordSize(String, int)}.
+ * A collection which is never reported is never measured, so one which is still being filled never skews the hint.
+ * <pre>
+ * MutableList&lt;Trade&gt; trades = Lists.mutable.ofSizeHint("trades");
+ * ...
+ * return SizeHints.done("trades", trades);
+ * </pre>
+ * <p/>
+ * The hint is the 90th percentile of the observed sizes, where each new observation decays the weight of the older
+ * ones by 10%, so the hint follows a job whose input grows or shrinks over time.
+ *
+ * @since 1.1
+ */
+public final class SizeHints
+{
+    private static final ConcurrentMap<String, SizeHistory> HISTORIES = new ConcurrentHashMap<String, SizeHistory>();
+
+    private SizeHints()
+    {
+        throw new AssertionError("Suppress default constructor for noninstantiability");
+    }
+
+    /**
+     * Returns the capacity to presize a new collection created under the name with, or 0 when no sizes have been
+     * observed under the name yet.
+     */
+    public static int getSizeHint(String name)
+    {
+        return SizeHints.getHistory(name).getSizeHint();
+    }
+
+    /**
+     * Records the final size of a collection created under the name.
+     */
+    public static void recordSize(String name, int size)
+    {
+        SizeHints.getHistory(name).record(size);
+    }
+
+    /**
+     * Records the size of a complete collection or map created under the name, or its number of distinct items if it
+     * is a bag, and returns it.
+     */
+    public static <C> C done(String name, C collectionOrMap)
+    {
+        SizeHints.getHistory(name).record(SizeHints.sizeOf(collectionOrMap));
+        return collectionOrMap;
+    }
+
+    /**
+     * Forgets the sizes observed under the name.
+     */
+    public static void clear(String name)
+    {
+        HISTORIES.remove(name);
+    }
+
+    private static int sizeOf(Object collectionOrMap)
+    {
+        if (collectionOrMap instanceof Bag)
+        {
+            return ((Bag<?>) collectionOrMap).sizeDistinct();
+        }
+        if (collectionOrMap instanceof Map)
+        {
+            return ((Map<?, ?>) collectionOrMap).size();
+        }
+        return ((Collection<?>) collectionOrMap).size();
+    }
+
+    private static SizeHistory getHistory(String name)
+    {
+        if (name == null)
+        {
+            throw new IllegalArgumentException("Size hint name must not be null");
+        }
+        SizeHistory history = HISTORIES.get(name);
+        if (history == null)
+        {
+            SizeHistory newHistory = new SizeHistory();
+            history = HISTORIES.putIfAbsent(name, newHistory);
+            if (history == null)
+            {
+                history = newHistory;
+            }
+        }
+        return history;
+    }
+
+    /**
+     * A histogram of observed sizes with exponentially decaying weights.  Sizes are bucketed by their highest bit and
+     * the next two bits below it, so each bucket spans at most a quarter of its lower bound, and every bucket also
+     * keeps the largest size observed in it, which is what the hint returns.
+     */
+    private static final class SizeHistory
+    {
+        private static final double PERCENTILE = 0.9;
+        private static final double RETAINED_WEIGHT = 0.9;
+        private static final int SUB_BUCKET_BITS = 2;
+        private static final int BUCKET_COUNT = (Integer.SIZE + 1) << SUB_BUCKET_BITS;
+
+        private final double[] weights = new double[BUCKET_COUNT];
+        private final int[] maxSizes = new int[BUCKET_COUNT];
+        private double totalWeight;
+
+        private static int bucket(int size)
+        {
+            if (size < 1 << SUB_BUCKET_BITS)
+            {
+                return size;
+            }
+            int highestBit = Integer.SIZE - 1 - Integer.numberOfLeadingZeros(size);
+            int subBucket = (size >>> highestBit - SUB_BUCKET_BITS) & ((1 << SUB_BUCKET_BITS) - 1);
+            return (highestBit << SUB_BUCKET_BITS) + subBucket;
+        }
+
+        public synchronized void record(int size)
+        {
+            if (size < 0)
+            {
+                throw new IllegalArgumentException("Size must not be negative: " + size);
+            }
+            for (int i = 0; i < BUCKET_COUNT; i++)
+            {
+                this.weights[i] *= RETAINED_WEIGHT;
+            }
+            int bucket = SizeHistory.bucket(size);
+            this.weights[bucket] += 1.0;
+            this.maxSizes[bucket] = Math.max(this.maxSizes[bucket], size);
+            this.totalWeight = this.totalWeight * RETAINED_WEIGHT + 1.0;
+        }
+
+        public synchronized int getSizeHint()
+        {
+            double threshold = this.totalWeight * PERCENTILE;
+            double cumulativeWeight = 0.0;
+            for (int i = 0; i < BUCKET_COUNT; i++)
+            {
+                cumulativeWeight += this.weights[i];
+                if (cumulativeWeight > 0.0 && cumulativeWeight >= threshold)
+                {
+                    return this.maxSizes[i];
+                }
+            }
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.io;
+
+import net.jcip.annotations.NotThreadSafe;
+import ponzu.impl.utility.CharSequenceSlice;
+
+/**
+ * The fields of a line split at a separator character.  Each field is a {@link CharSequenceSlice} over the line, so
+ * the characters are not copied.  Unlike {@link ponzu.impl.utility.StringIterate#csvTokensToList(String)}, empty
+ * fields are kept so that fields can be accessed by position.  Quoted fields are not supported.
+ * <p/>
+ * A record and its fields are reset for each line, so they must not be retained after the line has been processed.
+ *
+ * @since 1.1
+ */
+@NotThreadSafe
+public final class DelimitedRecord
+{
+    private final char separator;
+    private CharSequenceSlice line;
+    private CharSequenceSlice[] fields = new CharSequenceSlice[8];
+    private int size;
+
+    public DelimitedRecord(char separator)
+    {
+        this.separator = separator;
+        for (int i = 0; i < this.fields.length; i++)
+        {
+            this.fields[i] = new CharSequenceSlice("", 0, 0);
+        }
+    }
+
+    /**
+     * Splits the line into fields, replacing the fields of the previous line.
+     *
+     * @return this record
+     */
+    public DelimitedRecord reset(CharSequenceSlice newLine)
+    {
+        this.line = newLine;
+        this.size = 0;
+        CharSequence source = newLine.getSource();
+        int start = newLine.getStart();
+        int end = newLine.getEnd();
+        int fieldStart = start;
+        for (int i = start; i < end; i++)
+        {
+            if (source.charAt(i) == this.separator)
+            {
+                this.addField(source, fieldStart, i);
+                fieldStart = i + 1;
+            }
+        }
+        this.addField(source, fieldStart, end);
+        return this;
+    }
+
+    private void addField(CharSequence source, int start, int end)
+    {
+        if (this.size == this.fields.length)
+        {
+            CharSequenceSlice[] newFields = new CharSequenceSlice[this.size << 1];
+            System.arraycopy(this.fields, 0, newFields, 0, this.size);
+            for (int i = this.size; i < newFields.length; i++)
+            {
+                newFields[i] = new CharSequenceSlice("", 0, 0);
+            }
+            this.fields = newFields;
+        }
+        this.fields[this.size++].reset(source, start, end);
+    }
+
+    public CharSequenceSlice getLine()
+    {
+        return this.line;
+    }
+
+    public int size()
+    {
+        return this.size;
+    }
+
+    public CharSequenceSlice get(int index)
+    {
+        if (index < 0 || index >= this.size)
+        {
+            throw new IndexOutOfBoundsException("Index: " + index + " Size: " + this.size);
+        }
+        return this.fields[index];
+    }
+
+    public String getString(int index)
+    {
+        return this.get(index).toString();
+    }
+
+    public int getInt(int index)
+    {
+        return this.get(index).parseInt();
+    }
+
+    public long getLong(int index)
+    {
+        return this.get(index).parseLong();
+    }
+
+    public double getDouble(int index)
+    {
+        return Double.parseDouble(this.getString(index));
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.valueOf(this.line);
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+import ponzu.impl.utility.CharSequenceSlice;
+
+/**
+ * Reads the lines in a range of bytes of a file, decoding them into a reusable character buffer.  Each line is
+ * presented as a {@link CharSequenceSlice} over that buffer, which is only valid until the next call to
+ * {@link #next(CharSequenceSlice)}.  Lines are terminated by \n or \r\n, and the terminator is not included.
+ */
+final class LineReader
+        implements Closeable
+{
+    private static final int BYTE_BUFFER_SIZE = 1 << 16;
+    private static final int CHAR_BUFFER_SIZE = 1 << 13;
+    private static final long MAP_WINDOW_SIZE = 1L << 26;
+
+    private final FileChannel channel;
+    private final CharsetDecoder decoder;
+    private final boolean mapped;
+    private final long end;
+
+    private ByteBuffer bytes;
+    private long nextRead;
+    private boolean endOfBytes;
+    private boolean flushed;
+
+    private char[] chars = new char[CHAR_BUFFER_SIZE];
+    private CharBuffer decoded = CharBuffer.wrap(this.chars);
+    private CharBuffer view = CharBuffer.wrap(this.chars);
+    private int lineStart;
+    private int scanned;
+
+    LineReader(FileChannel channel, TextFile textFile, long start, long end)
+    {
+        this.channel = channel;
+        this.decoder = textFile.getCharset().newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.mapped = textFile.isMapped();
+        this.end = end;
+        this.nextRead = start;
+        this.bytes = this.mapped ? ByteBuffer.allocate(0) : ByteBuffer.allocate(BYTE_BUFFER_SIZE);
+        this.bytes.flip();
+    }
+
+    /**
+     * Resets the line to the next line in the range.
+     *
+     * @return false if there are no more lines
+     */
+    boolean next(CharSequenceSlice line) throws IOException
+    {
+        while (true)
+        {
+            int limit = this.decoded.position();
+            for (int i = this.scanned; i < limit; i++)
+            {
+                if (this.chars[i] == '\n')
+                {
+                    this.resetLine(line, i);
+                    this.lineStart = i + 1;
+                    this.scanned = i + 1;
+                    return true;
+                }
+            }
+            this.scanned = limit;
+            if (!this.decodeMore())
+            {
+                int end = this.decoded.position();
+                if (end > this.lineStart)
+                {
+                    this.resetLine(line, end);
+                    this.lineStart = end;
+                    return true;
+                }
+                return false;
+            }
+        }
+    }
+
+    private void resetLine(CharSequenceSlice line, int terminator)
+    {
+        int lineEnd = terminator > this.lineStart && this.chars[terminator - 1] == '\r' ? terminator - 1 : terminator;
+        line.reset(this.view, this.lineStart, lineEnd);
+    }
+
+    private boolean decodeMore() throws IOException
+    {
+        this.makeRoom();
+        int before = this.decoded.position();
+        while (!this.flushed)
+        {
+            if (!this.bytes.hasRemaining() && !this.endOfBytes)
+            {
+                this.readBytes();
+            }
+            CoderResult result = this.decoder.decode(this.bytes, this.decoded, this.endOfBytes);
+            if (result.isOverflow() && this.decoded.position() == before)
+            {
+                this.grow();
+                continue;
+            }
+            if (this.endOfBytes && result.isUnderflow())
+            {
+                this.decoder.flush(this.decoded);
+                this.flushed = true;
+            }
+            else if (result.isUnderflow() && this.decoded.position() == before)
+            {
+                this.readBytes();
+            }
+            if (this.decoded.position() > before)
+            {
+                return true;
+            }
+        }
+        return this.decoded.position() > before;
+    }
+
+    /**
+     * Discards the characters of the lines already returned, or grows the buffer if it is full with a single line.
+     */
+    private void makeRoom()
+    {
+        int limit = this.decoded.position();
+        if (this.lineStart > 0)
+        {
+            System.arraycopy(this.chars, this.lineStart, this.chars, 0, limit - this.lineStart);
+            this.scanned -= this.lineStart;
+            this.decoded.position(limit - this.lineStart);
+            this.lineStart = 0;
+        }
+        else if (!this.decoded.hasRemaining())
+        {
+            this.grow();
+        }
+    }
+
+    private void grow()
+    {
+        int position = this.decoded.position();
+        char[] newChars = new char[this.chars.length << 1];
+        System.arraycopy(this.chars, 0, newChars, 0, position);
+        this.chars = newChars;
+        this.decoded = CharBuffer.wrap(newChars);
+        this.decoded.position(position);
+        this.view = CharBuffer.wrap(newChars);
+    }
+
+    private void readBytes() throws IOException
+    {
+        if (this.mapped)
+        {
+            long unconsumed = this.nextRead - this.bytes.remaining();
+            long size = Math.min(MAP_WINDOW_SIZE, this.end - unconsumed);
+            if (size <= this.bytes.remaining())
+            {
+                this.endOfBytes = true;
+                return;
+            }
+            this.bytes = this.channel.map(FileChannel.MapMode.READ_ONLY, unconsumed, size);
+            this.nextRead = unconsumed + size;
+        }
+        else
+        {
+            this.bytes.compact();
+            long remaining = this.end - this.nextRead;
+            if (remaining <= 0L)
+            {
+                this.bytes.flip();
+                this.endOfBytes = true;
+                return;
+            }
+            this.bytes.limit((int) Math.min((long) this.bytes.capacity(), this.bytes.position() + remaining));
+            int read = this.channel.read(this.bytes, this.nextRead);
+            this.bytes.flip();
+            if (read < 0)
+            {
+                this.endOfBytes = true;
+                return;
+            }
+            this.nextRead += read;
+        }
+    }
+
+    public void close() throws IOException
+    {
+        this.channel.close();
+    }
+}
@@ -0,0 +1,330 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.io;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+import net.jcip.annotations.Immutable;
+import ponzu.api.block.function.Function;
+import ponzu.api.block.procedure.Procedure;
+import ponzu.impl.utility.CharSequenceSlice;
+
+/**
+ * A text file which is read a line at a time without creating a String for each line.  The lines are decoded into a
+ * reusable buffer and passed to procedures as {@link CharSequenceSlice}s, and may be split into fields with a
+ * {@link DelimitedRecord}, so a file can be transformed into domain objects without allocating a String or a List per
+ * line.  A slice passed to a procedure is only valid during that call.
+ * <p/>
+ * The file is either read through a {@link FileChannel} or memory mapped.  Lines are terminated by \n or \r\n, so the
+ * charset must encode \n as the single byte 0x0A, as UTF-8, ISO-8859-1 and US-ASCII do.  This allows the file to be
+ * split into sections at arbitrary byte offsets, so that {@link TextFileIterable}s can be processed by
+ * {@link ponzu.impl.parallel.ParallelIterate} in file-offset sections.
+ *
+ * @since 1.1
+ */
+@Immutable
+public final class TextFile
+        implements Serializable
+{
+    private static final long serialVersionUID = 1L;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final int SCAN_BUFFER_SIZE = 1 << 16;
+
+    private final File file;
+    private final String charsetName;
+    private final boolean mapped;
+
+    private TextFile(File file, Charset charset, boolean mapped)
+    {
+        if (!Arrays.equals("\n".getBytes(charset), new byte[]{'\n'}))
+        {
+            throw new IllegalArgumentException("Charset must encode '\\n' as a single byte: " + charset);
+        }
+        this.file = file;
+        this.charsetName = charset.name();
+        this.mapped = mapped;
+    }
+
+    /**
+     * Returns a UTF-8 text file which is read through a FileChannel.
+     */
+    public static TextFile of(File file)
+    {
+        return new TextFile(file, UTF_8, false);
+    }
+
+    public static TextFile of(File file, Charset charset)
+    {
+        return new TextFile(file, charset, false);
+    }
+
+    /**
+     * Returns a UTF-8 text file which is memory mapped while it is read.
+     */
+    public static TextFile mapped(File file)
+    {
+        return new TextFile(file, UTF_8, true);
+    }
+
+    public static TextFile mapped(File file, Charset charset)
+    {
+        return new TextFile(file, charset, true);
+    }
+
+    public File getFile()
+    {
+        return this.file;
+    }
+
+    public Charset getCharset()
+    {
+        return Charset.forName(this.charsetName);
+    }
+
+    public boolean isMapped()
+    {
+        return this.mapped;
+    }
+
+    /**
+     * Returns the length of the file in bytes.
+     */
+    public long length()
+    {
+        return this.file.length();
+    }
+
+    /**
+     * Executes the procedure for each line of the file.  The same slice is reset to each line in turn.
+     */
+    public void forEachLine(Procedure<? super CharSequenceSlice> procedure)
+    {
+        this.forEachLine(procedure, 0L, Long.MAX_VALUE);
+    }
+
+    /**
+     * Splits each line of the file into fields at the separator and executes the procedure with them.  The same
+     * record is reset to each line in turn.
+     */
+    public void forEachRecord(char separator, Procedure<? super DelimitedRecord> procedure)
+    {
+        this.forEachLine(new RecordProcedure(separator, procedure));
+    }
+
+    /**
+     * Returns a lazy iterable of the lines of the file as Strings.
+     */
+    public TextFileIterable<String> lines()
+    {
+        return this.transformLines(new Function<CharSequenceSlice, String>()
+        {
+            public String valueOf(CharSequenceSlice line)
+            {
+                return line.toString();
+            }
+        });
+    }
+
+    /**
+     * Returns a lazy iterable of the result of the function for each line of the file.  The file is read each time
+     * the iterable is iterated.
+     */
+    public <V> TextFileIterable<V> transformLines(Function<? super CharSequenceSlice, ? extends V> function)
+    {
+        return new TextFileIterable<V>(this, function, (char) 0, null);
+    }
+
+    /**
+     * Returns a lazy iterable of the result of the function for the fields of each line of the file, split at the
+     * separator.  The file is read each time the iterable is iterated.
+     */
+    public <V> TextFileIterable<V> transformRecords(
+            char separator,
+            Function<? super DelimitedRecord, ? extends V> function)
+    {
+        return new TextFileIterable<V>(this, null, separator, function);
+    }
+
+    /**
+     * Executes the procedure for each line which starts at or after the byte offset {@code start} and before
+     * {@code end}.
+     */
+    void forEachLine(Procedure<? super CharSequenceSlice> procedure, long start, long end)
+    {
+        LineReader reader = this.newReader(start, end);
+        try
+        {
+            CharSequenceSlice line = new CharSequenceSlice("", 0, 0);
+            while (reader.next(line))
+            {
+                procedure.value(line);
+            }
+        }
+        catch (IOException e)
+        {
+            throw this.readFailed(e);
+        }
+        finally
+        {
+            TextFile.close(reader);
+        }
+    }
+
+    LineReader newReader(long start, long end)
+    {
+        FileChannel channel = null;
+        try
+        {
+            channel = new RandomAccessFile(this.file, "r").getChannel();
+            long length = channel.size();
+            long from = this.lineStart(channel, Math.min(start, length), length);
+            long to = this.lineStart(channel, Math.min(end, length), length);
+            return new LineReader(channel, this, from, to);
+        }
+        catch (IOException e)
+        {
+            TextFile.close(channel);
+            throw this.readFailed(e);
+        }
+    }
+
+    /**
+     * Returns the offset of the first line which starts at or after the offset.
+     */
+    private long lineStart(FileChannel channel, long offset, long length) throws IOException
+    {
+        if (offset == 0L || offset == length)
+        {
+            return offset;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+        long position = offset - 1L;
+        while (position < length)
+        {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read < 0)
+            {
+                break;
+            }
+            for (int i = 0; i < read; i++)
+            {
+                if (buffer.get(i) == '\n')
+                {
+                    return position + i + 1L;
+                }
+            }
+            position += read;
+        }
+        return length;
+    }
+
+    /**
+     * Returns the number of lines in the file, counting a final line which has no terminator.
+     */
+    public int countLines()
+    {
+        RandomAccessFile randomAccessFile = null;
+        try
+        {
+            randomAccessFile = new RandomAccessFile(this.file, "r");
+            FileChannel channel = randomAccessFile.getChannel();
+            ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+            int count = 0;
+            byte last = '\n';
+            long position = 0L;
+            int read;
+            while ((read = channel.read(buffer, position)) > 0)
+            {
+                for (int i = 0; i < read; i++)
+                {
+                    if (buffer.get(i) == '\n')
+                    {
+                        count++;
+                    }
+                }
+                last = buffer.get(read - 1);
+                position += read;
+                buffer.clear();
+            }
+            return last == '\n' ? count : count + 1;
+        }
+        catch (IOException e)
+        {
+            throw this.readFailed(e);
+        }
+        finally
+        {
+            TextFile.close(randomAccessFile);
+        }
+    }
+
+    RuntimeException readFailed(IOException e)
+    {
+        return new RuntimeException("Failed to read " + this.file, e);
+    }
+
+    static void close(Closeable closeable)
+    {
+        if (closeable != null)
+        {
+            try
+            {
+                closeable.close();
+            }
+            catch (IOException ignored)
+            {
+                // Nothing more can be done if the file cannot be closed after reading it
+            }
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return "TextFile[" + this.file + ", " + this.charsetName + (this.mapped ? ", mapped]" : "]");
+    }
+
+    private static final class RecordProcedure
+            implements Procedure<CharSequenceSlice>
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final DelimitedRecord record;
+        private final Procedure<? super DelimitedRecord> procedure;
+
+        private RecordProcedure(char separator, Procedure<? super DelimitedRecord> procedure)
+        {
+            this.record = new DelimitedRecord(separator);
+            this.procedure = procedure;
+        }
+
+        public void value(CharSequenceSlice line)
+        {
+            this.record.reset(line);
+            this.procedure.value(this.record);
+        }
+    }
+}
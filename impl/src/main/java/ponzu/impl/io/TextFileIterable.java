@@ -0,0 +1,235 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.io;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import ponzu.api.block.function.Function;
+import ponzu.api.block.procedure.ObjectIntProcedure;
+import ponzu.api.block.procedure.Procedure;
+import ponzu.api.block.procedure.Procedure2;
+import ponzu.impl.lazy.AbstractLazyIterable;
+import ponzu.impl.parallel.BatchIterable;
+import ponzu.impl.utility.CharSequenceSlice;
+
+/**
+ * A lazy iterable of the result of a function applied to each line, or to the fields of each line, of a
+ * {@link TextFile}.  The file is read again each time the iterable is iterated.
+ * <p/>
+ * As a {@link BatchIterable}, the file is divided into sections by byte offset, and each section starts at the first
+ * line which starts at or after its offset, so {@link ponzu.impl.parallel.ParallelIterate} can read the sections of a
+ * file concurrently.  {@link #getBatchCount(int)} is estimated from the length of the file without reading it, while
+ * {@link #size()} counts the lines of the file each time it is called.
+ * <p/>
+ * An iterator closes the file when it is exhausted.  An iterator which is abandoned before then leaves the file open
+ * until it is garbage collected, so prefer the internal iteration methods such as {@link #forEach(Procedure)}.
+ *
+ * @since 1.1
+ */
+public final class TextFileIterable<V>
+        extends AbstractLazyIterable<V>
+        implements BatchIterable<V>
+{
+    /**
+     * The assumed average length of a line, which converts a batch size in lines into a number of bytes.
+     */
+    private static final int ESTIMATED_BYTES_PER_LINE = 64;
+
+    private final TextFile textFile;
+    private final Function<? super CharSequenceSlice, ? extends V> lineFunction;
+    private final char separator;
+    private final Function<? super DelimitedRecord, ? extends V> recordFunction;
+
+    TextFileIterable(
+            TextFile textFile,
+            Function<? super CharSequenceSlice, ? extends V> lineFunction,
+            char separator,
+            Function<? super DelimitedRecord, ? extends V> recordFunction)
+    {
+        this.textFile = textFile;
+        this.lineFunction = lineFunction;
+        this.separator = separator;
+        this.recordFunction = recordFunction;
+    }
+
+    public TextFile getTextFile()
+    {
+        return this.textFile;
+    }
+
+    public void forEach(Procedure<? super V> procedure)
+    {
+        this.textFile.forEachLine(this.adapt(procedure), 0L, Long.MAX_VALUE);
+    }
+
+    public void forEachWithIndex(final ObjectIntProcedure<? super V> objectIntProcedure)
+    {
+        this.forEach(new Procedure<V>()
+        {
+            private int index;
+
+            public void value(V each)
+            {
+                objectIntProcedure.value(each, this.index++);
+            }
+        });
+    }
+
+    public <P> void forEachWith(final Procedure2<? super V, ? super P> procedure, final P parameter)
+    {
+        this.forEach(new Procedure<V>()
+        {
+            public void value(V each)
+            {
+                procedure.value(each, parameter);
+            }
+        });
+    }
+
+    public void batchForEach(Procedure<? super V> procedure, int sectionIndex, int sectionCount)
+    {
+        long length = this.textFile.length();
+        long start = length * sectionIndex / sectionCount;
+        long end = sectionIndex == sectionCount - 1 ? Long.MAX_VALUE : length * (sectionIndex + 1) / sectionCount;
+        this.textFile.forEachLine(this.adapt(procedure), start, end);
+    }
+
+    public int getBatchCount(int batchSize)
+    {
+        long bytesPerBatch = Math.max(1L, (long) batchSize * ESTIMATED_BYTES_PER_LINE);
+        return (int) Math.max(1L, Math.min(Integer.MAX_VALUE, this.textFile.length() / bytesPerBatch));
+    }
+
+    @Override
+    public int size()
+    {
+        return this.textFile.countLines();
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        return this.textFile.length() == 0L;
+    }
+
+    @Override
+    public boolean notEmpty()
+    {
+        return !this.isEmpty();
+    }
+
+    @Override
+    public V getFirst()
+    {
+        LineReader reader = this.textFile.newReader(0L, Long.MAX_VALUE);
+        try
+        {
+            CharSequenceSlice line = new CharSequenceSlice("", 0, 0);
+            return reader.next(line) ? this.valueOf(line, new DelimitedRecord(this.separator)) : null;
+        }
+        catch (IOException e)
+        {
+            throw this.textFile.readFailed(e);
+        }
+        finally
+        {
+            TextFile.close(reader);
+        }
+    }
+
+    public Iterator<V> iterator()
+    {
+        return new LineIterator();
+    }
+
+    private V valueOf(CharSequenceSlice line, DelimitedRecord record)
+    {
+        if (this.lineFunction != null)
+        {
+            return this.lineFunction.valueOf(line);
+        }
+        return this.recordFunction.valueOf(record.reset(line));
+    }
+
+    private Procedure<CharSequenceSlice> adapt(final Procedure<? super V> procedure)
+    {
+        final DelimitedRecord record = new DelimitedRecord(this.separator);
+        return new Procedure<CharSequenceSlice>()
+        {
+            public void value(CharSequenceSlice line)
+            {
+                procedure.value(TextFileIterable.this.valueOf(line, record));
+            }
+        };
+    }
+
+    private final class LineIterator implements Iterator<V>
+    {
+        private final CharSequenceSlice line = new CharSequenceSlice("", 0, 0);
+        private final DelimitedRecord record = new DelimitedRecord(TextFileIterable.this.separator);
+        private final LineReader reader = TextFileIterable.this.textFile.newReader(0L, Long.MAX_VALUE);
+        private boolean hasNext;
+
+        private LineIterator()
+        {
+            this.advance();
+        }
+
+        private void advance()
+        {
+            try
+            {
+                this.hasNext = this.reader.next(this.line);
+            }
+            catch (IOException e)
+            {
+                this.hasNext = false;
+                throw TextFileIterable.this.textFile.readFailed(e);
+            }
+            finally
+            {
+                if (!this.hasNext)
+                {
+                    TextFile.close(this.reader);
+                }
+            }
+        }
+
+        public boolean hasNext()
+        {
+            return this.hasNext;
+        }
+
+        public V next()
+        {
+            if (!this.hasNext)
+            {
+                throw new NoSuchElementException();
+            }
+            V result = TextFileIterable.this.valueOf(this.line, this.record);
+            this.advance();
+            return result;
+        }
+
+        public void remove()
+        {
+            throw new UnsupportedOperationException("Cannot remove from a text file");
+        }
+    }
+}
@@ -46,7 +46,7 @@ public final class ZipWithIndexIterator<T>
     {
         try
         {
-            return Tuples.pair(this.iterator.next(), this.index);
+            return Tuples.objectIntPair(this.iterator.next(), this.index);
         }
         finally
         {
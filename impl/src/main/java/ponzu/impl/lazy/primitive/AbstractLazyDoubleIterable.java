@@ -0,0 +1,214 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.lazy.primitive;
+
+import java.util.NoSuchElementException;
+
+import net.jcip.annotations.Immutable;
+import ponzu.api.LazyDoubleIterable;
+import ponzu.api.LazyIterable;
+import ponzu.api.block.function.primitive.DoubleToObjectFunction;
+import ponzu.api.block.function.primitive.ObjectDoubleToObjectFunction;
+import ponzu.api.block.predicate.primitive.DoublePredicate;
+import ponzu.api.iterator.DoubleIterator;
+
+/**
+ * AbstractLazyDoubleIterable provides a base from which deferred primitive double iterables such as CollectDoubleIterable
+ * and SelectDoubleIterable can be derived.  All of the eager methods are implemented using the primitive iterator
+ * so that no Double objects are created.
+ */
+@Immutable
+public abstract class AbstractLazyDoubleIterable
+        implements LazyDoubleIterable
+{
+    @Override
+    public String toString()
+    {
+        StringBuilder builder = new StringBuilder("[");
+        DoubleIterator iterator = this.doubleIterator();
+        while (iterator.hasNext())
+        {
+            builder.append(iterator.next());
+            if (iterator.hasNext())
+            {
+                builder.append(", ");
+            }
+        }
+        return builder.append(']').toString();
+    }
+
+    public int size()
+    {
+        int count = 0;
+        DoubleIterator iterator = this.doubleIterator();
+        while (iterator.hasNext())
+        {
+            iterator.next();
+            count++;
+        }
+        return count;
+    }
+
+    public boolean isEmpty()
+    {
+        return !this.doubleIterator().hasNext();
+    }
+
+    public boolean notEmpty()
+    {
+        return !this.isEmpty();
+    }
+
+    public int count(DoublePredicate predicate)
+    {
+        int count = 0;
+        DoubleIterator iterator = this.doubleIterator();
+        while (iterator.hasNext())
+        {
+            if (predicate.accept(iterator.next()))
+            {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public boolean anySatisfy(DoublePredicate predicate)
+    {
+        DoubleIterator iterator = this.doubleIterator();
+        while (iterator.hasNext())
+        {
+            if (predicate.accept(iterator.next()))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean allSatisfy(DoublePredicate predicate)
+    {
+        DoubleIterator iterator = this.doubleIterator();
+        while (iterator.hasNext())
+        {
+            if (!predicate.accept(iterator.next()))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public LazyDoubleIterable filter(DoublePredicate predicate)
+    {
+        return new SelectDoubleIterable(this, predicate);
+    }
+
+    public <V> LazyIterable<V> transform(DoubleToObjectFunction<? extends V> function)
+    {
+        return new CollectDoubleToObjectIterable<V>(this, function);
+    }
+
+    public double sum()
+    {
+        double sum = 0.0;
+        DoubleIterator iterator = this.doubleIterator();
+        while (iterator.hasNext())
+        {
+            sum += iterator.next();
+        }
+        return sum;
+    }
+
+    public double min()
+    {
+        DoubleIterator iterator = this.doubleIterator();
+        if (!iterator.hasNext())
+        {
+            throw new NoSuchElementException();
+        }
+        double min = iterator.next();
+        while (iterator.hasNext())
+        {
+            double next = iterator.next();
+            if (next < min)
+            {
+                min = next;
+            }
+        }
+        return min;
+    }
+
+    public double max()
+    {
+        DoubleIterator iterator = this.doubleIterator();
+        if (!iterator.hasNext())
+        {
+            throw new NoSuchElementException();
+        }
+        double max = iterator.next();
+        while (iterator.hasNext())
+        {
+            double next = iterator.next();
+            if (next > max)
+            {
+                max = next;
+            }
+        }
+        return max;
+    }
+
+    public double average()
+    {
+        int count = 0;
+        double sum = 0.0;
+        DoubleIterator iterator = this.doubleIterator();
+        while (iterator.hasNext())
+        {
+            sum += iterator.next();
+            count++;
+        }
+        if (count == 0)
+        {
+            throw new ArithmeticException("Cannot calculate the average of an empty iterable");
+        }
+        return sum / count;
+    }
+
+    public double[] toArray()
+    {
+        double[] result = new double[this.size()];
+        int index = 0;
+        DoubleIterator iterator = this.doubleIterator();
+        while (iterator.hasNext())
+        {
+            result[index++] = iterator.next();
+        }
+        return result;
+    }
+
+    public <T> T foldLeft(T initialValue, ObjectDoubleToObjectFunction<? super T, ? extends T> function)
+    {
+        T result = initialValue;
+        DoubleIterator iterator = this.doubleIterator();
+        while (iterator.hasNext())
+        {
+            result = function.valueOf(result, iterator.next());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.lazy.primitive;
+
+import java.util.NoSuchElementException;
+
+import net.jcip.annotations.Immutable;
+import ponzu.api.LazyIntIterable;
+import ponzu.api.LazyIterable;
+import ponzu.api.block.function.primitive.IntToObjectFunction;
+import ponzu.api.block.function.primitive.ObjectIntToObjectFunction;
+import ponzu.api.block.predicate.primitive.IntPredicate;
+import ponzu.api.iterator.IntIterator;
+
+/**
+ * AbstractLazyIntIterable provides a base from which deferred primitive int iterables such as CollectIntIterable
+ * and SelectIntIterable can be derived.  All of the eager methods are implemented using the primitive iterator
+ * so that no Integer objects are created.
+ */
+@Immutable
+public abstract class AbstractLazyIntIterable
+        implements LazyIntIterable
+{
+    @Override
+    public String toString()
+    {
+        StringBuilder builder = new StringBuilder("[");
+        IntIterator iterator = this.intIterator();
+        while (iterator.hasNext())
+        {
+            builder.append(iterator.next());
+            if (iterator.hasNext())
+            {
+                builder.append(", ");
+            }
+        }
+        return builder.append(']').toString();
+    }
+
+    public int size()
+    {
+        int count = 0;
+        IntIterator iterator = this.intIterator();
+        while (iterator.hasNext())
+        {
+            iterator.next();
+            count++;
+        }
+        return count;
+    }
+
+    public boolean isEmpty()
+    {
+        return !this.intIterator().hasNext();
+    }
+
+    public boolean notEmpty()
+    {
+        return !this.isEmpty();
+    }
+
+    public int count(IntPredicate predicate)
+    {
+        int count = 0;
+        IntIterator iterator = this.intIterator();
+        while (iterator.hasNext())
+        {
+            if (predicate.accept(iterator.next()))
+            {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public boolean anySatisfy(IntPredicate predicate)
+    {
+        IntIterator iterator = this.intIterator();
+        while (iterator.hasNext())
+        {
+            if (predicate.accept(iterator.next()))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean allSatisfy(IntPredicate predicate)
+    {
+        IntIterator iterator = this.intIterator();
+        while (iterator.hasNext())
+        {
+            if (!predicate.accept(iterator.next()))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public LazyIntIterable filter(IntPredicate predicate)
+    {
+        return new SelectIntIterable(this, predicate);
+    }
+
+    public <V> LazyIterable<V> transform(IntToObjectFunction<? extends V> function)
+    {
+        return new CollectIntToObjectIterable<V>(this, function);
+    }
+
+    public long sum()
+    {
+        long sum = 0L;
+        IntIterator iterator = this.intIterator();
+        while (iterator.hasNext())
+        {
+            sum += iterator.next();
+        }
+        return sum;
+    }
+
+    public int min()
+    {
+        IntIterator iterator = this.intIterator();
+        if (!iterator.hasNext())
+        {
+            throw new NoSuchElementException();
+        }
+        int min = iterator.next();
+        while (iterator.hasNext())
+        {
+            int next = iterator.next();
+            if (next < min)
+            {
+                min = next;
+            }
+        }
+        return min;
+    }
+
+    public int max()
+    {
+        IntIterator iterator = this.intIterator();
+        if (!iterator.hasNext())
+        {
+            throw new NoSuchElementException();
+        }
+        int max = iterator.next();
+        while (iterator.hasNext())
+        {
+            int next = iterator.next();
+            if (next > max)
+            {
+                max = next;
+            }
+        }
+        return max;
+    }
+
+    public double average()
+    {
+        int count = 0;
+        long sum = 0L;
+        IntIterator iterator = this.intIterator();
+        while (iterator.hasNext())
+        {
+            sum += iterator.next();
+            count++;
+        }
+        if (count == 0)
+        {
+            throw new ArithmeticException("Cannot calculate the average of an empty iterable");
+        }
+        return (double) sum / (double) count;
+    }
+
+    public int[] toArray()
+    {
+        int[] result = new int[this.size()];
+        int index = 0;
+        IntIterator iterator = this.intIterator();
+        while (iterator.hasNext())
+        {
+            result[index++] = iterator.next();
+        }
+        return result;
+    }
+
+    public <T> T foldLeft(T initialValue, ObjectIntToObjectFunction<? super T, ? extends T> function)
+    {
+        T result = initialValue;
+        IntIterator iterator = this.intIterator();
+        while (iterator.hasNext())
+        {
+            result = function.valueOf(result, iterator.next());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.lazy.primitive;
+
+import java.util.NoSuchElementException;
+
+import net.jcip.annotations.Immutable;
+import ponzu.api.LazyIterable;
+import ponzu.api.LazyLongIterable;
+import ponzu.api.block.function.primitive.LongToObjectFunction;
+import ponzu.api.block.function.primitive.ObjectLongToObjectFunction;
+import ponzu.api.block.predicate.primitive.LongPredicate;
+import ponzu.api.iterator.LongIterator;
+
+/**
+ * AbstractLazyLongIterable provides a base from which deferred primitive long iterables such as CollectLongIterable
+ * and SelectLongIterable can be derived.  All of the eager methods are implemented using the primitive iterator
+ * so that no Long objects are created.
+ */
+@Immutable
+public abstract class AbstractLazyLongIterable
+        implements LazyLongIterable
+{
+    @Override
+    public String toString()
+    {
+        StringBuilder builder = new StringBuilder("[");
+        LongIterator iterator = this.longIterator();
+        while (iterator.hasNext())
+        {
+            builder.append(iterator.next());
+            if (iterator.hasNext())
+            {
+                builder.append(", ");
+            }
+        }
+        return builder.append(']').toString();
+    }
+
+    public int size()
+    {
+        int count = 0;
+        LongIterator iterator = this.longIterator();
+        while (iterator.hasNext())
+        {
+            iterator.next();
+            count++;
+        }
+        return count;
+    }
+
+    public boolean isEmpty()
+    {
+        return !this.longIterator().hasNext();
+    }
+
+    public boolean notEmpty()
+    {
+        return !this.isEmpty();
+    }
+
+    public int count(LongPredicate predicate)
+    {
+        int count = 0;
+        LongIterator iterator = this.longIterator();
+        while (iterator.hasNext())
+        {
+            if (predicate.accept(iterator.next()))
+            {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public boolean anySatisfy(LongPredicate predicate)
+    {
+        LongIterator iterator = this.longIterator();
+        while (iterator.hasNext())
+        {
+            if (predicate.accept(iterator.next()))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean allSatisfy(LongPredicate predicate)
+    {
+        LongIterator iterator = this.longIterator();
+        while (iterator.hasNext())
+        {
+            if (!predicate.accept(iterator.next()))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public LazyLongIterable filter(LongPredicate predicate)
+    {
+        return new SelectLongIterable(this, predicate);
+    }
+
+    public <V> LazyIterable<V> transform(LongToObjectFunction<? extends V> function)
+    {
+        return new CollectLongToObjectIterable<V>(this, function);
+    }
+
+    public long sum()
+    {
+        long sum = 0L;
+        LongIterator iterator = this.longIterator();
+        while (iterator.hasNext())
+        {
+            sum += iterator.next();
+        }
+        return sum;
+    }
+
+    public long min()
+    {
+        LongIterator iterator = this.longIterator();
+        if (!iterator.hasNext())
+        {
+            throw new NoSuchElementException();
+        }
+        long min = iterator.next();
+        while (iterator.hasNext())
+        {
+            long next = iterator.next();
+            if (next < min)
+            {
+                min = next;
+            }
+        }
+        return min;
+    }
+
+    public long max()
+    {
+        LongIterator iterator = this.longIterator();
+        if (!iterator.hasNext())
+        {
+            throw new NoSuchElementException();
+        }
+        long max = iterator.next();
+        while (iterator.hasNext())
+        {
+            long next = iterator.next();
+            if (next > max)
+            {
+                max = next;
+            }
+        }
+        return max;
+    }
+
+    public double average()
+    {
+        int count = 0;
+        long sum = 0L;
+        LongIterator iterator = this.longIterator();
+        while (iterator.hasNext())
+        {
+            sum += iterator.next();
+            count++;
+        }
+        if (count == 0)
+        {
+            throw new ArithmeticException("Cannot calculate the average of an empty iterable");
+        }
+        return (double) sum / (double) count;
+    }
+
+    public long[] toArray()
+    {
+        long[] result = new long[this.size()];
+        int index = 0;
+        LongIterator iterator = this.longIterator();
+        while (iterator.hasNext())
+        {
+            result[index++] = iterator.next();
+        }
+        return result;
+    }
+
+    public <T> T foldLeft(T initialValue, ObjectLongToObjectFunction<? super T, ? extends T> function)
+    {
+        T result = initialValue;
+        LongIterator iterator = this.longIterator();
+        while (iterator.hasNext())
+        {
+            result = function.valueOf(result, iterator.next());
+        }
+        return result;
+    }
+}
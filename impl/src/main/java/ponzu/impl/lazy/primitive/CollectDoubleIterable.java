@@ -0,0 +1,84 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.lazy.primitive;
+
+import java.util.Iterator;
+
+import net.jcip.annotations.Immutable;
+import ponzu.api.block.function.primitive.DoubleFunction;
+import ponzu.api.block.procedure.Procedure;
+import ponzu.api.block.procedure.primitive.DoubleProcedure;
+import ponzu.api.iterator.DoubleIterator;
+import ponzu.impl.utility.Iterate;
+
+/**
+ * A CollectDoubleIterable is an iterable that transforms a source iterable using a DoubleFunction as it iterates.
+ */
+@Immutable
+public class CollectDoubleIterable<T>
+        extends AbstractLazyDoubleIterable
+{
+    private final Iterable<T> adapted;
+    private final DoubleFunction<? super T> function;
+
+    public CollectDoubleIterable(Iterable<T> newAdapted, DoubleFunction<? super T> function)
+    {
+        this.adapted = newAdapted;
+        this.function = function;
+    }
+
+    public DoubleIterator doubleIterator()
+    {
+        return new DoubleIterator()
+        {
+            private final Iterator<T> iterator = CollectDoubleIterable.this.adapted.iterator();
+
+            public double next()
+            {
+                return CollectDoubleIterable.this.function.doubleValueOf(this.iterator.next());
+            }
+
+            public boolean hasNext()
+            {
+                return this.iterator.hasNext();
+            }
+        };
+    }
+
+    public void forEach(final DoubleProcedure procedure)
+    {
+        Iterate.forEach(this.adapted, new Procedure<T>()
+        {
+            public void value(T each)
+            {
+                procedure.value(CollectDoubleIterable.this.function.doubleValueOf(each));
+            }
+        });
+    }
+
+    @Override
+    public int size()
+    {
+        return Iterate.sizeOf(this.adapted);
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        return Iterate.isEmpty(this.adapted);
+    }
+}
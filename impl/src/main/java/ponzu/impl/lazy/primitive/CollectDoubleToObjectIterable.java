@@ -0,0 +1,116 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.lazy.primitive;
+
+import java.util.Iterator;
+
+import net.jcip.annotations.Immutable;
+import ponzu.api.LazyDoubleIterable;
+import ponzu.api.block.function.primitive.DoubleToObjectFunction;
+import ponzu.api.block.procedure.ObjectIntProcedure;
+import ponzu.api.block.procedure.Procedure;
+import ponzu.api.block.procedure.Procedure2;
+import ponzu.api.block.procedure.primitive.DoubleProcedure;
+import ponzu.api.iterator.DoubleIterator;
+import ponzu.impl.lazy.AbstractLazyIterable;
+
+/**
+ * A CollectDoubleToObjectIterable is an iterable that transforms a source double iterable into objects as it iterates.
+ */
+@Immutable
+public class CollectDoubleToObjectIterable<V>
+        extends AbstractLazyIterable<V>
+{
+    private final LazyDoubleIterable adapted;
+    private final DoubleToObjectFunction<? extends V> function;
+
+    public CollectDoubleToObjectIterable(LazyDoubleIterable newAdapted, DoubleToObjectFunction<? extends V> function)
+    {
+        this.adapted = newAdapted;
+        this.function = function;
+    }
+
+    public void forEach(final Procedure<? super V> procedure)
+    {
+        this.adapted.forEach(new DoubleProcedure()
+        {
+            public void value(double each)
+            {
+                procedure.value(CollectDoubleToObjectIterable.this.function.valueOf(each));
+            }
+        });
+    }
+
+    public void forEachWithIndex(final ObjectIntProcedure<? super V> objectIntProcedure)
+    {
+        this.adapted.forEach(new DoubleProcedure()
+        {
+            private int index;
+
+            public void value(double each)
+            {
+                objectIntProcedure.value(CollectDoubleToObjectIterable.this.function.valueOf(each), this.index++);
+            }
+        });
+    }
+
+    public <P> void forEachWith(final Procedure2<? super V, ? super P> procedure, final P parameter)
+    {
+        this.adapted.forEach(new DoubleProcedure()
+        {
+            public void value(double each)
+            {
+                procedure.value(CollectDoubleToObjectIterable.this.function.valueOf(each), parameter);
+            }
+        });
+    }
+
+    public Iterator<V> iterator()
+    {
+        return new Iterator<V>()
+        {
+            private final DoubleIterator iterator = CollectDoubleToObjectIterable.this.adapted.doubleIterator();
+
+            public boolean hasNext()
+            {
+                return this.iterator.hasNext();
+            }
+
+            public V next()
+            {
+                return CollectDoubleToObjectIterable.this.function.valueOf(this.iterator.next());
+            }
+
+            public void remove()
+            {
+                throw new UnsupportedOperationException("Cannot remove from a collect iterator");
+            }
+        };
+    }
+
+    @Override
+    public int size()
+    {
+        return this.adapted.size();
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        return this.adapted.isEmpty();
+    }
+}
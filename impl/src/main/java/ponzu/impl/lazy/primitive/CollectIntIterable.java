@@ -0,0 +1,84 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.lazy.primitive;
+
+import java.util.Iterator;
+
+import net.jcip.annotations.Immutable;
+import ponzu.api.block.function.primitive.IntFunction;
+import ponzu.api.block.procedure.Procedure;
+import ponzu.api.block.procedure.primitive.IntProcedure;
+import ponzu.api.iterator.IntIterator;
+import ponzu.impl.utility.Iterate;
+
+/**
+ * A CollectIntIterable is an iterable that transforms a source iterable using a IntFunction as it iterates.
+ */
+@Immutable
+public class CollectIntIterable<T>
+        extends AbstractLazyIntIterable
+{
+    private final Iterable<T> adapted;
+    private final IntFunction<? super T> function;
+
+    public CollectIntIterable(Iterable<T> newAdapted, IntFunction<? super T> function)
+    {
+        this.adapted = newAdapted;
+        this.function = function;
+    }
+
+    public IntIterator intIterator()
+    {
+        return new IntIterator()
+        {
+            private final Iterator<T> iterator = CollectIntIterable.this.adapted.iterator();
+
+            public int next()
+            {
+                return CollectIntIterable.this.function.intValueOf(this.iterator.next());
+            }
+
+            public boolean hasNext()
+            {
+                return this.iterator.hasNext();
+            }
+        };
+    }
+
+    public void forEach(final IntProcedure procedure)
+    {
+        Iterate.forEach(this.adapted, new Procedure<T>()
+        {
+            public void value(T each)
+            {
+                procedure.value(CollectIntIterable.this.function.intValueOf(each));
+            }
+        });
+    }
+
+    @Override
+    public int size()
+    {
+        return Iterate.sizeOf(this.adapted);
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        return Iterate.isEmpty(this.adapted);
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.lazy.primitive;
+
+import java.util.Iterator;
+
+import net.jcip.annotations.Immutable;
+import ponzu.api.block.function.primitive.LongFunction;
+import ponzu.api.block.procedure.Procedure;
+import ponzu.api.block.procedure.primitive.LongProcedure;
+import ponzu.api.iterator.LongIterator;
+import ponzu.impl.utility.Iterate;
+
+/**
+ * A CollectLongIterable is an iterable that transforms a source iterable using a LongFunction as it iterates.
+ */
+@Immutable
+public class CollectLongIterable<T>
+        extends AbstractLazyLongIterable
+{
+    private final Iterable<T> adapted;
+    private final LongFunction<? super T> function;
+
+    public CollectLongIterable(Iterable<T> newAdapted, LongFunction<? super T> function)
+    {
+        this.adapted = newAdapted;
+        this.function = function;
+    }
+
+    public LongIterator longIterator()
+    {
+        return new LongIterator()
+        {
+            private final Iterator<T> iterator = CollectLongIterable.this.adapted.iterator();
+
+            public long next()
+            {
+                return CollectLongIterable.this.function.longValueOf(this.iterator.next());
+            }
+
+            public boolean hasNext()
+            {
+                return this.iterator.hasNext();
+            }
+        };
+    }
+
+    public void forEach(final LongProcedure procedure)
+    {
+        Iterate.forEach(this.adapted, new Procedure<T>()
+        {
+            public void value(T each)
+            {
+                procedure.value(CollectLongIterable.this.function.longValueOf(each));
+            }
+        });
+    }
+
+    @Override
+    public int size()
+    {
+        return Iterate.sizeOf(this.adapted);
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        return Iterate.isEmpty(this.adapted);
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.lazy.primitive;
+
+import java.util.NoSuchElementException;
+
+import net.jcip.annotations.Immutable;
+import ponzu.api.LazyDoubleIterable;
+import ponzu.api.block.predicate.primitive.DoublePredicate;
+import ponzu.api.block.procedure.primitive.DoubleProcedure;
+import ponzu.api.iterator.DoubleIterator;
+
+/**
+ * A SelectDoubleIterable is an iterable that filters a source double iterable on a condition as it iterates.
+ */
+@Immutable
+public class SelectDoubleIterable
+        extends AbstractLazyDoubleIterable
+{
+    private final LazyDoubleIterable adapted;
+    private final DoublePredicate predicate;
+
+    public SelectDoubleIterable(LazyDoubleIterable newAdapted, DoublePredicate newPredicate)
+    {
+        this.adapted = newAdapted;
+        this.predicate = newPredicate;
+    }
+
+    public DoubleIterator doubleIterator()
+    {
+        return new SelectDoubleIterator(this.adapted.doubleIterator(), this.predicate);
+    }
+
+    public void forEach(final DoubleProcedure procedure)
+    {
+        this.adapted.forEach(new DoubleProcedure()
+        {
+            public void value(double each)
+            {
+                if (SelectDoubleIterable.this.predicate.accept(each))
+                {
+                    procedure.value(each);
+                }
+            }
+        });
+    }
+
+    private static final class SelectDoubleIterator
+            implements DoubleIterator
+    {
+        private final DoubleIterator iterator;
+        private final DoublePredicate predicate;
+        private double next;
+        private boolean verifiedHasNext;
+
+        private SelectDoubleIterator(DoubleIterator iterator, DoublePredicate predicate)
+        {
+            this.iterator = iterator;
+            this.predicate = predicate;
+        }
+
+        public boolean hasNext()
+        {
+            if (this.verifiedHasNext)
+            {
+                return true;
+            }
+            while (this.iterator.hasNext())
+            {
+                double temp = this.iterator.next();
+                if (this.predicate.accept(temp))
+                {
+                    this.next = temp;
+                    this.verifiedHasNext = true;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        public double next()
+        {
+            if (this.verifiedHasNext || this.hasNext())
+            {
+                this.verifiedHasNext = false;
+                return this.next;
+            }
+            throw new NoSuchElementException();
+        }
+    }
+}
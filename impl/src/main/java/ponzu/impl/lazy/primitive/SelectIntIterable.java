@@ -0,0 +1,105 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.lazy.primitive;
+
+import java.util.NoSuchElementException;
+
+import net.jcip.annotations.Immutable;
+import ponzu.api.LazyIntIterable;
+import ponzu.api.block.predicate.primitive.IntPredicate;
+import ponzu.api.block.procedure.primitive.IntProcedure;
+import ponzu.api.iterator.IntIterator;
+
+/**
+ * A SelectIntIterable is an iterable that filters a source int iterable on a condition as it iterates.
+ */
+@Immutable
+public class SelectIntIterable
+        extends AbstractLazyIntIterable
+{
+    private final LazyIntIterable adapted;
+    private final IntPredicate predicate;
+
+    public SelectIntIterable(LazyIntIterable newAdapted, IntPredicate newPredicate)
+    {
+        this.adapted = newAdapted;
+        this.predicate = newPredicate;
+    }
+
+    public IntIterator intIterator()
+    {
+        return new SelectIntIterator(this.adapted.intIterator(), this.predicate);
+    }
+
+    public void forEach(final IntProcedure procedure)
+    {
+        this.adapted.forEach(new IntProcedure()
+        {
+            public void value(int each)
+            {
+                if (SelectIntIterable.this.predicate.accept(each))
+                {
+                    procedure.value(each);
+                }
+            }
+        });
+    }
+
+    private static final class SelectIntIterator
+            implements IntIterator
+    {
+        private final IntIterator iterator;
+        private final IntPredicate predicate;
+        private int next;
+        private boolean verifiedHasNext;
+
+        private SelectIntIterator(IntIterator iterator, IntPredicate predicate)
+        {
+            this.iterator = iterator;
+            this.predicate = predicate;
+        }
+
+        public boolean hasNext()
+        {
+            if (this.verifiedHasNext)
+            {
+                return true;
+            }
+            while (this.iterator.hasNext())
+            {
+                int temp = this.iterator.next();
+                if (this.predicate.accept(temp))
+                {
+                    this.next = temp;
+                    this.verifiedHasNext = true;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        public int next()
+        {
+            if (this.verifiedHasNext || this.hasNext())
+            {
+                this.verifiedHasNext = false;
+                return this.next;
+            }
+            throw new NoSuchElementException();
+        }
+    }
+}
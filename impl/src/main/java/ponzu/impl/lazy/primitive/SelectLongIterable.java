@@ -0,0 +1,105 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.lazy.primitive;
+
+import java.util.NoSuchElementException;
+
+import net.jcip.annotations.Immutable;
+import ponzu.api.LazyLongIterable;
+import ponzu.api.block.predicate.primitive.LongPredicate;
+import ponzu.api.block.procedure.primitive.LongProcedure;
+import ponzu.api.iterator.LongIterator;
+
+/**
+ * A SelectLongIterable is an iterable that filters a source long iterable on a condition as it iterates.
+ */
+@Immutable
+public class SelectLongIterable
+        extends AbstractLazyLongIterable
+{
+    private final LazyLongIterable adapted;
+    private final LongPredicate predicate;
+
+    public SelectLongIterable(LazyLongIterable newAdapted, LongPredicate newPredicate)
+    {
+        this.adapted = newAdapted;
+        this.predicate = newPredicate;
+    }
+
+    public LongIterator longIterator()
+    {
+        return new SelectLongIterator(this.adapted.longIterator(), this.predicate);
+    }
+
+    public void forEach(final LongProcedure procedure)
+    {
+        this.adapted.forEach(new LongProcedure()
+        {
+            public void value(long each)
+            {
+                if (SelectLongIterable.this.predicate.accept(each))
+                {
+                    procedure.value(each);
+                }
+            }
+        });
+    }
+
+    private static final class SelectLongIterator
+            implements LongIterator
+    {
+        private final LongIterator iterator;
+        private final LongPredicate predicate;
+        private long next;
+        private boolean verifiedHasNext;
+
+        private SelectLongIterator(LongIterator iterator, LongPredicate predicate)
+        {
+            this.iterator = iterator;
+            this.predicate = predicate;
+        }
+
+        public boolean hasNext()
+        {
+            if (this.verifiedHasNext)
+            {
+                return true;
+            }
+            while (this.iterator.hasNext())
+            {
+                long temp = this.iterator.next();
+                if (this.predicate.accept(temp))
+                {
+                    this.next = temp;
+                    this.verifiedHasNext = true;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        public long next()
+        {
+            if (this.verifiedHasNext || this.hasNext())
+            {
+                this.verifiedHasNext = false;
+                return this.next;
+            }
+            throw new NoSuchElementException();
+        }
+    }
+}
@@ -24,20 +24,28 @@ import java.util.List;
 import java.util.ListIterator;
 import java.util.NoSuchElementException;
 import java.util.RandomAccess;
-import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
 
+import ponzu.api.LazyDoubleIterable;
+import ponzu.api.LazyIntIterable;
 import ponzu.api.LazyIterable;
+import ponzu.api.LazyLongIterable;
 import ponzu.api.bag.MutableBag;
 import ponzu.api.block.function.Function;
 import ponzu.api.block.function.Function2;
+import ponzu.api.block.function.primitive.DoubleFunction;
 import ponzu.api.block.function.primitive.DoubleObjectToDoubleFunction;
+import ponzu.api.block.function.primitive.IntFunction;
 import ponzu.api.block.function.primitive.IntObjectToIntFunction;
+import ponzu.api.block.function.primitive.LongFunction;
 import ponzu.api.block.function.primitive.LongObjectToLongFunction;
 import ponzu.api.block.predicate.Predicate;
 import ponzu.api.block.procedure.ObjectIntProcedure;
 import ponzu.api.block.procedure.Procedure;
 import ponzu.api.block.procedure.Procedure2;
+import ponzu.api.block.procedure.primitive.IntProcedure;
 import ponzu.api.list.MutableList;
 import ponzu.api.set.MutableSet;
 import ponzu.impl.bag.mutable.HashBag;
@@ -46,12 +54,17 @@ import ponzu.impl.block.procedure.CollectionAddProcedure;
 import ponzu.impl.block.procedure.FilterNotProcedure;
 import ponzu.impl.block.procedure.SelectProcedure;
 import ponzu.impl.block.procedure.primitive.IntObjectProcedure;
-import ponzu.impl.block.procedure.primitive.IntProcedure;
 import ponzu.impl.block.procedure.primitive.IntProcedureWithInt;
 import ponzu.impl.factory.Lists;
 import ponzu.impl.lazy.AbstractLazyIterable;
+import ponzu.impl.lazy.primitive.CollectDoubleIterable;
+import ponzu.impl.lazy.primitive.CollectIntIterable;
+import ponzu.impl.lazy.primitive.CollectLongIterable;
 import ponzu.impl.list.mutable.FastList;
 import ponzu.impl.list.mutable.MutableListIterator;
+import ponzu.impl.list.primitive.IntInterval;
+import ponzu.impl.parallel.ParallelIterate;
+import ponzu.impl.parallel.SectionTaskRunner;
 import ponzu.impl.set.mutable.UnifiedSet;
 
 /**
@@ -358,25 +371,24 @@ public final class Interval
     }
 
     /**
-     * Returns the BigInteger result of calculating product for the range.
+     * Returns the BigInteger result of calculating product for the range.  The values are multiplied as primitive
+     * longs until the running product would overflow, rather than creating a BigInteger for every element.
      */
     private BigInteger bigIntegerProduct()
     {
-        return this.foldLeft(BigInteger.valueOf(1L), new Function2<BigInteger, Integer, BigInteger>()
-        {
-            public BigInteger value(BigInteger result, Integer each)
-            {
-                return result.multiply(BigInteger.valueOf(each.longValue()));
-            }
-        });
+        return IntInterval.fromToBy(this.from, this.to, this.step).product();
     }
 
     private void failIfOutOfFactorialRange()
     {
-        if (this.from < 0 || this.step != 1)
+        if (this.from < 0)
         {
             throw new IllegalStateException("Cannot calculate factorial on negative ranges");
         }
+        if (this.step != 1)
+        {
+            throw new IllegalStateException("Cannot calculate factorial on ranges with a step other than 1: " + this.step);
+        }
     }
 
     public void forEachWithIndex(IntProcedureWithInt procedureWithInt1)
@@ -438,6 +450,15 @@ public final class Interval
         }, parameter);
     }
 
+    /**
+     * @deprecated since 1.1, use {@link #forEach(IntProcedure)}, which takes the api IntProcedure
+     */
+    @Deprecated
+    public void forEach(ponzu.impl.block.procedure.primitive.IntProcedure procedure)
+    {
+        this.forEach((IntProcedure) procedure);
+    }
+
     public void forEach(IntProcedure procedure)
     {
         if (this.from <= this.to)
@@ -468,58 +489,58 @@ public final class Interval
     }
 
     /**
-     * This method executes a void procedure against an executor, passing the current index of the
-     * interval.
+     * This method executes a void procedure against an executor, passing the current value of the interval.  The
+     * interval is split into {@link ParallelIterate#getDefaultTaskCount()} contiguous sections, each of which is
+     * iterated locally by a single task.  The call blocks until every section has finished, and rethrows the first
+     * exception thrown by the procedure.  If the calling thread is interrupted, the remaining sections are cancelled.
      */
-    public void forEach(Procedure<? super Integer> procedure, Executor executor)
+    public void forEach(final Procedure<? super Integer> procedure, Executor executor)
     {
-        CountDownLatch latch = new CountDownLatch(this.size());
-        if (this.from <= this.to)
-        {
-            // Iterates in forward direction because step value is negative
-            for (int i = this.from; i <= this.to; i += this.step)
-            {
-                this.executeAndCountdown(procedure, executor, latch, i);
-            }
-        }
-        else
+        final int sectionCount = this.getSectionCount();
+        new SectionTaskRunner(sectionCount).execute(new IntProcedure()
         {
-            // Iterates in reverse because step value is negative
-            for (int i = this.from; i >= this.to; i += this.step)
+            public void value(int sectionIndex)
             {
-                this.executeAndCountdown(procedure, executor, latch, i);
+                Interval.this.sectionForEach(new IntProcedure()
+                {
+                    public void value(int each)
+                    {
+                        procedure.value(each);
+                    }
+                }, sectionIndex, sectionCount);
             }
-        }
-        try
-        {
-            latch.await();
-        }
-        catch (InterruptedException e)
-        {
-            // do nothing here;
-        }
+        }, executor);
     }
 
-    private void executeAndCountdown(
-            final Procedure<? super Integer> procedure,
-            Executor executor,
-            final CountDownLatch latch,
-            final Integer integer)
+    private int getSectionCount()
     {
-        executor.execute(new Runnable()
-        {
-            public void run()
+        return Math.min(this.size(), ParallelIterate.getDefaultTaskCount());
+    }
+
+    /**
+     * Iterates the contiguous section of the interval identified by sectionIndex.  If the current thread is
+     * interrupted, for example because the section has been cancelled, the iteration stops by throwing a
+     * CancellationException rather than returning normally, and the interrupt flag is left set.
+     */
+    private void sectionForEach(IntProcedure procedure, int sectionIndex, int sectionCount)
+    {
+        int size = this.size();
+        int sectionSize = size / sectionCount;
+        int start = sectionSize * sectionIndex;
+        int end = sectionIndex == sectionCount - 1 ? size : start + sectionSize;
+        int value = this.locationAfterN(start);
+        Thread currentThread = Thread.currentThread();
+        for (int i = start; i < end; i++)
+        {
+            // isInterrupted leaves the flag set for the code which interrupted or owns this thread
+            if (currentThread.isInterrupted())
             {
-                try
-                {
-                    procedure.value(integer);
-                }
-                finally
-                {
-                    latch.countDown();
-                }
+                throw new CancellationException("Interrupted after " + (i - start) + " of " + (end - start)
+                        + " elements of section " + sectionIndex);
             }
-        });
+            procedure.value(value);
+            value += this.step;
+        }
     }
 
     /**
@@ -545,24 +566,38 @@ public final class Interval
 
     /**
      * This method runs a runnable a specified number of times against an executor.  The method is effectively
-     * asynchronous because it does not wait for all of the runnables to finish.
+     * asynchronous because it does not wait for all of the runnables to finish.  The runs are grouped into
+     * {@link ParallelIterate#getDefaultTaskCount()} tasks rather than one task per run.
+     *
+     * @see #runAsync(Runnable, Executor)
      */
     public void run(Runnable runnable, Executor executor)
     {
-        if (this.from <= this.to)
-        {
-            for (int i = this.from; i <= this.to; i += this.step)
-            {
-                executor.execute(runnable);
-            }
-        }
-        else
+        this.runAsync(runnable, executor);
+    }
+
+    /**
+     * Same as {@link #run(Runnable, Executor)}, but returns a Future which may be used to wait for completion,
+     * observe the first failure, or cancel the runs which have not yet happened.
+     *
+     * @since 1.1
+     */
+    public Future<Void> runAsync(final Runnable runnable, Executor executor)
+    {
+        final int sectionCount = this.getSectionCount();
+        return new SectionTaskRunner(sectionCount).submit(new IntProcedure()
         {
-            for (int i = this.from; i >= this.to; i += this.step)
+            public void value(int sectionIndex)
             {
-                executor.execute(runnable);
+                Interval.this.sectionForEach(new IntProcedure()
+                {
+                    public void value(int each)
+                    {
+                        runnable.run();
+                    }
+                }, sectionIndex, sectionCount);
             }
-        }
+        }, executor);
     }
 
     @Override
@@ -649,6 +684,21 @@ public final class Interval
         return result;
     }
 
+    public LazyIntIterable transformToInt(IntFunction<? super Integer> function)
+    {
+        return new CollectIntIterable<Integer>(this, function);
+    }
+
+    public LazyLongIterable transformToLong(LongFunction<? super Integer> function)
+    {
+        return new CollectLongIterable<Integer>(this, function);
+    }
+
+    public LazyDoubleIterable transformToDouble(DoubleFunction<? super Integer> function)
+    {
+        return new CollectDoubleIterable<Integer>(this, function);
+    }
+
     public void reverseForEach(Procedure<? super Integer> procedure)
     {
         this.reverseThis().forEach(procedure);
@@ -47,6 +47,7 @@ import ponzu.api.tuple.Twin;
 import ponzu.impl.block.factory.Comparators;
 import ponzu.impl.block.factory.Predicates2;
 import ponzu.impl.block.procedure.CollectionAddProcedure;
+import ponzu.impl.metrics.CollectionMetrics;
 import ponzu.impl.tuple.Tuples;
 import ponzu.impl.utility.ArrayIterate;
 import ponzu.impl.utility.ArrayListIterate;
@@ -203,6 +204,7 @@ public class FastList<T>
         {
             return false;
         }
+        CollectionMetrics.bulkCopied(this, source.size());
 
         if (source.getClass() == FastList.class)
         {
@@ -356,6 +358,7 @@ public class FastList<T>
 
     private void transferItemsToNewArrayWithCapacity(int newCapacity)
     {
+        CollectionMetrics.resized(this, this.items.length, newCapacity);
         this.items = (T[]) this.copyItemsWithNewCapacity(newCapacity);
     }
 
@@ -388,6 +391,7 @@ public class FastList<T>
 
     public FastList<T> withArrayCopy(T[] elements, int begin, int length)
     {
+        CollectionMetrics.bulkCopied(this, length);
         this.ensureCapacity(this.size + length);
         System.arraycopy(elements, begin, this.items, this.size, length);
         this.size += length;
@@ -740,6 +744,7 @@ public class FastList<T>
     {
         if (this.items == DEFAULT_SIZED_EMPTY_ARRAY)
         {
+            CollectionMetrics.resized(this, 0, 10);
             this.items = (T[]) new Object[10];
         }
         else
@@ -770,6 +775,7 @@ public class FastList<T>
         if (this.items.length == oldSize)
         {
             T[] newItems = (T[]) new Object[this.sizePlusFiftyPercent(oldSize)];
+            CollectionMetrics.resized(this, oldSize, newItems.length);
             if (index > 0)
             {
                 System.arraycopy(this.items, 0, newItems, 0, index);
@@ -823,6 +829,7 @@ public class FastList<T>
         {
             return false;
         }
+        CollectionMetrics.bulkCopied(this, source.size());
 
         if (source.getClass() == FastList.class)
         {
@@ -18,6 +18,7 @@ package ponzu.impl.list.mutable;
 
 import ponzu.api.factory.list.MutableListFactory;
 import ponzu.api.list.MutableList;
+import ponzu.impl.factory.SizeHints;
 
 public final class MutableListFactoryImpl implements MutableListFactory
 {
@@ -35,4 +36,12 @@ public final class MutableListFactoryImpl implements MutableListFactory
     {
         return FastList.newList(iterable);
     }
+
+    /**
+     * Report the list once it is complete with {@link SizeHints#done(String, Object)} so that the hint learns its size.
+     */
+    public <T> MutableList<T> ofSizeHint(String name)
+    {
+        return FastList.<T>newList(SizeHints.getSizeHint(name));
+    }
 }
@@ -0,0 +1,295 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.list.mutable.primitive;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+import net.jcip.annotations.NotThreadSafe;
+import ponzu.api.LazyIntIterable;
+import ponzu.api.block.predicate.primitive.IntPredicate;
+import ponzu.api.block.procedure.primitive.IntProcedure;
+import ponzu.api.iterator.IntIterator;
+import ponzu.impl.lazy.primitive.AbstractLazyIntIterable;
+
+/**
+ * IntArrayList is a growable list of primitive int values backed by an int array.  It is the primitive counterpart
+ * of FastList and is used as the eager target of primitive iterations so that no Integer objects are created.
+ *
+ * @since 1.1
+ */
+@NotThreadSafe
+public final class IntArrayList
+        implements Serializable
+{
+    private static final long serialVersionUID = 1L;
+    private static final int[] ZERO_SIZED_ARRAY = {};
+
+    private int size;
+    private int[] items = ZERO_SIZED_ARRAY;
+
+    public IntArrayList()
+    {
+    }
+
+    public IntArrayList(int initialCapacity)
+    {
+        this.items = initialCapacity == 0 ? ZERO_SIZED_ARRAY : new int[initialCapacity];
+    }
+
+    public static IntArrayList newListWith(int... elements)
+    {
+        IntArrayList list = new IntArrayList(elements.length);
+        list.addAll(elements);
+        return list;
+    }
+
+    public int size()
+    {
+        return this.size;
+    }
+
+    public boolean isEmpty()
+    {
+        return this.size == 0;
+    }
+
+    public boolean notEmpty()
+    {
+        return this.size > 0;
+    }
+
+    public int get(int index)
+    {
+        if (index < this.size)
+        {
+            return this.items[index];
+        }
+        throw new IndexOutOfBoundsException("Index: " + index + " Size: " + this.size);
+    }
+
+    public boolean contains(int value)
+    {
+        for (int i = 0; i < this.size; i++)
+        {
+            if (this.items[i] == value)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean add(int newItem)
+    {
+        if (this.items.length == this.size)
+        {
+            this.ensureCapacity(this.size + 1);
+        }
+        this.items[this.size++] = newItem;
+        return true;
+    }
+
+    public boolean addAll(int... source)
+    {
+        if (source.length == 0)
+        {
+            return false;
+        }
+        int newSize = this.size + source.length;
+        this.ensureCapacity(newSize);
+        System.arraycopy(source, 0, this.items, this.size, source.length);
+        this.size = newSize;
+        return true;
+    }
+
+    public IntArrayList with(int element)
+    {
+        this.add(element);
+        return this;
+    }
+
+    public void clear()
+    {
+        this.size = 0;
+    }
+
+    public void ensureCapacity(int minCapacity)
+    {
+        int oldCapacity = this.items.length;
+        if (minCapacity > oldCapacity)
+        {
+            int newCapacity = Math.max(oldCapacity + (oldCapacity >> 1) + 1, minCapacity);
+            int[] newItems = new int[newCapacity];
+            System.arraycopy(this.items, 0, newItems, 0, this.size);
+            this.items = newItems;
+        }
+    }
+
+    public void trimToSize()
+    {
+        if (this.size < this.items.length)
+        {
+            this.items = this.toArray();
+        }
+    }
+
+    public void forEach(IntProcedure procedure)
+    {
+        for (int i = 0; i < this.size; i++)
+        {
+            procedure.value(this.items[i]);
+        }
+    }
+
+    public int count(IntPredicate predicate)
+    {
+        int count = 0;
+        for (int i = 0; i < this.size; i++)
+        {
+            if (predicate.accept(this.items[i]))
+            {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public long sum()
+    {
+        long result = 0L;
+        for (int i = 0; i < this.size; i++)
+        {
+            result += this.items[i];
+        }
+        return result;
+    }
+
+    public int[] toArray()
+    {
+        int[] result = new int[this.size];
+        System.arraycopy(this.items, 0, result, 0, this.size);
+        return result;
+    }
+
+    /**
+     * Returns a deferred view of this list.  Changes to the list are visible through the view.
+     */
+    public LazyIntIterable asLazy()
+    {
+        return new LazyIntArrayListIterable();
+    }
+
+    @Override
+    public boolean equals(Object otherList)
+    {
+        if (otherList == this)
+        {
+            return true;
+        }
+        if (!(otherList instanceof IntArrayList))
+        {
+            return false;
+        }
+        IntArrayList list = (IntArrayList) otherList;
+        if (this.size != list.size)
+        {
+            return false;
+        }
+        for (int i = 0; i < this.size; i++)
+        {
+            if (this.items[i] != list.items[i])
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        int hashCode = 1;
+        for (int i = 0; i < this.size; i++)
+        {
+            hashCode = 31 * hashCode + this.items[i];
+        }
+        return hashCode;
+    }
+
+    @Override
+    public String toString()
+    {
+        return Arrays.toString(this.toArray());
+    }
+
+    private final class LazyIntArrayListIterable
+            extends AbstractLazyIntIterable
+    {
+        public IntIterator intIterator()
+        {
+            return new IntIterator()
+            {
+                private int currentIndex;
+
+                public boolean hasNext()
+                {
+                    return this.currentIndex < IntArrayList.this.size;
+                }
+
+                public int next()
+                {
+                    if (!this.hasNext())
+                    {
+                        throw new NoSuchElementException();
+                    }
+                    return IntArrayList.this.items[this.currentIndex++];
+                }
+            };
+        }
+
+        public void forEach(IntProcedure procedure)
+        {
+            IntArrayList.this.forEach(procedure);
+        }
+
+        @Override
+        public int size()
+        {
+            return IntArrayList.this.size;
+        }
+
+        @Override
+        public boolean isEmpty()
+        {
+            return IntArrayList.this.isEmpty();
+        }
+
+        @Override
+        public long sum()
+        {
+            return IntArrayList.this.sum();
+        }
+
+        @Override
+        public int[] toArray()
+        {
+            return IntArrayList.this.toArray();
+        }
+    }
+}
@@ -0,0 +1,296 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.list.mutable.primitive;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+import net.jcip.annotations.NotThreadSafe;
+import ponzu.api.LazyLongIterable;
+import ponzu.api.block.predicate.primitive.LongPredicate;
+import ponzu.api.block.procedure.primitive.LongProcedure;
+import ponzu.api.iterator.LongIterator;
+import ponzu.impl.lazy.primitive.AbstractLazyLongIterable;
+
+/**
+ * LongArrayList is a growable list of primitive long values backed by a long array.  It is the primitive counterpart
+ * of FastList and is used as the eager target of primitive iterations so that no Long objects are created.
+ *
+ * @since 1.1
+ */
+@NotThreadSafe
+public final class LongArrayList
+        implements Serializable
+{
+    private static final long serialVersionUID = 1L;
+    private static final long[] ZERO_SIZED_ARRAY = {};
+
+    private int size;
+    private long[] items = ZERO_SIZED_ARRAY;
+
+    public LongArrayList()
+    {
+    }
+
+    public LongArrayList(int initialCapacity)
+    {
+        this.items = initialCapacity == 0 ? ZERO_SIZED_ARRAY : new long[initialCapacity];
+    }
+
+    public static LongArrayList newListWith(long... elements)
+    {
+        LongArrayList list = new LongArrayList(elements.length);
+        list.addAll(elements);
+        return list;
+    }
+
+    public int size()
+    {
+        return this.size;
+    }
+
+    public boolean isEmpty()
+    {
+        return this.size == 0;
+    }
+
+    public boolean notEmpty()
+    {
+        return this.size > 0;
+    }
+
+    public long get(int index)
+    {
+        if (index < this.size)
+        {
+            return this.items[index];
+        }
+        throw new IndexOutOfBoundsException("Index: " + index + " Size: " + this.size);
+    }
+
+    public boolean contains(long value)
+    {
+        for (int i = 0; i < this.size; i++)
+        {
+            if (this.items[i] == value)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean add(long newItem)
+    {
+        if (this.items.length == this.size)
+        {
+            this.ensureCapacity(this.size + 1);
+        }
+        this.items[this.size++] = newItem;
+        return true;
+    }
+
+    public boolean addAll(long... source)
+    {
+        if (source.length == 0)
+        {
+            return false;
+        }
+        int newSize = this.size + source.length;
+        this.ensureCapacity(newSize);
+        System.arraycopy(source, 0, this.items, this.size, source.length);
+        this.size = newSize;
+        return true;
+    }
+
+    public LongArrayList with(long element)
+    {
+        this.add(element);
+        return this;
+    }
+
+    public void clear()
+    {
+        this.size = 0;
+    }
+
+    public void ensureCapacity(int minCapacity)
+    {
+        int oldCapacity = this.items.length;
+        if (minCapacity > oldCapacity)
+        {
+            int newCapacity = Math.max(oldCapacity + (oldCapacity >> 1) + 1, minCapacity);
+            long[] newItems = new long[newCapacity];
+            System.arraycopy(this.items, 0, newItems, 0, this.size);
+            this.items = newItems;
+        }
+    }
+
+    public void trimToSize()
+    {
+        if (this.size < this.items.length)
+        {
+            this.items = this.toArray();
+        }
+    }
+
+    public void forEach(LongProcedure procedure)
+    {
+        for (int i = 0; i < this.size; i++)
+        {
+            procedure.value(this.items[i]);
+        }
+    }
+
+    public int count(LongPredicate predicate)
+    {
+        int count = 0;
+        for (int i = 0; i < this.size; i++)
+        {
+            if (predicate.accept(this.items[i]))
+            {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public long sum()
+    {
+        long result = 0L;
+        for (int i = 0; i < this.size; i++)
+        {
+            result += this.items[i];
+        }
+        return result;
+    }
+
+    public long[] toArray()
+    {
+        long[] result = new long[this.size];
+        System.arraycopy(this.items, 0, result, 0, this.size);
+        return result;
+    }
+
+    /**
+     * Returns a deferred view of this list.  Changes to the list are visible through the view.
+     */
+    public LazyLongIterable asLazy()
+    {
+        return new LazyLongArrayListIterable();
+    }
+
+    @Override
+    public boolean equals(Object otherList)
+    {
+        if (otherList == this)
+        {
+            return true;
+        }
+        if (!(otherList instanceof LongArrayList))
+        {
+            return false;
+        }
+        LongArrayList list = (LongArrayList) otherList;
+        if (this.size != list.size)
+        {
+            return false;
+        }
+        for (int i = 0; i < this.size; i++)
+        {
+            if (this.items[i] != list.items[i])
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        int hashCode = 1;
+        for (int i = 0; i < this.size; i++)
+        {
+            long item = this.items[i];
+            hashCode = 31 * hashCode + (int) (item ^ (item >>> 32));
+        }
+        return hashCode;
+    }
+
+    @Override
+    public String toString()
+    {
+        return Arrays.toString(this.toArray());
+    }
+
+    private final class LazyLongArrayListIterable
+            extends AbstractLazyLongIterable
+    {
+        public LongIterator longIterator()
+        {
+            return new LongIterator()
+            {
+                private int currentIndex;
+
+                public boolean hasNext()
+                {
+                    return this.currentIndex < LongArrayList.this.size;
+                }
+
+                public long next()
+                {
+                    if (!this.hasNext())
+                    {
+                        throw new NoSuchElementException();
+                    }
+                    return LongArrayList.this.items[this.currentIndex++];
+                }
+            };
+        }
+
+        public void forEach(LongProcedure procedure)
+        {
+            LongArrayList.this.forEach(procedure);
+        }
+
+        @Override
+        public int size()
+        {
+            return LongArrayList.this.size;
+        }
+
+        @Override
+        public boolean isEmpty()
+        {
+            return LongArrayList.this.isEmpty();
+        }
+
+        @Override
+        public long sum()
+        {
+            return LongArrayList.this.sum();
+        }
+
+        @Override
+        public long[] toArray()
+        {
+            return LongArrayList.this.toArray();
+        }
+    }
+}
@@ -0,0 +1,460 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.list.primitive;
+
+import java.io.Serializable;
+import java.math.BigInteger;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+
+import net.jcip.annotations.Immutable;
+import ponzu.api.block.predicate.primitive.IntPredicate;
+import ponzu.api.block.procedure.Procedure;
+import ponzu.api.block.procedure.primitive.IntProcedure;
+import ponzu.api.iterator.IntIterator;
+import ponzu.impl.lazy.primitive.AbstractLazyIntIterable;
+import ponzu.impl.list.mutable.primitive.IntArrayList;
+import ponzu.impl.parallel.BatchIterable;
+import ponzu.impl.parallel.ParallelIterate;
+import ponzu.impl.parallel.SectionTaskRunner;
+
+/**
+ * An IntInterval is a range of primitive ints that may be iterated over using a step value.  Unlike
+ * {@link ponzu.impl.list.Interval}, no Integer objects are created when iterating with an {@link IntProcedure}.
+ * <p/>
+ * Iteration is driven by element index rather than by comparing the current value against the end of the range, so
+ * intervals which end at {@link Integer#MAX_VALUE} or {@link Integer#MIN_VALUE} terminate correctly.
+ *
+ * @since 1.1
+ */
+@Immutable
+public final class IntInterval
+        extends AbstractLazyIntIterable
+        implements BatchIterable<Integer>, Serializable
+{
+    private static final long serialVersionUID = 1L;
+
+    private final int from;
+    private final int to;
+    private final int step;
+    private final int size;
+
+    private IntInterval(int from, int to, int step, int size)
+    {
+        this.from = from;
+        this.to = to;
+        this.step = step;
+        this.size = size;
+    }
+
+    /**
+     * Returns an IntInterval starting from 1 to the specified count value with a step value of 1.
+     */
+    public static IntInterval oneTo(int count)
+    {
+        if (count < 1)
+        {
+            throw new IllegalArgumentException("Only positive ranges allowed using oneTo");
+        }
+        return IntInterval.fromToBy(1, count, 1);
+    }
+
+    /**
+     * Returns an IntInterval starting from 0 to the specified count value with a step value of 1.
+     */
+    public static IntInterval zeroTo(int count)
+    {
+        return IntInterval.fromTo(0, count);
+    }
+
+    /**
+     * Returns an IntInterval starting from the value from to the specified value to with a step value of 1 or -1.
+     */
+    public static IntInterval fromTo(int from, int to)
+    {
+        return IntInterval.fromToBy(from, to, from <= to ? 1 : -1);
+    }
+
+    /**
+     * Returns an IntInterval for the range of ints inclusively between from and to with the specified stepBy value.
+     */
+    public static IntInterval fromToBy(int from, int to, int stepBy)
+    {
+        if (stepBy == 0)
+        {
+            throw new IllegalArgumentException("Cannot use a step by of 0");
+        }
+        if (from > to && stepBy > 0 || from < to && stepBy < 0)
+        {
+            throw new IllegalArgumentException("Step by is incorrect for the range");
+        }
+        long size = ((long) to - (long) from) / stepBy + 1L;
+        if (size > Integer.MAX_VALUE)
+        {
+            throw new IllegalArgumentException(
+                    "Range from " + from + " to " + to + " has more than Integer.MAX_VALUE elements");
+        }
+        return new IntInterval(from, to, stepBy, (int) size);
+    }
+
+    public int getFrom()
+    {
+        return this.from;
+    }
+
+    /**
+     * Returns the last value in the interval, which may differ from the requested upper bound when the step does not
+     * divide the range evenly.
+     */
+    public int getLast()
+    {
+        return this.valueAtIndex(this.size - 1);
+    }
+
+    public int getStep()
+    {
+        return this.step;
+    }
+
+    private int valueAtIndex(int index)
+    {
+        return (int) ((long) this.from + (long) index * (long) this.step);
+    }
+
+    public int get(int index)
+    {
+        if (index < 0 || index >= this.size)
+        {
+            throw new IndexOutOfBoundsException("Index: " + index + " Size: " + this.size);
+        }
+        return this.valueAtIndex(index);
+    }
+
+    public boolean contains(int value)
+    {
+        long distance = (long) value - (long) this.from;
+        if (distance % this.step != 0)
+        {
+            return false;
+        }
+        long index = distance / this.step;
+        return index >= 0L && index < this.size;
+    }
+
+    @Override
+    public int size()
+    {
+        return this.size;
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        return false;
+    }
+
+    public IntIterator intIterator()
+    {
+        return new IntIntervalIterator();
+    }
+
+    public void forEach(IntProcedure procedure)
+    {
+        this.forEach(procedure, 0, this.size);
+    }
+
+    private void forEach(IntProcedure procedure, int startIndex, int endIndex)
+    {
+        int value = this.valueAtIndex(startIndex);
+        for (int i = startIndex; i < endIndex; i++)
+        {
+            procedure.value(value);
+            value += this.step;
+        }
+    }
+
+    public void forEach(Procedure<? super Integer> procedure)
+    {
+        this.forEach(new BoxingIntProcedure(procedure));
+    }
+
+    /**
+     * Executes the procedure for every value in the interval using the specified executor.  The interval is split
+     * into {@link ParallelIterate#getDefaultTaskCount()} contiguous index ranges, each of which is iterated locally by
+     * a single task, and the call blocks until all of the ranges have been processed.  The procedure must be safe to
+     * call from multiple threads.  If the calling thread is interrupted, the remaining sections are cancelled.
+     */
+    public void forEach(final IntProcedure procedure, Executor executor)
+    {
+        final int sectionCount = Math.min(this.size, ParallelIterate.getDefaultTaskCount());
+        new SectionTaskRunner(sectionCount).execute(new IntProcedure()
+        {
+            public void value(int sectionIndex)
+            {
+                IntInterval.this.sectionForEach(procedure, sectionIndex, sectionCount);
+            }
+        }, executor);
+    }
+
+    /**
+     * Iterates the contiguous section of the interval identified by sectionIndex.  If the current thread is
+     * interrupted, for example because the section has been cancelled, the iteration stops by throwing a
+     * CancellationException rather than returning normally, and the interrupt flag is left set.
+     */
+    private void sectionForEach(IntProcedure procedure, int sectionIndex, int sectionCount)
+    {
+        int start = this.sectionStart(sectionIndex, sectionCount);
+        int end = this.sectionEnd(sectionIndex, sectionCount);
+        int value = this.valueAtIndex(start);
+        Thread currentThread = Thread.currentThread();
+        for (int i = start; i < end; i++)
+        {
+            // isInterrupted leaves the flag set for the code which interrupted or owns this thread
+            if (currentThread.isInterrupted())
+            {
+                throw new CancellationException("Interrupted after " + (i - start) + " of " + (end - start)
+                        + " elements of section " + sectionIndex);
+            }
+            procedure.value(value);
+            value += this.step;
+        }
+    }
+
+    private int sectionStart(int sectionIndex, int sectionCount)
+    {
+        return this.size / sectionCount * sectionIndex;
+    }
+
+    private int sectionEnd(int sectionIndex, int sectionCount)
+    {
+        return sectionIndex == sectionCount - 1 ? this.size : this.sectionStart(sectionIndex + 1, sectionCount);
+    }
+
+    /**
+     * Executes the procedure for the contiguous section of the interval identified by sectionIndex when the interval
+     * is divided into sectionCount sections.  This is the primitive form of
+     * {@link #batchForEach(Procedure, int, int)}, named differently so that the two cannot be ambiguous.
+     */
+    public void batchForEachInt(IntProcedure procedure, int sectionIndex, int sectionCount)
+    {
+        int start = this.sectionStart(sectionIndex, sectionCount);
+        this.forEach(procedure, start, this.sectionEnd(sectionIndex, sectionCount));
+    }
+
+    public void batchForEach(Procedure<? super Integer> procedure, int sectionIndex, int sectionCount)
+    {
+        this.batchForEachInt(new BoxingIntProcedure(procedure), sectionIndex, sectionCount);
+    }
+
+    public int getBatchCount(int batchSize)
+    {
+        return Math.max(1, this.size / batchSize);
+    }
+
+    /**
+     * Adds the values which satisfy the predicate to the target list and returns it.
+     */
+    public IntArrayList filter(IntPredicate predicate, IntArrayList target)
+    {
+        int value = this.from;
+        for (int i = 0; i < this.size; i++)
+        {
+            if (predicate.accept(value))
+            {
+                target.add(value);
+            }
+            value += this.step;
+        }
+        return target;
+    }
+
+    public IntArrayList toList()
+    {
+        IntArrayList list = new IntArrayList(this.size);
+        int value = this.from;
+        for (int i = 0; i < this.size; i++)
+        {
+            list.add(value);
+            value += this.step;
+        }
+        return list;
+    }
+
+    @Override
+    public int[] toArray()
+    {
+        int[] result = new int[this.size];
+        int value = this.from;
+        for (int i = 0; i < this.size; i++)
+        {
+            result[i] = value;
+            value += this.step;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the sum of the interval, calculated in constant time.
+     */
+    @Override
+    public long sum()
+    {
+        long firstPlusLast = (long) this.from + (long) this.getLast();
+        if (this.size % 2 == 0)
+        {
+            return (long) (this.size / 2) * firstPlusLast;
+        }
+        return (long) this.size * (firstPlusLast / 2L);
+    }
+
+    @Override
+    public int min()
+    {
+        return Math.min(this.from, this.getLast());
+    }
+
+    @Override
+    public int max()
+    {
+        return Math.max(this.from, this.getLast());
+    }
+
+    @Override
+    public double average()
+    {
+        return ((double) this.from + (double) this.getLast()) / 2.0;
+    }
+
+    /**
+     * Returns the product of the values in the interval.  Values are multiplied as longs for as long as the running
+     * product cannot overflow, and only the partial products are multiplied as BigIntegers.
+     */
+    public BigInteger product()
+    {
+        BigInteger result = BigInteger.ONE;
+        long partial = 1L;
+        int value = this.from;
+        for (int i = 0; i < this.size; i++)
+        {
+            if (value == 0)
+            {
+                return BigInteger.ZERO;
+            }
+            if (IntInterval.multiplyOverflows(partial, value))
+            {
+                result = result.multiply(BigInteger.valueOf(partial));
+                partial = 1L;
+            }
+            partial *= value;
+            value += this.step;
+        }
+        return result.multiply(BigInteger.valueOf(partial));
+    }
+
+    private static boolean multiplyOverflows(long partial, int value)
+    {
+        return Math.abs(partial) > Long.MAX_VALUE / Math.abs((long) value);
+    }
+
+    /**
+     * Returns the BigInteger result of calculating factorial for the range.
+     */
+    public BigInteger factorial()
+    {
+        if (this.from < 0)
+        {
+            throw new IllegalStateException("Cannot calculate factorial on negative ranges");
+        }
+        if (this.step != 1)
+        {
+            throw new IllegalStateException(
+                    "Cannot calculate factorial on ranges with a step other than 1: " + this.step);
+        }
+        return this.from == 0 ? BigInteger.ONE : this.product();
+    }
+
+    @Override
+    public boolean equals(Object otherInterval)
+    {
+        if (this == otherInterval)
+        {
+            return true;
+        }
+        if (!(otherInterval instanceof IntInterval))
+        {
+            return false;
+        }
+        IntInterval interval = (IntInterval) otherInterval;
+        return this.size == interval.size
+                && this.from == interval.from
+                && (this.size == 1 || this.step == interval.step);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        int result = this.from;
+        result = 31 * result + this.size;
+        result = 31 * result + (this.size == 1 ? 0 : this.step);
+        return result;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "IntInterval from: " + this.from + " to: " + this.to + " step: " + this.step + " size: " + this.size;
+    }
+
+    private static final class BoxingIntProcedure implements IntProcedure
+    {
+        private final Procedure<? super Integer> procedure;
+
+        private BoxingIntProcedure(Procedure<? super Integer> procedure)
+        {
+            this.procedure = procedure;
+        }
+
+        public void value(int each)
+        {
+            this.procedure.value(each);
+        }
+    }
+
+    private final class IntIntervalIterator implements IntIterator
+    {
+        private int currentIndex;
+        private int current = IntInterval.this.from;
+
+        public boolean hasNext()
+        {
+            return this.currentIndex < IntInterval.this.size;
+        }
+
+        public int next()
+        {
+            if (!this.hasNext())
+            {
+                throw new NoSuchElementException();
+            }
+            int result = this.current;
+            this.current += IntInterval.this.step;
+            this.currentIndex++;
+            return result;
+        }
+    }
+}
@@ -0,0 +1,433 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.list.primitive;
+
+import java.io.Serializable;
+import java.math.BigInteger;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+
+import net.jcip.annotations.Immutable;
+import ponzu.api.block.predicate.primitive.LongPredicate;
+import ponzu.api.block.procedure.Procedure;
+import ponzu.api.block.procedure.primitive.IntProcedure;
+import ponzu.api.block.procedure.primitive.LongProcedure;
+import ponzu.api.iterator.LongIterator;
+import ponzu.impl.lazy.primitive.AbstractLazyLongIterable;
+import ponzu.impl.list.mutable.primitive.LongArrayList;
+import ponzu.impl.parallel.BatchIterable;
+import ponzu.impl.parallel.ParallelIterate;
+import ponzu.impl.parallel.SectionTaskRunner;
+
+/**
+ * A LongInterval is a range of primitive longs that may be iterated over using a step value.  No Long objects are
+ * created when iterating with a {@link LongProcedure}.  A LongInterval may hold up to {@link Long#MAX_VALUE} values,
+ * which is reported by {@link #longSize()}.  Operations which have to fit the values into an int sized result, such as
+ * {@link #size()}, {@link #toArray()} and {@link #toList()}, throw an ArithmeticException for larger intervals.
+ *
+ * @since 1.1
+ */
+@Immutable
+public final class LongInterval
+        extends AbstractLazyLongIterable
+        implements BatchIterable<Long>, Serializable
+{
+    private static final long serialVersionUID = 1L;
+
+    private final long from;
+    private final long to;
+    private final long step;
+    private final long size;
+
+    private LongInterval(long from, long to, long step, long size)
+    {
+        this.from = from;
+        this.to = to;
+        this.step = step;
+        this.size = size;
+    }
+
+    /**
+     * Returns a LongInterval starting from 1 to the specified count value with a step value of 1.
+     */
+    public static LongInterval oneTo(long count)
+    {
+        if (count < 1L)
+        {
+            throw new IllegalArgumentException("Only positive ranges allowed using oneTo");
+        }
+        return LongInterval.fromToBy(1L, count, 1L);
+    }
+
+    /**
+     * Returns a LongInterval starting from 0 to the specified count value with a step value of 1.
+     */
+    public static LongInterval zeroTo(long count)
+    {
+        return LongInterval.fromTo(0L, count);
+    }
+
+    /**
+     * Returns a LongInterval starting from the value from to the specified value to with a step value of 1 or -1.
+     */
+    public static LongInterval fromTo(long from, long to)
+    {
+        return LongInterval.fromToBy(from, to, from <= to ? 1L : -1L);
+    }
+
+    /**
+     * Returns a LongInterval for the range of longs inclusively between from and to with the specified stepBy value.
+     */
+    public static LongInterval fromToBy(long from, long to, long stepBy)
+    {
+        if (stepBy == 0L)
+        {
+            throw new IllegalArgumentException("Cannot use a step by of 0");
+        }
+        if (from > to && stepBy > 0L || from < to && stepBy < 0L)
+        {
+            throw new IllegalArgumentException("Step by is incorrect for the range");
+        }
+        BigInteger size = BigInteger.valueOf(to)
+                .subtract(BigInteger.valueOf(from))
+                .divide(BigInteger.valueOf(stepBy))
+                .add(BigInteger.ONE);
+        if (size.compareTo(BigInteger.valueOf(Long.MAX_VALUE)) > 0)
+        {
+            throw new IllegalArgumentException(
+                    "Range from " + from + " to " + to + " has more than Long.MAX_VALUE elements");
+        }
+        return new LongInterval(from, to, stepBy, size.longValue());
+    }
+
+    public long getFrom()
+    {
+        return this.from;
+    }
+
+    /**
+     * Returns the last value in the interval, which may differ from the requested upper bound when the step does not
+     * divide the range evenly.
+     */
+    public long getLast()
+    {
+        return this.valueAtIndex(this.size - 1);
+    }
+
+    public long getStep()
+    {
+        return this.step;
+    }
+
+    private long valueAtIndex(long index)
+    {
+        return this.from + index * this.step;
+    }
+
+    public long get(long index)
+    {
+        if (index < 0 || index >= this.size)
+        {
+            throw new IndexOutOfBoundsException("Index: " + index + " Size: " + this.size);
+        }
+        return this.valueAtIndex(index);
+    }
+
+    public boolean contains(long value)
+    {
+        if (value < this.min() || value > this.max())
+        {
+            return false;
+        }
+        return BigInteger.valueOf(value)
+                .subtract(BigInteger.valueOf(this.from))
+                .mod(BigInteger.valueOf(Math.abs(this.step)))
+                .signum() == 0;
+    }
+
+    /**
+     * Returns the number of values in the interval.
+     *
+     * @throws ArithmeticException if the interval has more than {@link Integer#MAX_VALUE} values
+     * @see #longSize()
+     */
+    @Override
+    public int size()
+    {
+        if (this.size > Integer.MAX_VALUE)
+        {
+            throw new ArithmeticException(this + " has more than Integer.MAX_VALUE elements, use longSize()");
+        }
+        return (int) this.size;
+    }
+
+    public long longSize()
+    {
+        return this.size;
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        return false;
+    }
+
+    public LongIterator longIterator()
+    {
+        return new LongIntervalIterator();
+    }
+
+    public void forEach(LongProcedure procedure)
+    {
+        this.forEach(procedure, 0, this.size);
+    }
+
+    private void forEach(LongProcedure procedure, long startIndex, long endIndex)
+    {
+        long value = this.valueAtIndex(startIndex);
+        for (long i = startIndex; i < endIndex; i++)
+        {
+            procedure.value(value);
+            value += this.step;
+        }
+    }
+
+    public void forEach(Procedure<? super Long> procedure)
+    {
+        this.forEach(new BoxingLongProcedure(procedure));
+    }
+
+    /**
+     * Executes the procedure for every value in the interval using the specified executor.  The interval is split
+     * into {@link ParallelIterate#getDefaultTaskCount()} contiguous index ranges, each of which is iterated locally by
+     * a single task, and the call blocks until all of the ranges have been processed.  The procedure must be safe to
+     * call from multiple threads.  If the calling thread is interrupted, the remaining sections are cancelled.
+     */
+    public void forEach(final LongProcedure procedure, Executor executor)
+    {
+        final int sectionCount = (int) Math.min(this.size, (long) ParallelIterate.getDefaultTaskCount());
+        new SectionTaskRunner(sectionCount).execute(new IntProcedure()
+        {
+            public void value(int sectionIndex)
+            {
+                LongInterval.this.sectionForEach(procedure, sectionIndex, sectionCount);
+            }
+        }, executor);
+    }
+
+    /**
+     * Iterates the contiguous section of the interval identified by sectionIndex.  If the current thread is
+     * interrupted, for example because the section has been cancelled, the iteration stops by throwing a
+     * CancellationException rather than returning normally, and the interrupt flag is left set.
+     */
+    private void sectionForEach(LongProcedure procedure, int sectionIndex, int sectionCount)
+    {
+        long start = this.sectionStart(sectionIndex, sectionCount);
+        long end = this.sectionEnd(sectionIndex, sectionCount);
+        long value = this.valueAtIndex(start);
+        Thread currentThread = Thread.currentThread();
+        for (long i = start; i < end; i++)
+        {
+            // isInterrupted leaves the flag set for the code which interrupted or owns this thread
+            if (currentThread.isInterrupted())
+            {
+                throw new CancellationException("Interrupted after " + (i - start) + " of " + (end - start)
+                        + " elements of section " + sectionIndex);
+            }
+            procedure.value(value);
+            value += this.step;
+        }
+    }
+
+    private long sectionStart(int sectionIndex, int sectionCount)
+    {
+        return this.size / sectionCount * sectionIndex;
+    }
+
+    private long sectionEnd(int sectionIndex, int sectionCount)
+    {
+        return sectionIndex == sectionCount - 1 ? this.size : this.sectionStart(sectionIndex + 1, sectionCount);
+    }
+
+    /**
+     * Executes the procedure for the contiguous section of the interval identified by sectionIndex when the interval
+     * is divided into sectionCount sections.  This is the primitive form of
+     * {@link #batchForEach(Procedure, int, int)}, named differently so that the two cannot be ambiguous.
+     */
+    public void batchForEachLong(LongProcedure procedure, int sectionIndex, int sectionCount)
+    {
+        long start = this.sectionStart(sectionIndex, sectionCount);
+        this.forEach(procedure, start, this.sectionEnd(sectionIndex, sectionCount));
+    }
+
+    public void batchForEach(Procedure<? super Long> procedure, int sectionIndex, int sectionCount)
+    {
+        this.batchForEachLong(new BoxingLongProcedure(procedure), sectionIndex, sectionCount);
+    }
+
+    public int getBatchCount(int batchSize)
+    {
+        return (int) Math.min((long) Integer.MAX_VALUE, Math.max(1L, this.size / batchSize));
+    }
+
+    /**
+     * Adds the values which satisfy the predicate to the target list and returns it.
+     */
+    public LongArrayList filter(LongPredicate predicate, LongArrayList target)
+    {
+        long value = this.from;
+        for (long i = 0L; i < this.size; i++)
+        {
+            if (predicate.accept(value))
+            {
+                target.add(value);
+            }
+            value += this.step;
+        }
+        return target;
+    }
+
+    public LongArrayList toList()
+    {
+        int size = this.size();
+        LongArrayList list = new LongArrayList(size);
+        long value = this.from;
+        for (int i = 0; i < size; i++)
+        {
+            list.add(value);
+            value += this.step;
+        }
+        return list;
+    }
+
+    @Override
+    public long[] toArray()
+    {
+        int size = this.size();
+        long[] result = new long[size];
+        long value = this.from;
+        for (int i = 0; i < size; i++)
+        {
+            result[i] = value;
+            value += this.step;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the sum of the interval, calculated in constant time.  As with summing the values one at a time, the
+     * result wraps around if it does not fit in a long.
+     */
+    @Override
+    public long sum()
+    {
+        return BigInteger.valueOf(this.from)
+                .add(BigInteger.valueOf(this.getLast()))
+                .multiply(BigInteger.valueOf(this.size))
+                .shiftRight(1)
+                .longValue();
+    }
+
+    @Override
+    public long min()
+    {
+        return Math.min(this.from, this.getLast());
+    }
+
+    @Override
+    public long max()
+    {
+        return Math.max(this.from, this.getLast());
+    }
+
+    @Override
+    public double average()
+    {
+        return ((double) this.from + (double) this.getLast()) / 2.0;
+    }
+
+    @Override
+    public boolean equals(Object otherInterval)
+    {
+        if (this == otherInterval)
+        {
+            return true;
+        }
+        if (!(otherInterval instanceof LongInterval))
+        {
+            return false;
+        }
+        LongInterval interval = (LongInterval) otherInterval;
+        return this.size == interval.size
+                && this.from == interval.from
+                && (this.size == 1 || this.step == interval.step);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        int result = (int) (this.from ^ (this.from >>> 32));
+        result = 31 * result + (int) (this.size ^ (this.size >>> 32));
+        result = 31 * result + (this.size == 1 ? 0 : (int) (this.step ^ (this.step >>> 32)));
+        return result;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "LongInterval from: " + this.from + " to: " + this.to + " step: " + this.step + " size: " + this.size;
+    }
+
+    private static final class BoxingLongProcedure implements LongProcedure
+    {
+        private final Procedure<? super Long> procedure;
+
+        private BoxingLongProcedure(Procedure<? super Long> procedure)
+        {
+            this.procedure = procedure;
+        }
+
+        public void value(long each)
+        {
+            this.procedure.value(each);
+        }
+    }
+
+    private final class LongIntervalIterator implements LongIterator
+    {
+        private long currentIndex;
+        private long current = LongInterval.this.from;
+
+        public boolean hasNext()
+        {
+            return this.currentIndex < LongInterval.this.size;
+        }
+
+        public long next()
+        {
+            if (!this.hasNext())
+            {
+                throw new NoSuchElementException();
+            }
+            long result = this.current;
+            this.current += LongInterval.this.step;
+            this.currentIndex++;
+            return result;
+        }
+    }
+}
@@ -21,14 +21,20 @@ import java.util.Collection;
 import java.util.Comparator;
 import java.util.Iterator;
 
+import ponzu.api.LazyDoubleIterable;
+import ponzu.api.LazyIntIterable;
 import ponzu.api.LazyIterable;
+import ponzu.api.LazyLongIterable;
 import ponzu.api.RichIterable;
 import ponzu.api.bag.MutableBag;
 import ponzu.api.block.function.Function;
 import ponzu.api.block.function.Function2;
 import ponzu.api.block.function.Generator;
+import ponzu.api.block.function.primitive.DoubleFunction;
 import ponzu.api.block.function.primitive.DoubleObjectToDoubleFunction;
+import ponzu.api.block.function.primitive.IntFunction;
 import ponzu.api.block.function.primitive.IntObjectToIntFunction;
+import ponzu.api.block.function.primitive.LongFunction;
 import ponzu.api.block.function.primitive.LongObjectToLongFunction;
 import ponzu.api.block.predicate.Predicate;
 import ponzu.api.block.predicate.Predicate2;
@@ -337,6 +343,30 @@ public abstract class SynchronizedMapIterable<K, V>
         }
     }
 
+    public LazyIntIterable transformToInt(IntFunction<? super V> function)
+    {
+        synchronized (this.lock)
+        {
+            return this.mapIterable.transformToInt(function);
+        }
+    }
+
+    public LazyLongIterable transformToLong(LongFunction<? super V> function)
+    {
+        synchronized (this.lock)
+        {
+            return this.mapIterable.transformToLong(function);
+        }
+    }
+
+    public LazyDoubleIterable transformToDouble(DoubleFunction<? super V> function)
+    {
+        synchronized (this.lock)
+        {
+            return this.mapIterable.transformToDouble(function);
+        }
+    }
+
     public MutableList<V> toList()
     {
         synchronized (this.lock)
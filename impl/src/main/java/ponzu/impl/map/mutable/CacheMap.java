@@ -0,0 +1,1139 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.map.mutable;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import net.jcip.annotations.NotThreadSafe;
+import ponzu.api.block.function.Function;
+import ponzu.api.block.function.Generator;
+import ponzu.api.block.procedure.Procedure2;
+import ponzu.api.map.MutableMap;
+import ponzu.impl.block.function.EvictionPolicy;
+import ponzu.impl.list.mutable.FastList;
+import ponzu.impl.utility.Iterate;
+
+/**
+ * A MutableMap that holds at most maxSize entries, discarding entries chosen by its {@link EvictionPolicy} to make room
+ * for new ones, and optionally discarding entries a fixed time after they were written.  The entries are stored in a
+ * UnifiedMap and threaded through intrusive lists that keep the eviction and expiration order, so every operation is
+ * O(1) apart from iteration.
+ * <p>
+ * Lookups through get, getIfAbsent and getIfAbsentPut count as uses of an entry for LRU, LFU and TINY_LFU eviction
+ * and are recorded as hits or misses in the {@link #getStatistics() statistics}; containsKey and iteration do not.
+ * Expired entries are removed the next time the map is used.  An eviction listener, if set, is told about every entry
+ * that is evicted or expired, but not about entries that are removed or replaced explicitly.
+ * <p>
+ * CacheMap is not thread-safe; see {@link ConcurrentCacheMap}.
+ *
+ * @since 1.1
+ */
+@NotThreadSafe
+public class CacheMap<K, V>
+        extends AbstractMutableMap<K, V>
+        implements Serializable
+{
+    private static final long serialVersionUID = 1L;
+
+    private final int maxSize;
+    private final EvictionPolicy evictionPolicy;
+    private final long expireAfterWriteNanos;
+    private final CacheTicker ticker;
+    private Procedure2<? super K, ? super V> evictionListener;
+
+    private transient UnifiedMap<K, Node<K, V>> map;
+    // LRU and FIFO keep every entry in one bucket; LFU keeps a chain of buckets from the least to the most frequently
+    // used; TINY_LFU keeps new entries in this bucket, its admission window, and the rest in the main bucket.
+    private transient Bucket<K, V> first;
+    private transient Bucket<K, V> main;
+    private transient int windowCapacity;
+    private transient FrequencySketch sketch;
+    private transient Node<K, V> eldestWrite;
+    private transient Node<K, V> youngestWrite;
+
+    private transient long hitCount;
+    private transient long missCount;
+    private transient long evictionCount;
+    private transient long expirationCount;
+
+    protected CacheMap(int maxSize, EvictionPolicy evictionPolicy, long expireAfterWriteNanos, CacheTicker ticker)
+    {
+        if (maxSize < 1)
+        {
+            throw new IllegalArgumentException("maxSize must be positive but was " + maxSize);
+        }
+        if (evictionPolicy == null)
+        {
+            throw new IllegalArgumentException("evictionPolicy must not be null");
+        }
+        if (expireAfterWriteNanos < 0L)
+        {
+            throw new IllegalArgumentException(
+                    "expireAfterWrite must not be negative but was " + expireAfterWriteNanos);
+        }
+        if (ticker == null)
+        {
+            throw new IllegalArgumentException("ticker must not be null");
+        }
+        this.maxSize = maxSize;
+        this.evictionPolicy = evictionPolicy;
+        this.expireAfterWriteNanos = expireAfterWriteNanos;
+        this.ticker = ticker;
+        this.init();
+    }
+
+    public static <K, V> CacheMap<K, V> newCache(int maxSize)
+    {
+        return new CacheMap<K, V>(maxSize, EvictionPolicy.LRU, 0L, SystemTicker.INSTANCE);
+    }
+
+    public static <K, V> CacheMap<K, V> newCache(int maxSize, EvictionPolicy evictionPolicy)
+    {
+        return new CacheMap<K, V>(maxSize, evictionPolicy, 0L, SystemTicker.INSTANCE);
+    }
+
+    /**
+     * Returns a CacheMap whose entries also expire the specified duration after they were last written.
+     */
+    public static <K, V> CacheMap<K, V> newCache(
+            int maxSize,
+            EvictionPolicy evictionPolicy,
+            long expireAfterWrite,
+            TimeUnit unit)
+    {
+        return CacheMap.newCache(maxSize, evictionPolicy, expireAfterWrite, unit, SystemTicker.INSTANCE);
+    }
+
+    /**
+     * Same as {@link #newCache(int, EvictionPolicy, long, TimeUnit)}, but reads the time used for expiration from the
+     * specified ticker rather than from {@link System#nanoTime()}.
+     */
+    public static <K, V> CacheMap<K, V> newCache(
+            int maxSize,
+            EvictionPolicy evictionPolicy,
+            long expireAfterWrite,
+            TimeUnit unit,
+            CacheTicker ticker)
+    {
+        return new CacheMap<K, V>(maxSize, evictionPolicy, unit.toNanos(expireAfterWrite), ticker);
+    }
+
+    private void init()
+    {
+        this.map = UnifiedMap.newMap();
+        this.eldestWrite = null;
+        this.youngestWrite = null;
+        if (this.evictionPolicy == EvictionPolicy.LFU)
+        {
+            this.first = null;
+        }
+        else
+        {
+            this.first = new Bucket<K, V>(0);
+        }
+        if (this.evictionPolicy == EvictionPolicy.TINY_LFU)
+        {
+            this.main = new Bucket<K, V>(0);
+            this.windowCapacity = Math.max(1, this.maxSize / 100);
+            if (this.sketch == null)
+            {
+                this.sketch = new FrequencySketch(this.maxSize);
+            }
+        }
+    }
+
+    /**
+     * Sets a procedure that is called with the key and value of every entry that is evicted or expires.
+     */
+    public CacheMap<K, V> withEvictionListener(Procedure2<? super K, ? super V> listener)
+    {
+        this.evictionListener = listener;
+        return this;
+    }
+
+    public int getMaxSize()
+    {
+        return this.maxSize;
+    }
+
+    public EvictionPolicy getEvictionPolicy()
+    {
+        return this.evictionPolicy;
+    }
+
+    public long getExpireAfterWrite(TimeUnit unit)
+    {
+        return unit.convert(this.expireAfterWriteNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public CacheStatistics getStatistics()
+    {
+        return new CacheStatistics(this.hitCount, this.missCount, this.evictionCount, this.expirationCount);
+    }
+
+    /**
+     * Removes any entries that have expired.  This happens anyway whenever the map is used, so it only needs to be
+     * called to release expired entries from a cache that is otherwise idle.
+     */
+    public void cleanUp()
+    {
+        this.expireEntries();
+    }
+
+    private void expireEntries()
+    {
+        if (this.expireAfterWriteNanos == 0L || this.eldestWrite == null)
+        {
+            return;
+        }
+        long now = this.ticker.read();
+        while (this.eldestWrite != null && now - this.eldestWrite.writeTime >= this.expireAfterWriteNanos)
+        {
+            Node<K, V> node = this.eldestWrite;
+            this.removeNode(node);
+            this.expirationCount++;
+            this.notifyListener(node);
+        }
+    }
+
+    private void notifyListener(Node<K, V> node)
+    {
+        if (this.evictionListener != null)
+        {
+            this.evictionListener.value(node.key, node.value);
+        }
+    }
+
+    private Node<K, V> lookup(Object key)
+    {
+        this.expireEntries();
+        Node<K, V> node = this.map.get(key);
+        if (node == null)
+        {
+            this.missCount++;
+            return null;
+        }
+        this.hitCount++;
+        this.recordAccess(node);
+        return node;
+    }
+
+    private void recordAccess(Node<K, V> node)
+    {
+        switch (this.evictionPolicy)
+        {
+            case LRU:
+            case TINY_LFU:
+                Bucket<K, V> bucket = node.bucket;
+                bucket.remove(node);
+                bucket.addLast(node);
+                if (this.sketch != null)
+                {
+                    this.sketch.increment(node.key);
+                }
+                break;
+            case LFU:
+                this.promote(node);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void promote(Node<K, V> node)
+    {
+        Bucket<K, V> bucket = node.bucket;
+        Bucket<K, V> next = bucket.next;
+        if (next == null || next.frequency != bucket.frequency + 1)
+        {
+            next = new Bucket<K, V>(bucket.frequency + 1);
+            this.linkBucketAfter(bucket, next);
+        }
+        bucket.remove(node);
+        if (bucket.isEmpty())
+        {
+            this.unlinkBucket(bucket);
+        }
+        next.addLast(node);
+    }
+
+    private void insert(K key, V value)
+    {
+        if (this.evictionPolicy != EvictionPolicy.TINY_LFU && this.map.size() >= this.maxSize)
+        {
+            this.evict(this.first.head);
+        }
+        Node<K, V> node = new Node<K, V>(key, value);
+        this.map.put(key, node);
+        this.recordWrite(node);
+        if (this.evictionPolicy == EvictionPolicy.LFU && (this.first == null || this.first.frequency != 1))
+        {
+            this.linkBucketAfter(null, new Bucket<K, V>(1));
+        }
+        this.first.addLast(node);
+        if (this.evictionPolicy == EvictionPolicy.TINY_LFU)
+        {
+            this.sketch.increment(key);
+            if (this.first.size > this.windowCapacity)
+            {
+                this.admit(this.first.head);
+            }
+        }
+    }
+
+    /**
+     * Moves a candidate leaving the TINY_LFU window into the main region, if the main region has room or the candidate
+     * is used more often than the main region's eldest entry; otherwise evicts the candidate.
+     */
+    private void admit(Node<K, V> candidate)
+    {
+        if (this.main.size < this.maxSize - this.windowCapacity)
+        {
+            this.first.remove(candidate);
+            this.main.addLast(candidate);
+            return;
+        }
+        Node<K, V> victim = this.main.head;
+        if (victim != null && this.sketch.frequency(candidate.key) > this.sketch.frequency(victim.key))
+        {
+            this.evict(victim);
+            this.first.remove(candidate);
+            this.main.addLast(candidate);
+        }
+        else
+        {
+            this.evict(candidate);
+        }
+    }
+
+    private void evict(Node<K, V> node)
+    {
+        this.removeNode(node);
+        this.evictionCount++;
+        this.notifyListener(node);
+    }
+
+    private void recordWrite(Node<K, V> node)
+    {
+        if (this.expireAfterWriteNanos == 0L)
+        {
+            return;
+        }
+        node.writeTime = this.ticker.read();
+        node.previousWrite = this.youngestWrite;
+        node.nextWrite = null;
+        if (this.youngestWrite == null)
+        {
+            this.eldestWrite = node;
+        }
+        else
+        {
+            this.youngestWrite.nextWrite = node;
+        }
+        this.youngestWrite = node;
+    }
+
+    private void unlinkWrite(Node<K, V> node)
+    {
+        if (this.expireAfterWriteNanos == 0L)
+        {
+            return;
+        }
+        if (node.previousWrite == null)
+        {
+            this.eldestWrite = node.nextWrite;
+        }
+        else
+        {
+            node.previousWrite.nextWrite = node.nextWrite;
+        }
+        if (node.nextWrite == null)
+        {
+            this.youngestWrite = node.previousWrite;
+        }
+        else
+        {
+            node.nextWrite.previousWrite = node.previousWrite;
+        }
+        node.previousWrite = null;
+        node.nextWrite = null;
+    }
+
+    private void removeNode(Node<K, V> node)
+    {
+        this.map.remove(node.key);
+        this.unlinkNode(node);
+    }
+
+    private void unlinkNode(Node<K, V> node)
+    {
+        Bucket<K, V> bucket = node.bucket;
+        bucket.remove(node);
+        if (this.evictionPolicy == EvictionPolicy.LFU && bucket.isEmpty())
+        {
+            this.unlinkBucket(bucket);
+        }
+        this.unlinkWrite(node);
+    }
+
+    private void linkBucketAfter(Bucket<K, V> previous, Bucket<K, V> bucket)
+    {
+        bucket.previous = previous;
+        bucket.next = previous == null ? this.first : previous.next;
+        if (bucket.next != null)
+        {
+            bucket.next.previous = bucket;
+        }
+        if (previous == null)
+        {
+            this.first = bucket;
+        }
+        else
+        {
+            previous.next = bucket;
+        }
+    }
+
+    private void unlinkBucket(Bucket<K, V> bucket)
+    {
+        if (bucket.previous == null)
+        {
+            this.first = bucket.next;
+        }
+        else
+        {
+            bucket.previous.next = bucket.next;
+        }
+        if (bucket.next != null)
+        {
+            bucket.next.previous = bucket.previous;
+        }
+    }
+
+    public V get(Object key)
+    {
+        Node<K, V> node = this.lookup(key);
+        return node == null ? null : node.value;
+    }
+
+    @Override
+    public V getIfAbsent(K key, Generator<? extends V> function)
+    {
+        Node<K, V> node = this.lookup(key);
+        return node == null ? function.value() : node.value;
+    }
+
+    @Override
+    public <P> V getIfAbsentWith(K key, Function<? super P, ? extends V> function, P parameter)
+    {
+        Node<K, V> node = this.lookup(key);
+        return node == null ? function.valueOf(parameter) : node.value;
+    }
+
+    @Override
+    public V getIfAbsentPut(K key, Generator<? extends V> function)
+    {
+        Node<K, V> node = this.lookup(key);
+        if (node != null)
+        {
+            return node.value;
+        }
+        V value = function.value();
+        this.put(key, value);
+        return value;
+    }
+
+    @Override
+    public <P> V getIfAbsentPutWith(K key, Function<? super P, ? extends V> function, P parameter)
+    {
+        Node<K, V> node = this.lookup(key);
+        if (node != null)
+        {
+            return node.value;
+        }
+        V value = function.valueOf(parameter);
+        this.put(key, value);
+        return value;
+    }
+
+    public boolean containsKey(Object key)
+    {
+        this.expireEntries();
+        return this.map.containsKey(key);
+    }
+
+    public boolean containsValue(Object value)
+    {
+        this.expireEntries();
+        for (Node<K, V> node : this.map.values())
+        {
+            if (value == null ? node.value == null : value.equals(node.value))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public V put(K key, V value)
+    {
+        this.expireEntries();
+        Node<K, V> node = this.map.get(key);
+        if (node == null)
+        {
+            this.insert(key, value);
+            return null;
+        }
+        V oldValue = node.value;
+        node.value = value;
+        this.recordAccess(node);
+        this.unlinkWrite(node);
+        this.recordWrite(node);
+        return oldValue;
+    }
+
+    public void putAll(Map<? extends K, ? extends V> map)
+    {
+        for (Map.Entry<? extends K, ? extends V> entry : map.entrySet())
+        {
+            this.put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Puts the value only if there is no entry for the key, and returns the value of the existing entry otherwise.
+     */
+    public V putIfAbsent(K key, V value)
+    {
+        this.expireEntries();
+        Node<K, V> node = this.map.get(key);
+        if (node == null)
+        {
+            this.insert(key, value);
+            return null;
+        }
+        return node.value;
+    }
+
+    public boolean remove(Object key, Object value)
+    {
+        this.expireEntries();
+        Node<K, V> node = this.map.get(key);
+        if (node != null && (value == null ? node.value == null : value.equals(node.value)))
+        {
+            this.removeNode(node);
+            return true;
+        }
+        return false;
+    }
+
+    public boolean replace(K key, V oldValue, V newValue)
+    {
+        this.expireEntries();
+        Node<K, V> node = this.map.get(key);
+        if (node != null && (oldValue == null ? node.value == null : oldValue.equals(node.value)))
+        {
+            this.put(key, newValue);
+            return true;
+        }
+        return false;
+    }
+
+    public V replace(K key, V value)
+    {
+        this.expireEntries();
+        return this.map.containsKey(key) ? this.put(key, value) : null;
+    }
+
+    public V remove(Object key)
+    {
+        this.expireEntries();
+        Node<K, V> node = this.map.remove(key);
+        if (node == null)
+        {
+            return null;
+        }
+        this.unlinkNode(node);
+        return node.value;
+    }
+
+    public V removeKey(K key)
+    {
+        return this.remove(key);
+    }
+
+    public void clear()
+    {
+        this.init();
+    }
+
+    public int size()
+    {
+        this.expireEntries();
+        return this.map.size();
+    }
+
+    public void forEachKeyValue(Procedure2<? super K, ? super V> procedure)
+    {
+        this.expireEntries();
+        for (Node<K, V> node : this.map.values())
+        {
+            procedure.value(node.key, node.value);
+        }
+    }
+
+    public <E> MutableMap<K, V> transformKeysAndValues(
+            Collection<E> collection,
+            Function<? super E, ? extends K> keyFunction,
+            Function<? super E, ? extends V> valueFunction)
+    {
+        Iterate.addToMap(collection, keyFunction, valueFunction, this);
+        return this;
+    }
+
+    public Set<K> keySet()
+    {
+        return new KeySet();
+    }
+
+    public Collection<V> values()
+    {
+        return new ValuesCollection();
+    }
+
+    public Set<Entry<K, V>> entrySet()
+    {
+        return new EntrySet();
+    }
+
+    /**
+     * Returns an empty CacheMap with the same maximum size, eviction policy and time to live.
+     */
+    public CacheMap<K, V> newEmpty()
+    {
+        return new CacheMap<K, V>(this.maxSize, this.evictionPolicy, this.expireAfterWriteNanos, this.ticker);
+    }
+
+    @Override
+    public <K, V> MutableMap<K, V> newEmpty(int capacity)
+    {
+        return UnifiedMap.newMap(capacity);
+    }
+
+    /**
+     * Returns a CacheMap with the same configuration and entries, but fresh statistics.  The entries are copied from
+     * the next to be evicted to the last, so the copy starts out with the same recency order.
+     */
+    @Override
+    public CacheMap<K, V> clone()
+    {
+        CacheMap<K, V> result = this.newEmpty();
+        result.evictionListener = this.evictionListener;
+        for (Node<K, V> node : this.nodesInEvictionOrder())
+        {
+            result.put(node.key, node.value);
+        }
+        return result;
+    }
+
+    private FastList<Node<K, V>> nodesInEvictionOrder()
+    {
+        this.expireEntries();
+        FastList<Node<K, V>> result = FastList.newList(this.map.size());
+        if (this.main != null)
+        {
+            for (Node<K, V> node = this.main.head; node != null; node = node.next)
+            {
+                result.add(node);
+            }
+        }
+        for (Bucket<K, V> bucket = this.first; bucket != null; bucket = bucket.next)
+        {
+            for (Node<K, V> node = bucket.head; node != null; node = node.next)
+            {
+                result.add(node);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object object)
+    {
+        if (this == object)
+        {
+            return true;
+        }
+        if (!(object instanceof Map))
+        {
+            return false;
+        }
+        Map<?, ?> other = (Map<?, ?>) object;
+        if (this.size() != other.size())
+        {
+            return false;
+        }
+        for (Map.Entry<?, ?> entry : other.entrySet())
+        {
+            Node<K, V> node = this.map.get(entry.getKey());
+            if (node == null || !node.equals(entry))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        this.expireEntries();
+        int hashCode = 0;
+        for (Node<K, V> node : this.map.values())
+        {
+            hashCode += node.hashCode();
+        }
+        return hashCode;
+    }
+
+    @Override
+    public String toString()
+    {
+        this.expireEntries();
+        StringBuilder buf = new StringBuilder();
+        buf.append('{');
+        Iterator<Node<K, V>> iterator = this.map.values().iterator();
+        while (iterator.hasNext())
+        {
+            Node<K, V> node = iterator.next();
+            buf.append(node.key == this ? "(this Map)" : node.key);
+            buf.append('=');
+            buf.append(node.value == this ? "(this Map)" : node.value);
+            if (iterator.hasNext())
+            {
+                buf.append(", ");
+            }
+        }
+        buf.append('}');
+        return buf.toString();
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException
+    {
+        out.defaultWriteObject();
+        FastList<Node<K, V>> nodes = this.nodesInEvictionOrder();
+        out.writeInt(nodes.size());
+        for (Node<K, V> node : nodes)
+        {
+            out.writeObject(node.key);
+            out.writeObject(node.value);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException
+    {
+        in.defaultReadObject();
+        this.init();
+        int size = in.readInt();
+        for (int i = 0; i < size; i++)
+        {
+            this.put((K) in.readObject(), (V) in.readObject());
+        }
+    }
+
+    private enum SystemTicker implements CacheTicker
+    {
+        INSTANCE;
+
+        public long read()
+        {
+            return System.nanoTime();
+        }
+    }
+
+    private static final class Node<K, V> implements Map.Entry<K, V>
+    {
+        private final K key;
+        private V value;
+        private Bucket<K, V> bucket;
+        private Node<K, V> previous;
+        private Node<K, V> next;
+        private long writeTime;
+        private Node<K, V> previousWrite;
+        private Node<K, V> nextWrite;
+
+        private Node(K key, V value)
+        {
+            this.key = key;
+            this.value = value;
+        }
+
+        public K getKey()
+        {
+            return this.key;
+        }
+
+        public V getValue()
+        {
+            return this.value;
+        }
+
+        public V setValue(V value)
+        {
+            V oldValue = this.value;
+            this.value = value;
+            return oldValue;
+        }
+
+        @Override
+        public boolean equals(Object object)
+        {
+            if (!(object instanceof Map.Entry))
+            {
+                return false;
+            }
+            Map.Entry<?, ?> other = (Map.Entry<?, ?>) object;
+            return (this.key == null ? other.getKey() == null : this.key.equals(other.getKey()))
+                    && (this.value == null ? other.getValue() == null : this.value.equals(other.getValue()));
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return (this.key == null ? 0 : this.key.hashCode()) ^ (this.value == null ? 0 : this.value.hashCode());
+        }
+
+        @Override
+        public String toString()
+        {
+            return this.key + "=" + this.value;
+        }
+    }
+
+    /**
+     * A list of nodes from the next to be evicted to the last.
+     */
+    private static final class Bucket<K, V>
+    {
+        private final int frequency;
+        private Bucket<K, V> previous;
+        private Bucket<K, V> next;
+        private Node<K, V> head;
+        private Node<K, V> tail;
+        private int size;
+
+        private Bucket(int frequency)
+        {
+            this.frequency = frequency;
+        }
+
+        private boolean isEmpty()
+        {
+            return this.size == 0;
+        }
+
+        private void addLast(Node<K, V> node)
+        {
+            node.bucket = this;
+            node.previous = this.tail;
+            node.next = null;
+            if (this.tail == null)
+            {
+                this.head = node;
+            }
+            else
+            {
+                this.tail.next = node;
+            }
+            this.tail = node;
+            this.size++;
+        }
+
+        private void remove(Node<K, V> node)
+        {
+            if (node.previous == null)
+            {
+                this.head = node.next;
+            }
+            else
+            {
+                node.previous.next = node.next;
+            }
+            if (node.next == null)
+            {
+                this.tail = node.previous;
+            }
+            else
+            {
+                node.next.previous = node.previous;
+            }
+            node.bucket = null;
+            node.previous = null;
+            node.next = null;
+            this.size--;
+        }
+    }
+
+    /**
+     * A count-min sketch of 4-bit counters packed sixteen to a long, estimating how often each key has been used
+     * recently.  There are at least sixteen counters per entry, up to a limit of 2^26 counters (32MB) which is reached
+     * by caches of about four million entries.  The counters are halved once the number of increments reaches ten
+     * times the cache size, so old popularity fades.
+     */
+    private static final class FrequencySketch
+    {
+        private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+        private static final int MAX_COUNTERS = 1 << 26;
+        private static final long HALVING_MASK = 0x7777777777777777L;
+
+        private final long[] table;
+        private final int shift;
+        private final int sampleSize;
+        private int additions;
+
+        private FrequencySketch(int maxSize)
+        {
+            long requestedCounters = (long) Integer.highestOneBit(Math.max(2, maxSize) - 1) << 5;
+            int counterCount = (int) Math.min(requestedCounters, MAX_COUNTERS);
+            this.table = new long[counterCount >>> 4];
+            this.shift = Integer.numberOfLeadingZeros(counterCount) + 1;
+            this.sampleSize = (int) Math.min(Integer.MAX_VALUE, 10L * maxSize);
+        }
+
+        private int indexOf(Object key, int depth)
+        {
+            int h = key == null ? 0 : key.hashCode();
+            h ^= h >>> 16;
+            return (h * SEEDS[depth]) >>> this.shift;
+        }
+
+        private int counterAt(int index)
+        {
+            return (int) (this.table[index >>> 4] >>> ((index & 15) << 2)) & 15;
+        }
+
+        private void increment(Object key)
+        {
+            boolean added = false;
+            for (int depth = 0; depth < SEEDS.length; depth++)
+            {
+                int index = this.indexOf(key, depth);
+                if (this.counterAt(index) < 15)
+                {
+                    this.table[index >>> 4] += 1L << ((index & 15) << 2);
+                    added = true;
+                }
+            }
+            if (added && ++this.additions >= this.sampleSize)
+            {
+                for (int i = 0; i < this.table.length; i++)
+                {
+                    this.table[i] = (this.table[i] >>> 1) & HALVING_MASK;
+                }
+                this.additions >>= 1;
+            }
+        }
+
+        private int frequency(Object key)
+        {
+            int frequency = 15;
+            for (int depth = 0; depth < SEEDS.length; depth++)
+            {
+                frequency = Math.min(frequency, this.counterAt(this.indexOf(key, depth)));
+            }
+            return frequency;
+        }
+    }
+
+    private abstract class NodeIterator<T> implements Iterator<T>
+    {
+        private final Iterator<Node<K, V>> iterator;
+        private Node<K, V> lastReturned;
+
+        protected NodeIterator()
+        {
+            CacheMap.this.expireEntries();
+            this.iterator = CacheMap.this.map.values().iterator();
+        }
+
+        protected abstract T valueOf(Node<K, V> node);
+
+        public boolean hasNext()
+        {
+            return this.iterator.hasNext();
+        }
+
+        public T next()
+        {
+            this.lastReturned = this.iterator.next();
+            return this.valueOf(this.lastReturned);
+        }
+
+        public void remove()
+        {
+            if (this.lastReturned == null)
+            {
+                throw new IllegalStateException("next() must be called as many times as remove()");
+            }
+            this.iterator.remove();
+            CacheMap.this.unlinkNode(this.lastReturned);
+            this.lastReturned = null;
+        }
+    }
+
+    private final class KeySet extends AbstractSet<K>
+    {
+        @Override
+        public Iterator<K> iterator()
+        {
+            return new NodeIterator<K>()
+            {
+                @Override
+                protected K valueOf(Node<K, V> node)
+                {
+                    return node.key;
+                }
+            };
+        }
+
+        @Override
+        public int size()
+        {
+            return CacheMap.this.size();
+        }
+
+        @Override
+        public boolean contains(Object key)
+        {
+            return CacheMap.this.containsKey(key);
+        }
+
+        @Override
+        public boolean remove(Object key)
+        {
+            if (CacheMap.this.containsKey(key))
+            {
+                CacheMap.this.remove(key);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void clear()
+        {
+            CacheMap.this.clear();
+        }
+    }
+
+    private final class ValuesCollection extends AbstractCollection<V>
+    {
+        @Override
+        public Iterator<V> iterator()
+        {
+            return new NodeIterator<V>()
+            {
+                @Override
+                protected V valueOf(Node<K, V> node)
+                {
+                    return node.value;
+                }
+            };
+        }
+
+        @Override
+        public int size()
+        {
+            return CacheMap.this.size();
+        }
+
+        @Override
+        public boolean contains(Object value)
+        {
+            return CacheMap.this.containsValue(value);
+        }
+
+        @Override
+        public void clear()
+        {
+            CacheMap.this.clear();
+        }
+    }
+
+    private final class EntrySet extends AbstractSet<Entry<K, V>>
+    {
+        @Override
+        public Iterator<Entry<K, V>> iterator()
+        {
+            return new NodeIterator<Entry<K, V>>()
+            {
+                @Override
+                protected Entry<K, V> valueOf(Node<K, V> node)
+                {
+                    return node;
+                }
+            };
+        }
+
+        @Override
+        public int size()
+        {
+            return CacheMap.this.size();
+        }
+
+        @Override
+        public boolean contains(Object object)
+        {
+            if (!(object instanceof Map.Entry))
+            {
+                return false;
+            }
+            Map.Entry<?, ?> entry = (Map.Entry<?, ?>) object;
+            CacheMap.this.expireEntries();
+            Node<K, V> node = CacheMap.this.map.get(entry.getKey());
+            return node != null && node.equals(entry);
+        }
+
+        @Override
+        public boolean remove(Object object)
+        {
+            if (this.contains(object))
+            {
+                CacheMap.this.remove(((Map.Entry<?, ?>) object).getKey());
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void clear()
+        {
+            CacheMap.this.clear();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.map.mutable;
+
+import java.io.Serializable;
+
+import net.jcip.annotations.Immutable;
+
+/**
+ * A point-in-time snapshot of the hit, miss, eviction and expiration counts of a {@link CacheMap}.
+ *
+ * @since 1.1
+ */
+@Immutable
+public final class CacheStatistics implements Serializable
+{
+    private static final long serialVersionUID = 1L;
+
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+    private final long expirationCount;
+
+    public CacheStatistics(long hitCount, long missCount, long evictionCount, long expirationCount)
+    {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+        this.expirationCount = expirationCount;
+    }
+
+    /**
+     * Returns the number of lookups that found a cached value.
+     */
+    public long getHitCount()
+    {
+        return this.hitCount;
+    }
+
+    /**
+     * Returns the number of lookups that did not find a cached value.
+     */
+    public long getMissCount()
+    {
+        return this.missCount;
+    }
+
+    public long getRequestCount()
+    {
+        return this.hitCount + this.missCount;
+    }
+
+    /**
+     * Returns the fraction of lookups that found a cached value, or 1.0 if there have been no lookups.
+     */
+    public double getHitRate()
+    {
+        long requestCount = this.getRequestCount();
+        return requestCount == 0L ? 1.0 : (double) this.hitCount / requestCount;
+    }
+
+    /**
+     * Returns the number of entries discarded to keep the cache within its maximum size.
+     */
+    public long getEvictionCount()
+    {
+        return this.evictionCount;
+    }
+
+    /**
+     * Returns the number of entries discarded because they outlived the cache's time to live.
+     */
+    public long getExpirationCount()
+    {
+        return this.expirationCount;
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o)
+        {
+            return true;
+        }
+        if (!(o instanceof CacheStatistics))
+        {
+            return false;
+        }
+        CacheStatistics other = (CacheStatistics) o;
+        return this.hitCount == other.hitCount
+                && this.missCount == other.missCount
+                && this.evictionCount == other.evictionCount
+                && this.expirationCount == other.expirationCount;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        int result = (int) (this.hitCount ^ this.hitCount >>> 32);
+        result = 31 * result + (int) (this.missCount ^ this.missCount >>> 32);
+        result = 31 * result + (int) (this.evictionCount ^ this.evictionCount >>> 32);
+        return 31 * result + (int) (this.expirationCount ^ this.expirationCount >>> 32);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "CacheStatistics{hits=" + this.hitCount
+                + ", misses=" + this.missCount
+                + ", evictions=" + this.evictionCount
+                + ", expirations=" + this.expirationCount + '}';
+    }
+}
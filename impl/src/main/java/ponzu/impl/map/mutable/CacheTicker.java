@@ -0,0 +1,33 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.map.mutable;
+
+import java.io.Serializable;
+
+/**
+ * The time source a {@link CacheMap} uses to expire entries.  The default reads {@link System#nanoTime()}; tests and
+ * simulations can supply their own to move time forward without waiting.
+ *
+ * @since 1.1
+ */
+public interface CacheTicker extends Serializable
+{
+    /**
+     * Returns the current time in nanoseconds.  Only the differences between values are meaningful.
+     */
+    long read();
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.map.mutable;
+
+import java.util.concurrent.TimeUnit;
+
+import net.jcip.annotations.ThreadSafe;
+import ponzu.api.block.procedure.Procedure2;
+import ponzu.api.map.ConcurrentMutableMap;
+import ponzu.impl.block.function.EvictionPolicy;
+
+/**
+ * A thread-safe {@link CacheMap}.  Every operation, including the loading done by getIfAbsentPut, holds the map's
+ * lock, so each missing key is loaded at most once and eviction listeners are called while the lock is held.  As with
+ * other synchronized collections, iteration through the keySet, values and entrySet views must be synchronized on
+ * this map by the caller.
+ *
+ * @since 1.1
+ */
+@ThreadSafe
+public final class ConcurrentCacheMap<K, V>
+        extends SynchronizedMutableMap<K, V>
+        implements ConcurrentMutableMap<K, V>
+{
+    private static final long serialVersionUID = 1L;
+
+    private ConcurrentCacheMap(CacheMap<K, V> cache)
+    {
+        super(cache);
+    }
+
+    public static <K, V> ConcurrentCacheMap<K, V> newCache(int maxSize)
+    {
+        return new ConcurrentCacheMap<K, V>(CacheMap.<K, V>newCache(maxSize));
+    }
+
+    public static <K, V> ConcurrentCacheMap<K, V> newCache(int maxSize, EvictionPolicy evictionPolicy)
+    {
+        return new ConcurrentCacheMap<K, V>(CacheMap.<K, V>newCache(maxSize, evictionPolicy));
+    }
+
+    public static <K, V> ConcurrentCacheMap<K, V> newCache(
+            int maxSize,
+            EvictionPolicy evictionPolicy,
+            long expireAfterWrite,
+            TimeUnit unit)
+    {
+        return new ConcurrentCacheMap<K, V>(CacheMap.<K, V>newCache(maxSize, evictionPolicy, expireAfterWrite, unit));
+    }
+
+    private CacheMap<K, V> getCacheMap()
+    {
+        return (CacheMap<K, V>) this.getMap();
+    }
+
+    /**
+     * @see CacheMap#withEvictionListener(Procedure2)
+     */
+    public ConcurrentCacheMap<K, V> withEvictionListener(Procedure2<? super K, ? super V> listener)
+    {
+        synchronized (this.lock)
+        {
+            this.getCacheMap().withEvictionListener(listener);
+            return this;
+        }
+    }
+
+    public CacheStatistics getStatistics()
+    {
+        synchronized (this.lock)
+        {
+            return this.getCacheMap().getStatistics();
+        }
+    }
+
+    /**
+     * @see CacheMap#cleanUp()
+     */
+    public void cleanUp()
+    {
+        synchronized (this.lock)
+        {
+            this.getCacheMap().cleanUp();
+        }
+    }
+
+    public V putIfAbsent(K key, V value)
+    {
+        synchronized (this.lock)
+        {
+            return this.getCacheMap().putIfAbsent(key, value);
+        }
+    }
+
+    public boolean remove(Object key, Object value)
+    {
+        synchronized (this.lock)
+        {
+            return this.getCacheMap().remove(key, value);
+        }
+    }
+
+    public boolean replace(K key, V oldValue, V newValue)
+    {
+        synchronized (this.lock)
+        {
+            return this.getCacheMap().replace(key, oldValue, newValue);
+        }
+    }
+
+    public V replace(K key, V value)
+    {
+        synchronized (this.lock)
+        {
+            return this.getCacheMap().replace(key, value);
+        }
+    }
+
+    @Override
+    public ConcurrentCacheMap<K, V> newEmpty()
+    {
+        synchronized (this.lock)
+        {
+            return new ConcurrentCacheMap<K, V>(this.getCacheMap().newEmpty());
+        }
+    }
+
+    @Override
+    public ConcurrentCacheMap<K, V> clone()
+    {
+        synchronized (this.lock)
+        {
+            return new ConcurrentCacheMap<K, V>(this.getCacheMap().clone());
+        }
+    }
+
+    @Override
+    public ConcurrentCacheMap<K, V> withKeyValue(K key, V value)
+    {
+        this.put(key, value);
+        return this;
+    }
+}
@@ -18,6 +18,7 @@ package ponzu.impl.map.mutable;
 
 import ponzu.api.factory.map.MutableMapFactory;
 import ponzu.api.map.MutableMap;
+import ponzu.impl.factory.SizeHints;
 
 public final class MutableMapFactoryImpl implements MutableMapFactory
 {
@@ -45,4 +46,12 @@ public final class MutableMapFactoryImpl implements MutableMapFactory
     {
         return UnifiedMap.newWithKeysValues(key1, value1, key2, value2, key3, value3, key4, value4);
     }
+
+    /**
+     * Report the map once it is complete with {@link SizeHints#done(String, Object)} so that the hint learns its size.
+     */
+    public <K, V> MutableMap<K, V> ofSizeHint(String name)
+    {
+        return UnifiedMap.<K, V>newMap(SizeHints.getSizeHint(name));
+    }
 }
@@ -29,13 +29,16 @@ import java.util.Iterator;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.concurrent.Executor;
 
 import net.jcip.annotations.NotThreadSafe;
+import ponzu.api.RichIterable;
 import ponzu.api.block.function.Function;
 import ponzu.api.block.function.Generator;
 import ponzu.api.block.procedure.ObjectIntProcedure;
 import ponzu.api.block.procedure.Procedure;
 import ponzu.api.block.procedure.Procedure2;
+import ponzu.api.block.procedure.primitive.IntProcedure;
 import ponzu.api.map.MapIterable;
 import ponzu.api.map.MutableMap;
 import ponzu.api.map.UnsortedMapIterable;
@@ -44,12 +47,19 @@ import ponzu.impl.block.factory.Functions;
 import ponzu.impl.block.factory.Predicates;
 import ponzu.impl.block.procedure.MapCollectProcedure;
 import ponzu.impl.factory.Sets;
+import ponzu.impl.lazy.AbstractLazyIterable;
 import ponzu.impl.list.mutable.FastList;
+import ponzu.impl.metrics.CollectionMetrics;
 import ponzu.impl.parallel.BatchIterable;
+import ponzu.impl.parallel.BatchKeyValueIterable;
+import ponzu.impl.parallel.HashPartitionRunner;
+import ponzu.impl.parallel.SectionTaskRunner;
 import ponzu.impl.set.mutable.UnifiedSet;
 import ponzu.impl.tuple.ImmutableEntry;
+import ponzu.impl.tuple.Tuples;
 import ponzu.impl.utility.ArrayIterate;
 import ponzu.impl.utility.Iterate;
+import ponzu.impl.utility.internal.IterableIterate;
 
 /**
  * The core collections in Java get used all over the place. Unfortunately, most of them are not as good as they could be.
@@ -84,11 +94,19 @@ import ponzu.impl.utility.Iterate;
  * <p/>
  * The final result is a Map implementation that's faster than HashMap and leaner than Trove. The best of both implementations
  * unified together, aka UnifiedMap.
+ * <p/>
+ * UnifiedMap is not thread safe.  The only exception is the loading of a new map by {@link #newMapFromHashPartitions}
+ * and {@link #newMapFromArrays(Object[], Object[], Executor)}, which split the keys by {@link #hashPartition(Object, int)}
+ * and load each partition from its own task.  This relies on two invariants, which are checked by assertions: the
+ * table is presized for all the keys and has at least as many buckets as there are partitions, so it never rehashes and
+ * a key's partition is the low bits of its bucket; and every task only puts keys of its own partition.  Each task puts
+ * through its own shard, a map which shares the table but keeps its own count, so the tasks write to disjoint buckets
+ * and to no other shared state.  The count of the result is the sum of the shard counts once all tasks are done.
  */
 
 @NotThreadSafe
 public class UnifiedMap<K, V> extends AbstractMutableMap<K, V>
-        implements Externalizable, BatchIterable<V>
+        implements Externalizable, BatchIterable<V>, BatchKeyValueIterable<K, V>
 {
     protected static final Object NULL_KEY = new Object()
     {
@@ -135,6 +153,15 @@ public class UnifiedMap<K, V> extends AbstractMutableMap<K, V>
         this.init(this.fastCeil(initialCapacity / loadFactor));
     }
 
+    /**
+     * Creates a shard which puts into the specified table without ever rehashing it, and counts only its own entries.
+     */
+    private UnifiedMap(Object[] table)
+    {
+        this.table = table;
+        this.maxSize = Integer.MAX_VALUE;
+    }
+
     public UnifiedMap(Map<? extends K, ? extends V> map)
     {
         this(Math.max(map.size(), DEFAULT_INITIAL_CAPACITY), DEFAULT_LOAD_FACTOR);
@@ -176,6 +203,184 @@ public class UnifiedMap<K, V> extends AbstractMutableMap<K, V>
         return new UnifiedMap<K, V>(pairs);
     }
 
+    /**
+     * Returns the partition of the specified key when keys are split into partitionCount partitions by the low bits
+     * of their spread hash code.  Keys in different partitions never share a slot in a UnifiedMap whose capacity is at
+     * least partitionCount, which is what allows {@link #newMapFromHashPartitions(UnifiedMap[], Executor)} to copy
+     * the partitions concurrently.
+     *
+     * @param partitionCount a power of two
+     * @since 1.1
+     */
+    public static int hashPartition(Object key, int partitionCount)
+    {
+        if (Integer.bitCount(partitionCount) != 1)
+        {
+            throw new IllegalArgumentException("Partition count must be a power of two: " + partitionCount);
+        }
+        return UnifiedMap.spread(key == null ? 0 : key.hashCode()) & (partitionCount - 1);
+    }
+
+    /**
+     * Returns a new UnifiedMap containing the entries of all the partitions, which are copied concurrently on the
+     * executor.  The partition at index i must contain only keys for which
+     * {@link #hashPartition(Object, int) hashPartition(key, partitions.length)} returns i, which is checked when
+     * assertions are enabled; the result is presized for the total size, so no partition ever causes a rehash and no
+     * two partitions write to the same slot.
+     *
+     * @since 1.1
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V> UnifiedMap<K, V> newMapFromHashPartitions(
+            final UnifiedMap<? extends K, ? extends V>[] partitions,
+            Executor executor)
+    {
+        if (Integer.bitCount(partitions.length) != 1)
+        {
+            throw new IllegalArgumentException("Partition count must be a power of two: " + partitions.length);
+        }
+        int size = 0;
+        for (UnifiedMap<? extends K, ? extends V> partition : partitions)
+        {
+            size += partition.size();
+        }
+        UnifiedMap<K, V> result = UnifiedMap.newMap(size);
+        if (partitions.length == 1 || result.table.length >> 1 < partitions.length)
+        {
+            for (UnifiedMap<? extends K, ? extends V> partition : partitions)
+            {
+                result.copyMap((UnifiedMap<K, V>) partition);
+            }
+            return result;
+        }
+        final UnifiedMap<K, V>[] shards = result.newPartitionShards(partitions.length);
+        new SectionTaskRunner(partitions.length).execute(new IntProcedure()
+        {
+            public void value(int partitionIndex)
+            {
+                assert UnifiedMap.isHashPartition(partitions[partitionIndex], partitionIndex, partitions.length)
+                        : "Partition " + partitionIndex + " contains keys of other partitions";
+                shards[partitionIndex].copyMap((UnifiedMap<K, V>) partitions[partitionIndex]);
+            }
+        }, executor);
+        result.occupied = UnifiedMap.countShardEntries(shards);
+        return result;
+    }
+
+    /**
+     * Returns a new UnifiedMap which maps each key to the value at the same index, presized for the number of keys so
+     * that loading the arrays never causes a rehash.  When a key occurs more than once, its last value wins.
+     *
+     * @throws IllegalArgumentException if the arrays have different lengths
+     * @since 1.1
+     */
+    public static <K, V> UnifiedMap<K, V> newMapFromArrays(K[] keys, V[] values)
+    {
+        UnifiedMap.checkLengths(keys, values);
+        UnifiedMap<K, V> result = UnifiedMap.newMap(keys.length);
+        for (int i = 0; i < keys.length; i++)
+        {
+            result.put(keys[i], values[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Same as {@link #newMapFromArrays(Object[], Object[])}, but when there are at least
+     * {@link HashPartitionRunner#MIN_PARALLEL_SIZE} keys they are hashed and loaded concurrently on the executor, with
+     * one task per hash partition.
+     *
+     * @since 1.1
+     */
+    public static <K, V> UnifiedMap<K, V> newMapFromArrays(K[] keys, V[] values, Executor executor)
+    {
+        if (keys.length < HashPartitionRunner.MIN_PARALLEL_SIZE)
+        {
+            return UnifiedMap.newMapFromArrays(keys, values);
+        }
+        UnifiedMap.checkLengths(keys, values);
+        UnifiedMap<K, V> result = UnifiedMap.newMap(keys.length);
+        HashPartitionRunner runner = new HashPartitionRunner(HashPartitionRunner.defaultPartitionCount());
+        UnifiedMap<K, V>[] shards = result.newPartitionShards(runner.getPartitionCount());
+        IntProcedure[] partitionProcedures = new IntProcedure[shards.length];
+        for (int i = 0; i < shards.length; i++)
+        {
+            partitionProcedures[i] = new PutToShardProcedure<K, V>(keys, values, shards[i], i, shards.length);
+        }
+        runner.execute(keys, partitionProcedures, executor);
+        result.occupied = UnifiedMap.countShardEntries(shards);
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private UnifiedMap<K, V>[] newPartitionShards(int partitionCount)
+    {
+        assert this.table.length >> 1 >= partitionCount && this.occupied == 0 : "Table too small to be partitioned";
+        UnifiedMap<K, V>[] shards = (UnifiedMap<K, V>[]) new UnifiedMap<?, ?>[partitionCount];
+        for (int i = 0; i < partitionCount; i++)
+        {
+            shards[i] = new UnifiedMap<K, V>(this.table);
+        }
+        return shards;
+    }
+
+    private static int countShardEntries(UnifiedMap<?, ?>[] shards)
+    {
+        int count = 0;
+        for (UnifiedMap<?, ?> shard : shards)
+        {
+            count += shard.occupied;
+        }
+        return count;
+    }
+
+    private static boolean isHashPartition(UnifiedMap<?, ?> map, int partition, int partitionCount)
+    {
+        for (Object each : map.keySet())
+        {
+            if (UnifiedMap.hashPartition(each, partitionCount) != partition)
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final class PutToShardProcedure<K, V> implements IntProcedure
+    {
+        private final K[] keys;
+        private final V[] values;
+        private final UnifiedMap<K, V> shard;
+        private final int partition;
+        private final int partitionCount;
+
+        private PutToShardProcedure(K[] keys, V[] values, UnifiedMap<K, V> shard, int partition, int partitionCount)
+        {
+            this.keys = keys;
+            this.values = values;
+            this.shard = shard;
+            this.partition = partition;
+            this.partitionCount = partitionCount;
+        }
+
+        public void value(int index)
+        {
+            K key = this.keys[index];
+            assert UnifiedMap.hashPartition(key, this.partitionCount) == this.partition
+                    : "Key " + index + " is not in partition " + this.partition;
+            this.shard.put(key, this.values[index]);
+        }
+    }
+
+    private static void checkLengths(Object[] keys, Object[] values)
+    {
+        if (keys.length != values.length)
+        {
+            throw new IllegalArgumentException(
+                    "Keys and values must have the same length: " + keys.length + " != " + values.length);
+        }
+    }
+
     public static <K, V> UnifiedMap<K, V> newWithKeysValues(K key, V value)
     {
         return new UnifiedMap<K, V>(1).withKeysValues(key, value);
@@ -288,10 +493,14 @@ public class UnifiedMap<K, V> extends AbstractMutableMap<K, V>
         // This function ensures that hashCodes that differ only by
         // constant multiples at each bit position have a bounded
         // number of collisions (approximately 8 at default load factor).
-        int h = key.hashCode();
+        return (UnifiedMap.spread(key.hashCode()) & (this.table.length >> 1) - 1) << 1;
+    }
+
+    private static int spread(int hashCode)
+    {
+        int h = hashCode;
         h ^= (h >>> 20) ^ (h >>> 12);
-        h = h ^ (h >>> 7) ^ (h >>> 4);
-        return (h & (this.table.length >> 1) - 1) << 1;
+        return h ^ (h >>> 7) ^ (h >>> 4);
     }
 
     public void clear()
@@ -382,6 +591,7 @@ public class UnifiedMap<K, V> extends AbstractMutableMap<K, V>
             newChain[3] = value;
             this.table[index] = CHAINED_KEY;
             this.table[index + 1] = newChain;
+            CollectionMetrics.chainCreated(this);
             if (++this.occupied > this.maxSize)
             {
                 this.rehash(this.table.length);
@@ -465,6 +675,7 @@ public class UnifiedMap<K, V> extends AbstractMutableMap<K, V>
             newChain[3] = result;
             this.table[index] = CHAINED_KEY;
             this.table[index + 1] = newChain;
+            CollectionMetrics.chainCreated(this);
             if (++this.occupied > this.maxSize)
             {
                 this.rehash(this.table.length);
@@ -510,6 +721,7 @@ public class UnifiedMap<K, V> extends AbstractMutableMap<K, V>
     protected void rehash(int newCapacity)
     {
         int oldLength = this.table.length;
+        CollectionMetrics.rehashed(this, oldLength >> 1, newCapacity, this.occupied);
         Object[] old = this.table;
         this.allocate(newCapacity);
         this.occupied = 0;
@@ -698,6 +910,31 @@ public class UnifiedMap<K, V> extends AbstractMutableMap<K, V>
         this.mapBatchForEach(this.table, procedure, sectionIndex, sectionCount);
     }
 
+    @SuppressWarnings("unchecked")
+    public void batchForEachKeyValue(Procedure2<? super K, ? super V> procedure, int sectionIndex, int sectionCount)
+    {
+        Object[] map = this.table;
+        int sectionSize = map.length / sectionCount;
+        int start = sectionIndex * sectionSize;
+        int end = sectionIndex == sectionCount - 1 ? map.length : start + sectionSize;
+        if (start % 2 != 0)
+        {
+            start++;
+        }
+        for (int i = start; i < end; i += 2)
+        {
+            Object key = map[i];
+            if (key == CHAINED_KEY)
+            {
+                this.chainedForEachEntry((Object[]) map[i + 1], procedure);
+            }
+            else if (key != null)
+            {
+                procedure.value(this.nonSentinel(key), (V) map[i + 1]);
+            }
+        }
+    }
+
     @Override
     public void forEachKey(Procedure<? super K> procedure)
     {
@@ -758,9 +995,24 @@ public class UnifiedMap<K, V> extends AbstractMutableMap<K, V>
 
     public void putAll(Map<? extends K, ? extends V> map)
     {
+        CollectionMetrics.bulkCopied(this, map.size());
         if (map instanceof UnifiedMap<?, ?>)
         {
-            this.copyMap((UnifiedMap<K, V>) map);
+            @SuppressWarnings("unchecked")
+            UnifiedMap<K, V> unifiedMap = (UnifiedMap<K, V>) map;
+            if (this.occupied == 0 && this.getClass() == UnifiedMap.class
+                    && unifiedMap.table.length >= this.table.length
+                    && unifiedMap.table.length >> 1 <= this.capacityFor(unifiedMap.occupied) << 1)
+            {
+                // every entry would land in the same slot it has in the other map, so the table is copied as is, unless
+                // removals or a large initial capacity left it more than twice as long as its entries need
+                this.copyTable(unifiedMap);
+            }
+            else
+            {
+                this.ensureCapacity(this.occupied + unifiedMap.occupied);
+                this.copyMap(unifiedMap);
+            }
         }
         else if (map instanceof UnsortedMapIterable)
         {
@@ -798,6 +1050,49 @@ public class UnifiedMap<K, V> extends AbstractMutableMap<K, V>
         throw new IllegalStateException("Entry set was null and size was non-zero");
     }
 
+    private void copyTable(UnifiedMap<K, V> unifiedMap)
+    {
+        Object[] source = unifiedMap.table;
+        this.allocate(source.length >> 1);
+        for (int i = 0; i < source.length; i += 2)
+        {
+            Object key = source[i];
+            if (key == CHAINED_KEY)
+            {
+                this.table[i] = CHAINED_KEY;
+                this.table[i + 1] = ((Object[]) source[i + 1]).clone();
+            }
+            else if (key != null)
+            {
+                this.table[i] = key;
+                this.table[i + 1] = source[i + 1];
+            }
+        }
+        this.occupied = unifiedMap.occupied;
+        if (this.occupied > this.maxSize)
+        {
+            this.rehash(this.table.length);
+        }
+    }
+
+    private void ensureCapacity(int size)
+    {
+        if (size > this.maxSize)
+        {
+            this.rehash(this.capacityFor(size));
+        }
+    }
+
+    /**
+     * Returns the smallest capacity whose load factor allows for size entries.
+     */
+    private int capacityFor(int size)
+    {
+        int minimum = (int) (size / this.loadFactor) + 1;
+        int capacity = Integer.highestOneBit(minimum);
+        return minimum == capacity ? capacity : capacity << 1;
+    }
+
     protected void copyMap(UnifiedMap<K, V> unifiedMap)
     {
         for (int i = 0; i < unifiedMap.table.length; i += 2)
@@ -902,6 +1197,16 @@ public class UnifiedMap<K, V> extends AbstractMutableMap<K, V>
         return new EntrySet();
     }
 
+    /**
+     * Returns a lazy view that creates one Pair per entry straight from the table, without the intermediate Map.Entry
+     * that iterating the entrySet would create.
+     */
+    @Override
+    public RichIterable<Pair<K, V>> keyValuesView()
+    {
+        return new KeyValuesView();
+    }
+
     public Set<K> keySet()
     {
         return new KeySet();
@@ -1871,6 +2176,100 @@ public class UnifiedMap<K, V> extends AbstractMutableMap<K, V>
         }
     }
 
+    protected class KeyValuesView extends AbstractLazyIterable<Pair<K, V>>
+    {
+        public Iterator<Pair<K, V>> iterator()
+        {
+            return new KeyValuePairIterator();
+        }
+
+        public void forEach(final Procedure<? super Pair<K, V>> procedure)
+        {
+            UnifiedMap.this.forEachKeyValue(new Procedure2<K, V>()
+            {
+                public void value(K key, V value)
+                {
+                    procedure.value(Tuples.pair(key, value));
+                }
+            });
+        }
+
+        public void forEachWithIndex(ObjectIntProcedure<? super Pair<K, V>> objectIntProcedure)
+        {
+            IterableIterate.forEachWithIndex(this, objectIntProcedure);
+        }
+
+        public <P> void forEachWith(Procedure2<? super Pair<K, V>, ? super P> procedure, P parameter)
+        {
+            IterableIterate.forEachWith(this, procedure, parameter);
+        }
+
+        @Override
+        public int size()
+        {
+            return UnifiedMap.this.size();
+        }
+
+        @Override
+        public boolean isEmpty()
+        {
+            return UnifiedMap.this.isEmpty();
+        }
+    }
+
+    protected class KeyValuePairIterator extends PositionalIterator<Pair<K, V>>
+    {
+        @SuppressWarnings("unchecked")
+        protected Pair<K, V> nextFromChain()
+        {
+            Object[] chain = (Object[]) UnifiedMap.this.table[this.position + 1];
+            Object key = chain[this.chainPosition];
+            Object value = chain[this.chainPosition + 1];
+            this.chainPosition += 2;
+            if (this.chainPosition >= chain.length
+                    || chain[this.chainPosition] == null)
+            {
+                this.chainPosition = 0;
+                this.position += 2;
+            }
+            this.lastReturned = (K) key;
+            return Tuples.pair(UnifiedMap.this.nonSentinel(key), (V) value);
+        }
+
+        public Pair<K, V> next()
+        {
+            if (!this.hasNext())
+            {
+                throw new NoSuchElementException("next() called, but the iterator is exhausted");
+            }
+            this.count++;
+            Object[] table = UnifiedMap.this.table;
+            if (this.chainPosition != 0)
+            {
+                return this.nextFromChain();
+            }
+            while (table[this.position] == null)
+            {
+                this.position += 2;
+            }
+            Object key = table[this.position];
+            Object value = table[this.position + 1];
+            if (key == CHAINED_KEY)
+            {
+                return this.nextFromChain();
+            }
+            this.position += 2;
+            this.lastReturned = (K) key;
+            return Tuples.pair(UnifiedMap.this.nonSentinel(key), (V) value);
+        }
+
+        @Override
+        public void remove()
+        {
+            throw new UnsupportedOperationException("Cannot remove from a keyValuesView iterator");
+        }
+    }
+
     protected static class WeakBoundEntry<K, V> implements Map.Entry<K, V>
     {
         protected final K key;
@@ -21,14 +21,20 @@ import java.util.Comparator;
 import java.util.Iterator;
 import java.util.Map;
 
+import ponzu.api.LazyDoubleIterable;
+import ponzu.api.LazyIntIterable;
 import ponzu.api.LazyIterable;
+import ponzu.api.LazyLongIterable;
 import ponzu.api.RichIterable;
 import ponzu.api.bag.MutableBag;
 import ponzu.api.block.function.Function;
 import ponzu.api.block.function.Function2;
 import ponzu.api.block.function.Generator;
+import ponzu.api.block.function.primitive.DoubleFunction;
 import ponzu.api.block.function.primitive.DoubleObjectToDoubleFunction;
+import ponzu.api.block.function.primitive.IntFunction;
 import ponzu.api.block.function.primitive.IntObjectToIntFunction;
+import ponzu.api.block.function.primitive.LongFunction;
 import ponzu.api.block.function.primitive.LongObjectToLongFunction;
 import ponzu.api.block.predicate.Predicate;
 import ponzu.api.block.predicate.Predicate2;
@@ -505,6 +511,21 @@ public class UnmodifiableMutableMap<K, V>
         return this.getMutableMap().foldLeft(initialValue, function);
     }
 
+    public LazyIntIterable transformToInt(IntFunction<? super V> function)
+    {
+        return this.getMutableMap().transformToInt(function);
+    }
+
+    public LazyLongIterable transformToLong(LongFunction<? super V> function)
+    {
+        return this.getMutableMap().transformToLong(function);
+    }
+
+    public LazyDoubleIterable transformToDouble(DoubleFunction<? super V> function)
+    {
+        return this.getMutableMap().transformToDouble(function);
+    }
+
     public String makeString()
     {
         return this.getMutableMap().makeString();
@@ -0,0 +1,507 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.map.sorted.immutable;
+
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.SortedMap;
+
+import ponzu.api.RichIterable;
+import ponzu.api.block.procedure.ObjectIntProcedure;
+import ponzu.api.block.procedure.Procedure;
+import ponzu.api.block.procedure.Procedure2;
+import ponzu.api.map.sorted.ImmutableSortedMap;
+import ponzu.api.tuple.Pair;
+import ponzu.impl.utility.LazyIterate;
+import net.jcip.annotations.Immutable;
+
+/**
+ * An ImmutableSortedMap which stores its keys and values in two parallel arrays, sorted by key.  Lookups use binary
+ * search over the keys, and {@link #subMap(Object, Object)}, {@link #headMap(Object)} and {@link #tailMap(Object)}
+ * return views over a range of the same arrays without copying.  Like the views of a TreeMap, a view only accepts bounds
+ * within the range it was created with, and throws IllegalArgumentException for any other.
+ *
+ * @see ImmutableSortedMap
+ * @since 1.1
+ */
+@Immutable
+public final class ImmutableSortedArrayMap<K, V>
+        extends AbstractImmutableSortedMap<K, V>
+        implements Serializable
+{
+    private static final long serialVersionUID = 1L;
+
+    private final K[] keys;
+    private final V[] values;
+    private final int fromIndex;
+    private final int toIndex;
+    private final Comparator<? super K> comparator;
+    private final transient boolean hasLowBound;
+    private final transient K lowBound;
+    private final transient boolean hasHighBound;
+    private final transient K highBound;
+
+    private ImmutableSortedArrayMap(K[] keys, V[] values, Comparator<? super K> comparator)
+    {
+        this(keys, values, 0, keys.length, comparator, false, null, false, null);
+    }
+
+    /**
+     * Creates a view of the range of mappings from fromIndex to toIndex, which were selected by the lowBound,
+     * inclusive, and the highBound, exclusive, when there are bounds.
+     */
+    private ImmutableSortedArrayMap(
+            K[] keys,
+            V[] values,
+            int fromIndex,
+            int toIndex,
+            Comparator<? super K> comparator,
+            boolean hasLowBound,
+            K lowBound,
+            boolean hasHighBound,
+            K highBound)
+    {
+        this.keys = keys;
+        this.values = values;
+        this.fromIndex = fromIndex;
+        this.toIndex = toIndex;
+        this.comparator = comparator;
+        this.hasLowBound = hasLowBound;
+        this.lowBound = lowBound;
+        this.hasHighBound = hasHighBound;
+        this.highBound = highBound;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <K, V> ImmutableSortedMap<K, V> newMap(SortedMap<K, V> sortedMap)
+    {
+        int size = sortedMap.size();
+        K[] keys = (K[]) new Object[size];
+        V[] values = (V[]) new Object[size];
+        int index = 0;
+        for (Map.Entry<K, V> entry : sortedMap.entrySet())
+        {
+            keys[index] = entry.getKey();
+            values[index] = entry.getValue();
+            index++;
+        }
+        return new ImmutableSortedArrayMap<K, V>(keys, values, sortedMap.comparator());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K> int compare(Comparator<? super K> comparator, Object one, Object two)
+    {
+        if (comparator == null)
+        {
+            return ((Comparable<Object>) one).compareTo(two);
+        }
+        return comparator.compare((K) one, (K) two);
+    }
+
+    /**
+     * Returns the index of the key if it is in this map, or -(insertion point) - 1 if it is not, searching only the
+     * range covered by this map.
+     */
+    private int binarySearch(Object key)
+    {
+        int low = this.fromIndex;
+        int high = this.toIndex - 1;
+        while (low <= high)
+        {
+            int middle = (low + high) >>> 1;
+            int comparison = ImmutableSortedArrayMap.compare(this.comparator, this.keys[middle], key);
+            if (comparison < 0)
+            {
+                low = middle + 1;
+            }
+            else if (comparison > 0)
+            {
+                high = middle - 1;
+            }
+            else
+            {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+
+    /**
+     * Returns the index of the first key which is not less than the given key.
+     */
+    private int lowerBound(K key)
+    {
+        int index = this.binarySearch(key);
+        return index >= 0 ? index : -(index + 1);
+    }
+
+    private List<K> keyList()
+    {
+        return Collections.unmodifiableList(Arrays.asList(this.keys).subList(this.fromIndex, this.toIndex));
+    }
+
+    private List<V> valueList()
+    {
+        return Collections.unmodifiableList(Arrays.asList(this.values).subList(this.fromIndex, this.toIndex));
+    }
+
+    @Override
+    public boolean equals(Object object)
+    {
+        if (object == this)
+        {
+            return true;
+        }
+        if (!(object instanceof Map))
+        {
+            return false;
+        }
+        Map<?, ?> other = (Map<?, ?>) object;
+        if (other.size() != this.size())
+        {
+            return false;
+        }
+        try
+        {
+            for (int i = this.fromIndex; i < this.toIndex; i++)
+            {
+                K key = this.keys[i];
+                V value = this.values[i];
+                Object otherValue = other.get(key);
+                if (value == null ? otherValue != null || !other.containsKey(key) : !value.equals(otherValue))
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+        catch (ClassCastException ignored)
+        {
+            return false;
+        }
+        catch (NullPointerException ignored)
+        {
+            return false;
+        }
+    }
+
+    @Override
+    public int hashCode()
+    {
+        int hashCode = 0;
+        for (int i = this.fromIndex; i < this.toIndex; i++)
+        {
+            K key = this.keys[i];
+            V value = this.values[i];
+            hashCode += (key == null ? 0 : key.hashCode()) ^ (value == null ? 0 : value.hashCode());
+        }
+        return hashCode;
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder builder = new StringBuilder("{");
+        for (int i = this.fromIndex; i < this.toIndex; i++)
+        {
+            if (i > this.fromIndex)
+            {
+                builder.append(", ");
+            }
+            K key = this.keys[i];
+            V value = this.values[i];
+            builder.append(key == this ? "(this Map)" : String.valueOf(key));
+            builder.append('=');
+            builder.append(value == this ? "(this Map)" : String.valueOf(value));
+        }
+        return builder.append('}').toString();
+    }
+
+    public int size()
+    {
+        return this.toIndex - this.fromIndex;
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        return this.toIndex == this.fromIndex;
+    }
+
+    @Override
+    public boolean notEmpty()
+    {
+        return this.toIndex != this.fromIndex;
+    }
+
+    public boolean containsKey(Object key)
+    {
+        return this.binarySearch(key) >= 0;
+    }
+
+    public boolean containsValue(Object value)
+    {
+        for (int i = this.fromIndex; i < this.toIndex; i++)
+        {
+            V each = this.values[i];
+            if (each == null ? value == null : each.equals(value))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public V get(Object key)
+    {
+        int index = this.binarySearch(key);
+        return index >= 0 ? this.values[index] : null;
+    }
+
+    public void forEachKeyValue(Procedure2<? super K, ? super V> procedure)
+    {
+        for (int i = this.fromIndex; i < this.toIndex; i++)
+        {
+            procedure.value(this.keys[i], this.values[i]);
+        }
+    }
+
+    @Override
+    public void forEach(Procedure<? super V> procedure)
+    {
+        this.forEachValue(procedure);
+    }
+
+    @Override
+    public void forEachKey(Procedure<? super K> procedure)
+    {
+        for (int i = this.fromIndex; i < this.toIndex; i++)
+        {
+            procedure.value(this.keys[i]);
+        }
+    }
+
+    @Override
+    public void forEachValue(Procedure<? super V> procedure)
+    {
+        for (int i = this.fromIndex; i < this.toIndex; i++)
+        {
+            procedure.value(this.values[i]);
+        }
+    }
+
+    @Override
+    public void forEachWithIndex(ObjectIntProcedure<? super V> objectIntProcedure)
+    {
+        for (int i = this.fromIndex; i < this.toIndex; i++)
+        {
+            objectIntProcedure.value(this.values[i], i - this.fromIndex);
+        }
+    }
+
+    @Override
+    public <P> void forEachWith(Procedure2<? super V, ? super P> procedure, P parameter)
+    {
+        for (int i = this.fromIndex; i < this.toIndex; i++)
+        {
+            procedure.value(this.values[i], parameter);
+        }
+    }
+
+    public RichIterable<K> keysView()
+    {
+        return LazyIterate.adapt(this.keyList());
+    }
+
+    public RichIterable<V> valuesView()
+    {
+        return LazyIterate.adapt(this.valueList());
+    }
+
+    public RichIterable<Pair<K, V>> keyValuesView()
+    {
+        return LazyIterate.zip(this.keyList(), this.valueList());
+    }
+
+    public Comparator<? super K> comparator()
+    {
+        return this.comparator;
+    }
+
+    public K firstKey()
+    {
+        if (this.isEmpty())
+        {
+            throw new NoSuchElementException();
+        }
+        return this.keys[this.fromIndex];
+    }
+
+    public K lastKey()
+    {
+        if (this.isEmpty())
+        {
+            throw new NoSuchElementException();
+        }
+        return this.keys[this.toIndex - 1];
+    }
+
+    /**
+     * Returns a read only view of the keys, which answers contains with a binary search over the sorted keys.
+     */
+    public Set<K> keySet()
+    {
+        return new KeySet();
+    }
+
+    public Collection<V> values()
+    {
+        return this.valueList();
+    }
+
+    /**
+     * Returns a view of the mappings from fromKey inclusive to toKey exclusive.
+     *
+     * @throws IllegalArgumentException if fromKey is greater than toKey, or if this map is itself a view and either
+     *                                  bound lies outside of its range
+     */
+    @Override
+    public SortedMap<K, V> subMap(K fromKey, K toKey)
+    {
+        if (ImmutableSortedArrayMap.compare(this.comparator, fromKey, toKey) > 0)
+        {
+            throw new IllegalArgumentException("fromKey > toKey");
+        }
+        this.checkInRange(fromKey, false);
+        this.checkInRange(toKey, true);
+        return new ImmutableSortedArrayMap<K, V>(
+                this.keys,
+                this.values,
+                this.lowerBound(fromKey),
+                this.lowerBound(toKey),
+                this.comparator,
+                true,
+                fromKey,
+                true,
+                toKey);
+    }
+
+    /**
+     * @throws IllegalArgumentException if this map is itself a view and toKey lies outside of its range
+     */
+    @Override
+    public SortedMap<K, V> headMap(K toKey)
+    {
+        this.checkInRange(toKey, true);
+        return new ImmutableSortedArrayMap<K, V>(
+                this.keys,
+                this.values,
+                this.fromIndex,
+                this.lowerBound(toKey),
+                this.comparator,
+                this.hasLowBound,
+                this.lowBound,
+                true,
+                toKey);
+    }
+
+    /**
+     * @throws IllegalArgumentException if this map is itself a view and fromKey lies outside of its range
+     */
+    @Override
+    public SortedMap<K, V> tailMap(K fromKey)
+    {
+        this.checkInRange(fromKey, false);
+        return new ImmutableSortedArrayMap<K, V>(
+                this.keys,
+                this.values,
+                this.lowerBound(fromKey),
+                this.toIndex,
+                this.comparator,
+                true,
+                fromKey,
+                this.hasHighBound,
+                this.highBound);
+    }
+
+    /**
+     * Throws if the key lies outside of the bounds this view was created with.  The high bound is exclusive, so it is
+     * only accepted as the end of a new range.
+     */
+    private void checkInRange(K key, boolean isEnd)
+    {
+        if (this.hasLowBound && ImmutableSortedArrayMap.compare(this.comparator, key, this.lowBound) < 0)
+        {
+            throw new IllegalArgumentException("Key " + key + " is below the range of this view");
+        }
+        if (this.hasHighBound)
+        {
+            int comparison = ImmutableSortedArrayMap.compare(this.comparator, key, this.highBound);
+            if (comparison > 0 || comparison == 0 && !isEnd)
+            {
+                throw new IllegalArgumentException("Key " + key + " is above the range of this view");
+            }
+        }
+    }
+
+    /**
+     * Views are serialized as a copy of their range, rather than with the whole of the shared arrays.
+     */
+    @SuppressWarnings("unchecked")
+    private Object writeReplace()
+    {
+        if (this.fromIndex == 0 && this.toIndex == this.keys.length && !this.hasLowBound && !this.hasHighBound)
+        {
+            return this;
+        }
+        K[] keyRange = (K[]) new Object[this.size()];
+        V[] valueRange = (V[]) new Object[keyRange.length];
+        System.arraycopy(this.keys, this.fromIndex, keyRange, 0, keyRange.length);
+        System.arraycopy(this.values, this.fromIndex, valueRange, 0, valueRange.length);
+        return new ImmutableSortedArrayMap<K, V>(keyRange, valueRange, this.comparator);
+    }
+
+    private final class KeySet extends AbstractSet<K>
+    {
+        @Override
+        public Iterator<K> iterator()
+        {
+            return ImmutableSortedArrayMap.this.keyList().iterator();
+        }
+
+        @Override
+        public int size()
+        {
+            return ImmutableSortedArrayMap.this.size();
+        }
+
+        @Override
+        public boolean contains(Object key)
+        {
+            return ImmutableSortedArrayMap.this.containsKey(key);
+        }
+    }
+}
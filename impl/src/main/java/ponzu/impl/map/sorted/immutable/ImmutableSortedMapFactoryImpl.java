@@ -89,6 +89,6 @@ public final class ImmutableSortedMapFactoryImpl implements ImmutableSortedMapFa
         {
             return this.of(map.comparator());
         }
-        return ImmutableTreeMap.newMap(map);
+        return ImmutableSortedArrayMap.newMap(map);
     }
 }
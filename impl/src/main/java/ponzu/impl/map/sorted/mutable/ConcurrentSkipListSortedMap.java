@@ -0,0 +1,451 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.map.sorted.mutable;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import ponzu.api.block.function.Function;
+import ponzu.api.block.function.Function2;
+import ponzu.api.block.function.Generator;
+import ponzu.api.block.procedure.Procedure;
+import ponzu.api.block.procedure.Procedure2;
+import ponzu.api.collection.MutableCollection;
+import ponzu.api.list.MutableList;
+import ponzu.api.map.sorted.MutableSortedMap;
+import ponzu.api.set.MutableSet;
+import ponzu.api.tuple.Pair;
+import ponzu.impl.block.factory.Functions;
+import ponzu.impl.block.procedure.MapCollectProcedure;
+import ponzu.impl.collection.mutable.CollectionAdapter;
+import ponzu.impl.list.mutable.FastList;
+import ponzu.impl.set.mutable.SetAdapter;
+import ponzu.impl.utility.ArrayIterate;
+import ponzu.impl.utility.MapIterate;
+import net.jcip.annotations.ThreadSafe;
+
+/**
+ * A MutableSortedMap which uses java.util.concurrent.ConcurrentSkipListMap for its underlying map.  Reads, writes and
+ * iteration do not lock, and headMap, tailMap and subMap return views which are themselves concurrent.  Iteration is
+ * weakly consistent, so the ponzu iteration protocols such as filter, transform and groupBy see a consistent sorted
+ * order without blocking writers, but may or may not reflect concurrent updates.
+ * <p/>
+ * As with ConcurrentSkipListMap, null keys and values are not supported, and size() requires a traversal.
+ *
+ * @since 1.1
+ */
+@ThreadSafe
+public final class ConcurrentSkipListSortedMap<K, V>
+        extends AbstractMutableSortedMap<K, V>
+        implements ConcurrentMap<K, V>, Externalizable
+{
+    private static final long serialVersionUID = 1L;
+    private ConcurrentNavigableMap<K, V> delegate;
+
+    public ConcurrentSkipListSortedMap()
+    {
+        this.delegate = new ConcurrentSkipListMap<K, V>();
+    }
+
+    public ConcurrentSkipListSortedMap(Comparator<? super K> comparator)
+    {
+        this.delegate = new ConcurrentSkipListMap<K, V>(comparator);
+    }
+
+    public ConcurrentSkipListSortedMap(Map<? extends K, ? extends V> map)
+    {
+        this.delegate = new ConcurrentSkipListMap<K, V>(map);
+    }
+
+    public ConcurrentSkipListSortedMap(SortedMap<K, ? extends V> map)
+    {
+        this.delegate = new ConcurrentSkipListMap<K, V>(map);
+    }
+
+    private ConcurrentSkipListSortedMap(ConcurrentNavigableMap<K, V> delegate)
+    {
+        this.delegate = delegate;
+    }
+
+    public static <K, V> ConcurrentSkipListSortedMap<K, V> newMap()
+    {
+        return new ConcurrentSkipListSortedMap<K, V>();
+    }
+
+    public static <K, V> ConcurrentSkipListSortedMap<K, V> newMap(Comparator<? super K> comparator)
+    {
+        return new ConcurrentSkipListSortedMap<K, V>(comparator);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <K, V> ConcurrentSkipListSortedMap<K, V> newMap(Map<? extends K, ? extends V> map)
+    {
+        if (map instanceof SortedMap<?, ?>)
+        {
+            return new ConcurrentSkipListSortedMap<K, V>((SortedMap<K, V>) map);
+        }
+        return new ConcurrentSkipListSortedMap<K, V>(map);
+    }
+
+    public static <K, V> ConcurrentSkipListSortedMap<K, V> newMap(Comparator<? super K> comparator, Map<? extends K, ? extends V> map)
+    {
+        ConcurrentSkipListSortedMap<K, V> sortedMap = new ConcurrentSkipListSortedMap<K, V>(comparator);
+        sortedMap.putAll(map);
+        return sortedMap;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <K, V> ConcurrentSkipListSortedMap<K, V> newMapWith(Pair<K, V>... pairs)
+    {
+        return new ConcurrentSkipListSortedMap<K, V>().with(pairs);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <K, V> ConcurrentSkipListSortedMap<K, V> newMapWith(Comparator<? super K> comparator, Pair<K, V>... pairs)
+    {
+        return new ConcurrentSkipListSortedMap<K, V>(comparator).with(pairs);
+    }
+
+    public static <K, V> ConcurrentSkipListSortedMap<K, V> newMapWith(K key, V value)
+    {
+        return new ConcurrentSkipListSortedMap<K, V>().with(key, value);
+    }
+
+    public static <K, V> ConcurrentSkipListSortedMap<K, V> newMapWith(K key1, V value1, K key2, V value2)
+    {
+        return new ConcurrentSkipListSortedMap<K, V>().with(key1, value1, key2, value2);
+    }
+
+    public static <K, V> ConcurrentSkipListSortedMap<K, V> newMapWith(K key1, V value1, K key2, V value2, K key3, V value3)
+    {
+        return new ConcurrentSkipListSortedMap<K, V>().with(key1, value1, key2, value2, key3, value3);
+    }
+
+    public static <K, V> ConcurrentSkipListSortedMap<K, V> newMapWith(
+            K key1, V value1,
+            K key2, V value2,
+            K key3, V value3,
+            K key4, V value4)
+    {
+        return new ConcurrentSkipListSortedMap<K, V>().with(key1, value1, key2, value2, key3, value3, key4, value4);
+    }
+
+    public static <K, V> ConcurrentSkipListSortedMap<K, V> newMapWith(Comparator<? super K> comparator, K key, V value)
+    {
+        return new ConcurrentSkipListSortedMap<K, V>(comparator).with(key, value);
+    }
+
+    public static <K, V> ConcurrentSkipListSortedMap<K, V> newMapWith(Comparator<? super K> comparator, K key1, V value1, K key2, V value2)
+    {
+        return new ConcurrentSkipListSortedMap<K, V>(comparator).with(key1, value1, key2, value2);
+    }
+
+    public static <K, V> ConcurrentSkipListSortedMap<K, V> newMapWith(Comparator<? super K> comparator, K key1, V value1, K key2, V value2, K key3, V value3)
+    {
+        return new ConcurrentSkipListSortedMap<K, V>(comparator).with(key1, value1, key2, value2, key3, value3);
+    }
+
+    public static <K, V> ConcurrentSkipListSortedMap<K, V> newMapWith(Comparator<? super K> comparator,
+            K key1, V value1,
+            K key2, V value2,
+            K key3, V value3,
+            K key4, V value4)
+    {
+        return new ConcurrentSkipListSortedMap<K, V>(comparator).with(key1, value1, key2, value2, key3, value3, key4, value4);
+    }
+
+    public ConcurrentSkipListSortedMap<K, V> with(K key, V value)
+    {
+        this.put(key, value);
+        return this;
+    }
+
+    public ConcurrentSkipListSortedMap<K, V> with(K key1, V value1, K key2, V value2)
+    {
+        this.put(key1, value1);
+        this.put(key2, value2);
+        return this;
+    }
+
+    public ConcurrentSkipListSortedMap<K, V> with(K key1, V value1, K key2, V value2, K key3, V value3)
+    {
+        this.put(key1, value1);
+        this.put(key2, value2);
+        this.put(key3, value3);
+        return this;
+    }
+
+    public ConcurrentSkipListSortedMap<K, V> with(K key1, V value1, K key2, V value2, K key3, V value3, K key4, V value4)
+    {
+        this.put(key1, value1);
+        this.put(key2, value2);
+        this.put(key3, value3);
+        this.put(key4, value4);
+        return this;
+    }
+
+    @SuppressWarnings("unchecked")
+    public ConcurrentSkipListSortedMap<K, V> with(Pair<K, V>... pairs)
+    {
+        ArrayIterate.forEach(pairs, new MapCollectProcedure<Pair<K, V>, K, V>(this, Functions.<K>firstOfPair(), Functions.<V>secondOfPair()));
+        return this;
+    }
+
+    public int size()
+    {
+        return this.delegate.size();
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        return this.delegate.isEmpty();
+    }
+
+    @Override
+    public boolean notEmpty()
+    {
+        return !this.delegate.isEmpty();
+    }
+
+    public MutableSortedMap<K, V> newEmpty()
+    {
+        return new ConcurrentSkipListSortedMap<K, V>(this.comparator());
+    }
+
+    public V removeKey(K key)
+    {
+        return this.delegate.remove(key);
+    }
+
+    @Override
+    public ConcurrentSkipListSortedMap<K, V> clone()
+    {
+        return new ConcurrentSkipListSortedMap<K, V>((SortedMap<K, V>) this.delegate);
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        return this.delegate.equals(o);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return this.delegate.hashCode();
+    }
+
+    public void forEachKeyValue(Procedure2<? super K, ? super V> procedure2)
+    {
+        MapIterate.forEachKeyValue(this.delegate, procedure2);
+    }
+
+    @Override
+    public void forEachKey(Procedure<? super K> procedure)
+    {
+        for (K key : this.delegate.keySet())
+        {
+            procedure.value(key);
+        }
+    }
+
+    @Override
+    public void forEachValue(Procedure<? super V> procedure)
+    {
+        for (V value : this.delegate.values())
+        {
+            procedure.value(value);
+        }
+    }
+
+    @Override
+    public void forEach(Procedure<? super V> procedure)
+    {
+        this.forEachValue(procedure);
+    }
+
+    public K firstKey()
+    {
+        return this.delegate.firstKey();
+    }
+
+    public K lastKey()
+    {
+        return this.delegate.lastKey();
+    }
+
+    public MutableSet<Entry<K, V>> entrySet()
+    {
+        return SetAdapter.adapt(this.delegate.entrySet());
+    }
+
+    public MutableSet<K> keySet()
+    {
+        return SetAdapter.adapt(this.delegate.keySet());
+    }
+
+    public MutableCollection<V> values()
+    {
+        return CollectionAdapter.adapt(this.delegate.values());
+    }
+
+    public Comparator<? super K> comparator()
+    {
+        return this.delegate.comparator();
+    }
+
+    public V get(Object key)
+    {
+        return this.delegate.get(key);
+    }
+
+    public V put(K key, V value)
+    {
+        return this.delegate.put(key, value);
+    }
+
+    public V remove(Object key)
+    {
+        return this.delegate.remove(key);
+    }
+
+    public void putAll(Map<? extends K, ? extends V> map)
+    {
+        this.delegate.putAll(map);
+    }
+
+    public void clear()
+    {
+        this.delegate.clear();
+    }
+
+    public boolean containsKey(Object key)
+    {
+        return this.delegate.containsKey(key);
+    }
+
+    public boolean containsValue(Object value)
+    {
+        return this.delegate.containsValue(value);
+    }
+
+    public V putIfAbsent(K key, V value)
+    {
+        return this.delegate.putIfAbsent(key, value);
+    }
+
+    public boolean remove(Object key, Object value)
+    {
+        return this.delegate.remove(key, value);
+    }
+
+    public boolean replace(K key, V oldValue, V newValue)
+    {
+        return this.delegate.replace(key, oldValue, newValue);
+    }
+
+    public V replace(K key, V value)
+    {
+        return this.delegate.replace(key, value);
+    }
+
+    @Override
+    public V getIfAbsentPut(K key, Generator<? extends V> function)
+    {
+        V result = this.delegate.get(key);
+        if (result == null)
+        {
+            V blockValue = function.value();
+            V putResult = this.delegate.putIfAbsent(key, blockValue);
+            return putResult == null ? blockValue : putResult;
+        }
+        return result;
+    }
+
+    @Override
+    public <P> V getIfAbsentPutWith(K key, Function<? super P, ? extends V> function, P parameter)
+    {
+        V result = this.delegate.get(key);
+        if (result == null)
+        {
+            V functionValue = function.valueOf(parameter);
+            V putResult = this.delegate.putIfAbsent(key, functionValue);
+            return putResult == null ? functionValue : putResult;
+        }
+        return result;
+    }
+
+    @Override
+    public <R> MutableSortedMap<K, R> transformValues(Function2<? super K, ? super V, ? extends R> function)
+    {
+        return MapIterate.transformValues(this, function, ConcurrentSkipListSortedMap.<K, R>newMap(this.comparator()));
+    }
+
+    public MutableSortedMap<K, V> headMap(K toKey)
+    {
+        return new ConcurrentSkipListSortedMap<K, V>(this.delegate.headMap(toKey));
+    }
+
+    public MutableSortedMap<K, V> tailMap(K fromKey)
+    {
+        return new ConcurrentSkipListSortedMap<K, V>(this.delegate.tailMap(fromKey));
+    }
+
+    public MutableSortedMap<K, V> subMap(K fromKey, K toKey)
+    {
+        return new ConcurrentSkipListSortedMap<K, V>(this.delegate.subMap(fromKey, toKey));
+    }
+
+    @Override
+    public String toString()
+    {
+        return this.delegate.toString();
+    }
+
+    public void writeExternal(ObjectOutput out) throws IOException
+    {
+        // Snapshot the entries so the count written matches the entries written under concurrent updates
+        MutableList<Entry<K, V>> entries = FastList.newList(this.delegate.entrySet());
+        out.writeObject(this.comparator());
+        out.writeInt(entries.size());
+        for (Entry<K, V> entry : entries)
+        {
+            out.writeObject(entry.getKey());
+            out.writeObject(entry.getValue());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException
+    {
+        this.delegate = new ConcurrentSkipListMap<K, V>((Comparator<? super K>) in.readObject());
+        int size = in.readInt();
+        for (int i = 0; i < size; ++i)
+        {
+            this.delegate.put((K) in.readObject(), (V) in.readObject());
+        }
+    }
+}
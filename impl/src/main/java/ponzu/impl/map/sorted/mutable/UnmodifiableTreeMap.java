@@ -21,14 +21,20 @@ import java.util.Comparator;
 import java.util.Iterator;
 import java.util.SortedMap;
 
+import ponzu.api.LazyDoubleIterable;
+import ponzu.api.LazyIntIterable;
 import ponzu.api.LazyIterable;
+import ponzu.api.LazyLongIterable;
 import ponzu.api.RichIterable;
 import ponzu.api.bag.MutableBag;
 import ponzu.api.block.function.Function;
 import ponzu.api.block.function.Function2;
 import ponzu.api.block.function.Generator;
+import ponzu.api.block.function.primitive.DoubleFunction;
 import ponzu.api.block.function.primitive.DoubleObjectToDoubleFunction;
+import ponzu.api.block.function.primitive.IntFunction;
 import ponzu.api.block.function.primitive.IntObjectToIntFunction;
+import ponzu.api.block.function.primitive.LongFunction;
 import ponzu.api.block.function.primitive.LongObjectToLongFunction;
 import ponzu.api.block.predicate.Predicate;
 import ponzu.api.block.predicate.Predicate2;
@@ -487,6 +493,21 @@ public class UnmodifiableTreeMap<K, V>
         return this.getMutableSortedMap().foldLeft(initialValue, function);
     }
 
+    public LazyIntIterable transformToInt(IntFunction<? super V> function)
+    {
+        return this.getMutableSortedMap().transformToInt(function);
+    }
+
+    public LazyLongIterable transformToLong(LongFunction<? super V> function)
+    {
+        return this.getMutableSortedMap().transformToLong(function);
+    }
+
+    public LazyDoubleIterable transformToDouble(DoubleFunction<? super V> function)
+    {
+        return this.getMutableSortedMap().transformToDouble(function);
+    }
+
     public String makeString()
     {
         return this.getMutableSortedMap().makeString();
@@ -50,6 +50,7 @@ import ponzu.impl.factory.Sets;
 import ponzu.impl.list.mutable.FastList;
 import ponzu.impl.map.mutable.AbstractMutableMap;
 import ponzu.impl.parallel.BatchIterable;
+import ponzu.impl.parallel.BatchKeyValueIterable;
 import ponzu.impl.set.strategy.mutable.UnifiedSetWithHashingStrategy;
 import ponzu.impl.tuple.ImmutableEntry;
 import ponzu.impl.utility.ArrayIterate;
@@ -92,7 +93,7 @@ import ponzu.impl.utility.Iterate;
 
 @NotThreadSafe
 public class UnifiedMapWithHashingStrategy<K, V> extends AbstractMutableMap<K, V>
-        implements Externalizable, BatchIterable<V>
+        implements Externalizable, BatchIterable<V>, BatchKeyValueIterable<K, V>
 {
     protected static final Object NULL_KEY = new Object();
 
@@ -108,6 +109,12 @@ public class UnifiedMapWithHashingStrategy<K, V> extends AbstractMutableMap<K, V
 
     protected transient int occupied;
 
+    /**
+     * The hash codes of the keys stored directly in the table, indexed by half the table index, or null if hash codes
+     * are not cached.  Keys in collision chains do not have a cached hash code.
+     */
+    protected transient int[] hashes;
+
     protected float loadFactor = DEFAULT_LOAD_FACTOR;
 
     protected int maxSize;
@@ -200,6 +207,49 @@ public class UnifiedMapWithHashingStrategy<K, V> extends AbstractMutableMap<K, V
         return new UnifiedMapWithHashingStrategy<K, V>(hashingStrategy, pairs);
     }
 
+    /**
+     * Creates a map which stores the hash code of each key in an int array alongside the table.  The map never
+     * recomputes the hash code of a key stored directly in the table when it grows, and compares cached hash codes
+     * before calling {@link HashingStrategy#equals(Object, Object)}, which suits strategies whose hash codes are
+     * expensive to compute.  Keys in collision chains are rehashed as usual.  The cache itself is not serialized, but a
+     * deserialized copy caches hash codes again.
+     *
+     * @since 1.1
+     */
+    public static <K, V> UnifiedMapWithHashingStrategy<K, V> newMapWithCachedHashCodes(HashingStrategy<? super K> hashingStrategy)
+    {
+        return UnifiedMapWithHashingStrategy.<K, V>newMap(hashingStrategy).cacheHashCodes();
+    }
+
+    /**
+     * @see #newMapWithCachedHashCodes(HashingStrategy)
+     * @since 1.1
+     */
+    public static <K, V> UnifiedMapWithHashingStrategy<K, V> newMapWithCachedHashCodes(
+            HashingStrategy<? super K> hashingStrategy,
+            int size)
+    {
+        return UnifiedMapWithHashingStrategy.<K, V>newMap(hashingStrategy, size).cacheHashCodes();
+    }
+
+    private UnifiedMapWithHashingStrategy<K, V> cacheHashCodes()
+    {
+        if (this.occupied != 0)
+        {
+            throw new IllegalStateException("Hash codes can only be cached from an empty map");
+        }
+        this.hashes = new int[this.table.length >> 1];
+        return this;
+    }
+
+    /**
+     * @since 1.1
+     */
+    public boolean isCachingHashCodes()
+    {
+        return this.hashes != null;
+    }
+
     public static <K, V> UnifiedMapWithHashingStrategy<K, V> newWithKeysValues(
             HashingStrategy<? super K> hashingStrategy,
             K key, V value)
@@ -272,18 +322,28 @@ public class UnifiedMapWithHashingStrategy<K, V> extends AbstractMutableMap<K, V
     @Override
     public UnifiedMapWithHashingStrategy<K, V> clone()
     {
-        return new UnifiedMapWithHashingStrategy<K, V>(this.hashingStrategy, this);
+        if (this.hashes == null)
+        {
+            return new UnifiedMapWithHashingStrategy<K, V>(this.hashingStrategy, this);
+        }
+        UnifiedMapWithHashingStrategy<K, V> result = UnifiedMapWithHashingStrategy.newMapWithCachedHashCodes(
+                this.hashingStrategy,
+                Math.max(this.size(), DEFAULT_INITIAL_CAPACITY));
+        result.putAll(this);
+        return result;
     }
 
     public MutableMap<K, V> newEmpty()
     {
-        return new UnifiedMapWithHashingStrategy<K, V>(this.hashingStrategy);
+        UnifiedMapWithHashingStrategy<K, V> result = new UnifiedMapWithHashingStrategy<K, V>(this.hashingStrategy);
+        return this.hashes == null ? result : result.cacheHashCodes();
     }
 
     @Override
     public MutableMap<K, V> newEmpty(int capacity)
     {
-        return UnifiedMapWithHashingStrategy.newMap(this.hashingStrategy, capacity);
+        UnifiedMapWithHashingStrategy<K, V> result = UnifiedMapWithHashingStrategy.newMap(this.hashingStrategy, capacity);
+        return this.hashes == null ? result : result.cacheHashCodes();
     }
 
     private int fastCeil(float v)
@@ -310,6 +370,10 @@ public class UnifiedMapWithHashingStrategy<K, V> extends AbstractMutableMap<K, V
     protected int allocate(int capacity)
     {
         this.allocateTable(capacity << 1); // the table size is twice the capacity to handle both keys and values
+        if (this.hashes != null)
+        {
+            this.hashes = new int[capacity];
+        }
         this.computeMaxSize(capacity);
 
         return capacity;
@@ -328,11 +392,16 @@ public class UnifiedMapWithHashingStrategy<K, V> extends AbstractMutableMap<K, V
     }
 
     protected final int index(K key)
+    {
+        return this.indexFor(this.hashingStrategy.computeHashCode(key));
+    }
+
+    private int indexFor(int hashCode)
     {
         // This function ensures that hashCodes that differ only by
         // constant multiples at each bit position have a bounded
         // number of collisions (approximately 8 at default load factor).
-        int h = this.hashingStrategy.computeHashCode(key);
+        int h = hashCode;
         h ^= (h >>> 20) ^ (h >>> 12);
         h = h ^ (h >>> 7) ^ (h >>> 4);
         return (h & (this.table.length >> 1) - 1) << 1;
@@ -355,19 +424,24 @@ public class UnifiedMapWithHashingStrategy<K, V> extends AbstractMutableMap<K, V
 
     public V put(K key, V value)
     {
-        int index = this.index(key);
+        int hashCode = this.hashingStrategy.computeHashCode(key);
+        int index = this.indexFor(hashCode);
         V result = null;
         Object cur = this.table[index];
         if (cur == null)
         {
             this.table[index] = this.toSentinelIfNull(key);
             this.table[index + 1] = value;
+            if (this.hashes != null)
+            {
+                this.hashes[index >> 1] = hashCode;
+            }
             if (++this.occupied > this.maxSize)
             {
                 this.rehash(this.table.length);
             }
         }
-        else if (cur != CHAINED_KEY && this.hashingStrategyEquals(this.nonSentinel(cur), key))
+        else if (cur != CHAINED_KEY && this.slotEquals(cur, key, index, hashCode))
         {
             result = (V) this.table[index + 1];
             this.table[index + 1] = value;
@@ -438,7 +512,8 @@ public class UnifiedMapWithHashingStrategy<K, V> extends AbstractMutableMap<K, V
     @Override
     public V getIfAbsentPut(K key, Generator<? extends V> function)
     {
-        int index = this.index(key);
+        int hashCode = this.hashingStrategy.computeHashCode(key);
+        int index = this.indexFor(hashCode);
         Object cur = this.table[index];
 
         if (cur == null)
@@ -446,13 +521,17 @@ public class UnifiedMapWithHashingStrategy<K, V> extends AbstractMutableMap<K, V
             V result = function.value();
             this.table[index] = this.toSentinelIfNull(key);
             this.table[index + 1] = result;
+            if (this.hashes != null)
+            {
+                this.hashes[index >> 1] = hashCode;
+            }
             if (++this.occupied > this.maxSize)
             {
                 this.rehash(this.table.length);
             }
             return result;
         }
-        if (cur != CHAINED_KEY && this.hashingStrategyEquals(this.nonSentinel(cur), key))
+        if (cur != CHAINED_KEY && this.slotEquals(cur, key, index, hashCode))
         {
             return (V) this.table[index + 1];
         }
@@ -555,6 +634,7 @@ public class UnifiedMapWithHashingStrategy<K, V> extends AbstractMutableMap<K, V
     {
         int oldLength = this.table.length;
         Object[] old = this.table;
+        int[] oldHashes = this.hashes;
         this.allocate(newCapacity);
         this.occupied = 0;
 
@@ -574,14 +654,41 @@ public class UnifiedMapWithHashingStrategy<K, V> extends AbstractMutableMap<K, V
             }
             else if (oldKey != null)
             {
-                this.put(this.nonSentinel(oldKey), (V) old[i + 1]);
+                if (oldHashes == null)
+                {
+                    this.put(this.nonSentinel(oldKey), (V) old[i + 1]);
+                }
+                else
+                {
+                    this.putRehashed(oldKey, old[i + 1], oldHashes[i >> 1]);
+                }
             }
         }
     }
 
+    /**
+     * Adds a key which is known not to be in the map, using its cached hash code.
+     */
+    private void putRehashed(Object key, Object value, int hashCode)
+    {
+        int index = this.indexFor(hashCode);
+        if (this.table[index] == null)
+        {
+            this.table[index] = key;
+            this.table[index + 1] = value;
+            this.hashes[index >> 1] = hashCode;
+            this.occupied++;
+        }
+        else
+        {
+            this.chainedPut(this.nonSentinel(key), index, (V) value);
+        }
+    }
+
     public V get(Object key)
     {
-        int index = this.index((K) key);
+        int hashCode = this.hashingStrategy.computeHashCode((K) key);
+        int index = this.indexFor(hashCode);
         Object cur = this.table[index];
         if (cur != null)
         {
@@ -590,7 +697,7 @@ public class UnifiedMapWithHashingStrategy<K, V> extends AbstractMutableMap<K, V
             {
                 return this.getFromChain((Object[]) val, (K) key);
             }
-            if (this.hashingStrategyEquals(this.nonSentinel(cur), (K) key))
+            if (this.slotEquals(cur, (K) key, index, hashCode))
             {
                 return (V) val;
             }
@@ -617,13 +724,14 @@ public class UnifiedMapWithHashingStrategy<K, V> extends AbstractMutableMap<K, V
 
     public boolean containsKey(Object key)
     {
-        int index = this.index((K) key);
+        int hashCode = this.hashingStrategy.computeHashCode((K) key);
+        int index = this.indexFor(hashCode);
         Object cur = this.table[index];
         if (cur == null)
         {
             return false;
         }
-        if (cur != CHAINED_KEY && this.hashingStrategyEquals(this.nonSentinel(cur), (K) key))
+        if (cur != CHAINED_KEY && this.slotEquals(cur, (K) key, index, hashCode))
         {
             return true;
         }
@@ -738,6 +846,30 @@ public class UnifiedMapWithHashingStrategy<K, V> extends AbstractMutableMap<K, V
         this.mapBatchForEach(this.table, procedure, sectionIndex, sectionCount);
     }
 
+    public void batchForEachKeyValue(Procedure2<? super K, ? super V> procedure, int sectionIndex, int sectionCount)
+    {
+        Object[] map = this.table;
+        int sectionSize = map.length / sectionCount;
+        int start = sectionIndex * sectionSize;
+        int end = sectionIndex == sectionCount - 1 ? map.length : start + sectionSize;
+        if (start % 2 != 0)
+        {
+            start++;
+        }
+        for (int i = start; i < end; i += 2)
+        {
+            Object key = map[i];
+            if (key == CHAINED_KEY)
+            {
+                this.chainedForEachEntry((Object[]) map[i + 1], procedure);
+            }
+            else if (key != null)
+            {
+                procedure.value(this.nonSentinel(key), (V) map[i + 1]);
+            }
+        }
+    }
+
     @Override
     public void forEachKey(Procedure<? super K> procedure)
     {
@@ -864,7 +996,8 @@ public class UnifiedMapWithHashingStrategy<K, V> extends AbstractMutableMap<K, V
 
     public V remove(Object key)
     {
-        int index = this.index((K) key);
+        int hashCode = this.hashingStrategy.computeHashCode((K) key);
+        int index = this.indexFor(hashCode);
         Object cur = this.table[index];
         if (cur != null)
         {
@@ -873,7 +1006,7 @@ public class UnifiedMapWithHashingStrategy<K, V> extends AbstractMutableMap<K, V
             {
                 return this.removeFromChain((Object[]) val, (K) key, index);
             }
-            if (this.hashingStrategyEquals(this.nonSentinel(cur), (K) key))
+            if (this.slotEquals(cur, (K) key, index, hashCode))
             {
                 this.table[index] = null;
                 this.table[index + 1] = null;
@@ -980,7 +1113,10 @@ public class UnifiedMapWithHashingStrategy<K, V> extends AbstractMutableMap<K, V
             else if (key != null)
             {
                 Object value = this.table[i + 1];
-                hashCode += this.hashingStrategy.computeHashCode(this.nonSentinel(key)) ^ (value == null ? 0 : value.hashCode());
+                int keyHashCode = this.hashes == null
+                        ? this.hashingStrategy.computeHashCode(this.nonSentinel(key))
+                        : this.hashes[i >> 1];
+                hashCode += keyHashCode ^ (value == null ? 0 : value.hashCode());
             }
         }
         return hashCode;
@@ -1033,9 +1169,17 @@ public class UnifiedMapWithHashingStrategy<K, V> extends AbstractMutableMap<K, V
     {
         this.hashingStrategy = (HashingStrategy<? super K>) in.readObject();
         int size = in.readInt();
-        this.loadFactor = in.readFloat();
+        float serializedLoadFactor = in.readFloat();
+        // A map which caches hash codes writes its load factor negated, so maps without the cache keep the
+        // original serialized form
+        boolean cachingHashCodes = serializedLoadFactor < 0.0f;
+        this.loadFactor = Math.abs(serializedLoadFactor);
         this.init(Math.max((int) (size / this.loadFactor) + 1,
                 DEFAULT_INITIAL_CAPACITY));
+        if (cachingHashCodes)
+        {
+            this.cacheHashCodes();
+        }
         for (int i = 0; i < size; i++)
         {
             this.put((K) in.readObject(), (V) in.readObject());
@@ -1046,7 +1190,7 @@ public class UnifiedMapWithHashingStrategy<K, V> extends AbstractMutableMap<K, V
     {
         out.writeObject(this.hashingStrategy);
         out.writeInt(this.size());
-        out.writeFloat(this.loadFactor);
+        out.writeFloat(this.hashes == null ? this.loadFactor : -this.loadFactor);
         for (int i = 0; i < this.table.length; i += 2)
         {
             Object o = this.table[i];
@@ -1193,7 +1337,8 @@ public class UnifiedMapWithHashingStrategy<K, V> extends AbstractMutableMap<K, V
 
         public void putIfFound(Object key, Map<K, V> other)
         {
-            int index = UnifiedMapWithHashingStrategy.this.index((K) key);
+            int hashCode = UnifiedMapWithHashingStrategy.this.hashingStrategy.computeHashCode((K) key);
+            int index = UnifiedMapWithHashingStrategy.this.indexFor(hashCode);
             Object cur = UnifiedMapWithHashingStrategy.this.table[index];
             if (cur != null)
             {
@@ -1203,7 +1348,7 @@ public class UnifiedMapWithHashingStrategy<K, V> extends AbstractMutableMap<K, V
                     this.putIfFoundFromChain((Object[]) val, (K) key, other);
                     return;
                 }
-                if (UnifiedMapWithHashingStrategy.this.hashingStrategyEquals(UnifiedMapWithHashingStrategy.this.nonSentinel(cur), (K) key))
+                if (UnifiedMapWithHashingStrategy.this.slotEquals(cur, (K) key, index, hashCode))
                 {
                     other.put(UnifiedMapWithHashingStrategy.this.nonSentinel(cur), (V) val);
                     return;
@@ -1232,6 +1377,10 @@ public class UnifiedMapWithHashingStrategy<K, V> extends AbstractMutableMap<K, V
             int retainedSize = collection.size();
             UnifiedMapWithHashingStrategy<K, V> retainedCopy = new UnifiedMapWithHashingStrategy<K, V>(
                     UnifiedMapWithHashingStrategy.this.hashingStrategy, retainedSize, UnifiedMapWithHashingStrategy.this.loadFactor);
+            if (UnifiedMapWithHashingStrategy.this.hashes != null)
+            {
+                retainedCopy.cacheHashCodes();
+            }
             for (Object key : collection)
             {
                 this.putIfFound(key, retainedCopy);
@@ -1241,6 +1390,7 @@ public class UnifiedMapWithHashingStrategy<K, V> extends AbstractMutableMap<K, V
                 UnifiedMapWithHashingStrategy.this.maxSize = retainedCopy.maxSize;
                 UnifiedMapWithHashingStrategy.this.occupied = retainedCopy.occupied;
                 UnifiedMapWithHashingStrategy.this.table = retainedCopy.table;
+                UnifiedMapWithHashingStrategy.this.hashes = retainedCopy.hashes;
                 return true;
             }
             return false;
@@ -1352,10 +1502,14 @@ public class UnifiedMapWithHashingStrategy<K, V> extends AbstractMutableMap<K, V
                             hashCode += UnifiedMapWithHashingStrategy.this.hashingStrategy.computeHashCode(UnifiedMapWithHashingStrategy.this.nonSentinel(key));
                         }
                     }
-                    else
+                    else if (UnifiedMapWithHashingStrategy.this.hashes == null)
                     {
                         hashCode += UnifiedMapWithHashingStrategy.this.hashingStrategy.computeHashCode(UnifiedMapWithHashingStrategy.this.nonSentinel(x));
                     }
+                    else
+                    {
+                        hashCode += UnifiedMapWithHashingStrategy.this.hashes[i >> 1];
+                    }
                 }
             }
             return hashCode;
@@ -1579,7 +1733,8 @@ public class UnifiedMapWithHashingStrategy<K, V> extends AbstractMutableMap<K, V
         {
             Object key = entry.getKey();
             Object value = entry.getValue();
-            int index = UnifiedMapWithHashingStrategy.this.index((K) key);
+            int hashCode = UnifiedMapWithHashingStrategy.this.hashingStrategy.computeHashCode((K) key);
+            int index = UnifiedMapWithHashingStrategy.this.indexFor(hashCode);
 
             Object cur = UnifiedMapWithHashingStrategy.this.table[index];
             Object curValue = UnifiedMapWithHashingStrategy.this.table[index + 1];
@@ -1587,7 +1742,7 @@ public class UnifiedMapWithHashingStrategy<K, V> extends AbstractMutableMap<K, V
             {
                 return this.chainContainsEntry((Object[]) curValue, (K) key, value);
             }
-            return cur != null && UnifiedMapWithHashingStrategy.this.hashingStrategyEquals(UnifiedMapWithHashingStrategy.this.nonSentinel(cur), (K) key) && UnifiedMapWithHashingStrategy.nullSafeEquals(value, curValue);
+            return cur != null && UnifiedMapWithHashingStrategy.this.slotEquals(cur, (K) key, index, hashCode) && UnifiedMapWithHashingStrategy.nullSafeEquals(value, curValue);
         }
 
         private boolean chainContainsEntry(Object[] chain, K key, Object value)
@@ -1644,7 +1799,8 @@ public class UnifiedMapWithHashingStrategy<K, V> extends AbstractMutableMap<K, V
             Object key = entry.getKey();
             Object value = entry.getValue();
 
-            int index = UnifiedMapWithHashingStrategy.this.index((K) key);
+            int hashCode = UnifiedMapWithHashingStrategy.this.hashingStrategy.computeHashCode((K) key);
+            int index = UnifiedMapWithHashingStrategy.this.indexFor(hashCode);
 
             Object cur = UnifiedMapWithHashingStrategy.this.table[index];
             if (cur != null)
@@ -1654,7 +1810,7 @@ public class UnifiedMapWithHashingStrategy<K, V> extends AbstractMutableMap<K, V
                 {
                     return this.removeFromChain((Object[]) val, (K) key, value, index);
                 }
-                if (UnifiedMapWithHashingStrategy.this.hashingStrategyEquals(UnifiedMapWithHashingStrategy.this.nonSentinel(cur), (K) key) && UnifiedMapWithHashingStrategy.nullSafeEquals(value, val))
+                if (UnifiedMapWithHashingStrategy.this.slotEquals(cur, (K) key, index, hashCode) && UnifiedMapWithHashingStrategy.nullSafeEquals(value, val))
                 {
                     UnifiedMapWithHashingStrategy.this.table[index] = null;
                     UnifiedMapWithHashingStrategy.this.table[index + 1] = null;
@@ -1705,6 +1861,10 @@ public class UnifiedMapWithHashingStrategy<K, V> extends AbstractMutableMap<K, V
             int retainedSize = collection.size();
             UnifiedMapWithHashingStrategy<K, V> retainedCopy = new UnifiedMapWithHashingStrategy<K, V>(
                     UnifiedMapWithHashingStrategy.this.hashingStrategy, retainedSize, UnifiedMapWithHashingStrategy.this.loadFactor);
+            if (UnifiedMapWithHashingStrategy.this.hashes != null)
+            {
+                retainedCopy.cacheHashCodes();
+            }
 
             for (Object obj : collection)
             {
@@ -1722,6 +1882,7 @@ public class UnifiedMapWithHashingStrategy<K, V> extends AbstractMutableMap<K, V
                 UnifiedMapWithHashingStrategy.this.maxSize = retainedCopy.maxSize;
                 UnifiedMapWithHashingStrategy.this.occupied = retainedCopy.occupied;
                 UnifiedMapWithHashingStrategy.this.table = retainedCopy.table;
+                UnifiedMapWithHashingStrategy.this.hashes = retainedCopy.hashes;
                 return true;
             }
             return false;
@@ -2209,6 +2370,15 @@ public class UnifiedMapWithHashingStrategy<K, V> extends AbstractMutableMap<K, V
         }
     }
 
+    /**
+     * Compares a key with the key stored directly in a table slot, comparing cached hash codes first.
+     */
+    private boolean slotEquals(Object cur, K key, int index, int hashCode)
+    {
+        return (this.hashes == null || this.hashes[index >> 1] == hashCode)
+                && this.hashingStrategyEquals(this.nonSentinel(cur), key);
+    }
+
     private boolean hashingStrategyEquals(K key1, K key2)
     {
         return key1 == key2 || this.hashingStrategy.equals(key1, key2);
@@ -0,0 +1,250 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.metrics;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * AllocationSiteMetricsListener aggregates the growth events of collections per collection class and site, and can
+ * produce a report of the sites sorted by their number of events.  The site of an event is the first frame of the
+ * calling thread's stack that is not in one of the excluded packages, which by default are the library and the JDK,
+ * so it is the line of application code that caused the collection to grow.
+ * <p/>
+ * Finding the site takes a stack trace for every event, so this listener is meant for diagnosing where collections
+ * should be presized rather than for permanent use.  It only uses JDK collections itself, so that it does not report
+ * events caused by its own snapshots and reports.
+ *
+ * @since 1.1
+ */
+public final class AllocationSiteMetricsListener implements CollectionMetricsListener
+{
+    private static final String[] DEFAULT_EXCLUDED_PACKAGES = {"ponzu.", "java.", "javax.", "sun.", "jdk."};
+    private static final String UNKNOWN_SITE = "<unknown>";
+
+    private static final Comparator<Map.Entry<String, SiteStatistics>> BY_EVENT_COUNT_DESCENDING =
+            new Comparator<Map.Entry<String, SiteStatistics>>()
+            {
+                public int compare(Map.Entry<String, SiteStatistics> one, Map.Entry<String, SiteStatistics> two)
+                {
+                    long difference = two.getValue().getEventCount() - one.getValue().getEventCount();
+                    return difference == 0L ? one.getKey().compareTo(two.getKey()) : difference < 0L ? -1 : 1;
+                }
+            };
+
+    private final String[] excludedPackages;
+    private final ConcurrentMap<String, SiteStatistics> sites = new ConcurrentHashMap<String, SiteStatistics>();
+
+    public AllocationSiteMetricsListener()
+    {
+        this(DEFAULT_EXCLUDED_PACKAGES);
+    }
+
+    /**
+     * Creates a listener which skips the stack frames of classes whose names start with any of the specified package
+     * prefixes when it looks for the site of an event.
+     */
+    public AllocationSiteMetricsListener(String... excludedPackages)
+    {
+        this.excludedPackages = excludedPackages.clone();
+    }
+
+    public void resized(Object collection, int oldCapacity, int newCapacity)
+    {
+        SiteStatistics statistics = this.getStatistics(collection);
+        statistics.resizes.incrementAndGet();
+        statistics.updateMaxCapacity(newCapacity);
+    }
+
+    public void rehashed(Object collection, int oldCapacity, int newCapacity, int size)
+    {
+        SiteStatistics statistics = this.getStatistics(collection);
+        statistics.rehashes.incrementAndGet();
+        statistics.updateMaxCapacity(newCapacity);
+    }
+
+    public void chainCreated(Object collection)
+    {
+        this.getStatistics(collection).chains.incrementAndGet();
+    }
+
+    public void bulkCopied(Object collection, int elementCount)
+    {
+        SiteStatistics statistics = this.getStatistics(collection);
+        statistics.bulkCopies.incrementAndGet();
+        statistics.copiedElements.addAndGet(elementCount);
+    }
+
+    private SiteStatistics getStatistics(Object collection)
+    {
+        String key = collection.getClass().getName() + " at " + this.findSite();
+        SiteStatistics statistics = this.sites.get(key);
+        if (statistics == null)
+        {
+            SiteStatistics newStatistics = new SiteStatistics();
+            statistics = this.sites.putIfAbsent(key, newStatistics);
+            if (statistics == null)
+            {
+                statistics = newStatistics;
+            }
+        }
+        return statistics;
+    }
+
+    private String findSite()
+    {
+        for (StackTraceElement element : new Throwable().getStackTrace())
+        {
+            if (!this.isExcluded(element.getClassName()))
+            {
+                return element.toString();
+            }
+        }
+        return UNKNOWN_SITE;
+    }
+
+    private boolean isExcluded(String className)
+    {
+        if (className.equals(AllocationSiteMetricsListener.class.getName())
+                || className.equals(CollectionMetrics.class.getName()))
+        {
+            return true;
+        }
+        for (String excludedPackage : this.excludedPackages)
+        {
+            if (className.startsWith(excludedPackage))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns a snapshot of the statistics, keyed by the collection class name and the site.
+     */
+    public Map<String, SiteStatistics> getSites()
+    {
+        return new HashMap<String, SiteStatistics>(this.sites);
+    }
+
+    public void clear()
+    {
+        this.sites.clear();
+    }
+
+    /**
+     * Returns one line per collection class and site, with the sites which caused the most events first.
+     */
+    public String getReport()
+    {
+        List<Map.Entry<String, SiteStatistics>> entries =
+                new ArrayList<Map.Entry<String, SiteStatistics>>(this.sites.entrySet());
+        Collections.sort(entries, BY_EVENT_COUNT_DESCENDING);
+        StringBuilder builder = new StringBuilder("Collection growth by site:");
+        for (Map.Entry<String, SiteStatistics> entry : entries)
+        {
+            builder.append("\n  ").append(entry.getKey()).append(": ").append(entry.getValue());
+        }
+        return builder.toString();
+    }
+
+    public void printReport(PrintStream stream)
+    {
+        stream.println(this.getReport());
+    }
+
+    /**
+     * The counters of the events reported for one collection class at one site.
+     */
+    public static final class SiteStatistics
+    {
+        private final AtomicLong resizes = new AtomicLong();
+        private final AtomicLong rehashes = new AtomicLong();
+        private final AtomicLong chains = new AtomicLong();
+        private final AtomicLong bulkCopies = new AtomicLong();
+        private final AtomicLong copiedElements = new AtomicLong();
+        private final AtomicInteger maxCapacity = new AtomicInteger();
+
+        private void updateMaxCapacity(int capacity)
+        {
+            int current = this.maxCapacity.get();
+            while (capacity > current && !this.maxCapacity.compareAndSet(current, capacity))
+            {
+                current = this.maxCapacity.get();
+            }
+        }
+
+        public long getResizeCount()
+        {
+            return this.resizes.get();
+        }
+
+        public long getRehashCount()
+        {
+            return this.rehashes.get();
+        }
+
+        public long getChainCount()
+        {
+            return this.chains.get();
+        }
+
+        public long getBulkCopyCount()
+        {
+            return this.bulkCopies.get();
+        }
+
+        public long getCopiedElementCount()
+        {
+            return this.copiedElements.get();
+        }
+
+        /**
+         * Returns the largest capacity any collection at this site was resized or rehashed to.
+         */
+        public int getMaxCapacity()
+        {
+            return this.maxCapacity.get();
+        }
+
+        public long getEventCount()
+        {
+            return this.getResizeCount() + this.getRehashCount() + this.getChainCount() + this.getBulkCopyCount();
+        }
+
+        @Override
+        public String toString()
+        {
+            return "resizes=" + this.getResizeCount()
+                    + ", rehashes=" + this.getRehashCount()
+                    + ", chains=" + this.getChainCount()
+                    + ", bulkCopies=" + this.getBulkCopyCount()
+                    + ", copiedElements=" + this.getCopiedElementCount()
+                    + ", maxCapacity=" + this.getMaxCapacity();
+        }
+    }
+}
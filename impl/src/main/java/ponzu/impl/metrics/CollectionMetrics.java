@@ -0,0 +1,92 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.metrics;
+
+/**
+ * CollectionMetrics holds the CollectionMetricsListener which the core mutable collections report their growth events
+ * to.  No listener is installed by default, in which case each event costs a single volatile read.  Setting the system
+ * property {@code ponzu.impl.metrics} to {@code true} installs an {@link AllocationSiteMetricsListener} when this
+ * class is first used.
+ *
+ * @since 1.1
+ */
+public final class CollectionMetrics
+{
+    public static final String ENABLED_PROPERTY = "ponzu.impl.metrics";
+
+    private static volatile CollectionMetricsListener listener =
+            Boolean.getBoolean(ENABLED_PROPERTY) ? new AllocationSiteMetricsListener() : null;
+
+    private CollectionMetrics()
+    {
+        throw new AssertionError("Suppress default constructor for noninstantiability");
+    }
+
+    /**
+     * Installs the listener, or removes the current one when the listener is null.
+     */
+    public static void setListener(CollectionMetricsListener newListener)
+    {
+        CollectionMetrics.listener = newListener;
+    }
+
+    public static CollectionMetricsListener getListener()
+    {
+        return CollectionMetrics.listener;
+    }
+
+    public static boolean isEnabled()
+    {
+        return CollectionMetrics.listener != null;
+    }
+
+    public static void resized(Object collection, int oldCapacity, int newCapacity)
+    {
+        CollectionMetricsListener current = CollectionMetrics.listener;
+        if (current != null)
+        {
+            current.resized(collection, oldCapacity, newCapacity);
+        }
+    }
+
+    public static void rehashed(Object collection, int oldCapacity, int newCapacity, int size)
+    {
+        CollectionMetricsListener current = CollectionMetrics.listener;
+        if (current != null)
+        {
+            current.rehashed(collection, oldCapacity, newCapacity, size);
+        }
+    }
+
+    public static void chainCreated(Object collection)
+    {
+        CollectionMetricsListener current = CollectionMetrics.listener;
+        if (current != null)
+        {
+            current.chainCreated(collection);
+        }
+    }
+
+    public static void bulkCopied(Object collection, int elementCount)
+    {
+        CollectionMetricsListener current = CollectionMetrics.listener;
+        if (current != null)
+        {
+            current.bulkCopied(collection, elementCount);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.metrics;
+
+/**
+ * CollectionMetricsListener is notified of the growth events of the core mutable collections: array growth in
+ * FastList, rehashes and new collision chains in UnifiedMap and UnifiedSet, and bulk copies into any of them.  The
+ * collections report events only when a listener is installed with {@link CollectionMetrics#setListener}, and every
+ * event site lies off the per-element fast path, so no listener means no measurable cost.
+ * <p/>
+ * Events may be reported concurrently by different collections, and by one collection when it is filled in parallel,
+ * so implementations must be thread-safe.  The collection passed to each method is still being modified and should
+ * only be used for its class or identity.
+ *
+ * @since 1.1
+ */
+public interface CollectionMetricsListener
+{
+    /**
+     * Called when a list grows its backing array from oldCapacity to newCapacity.
+     */
+    void resized(Object collection, int oldCapacity, int newCapacity);
+
+    /**
+     * Called when a hash table is rehashed from oldCapacity to newCapacity while holding size elements.
+     */
+    void rehashed(Object collection, int oldCapacity, int newCapacity, int size);
+
+    /**
+     * Called when two elements first collide in a slot and a chain is created for them.
+     */
+    void chainCreated(Object collection);
+
+    /**
+     * Called when elementCount elements are added to a collection in a single bulk operation.
+     */
+    void bulkCopied(Object collection, int elementCount);
+}
@@ -0,0 +1,475 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.multimap;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
+import ponzu.api.RichIterable;
+import ponzu.api.bag.Bag;
+import ponzu.api.bag.MutableBag;
+import ponzu.api.block.procedure.Procedure;
+import ponzu.api.block.procedure.Procedure2;
+import ponzu.api.collection.MutableCollection;
+import ponzu.api.map.MutableMap;
+import ponzu.api.multimap.Multimap;
+import ponzu.api.multimap.MutableMultimap;
+import ponzu.api.tuple.Pair;
+import ponzu.impl.block.factory.Comparators;
+import ponzu.impl.block.procedure.checked.MultimapKeyValuesSerializingProcedure;
+import ponzu.impl.factory.Bags;
+import ponzu.impl.map.mutable.UnifiedMap;
+
+/**
+ * AbstractCompactMultimap is the base for multimaps which store a key with a single value directly in the value slot
+ * of the backing UnifiedMap.  A collection is only created for a key when a second value is added, and a key is
+ * returned to the single value form when all but one of its values are removed.  This saves a collection and its
+ * backing array for every single-valued key.
+ * <p/>
+ * The collections created for multi-valued keys must be recognised by {@link #isCollection(Object)}, so subclasses
+ * use a private collection type that can never be a value of the multimap.
+ */
+public abstract class AbstractCompactMultimap<K, V, C extends MutableCollection<V>>
+        extends AbstractMultimap<K, V, C>
+        implements MutableMultimap<K, V>, Externalizable
+{
+    private static final long serialVersionUID = 1L;
+
+    private static final Object NULL_VALUE = new Object();
+
+    private UnifiedMap<K, Object> map;
+
+    private int totalSize;
+
+    protected AbstractCompactMultimap()
+    {
+        this.map = UnifiedMap.newMap();
+    }
+
+    protected AbstractCompactMultimap(int keyCount)
+    {
+        this.map = UnifiedMap.newMap(keyCount);
+    }
+
+    /**
+     * Returns true if the value stored in the backing map is a collection of values created by
+     * {@link #createCollection()} rather than a single value.
+     */
+    protected abstract boolean isCollection(Object mapValue);
+
+    /**
+     * Returns the number of JVM words used by a collection created by {@link #createCollection()}, including its
+     * object header and fields.
+     */
+    protected abstract int getCollectionMemoryUsedInWords(C collection);
+
+    private static Object maskNull(Object value)
+    {
+        return value == null ? NULL_VALUE : value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> V unmaskNull(Object value)
+    {
+        return value == NULL_VALUE ? null : (V) value;
+    }
+
+    private C toCollection(Object mapValue)
+    {
+        if (this.isCollection(mapValue))
+        {
+            return this.castToCollection(mapValue);
+        }
+        C collection = this.createCollection();
+        collection.add(AbstractCompactMultimap.<V>unmaskNull(mapValue));
+        return collection;
+    }
+
+    @SuppressWarnings("unchecked")
+    private C castToCollection(Object mapValue)
+    {
+        return (C) mapValue;
+    }
+
+    @SuppressWarnings("unchecked")
+    private C unmodifiable(C collection)
+    {
+        return (C) collection.asUnmodifiable();
+    }
+
+    /**
+     * Returns a copy of the mapping from each key to a collection of its values.
+     */
+    @Override
+    protected MutableMap<K, C> getMap()
+    {
+        final MutableMap<K, C> result = UnifiedMap.newMap(this.map.size());
+        this.map.forEachKeyValue(new Procedure2<K, Object>()
+        {
+            public void value(K key, Object mapValue)
+            {
+                result.put(key, AbstractCompactMultimap.this.toCollection(mapValue));
+            }
+        });
+        return result;
+    }
+
+    // Query Operations
+
+    public int size()
+    {
+        return this.totalSize;
+    }
+
+    public int sizeDistinct()
+    {
+        return this.map.size();
+    }
+
+    public boolean isEmpty()
+    {
+        return this.totalSize == 0;
+    }
+
+    /**
+     * Returns the number of JVM words used by this multimap, not counting its keys and values.  This is the memory used
+     * by the backing map, as reported by {@link UnifiedMap#getMapMemoryUsedInWords()}, and by the collection of each
+     * multi-valued key, as reported by {@link #getCollectionMemoryUsedInWords(MutableCollection)}.
+     *
+     * @since 1.1
+     */
+    public int getMultimapMemoryUsedInWords()
+    {
+        int sizeInWords = this.map.getMapMemoryUsedInWords();
+        for (Object mapValue : this.map.values())
+        {
+            if (this.isCollection(mapValue))
+            {
+                sizeInWords += this.getCollectionMemoryUsedInWords(this.castToCollection(mapValue));
+            }
+        }
+        return sizeInWords;
+    }
+
+    /**
+     * Returns the JVM words used per key and value pair, as reported by {@link #getMultimapMemoryUsedInWords()}, or 0
+     * if the multimap is empty.
+     *
+     * @since 1.1
+     */
+    public double getMemoryUsedInWordsPerEntry()
+    {
+        if (this.totalSize == 0)
+        {
+            return 0.0;
+        }
+        return (double) this.getMultimapMemoryUsedInWords() / this.totalSize;
+    }
+
+    /**
+     * Returns the number of keys which have exactly one value, and so are stored without a collection.
+     */
+    public int sizeSingleValued()
+    {
+        int count = 0;
+        for (Object mapValue : this.map.values())
+        {
+            if (!this.isCollection(mapValue))
+            {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public boolean containsKey(Object key)
+    {
+        return this.map.containsKey(key);
+    }
+
+    @Override
+    public boolean containsValue(Object value)
+    {
+        for (Object mapValue : this.map.values())
+        {
+            if (this.mapValueContains(mapValue, value))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean containsKeyAndValue(Object key, Object value)
+    {
+        Object mapValue = this.map.get(key);
+        return mapValue != null && this.mapValueContains(mapValue, value);
+    }
+
+    private boolean mapValueContains(Object mapValue, Object value)
+    {
+        if (this.isCollection(mapValue))
+        {
+            return this.castToCollection(mapValue).contains(value);
+        }
+        return Comparators.nullSafeEquals(AbstractCompactMultimap.unmaskNull(mapValue), value);
+    }
+
+    // Modification Operations
+
+    public boolean put(K key, V value)
+    {
+        Object mapValue = this.map.get(key);
+        if (mapValue == null)
+        {
+            this.map.put(key, AbstractCompactMultimap.maskNull(value));
+            this.totalSize++;
+            return true;
+        }
+        if (this.isCollection(mapValue))
+        {
+            if (this.castToCollection(mapValue).add(value))
+            {
+                this.totalSize++;
+                return true;
+            }
+            return false;
+        }
+        C collection = this.toCollection(mapValue);
+        if (collection.add(value))
+        {
+            this.map.put(key, collection);
+            this.totalSize++;
+            return true;
+        }
+        return false;
+    }
+
+    @SuppressWarnings("unchecked")
+    public boolean remove(Object key, Object value)
+    {
+        Object mapValue = this.map.get(key);
+        if (mapValue == null)
+        {
+            return false;
+        }
+        if (!this.isCollection(mapValue))
+        {
+            if (Comparators.nullSafeEquals(AbstractCompactMultimap.unmaskNull(mapValue), value))
+            {
+                this.map.remove(key);
+                this.totalSize--;
+                return true;
+            }
+            return false;
+        }
+        C collection = this.castToCollection(mapValue);
+        if (!collection.remove(value))
+        {
+            return false;
+        }
+        this.totalSize--;
+        if (collection.size() == 1)
+        {
+            this.map.put((K) key, AbstractCompactMultimap.maskNull(collection.iterator().next()));
+        }
+        return true;
+    }
+
+    // Bulk Operations
+
+    @SuppressWarnings("unchecked")
+    public boolean putAllPairs(Pair<K, V>... pairs)
+    {
+        boolean changed = false;
+        for (Pair<K, V> pair : pairs)
+        {
+            changed |= this.put(pair.getOne(), pair.getTwo());
+        }
+        return changed;
+    }
+
+    public boolean putAll(K key, Iterable<? extends V> values)
+    {
+        boolean changed = false;
+        for (V value : values)
+        {
+            changed |= this.put(key, value);
+        }
+        return changed;
+    }
+
+    public <KK extends K, VV extends V> boolean putAll(Multimap<KK, VV> multimap)
+    {
+        class PutProcedure implements Procedure<Pair<KK, RichIterable<VV>>>
+        {
+            private static final long serialVersionUID = 1L;
+            private boolean changed;
+
+            public void value(Pair<KK, RichIterable<VV>> each)
+            {
+                this.changed |= AbstractCompactMultimap.this.putAll(each.getOne(), each.getTwo());
+            }
+        }
+
+        PutProcedure putProcedure = new PutProcedure();
+        multimap.keyMultiValuePairsView().forEach(putProcedure);
+        return putProcedure.changed;
+    }
+
+    public C replaceValues(K key, Iterable<? extends V> values)
+    {
+        C oldValues = this.removeAll(key);
+        this.putAll(key, values);
+        return oldValues;
+    }
+
+    public C removeAll(Object key)
+    {
+        Object mapValue = this.map.remove(key);
+        if (mapValue == null)
+        {
+            return this.unmodifiable(this.createCollection());
+        }
+        C collection = this.toCollection(mapValue);
+        this.totalSize -= collection.size();
+        return this.unmodifiable(collection);
+    }
+
+    public void clear()
+    {
+        this.map.clear();
+        this.totalSize = 0;
+    }
+
+    // Views
+
+    /**
+     * Returns an unmodifiable collection of the values for the specified key.  Because keys move between the single
+     * value and collection forms, the result is not guaranteed to reflect later changes to the multimap.
+     */
+    public C get(K key)
+    {
+        Object mapValue = this.map.get(key);
+        C collection = mapValue == null ? this.createCollection() : this.toCollection(mapValue);
+        return this.unmodifiable(collection);
+    }
+
+    @Override
+    public RichIterable<K> keysView()
+    {
+        return this.map.keysView();
+    }
+
+    @Override
+    public Bag<K> keyBag()
+    {
+        final MutableBag<K> bag = Bags.mutable.of();
+        this.map.forEachKeyValue(new Procedure2<K, Object>()
+        {
+            public void value(K key, Object mapValue)
+            {
+                bag.addOccurrences(key, AbstractCompactMultimap.this.isCollection(mapValue) ? AbstractCompactMultimap.this.castToCollection(mapValue).size() : 1);
+            }
+        });
+        return bag;
+    }
+
+    @SuppressWarnings("unchecked")
+    public MutableMap<K, RichIterable<V>> toMap()
+    {
+        return (MutableMap<K, RichIterable<V>>) (MutableMap<?, ?>) this.getMap();
+    }
+
+    @Override
+    public void forEachValue(final Procedure<? super V> procedure)
+    {
+        this.map.forEachValue(new Procedure<Object>()
+        {
+            public void value(Object mapValue)
+            {
+                if (AbstractCompactMultimap.this.isCollection(mapValue))
+                {
+                    AbstractCompactMultimap.this.castToCollection(mapValue).forEach(procedure);
+                }
+                else
+                {
+                    procedure.value(AbstractCompactMultimap.<V>unmaskNull(mapValue));
+                }
+            }
+        });
+    }
+
+    @Override
+    public void forEachKey(Procedure<? super K> procedure)
+    {
+        this.map.forEachKey(procedure);
+    }
+
+    @Override
+    public void forEachKeyValue(final Procedure2<K, V> procedure)
+    {
+        final Procedure2<V, K> innerProcedure = new Procedure2<V, K>()
+        {
+            public void value(V value, K key)
+            {
+                procedure.value(key, value);
+            }
+        };
+
+        this.map.forEachKeyValue(new Procedure2<K, Object>()
+        {
+            public void value(K key, Object mapValue)
+            {
+                if (AbstractCompactMultimap.this.isCollection(mapValue))
+                {
+                    AbstractCompactMultimap.this.castToCollection(mapValue).forEachWith(innerProcedure, key);
+                }
+                else
+                {
+                    procedure.value(key, AbstractCompactMultimap.<V>unmaskNull(mapValue));
+                }
+            }
+        });
+    }
+
+    public void writeExternal(ObjectOutput out) throws IOException
+    {
+        out.writeInt(this.map.size());
+        this.getMap().forEachKeyValue(new MultimapKeyValuesSerializingProcedure<K, V>(out));
+    }
+
+    @SuppressWarnings("unchecked")
+    public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException
+    {
+        int keyCount = in.readInt();
+        this.map = UnifiedMap.newMap(keyCount);
+        for (int k = 0; k < keyCount; k++)
+        {
+            K key = (K) in.readObject();
+            int valuesSize = in.readInt();
+            for (int v = 0; v < valuesSize; v++)
+            {
+                this.put(key, (V) in.readObject());
+            }
+        }
+    }
+}
@@ -0,0 +1,579 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.multimap;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+import ponzu.api.RichIterable;
+import ponzu.api.block.procedure.Procedure;
+import ponzu.api.block.procedure.Procedure2;
+import ponzu.api.block.procedure.primitive.IntProcedure;
+import ponzu.api.collection.MutableCollection;
+import ponzu.api.map.MutableMap;
+import ponzu.api.multimap.Multimap;
+import ponzu.api.multimap.MutableMultimap;
+import ponzu.api.tuple.Pair;
+import ponzu.impl.block.factory.Comparators;
+import ponzu.impl.block.procedure.checked.MultimapKeyValuesSerializingProcedure;
+import ponzu.impl.list.mutable.FastList;
+import ponzu.impl.map.mutable.ConcurrentMutableHashMap;
+import ponzu.impl.map.mutable.UnifiedMap;
+import ponzu.impl.parallel.ParallelIterate;
+import ponzu.impl.parallel.SectionTaskRunner;
+import ponzu.impl.utility.Iterate;
+
+/**
+ * AbstractConcurrentMultimap is the base for multimaps which are safe for concurrent reads and writes without
+ * locking.  The values for each key are held in an append-only chain of immutable nodes, and a put is a single
+ * compare-and-set on the head of the chain for that key.  Readers take the current head as a snapshot, so
+ * {@link #get(Object)} returns a consistent copy and iteration never blocks or is blocked by writers.
+ * <p/>
+ * Removals replace the chain for a key with a copy, so this class is best suited to workloads that are dominated by
+ * puts and reads.  Null keys are not supported.
+ */
+public abstract class AbstractConcurrentMultimap<K, V, C extends MutableCollection<V>>
+        extends AbstractMultimap<K, V, C>
+        implements MutableMultimap<K, V>, Externalizable
+{
+    private static final long serialVersionUID = 1L;
+
+    private final ConcurrentMutableHashMap<K, AppendOnlyValues<V>> map;
+    private final AtomicInteger atomicTotalSize = new AtomicInteger(0);
+
+    protected AbstractConcurrentMultimap()
+    {
+        this.map = ConcurrentMutableHashMap.newMap();
+    }
+
+    protected AbstractConcurrentMultimap(int initialCapacity, float loadFactor, int concurrencyLevel)
+    {
+        this.map = ConcurrentMutableHashMap.newMap(initialCapacity, loadFactor, concurrencyLevel);
+    }
+
+    /**
+     * Returns a snapshot of the current mapping from each key to a newly created collection of its values.
+     */
+    @Override
+    protected MutableMap<K, C> getMap()
+    {
+        final MutableMap<K, C> snapshot = UnifiedMap.newMap(this.map.size());
+        this.map.forEachKeyValue(new Procedure2<K, AppendOnlyValues<V>>()
+        {
+            public void value(K key, AppendOnlyValues<V> values)
+            {
+                Node<V> head = values.head;
+                if (head != null && head != AppendOnlyValues.DETACHED)
+                {
+                    snapshot.put(key, AbstractConcurrentMultimap.this.toCollection(head));
+                }
+            }
+        });
+        return snapshot;
+    }
+
+    private C toCollection(Node<V> head)
+    {
+        C collection = this.createCollection();
+        for (V value : AbstractConcurrentMultimap.toArray(head))
+        {
+            collection.add(value);
+        }
+        return collection;
+    }
+
+    /**
+     * Returns the values in the chain ending at head in the order in which they were added.
+     */
+    @SuppressWarnings("unchecked")
+    private static <V> V[] toArray(Node<V> head)
+    {
+        if (head == null || head == AppendOnlyValues.DETACHED)
+        {
+            return (V[]) new Object[0];
+        }
+        V[] result = (V[]) new Object[head.size];
+        Node<V> node = head;
+        for (int i = result.length - 1; i >= 0; i--)
+        {
+            result[i] = node.value;
+            node = node.previous;
+        }
+        return result;
+    }
+
+    // Query Operations
+
+    public int size()
+    {
+        return this.atomicTotalSize.get();
+    }
+
+    public int sizeDistinct()
+    {
+        return this.map.size();
+    }
+
+    public boolean isEmpty()
+    {
+        return this.size() == 0;
+    }
+
+    @Override
+    public boolean containsKey(Object key)
+    {
+        AppendOnlyValues<V> values = this.map.get(key);
+        return values != null && values.notEmpty();
+    }
+
+    @Override
+    public boolean containsValue(Object value)
+    {
+        for (AppendOnlyValues<V> values : this.map.values())
+        {
+            if (values.contains(value))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean containsKeyAndValue(Object key, Object value)
+    {
+        AppendOnlyValues<V> values = this.map.get(key);
+        return values != null && values.contains(value);
+    }
+
+    // Modification Operations
+
+    public boolean put(K key, V value)
+    {
+        while (true)
+        {
+            AppendOnlyValues<V> values = this.getIfAbsentPutValues(key);
+            Node<V> head = values.head;
+            if (head == AppendOnlyValues.DETACHED)
+            {
+                this.map.remove(key, values);
+            }
+            else if (values.compareAndSetHead(head, new Node<V>(value, head)))
+            {
+                this.atomicTotalSize.incrementAndGet();
+                return true;
+            }
+        }
+    }
+
+    private AppendOnlyValues<V> getIfAbsentPutValues(K key)
+    {
+        AppendOnlyValues<V> values = this.map.get(key);
+        if (values == null)
+        {
+            AppendOnlyValues<V> newValues = new AppendOnlyValues<V>();
+            values = this.map.putIfAbsent(key, newValues);
+            if (values == null)
+            {
+                values = newValues;
+            }
+        }
+        return values;
+    }
+
+    public boolean remove(Object key, Object value)
+    {
+        AppendOnlyValues<V> values = this.map.get(key);
+        if (values == null)
+        {
+            return false;
+        }
+        while (true)
+        {
+            Node<V> head = values.head;
+            V[] array = AbstractConcurrentMultimap.toArray(head);
+            int index = AbstractConcurrentMultimap.indexOf(array, value);
+            if (index == -1)
+            {
+                return false;
+            }
+            if (array.length == 1)
+            {
+                if (values.compareAndSetHead(head, AppendOnlyValues.<V>detached()))
+                {
+                    this.map.remove(key, values);
+                    this.atomicTotalSize.decrementAndGet();
+                    return true;
+                }
+            }
+            else if (values.compareAndSetHead(head, AbstractConcurrentMultimap.without(head, array, index)))
+            {
+                this.atomicTotalSize.decrementAndGet();
+                return true;
+            }
+        }
+    }
+
+    private static int indexOf(Object[] array, Object value)
+    {
+        for (int i = 0; i < array.length; i++)
+        {
+            if (Comparators.nullSafeEquals(array[i], value))
+            {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns a chain without the value at index, sharing the nodes which were added before it.
+     */
+    private static <V> Node<V> without(Node<V> head, V[] array, int index)
+    {
+        Node<V> shared = head;
+        for (int i = array.length - 1; i >= index; i--)
+        {
+            shared = shared.previous;
+        }
+        Node<V> result = shared;
+        for (int i = index + 1; i < array.length; i++)
+        {
+            result = new Node<V>(array[i], result);
+        }
+        return result;
+    }
+
+    // Bulk Operations
+
+    @SuppressWarnings("unchecked")
+    public boolean putAllPairs(Pair<K, V>... pairs)
+    {
+        boolean changed = false;
+        for (Pair<K, V> pair : pairs)
+        {
+            changed |= this.put(pair.getOne(), pair.getTwo());
+        }
+        return changed;
+    }
+
+    /**
+     * Adds all of the values to the specified key with a single compare-and-set, so that readers see either none
+     * or all of them.
+     */
+    public boolean putAll(K key, Iterable<? extends V> values)
+    {
+        if (Iterate.isEmpty(values))
+        {
+            return false;
+        }
+        FastList<V> newValues = Iterate.addAllTo(values, FastList.<V>newList());
+        while (true)
+        {
+            AppendOnlyValues<V> existing = this.getIfAbsentPutValues(key);
+            Node<V> head = existing.head;
+            if (head == AppendOnlyValues.DETACHED)
+            {
+                this.map.remove(key, existing);
+            }
+            else if (existing.compareAndSetHead(head, AbstractConcurrentMultimap.append(head, newValues)))
+            {
+                this.atomicTotalSize.addAndGet(newValues.size());
+                return true;
+            }
+        }
+    }
+
+    private static <V> Node<V> append(Node<V> head, FastList<V> values)
+    {
+        Node<V> result = head;
+        for (int i = 0; i < values.size(); i++)
+        {
+            result = new Node<V>(values.get(i), result);
+        }
+        return result;
+    }
+
+    public <KK extends K, VV extends V> boolean putAll(Multimap<KK, VV> multimap)
+    {
+        class PutProcedure implements Procedure<Pair<KK, RichIterable<VV>>>
+        {
+            private static final long serialVersionUID = 1L;
+            private boolean changed;
+
+            public void value(Pair<KK, RichIterable<VV>> each)
+            {
+                this.changed |= AbstractConcurrentMultimap.this.putAll(each.getOne(), each.getTwo());
+            }
+        }
+
+        PutProcedure putProcedure = new PutProcedure();
+        multimap.keyMultiValuePairsView().forEach(putProcedure);
+        return putProcedure.changed;
+    }
+
+    public C replaceValues(K key, Iterable<? extends V> values)
+    {
+        if (Iterate.isEmpty(values))
+        {
+            return this.removeAll(key);
+        }
+        FastList<V> newValues = Iterate.addAllTo(values, FastList.<V>newList());
+        AppendOnlyValues<V> replacement = new AppendOnlyValues<V>();
+        replacement.head = AbstractConcurrentMultimap.append(null, newValues);
+        this.atomicTotalSize.addAndGet(newValues.size());
+        AppendOnlyValues<V> oldValues = this.map.put(key, replacement);
+        return this.detach(oldValues);
+    }
+
+    public C removeAll(Object key)
+    {
+        return this.detach(this.map.remove(key));
+    }
+
+    /**
+     * Marks the values as removed so that concurrent puts retry against the current mapping, and returns the values
+     * which were present.
+     */
+    private C detach(AppendOnlyValues<V> values)
+    {
+        if (values == null)
+        {
+            return this.unmodifiable(this.createCollection());
+        }
+        Node<V> head = values.detach();
+        if (head == null || head == AppendOnlyValues.DETACHED)
+        {
+            return this.unmodifiable(this.createCollection());
+        }
+        this.atomicTotalSize.addAndGet(-head.size);
+        return this.unmodifiable(this.toCollection(head));
+    }
+
+    public void clear()
+    {
+        for (K key : this.map.keySet())
+        {
+            this.removeAll(key);
+        }
+    }
+
+    // Views
+
+    /**
+     * Returns an unmodifiable snapshot of the values for the specified key.  Later puts are not reflected in the
+     * returned collection.
+     */
+    public C get(K key)
+    {
+        AppendOnlyValues<V> values = this.map.get(key);
+        C collection = values == null ? this.createCollection() : this.toCollection(values.head);
+        return this.unmodifiable(collection);
+    }
+
+    @SuppressWarnings("unchecked")
+    private C unmodifiable(C collection)
+    {
+        return (C) collection.asUnmodifiable();
+    }
+
+    @SuppressWarnings("unchecked")
+    public MutableMap<K, RichIterable<V>> toMap()
+    {
+        return (MutableMap<K, RichIterable<V>>) (MutableMap<?, ?>) this.getMap();
+    }
+
+    @Override
+    public void forEachValue(Procedure<? super V> procedure)
+    {
+        for (AppendOnlyValues<V> values : this.map.values())
+        {
+            for (V value : AbstractConcurrentMultimap.toArray(values.head))
+            {
+                procedure.value(value);
+            }
+        }
+    }
+
+    @Override
+    public void forEachKey(Procedure<? super K> procedure)
+    {
+        for (Map.Entry<K, AppendOnlyValues<V>> entry : this.map.entrySet())
+        {
+            if (entry.getValue().notEmpty())
+            {
+                procedure.value(entry.getKey());
+            }
+        }
+    }
+
+    /**
+     * Iterates over a snapshot of the values for each key.  Writers are never blocked by the iteration, and values
+     * added to a key after it has been visited are not reported.
+     */
+    @Override
+    public void forEachKeyValue(Procedure2<K, V> procedure)
+    {
+        for (Map.Entry<K, AppendOnlyValues<V>> entry : this.map.entrySet())
+        {
+            K key = entry.getKey();
+            for (V value : AbstractConcurrentMultimap.toArray(entry.getValue().head))
+            {
+                procedure.value(key, value);
+            }
+        }
+    }
+
+    /**
+     * Iterates over a snapshot of the values for each key in parallel on the specified executor.  The keys are split
+     * into {@link ParallelIterate#getDefaultTaskCount()} sections, and writers are never blocked by the iteration.
+     * The procedure must be safe to call from multiple threads.
+     */
+    public void forEachKeyValue(final Procedure2<K, V> procedure, Executor executor)
+    {
+        final FastList<Map.Entry<K, AppendOnlyValues<V>>> entries = FastList.newList(this.map.entrySet());
+        if (entries.isEmpty())
+        {
+            return;
+        }
+        final int sectionCount = Math.min(entries.size(), ParallelIterate.getDefaultTaskCount());
+        new SectionTaskRunner(sectionCount).execute(new IntProcedure()
+        {
+            public void value(int sectionIndex)
+            {
+                int sectionSize = entries.size() / sectionCount;
+                int start = sectionSize * sectionIndex;
+                int end = sectionIndex == sectionCount - 1 ? entries.size() : start + sectionSize;
+                for (int i = start; i < end; i++)
+                {
+                    Map.Entry<K, AppendOnlyValues<V>> entry = entries.get(i);
+                    K key = entry.getKey();
+                    for (V value : AbstractConcurrentMultimap.toArray(entry.getValue().head))
+                    {
+                        procedure.value(key, value);
+                    }
+                }
+            }
+        }, executor);
+    }
+
+    public void writeExternal(ObjectOutput out) throws IOException
+    {
+        MutableMap<K, C> snapshot = this.getMap();
+        out.writeInt(snapshot.size());
+        snapshot.forEachKeyValue(new MultimapKeyValuesSerializingProcedure<K, V>(out));
+    }
+
+    @SuppressWarnings("unchecked")
+    public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException
+    {
+        int keyCount = in.readInt();
+        for (int k = 0; k < keyCount; k++)
+        {
+            K key = (K) in.readObject();
+            int valuesSize = in.readInt();
+            FastList<V> values = FastList.newList(valuesSize);
+            for (int v = 0; v < valuesSize; v++)
+            {
+                values.add((V) in.readObject());
+            }
+            this.putAll(key, values);
+        }
+    }
+
+    private static final class Node<V>
+    {
+        private final V value;
+        private final Node<V> previous;
+        private final int size;
+
+        private Node(V value, Node<V> previous)
+        {
+            this(value, previous, previous == null ? 1 : previous.size + 1);
+        }
+
+        private Node(V value, Node<V> previous, int size)
+        {
+            this.value = value;
+            this.previous = previous;
+            this.size = size;
+        }
+    }
+
+    private static final class AppendOnlyValues<V>
+    {
+        private static final Node<?> DETACHED = new Node<Object>(null, null, 0);
+        private static final AtomicReferenceFieldUpdater<AppendOnlyValues<?>, Node<?>> HEAD_UPDATER =
+                AppendOnlyValues.newHeadUpdater();
+
+        private volatile Node<V> head;
+
+        @SuppressWarnings("unchecked")
+        private static AtomicReferenceFieldUpdater<AppendOnlyValues<?>, Node<?>> newHeadUpdater()
+        {
+            AtomicReferenceFieldUpdater<?, ?> updater =
+                    AtomicReferenceFieldUpdater.newUpdater(AppendOnlyValues.class, Node.class, "head");
+            return (AtomicReferenceFieldUpdater<AppendOnlyValues<?>, Node<?>>) updater;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <V> Node<V> detached()
+        {
+            return (Node<V>) DETACHED;
+        }
+
+        private boolean compareAndSetHead(Node<V> expect, Node<V> update)
+        {
+            return HEAD_UPDATER.compareAndSet(this, expect, update);
+        }
+
+        @SuppressWarnings("unchecked")
+        private Node<V> detach()
+        {
+            return (Node<V>) HEAD_UPDATER.getAndSet(this, DETACHED);
+        }
+
+        private boolean notEmpty()
+        {
+            Node<V> current = this.head;
+            return current != null && current != DETACHED;
+        }
+
+        private boolean contains(Object value)
+        {
+            Node<V> current = this.head;
+            if (current == DETACHED)
+            {
+                return false;
+            }
+            for (Node<V> node = current; node != null; node = node.previous)
+            {
+                if (Comparators.nullSafeEquals(node.value, value))
+                {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
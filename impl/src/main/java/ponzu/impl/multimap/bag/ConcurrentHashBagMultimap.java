@@ -0,0 +1,115 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.multimap.bag;
+
+import ponzu.api.bag.ImmutableBag;
+import ponzu.api.bag.MutableBag;
+import ponzu.api.block.procedure.Procedure2;
+import ponzu.api.map.MutableMap;
+import ponzu.api.multimap.Multimap;
+import ponzu.api.multimap.bag.ImmutableBagMultimap;
+import ponzu.api.multimap.bag.MutableBagMultimap;
+import ponzu.api.tuple.Pair;
+import ponzu.impl.bag.mutable.HashBag;
+import ponzu.impl.map.mutable.UnifiedMap;
+import ponzu.impl.multimap.AbstractConcurrentMultimap;
+
+/**
+ * A Multimap that is safe for concurrent reads and writes.  Puts are lock-free appends, and {@link #get(Object)}
+ * returns a snapshot of the values for a key.
+ *
+ * @see AbstractConcurrentMultimap
+ * @since 1.1
+ */
+public final class ConcurrentHashBagMultimap<K, V>
+        extends AbstractConcurrentMultimap<K, V, MutableBag<V>>
+        implements MutableBagMultimap<K, V>
+{
+    private static final long serialVersionUID = 1L;
+
+    public ConcurrentHashBagMultimap()
+    {
+    }
+
+    public ConcurrentHashBagMultimap(int initialCapacity, float loadFactor, int concurrencyLevel)
+    {
+        super(initialCapacity, loadFactor, concurrencyLevel);
+    }
+
+    public ConcurrentHashBagMultimap(Multimap<? extends K, ? extends V> multimap)
+    {
+        this.putAll(multimap);
+    }
+
+    @SuppressWarnings("unchecked")
+    public ConcurrentHashBagMultimap(Pair<K, V>... pairs)
+    {
+        this.putAllPairs(pairs);
+    }
+
+    @Override
+    protected MutableBag<V> createCollection()
+    {
+        return HashBag.newBag();
+    }
+
+    public static <K, V> ConcurrentHashBagMultimap<K, V> newMultimap()
+    {
+        return new ConcurrentHashBagMultimap<K, V>();
+    }
+
+    public static <K, V> ConcurrentHashBagMultimap<K, V> newMultimap(int initialCapacity, float loadFactor, int concurrencyLevel)
+    {
+        return new ConcurrentHashBagMultimap<K, V>(initialCapacity, loadFactor, concurrencyLevel);
+    }
+
+    public static <K, V> ConcurrentHashBagMultimap<K, V> newMultimap(Multimap<? extends K, ? extends V> multimap)
+    {
+        return new ConcurrentHashBagMultimap<K, V>(multimap);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <K, V> ConcurrentHashBagMultimap<K, V> newMultimap(Pair<K, V>... pairs)
+    {
+        return new ConcurrentHashBagMultimap<K, V>(pairs);
+    }
+
+    public ConcurrentHashBagMultimap<K, V> newEmpty()
+    {
+        return new ConcurrentHashBagMultimap<K, V>();
+    }
+
+    public MutableBagMultimap<K, V> toMutable()
+    {
+        return new ConcurrentHashBagMultimap<K, V>(this);
+    }
+
+    public ImmutableBagMultimap<K, V> toImmutable()
+    {
+        final MutableMap<K, ImmutableBag<V>> map = UnifiedMap.newMap();
+
+        this.getMap().forEachKeyValue(new Procedure2<K, MutableBag<V>>()
+        {
+            public void value(K key, MutableBag<V> bag)
+            {
+                map.put(key, bag.toImmutable());
+            }
+        });
+
+        return new ImmutableBagMultimapImpl<K, V>(map);
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.multimap.list;
+
+import ponzu.api.block.procedure.Procedure2;
+import ponzu.api.list.ImmutableList;
+import ponzu.api.list.MutableList;
+import ponzu.api.map.MutableMap;
+import ponzu.api.multimap.Multimap;
+import ponzu.api.multimap.list.ImmutableListMultimap;
+import ponzu.api.multimap.list.MutableListMultimap;
+import ponzu.api.tuple.Pair;
+import ponzu.impl.list.mutable.FastList;
+import ponzu.impl.map.mutable.UnifiedMap;
+import ponzu.impl.multimap.AbstractCompactMultimap;
+
+/**
+ * A list multimap which stores the value of a single-valued key directly in the backing UnifiedMap, and only creates
+ * a FastList for a key when it has more than one value.  It uses less memory than {@link FastListMultimap} when most
+ * keys have a single value.
+ *
+ * @see AbstractCompactMultimap
+ * @since 1.1
+ */
+public final class CompactFastListMultimap<K, V>
+        extends AbstractCompactMultimap<K, V, MutableList<V>>
+        implements MutableListMultimap<K, V>
+{
+    private static final long serialVersionUID = 1L;
+
+    public CompactFastListMultimap()
+    {
+    }
+
+    public CompactFastListMultimap(int keyCount)
+    {
+        super(keyCount);
+    }
+
+    public CompactFastListMultimap(Multimap<? extends K, ? extends V> multimap)
+    {
+        super(Math.max(multimap.sizeDistinct() * 2, 16));
+        this.putAll(multimap);
+    }
+
+    @SuppressWarnings("unchecked")
+    public CompactFastListMultimap(Pair<K, V>... pairs)
+    {
+        super(pairs.length);
+        this.putAllPairs(pairs);
+    }
+
+    public static <K, V> CompactFastListMultimap<K, V> newMultimap()
+    {
+        return new CompactFastListMultimap<K, V>();
+    }
+
+    public static <K, V> CompactFastListMultimap<K, V> newMultimap(Multimap<? extends K, ? extends V> multimap)
+    {
+        return new CompactFastListMultimap<K, V>(multimap);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <K, V> CompactFastListMultimap<K, V> newMultimap(Pair<K, V>... pairs)
+    {
+        return new CompactFastListMultimap<K, V>(pairs);
+    }
+
+    @Override
+    protected MutableList<V> createCollection()
+    {
+        return new Values<V>();
+    }
+
+    @Override
+    protected boolean isCollection(Object mapValue)
+    {
+        return mapValue instanceof Values;
+    }
+
+    @Override
+    protected int getCollectionMemoryUsedInWords(MutableList<V> collection)
+    {
+        return ((Values<V>) collection).getMemoryUsedInWords();
+    }
+
+    public CompactFastListMultimap<K, V> newEmpty()
+    {
+        return new CompactFastListMultimap<K, V>();
+    }
+
+    public MutableListMultimap<K, V> toMutable()
+    {
+        return new CompactFastListMultimap<K, V>(this);
+    }
+
+    public ImmutableListMultimap<K, V> toImmutable()
+    {
+        final MutableMap<K, ImmutableList<V>> map = UnifiedMap.newMap();
+
+        this.getMap().forEachKeyValue(new Procedure2<K, MutableList<V>>()
+        {
+            public void value(K key, MutableList<V> list)
+            {
+                map.put(key, list.toImmutable());
+            }
+        });
+
+        return new ImmutableListMultimapImpl<K, V>(map);
+    }
+
+    /**
+     * The collection type for multi-valued keys, which is private so that it can never be a value of the multimap.
+     */
+    private static final class Values<V>
+            extends FastList<V>
+    {
+        private static final long serialVersionUID = 1L;
+
+        public Values()
+        {
+            super(2);
+        }
+
+        /**
+         * An object header and two fields, plus the backing array and its header.
+         */
+        private int getMemoryUsedInWords()
+        {
+            return 4 + 2 + this.items.length;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.multimap.list;
+
+import ponzu.api.block.procedure.Procedure2;
+import ponzu.api.list.ImmutableList;
+import ponzu.api.list.MutableList;
+import ponzu.api.map.MutableMap;
+import ponzu.api.multimap.Multimap;
+import ponzu.api.multimap.list.ImmutableListMultimap;
+import ponzu.api.multimap.list.MutableListMultimap;
+import ponzu.api.tuple.Pair;
+import ponzu.impl.list.mutable.FastList;
+import ponzu.impl.map.mutable.UnifiedMap;
+import ponzu.impl.multimap.AbstractConcurrentMultimap;
+
+/**
+ * A Multimap that is safe for concurrent reads and writes.  Puts are lock-free appends, and {@link #get(Object)}
+ * returns a snapshot of the values for a key in the order in which they were added.
+ *
+ * @see AbstractConcurrentMultimap
+ * @since 1.1
+ */
+public final class ConcurrentFastListMultimap<K, V>
+        extends AbstractConcurrentMultimap<K, V, MutableList<V>>
+        implements MutableListMultimap<K, V>
+{
+    private static final long serialVersionUID = 1L;
+
+    public ConcurrentFastListMultimap()
+    {
+    }
+
+    public ConcurrentFastListMultimap(int initialCapacity, float loadFactor, int concurrencyLevel)
+    {
+        super(initialCapacity, loadFactor, concurrencyLevel);
+    }
+
+    public ConcurrentFastListMultimap(Multimap<? extends K, ? extends V> multimap)
+    {
+        this.putAll(multimap);
+    }
+
+    @SuppressWarnings("unchecked")
+    public ConcurrentFastListMultimap(Pair<K, V>... pairs)
+    {
+        this.putAllPairs(pairs);
+    }
+
+    @Override
+    protected MutableList<V> createCollection()
+    {
+        return FastList.newList();
+    }
+
+    public static <K, V> ConcurrentFastListMultimap<K, V> newMultimap()
+    {
+        return new ConcurrentFastListMultimap<K, V>();
+    }
+
+    public static <K, V> ConcurrentFastListMultimap<K, V> newMultimap(int initialCapacity, float loadFactor, int concurrencyLevel)
+    {
+        return new ConcurrentFastListMultimap<K, V>(initialCapacity, loadFactor, concurrencyLevel);
+    }
+
+    public static <K, V> ConcurrentFastListMultimap<K, V> newMultimap(Multimap<? extends K, ? extends V> multimap)
+    {
+        return new ConcurrentFastListMultimap<K, V>(multimap);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <K, V> ConcurrentFastListMultimap<K, V> newMultimap(Pair<K, V>... pairs)
+    {
+        return new ConcurrentFastListMultimap<K, V>(pairs);
+    }
+
+    public ConcurrentFastListMultimap<K, V> newEmpty()
+    {
+        return new ConcurrentFastListMultimap<K, V>();
+    }
+
+    public MutableListMultimap<K, V> toMutable()
+    {
+        return new ConcurrentFastListMultimap<K, V>(this);
+    }
+
+    public ImmutableListMultimap<K, V> toImmutable()
+    {
+        final MutableMap<K, ImmutableList<V>> map = UnifiedMap.newMap();
+
+        this.getMap().forEachKeyValue(new Procedure2<K, MutableList<V>>()
+        {
+            public void value(K key, MutableList<V> list)
+            {
+                map.put(key, list.toImmutable());
+            }
+        });
+
+        return new ImmutableListMultimapImpl<K, V>(map);
+    }
+}
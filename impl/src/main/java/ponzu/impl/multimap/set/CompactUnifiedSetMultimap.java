@@ -0,0 +1,147 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.multimap.set;
+
+import ponzu.api.block.procedure.Procedure2;
+import ponzu.api.map.MutableMap;
+import ponzu.api.multimap.Multimap;
+import ponzu.api.multimap.set.ImmutableSetMultimap;
+import ponzu.api.multimap.set.MutableSetMultimap;
+import ponzu.api.set.ImmutableSet;
+import ponzu.api.set.MutableSet;
+import ponzu.api.tuple.Pair;
+import ponzu.impl.map.mutable.UnifiedMap;
+import ponzu.impl.multimap.AbstractCompactMultimap;
+import ponzu.impl.set.mutable.UnifiedSet;
+
+/**
+ * A set multimap which stores the value of a single-valued key directly in the backing UnifiedMap, and only creates
+ * a UnifiedSet for a key when it has more than one value.  It uses less memory than {@link UnifiedSetMultimap} when most
+ * keys have a single value.
+ *
+ * @see AbstractCompactMultimap
+ * @since 1.1
+ */
+public final class CompactUnifiedSetMultimap<K, V>
+        extends AbstractCompactMultimap<K, V, MutableSet<V>>
+        implements MutableSetMultimap<K, V>
+{
+    private static final long serialVersionUID = 1L;
+
+    public CompactUnifiedSetMultimap()
+    {
+    }
+
+    public CompactUnifiedSetMultimap(int keyCount)
+    {
+        super(keyCount);
+    }
+
+    public CompactUnifiedSetMultimap(Multimap<? extends K, ? extends V> multimap)
+    {
+        super(Math.max(multimap.sizeDistinct() * 2, 16));
+        this.putAll(multimap);
+    }
+
+    @SuppressWarnings("unchecked")
+    public CompactUnifiedSetMultimap(Pair<K, V>... pairs)
+    {
+        super(pairs.length);
+        this.putAllPairs(pairs);
+    }
+
+    public static <K, V> CompactUnifiedSetMultimap<K, V> newMultimap()
+    {
+        return new CompactUnifiedSetMultimap<K, V>();
+    }
+
+    public static <K, V> CompactUnifiedSetMultimap<K, V> newMultimap(Multimap<? extends K, ? extends V> multimap)
+    {
+        return new CompactUnifiedSetMultimap<K, V>(multimap);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <K, V> CompactUnifiedSetMultimap<K, V> newMultimap(Pair<K, V>... pairs)
+    {
+        return new CompactUnifiedSetMultimap<K, V>(pairs);
+    }
+
+    @Override
+    protected MutableSet<V> createCollection()
+    {
+        return new Values<V>();
+    }
+
+    @Override
+    protected boolean isCollection(Object mapValue)
+    {
+        return mapValue instanceof Values;
+    }
+
+    @Override
+    protected int getCollectionMemoryUsedInWords(MutableSet<V> collection)
+    {
+        return ((Values<V>) collection).getMemoryUsedInWords();
+    }
+
+    public CompactUnifiedSetMultimap<K, V> newEmpty()
+    {
+        return new CompactUnifiedSetMultimap<K, V>();
+    }
+
+    public MutableSetMultimap<K, V> toMutable()
+    {
+        return new CompactUnifiedSetMultimap<K, V>(this);
+    }
+
+    public ImmutableSetMultimap<K, V> toImmutable()
+    {
+        final MutableMap<K, ImmutableSet<V>> map = UnifiedMap.newMap();
+
+        this.getMap().forEachKeyValue(new Procedure2<K, MutableSet<V>>()
+        {
+            public void value(K key, MutableSet<V> set)
+            {
+                map.put(key, set.toImmutable());
+            }
+        });
+
+        return new ImmutableSetMultimapImpl<K, V>(map);
+    }
+
+    /**
+     * The collection type for multi-valued keys, which is private so that it can never be a value of the multimap.
+     */
+    private static final class Values<V>
+            extends UnifiedSet<V>
+    {
+        private static final long serialVersionUID = 1L;
+
+        public Values()
+        {
+            super(2);
+        }
+
+        /**
+         * An object header and four fields, plus the table and its chained buckets.
+         */
+        private int getMemoryUsedInWords()
+        {
+            return 6 + this.getSetMemoryUsedInWords();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.parallel;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Chooses the minimum fork size of a parallel call from the measured per element cost of earlier calls, so that each
+ * task runs for roughly {@link #TARGET_TASK_NANOS}.  Cheap procedures get large batches, or run serially on small
+ * inputs, while expensive procedures are split more finely.
+ * <p/>
+ * Costs are kept per procedure factory class and block class as an exponentially decaying average, so the batch size
+ * follows changes in workload.  Both classes are held weakly, so an estimate does not keep its classloader alive.
+ */
+final class AdaptiveBatchSizer
+{
+    static final long TARGET_TASK_NANOS = 1000000L;
+    static final int MIN_BATCH_SIZE = 16;
+    static final int MAX_BATCH_SIZE = 1 << 20;
+    private static final double DECAY = 0.25;
+
+    private final Map<Class<?>, Map<Class<?>, Double>> nanosPerElement =
+            new WeakHashMap<Class<?>, Map<Class<?>, Double>>();
+    private final int defaultBatchSize;
+
+    AdaptiveBatchSizer(int defaultBatchSize)
+    {
+        this.defaultBatchSize = defaultBatchSize;
+    }
+
+    /**
+     * @param blockClass the class of the block the factory wraps, or null if it is not known
+     */
+    synchronized int getBatchSize(Class<?> factoryClass, Class<?> blockClass)
+    {
+        Map<Class<?>, Double> estimates = this.nanosPerElement.get(factoryClass);
+        Double estimate = estimates == null ? null : estimates.get(blockClass);
+        if (estimate == null)
+        {
+            return this.defaultBatchSize;
+        }
+        double cost = estimate.doubleValue();
+        if (cost <= 0.0)
+        {
+            return MAX_BATCH_SIZE;
+        }
+        double batchSize = TARGET_TASK_NANOS / cost;
+        return (int) Math.max(MIN_BATCH_SIZE, Math.min(MAX_BATCH_SIZE, batchSize));
+    }
+
+    synchronized void record(Class<?> factoryClass, Class<?> blockClass, int elementCount, long totalTaskNanos)
+    {
+        if (elementCount <= 0)
+        {
+            return;
+        }
+        double sample = (double) totalTaskNanos / elementCount;
+        Map<Class<?>, Double> estimates = this.nanosPerElement.get(factoryClass);
+        if (estimates == null)
+        {
+            estimates = new WeakHashMap<Class<?>, Double>();
+            this.nanosPerElement.put(factoryClass, estimates);
+        }
+        Double estimate = estimates.get(blockClass);
+        double updated = estimate == null ? sample : estimate.doubleValue() * (1.0 - DECAY) + sample * DECAY;
+        estimates.put(blockClass, Double.valueOf(updated));
+    }
+
+    synchronized int size()
+    {
+        int size = 0;
+        for (Map<Class<?>, Double> estimates : this.nanosPerElement.values())
+        {
+            size += estimates.size();
+        }
+        return size;
+    }
+
+    synchronized void clear()
+    {
+        this.nanosPerElement.clear();
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.parallel;
+
+import ponzu.api.block.function.Function2;
+import ponzu.impl.block.procedure.AggregateProcedure;
+
+/**
+ * Combines the results of a Collection of AggregateProcedures with an associative combine function.  The results are
+ * combined in the order of the batches they were computed from, so the combine function need not be commutative.
+ *
+ * @since 1.1
+ */
+public final class AggregateCombiner<T, A>
+        extends AbstractProcedureCombiner<AggregateProcedure<T, A>>
+{
+    private static final long serialVersionUID = 1L;
+
+    private final Function2<? super A, ? super A, ? extends A> combineFunction;
+    private A result;
+
+    public AggregateCombiner(A initialValue, Function2<? super A, ? super A, ? extends A> combineFunction)
+    {
+        super(false);
+        this.result = initialValue;
+        this.combineFunction = combineFunction;
+    }
+
+    public void combineOne(AggregateProcedure<T, A> procedure)
+    {
+        this.result = this.combineFunction.value(this.result, procedure.getResult());
+    }
+
+    public A getResult()
+    {
+        return this.result;
+    }
+}
@@ -19,7 +19,7 @@ package ponzu.impl.parallel;
 import ponzu.api.block.procedure.Procedure;
 import ponzu.impl.utility.ArrayIterate;
 
-public final class ArrayProcedureFJTask<T, BT extends Procedure<? super T>> implements Runnable
+public final class ArrayProcedureFJTask<T, BT extends Procedure<? super T>> implements CountedTask
 {
     private final ProcedureFactory<BT> procedureFactory;
     private BT procedure;
@@ -60,6 +60,15 @@ public final class ArrayProcedureFJTask<T, BT extends Procedure<? super T>> impl
         }
     }
 
+    public void countElements()
+    {
+    }
+
+    public int getElementCount()
+    {
+        return this.end - this.start;
+    }
+
     public BT getProcedure()
     {
         return this.procedure;
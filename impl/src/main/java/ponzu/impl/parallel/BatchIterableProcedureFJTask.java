@@ -18,7 +18,7 @@ package ponzu.impl.parallel;
 
 import ponzu.api.block.procedure.Procedure;
 
-public final class BatchIterableProcedureFJTask<T, BT extends Procedure<? super T>> implements Runnable
+public final class BatchIterableProcedureFJTask<T, BT extends Procedure<? super T>> implements CountedTask
 {
     private final ProcedureFactory<BT> procedureFactory;
     private BT procedure;
@@ -26,6 +26,8 @@ public final class BatchIterableProcedureFJTask<T, BT extends Procedure<? super
     private final int sectionIndex;
     private final int sectionCount;
     private final BatchIterableProcedureFJTaskRunner<T, BT> taskRunner;
+    private boolean counting;
+    private int elementCount;
 
     /**
      * Creates an array of ProcedureFJTasks wrapping Procedures created by the specified ProcedureFactory.
@@ -49,7 +51,22 @@ public final class BatchIterableProcedureFJTask<T, BT extends Procedure<? super
         try
         {
             this.procedure = this.procedureFactory.create();
-            this.iterable.batchForEach(this.procedure, this.sectionIndex, this.sectionCount);
+            if (this.counting)
+            {
+                CountingProcedure<T> countingProcedure = new CountingProcedure<T>(this.procedure);
+                try
+                {
+                    this.iterable.batchForEach(countingProcedure, this.sectionIndex, this.sectionCount);
+                }
+                finally
+                {
+                    this.elementCount = countingProcedure.count;
+                }
+            }
+            else
+            {
+                this.iterable.batchForEach(this.procedure, this.sectionIndex, this.sectionCount);
+            }
         }
         catch (Throwable newError)
         {
@@ -61,8 +78,37 @@ public final class BatchIterableProcedureFJTask<T, BT extends Procedure<? super
         }
     }
 
+    public void countElements()
+    {
+        this.counting = true;
+    }
+
+    public int getElementCount()
+    {
+        return this.elementCount;
+    }
+
     public BT getProcedure()
     {
         return this.procedure;
     }
+
+    private static final class CountingProcedure<T> implements Procedure<T>
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final Procedure<? super T> procedure;
+        private int count;
+
+        private CountingProcedure(Procedure<? super T> procedure)
+        {
+            this.procedure = procedure;
+        }
+
+        public void value(T object)
+        {
+            this.count++;
+            this.procedure.value(object);
+        }
+    }
 }
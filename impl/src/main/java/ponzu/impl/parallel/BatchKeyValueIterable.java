@@ -0,0 +1,36 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.parallel;
+
+import ponzu.api.block.procedure.Procedure2;
+
+/**
+ * A map which can be split into a number of sections and have each section traversed independently by key and value,
+ * without creating an entry or pair object for every mapping.
+ *
+ * @since 1.1
+ */
+public interface BatchKeyValueIterable<K, V>
+{
+    void batchForEachKeyValue(Procedure2<? super K, ? super V> procedure, int sectionIndex, int sectionCount);
+
+    int size();
+
+    int getBatchCount(int batchSize);
+
+    void forEachKeyValue(Procedure2<? super K, ? super V> procedure);
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.parallel;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates executors for procedures which block per element, such as file or socket I/O, where throughput should not
+ * be capped at the number of processors.  Virtual threads are used when the running JVM provides them, which is
+ * detected reflectively so that this class still loads on older JVMs; otherwise an elastic pool of platform threads
+ * is used, which grows on demand and retires idle threads.
+ */
+final class BlockingExecutors
+{
+    static final int MAX_ELASTIC_POOL_SIZE = 256;
+    private static final long KEEP_ALIVE_SECONDS = 60L;
+    private static final Method NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR = BlockingExecutors.findVirtualThreadExecutorFactory();
+
+    private BlockingExecutors()
+    {
+        throw new AssertionError("Suppress default constructor for noninstantiability");
+    }
+
+    private static Method findVirtualThreadExecutorFactory()
+    {
+        try
+        {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        }
+        catch (NoSuchMethodException ignored)
+        {
+            return null;
+        }
+    }
+
+    static boolean isVirtualThreadSupported()
+    {
+        return NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR != null;
+    }
+
+    /**
+     * Returns an executor with no limit of its own, for callers which already bound their concurrency by the number of
+     * tasks they submit.  Without virtual threads the pool is capped at {@link #MAX_ELASTIC_POOL_SIZE} threads, and
+     * further tasks run on the submitting thread.
+     */
+    static ExecutorService newUnboundedExecutor(String poolName)
+    {
+        if (BlockingExecutors.isVirtualThreadSupported())
+        {
+            return BlockingExecutors.newVirtualThreadPerTaskExecutor();
+        }
+        return new ThreadPoolExecutor(
+                0,
+                MAX_ELASTIC_POOL_SIZE,
+                KEEP_ALIVE_SECONDS,
+                TimeUnit.SECONDS,
+                new SynchronousQueue<Runnable>(),
+                new CollectionsThreadFactory(poolName, true),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Returns an executor which runs at most maxConcurrency tasks at a time and queues the rest.
+     */
+    static ExecutorService newBoundedExecutor(int maxConcurrency, String poolName)
+    {
+        if (maxConcurrency < 1)
+        {
+            throw new IllegalArgumentException("Max concurrency must be greater than zero: " + maxConcurrency);
+        }
+        if (BlockingExecutors.isVirtualThreadSupported())
+        {
+            return new ConcurrencyLimitedExecutorService(BlockingExecutors.newVirtualThreadPerTaskExecutor(), maxConcurrency);
+        }
+        return BlockingExecutors.newElasticExecutor(maxConcurrency, poolName);
+    }
+
+    static ExecutorService newElasticExecutor(int maxConcurrency, String poolName)
+    {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                maxConcurrency,
+                maxConcurrency,
+                KEEP_ALIVE_SECONDS,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(),
+                new CollectionsThreadFactory(poolName, true));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private static ExecutorService newVirtualThreadPerTaskExecutor()
+    {
+        try
+        {
+            return (ExecutorService) NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR.invoke(null);
+        }
+        catch (IllegalAccessException e)
+        {
+            throw new IllegalStateException("Could not create a virtual thread executor", e);
+        }
+        catch (InvocationTargetException e)
+        {
+            throw new IllegalStateException("Could not create a virtual thread executor", e.getCause());
+        }
+    }
+
+    /**
+     * Limits the number of tasks running at once on an executor which starts a new thread per task.  Each task waits
+     * for a permit on its own thread, which costs little when those threads are virtual.  The wait is uninterruptible
+     * so that every submitted task still runs and reports its completion to the task runner waiting on it.
+     */
+    static final class ConcurrencyLimitedExecutorService extends AbstractExecutorService
+    {
+        private final ExecutorService delegate;
+        private final Semaphore permits;
+
+        ConcurrencyLimitedExecutorService(ExecutorService delegate, int maxConcurrency)
+        {
+            this.delegate = delegate;
+            this.permits = new Semaphore(maxConcurrency);
+        }
+
+        public void execute(final Runnable command)
+        {
+            this.delegate.execute(new Runnable()
+            {
+                public void run()
+                {
+                    ConcurrencyLimitedExecutorService.this.permits.acquireUninterruptibly();
+                    try
+                    {
+                        command.run();
+                    }
+                    finally
+                    {
+                        ConcurrencyLimitedExecutorService.this.permits.release();
+                    }
+                }
+            });
+        }
+
+        public void shutdown()
+        {
+            this.delegate.shutdown();
+        }
+
+        public List<Runnable> shutdownNow()
+        {
+            return this.delegate.shutdownNow();
+        }
+
+        public boolean isShutdown()
+        {
+            return this.delegate.isShutdown();
+        }
+
+        public boolean isTerminated()
+        {
+            return this.delegate.isTerminated();
+        }
+
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException
+        {
+            return this.delegate.awaitTermination(timeout, unit);
+        }
+    }
+}
@@ -41,4 +41,9 @@ public final class CollectIfProcedureFactory<T, V> implements ProcedureFactory<C
     {
         return new CollectIfProcedure<T, V>(FastList.<V>newList(this.collectionSize), this.function, this.predicate);
     }
+
+    Function<? super T, V> getFunction()
+    {
+        return this.function;
+    }
 }
@@ -35,4 +35,9 @@ public final class CollectProcedureFactory<T, V> implements ProcedureFactory<Col
     {
         return new CollectProcedure<T, V>(this.function, new FastList<V>(this.collectionSize));
     }
+
+    Function<? super T, V> getFunction()
+    {
+        return this.function;
+    }
 }
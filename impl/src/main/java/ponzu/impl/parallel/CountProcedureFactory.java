@@ -32,4 +32,9 @@ public final class CountProcedureFactory<T> implements ProcedureFactory<CountPro
     {
         return new CountProcedure<T>(this.predicate);
     }
+
+    Predicate<? super T> getPredicate()
+    {
+        return this.predicate;
+    }
 }
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package ponzu.impl.parallel;
+
+/**
+ * A task of a parallel call which can tell {@link InstrumentedExecutor} how many elements it processed.
+ */
+interface CountedTask extends Runnable
+{
+    /**
+     * Asks the task to count the elements it processes, for tasks which cannot tell the count from their bounds.  It
+     * is called before the task is run.
+     */
+    void countElements();
+
+    /**
+     * Returns the number of elements the task processed, once it has run.
+     */
+    int getElementCount();
+}
@@ -37,4 +37,9 @@ public final class FlatCollectProcedureFactory<T, V> implements ProcedureFactory
     {
         return new FlatCollectProcedure<T, V>(this.function, new FastList<V>(this.collectionSize));
     }
+
+    Function<? super T, Collection<V>> getFunction()
+    {
+        return this.function;
+    }
 }
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.parallel;
+
+import java.util.concurrent.Executor;
+
+import ponzu.api.block.procedure.primitive.IntProcedure;
+import ponzu.impl.set.mutable.UnifiedSet;
+
+/**
+ * HashPartitionRunner visits every index of an array of keys grouped by the hash partition of the key at that index,
+ * so that a presized hash table can be loaded by several threads without any two of them writing to the same slot.
+ * <p/>
+ * The keys are hashed and counted by section concurrently, the indices are then scattered into one contiguous run per
+ * partition, and finally each run is passed to the procedure of its partition by a single task, so a procedure is only
+ * ever called from one thread and needs no synchronization of its own.  Within a partition the indices are
+ * visited in ascending order, so when a key occurs more than once its last occurrence is visited last, just as in a
+ * serial load.  Partitions are those of {@link UnifiedSet#hashPartition(Object, int)}, which are the same as those of
+ * {@link ponzu.impl.map.mutable.UnifiedMap#hashPartition(Object, int)}.
+ *
+ * @since 1.1
+ */
+public final class HashPartitionRunner
+{
+    /**
+     * The smallest number of keys for which hashing in parallel is worth the cost of the extra passes.
+     */
+    public static final int MIN_PARALLEL_SIZE = 1 << 16;
+
+    private final int partitionCount;
+
+    public HashPartitionRunner(int partitionCount)
+    {
+        if (Integer.bitCount(partitionCount) != 1)
+        {
+            throw new IllegalArgumentException("Partition count must be a power of two: " + partitionCount);
+        }
+        this.partitionCount = partitionCount;
+    }
+
+    /**
+     * Returns the smallest power of two which is at least twice the number of available processors.
+     */
+    public static int defaultPartitionCount()
+    {
+        int partitionCount = 1;
+        int processors = Runtime.getRuntime().availableProcessors();
+        while (partitionCount < processors << 1)
+        {
+            partitionCount <<= 1;
+        }
+        return partitionCount;
+    }
+
+    public int getPartitionCount()
+    {
+        return this.partitionCount;
+    }
+
+    /**
+     * Executes the procedure of each partition once for every index of keys whose key is in that partition, and blocks
+     * until all of them have been visited.  The procedures of different partitions are called concurrently, but each of
+     * them from a single task.
+     *
+     * @param partitionProcedures one procedure per partition, indexed by partition
+     */
+    public void execute(final Object[] keys, final IntProcedure[] partitionProcedures, Executor executor)
+    {
+        if (partitionProcedures.length != this.partitionCount)
+        {
+            throw new IllegalArgumentException(
+                    "Expected " + this.partitionCount + " partition procedures but got " + partitionProcedures.length);
+        }
+        final int count = this.partitionCount;
+        final int[] partitions = new int[keys.length];
+        final int[] counts = new int[count * count];
+        SectionTaskRunner runner = new SectionTaskRunner(count);
+        runner.execute(new IntProcedure()
+        {
+            public void value(int section)
+            {
+                int base = section * count;
+                int end = HashPartitionRunner.sectionStart(section + 1, count, keys.length);
+                for (int i = HashPartitionRunner.sectionStart(section, count, keys.length); i < end; i++)
+                {
+                    int partition = UnifiedSet.hashPartition(keys[i], count);
+                    partitions[i] = partition;
+                    counts[base + partition]++;
+                }
+            }
+        }, executor);
+
+        // offsets are laid out partition first, so each partition is one run of indices in ascending order
+        final int[] offsets = new int[count * count];
+        final int[] partitionStarts = new int[count + 1];
+        int offset = 0;
+        for (int partition = 0; partition < count; partition++)
+        {
+            partitionStarts[partition] = offset;
+            for (int section = 0; section < count; section++)
+            {
+                offsets[section * count + partition] = offset;
+                offset += counts[section * count + partition];
+            }
+        }
+        partitionStarts[count] = offset;
+
+        final int[] order = new int[keys.length];
+        runner.execute(new IntProcedure()
+        {
+            public void value(int section)
+            {
+                int base = section * count;
+                int end = HashPartitionRunner.sectionStart(section + 1, count, keys.length);
+                for (int i = HashPartitionRunner.sectionStart(section, count, keys.length); i < end; i++)
+                {
+                    order[offsets[base + partitions[i]]++] = i;
+                }
+            }
+        }, executor);
+        runner.execute(new IntProcedure()
+        {
+            public void value(int partition)
+            {
+                IntProcedure indexProcedure = partitionProcedures[partition];
+                int end = partitionStarts[partition + 1];
+                for (int i = partitionStarts[partition]; i < end; i++)
+                {
+                    indexProcedure.value(order[i]);
+                }
+            }
+        }, executor);
+    }
+
+    private static int sectionStart(int section, int sectionCount, int size)
+    {
+        return (int) ((long) section * size / sectionCount);
+    }
+}
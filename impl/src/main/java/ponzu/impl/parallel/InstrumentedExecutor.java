@@ -0,0 +1,203 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.parallel;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import ponzu.impl.list.mutable.FastList;
+
+/**
+ * Wraps the executor of a single parallel call, timing each task and recording which tasks were rejected or run on
+ * the submitting thread.  Tasks must be submitted from the thread which created the InstrumentedExecutor.
+ */
+final class InstrumentedExecutor implements Executor
+{
+    private static final long COMPLETION_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(1L);
+
+    private final Executor delegate;
+    private final Thread submitter = Thread.currentThread();
+    private final FastList<TimedTask> tasks = FastList.newList();
+    private int rejectedCount;
+
+    InstrumentedExecutor(Executor delegate)
+    {
+        this.delegate = delegate;
+    }
+
+    public void execute(Runnable command)
+    {
+        if (command instanceof CountedTask)
+        {
+            ((CountedTask) command).countElements();
+        }
+        TimedTask task = new TimedTask(command, this.submitter);
+        this.tasks.add(task);
+        try
+        {
+            this.delegate.execute(task);
+        }
+        catch (RejectedExecutionException e)
+        {
+            this.tasks.remove(this.tasks.size() - 1);
+            this.rejectedCount++;
+            throw e;
+        }
+    }
+
+    /**
+     * Builds the statistics for the call once it has returned.  A task signals its completion from inside its own
+     * run method, so this waits for the last few tasks to finish recording their durations.  The wait is bounded, since
+     * an executor may drop a task it accepted, or the call may have failed while other tasks were still running; a task
+     * which has not finished within a second, or by the time this thread is interrupted, is reported with the time since
+     * it was submitted, which is a lower bound of its duration.
+     * <p/>
+     * Batch sizes are the element counts the tasks report.  The elements not accounted for, such as those of a task
+     * which has not finished, are shared evenly between the tasks which did not report a count.
+     */
+    ParallelExecutionStatistics getStatistics(int elementCount, int minForkSize, long elapsedNanos)
+    {
+        int taskCount = this.tasks.size();
+        if (taskCount == 0)
+        {
+            return new ParallelExecutionStatistics(
+                    elementCount,
+                    minForkSize,
+                    false,
+                    new int[]{elementCount},
+                    new long[]{elapsedNanos},
+                    0,
+                    this.rejectedCount,
+                    elapsedNanos);
+        }
+        int[] batchSizes = new int[taskCount];
+        long[] durations = new long[taskCount];
+        int callerRunsCount = 0;
+        int countedElements = 0;
+        int uncountedTasks = 0;
+        long deadline = System.nanoTime() + COMPLETION_TIMEOUT_NANOS;
+        boolean waiting = true;
+        for (int i = 0; i < taskCount; i++)
+        {
+            TimedTask task = this.tasks.get(i);
+            if (waiting)
+            {
+                waiting = task.awaitUntil(deadline);
+            }
+            if (task.done.getCount() == 0L)
+            {
+                if (task.command instanceof CountedTask)
+                {
+                    batchSizes[i] = ((CountedTask) task.command).getElementCount();
+                    countedElements += batchSizes[i];
+                }
+                else
+                {
+                    batchSizes[i] = -1;
+                    uncountedTasks++;
+                }
+                durations[i] = task.durationNanos;
+                if (task.ranOnSubmitter)
+                {
+                    callerRunsCount++;
+                }
+            }
+            else
+            {
+                batchSizes[i] = -1;
+                uncountedTasks++;
+                durations[i] = System.nanoTime() - task.submittedNanos;
+            }
+        }
+        if (uncountedTasks > 0)
+        {
+            InstrumentedExecutor.shareUncounted(batchSizes, Math.max(0, elementCount - countedElements), uncountedTasks);
+        }
+        return new ParallelExecutionStatistics(
+                elementCount,
+                minForkSize,
+                true,
+                batchSizes,
+                durations,
+                callerRunsCount,
+                this.rejectedCount,
+                elapsedNanos);
+    }
+
+    private static void shareUncounted(int[] batchSizes, int elementCount, int taskCount)
+    {
+        int sectionSize = elementCount / taskCount;
+        int remainder = elementCount - sectionSize * taskCount;
+        for (int i = 0; i < batchSizes.length; i++)
+        {
+            if (batchSizes[i] == -1)
+            {
+                taskCount--;
+                batchSizes[i] = taskCount == 0 ? sectionSize + remainder : sectionSize;
+            }
+        }
+    }
+
+    private static final class TimedTask implements Runnable
+    {
+        private final Runnable command;
+        private final Thread submitter;
+        private final long submittedNanos = System.nanoTime();
+        private final CountDownLatch done = new CountDownLatch(1);
+        private long durationNanos;
+        private boolean ranOnSubmitter;
+
+        private TimedTask(Runnable command, Thread submitter)
+        {
+            this.command = command;
+            this.submitter = submitter;
+        }
+
+        /**
+         * Returns false if the deadline passed or the waiting thread was interrupted, leaving its interrupt flag set.
+         */
+        private boolean awaitUntil(long deadline)
+        {
+            try
+            {
+                return this.done.await(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        public void run()
+        {
+            long start = System.nanoTime();
+            try
+            {
+                this.command.run();
+            }
+            finally
+            {
+                this.durationNanos = System.nanoTime() - start;
+                this.ranOnSubmitter = Thread.currentThread() == this.submitter;
+                this.done.countDown();
+            }
+        }
+    }
+}
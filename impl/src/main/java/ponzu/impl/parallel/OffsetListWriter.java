@@ -0,0 +1,285 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.parallel;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import ponzu.api.block.function.Function;
+import ponzu.api.block.predicate.Predicate;
+import ponzu.api.block.procedure.primitive.IntProcedure;
+import ponzu.impl.list.mutable.FastList;
+import ponzu.impl.partition.list.PartitionFastList;
+
+/**
+ * OffsetListWriter produces the ordered list results of the parallel algorithms for random access lists without
+ * concatenating per-task results.  The list is split into contiguous sections and every section writes its output
+ * directly into its own range of a presized array, which then backs the resulting FastList.  When the output size of
+ * a section is not known in advance, a first pass records which elements produce output and counts them per section,
+ * and the offsets of the sections are the prefix sums of those counts.
+ */
+final class OffsetListWriter
+{
+    private OffsetListWriter()
+    {
+        throw new AssertionError("Suppress default constructor for noninstantiability");
+    }
+
+    static <T, V> FastList<V> transform(
+            final List<T> list,
+            final Function<? super T, ? extends V> function,
+            int sectionCount,
+            Executor executor)
+    {
+        final Object[] result = new Object[list.size()];
+        final Sections sections = new Sections(list.size(), sectionCount);
+        sections.execute(new IntProcedure()
+        {
+            public void value(int sectionIndex)
+            {
+                for (int i = sections.start(sectionIndex); i < sections.end(sectionIndex); i++)
+                {
+                    result[i] = function.valueOf(list.get(i));
+                }
+            }
+        }, executor);
+        return OffsetListWriter.<V>wrap(result);
+    }
+
+    static <T> FastList<T> filter(
+            final List<T> list,
+            Predicate<? super T> predicate,
+            boolean expected,
+            int sectionCount,
+            Executor executor)
+    {
+        final Sections sections = new Sections(list.size(), sectionCount);
+        final boolean[] selected = new boolean[list.size()];
+        final int[] offsets = sections.mark(list, predicate, expected, selected, executor);
+        final Object[] result = new Object[offsets[offsets.length - 1]];
+        sections.execute(new IntProcedure()
+        {
+            public void value(int sectionIndex)
+            {
+                int offset = offsets[sectionIndex];
+                for (int i = sections.start(sectionIndex); i < sections.end(sectionIndex); i++)
+                {
+                    if (selected[i])
+                    {
+                        result[offset++] = list.get(i);
+                    }
+                }
+            }
+        }, executor);
+        return OffsetListWriter.<T>wrap(result);
+    }
+
+    static <T, V> FastList<V> transformIf(
+            final List<T> list,
+            Predicate<? super T> predicate,
+            final Function<? super T, ? extends V> function,
+            int sectionCount,
+            Executor executor)
+    {
+        final Sections sections = new Sections(list.size(), sectionCount);
+        final boolean[] selected = new boolean[list.size()];
+        final int[] offsets = sections.mark(list, predicate, true, selected, executor);
+        final Object[] result = new Object[offsets[offsets.length - 1]];
+        sections.execute(new IntProcedure()
+        {
+            public void value(int sectionIndex)
+            {
+                int offset = offsets[sectionIndex];
+                for (int i = sections.start(sectionIndex); i < sections.end(sectionIndex); i++)
+                {
+                    if (selected[i])
+                    {
+                        result[offset++] = function.valueOf(list.get(i));
+                    }
+                }
+            }
+        }, executor);
+        return OffsetListWriter.<V>wrap(result);
+    }
+
+    static <T, V> FastList<V> flatTransform(
+            final List<T> list,
+            final Function<? super T, ? extends Collection<V>> function,
+            int sectionCount,
+            Executor executor)
+    {
+        final Sections sections = new Sections(list.size(), sectionCount);
+        final Object[] transformed = new Object[list.size()];
+        final int[] offsets = new int[sections.sectionCount + 1];
+        sections.execute(new IntProcedure()
+        {
+            public void value(int sectionIndex)
+            {
+                int count = 0;
+                for (int i = sections.start(sectionIndex); i < sections.end(sectionIndex); i++)
+                {
+                    Collection<V> collection = function.valueOf(list.get(i));
+                    transformed[i] = collection;
+                    count += collection.size();
+                }
+                offsets[sectionIndex + 1] = count;
+            }
+        }, executor);
+        Sections.accumulate(offsets);
+        final Object[] result = new Object[offsets[offsets.length - 1]];
+        sections.execute(new IntProcedure()
+        {
+            public void value(int sectionIndex)
+            {
+                int offset = offsets[sectionIndex];
+                for (int i = sections.start(sectionIndex); i < sections.end(sectionIndex); i++)
+                {
+                    for (Object each : (Collection<?>) transformed[i])
+                    {
+                        result[offset++] = each;
+                    }
+                    transformed[i] = null;
+                }
+            }
+        }, executor);
+        return OffsetListWriter.<V>wrap(result);
+    }
+
+    static <T> PartitionFastList<T> partition(
+            final List<T> list,
+            Predicate<? super T> predicate,
+            int sectionCount,
+            Executor executor)
+    {
+        final Sections sections = new Sections(list.size(), sectionCount);
+        final boolean[] selected = new boolean[list.size()];
+        final int[] offsets = sections.mark(list, predicate, true, selected, executor);
+        final Object[] selectedResult = new Object[offsets[offsets.length - 1]];
+        final Object[] rejectedResult = new Object[list.size() - offsets[offsets.length - 1]];
+        sections.execute(new IntProcedure()
+        {
+            public void value(int sectionIndex)
+            {
+                int start = sections.start(sectionIndex);
+                int selectedOffset = offsets[sectionIndex];
+                int rejectedOffset = start - selectedOffset;
+                for (int i = start; i < sections.end(sectionIndex); i++)
+                {
+                    if (selected[i])
+                    {
+                        selectedResult[selectedOffset++] = list.get(i);
+                    }
+                    else
+                    {
+                        rejectedResult[rejectedOffset++] = list.get(i);
+                    }
+                }
+            }
+        }, executor);
+        return new PartitionFastList<T>(
+                predicate,
+                OffsetListWriter.<T>wrap(selectedResult),
+                OffsetListWriter.<T>wrap(rejectedResult));
+    }
+
+
+    /**
+     * Returns a FastList backed by the array which the sections filled, without copying it.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> FastList<T> wrap(Object[] result)
+    {
+        return FastList.newListWith((T[]) result);
+    }
+    /**
+     * Splits the indices of a list into contiguous sections of nearly equal size.
+     */
+    private static final class Sections
+    {
+        private final int size;
+        private final int sectionCount;
+
+        private Sections(int size, int sectionCount)
+        {
+            this.size = size;
+            this.sectionCount = Math.max(1, Math.min(size, sectionCount));
+        }
+
+        private int start(int sectionIndex)
+        {
+            return (int) ((long) sectionIndex * this.size / this.sectionCount);
+        }
+
+        private int end(int sectionIndex)
+        {
+            return this.start(sectionIndex + 1);
+        }
+
+        private void execute(IntProcedure sectionProcedure, Executor executor)
+        {
+            if (this.sectionCount == 1)
+            {
+                sectionProcedure.value(0);
+            }
+            else
+            {
+                new SectionTaskRunner(this.sectionCount).execute(sectionProcedure, executor);
+            }
+        }
+
+        /**
+         * Marks the elements for which the predicate returns the expected value and returns the offsets of the
+         * sections' marked elements, followed by the total number of marked elements.
+         */
+        private <T> int[] mark(
+                final List<T> list,
+                final Predicate<? super T> predicate,
+                final boolean expected,
+                final boolean[] marked,
+                Executor executor)
+        {
+            final int[] offsets = new int[this.sectionCount + 1];
+            this.execute(new IntProcedure()
+            {
+                public void value(int sectionIndex)
+                {
+                    int count = 0;
+                    for (int i = Sections.this.start(sectionIndex); i < Sections.this.end(sectionIndex); i++)
+                    {
+                        if (predicate.accept(list.get(i)) == expected)
+                        {
+                            marked[i] = true;
+                            count++;
+                        }
+                    }
+                    offsets[sectionIndex + 1] = count;
+                }
+            }, executor);
+            Sections.accumulate(offsets);
+            return offsets;
+        }
+
+        private static void accumulate(int[] offsets)
+        {
+            for (int i = 1; i < offsets.length; i++)
+            {
+                offsets[i] += offsets[i - 1];
+            }
+        }
+    }
+}
@@ -0,0 +1,29 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.parallel;
+
+/**
+ * Receives the statistics of each instrumented parallel execution.  Listeners are called on the thread which invoked
+ * the parallel algorithm, after all of its tasks have completed, so they should return quickly.
+ *
+ * @see ParallelIterate#setExecutionListener(ParallelExecutionListener)
+ * @since 1.1
+ */
+public interface ParallelExecutionListener
+{
+    void executed(ParallelExecutionStatistics statistics);
+}
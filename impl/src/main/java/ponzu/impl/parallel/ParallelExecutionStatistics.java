@@ -0,0 +1,186 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.parallel;
+
+import java.util.Arrays;
+
+/**
+ * The statistics of a single call to one of the parallel algorithms in {@link ParallelIterate}.
+ * <p/>
+ * Batch sizes are the number of elements planned for each task.  Tasks over lists and arrays are sized exactly,
+ * while tasks over a {@link BatchIterable} cover equal slot ranges, so their sizes are estimates.  Tasks which the
+ * executor ran on the calling thread are counted as caller runs; with the default pool this happens when every
+ * thread is busy and its {@link java.util.concurrent.ThreadPoolExecutor.CallerRunsPolicy} takes over.
+ *
+ * @since 1.1
+ */
+public final class ParallelExecutionStatistics
+{
+    private final int elementCount;
+    private final int minForkSize;
+    private final boolean forked;
+    private final int[] batchSizes;
+    private final long[] taskDurationNanos;
+    private final int callerRunsCount;
+    private final int rejectedCount;
+    private final long elapsedNanos;
+
+    ParallelExecutionStatistics(
+            int elementCount,
+            int minForkSize,
+            boolean forked,
+            int[] batchSizes,
+            long[] taskDurationNanos,
+            int callerRunsCount,
+            int rejectedCount,
+            long elapsedNanos)
+    {
+        this.elementCount = elementCount;
+        this.minForkSize = minForkSize;
+        this.forked = forked;
+        this.batchSizes = batchSizes;
+        this.taskDurationNanos = taskDurationNanos;
+        this.callerRunsCount = callerRunsCount;
+        this.rejectedCount = rejectedCount;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public int getElementCount()
+    {
+        return this.elementCount;
+    }
+
+    /**
+     * Returns the minimum fork size used for the call, which differs from the requested one in adaptive mode.
+     */
+    public int getMinForkSize()
+    {
+        return this.minForkSize;
+    }
+
+    /**
+     * Returns true if the work was split into tasks on the executor, false if it ran serially on the calling thread.
+     */
+    public boolean isForked()
+    {
+        return this.forked;
+    }
+
+    /**
+     * Returns the number of tasks which were run by the executor, or zero if the call ran serially.
+     */
+    public int getTaskCount()
+    {
+        return this.forked ? this.batchSizes.length : 0;
+    }
+
+    /**
+     * Returns the number of elements planned for each task, or a single batch of every element if the call ran
+     * serially.
+     */
+    public int[] getBatchSizes()
+    {
+        return this.batchSizes.clone();
+    }
+
+    /**
+     * Returns the time spent running each task, or a single duration covering the whole call if it ran serially.
+     */
+    public long[] getTaskDurationNanos()
+    {
+        return this.taskDurationNanos.clone();
+    }
+
+    public int getCallerRunsCount()
+    {
+        return this.callerRunsCount;
+    }
+
+    /**
+     * Returns the number of tasks for which the executor threw a {@link java.util.concurrent.RejectedExecutionException}.
+     */
+    public int getRejectedCount()
+    {
+        return this.rejectedCount;
+    }
+
+    public long getElapsedNanos()
+    {
+        return this.elapsedNanos;
+    }
+
+    public long getTotalTaskDurationNanos()
+    {
+        long total = 0L;
+        for (long duration : this.taskDurationNanos)
+        {
+            total += duration;
+        }
+        return total;
+    }
+
+    public long getMaxTaskDurationNanos()
+    {
+        long max = 0L;
+        for (long duration : this.taskDurationNanos)
+        {
+            max = Math.max(max, duration);
+        }
+        return max;
+    }
+
+    public double getMeanTaskDurationNanos()
+    {
+        return this.taskDurationNanos.length == 0
+                ? 0.0
+                : (double) this.getTotalTaskDurationNanos() / this.taskDurationNanos.length;
+    }
+
+    /**
+     * Returns the ratio of the slowest task to the mean task duration.  A value close to 1.0 means the work was evenly
+     * balanced, while larger values mean the call was held up by its slowest task.
+     */
+    public double getSkew()
+    {
+        double mean = this.getMeanTaskDurationNanos();
+        return mean == 0.0 ? 1.0 : this.getMaxTaskDurationNanos() / mean;
+    }
+
+    /**
+     * Returns the measured cost of processing a single element, summed across all tasks.
+     */
+    public double getNanosPerElement()
+    {
+        return this.elementCount == 0 ? 0.0 : (double) this.getTotalTaskDurationNanos() / this.elementCount;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "ParallelExecutionStatistics{"
+                + "elements=" + this.elementCount
+                + ", minForkSize=" + this.minForkSize
+                + ", tasks=" + this.getTaskCount()
+                + ", batchSizes=" + Arrays.toString(this.batchSizes)
+                + ", callerRuns=" + this.getCallerRunsCount()
+                + ", rejected=" + this.rejectedCount
+                + ", elapsedNanos=" + this.elapsedNanos
+                + ", maxTaskNanos=" + this.getMaxTaskDurationNanos()
+                + ", skew=" + this.getSkew()
+                + '}';
+    }
+}
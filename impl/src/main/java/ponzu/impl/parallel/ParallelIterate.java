@@ -19,21 +19,42 @@ package ponzu.impl.parallel;
 import java.util.Collection;
 import java.util.List;
 import java.util.RandomAccess;
+import java.util.concurrent.Callable;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
 import ponzu.api.block.function.Function;
+import ponzu.api.block.function.Function2;
+import ponzu.api.block.function.Generator;
+import ponzu.api.block.function.primitive.DoubleFunction;
+import ponzu.api.block.function.primitive.IntFunction;
+import ponzu.api.block.function.primitive.LongFunction;
 import ponzu.api.block.predicate.Predicate;
 import ponzu.api.block.procedure.ObjectIntProcedure;
 import ponzu.api.block.procedure.Procedure;
+import ponzu.api.block.procedure.primitive.IntProcedure;
 import ponzu.api.list.ListIterable;
 import ponzu.api.multimap.MutableMultimap;
+import ponzu.api.partition.PartitionMutableCollection;
+import ponzu.impl.bag.mutable.HashBag;
+import ponzu.impl.block.procedure.AggregateProcedure;
+import ponzu.impl.block.procedure.CollectionAddProcedure;
+import ponzu.impl.block.procedure.HashPartitionedMapProcedure;
+import ponzu.impl.block.procedure.HashPartitionedSetProcedure;
 import ponzu.impl.block.procedure.MultimapPutProcedure;
+import ponzu.impl.block.procedure.PartitionAddProcedure;
+import ponzu.impl.block.procedure.SumOfDoubleProcedure;
+import ponzu.impl.block.procedure.SumOfIntProcedure;
+import ponzu.impl.block.procedure.SumOfLongProcedure;
 import ponzu.impl.list.fixed.ArrayAdapter;
+import ponzu.impl.list.mutable.FastList;
+import ponzu.impl.map.mutable.UnifiedMap;
 import ponzu.impl.multimap.list.SynchronizedPutFastListMultimap;
+import ponzu.impl.set.mutable.UnifiedSet;
 import ponzu.impl.utility.Iterate;
 
 import static ponzu.impl.factory.Iterables.*;
@@ -45,16 +66,31 @@ import static ponzu.impl.factory.Iterables.*;
  * <p/>
  * All Collections that are not either a {@link RandomAccess} or {@link List} are first converted to a Java array
  * using {@link Iterate#toArray(Iterable)}, and then run with one of the {@code ParallelArrayIterate.forEach} methods.
+ * <p/>
+ * When a random access list is filtered, transformed or partitioned without a target collection and without allowing
+ * a reordered result, the batches write their output directly into their own ranges of a presized FastList instead of
+ * being combined, so the result keeps the order of the input without a concatenation step.
+ * <p/>
+ * The {@code *Async} methods return once every batch has been handed to the executor.  The default executor, like
+ * every pool created by {@link #newPooledExecutor(int, String, boolean)}, uses
+ * {@link ThreadPoolExecutor.CallerRunsPolicy}, so a batch which finds every thread busy runs on the submitting thread,
+ * and an {@code *Async} call may do part or all of its work on the caller's thread before it returns.  Pass an
+ * executor with a queue to make these calls fully asynchronous.
  *
  * @see ParallelArrayIterate
  */
 public final class ParallelIterate
 {
     static final int DEFAULT_MIN_FORK_SIZE = 10000;
+    static final int MIN_PARTITIONED_MERGE_SIZE = 1 << 16;
     static final int AVAILABLE_PROCESSORS = Runtime.getRuntime().availableProcessors();
     static final int TASK_RATIO = 2;
     static final int DEFAULT_PARALLEL_TASK_COUNT = ParallelIterate.getDefaultTaskCount();
     static final ExecutorService EXECUTOR_SERVICE = ParallelIterate.newPooledExecutor(ParallelIterate.class.getSimpleName(), true);
+    static final AdaptiveBatchSizer ADAPTIVE_BATCH_SIZER = new AdaptiveBatchSizer(DEFAULT_MIN_FORK_SIZE);
+
+    private static volatile ParallelExecutionListener executionListener;
+    private static volatile boolean adaptiveBatchSizing;
 
     private ParallelIterate()
     {
@@ -71,6 +107,52 @@ public final class ParallelIterate
         ParallelIterate.EXECUTOR_SERVICE.shutdown();
     }
 
+    /**
+     * Sets a listener which is given the {@link ParallelExecutionStatistics} of every subsequent call to
+     * {@code forEach} and the algorithms built on it, such as filter, transform and groupBy.  Pass null to turn
+     * instrumentation off again, after which no timing or bookkeeping is done.
+     *
+     * @since 1.1
+     */
+    public static void setExecutionListener(ParallelExecutionListener listener)
+    {
+        ParallelIterate.executionListener = listener;
+    }
+
+    /**
+     * @since 1.1
+     */
+    public static ParallelExecutionListener getExecutionListener()
+    {
+        return ParallelIterate.executionListener;
+    }
+
+    /**
+     * Turns adaptive batch sizing on or off.  When on, calls which use the default minimum fork size instead derive
+     * it from the per element cost measured on earlier calls with the same class of procedure, predicate or function,
+     * aiming for tasks of about a millisecond each, and split the input into as many tasks as there are batches of
+     * that size.  Calls with an explicit batch size are not affected.  The methods which aggregate, such as sumOfInt
+     * and toSet, share one estimate per method whatever function they are given.
+     *
+     * @since 1.1
+     */
+    public static void setAdaptiveBatchSizing(boolean enabled)
+    {
+        ParallelIterate.adaptiveBatchSizing = enabled;
+        if (!enabled)
+        {
+            ParallelIterate.ADAPTIVE_BATCH_SIZER.clear();
+        }
+    }
+
+    /**
+     * @since 1.1
+     */
+    public static boolean isAdaptiveBatchSizing()
+    {
+        return ParallelIterate.adaptiveBatchSizing;
+    }
+
     /**
      * Iterate over the collection specified, in parallel batches using default runtime parameter values.  The
      * {@code ProcedureWithInt} used must be stateless, or use concurrent aware objects if they are to be shared.
@@ -414,6 +496,120 @@ public final class ParallelIterate
             int minForkSize,
             int taskCount,
             Executor executor)
+    {
+        ParallelExecutionListener listener = ParallelIterate.executionListener;
+        if (listener == null && !ParallelIterate.adaptiveBatchSizing)
+        {
+            ParallelIterate.forEachOnExecutor(iterable, procedureFactory, combiner, minForkSize, taskCount, executor);
+        }
+        else
+        {
+            ParallelIterate.forEachInstrumented(iterable, procedureFactory, combiner, minForkSize, taskCount, executor, listener);
+        }
+    }
+
+    private static <T, BT extends Procedure<? super T>> void forEachInstrumented(
+            Iterable<T> iterable,
+            ProcedureFactory<BT> procedureFactory,
+            Combiner<BT> combiner,
+            int minForkSize,
+            int taskCount,
+            Executor executor,
+            ParallelExecutionListener listener)
+    {
+        int size = Iterate.sizeOf(iterable);
+        Class<?> blockClass = ParallelIterate.adaptiveBlockClass(procedureFactory);
+        boolean adaptive = ParallelIterate.adaptiveBatchSizing && minForkSize == ParallelIterate.DEFAULT_MIN_FORK_SIZE;
+        int effectiveMinForkSize = minForkSize;
+        int effectiveTaskCount = taskCount;
+        if (adaptive)
+        {
+            effectiveMinForkSize = ParallelIterate.ADAPTIVE_BATCH_SIZER.getBatchSize(procedureFactory.getClass(), blockClass);
+            effectiveTaskCount = Math.max(2, size / effectiveMinForkSize);
+        }
+        InstrumentedExecutor instrumentedExecutor = new InstrumentedExecutor(executor);
+        long start = System.nanoTime();
+        try
+        {
+            ParallelIterate.forEachOnExecutor(
+                    iterable,
+                    procedureFactory,
+                    combiner,
+                    effectiveMinForkSize,
+                    effectiveTaskCount,
+                    instrumentedExecutor);
+        }
+        finally
+        {
+            ParallelExecutionStatistics statistics =
+                    instrumentedExecutor.getStatistics(size, effectiveMinForkSize, System.nanoTime() - start);
+            if (adaptive)
+            {
+                ParallelIterate.ADAPTIVE_BATCH_SIZER.record(
+                        procedureFactory.getClass(),
+                        blockClass,
+                        size,
+                        statistics.getTotalTaskDurationNanos());
+            }
+            if (listener != null)
+            {
+                listener.executed(statistics);
+            }
+        }
+    }
+
+    /**
+     * Estimates are kept per class of the procedure, predicate or function which the built in factories wrap, so that
+     * calls through the same factory with blocks of very different cost are sized separately.  Other factories,
+     * including those the aggregating methods create internally, are told apart only by their own class, and this
+     * returns null for them.
+     */
+    static Class<?> adaptiveBlockClass(ProcedureFactory<?> procedureFactory)
+    {
+        Object block = ParallelIterate.adaptiveBlock(procedureFactory);
+        return block == null ? null : block.getClass();
+    }
+
+    private static Object adaptiveBlock(ProcedureFactory<?> procedureFactory)
+    {
+        if (procedureFactory instanceof PassThruProcedureFactory)
+        {
+            return ((PassThruProcedureFactory<?>) procedureFactory).getProcedure();
+        }
+        if (procedureFactory instanceof SelectProcedureFactory)
+        {
+            return ((SelectProcedureFactory<?>) procedureFactory).getPredicate();
+        }
+        if (procedureFactory instanceof RejectProcedureFactory)
+        {
+            return ((RejectProcedureFactory<?>) procedureFactory).getPredicate();
+        }
+        if (procedureFactory instanceof CountProcedureFactory)
+        {
+            return ((CountProcedureFactory<?>) procedureFactory).getPredicate();
+        }
+        if (procedureFactory instanceof CollectProcedureFactory)
+        {
+            return ((CollectProcedureFactory<?, ?>) procedureFactory).getFunction();
+        }
+        if (procedureFactory instanceof CollectIfProcedureFactory)
+        {
+            return ((CollectIfProcedureFactory<?, ?>) procedureFactory).getFunction();
+        }
+        if (procedureFactory instanceof FlatCollectProcedureFactory)
+        {
+            return ((FlatCollectProcedureFactory<?, ?>) procedureFactory).getFunction();
+        }
+        return null;
+    }
+
+    private static <T, BT extends Procedure<? super T>> void forEachOnExecutor(
+            Iterable<T> iterable,
+            ProcedureFactory<BT> procedureFactory,
+            Combiner<BT> combiner,
+            int minForkSize,
+            int taskCount,
+            Executor executor)
     {
         if (Iterate.notEmpty(iterable))
         {
@@ -584,6 +780,13 @@ public final class ParallelIterate
             Executor executor,
             boolean allowReorderedResult)
     {
+        if (target == null && !allowReorderedResult && ParallelIterate.isRandomAccessList(iterable))
+        {
+            List<T> list = (List<T>) iterable;
+            @SuppressWarnings("unchecked")
+            R result = (R) OffsetListWriter.filter(list, predicate, true, ParallelIterate.calculateSectionCount(list.size(), batchSize), executor);
+            return result;
+        }
         SelectProcedureCombiner<T> combiner = new SelectProcedureCombiner<T>(iterable, target, 10, allowReorderedResult);
         SelectProcedureFactory<T> procedureFactory = new SelectProcedureFactory<T>(predicate, batchSize);
         ParallelIterate.forEach(
@@ -596,6 +799,25 @@ public final class ParallelIterate
         return (R) combiner.getResult();
     }
 
+    /**
+     * Small inputs are collected into one partition per batch and merged by a tree reduction.  Larger inputs are
+     * partitioned by hash, with the partition count a power of two bounded by the default task count so that each
+     * batch does not create more partitions than can be merged concurrently.
+     */
+    private static <T> int calculatePartitionCount(Iterable<T> iterable, int taskCount)
+    {
+        if (Iterate.sizeOf(iterable) < ParallelIterate.MIN_PARTITIONED_MERGE_SIZE)
+        {
+            return 1;
+        }
+        int partitionCount = 1;
+        while (partitionCount < Math.min(taskCount, ParallelIterate.DEFAULT_PARALLEL_TASK_COUNT))
+        {
+            partitionCount <<= 1;
+        }
+        return partitionCount;
+    }
+
     private static <T> int calculateTaskCount(Iterable<T> iterable, int batchSize)
     {
         if (iterable instanceof BatchIterable<?>)
@@ -615,6 +837,16 @@ public final class ParallelIterate
         return Math.max(2, size / batchSize);
     }
 
+    private static int calculateSectionCount(int size, int batchSize)
+    {
+        return size < batchSize ? 1 : Math.min(size, ParallelIterate.calculateTaskCount(size, batchSize));
+    }
+
+    private static boolean isRandomAccessList(Iterable<?> iterable)
+    {
+        return (iterable instanceof RandomAccess || iterable instanceof ListIterable) && iterable instanceof List;
+    }
+
     /**
      * Same effect as {@link Iterate#filterNot(Iterable, Predicate)}, but executed in parallel batches.
      *
@@ -677,6 +909,13 @@ public final class ParallelIterate
             Executor executor,
             boolean allowReorderedResult)
     {
+        if (target == null && !allowReorderedResult && ParallelIterate.isRandomAccessList(iterable))
+        {
+            List<T> list = (List<T>) iterable;
+            @SuppressWarnings("unchecked")
+            R result = (R) OffsetListWriter.filter(list, predicate, false, ParallelIterate.calculateSectionCount(list.size(), batchSize), executor);
+            return result;
+        }
         FilterNotProcedureCombiner<T> combiner = new FilterNotProcedureCombiner<T>(iterable, target, 10, allowReorderedResult);
         RejectProcedureFactory<T> procedureFactory = new RejectProcedureFactory<T>(predicate, batchSize);
         ParallelIterate.forEach(
@@ -690,183 +929,588 @@ public final class ParallelIterate
     }
 
     /**
-     * Same effect as {@link Iterate#count(Iterable, Predicate)}, but executed in parallel batches.
-     *
-     * @return The number of elements which satisfy the predicate.
-     */
-    public static <T> int count(Iterable<T> iterable, Predicate<? super T> predicate)
-    {
-        CountCombiner<T> combiner = new CountCombiner<T>();
-        CountProcedureFactory<T> procedureFactory = new CountProcedureFactory<T>(predicate);
-        ParallelIterate.forEach(
-                iterable,
-                procedureFactory,
-                combiner,
-                ParallelIterate.DEFAULT_MIN_FORK_SIZE,
-                ParallelIterate.EXECUTOR_SERVICE);
-        return combiner.getCount();
-    }
-
-    /**
-     * Same effect as {@link Iterate#transform(Iterable, Function)},
-     * but executed in parallel batches.
+     * Same effect as {@link Iterate#partition(Iterable, Predicate)}, but executed in parallel batches, evaluating the
+     * predicate once per element.
      *
-     * @return The transformed elements. The Collection will be of the same type as the input (List or Set)
+     * @return The partitioned elements. The partition will be of the same kind as the input (List, Set or Bag)
      *         and will be in the same order as the input (if it is an ordered collection).
-     * @see ParallelIterate#transform(Iterable, Function, boolean)
+     * @see ParallelIterate#partition(Iterable, Predicate, boolean)
+     * @since 1.1
      */
-    public static <T, V> Collection<V> transform(
-            Iterable<T> iterable,
-            Function<? super T, V> function)
+    public static <T> PartitionMutableCollection<T> partition(Iterable<T> iterable, Predicate<? super T> predicate)
     {
-        return ParallelIterate.transform(iterable, function, false);
+        return ParallelIterate.partition(iterable, predicate, false);
     }
 
     /**
-     * Same effect as {@link Iterate#transform(Iterable, Function)}, but executed in parallel batches,
-     * and with potentially reordered result.
+     * Same effect as {@link Iterate#partition(Iterable, Predicate)}, but executed in parallel batches,
+     * and with a potentially reordered result.
      *
      * @param allowReorderedResult If the result can be in a different order.
      *                             Allowing reordering may yield faster execution.
-     * @return The transformed elements. The Collection will be of the same type
-     *         (List or Set) as the input.
+     * @since 1.1
      */
-    public static <T, V> Collection<V> transform(
+    public static <T> PartitionMutableCollection<T> partition(
             Iterable<T> iterable,
-            Function<? super T, V> function,
+            Predicate<? super T> predicate,
             boolean allowReorderedResult)
     {
-        return ParallelIterate.transform(iterable, function, null, allowReorderedResult);
+        return ParallelIterate.partition(
+                iterable,
+                predicate,
+                ParallelIterate.DEFAULT_MIN_FORK_SIZE,
+                ParallelIterate.EXECUTOR_SERVICE,
+                allowReorderedResult);
     }
 
     /**
-     * Same effect as {@link Iterate#transform(Iterable, Function)}, but executed in parallel batches,
-     * and writing output into the specified collection.
+     * Same effect as {@link Iterate#partition(Iterable, Predicate)}, but executed in parallel batches.  When the
+     * input is a random access list and the result must keep its order, each batch writes its selected and rejected
+     * elements directly into its own range of presized FastLists.
      *
-     * @param target               Where to write the output.
      * @param allowReorderedResult If the result can be in a different order.
      *                             Allowing reordering may yield faster execution.
-     * @return The 'target' collection, with the transformed elements added.
+     * @since 1.1
      */
-    public static <T, V, R extends Collection<V>> R transform(
-            Iterable<T> iterable,
-            Function<? super T, V> function,
-            R target,
-            boolean allowReorderedResult)
-    {
-        return ParallelIterate.transform(
-                iterable,
-                function,
-                target,
-                ParallelIterate.DEFAULT_MIN_FORK_SIZE,
-                ParallelIterate.EXECUTOR_SERVICE,
-                allowReorderedResult);
-    }
-
-    public static <T, V, R extends Collection<V>> R transform(
+    public static <T> PartitionMutableCollection<T> partition(
             Iterable<T> iterable,
-            Function<? super T, V> function,
-            R target,
+            Predicate<? super T> predicate,
             int batchSize,
             Executor executor,
             boolean allowReorderedResult)
     {
-        int size = Iterate.sizeOf(iterable);
-        CollectProcedureCombiner<T, V> combiner = new CollectProcedureCombiner<T, V>(iterable, target, size, allowReorderedResult);
-        int taskCount = ParallelIterate.calculateTaskCount(size, batchSize);
-        CollectProcedureFactory<T, V> procedureFactory = new CollectProcedureFactory<T, V>(function, size / taskCount);
+        if (!allowReorderedResult && ParallelIterate.isRandomAccessList(iterable))
+        {
+            List<T> list = (List<T>) iterable;
+            return OffsetListWriter.partition(list, predicate, ParallelIterate.calculateSectionCount(list.size(), batchSize), executor);
+        }
+        final PartitionProcedureCombiner<T> combiner = new PartitionProcedureCombiner<T>(iterable, predicate, allowReorderedResult);
         ParallelIterate.forEach(
                 iterable,
-                procedureFactory,
+                new ProcedureFactory<PartitionAddProcedure<T>>()
+                {
+                    public PartitionAddProcedure<T> create()
+                    {
+                        return new PartitionAddProcedure<T>(combiner.newPartition());
+                    }
+                },
                 combiner,
                 batchSize,
-                taskCount,
+                ParallelIterate.calculateTaskCount(iterable, batchSize),
                 executor);
-        return (R) combiner.getResult();
-    }
-
-    public static <T, V> Collection<V> flatTransform(
-            Iterable<T> iterable,
-            Function<? super T, Collection<V>> function)
-    {
-        return ParallelIterate.flatTransform(iterable, function, false);
+        return combiner.getResult();
     }
 
-    public static <T, V> Collection<V> flatTransform(
-            Iterable<T> iterable,
-            Function<? super T, Collection<V>> function,
-            boolean allowReorderedResult)
+    /**
+     * Same effect as {@link Iterate#count(Iterable, Predicate)}, but executed in parallel batches.
+     *
+     * @return The number of elements which satisfy the predicate.
+     */
+    public static <T> int count(Iterable<T> iterable, Predicate<? super T> predicate)
     {
-        return ParallelIterate.flatTransform(iterable, function, null, allowReorderedResult);
+        CountCombiner<T> combiner = new CountCombiner<T>();
+        CountProcedureFactory<T> procedureFactory = new CountProcedureFactory<T>(predicate);
+        ParallelIterate.forEach(
+                iterable,
+                procedureFactory,
+                combiner,
+                ParallelIterate.DEFAULT_MIN_FORK_SIZE,
+                ParallelIterate.EXECUTOR_SERVICE);
+        return combiner.getCount();
     }
 
-    public static <T, V, R extends Collection<V>> R flatTransform(
+    /**
+     * A parallel fold.  Each batch folds its elements into its own value, created by the zeroValueGenerator, with the
+     * accumulator.  The batch values are then folded together with the combineFunction in the order of the batches,
+     * starting from another zero value.  The zero value must therefore be an identity of the combineFunction, and the
+     * combineFunction must be associative, but need not be commutative.
+     * <p/>
+     * e.g.
+     * <pre>
+     * String longest = ParallelIterate.<b>aggregate</b>(words, zeroGenerator, longerOf, longerOf);
+     * </pre>
+     *
+     * @since 1.1
+     */
+    public static <T, A> A aggregate(
             Iterable<T> iterable,
-            Function<? super T, Collection<V>> function,
-            R target,
-            boolean allowReorderedResult)
+            Generator<? extends A> zeroValueGenerator,
+            Function2<? super A, ? super T, ? extends A> accumulator,
+            Function2<? super A, ? super A, ? extends A> combineFunction)
     {
-        return ParallelIterate.flatTransform(
+        return ParallelIterate.aggregate(
                 iterable,
-                function,
-                target,
+                zeroValueGenerator,
+                accumulator,
+                combineFunction,
                 ParallelIterate.DEFAULT_MIN_FORK_SIZE,
-                ParallelIterate.EXECUTOR_SERVICE,
-                allowReorderedResult);
+                ParallelIterate.EXECUTOR_SERVICE);
     }
 
-    public static <T, V, R extends Collection<V>> R flatTransform(
+    /**
+     * @see #aggregate(Iterable, Generator, Function2, Function2)
+     * @since 1.1
+     */
+    public static <T, A> A aggregate(
             Iterable<T> iterable,
-            Function<? super T, Collection<V>> function,
-            R target,
+            final Generator<? extends A> zeroValueGenerator,
+            final Function2<? super A, ? super T, ? extends A> accumulator,
+            Function2<? super A, ? super A, ? extends A> combineFunction,
             int batchSize,
-            Executor executor,
-            boolean allowReorderedResult)
+            Executor executor)
     {
-        int size = Iterate.sizeOf(iterable);
-        int taskSize = size / ParallelIterate.DEFAULT_PARALLEL_TASK_COUNT;
-        FlatCollectProcedureCombiner<T, V> combiner =
-                new FlatCollectProcedureCombiner<T, V>(iterable, target, size, allowReorderedResult);
-        FlatCollectProcedureFactory<T, V> procedureFactory = new FlatCollectProcedureFactory<T, V>(function, taskSize);
+        AggregateCombiner<T, A> combiner = new AggregateCombiner<T, A>(zeroValueGenerator.value(), combineFunction);
         ParallelIterate.forEach(
                 iterable,
-                procedureFactory,
+                new ProcedureFactory<AggregateProcedure<T, A>>()
+                {
+                    public AggregateProcedure<T, A> create()
+                    {
+                        return new AggregateProcedure<T, A>(zeroValueGenerator.value(), accumulator);
+                    }
+                },
                 combiner,
                 batchSize,
-                ParallelIterate.calculateTaskCount(size, batchSize),
+                ParallelIterate.calculateTaskCount(iterable, batchSize),
                 executor);
-        return (R) combiner.getResult();
+        return combiner.getResult();
     }
 
     /**
-     * Same effect as {@link Iterate#transformIf(Iterable, Predicate, Function)},
-     * but executed in parallel batches.
+     * Returns the sum of the int values returned by the function for each element, computed in parallel batches.
+     * The sum is accumulated as a long so that it does not overflow.
      *
-     * @return The transformed elements. The Collection will be of the same type as the input (List or Set)
-     *         and will be in the same order as the input (if it is an ordered collection).
-     * @see ParallelIterate#transformIf(Iterable, Predicate, Function, boolean)
+     * @since 1.1
      */
-    public static <T, V> Collection<V> transformIf(
-            Iterable<T> iterable,
-            Predicate<? super T> predicate,
-            Function<? super T, V> function)
+    public static <T> long sumOfInt(Iterable<T> iterable, IntFunction<? super T> function)
     {
-        return ParallelIterate.transformIf(iterable, predicate, function, false);
+        return ParallelIterate.sumOfInt(iterable, function, ParallelIterate.DEFAULT_MIN_FORK_SIZE, ParallelIterate.EXECUTOR_SERVICE);
     }
 
     /**
-     * Same effect as {@link Iterate#transformIf(Iterable, Predicate, Function)},
-     * but executed in parallel batches, and with potentially reordered results.
-     *
-     * @param allowReorderedResult If the result can be in a different order.
-     *                             Allowing reordering may yield faster execution.
-     * @return The transformed elements. The Collection will be of the same type
-     *         as the input (List or Set)
+     * @see #sumOfInt(Iterable, IntFunction)
+     * @since 1.1
      */
-    public static <T, V> Collection<V> transformIf(
+    public static <T> long sumOfInt(
             Iterable<T> iterable,
-            Predicate<? super T> predicate,
-            Function<? super T, V> function,
+            final IntFunction<? super T> function,
+            int batchSize,
+            Executor executor)
+    {
+        SumOfIntCombiner<T> combiner = new SumOfIntCombiner<T>();
+        ParallelIterate.forEach(
+                iterable,
+                new ProcedureFactory<SumOfIntProcedure<T>>()
+                {
+                    public SumOfIntProcedure<T> create()
+                    {
+                        return new SumOfIntProcedure<T>(function);
+                    }
+                },
+                combiner,
+                batchSize,
+                ParallelIterate.calculateTaskCount(iterable, batchSize),
+                executor);
+        return combiner.getSum();
+    }
+
+    /**
+     * Returns the sum of the long values returned by the function for each element, computed in parallel batches.
+     *
+     * @since 1.1
+     */
+    public static <T> long sumOfLong(Iterable<T> iterable, LongFunction<? super T> function)
+    {
+        return ParallelIterate.sumOfLong(iterable, function, ParallelIterate.DEFAULT_MIN_FORK_SIZE, ParallelIterate.EXECUTOR_SERVICE);
+    }
+
+    /**
+     * @see #sumOfLong(Iterable, LongFunction)
+     * @since 1.1
+     */
+    public static <T> long sumOfLong(
+            Iterable<T> iterable,
+            final LongFunction<? super T> function,
+            int batchSize,
+            Executor executor)
+    {
+        SumOfLongCombiner<T> combiner = new SumOfLongCombiner<T>();
+        ParallelIterate.forEach(
+                iterable,
+                new ProcedureFactory<SumOfLongProcedure<T>>()
+                {
+                    public SumOfLongProcedure<T> create()
+                    {
+                        return new SumOfLongProcedure<T>(function);
+                    }
+                },
+                combiner,
+                batchSize,
+                ParallelIterate.calculateTaskCount(iterable, batchSize),
+                executor);
+        return combiner.getSum();
+    }
+
+    /**
+     * Returns the sum of the double values returned by the function for each element, computed in parallel batches.
+     * Each batch uses Kahan summation and the batch sums are combined with their compensation, so the result does
+     * not depend noticeably on how the elements were split into batches.
+     *
+     * @since 1.1
+     */
+    public static <T> double sumOfDouble(Iterable<T> iterable, DoubleFunction<? super T> function)
+    {
+        return ParallelIterate.sumOfDouble(iterable, function, ParallelIterate.DEFAULT_MIN_FORK_SIZE, ParallelIterate.EXECUTOR_SERVICE);
+    }
+
+    /**
+     * @see #sumOfDouble(Iterable, DoubleFunction)
+     * @since 1.1
+     */
+    public static <T> double sumOfDouble(
+            Iterable<T> iterable,
+            final DoubleFunction<? super T> function,
+            int batchSize,
+            Executor executor)
+    {
+        SumOfDoubleCombiner<T> combiner = new SumOfDoubleCombiner<T>();
+        ParallelIterate.forEach(
+                iterable,
+                new ProcedureFactory<SumOfDoubleProcedure<T>>()
+                {
+                    public SumOfDoubleProcedure<T> create()
+                    {
+                        return new SumOfDoubleProcedure<T>(function);
+                    }
+                },
+                combiner,
+                batchSize,
+                ParallelIterate.calculateTaskCount(iterable, batchSize),
+                executor);
+        return combiner.getSum();
+    }
+
+    /**
+     * Returns a UnifiedSet containing the elements of the iterable, built in parallel batches.  Each batch builds its
+     * own sets, which are then merged in parallel: by a tree reduction for small inputs, and for large inputs by
+     * hash partition, so that the final copy into the result is parallel as well.
+     *
+     * @since 1.1
+     */
+    public static <T> UnifiedSet<T> toSet(Iterable<T> iterable)
+    {
+        return ParallelIterate.toSet(iterable, ParallelIterate.DEFAULT_MIN_FORK_SIZE, ParallelIterate.EXECUTOR_SERVICE);
+    }
+
+    /**
+     * @see #toSet(Iterable)
+     * @since 1.1
+     */
+    public static <T> UnifiedSet<T> toSet(Iterable<T> iterable, int batchSize, Executor executor)
+    {
+        int taskCount = ParallelIterate.calculateTaskCount(iterable, batchSize);
+        return ParallelIterate.toSet(iterable, batchSize, taskCount, ParallelIterate.calculatePartitionCount(iterable, taskCount), executor);
+    }
+
+    static <T> UnifiedSet<T> toSet(
+            Iterable<T> iterable,
+            int batchSize,
+            int taskCount,
+            final int partitionCount,
+            Executor executor)
+    {
+        ToSetCombiner<T> combiner = new ToSetCombiner<T>(executor);
+        ParallelIterate.forEach(
+                iterable,
+                new ProcedureFactory<HashPartitionedSetProcedure<T>>()
+                {
+                    public HashPartitionedSetProcedure<T> create()
+                    {
+                        return new HashPartitionedSetProcedure<T>(partitionCount);
+                    }
+                },
+                combiner,
+                batchSize,
+                taskCount,
+                executor);
+        return combiner.getResult();
+    }
+
+    /**
+     * Returns a HashBag containing the elements of the iterable, built in parallel batches.  The bags built by each
+     * batch are merged by a tree reduction.
+     *
+     * @since 1.1
+     */
+    public static <T> HashBag<T> toBag(Iterable<T> iterable)
+    {
+        return ParallelIterate.toBag(iterable, ParallelIterate.DEFAULT_MIN_FORK_SIZE, ParallelIterate.EXECUTOR_SERVICE);
+    }
+
+    /**
+     * @see #toBag(Iterable)
+     * @since 1.1
+     */
+    public static <T> HashBag<T> toBag(Iterable<T> iterable, int batchSize, Executor executor)
+    {
+        ToBagCombiner<T> combiner = new ToBagCombiner<T>(executor);
+        ParallelIterate.forEach(
+                iterable,
+                new ProcedureFactory<CollectionAddProcedure<T>>()
+                {
+                    public CollectionAddProcedure<T> create()
+                    {
+                        return new CollectionAddProcedure<T>(HashBag.<T>newBag());
+                    }
+                },
+                combiner,
+                batchSize,
+                ParallelIterate.calculateTaskCount(iterable, batchSize),
+                executor);
+        return combiner.getResult();
+    }
+
+    /**
+     * Same effect as {@link Iterate#toMap(Iterable, Function, Function)}, but executed in parallel batches.  The maps
+     * built by each batch are merged in parallel: by a tree reduction for small inputs, and for large inputs by hash
+     * partition, so that the final copy into the result is parallel as well.  When several elements have the same key,
+     * the value calculated for the element that comes last in iteration order is kept.
+     *
+     * @since 1.1
+     */
+    public static <T, K, V> UnifiedMap<K, V> toMap(
+            Iterable<T> iterable,
+            Function<? super T, ? extends K> keyFunction,
+            Function<? super T, ? extends V> valueFunction)
+    {
+        return ParallelIterate.toMap(
+                iterable,
+                keyFunction,
+                valueFunction,
+                ParallelIterate.DEFAULT_MIN_FORK_SIZE,
+                ParallelIterate.EXECUTOR_SERVICE);
+    }
+
+    /**
+     * @see #toMap(Iterable, Function, Function)
+     * @since 1.1
+     */
+    public static <T, K, V> UnifiedMap<K, V> toMap(
+            Iterable<T> iterable,
+            Function<? super T, ? extends K> keyFunction,
+            Function<? super T, ? extends V> valueFunction,
+            int batchSize,
+            Executor executor)
+    {
+        int taskCount = ParallelIterate.calculateTaskCount(iterable, batchSize);
+        return ParallelIterate.toMap(
+                iterable,
+                keyFunction,
+                valueFunction,
+                batchSize,
+                taskCount,
+                ParallelIterate.calculatePartitionCount(iterable, taskCount),
+                executor);
+    }
+
+    static <T, K, V> UnifiedMap<K, V> toMap(
+            Iterable<T> iterable,
+            final Function<? super T, ? extends K> keyFunction,
+            final Function<? super T, ? extends V> valueFunction,
+            int batchSize,
+            int taskCount,
+            final int partitionCount,
+            Executor executor)
+    {
+        ToMapCombiner<T, K, V> combiner = new ToMapCombiner<T, K, V>(executor);
+        ParallelIterate.forEach(
+                iterable,
+                new ProcedureFactory<HashPartitionedMapProcedure<T, K, V>>()
+                {
+                    public HashPartitionedMapProcedure<T, K, V> create()
+                    {
+                        return new HashPartitionedMapProcedure<T, K, V>(keyFunction, valueFunction, partitionCount);
+                    }
+                },
+                combiner,
+                batchSize,
+                taskCount,
+                executor);
+        return combiner.getResult();
+    }
+
+    /**
+     * Same effect as {@link Iterate#transform(Iterable, Function)},
+     * but executed in parallel batches.
+     *
+     * @return The transformed elements. The Collection will be of the same type as the input (List or Set)
+     *         and will be in the same order as the input (if it is an ordered collection).
+     * @see ParallelIterate#transform(Iterable, Function, boolean)
+     */
+    public static <T, V> Collection<V> transform(
+            Iterable<T> iterable,
+            Function<? super T, V> function)
+    {
+        return ParallelIterate.transform(iterable, function, false);
+    }
+
+    /**
+     * Same effect as {@link Iterate#transform(Iterable, Function)}, but executed in parallel batches,
+     * and with potentially reordered result.
+     *
+     * @param allowReorderedResult If the result can be in a different order.
+     *                             Allowing reordering may yield faster execution.
+     * @return The transformed elements. The Collection will be of the same type
+     *         (List or Set) as the input.
+     */
+    public static <T, V> Collection<V> transform(
+            Iterable<T> iterable,
+            Function<? super T, V> function,
+            boolean allowReorderedResult)
+    {
+        return ParallelIterate.transform(iterable, function, null, allowReorderedResult);
+    }
+
+    /**
+     * Same effect as {@link Iterate#transform(Iterable, Function)}, but executed in parallel batches,
+     * and writing output into the specified collection.
+     *
+     * @param target               Where to write the output.
+     * @param allowReorderedResult If the result can be in a different order.
+     *                             Allowing reordering may yield faster execution.
+     * @return The 'target' collection, with the transformed elements added.
+     */
+    public static <T, V, R extends Collection<V>> R transform(
+            Iterable<T> iterable,
+            Function<? super T, V> function,
+            R target,
+            boolean allowReorderedResult)
+    {
+        return ParallelIterate.transform(
+                iterable,
+                function,
+                target,
+                ParallelIterate.DEFAULT_MIN_FORK_SIZE,
+                ParallelIterate.EXECUTOR_SERVICE,
+                allowReorderedResult);
+    }
+
+    public static <T, V, R extends Collection<V>> R transform(
+            Iterable<T> iterable,
+            Function<? super T, V> function,
+            R target,
+            int batchSize,
+            Executor executor,
+            boolean allowReorderedResult)
+    {
+        int size = Iterate.sizeOf(iterable);
+        if (target == null && !allowReorderedResult && ParallelIterate.isRandomAccessList(iterable))
+        {
+            @SuppressWarnings("unchecked")
+            R result = (R) OffsetListWriter.transform((List<T>) iterable, function, ParallelIterate.calculateSectionCount(size, batchSize), executor);
+            return result;
+        }
+        CollectProcedureCombiner<T, V> combiner = new CollectProcedureCombiner<T, V>(iterable, target, size, allowReorderedResult);
+        int taskCount = ParallelIterate.calculateTaskCount(size, batchSize);
+        CollectProcedureFactory<T, V> procedureFactory = new CollectProcedureFactory<T, V>(function, size / taskCount);
+        ParallelIterate.forEach(
+                iterable,
+                procedureFactory,
+                combiner,
+                batchSize,
+                taskCount,
+                executor);
+        return (R) combiner.getResult();
+    }
+
+    public static <T, V> Collection<V> flatTransform(
+            Iterable<T> iterable,
+            Function<? super T, Collection<V>> function)
+    {
+        return ParallelIterate.flatTransform(iterable, function, false);
+    }
+
+    public static <T, V> Collection<V> flatTransform(
+            Iterable<T> iterable,
+            Function<? super T, Collection<V>> function,
+            boolean allowReorderedResult)
+    {
+        return ParallelIterate.flatTransform(iterable, function, null, allowReorderedResult);
+    }
+
+    public static <T, V, R extends Collection<V>> R flatTransform(
+            Iterable<T> iterable,
+            Function<? super T, Collection<V>> function,
+            R target,
+            boolean allowReorderedResult)
+    {
+        return ParallelIterate.flatTransform(
+                iterable,
+                function,
+                target,
+                ParallelIterate.DEFAULT_MIN_FORK_SIZE,
+                ParallelIterate.EXECUTOR_SERVICE,
+                allowReorderedResult);
+    }
+
+    public static <T, V, R extends Collection<V>> R flatTransform(
+            Iterable<T> iterable,
+            Function<? super T, Collection<V>> function,
+            R target,
+            int batchSize,
+            Executor executor,
+            boolean allowReorderedResult)
+    {
+        int size = Iterate.sizeOf(iterable);
+        if (target == null && !allowReorderedResult && ParallelIterate.isRandomAccessList(iterable))
+        {
+            @SuppressWarnings("unchecked")
+            R result = (R) OffsetListWriter.flatTransform((List<T>) iterable, function, ParallelIterate.calculateSectionCount(size, batchSize), executor);
+            return result;
+        }
+        int taskSize = size / ParallelIterate.DEFAULT_PARALLEL_TASK_COUNT;
+        FlatCollectProcedureCombiner<T, V> combiner =
+                new FlatCollectProcedureCombiner<T, V>(iterable, target, size, allowReorderedResult);
+        FlatCollectProcedureFactory<T, V> procedureFactory = new FlatCollectProcedureFactory<T, V>(function, taskSize);
+        ParallelIterate.forEach(
+                iterable,
+                procedureFactory,
+                combiner,
+                batchSize,
+                ParallelIterate.calculateTaskCount(size, batchSize),
+                executor);
+        return (R) combiner.getResult();
+    }
+
+    /**
+     * Same effect as {@link Iterate#transformIf(Iterable, Predicate, Function)},
+     * but executed in parallel batches.
+     *
+     * @return The transformed elements. The Collection will be of the same type as the input (List or Set)
+     *         and will be in the same order as the input (if it is an ordered collection).
+     * @see ParallelIterate#transformIf(Iterable, Predicate, Function, boolean)
+     */
+    public static <T, V> Collection<V> transformIf(
+            Iterable<T> iterable,
+            Predicate<? super T> predicate,
+            Function<? super T, V> function)
+    {
+        return ParallelIterate.transformIf(iterable, predicate, function, false);
+    }
+
+    /**
+     * Same effect as {@link Iterate#transformIf(Iterable, Predicate, Function)},
+     * but executed in parallel batches, and with potentially reordered results.
+     *
+     * @param allowReorderedResult If the result can be in a different order.
+     *                             Allowing reordering may yield faster execution.
+     * @return The transformed elements. The Collection will be of the same type
+     *         as the input (List or Set)
+     */
+    public static <T, V> Collection<V> transformIf(
+            Iterable<T> iterable,
+            Predicate<? super T> predicate,
+            Function<? super T, V> function,
             boolean allowReorderedResult)
     {
         return ParallelIterate.transformIf(iterable, predicate, function, null, allowReorderedResult);
@@ -907,6 +1551,13 @@ public final class ParallelIterate
             Executor executor,
             boolean allowReorderedResult)
     {
+        if (target == null && !allowReorderedResult && ParallelIterate.isRandomAccessList(iterable))
+        {
+            List<T> list = (List<T>) iterable;
+            @SuppressWarnings("unchecked")
+            R result = (R) OffsetListWriter.transformIf(list, predicate, function, ParallelIterate.calculateSectionCount(list.size(), batchSize), executor);
+            return result;
+        }
         CollectIfProcedureCombiner<T, V> combiner = new CollectIfProcedureCombiner<T, V>(iterable, target, 10, allowReorderedResult);
         CollectIfProcedureFactory<T, V> procedureFactory = new CollectIfProcedureFactory<T, V>(function, predicate, batchSize);
         ParallelIterate.forEach(
@@ -1000,6 +1651,393 @@ public final class ParallelIterate
         return concurrentMultimap;
     }
 
+    /**
+     * Same as {@link #forEach(Iterable, Procedure)}, but returns as soon as the batches have been submitted instead of
+     * waiting for them.  The returned Future completes once every batch has run, and cancelling it stops the batches
+     * which have not yet started.
+     *
+     * @since 1.1
+     */
+    public static <T> Future<Void> forEachAsync(Iterable<T> iterable, Procedure<? super T> procedure)
+    {
+        return ParallelIterate.forEachAsync(
+                iterable,
+                procedure,
+                ParallelIterate.DEFAULT_MIN_FORK_SIZE,
+                ParallelIterate.EXECUTOR_SERVICE);
+    }
+
+    /**
+     * @see #forEachAsync(Iterable, Procedure)
+     * @since 1.1
+     */
+    public static <T> Future<Void> forEachAsync(
+            Iterable<T> iterable,
+            Procedure<? super T> procedure,
+            int batchSize,
+            Executor executor)
+    {
+        return ParallelIterate.submit(
+                iterable,
+                new PassThruProcedureFactory<Procedure<? super T>>(procedure),
+                new PassThruCombiner<Procedure<? super T>>(),
+                batchSize,
+                ParallelIterate.calculateTaskCount(iterable, batchSize),
+                executor,
+                new Callable<Void>()
+                {
+                    public Void call()
+                    {
+                        return null;
+                    }
+                });
+    }
+
+    /**
+     * Same as {@link #forEach(Iterable, ProcedureFactory, Combiner)}, but returns as soon as the batches have been
+     * submitted.  The procedures are combined on the thread which finishes the last batch, after which the returned
+     * Future yields the combiner.  Cancelling the Future stops the batches which have not yet started.
+     *
+     * @since 1.1
+     */
+    public static <T, BT extends Procedure<? super T>, C extends Combiner<BT>> Future<C> forEachAsync(
+            Iterable<T> iterable,
+            ProcedureFactory<BT> procedureFactory,
+            C combiner)
+    {
+        return ParallelIterate.forEachAsync(
+                iterable,
+                procedureFactory,
+                combiner,
+                ParallelIterate.DEFAULT_MIN_FORK_SIZE,
+                Math.max(ParallelIterate.DEFAULT_PARALLEL_TASK_COUNT, Iterate.sizeOf(iterable) / ParallelIterate.DEFAULT_MIN_FORK_SIZE),
+                ParallelIterate.EXECUTOR_SERVICE);
+    }
+
+    /**
+     * @see #forEachAsync(Iterable, ProcedureFactory, Combiner)
+     * @since 1.1
+     */
+    public static <T, BT extends Procedure<? super T>, C extends Combiner<BT>> Future<C> forEachAsync(
+            Iterable<T> iterable,
+            ProcedureFactory<BT> procedureFactory,
+            final C combiner,
+            int minForkSize,
+            int taskCount,
+            Executor executor)
+    {
+        return ParallelIterate.submit(iterable, procedureFactory, combiner, minForkSize, taskCount, executor, new Callable<C>()
+        {
+            public C call()
+            {
+                return combiner;
+            }
+        });
+    }
+
+    /**
+     * Same as {@link #filter(Iterable, Predicate)}, but returns a Future of the result as soon as the batches have
+     * been submitted.
+     *
+     * @see #forEachAsync(Iterable, ProcedureFactory, Combiner)
+     * @since 1.1
+     */
+    public static <T> Future<Collection<T>> filterAsync(Iterable<T> iterable, Predicate<? super T> predicate)
+    {
+        return ParallelIterate.filterAsync(
+                iterable,
+                predicate,
+                null,
+                ParallelIterate.DEFAULT_MIN_FORK_SIZE,
+                ParallelIterate.EXECUTOR_SERVICE,
+                false);
+    }
+
+    /**
+     * Same as {@link #filter(Iterable, Predicate, Collection, int, Executor, boolean)}, but returns a Future of the
+     * target as soon as the batches have been submitted.
+     *
+     * @since 1.1
+     */
+    public static <T, R extends Collection<T>> Future<R> filterAsync(
+            Iterable<T> iterable,
+            Predicate<? super T> predicate,
+            R target,
+            int batchSize,
+            Executor executor,
+            boolean allowReorderedResult)
+    {
+        final SelectProcedureCombiner<T> combiner = new SelectProcedureCombiner<T>(iterable, target, 10, allowReorderedResult);
+        SelectProcedureFactory<T> procedureFactory = new SelectProcedureFactory<T>(predicate, batchSize);
+        return ParallelIterate.submit(
+                iterable,
+                procedureFactory,
+                combiner,
+                batchSize,
+                ParallelIterate.calculateTaskCount(iterable, batchSize),
+                executor,
+                new Callable<R>()
+                {
+                    public R call()
+                    {
+                        return (R) combiner.getResult();
+                    }
+                });
+    }
+
+    /**
+     * Same as {@link #transform(Iterable, Function)}, but returns a Future of the result as soon as the batches have
+     * been submitted.
+     *
+     * @see #forEachAsync(Iterable, ProcedureFactory, Combiner)
+     * @since 1.1
+     */
+    public static <T, V> Future<Collection<V>> transformAsync(Iterable<T> iterable, Function<? super T, V> function)
+    {
+        return ParallelIterate.transformAsync(
+                iterable,
+                function,
+                null,
+                ParallelIterate.DEFAULT_MIN_FORK_SIZE,
+                ParallelIterate.EXECUTOR_SERVICE,
+                false);
+    }
+
+    /**
+     * Same as {@link #transform(Iterable, Function, Collection, int, Executor, boolean)}, but returns a Future of the
+     * target as soon as the batches have been submitted.
+     *
+     * @since 1.1
+     */
+    public static <T, V, R extends Collection<V>> Future<R> transformAsync(
+            Iterable<T> iterable,
+            Function<? super T, V> function,
+            R target,
+            int batchSize,
+            Executor executor,
+            boolean allowReorderedResult)
+    {
+        int size = Iterate.sizeOf(iterable);
+        final CollectProcedureCombiner<T, V> combiner = new CollectProcedureCombiner<T, V>(iterable, target, size, allowReorderedResult);
+        int taskCount = ParallelIterate.calculateTaskCount(size, batchSize);
+        CollectProcedureFactory<T, V> procedureFactory = new CollectProcedureFactory<T, V>(function, size / taskCount);
+        return ParallelIterate.submit(
+                iterable,
+                procedureFactory,
+                combiner,
+                batchSize,
+                taskCount,
+                executor,
+                new Callable<R>()
+                {
+                    public R call()
+                    {
+                        return (R) combiner.getResult();
+                    }
+                });
+    }
+
+    /**
+     * Same as {@link #groupBy(Iterable, Function)}, but returns a Future of the multimap as soon as the batches have
+     * been submitted.
+     *
+     * @see #forEachAsync(Iterable, ProcedureFactory, Combiner)
+     * @since 1.1
+     */
+    public static <K, V> Future<MutableMultimap<K, V>> groupByAsync(
+            Iterable<V> iterable,
+            Function<? super V, ? extends K> function)
+    {
+        return ParallelIterate.groupByAsync(
+                iterable,
+                function,
+                ParallelIterate.DEFAULT_MIN_FORK_SIZE,
+                ParallelIterate.EXECUTOR_SERVICE);
+    }
+
+    /**
+     * @see #groupByAsync(Iterable, Function)
+     * @since 1.1
+     */
+    public static <K, V> Future<MutableMultimap<K, V>> groupByAsync(
+            Iterable<V> iterable,
+            Function<? super V, ? extends K> function,
+            int batchSize,
+            Executor executor)
+    {
+        final MutableMultimap<K, V> multimap = SynchronizedPutFastListMultimap.newMultimap();
+        return ParallelIterate.submit(
+                iterable,
+                new PassThruProcedureFactory<Procedure<V>>(new MultimapPutProcedure<K, V>(multimap, function)),
+                Combiners.<Procedure<V>>passThru(),
+                batchSize,
+                ParallelIterate.calculateTaskCount(iterable, batchSize),
+                executor,
+                new Callable<MutableMultimap<K, V>>()
+                {
+                    public MutableMultimap<K, V> call()
+                    {
+                        return multimap;
+                    }
+                });
+    }
+
+    /**
+     * Splits the iterable into sections the same way as forEach, creates a procedure per section on the calling
+     * thread, and submits the sections without waiting.  The thread which finishes the last section combines the
+     * procedures and then completes the returned Future with the value of result.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T, BT extends Procedure<? super T>, R> Future<R> submit(
+            Iterable<T> iterable,
+            ProcedureFactory<BT> procedureFactory,
+            final Combiner<BT> combiner,
+            int minForkSize,
+            int taskCount,
+            Executor executor,
+            final Callable<R> result)
+    {
+        final int size = Iterate.sizeOf(iterable);
+        final BatchIterable<T> batchIterable;
+        final List<T> list;
+        int sectionCount;
+        if ((iterable instanceof RandomAccess || iterable instanceof ListIterable) && iterable instanceof List)
+        {
+            batchIterable = null;
+            list = (List<T>) iterable;
+            sectionCount = Math.min(size, taskCount);
+        }
+        else if (iterable instanceof BatchIterable)
+        {
+            batchIterable = (BatchIterable<T>) iterable;
+            list = null;
+            sectionCount = Math.min(
+                    size,
+                    Math.min(taskCount, batchIterable.getBatchCount(Math.max(1, (int) Math.ceil((double) size / (double) taskCount)))));
+        }
+        else
+        {
+            batchIterable = null;
+            list = ArrayAdapter.adapt((T[]) Iterate.toArray(iterable));
+            sectionCount = Math.min(size, taskCount);
+        }
+        if (size < minForkSize || sectionCount < 1)
+        {
+            sectionCount = 1;
+        }
+        final FastList<BT> procedures = FastList.newList(sectionCount);
+        for (int i = 0; i < sectionCount; i++)
+        {
+            procedures.add(procedureFactory.create());
+        }
+        final int finalSectionCount = sectionCount;
+        final int sectionSize = size / sectionCount;
+        IntProcedure sectionProcedure = new IntProcedure()
+        {
+            public void value(int sectionIndex)
+            {
+                BT procedure = procedures.get(sectionIndex);
+                if (batchIterable != null)
+                {
+                    batchIterable.batchForEach(procedure, sectionIndex, finalSectionCount);
+                }
+                else
+                {
+                    int start = sectionIndex * sectionSize;
+                    int end = sectionIndex == finalSectionCount - 1 ? size : start + sectionSize;
+                    for (int i = start; i < end; i++)
+                    {
+                        procedure.value(list.get(i));
+                    }
+                }
+            }
+        };
+        return new SectionTaskRunner(sectionCount).submit(sectionProcedure, new Callable<R>()
+        {
+            public R call() throws Exception
+            {
+                if (combiner.useCombineOne())
+                {
+                    for (int i = 0; i < procedures.size(); i++)
+                    {
+                        combiner.combineOne(procedures.get(i));
+                    }
+                }
+                else
+                {
+                    combiner.combineAll(procedures);
+                }
+                return result.call();
+            }
+        }, executor);
+    }
+
+    /**
+     * Same as {@link #forEach(Iterable, Procedure)}, but for procedures which block on each element, for example while
+     * reading files or calling a local service.  The iterable is split into at most maxConcurrency batches which run at
+     * the same time, on virtual threads when the JVM supports them and on an elastic pool of platform threads
+     * otherwise, so throughput is not capped at the number of processors.
+     *
+     * @since 1.1
+     */
+    public static <T> void forEachBlocking(Iterable<T> iterable, Procedure<? super T> procedure, int maxConcurrency)
+    {
+        ParallelIterate.forEachBlocking(
+                iterable,
+                new PassThruProcedureFactory<Procedure<? super T>>(procedure),
+                new PassThruCombiner<Procedure<? super T>>(),
+                maxConcurrency);
+    }
+
+    /**
+     * Same as {@link #forEach(Iterable, ProcedureFactory, Combiner)}, but for procedures which block on each element.
+     * Each of the at most maxConcurrency batches gets its own procedure, and the procedures are combined exactly as
+     * they are by forEach.
+     *
+     * @see #forEachBlocking(Iterable, Procedure, int)
+     * @since 1.1
+     */
+    public static <T, BT extends Procedure<? super T>> void forEachBlocking(
+            Iterable<T> iterable,
+            ProcedureFactory<BT> procedureFactory,
+            Combiner<BT> combiner,
+            int maxConcurrency)
+    {
+        if (maxConcurrency < 1)
+        {
+            throw new IllegalArgumentException("Max concurrency must be greater than zero: " + maxConcurrency);
+        }
+        ParallelIterate.forEach(
+                iterable,
+                procedureFactory,
+                combiner,
+                1,
+                maxConcurrency,
+                BlockingExecutorHolder.EXECUTOR_SERVICE);
+    }
+
+    /**
+     * Returns a brand new ExecutorService for procedures which block on each element, running at most maxConcurrency
+     * tasks at a time and queueing the rest.  It uses a virtual thread per task when the JVM supports them, and
+     * otherwise a pool of up to maxConcurrency daemon threads which are started on demand and retired when idle.
+     *
+     * @since 1.1
+     */
+    public static ExecutorService newBlockingExecutor(int maxConcurrency, String poolName)
+    {
+        return BlockingExecutors.newBoundedExecutor(maxConcurrency, poolName);
+    }
+
+    /**
+     * Returns true if the running JVM supports virtual threads, in which case the blocking executors use them.
+     *
+     * @since 1.1
+     */
+    public static boolean isVirtualThreadSupported()
+    {
+        return BlockingExecutors.isVirtualThreadSupported();
+    }
+
     /**
      * Returns a brand new ExecutorService using the specified poolName with the specified maximum thread pool size. The
      * same poolName may be used more than once resulting in multiple pools with the same name.
@@ -1043,4 +2081,17 @@ public final class ParallelIterate
     {
         return TASK_RATIO;
     }
+
+    /**
+     * Creates the executor for blocking procedures on first use.
+     */
+    private static final class BlockingExecutorHolder
+    {
+        private static final ExecutorService EXECUTOR_SERVICE =
+                BlockingExecutors.newUnboundedExecutor(ParallelIterate.class.getSimpleName() + "Blocking");
+
+        private BlockingExecutorHolder()
+        {
+        }
+    }
 }
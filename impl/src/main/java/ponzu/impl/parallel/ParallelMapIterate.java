@@ -16,21 +16,31 @@
 
 package ponzu.impl.parallel;
 
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Executor;
 
-import ponzu.api.block.procedure.Procedure;
+import ponzu.api.block.function.Function2;
+import ponzu.api.block.function.Function3;
+import ponzu.api.block.function.Generator;
+import ponzu.api.block.predicate.Predicate2;
 import ponzu.api.block.procedure.Procedure2;
-import ponzu.api.tuple.Pair;
+import ponzu.api.block.procedure.primitive.IntProcedure;
+import ponzu.api.map.MutableMap;
+import ponzu.impl.list.mutable.FastList;
+import ponzu.impl.map.mutable.UnifiedMap;
 import ponzu.impl.utility.MapIterate;
 
 /**
  * The ParallelMapIterate class contains parallel algorithms that work with Maps.
  * <p/>
- * The forEachEtry algorithm employs a batching fork and join approach approach which does
- * not yet allow for specification of a Factory for the blocks or a Combiner for the results.
- * This means that forEachKeyValue can only support pure forking or forking with a shared
- * thread-safe data structure collecting results.
+ * Maps which implement {@link BatchKeyValueIterable}, such as UnifiedMap and UnifiedMapWithHashingStrategy, are split
+ * directly by slot range of their internal tables, so no entries, pairs or intermediate lists are created.  Other
+ * maps are traversed via a single array copy of their entry set, which is then split into contiguous sections.
+ * <p/>
+ * Each section is given its own procedure created by a {@link Procedure2Factory}, and the procedures are merged by a
+ * {@link Combiner} once every section has completed.
  */
 public final class ParallelMapIterate
 {
@@ -76,15 +86,7 @@ public final class ParallelMapIterate
             int minForkSize,
             int taskCount)
     {
-        if (map.size() > minForkSize)
-        {
-            Procedure<Pair<K, V>> pairProcedure = new PairProcedure<K, V>(procedure);
-            ParallelIterate.forEach(MapIterate.toListOfPairs(map), new PassThruProcedureFactory<Procedure<Pair<K, V>>>(pairProcedure), new PassThruCombiner<Procedure<Pair<K, V>>>(), minForkSize, taskCount);
-        }
-        else
-        {
-            MapIterate.forEachKeyValue(map, procedure);
-        }
+        ParallelMapIterate.forEachKeyValue(map, procedure, minForkSize, taskCount, ParallelIterate.EXECUTOR_SERVICE);
     }
 
     /**
@@ -100,37 +102,498 @@ public final class ParallelMapIterate
             int taskCount,
             Executor executor)
     {
-        if (map.size() > minForkSize)
+        ParallelMapIterate.forEachKeyValue(
+                map,
+                new PassThruProcedure2Factory<Procedure2<? super K, ? super V>>(procedure),
+                new PassThruCombiner<Procedure2<? super K, ? super V>>(),
+                minForkSize,
+                taskCount,
+                executor);
+    }
+
+    /**
+     * A parallel form of forEachKeyValue which creates a procedure per section with the specified factory, and
+     * combines the procedures with the specified combiner once every section has completed.
+     *
+     * @since 1.1
+     */
+    public static <K, V, BT extends Procedure2<? super K, ? super V>> void forEachKeyValue(
+            Map<K, V> map,
+            Procedure2Factory<BT> procedureFactory,
+            Combiner<BT> combiner)
+    {
+        ParallelMapIterate.forEachKeyValue(
+                map,
+                procedureFactory,
+                combiner,
+                ParallelIterate.DEFAULT_MIN_FORK_SIZE,
+                ParallelMapIterate.defaultTaskCount(map),
+                ParallelIterate.EXECUTOR_SERVICE);
+    }
+
+    /**
+     * A parallel form of forEachKeyValue which creates a procedure per section with the specified factory, and
+     * combines the procedures with the specified combiner once every section has completed.  Maps with no more than
+     * minForkSize entries are traversed in the calling thread with a single procedure.
+     *
+     * @since 1.1
+     */
+    public static <K, V, BT extends Procedure2<? super K, ? super V>> void forEachKeyValue(
+            Map<K, V> map,
+            Procedure2Factory<BT> procedureFactory,
+            Combiner<BT> combiner,
+            int minForkSize,
+            int taskCount,
+            Executor executor)
+    {
+        int size = map.size();
+        if (size > minForkSize && taskCount > 1)
         {
-            Procedure<Pair<K, V>> pairProcedure = new PairProcedure<K, V>(procedure);
-            ParallelIterate.forEachInListOnExecutor(
-                    MapIterate.toListOfPairs(map),
-                    new PassThruProcedureFactory<Procedure<Pair<K, V>>>(pairProcedure),
-                    new PassThruCombiner<Procedure<Pair<K, V>>>(),
-                    minForkSize,
-                    taskCount,
-                    executor);
+            if (map instanceof BatchKeyValueIterable)
+            {
+                @SuppressWarnings("unchecked")
+                BatchKeyValueIterable<K, V> batchKeyValueIterable = (BatchKeyValueIterable<K, V>) map;
+                ParallelMapIterate.forEachInBatchWithExecutor(
+                        batchKeyValueIterable,
+                        procedureFactory,
+                        combiner,
+                        taskCount,
+                        executor);
+            }
+            else
+            {
+                ParallelMapIterate.forEachInEntryListWithExecutor(
+                        FastList.newList(map.entrySet()),
+                        procedureFactory,
+                        combiner,
+                        taskCount,
+                        executor);
+            }
         }
         else
         {
+            BT procedure = procedureFactory.create();
             MapIterate.forEachKeyValue(map, procedure);
+            ParallelMapIterate.combine(combiner, Collections.singletonList(procedure));
         }
     }
 
-    private static final class PairProcedure<T1, T2> implements Procedure<Pair<T1, T2>>
+    private static <K, V, BT extends Procedure2<? super K, ? super V>> void forEachInBatchWithExecutor(
+            final BatchKeyValueIterable<K, V> map,
+            Procedure2Factory<BT> procedureFactory,
+            Combiner<BT> combiner,
+            int taskCount,
+            Executor executor)
     {
-        private static final long serialVersionUID = 1L;
+        int batchSize = (int) Math.ceil((double) map.size() / (double) taskCount);
+        final int sectionCount = Math.min(taskCount, map.getBatchCount(batchSize));
+        final FastList<BT> procedures = ParallelMapIterate.createProcedures(procedureFactory, sectionCount);
+        new SectionTaskRunner(sectionCount).execute(new IntProcedure()
+        {
+            public void value(int sectionIndex)
+            {
+                map.batchForEachKeyValue(procedures.get(sectionIndex), sectionIndex, sectionCount);
+            }
+        }, executor);
+        ParallelMapIterate.combine(combiner, procedures);
+    }
+
+    private static <K, V, BT extends Procedure2<? super K, ? super V>> void forEachInEntryListWithExecutor(
+            final FastList<Map.Entry<K, V>> entries,
+            Procedure2Factory<BT> procedureFactory,
+            Combiner<BT> combiner,
+            int taskCount,
+            Executor executor)
+    {
+        final int sectionCount = Math.max(1, Math.min(taskCount, entries.size()));
+        final FastList<BT> procedures = ParallelMapIterate.createProcedures(procedureFactory, sectionCount);
+        new SectionTaskRunner(sectionCount).execute(new IntProcedure()
+        {
+            public void value(int sectionIndex)
+            {
+                BT procedure = procedures.get(sectionIndex);
+                int start = (int) ((long) entries.size() * sectionIndex / sectionCount);
+                int end = (int) ((long) entries.size() * (sectionIndex + 1) / sectionCount);
+                for (int i = start; i < end; i++)
+                {
+                    Map.Entry<K, V> entry = entries.get(i);
+                    procedure.value(entry.getKey(), entry.getValue());
+                }
+            }
+        }, executor);
+        ParallelMapIterate.combine(combiner, procedures);
+    }
+
+    private static <BT extends Procedure2<?, ?>> FastList<BT> createProcedures(
+            Procedure2Factory<BT> procedureFactory,
+            int sectionCount)
+    {
+        FastList<BT> procedures = FastList.newList(sectionCount);
+        for (int i = 0; i < sectionCount; i++)
+        {
+            procedures.add(procedureFactory.create());
+        }
+        return procedures;
+    }
+
+    private static <BT> void combine(Combiner<BT> combiner, List<BT> procedures)
+    {
+        if (combiner.useCombineOne())
+        {
+            for (int i = 0; i < procedures.size(); i++)
+            {
+                combiner.combineOne(procedures.get(i));
+            }
+        }
+        else
+        {
+            combiner.combineAll(procedures);
+        }
+    }
+
+    private static int defaultTaskCount(Map<?, ?> map)
+    {
+        return Math.max(ParallelIterate.DEFAULT_PARALLEL_TASK_COUNT, map.size() / ParallelIterate.DEFAULT_MIN_FORK_SIZE);
+    }
+
+    /**
+     * Same effect as {@link MapIterate#filterMapOnEntry(Map, Predicate2)}, but executed in parallel sections.
+     *
+     * @since 1.1
+     */
+    public static <K, V> MutableMap<K, V> filter(Map<K, V> map, Predicate2<? super K, ? super V> predicate)
+    {
+        return ParallelMapIterate.filter(
+                map,
+                predicate,
+                ParallelIterate.DEFAULT_MIN_FORK_SIZE,
+                ParallelMapIterate.defaultTaskCount(map),
+                ParallelIterate.EXECUTOR_SERVICE);
+    }
+
+    /**
+     * Same effect as {@link MapIterate#filterMapOnEntry(Map, Predicate2)}, but executed in parallel sections.
+     *
+     * @since 1.1
+     */
+    public static <K, V> MutableMap<K, V> filter(
+            Map<K, V> map,
+            final Predicate2<? super K, ? super V> predicate,
+            int minForkSize,
+            int taskCount,
+            Executor executor)
+    {
+        MapCombiner<K, V, FilterProcedure<K, V>> combiner = new MapCombiner<K, V, FilterProcedure<K, V>>();
+        ParallelMapIterate.forEachKeyValue(map, new Procedure2Factory<FilterProcedure<K, V>>()
+        {
+            public FilterProcedure<K, V> create()
+            {
+                return new FilterProcedure<K, V>(predicate);
+            }
+        }, combiner, minForkSize, taskCount, executor);
+        return combiner.getResult();
+    }
+
+    /**
+     * Same effect as {@link MapIterate#transformValues(Map, Function2)}, but executed in parallel sections.
+     *
+     * @since 1.1
+     */
+    public static <K, V, V2> MutableMap<K, V2> transformValues(
+            Map<K, V> map,
+            Function2<? super K, ? super V, ? extends V2> function)
+    {
+        return ParallelMapIterate.transformValues(
+                map,
+                function,
+                ParallelIterate.DEFAULT_MIN_FORK_SIZE,
+                ParallelMapIterate.defaultTaskCount(map),
+                ParallelIterate.EXECUTOR_SERVICE);
+    }
+
+    /**
+     * Same effect as {@link MapIterate#transformValues(Map, Function2)}, but executed in parallel sections.
+     *
+     * @since 1.1
+     */
+    public static <K, V, V2> MutableMap<K, V2> transformValues(
+            Map<K, V> map,
+            final Function2<? super K, ? super V, ? extends V2> function,
+            int minForkSize,
+            int taskCount,
+            Executor executor)
+    {
+        MapCombiner<K, V2, TransformValuesProcedure<K, V, V2>> combiner =
+                new MapCombiner<K, V2, TransformValuesProcedure<K, V, V2>>();
+        ParallelMapIterate.forEachKeyValue(map, new Procedure2Factory<TransformValuesProcedure<K, V, V2>>()
+        {
+            public TransformValuesProcedure<K, V, V2> create()
+            {
+                return new TransformValuesProcedure<K, V, V2>(function);
+            }
+        }, combiner, minForkSize, taskCount, executor);
+        return combiner.getResult();
+    }
+
+    /**
+     * Returns the number of entries of the map for which the predicate is true, evaluated in parallel sections.
+     *
+     * @since 1.1
+     */
+    public static <K, V> int count(Map<K, V> map, Predicate2<? super K, ? super V> predicate)
+    {
+        return ParallelMapIterate.count(
+                map,
+                predicate,
+                ParallelIterate.DEFAULT_MIN_FORK_SIZE,
+                ParallelMapIterate.defaultTaskCount(map),
+                ParallelIterate.EXECUTOR_SERVICE);
+    }
+
+    /**
+     * Returns the number of entries of the map for which the predicate is true, evaluated in parallel sections.
+     *
+     * @since 1.1
+     */
+    public static <K, V> int count(
+            Map<K, V> map,
+            final Predicate2<? super K, ? super V> predicate,
+            int minForkSize,
+            int taskCount,
+            Executor executor)
+    {
+        CountCombiner2<K, V> combiner = new CountCombiner2<K, V>();
+        ParallelMapIterate.forEachKeyValue(map, new Procedure2Factory<CountProcedure2<K, V>>()
+        {
+            public CountProcedure2<K, V> create()
+            {
+                return new CountProcedure2<K, V>(predicate);
+            }
+        }, combiner, minForkSize, taskCount, executor);
+        return combiner.getCount();
+    }
+
+    /**
+     * A parallel form of foldLeft over the entries of a map.  Each section folds its entries into a value created by
+     * the zeroValueGenerator, and the section results are then folded together with the combineFunction, starting
+     * from another zero value.  The zero value must therefore be an identity of the combineFunction, and the
+     * combineFunction must be associative.
+     *
+     * @since 1.1
+     */
+    public static <K, V, IV> IV foldLeft(
+            Map<K, V> map,
+            Generator<? extends IV> zeroValueGenerator,
+            Function3<? super IV, ? super K, ? super V, ? extends IV> function,
+            Function2<? super IV, ? super IV, ? extends IV> combineFunction)
+    {
+        return ParallelMapIterate.foldLeft(
+                map,
+                zeroValueGenerator,
+                function,
+                combineFunction,
+                ParallelIterate.DEFAULT_MIN_FORK_SIZE,
+                ParallelMapIterate.defaultTaskCount(map),
+                ParallelIterate.EXECUTOR_SERVICE);
+    }
+
+    /**
+     * A parallel form of foldLeft over the entries of a map.
+     *
+     * @see #foldLeft(Map, Generator, Function3, Function2)
+     * @since 1.1
+     */
+    public static <K, V, IV> IV foldLeft(
+            Map<K, V> map,
+            final Generator<? extends IV> zeroValueGenerator,
+            final Function3<? super IV, ? super K, ? super V, ? extends IV> function,
+            Function2<? super IV, ? super IV, ? extends IV> combineFunction,
+            int minForkSize,
+            int taskCount,
+            Executor executor)
+    {
+        FoldLeftCombiner<K, V, IV> combiner = new FoldLeftCombiner<K, V, IV>(zeroValueGenerator.value(), combineFunction);
+        ParallelMapIterate.forEachKeyValue(map, new Procedure2Factory<FoldLeftProcedure<K, V, IV>>()
+        {
+            public FoldLeftProcedure<K, V, IV> create()
+            {
+                return new FoldLeftProcedure<K, V, IV>(zeroValueGenerator.value(), function);
+            }
+        }, combiner, minForkSize, taskCount, executor);
+        return combiner.getResult();
+    }
 
-        private final Procedure2<? super T1, ? super T2> procedure;
+    private static final class PassThruProcedure2Factory<BT extends Procedure2<?, ?>> implements Procedure2Factory<BT>
+    {
+        private final BT procedure;
 
-        private PairProcedure(Procedure2<? super T1, ? super T2> procedure)
+        private PassThruProcedure2Factory(BT procedure)
         {
             this.procedure = procedure;
         }
 
-        public void value(Pair<T1, T2> pair)
+        public BT create()
+        {
+            return this.procedure;
+        }
+    }
+
+    private abstract static class MapResultProcedure<K, V, R> implements Procedure2<K, V>
+    {
+        private static final long serialVersionUID = 1L;
+
+        protected final UnifiedMap<K, R> result = UnifiedMap.newMap();
+
+        public UnifiedMap<K, R> getResult()
+        {
+            return this.result;
+        }
+    }
+
+    private static final class FilterProcedure<K, V> extends MapResultProcedure<K, V, V>
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final Predicate2<? super K, ? super V> predicate;
+
+        private FilterProcedure(Predicate2<? super K, ? super V> predicate)
+        {
+            this.predicate = predicate;
+        }
+
+        public void value(K key, V value)
+        {
+            if (this.predicate.accept(key, value))
+            {
+                this.result.put(key, value);
+            }
+        }
+    }
+
+    private static final class TransformValuesProcedure<K, V, V2> extends MapResultProcedure<K, V, V2>
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final Function2<? super K, ? super V, ? extends V2> function;
+
+        private TransformValuesProcedure(Function2<? super K, ? super V, ? extends V2> function)
+        {
+            this.function = function;
+        }
+
+        public void value(K key, V value)
+        {
+            this.result.put(key, this.function.value(key, value));
+        }
+    }
+
+    private static final class MapCombiner<K, R, BT extends MapResultProcedure<K, ?, R>>
+            extends AbstractProcedureCombiner<BT>
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final UnifiedMap<K, R> result = UnifiedMap.newMap();
+
+        private MapCombiner()
+        {
+            super(true);
+        }
+
+        public void combineOne(BT procedure)
+        {
+            this.result.putAll(procedure.getResult());
+        }
+
+        public MutableMap<K, R> getResult()
+        {
+            return this.result;
+        }
+    }
+
+    private static final class CountProcedure2<K, V> implements Procedure2<K, V>
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final Predicate2<? super K, ? super V> predicate;
+        private int count;
+
+        private CountProcedure2(Predicate2<? super K, ? super V> predicate)
+        {
+            this.predicate = predicate;
+        }
+
+        public void value(K key, V value)
+        {
+            if (this.predicate.accept(key, value))
+            {
+                this.count++;
+            }
+        }
+    }
+
+    private static final class CountCombiner2<K, V> extends AbstractProcedureCombiner<CountProcedure2<K, V>>
+    {
+        private static final long serialVersionUID = 1L;
+
+        private int count;
+
+        private CountCombiner2()
+        {
+            super(true);
+        }
+
+        public void combineOne(CountProcedure2<K, V> procedure)
+        {
+            this.count += procedure.count;
+        }
+
+        public int getCount()
+        {
+            return this.count;
+        }
+    }
+
+    private static final class FoldLeftProcedure<K, V, IV> implements Procedure2<K, V>
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final Function3<? super IV, ? super K, ? super V, ? extends IV> function;
+        private IV result;
+
+        private FoldLeftProcedure(IV zeroValue, Function3<? super IV, ? super K, ? super V, ? extends IV> function)
+        {
+            this.result = zeroValue;
+            this.function = function;
+        }
+
+        public void value(K key, V value)
+        {
+            this.result = this.function.value(this.result, key, value);
+        }
+    }
+
+    private static final class FoldLeftCombiner<K, V, IV> extends AbstractProcedureCombiner<FoldLeftProcedure<K, V, IV>>
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final Function2<? super IV, ? super IV, ? extends IV> combineFunction;
+        private IV result;
+
+        private FoldLeftCombiner(IV zeroValue, Function2<? super IV, ? super IV, ? extends IV> combineFunction)
+        {
+            super(true);
+            this.result = zeroValue;
+            this.combineFunction = combineFunction;
+        }
+
+        public void combineOne(FoldLeftProcedure<K, V, IV> procedure)
+        {
+            this.result = this.combineFunction.value(this.result, procedure.result);
+        }
+
+        public IV getResult()
         {
-            this.procedure.value(pair.getOne(), pair.getTwo());
+            return this.result;
         }
     }
 }
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.parallel;
+
+import java.util.Set;
+
+import ponzu.api.bag.Bag;
+import ponzu.api.block.predicate.Predicate;
+import ponzu.api.partition.PartitionMutableCollection;
+import ponzu.impl.block.procedure.PartitionAddProcedure;
+import ponzu.impl.partition.bag.PartitionHashBag;
+import ponzu.impl.partition.list.PartitionFastList;
+import ponzu.impl.partition.set.PartitionUnifiedSet;
+
+/**
+ * Combines the partitions built by a Collection of PartitionAddProcedures into a single partition of the same kind
+ * as the source: a PartitionUnifiedSet for sets, a PartitionHashBag for bags and a PartitionFastList otherwise.
+ *
+ * @since 1.1
+ */
+public final class PartitionProcedureCombiner<T>
+        extends AbstractProcedureCombiner<PartitionAddProcedure<T>>
+{
+    private static final long serialVersionUID = 1L;
+
+    private final Iterable<T> sourceIterable;
+    private final Predicate<? super T> predicate;
+    private final PartitionMutableCollection<T> result;
+
+    public PartitionProcedureCombiner(Iterable<T> sourceIterable, Predicate<? super T> predicate, boolean combineOne)
+    {
+        super(combineOne);
+        this.sourceIterable = sourceIterable;
+        this.predicate = predicate;
+        this.result = this.newPartition();
+    }
+
+    public PartitionMutableCollection<T> newPartition()
+    {
+        if (this.sourceIterable instanceof Set)
+        {
+            return new PartitionUnifiedSet<T>(this.predicate);
+        }
+        if (this.sourceIterable instanceof Bag)
+        {
+            return new PartitionHashBag<T>(this.predicate);
+        }
+        return new PartitionFastList<T>(this.predicate);
+    }
+
+    public void combineOne(PartitionAddProcedure<T> procedure)
+    {
+        this.result.getSelected().addAll(procedure.getResult().getSelected());
+        this.result.getRejected().addAll(procedure.getResult().getRejected());
+    }
+
+    public PartitionMutableCollection<T> getResult()
+    {
+        return this.result;
+    }
+}
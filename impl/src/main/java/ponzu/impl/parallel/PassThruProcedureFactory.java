@@ -31,4 +31,9 @@ public final class PassThruProcedureFactory<BT extends Procedure<?>> implements
     {
         return this.procedure;
     }
+
+    BT getProcedure()
+    {
+        return this.procedure;
+    }
 }
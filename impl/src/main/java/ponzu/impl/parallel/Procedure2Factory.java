@@ -0,0 +1,29 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.parallel;
+
+import ponzu.api.block.procedure.Procedure2;
+
+/**
+ * Creates a new Procedure2 for each section of a parallel map traversal, the counterpart of {@link ProcedureFactory}.
+ *
+ * @since 1.1
+ */
+public interface Procedure2Factory<T extends Procedure2<?, ?>>
+{
+    T create();
+}
@@ -24,7 +24,7 @@ import ponzu.api.list.ListIterable;
 import ponzu.impl.utility.ArrayListIterate;
 import ponzu.impl.utility.ListIterate;
 
-public final class ProcedureFJTask<T, BT extends Procedure<? super T>> implements Runnable
+public final class ProcedureFJTask<T, BT extends Procedure<? super T>> implements CountedTask
 {
     private final ProcedureFactory<BT> procedureFactory;
     private BT procedure;
@@ -80,6 +80,15 @@ public final class ProcedureFJTask<T, BT extends Procedure<? super T>> implement
         }
     }
 
+    public void countElements()
+    {
+    }
+
+    public int getElementCount()
+    {
+        return this.end - this.start;
+    }
+
     public BT getProcedure()
     {
         return this.procedure;
@@ -35,4 +35,9 @@ public final class RejectProcedureFactory<T> implements ProcedureFactory<FilterN
     {
         return new FilterNotProcedure<T>(this.predicate, new FastList<T>(this.collectionSize));
     }
+
+    Predicate<? super T> getPredicate()
+    {
+        return this.predicate;
+    }
 }
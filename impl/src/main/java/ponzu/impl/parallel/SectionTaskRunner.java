@@ -0,0 +1,231 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.parallel;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import ponzu.api.block.procedure.primitive.IntProcedure;
+
+/**
+ * SectionTaskRunner executes a fixed number of sections of work on an Executor and waits for all of them to
+ * complete.  Each section is passed its section index, and is expected to iterate its own contiguous range locally
+ * so that only one task is created per section rather than one per element.
+ * <p/>
+ * If any section fails, the sections which have not yet started are cancelled and the first failure is rethrown as
+ * soon as it happens, whichever section it comes from.  If the waiting thread is interrupted, all outstanding
+ * sections are cancelled.  Sections which iterate large ranges may check {@link Thread#isInterrupted()} so that
+ * running sections also stop early once cancelled, but a section which stops early must throw rather than return
+ * normally, so that a partial result is never mistaken for a complete one.
+ */
+public final class SectionTaskRunner
+{
+    private static final Callable<Void> NO_RESULT = new Callable<Void>()
+    {
+        public Void call()
+        {
+            return null;
+        }
+    };
+
+    private final int sectionCount;
+
+    public SectionTaskRunner(int sectionCount)
+    {
+        if (sectionCount < 1)
+        {
+            throw new IllegalArgumentException("Section count must be greater than zero: " + sectionCount);
+        }
+        this.sectionCount = sectionCount;
+    }
+
+    public int getSectionCount()
+    {
+        return this.sectionCount;
+    }
+
+    /**
+     * Executes the specified procedure once for each section index on the executor and blocks until every section
+     * has finished, or until the first section fails.
+     */
+    public void execute(IntProcedure sectionProcedure, Executor executor)
+    {
+        Future<Void> future = this.submit(sectionProcedure, executor);
+        try
+        {
+            future.get();
+        }
+        catch (ExecutionException e)
+        {
+            throw new RuntimeException("One or more parallel tasks failed", e.getCause());
+        }
+        catch (InterruptedException e)
+        {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for parallel tasks", e);
+        }
+    }
+
+    /**
+     * Executes the specified procedure once for each section index on the executor without waiting for the sections
+     * to finish.  The returned Future completes when every section has finished or as soon as one fails, rethrows
+     * that first failure from {@link Future#get()}, and cancels every outstanding section when cancelled.
+     */
+    public Future<Void> submit(IntProcedure sectionProcedure, Executor executor)
+    {
+        return this.submit(sectionProcedure, NO_RESULT, executor);
+    }
+
+    /**
+     * Executes the specified procedure once for each section index on the executor without waiting, and then runs the
+     * completion on the thread which finishes the last section.  The returned Future yields the result of the
+     * completion.  If a section fails, the sections which have not yet started are cancelled and the Future fails
+     * with the same cause.  Cancelling the Future cancels every section which has not yet started, and interrupts the
+     * running ones if requested.  If the executor rejects a section, the sections already handed to it are cancelled
+     * and the Future fails with the rejection.
+     */
+    public <R> Future<R> submit(final IntProcedure sectionProcedure, Callable<R> completion, Executor executor)
+    {
+        final CompletingFuture<R> future = new CompletingFuture<R>(completion, this.sectionCount);
+        FutureTask<Void>[] tasks = SectionTaskRunner.newTaskArray(this.sectionCount);
+        for (int i = 0; i < this.sectionCount; i++)
+        {
+            final int sectionIndex = i;
+            tasks[i] = new FutureTask<Void>(new Runnable()
+            {
+                public void run()
+                {
+                    future.runSection(sectionProcedure, sectionIndex);
+                }
+            }, null);
+        }
+        future.sections = tasks;
+        for (FutureTask<Void> task : tasks)
+        {
+            try
+            {
+                executor.execute(task);
+            }
+            catch (RuntimeException e)
+            {
+                future.fail(e);
+                break;
+            }
+        }
+        return future;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static FutureTask<Void>[] newTaskArray(int length)
+    {
+        return (FutureTask<Void>[]) new FutureTask<?>[length];
+    }
+
+    private static final class CompletingFuture<R> implements Future<R>
+    {
+        private final AtomicInteger remainingSections;
+        private final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        private final FutureTask<R> result;
+        private volatile FutureTask<Void>[] sections;
+
+        private CompletingFuture(final Callable<R> completion, int sectionCount)
+        {
+            this.remainingSections = new AtomicInteger(sectionCount);
+            this.result = new FutureTask<R>(new Callable<R>()
+            {
+                public R call() throws Exception
+                {
+                    Throwable cause = CompletingFuture.this.failure.get();
+                    if (cause instanceof Exception)
+                    {
+                        throw (Exception) cause;
+                    }
+                    if (cause != null)
+                    {
+                        throw (Error) cause;
+                    }
+                    return completion.call();
+                }
+            });
+        }
+
+        private void runSection(IntProcedure sectionProcedure, int sectionIndex)
+        {
+            try
+            {
+                sectionProcedure.value(sectionIndex);
+            }
+            catch (Throwable t)
+            {
+                this.fail(t);
+                return;
+            }
+            if (this.remainingSections.decrementAndGet() == 0)
+            {
+                this.result.run();
+            }
+        }
+
+        private void fail(Throwable cause)
+        {
+            this.failure.compareAndSet(null, cause);
+            for (FutureTask<Void> section : this.sections)
+            {
+                section.cancel(false);
+            }
+            this.result.run();
+        }
+
+        public boolean cancel(boolean mayInterruptIfRunning)
+        {
+            boolean cancelled = this.result.cancel(mayInterruptIfRunning);
+            for (FutureTask<Void> section : this.sections)
+            {
+                section.cancel(mayInterruptIfRunning);
+            }
+            return cancelled;
+        }
+
+        public boolean isCancelled()
+        {
+            return this.result.isCancelled();
+        }
+
+        public boolean isDone()
+        {
+            return this.result.isDone();
+        }
+
+        public R get() throws InterruptedException, ExecutionException
+        {
+            return this.result.get();
+        }
+
+        public R get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException
+        {
+            return this.result.get(timeout, unit);
+        }
+    }
+}
@@ -35,4 +35,9 @@ public final class SelectProcedureFactory<T> implements ProcedureFactory<SelectP
     {
         return new SelectProcedure<T>(this.predicate, FastList.<T>newList(this.collectionSize));
     }
+
+    Predicate<? super T> getPredicate()
+    {
+        return this.predicate;
+    }
 }
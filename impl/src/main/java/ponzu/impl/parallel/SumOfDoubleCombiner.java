@@ -0,0 +1,48 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.parallel;
+
+import ponzu.impl.block.procedure.SumOfDoubleProcedure;
+
+/**
+ * Combines the results of a Collection of SumOfDoubleProcedures into a single compensated sum, carrying the
+ * compensation of each batch into the total so that little precision is lost when the batches are combined.
+ *
+ * @since 1.1
+ */
+public final class SumOfDoubleCombiner<T>
+        extends AbstractProcedureCombiner<SumOfDoubleProcedure<T>>
+{
+    private static final long serialVersionUID = 1L;
+
+    private final SumOfDoubleProcedure<T> sum = new SumOfDoubleProcedure<T>(null);
+
+    public SumOfDoubleCombiner()
+    {
+        super(true);
+    }
+
+    public void combineOne(SumOfDoubleProcedure<T> procedure)
+    {
+        this.sum.add(procedure);
+    }
+
+    public double getSum()
+    {
+        return this.sum.getSum();
+    }
+}
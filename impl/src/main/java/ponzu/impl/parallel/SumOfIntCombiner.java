@@ -0,0 +1,47 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.parallel;
+
+import ponzu.impl.block.procedure.SumOfIntProcedure;
+
+/**
+ * Combines the results of a Collection of SumOfIntProcedures into a single long sum.
+ *
+ * @since 1.1
+ */
+public final class SumOfIntCombiner<T>
+        extends AbstractProcedureCombiner<SumOfIntProcedure<T>>
+{
+    private static final long serialVersionUID = 1L;
+
+    private long sum;
+
+    public SumOfIntCombiner()
+    {
+        super(true);
+    }
+
+    public void combineOne(SumOfIntProcedure<T> procedure)
+    {
+        this.sum += procedure.getSum();
+    }
+
+    public long getSum()
+    {
+        return this.sum;
+    }
+}
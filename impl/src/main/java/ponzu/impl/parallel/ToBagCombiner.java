@@ -0,0 +1,93 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.parallel;
+
+import java.util.concurrent.Executor;
+
+import ponzu.api.block.function.Function2;
+import ponzu.api.block.procedure.ObjectIntProcedure;
+import ponzu.api.list.MutableList;
+import ponzu.impl.bag.mutable.HashBag;
+import ponzu.impl.block.procedure.CollectionAddProcedure;
+import ponzu.impl.list.mutable.FastList;
+
+/**
+ * Combines the HashBags filled by a Collection of CollectionAddProcedures into a single HashBag by a tree reduction,
+ * adding the occurrences of the smaller bag of each pair to the larger one.
+ *
+ * @since 1.1
+ */
+public final class ToBagCombiner<T>
+        extends AbstractProcedureCombiner<CollectionAddProcedure<T>>
+{
+    private static final long serialVersionUID = 1L;
+
+    private final transient Executor executor;
+    private HashBag<T> result;
+
+    public ToBagCombiner(Executor executor)
+    {
+        super(false);
+        this.executor = executor;
+    }
+
+    @Override
+    public void combineAll(Iterable<CollectionAddProcedure<T>> procedures)
+    {
+        MutableList<HashBag<T>> bags = FastList.newList();
+        if (this.result != null)
+        {
+            bags.add(this.result);
+        }
+        for (CollectionAddProcedure<T> procedure : procedures)
+        {
+            bags.add((HashBag<T>) procedure.getResult());
+        }
+        this.result = TreeReducer.reduce(bags, new MergeBagsFunction<T>(), this.executor);
+    }
+
+    public void combineOne(CollectionAddProcedure<T> procedure)
+    {
+        HashBag<T> bag = (HashBag<T>) procedure.getResult();
+        this.result = this.result == null ? bag : new MergeBagsFunction<T>().value(this.result, bag);
+    }
+
+    public HashBag<T> getResult()
+    {
+        return this.result == null ? HashBag.<T>newBag() : this.result;
+    }
+
+    private static final class MergeBagsFunction<T>
+            implements Function2<HashBag<T>, HashBag<T>, HashBag<T>>
+    {
+        private static final long serialVersionUID = 1L;
+
+        public HashBag<T> value(HashBag<T> left, HashBag<T> right)
+        {
+            final HashBag<T> larger = left.sizeDistinct() < right.sizeDistinct() ? right : left;
+            HashBag<T> smaller = larger == left ? right : left;
+            smaller.forEachWithOccurrences(new ObjectIntProcedure<T>()
+            {
+                public void value(T each, int occurrences)
+                {
+                    larger.addOccurrences(each, occurrences);
+                }
+            });
+            return larger;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.parallel;
+
+import java.util.concurrent.Executor;
+
+import ponzu.api.block.function.Function2;
+import ponzu.api.block.procedure.primitive.IntProcedure;
+import ponzu.api.list.MutableList;
+import ponzu.impl.block.procedure.HashPartitionedMapProcedure;
+import ponzu.impl.list.mutable.FastList;
+import ponzu.impl.map.mutable.UnifiedMap;
+
+/**
+ * Combines the maps built by a Collection of HashPartitionedMapProcedures into a single UnifiedMap.  When the
+ * procedures use a single partition their maps are merged by a tree reduction.  Otherwise each partition is merged
+ * across the procedures concurrently, and the merged partitions are then copied concurrently into a presized result.
+ * Maps are always merged in batch order, so when a key occurs more than once the value put last in iteration order
+ * is kept, as it would be by a serial put.  When the procedures are combined one at a time instead, each one is merged
+ * into the result in the order it is passed to {@link #combineOne(HashPartitionedMapProcedure)}.
+ *
+ * @since 1.1
+ */
+public final class ToMapCombiner<T, K, V>
+        extends AbstractProcedureCombiner<HashPartitionedMapProcedure<T, K, V>>
+{
+    private static final long serialVersionUID = 1L;
+
+    private final transient Executor executor;
+    private UnifiedMap<K, V> result;
+
+    public ToMapCombiner(Executor executor)
+    {
+        super(false);
+        this.executor = executor;
+    }
+
+    @Override
+    public void combineAll(Iterable<HashPartitionedMapProcedure<T, K, V>> procedures)
+    {
+        final MutableList<HashPartitionedMapProcedure<T, K, V>> procedureList = FastList.newList(procedures);
+        int partitionCount = procedureList.getFirst().getPartitionCount();
+        if (partitionCount == 1)
+        {
+            MutableList<UnifiedMap<K, V>> maps = FastList.newList(procedureList.size());
+            for (HashPartitionedMapProcedure<T, K, V> procedure : procedureList)
+            {
+                maps.add(procedure.getPartition(0));
+            }
+            this.addToResult(TreeReducer.reduce(maps, new MergeMapsFunction<K, V>(), this.executor));
+            return;
+        }
+        final UnifiedMap<K, V>[] mergedPartitions = ToMapCombiner.newPartitionArray(partitionCount);
+        new SectionTaskRunner(partitionCount).execute(new IntProcedure()
+        {
+            public void value(int partitionIndex)
+            {
+                UnifiedMap<K, V> merged = procedureList.getFirst().getPartition(partitionIndex);
+                for (int i = 1; i < procedureList.size(); i++)
+                {
+                    merged.putAll(procedureList.get(i).getPartition(partitionIndex));
+                }
+                mergedPartitions[partitionIndex] = merged;
+            }
+        }, this.executor);
+        this.addToResult(UnifiedMap.newMapFromHashPartitions(mergedPartitions, this.executor));
+    }
+
+    public void combineOne(HashPartitionedMapProcedure<T, K, V> procedure)
+    {
+        for (int i = 0; i < procedure.getPartitionCount(); i++)
+        {
+            this.addToResult(procedure.getPartition(i));
+        }
+    }
+
+    private void addToResult(UnifiedMap<K, V> map)
+    {
+        if (this.result == null)
+        {
+            this.result = map;
+        }
+        else
+        {
+            this.result.putAll(map);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K, V> UnifiedMap<K, V>[] newPartitionArray(int partitionCount)
+    {
+        return (UnifiedMap<K, V>[]) new UnifiedMap<?, ?>[partitionCount];
+    }
+
+    public UnifiedMap<K, V> getResult()
+    {
+        return this.result == null ? UnifiedMap.<K, V>newMap() : this.result;
+    }
+
+    private static final class MergeMapsFunction<K, V>
+            implements Function2<UnifiedMap<K, V>, UnifiedMap<K, V>, UnifiedMap<K, V>>
+    {
+        private static final long serialVersionUID = 1L;
+
+        public UnifiedMap<K, V> value(UnifiedMap<K, V> left, UnifiedMap<K, V> right)
+        {
+            left.putAll(right);
+            return left;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.parallel;
+
+import java.util.concurrent.Executor;
+
+import ponzu.api.block.function.Function2;
+import ponzu.api.block.procedure.primitive.IntProcedure;
+import ponzu.api.list.MutableList;
+import ponzu.impl.block.procedure.HashPartitionedSetProcedure;
+import ponzu.impl.list.mutable.FastList;
+import ponzu.impl.set.mutable.UnifiedSet;
+
+/**
+ * Combines the sets built by a Collection of HashPartitionedSetProcedures into a single UnifiedSet.  When the
+ * procedures use a single partition their sets are merged by a tree reduction.  Otherwise each partition is merged
+ * across the procedures concurrently, and the merged partitions are then copied concurrently into a presized result.
+ *
+ * @since 1.1
+ */
+public final class ToSetCombiner<T>
+        extends AbstractProcedureCombiner<HashPartitionedSetProcedure<T>>
+{
+    private static final long serialVersionUID = 1L;
+
+    private final transient Executor executor;
+    private UnifiedSet<T> result;
+
+    public ToSetCombiner(Executor executor)
+    {
+        super(false);
+        this.executor = executor;
+    }
+
+    private static <T> UnifiedSet<T> mergeSmallerIntoLarger(UnifiedSet<T> left, UnifiedSet<T> right)
+    {
+        if (left.size() < right.size())
+        {
+            right.addAll(left);
+            return right;
+        }
+        left.addAll(right);
+        return left;
+    }
+
+    @Override
+    public void combineAll(Iterable<HashPartitionedSetProcedure<T>> procedures)
+    {
+        final MutableList<HashPartitionedSetProcedure<T>> procedureList = FastList.newList(procedures);
+        int partitionCount = procedureList.getFirst().getPartitionCount();
+        if (partitionCount == 1)
+        {
+            MutableList<UnifiedSet<T>> sets = FastList.newList(procedureList.size());
+            for (HashPartitionedSetProcedure<T> procedure : procedureList)
+            {
+                sets.add(procedure.getPartition(0));
+            }
+            this.addToResult(TreeReducer.reduce(sets, new MergeSetsFunction<T>(), this.executor));
+            return;
+        }
+        final UnifiedSet<T>[] mergedPartitions = ToSetCombiner.newPartitionArray(partitionCount);
+        new SectionTaskRunner(partitionCount).execute(new IntProcedure()
+        {
+            public void value(int partitionIndex)
+            {
+                UnifiedSet<T> merged = procedureList.getFirst().getPartition(partitionIndex);
+                for (int i = 1; i < procedureList.size(); i++)
+                {
+                    merged = ToSetCombiner.mergeSmallerIntoLarger(merged, procedureList.get(i).getPartition(partitionIndex));
+                }
+                mergedPartitions[partitionIndex] = merged;
+            }
+        }, this.executor);
+        this.addToResult(UnifiedSet.newSetFromHashPartitions(mergedPartitions, this.executor));
+    }
+
+    public void combineOne(HashPartitionedSetProcedure<T> procedure)
+    {
+        for (int i = 0; i < procedure.getPartitionCount(); i++)
+        {
+            this.addToResult(procedure.getPartition(i));
+        }
+    }
+
+    private void addToResult(UnifiedSet<T> set)
+    {
+        this.result = this.result == null ? set : ToSetCombiner.mergeSmallerIntoLarger(this.result, set);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> UnifiedSet<T>[] newPartitionArray(int partitionCount)
+    {
+        return (UnifiedSet<T>[]) new UnifiedSet<?>[partitionCount];
+    }
+
+    public UnifiedSet<T> getResult()
+    {
+        return this.result == null ? UnifiedSet.<T>newSet() : this.result;
+    }
+
+    private static final class MergeSetsFunction<T>
+            implements Function2<UnifiedSet<T>, UnifiedSet<T>, UnifiedSet<T>>
+    {
+        private static final long serialVersionUID = 1L;
+
+        public UnifiedSet<T> value(UnifiedSet<T> left, UnifiedSet<T> right)
+        {
+            return ToSetCombiner.mergeSmallerIntoLarger(left, right);
+        }
+    }
+}
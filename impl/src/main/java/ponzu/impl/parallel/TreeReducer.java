@@ -0,0 +1,72 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.parallel;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import ponzu.api.block.function.Function2;
+import ponzu.api.block.procedure.primitive.IntProcedure;
+import ponzu.impl.list.mutable.FastList;
+
+/**
+ * Merges a list of partial results pairwise in rounds.  Each round merges disjoint pairs concurrently and halves the
+ * number of partial results, so n partial results are merged in log2(n) rounds instead of n - 1 sequential merges.
+ * The left operand of each merge always comes before the right operand in the list.
+ */
+final class TreeReducer
+{
+    private TreeReducer()
+    {
+        throw new AssertionError("Suppress default constructor for noninstantiability");
+    }
+
+    static <T> T reduce(
+            List<T> partialResults,
+            final Function2<? super T, ? super T, ? extends T> mergeFunction,
+            Executor executor)
+    {
+        final FastList<T> partials = FastList.newList(partialResults);
+        int size = partials.size();
+        if (size == 0)
+        {
+            throw new IllegalArgumentException("Cannot reduce an empty list of partial results");
+        }
+        for (int stride = 1; stride < size; stride <<= 1)
+        {
+            final int width = stride;
+            int pairCount = (size - stride + (stride << 1) - 1) / (stride << 1);
+            IntProcedure mergePair = new IntProcedure()
+            {
+                public void value(int pairIndex)
+                {
+                    int left = pairIndex * (width << 1);
+                    partials.set(left, mergeFunction.value(partials.get(left), partials.get(left + width)));
+                }
+            };
+            if (pairCount == 1)
+            {
+                mergePair.value(0);
+            }
+            else
+            {
+                new SectionTaskRunner(pairCount).execute(mergePair, executor);
+            }
+        }
+        return partials.get(0);
+    }
+}
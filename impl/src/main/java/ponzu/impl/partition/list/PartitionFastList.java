@@ -26,12 +26,24 @@ import ponzu.impl.partition.AbstractPartitionMutableCollection;
 
 public class PartitionFastList<T> extends AbstractPartitionMutableCollection<T> implements PartitionMutableList<T>
 {
-    private final MutableList<T> selected = FastList.newList();
-    private final MutableList<T> rejected = FastList.newList();
+    private final MutableList<T> selected;
+    private final MutableList<T> rejected;
 
     public PartitionFastList(Predicate<? super T> predicate)
+    {
+        this(predicate, FastList.<T>newList(), FastList.<T>newList());
+    }
+
+    /**
+     * Creates a partition which adds to the specified selected and rejected lists.
+     *
+     * @since 1.1
+     */
+    public PartitionFastList(Predicate<? super T> predicate, MutableList<T> selected, MutableList<T> rejected)
     {
         super(predicate);
+        this.selected = selected;
+        this.rejected = rejected;
     }
 
     public static <V> PartitionMutableList<V> of(RichIterable<V> iterable, Predicate<? super V> predicate)
@@ -18,6 +18,7 @@ package ponzu.impl.set.mutable;
 
 import ponzu.api.factory.set.MutableSetFactory;
 import ponzu.api.set.MutableSet;
+import ponzu.impl.factory.SizeHints;
 
 public final class MutableSetFactoryImpl implements MutableSetFactory
 {
@@ -35,4 +36,12 @@ public final class MutableSetFactoryImpl implements MutableSetFactory
     {
         return UnifiedSet.newSet(items);
     }
+
+    /**
+     * Report the set once it is complete with {@link SizeHints#done(String, Object)} so that the hint learns its size.
+     */
+    public <T> MutableSet<T> ofSizeHint(String name)
+    {
+        return UnifiedSet.<T>newSet(SizeHints.getSizeHint(name));
+    }
 }
@@ -27,23 +27,31 @@ import java.util.Comparator;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.concurrent.Executor;
 
 import net.jcip.annotations.NotThreadSafe;
+import ponzu.api.LazyDoubleIterable;
+import ponzu.api.LazyIntIterable;
 import ponzu.api.LazyIterable;
+import ponzu.api.LazyLongIterable;
 import ponzu.api.RichIterable;
 import ponzu.api.bag.MutableBag;
 import ponzu.api.block.function.Function;
 import ponzu.api.block.function.Function2;
 import ponzu.api.block.function.Function3;
 import ponzu.api.block.function.Generator;
+import ponzu.api.block.function.primitive.DoubleFunction;
 import ponzu.api.block.function.primitive.DoubleObjectToDoubleFunction;
+import ponzu.api.block.function.primitive.IntFunction;
 import ponzu.api.block.function.primitive.IntObjectToIntFunction;
+import ponzu.api.block.function.primitive.LongFunction;
 import ponzu.api.block.function.primitive.LongObjectToLongFunction;
 import ponzu.api.block.predicate.Predicate;
 import ponzu.api.block.predicate.Predicate2;
 import ponzu.api.block.procedure.ObjectIntProcedure;
 import ponzu.api.block.procedure.Procedure;
 import ponzu.api.block.procedure.Procedure2;
+import ponzu.api.block.procedure.primitive.IntProcedure;
 import ponzu.api.list.MutableList;
 import ponzu.api.map.MutableMap;
 import ponzu.api.map.sorted.MutableSortedMap;
@@ -74,11 +82,17 @@ import ponzu.impl.block.procedure.SelectProcedure;
 import ponzu.impl.block.procedure.ZipWithIndexProcedure;
 import ponzu.impl.factory.Lists;
 import ponzu.impl.factory.Sets;
+import ponzu.impl.lazy.primitive.CollectDoubleIterable;
+import ponzu.impl.lazy.primitive.CollectIntIterable;
+import ponzu.impl.lazy.primitive.CollectLongIterable;
 import ponzu.impl.list.mutable.FastList;
 import ponzu.impl.map.mutable.UnifiedMap;
 import ponzu.impl.map.sorted.mutable.TreeSortedMap;
+import ponzu.impl.metrics.CollectionMetrics;
 import ponzu.impl.multimap.set.UnifiedSetMultimap;
 import ponzu.impl.parallel.BatchIterable;
+import ponzu.impl.parallel.HashPartitionRunner;
+import ponzu.impl.parallel.SectionTaskRunner;
 import ponzu.impl.partition.set.PartitionUnifiedSet;
 import ponzu.impl.set.sorted.mutable.TreeSortedSet;
 import ponzu.impl.tuple.Tuples;
@@ -89,6 +103,18 @@ import ponzu.impl.utility.internal.IterableIterate;
 import ponzu.impl.utility.internal.MutableCollectionIterate;
 import ponzu.impl.utility.internal.SetIterables;
 
+/**
+ * UnifiedSet is a hash set which keeps its elements directly in an open addressed table, and chains colliding
+ * elements in small buckets.
+ * <p/>
+ * It is not thread safe.  The only exception is the loading of a new set by {@link #newSetFromHashPartitions} and
+ * {@link #newSetFromArray(Object[], Executor)}, which split the elements by {@link #hashPartition(Object, int)} and load
+ * each partition from its own task.  This relies on two invariants, which are checked by assertions: the table is
+ * presized for all the elements and has at least as many slots as there are partitions, so it never rehashes and an
+ * element's partition is the low bits of its slot; and every task only adds elements of its own partition.  Each task
+ * adds through its own shard, a set which shares the table but keeps its own count, so the tasks write to disjoint
+ * slots and to no other shared state.  The count of the result is the sum of the shard counts once all tasks are done.
+ */
 @NotThreadSafe
 public class UnifiedSet<K>
         implements MutableSet<K>, Externalizable, Pool<K>, BatchIterable<K>
@@ -142,6 +168,15 @@ public class UnifiedSet<K>
         this.addAll(collection);
     }
 
+    /**
+     * Creates a shard which adds to the specified table without ever rehashing it, and counts only its own elements.
+     */
+    private UnifiedSet(Object[] table)
+    {
+        this.table = table;
+        this.maxSize = Integer.MAX_VALUE;
+    }
+
     public UnifiedSet(UnifiedSet<K> set)
     {
         this.maxSize = set.maxSize;
@@ -204,6 +239,167 @@ public class UnifiedSet<K>
         return UnifiedSet.<K>newSet(elements.length).with(elements);
     }
 
+    /**
+     * Returns the partition of the specified element when elements are split into partitionCount partitions by the
+     * low bits of their spread hash code.  Elements in different partitions never share a slot in a UnifiedSet whose
+     * table has at least partitionCount slots, which is what allows {@link #newSetFromHashPartitions(UnifiedSet[], Executor)}
+     * to copy the partitions concurrently.
+     *
+     * @param partitionCount a power of two
+     * @since 1.1
+     */
+    public static int hashPartition(Object element, int partitionCount)
+    {
+        if (Integer.bitCount(partitionCount) != 1)
+        {
+            throw new IllegalArgumentException("Partition count must be a power of two: " + partitionCount);
+        }
+        return UnifiedSet.spread(element == null ? 0 : element.hashCode()) & (partitionCount - 1);
+    }
+
+    /**
+     * Returns a new UnifiedSet containing the elements of all the partitions, which are copied concurrently on the
+     * executor.  The partition at index i must contain only elements for which
+     * {@link #hashPartition(Object, int) hashPartition(element, partitions.length)} returns i, which is checked when
+     * assertions are enabled; the result is presized for the total size, so no partition ever causes a rehash and no
+     * two partitions write to the same slot.
+     *
+     * @since 1.1
+     */
+    public static <K> UnifiedSet<K> newSetFromHashPartitions(final UnifiedSet<? extends K>[] partitions, Executor executor)
+    {
+        if (Integer.bitCount(partitions.length) != 1)
+        {
+            throw new IllegalArgumentException("Partition count must be a power of two: " + partitions.length);
+        }
+        int size = 0;
+        for (UnifiedSet<? extends K> partition : partitions)
+        {
+            size += partition.size();
+        }
+        UnifiedSet<K> result = UnifiedSet.newSet(size);
+        if (partitions.length == 1 || result.table.length < partitions.length)
+        {
+            for (UnifiedSet<? extends K> partition : partitions)
+            {
+                result.copySet(partition);
+            }
+            return result;
+        }
+        final UnifiedSet<K>[] shards = result.newPartitionShards(partitions.length);
+        new SectionTaskRunner(partitions.length).execute(new IntProcedure()
+        {
+            public void value(int partitionIndex)
+            {
+                assert UnifiedSet.isHashPartition(partitions[partitionIndex], partitionIndex, partitions.length)
+                        : "Partition " + partitionIndex + " contains elements of other partitions";
+                shards[partitionIndex].copySet(partitions[partitionIndex]);
+            }
+        }, executor);
+        result.occupied = UnifiedSet.countShardElements(shards);
+        return result;
+    }
+
+    /**
+     * Returns a new UnifiedSet containing the elements of the array, presized for the length of the array so that
+     * loading it never causes a rehash.
+     *
+     * @since 1.1
+     */
+    public static <K> UnifiedSet<K> newSetFromArray(K[] elements)
+    {
+        UnifiedSet<K> result = UnifiedSet.newSet(elements.length);
+        for (K element : elements)
+        {
+            result.add(element);
+        }
+        return result;
+    }
+
+    /**
+     * Same as {@link #newSetFromArray(Object[])}, but when there are at least
+     * {@link HashPartitionRunner#MIN_PARALLEL_SIZE} elements they are hashed and added concurrently on the executor,
+     * with one task per hash partition.
+     *
+     * @since 1.1
+     */
+    public static <K> UnifiedSet<K> newSetFromArray(K[] elements, Executor executor)
+    {
+        if (elements.length < HashPartitionRunner.MIN_PARALLEL_SIZE)
+        {
+            return UnifiedSet.newSetFromArray(elements);
+        }
+        UnifiedSet<K> result = UnifiedSet.newSet(elements.length);
+        HashPartitionRunner runner = new HashPartitionRunner(HashPartitionRunner.defaultPartitionCount());
+        UnifiedSet<K>[] shards = result.newPartitionShards(runner.getPartitionCount());
+        IntProcedure[] partitionProcedures = new IntProcedure[shards.length];
+        for (int i = 0; i < shards.length; i++)
+        {
+            partitionProcedures[i] = new AddToShardProcedure<K>(elements, shards[i], i, shards.length);
+        }
+        runner.execute(elements, partitionProcedures, executor);
+        result.occupied = UnifiedSet.countShardElements(shards);
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private UnifiedSet<K>[] newPartitionShards(int partitionCount)
+    {
+        assert this.table.length >= partitionCount && this.occupied == 0 : "Table too small to be partitioned";
+        UnifiedSet<K>[] shards = (UnifiedSet<K>[]) new UnifiedSet<?>[partitionCount];
+        for (int i = 0; i < partitionCount; i++)
+        {
+            shards[i] = new UnifiedSet<K>(this.table);
+        }
+        return shards;
+    }
+
+    private static int countShardElements(UnifiedSet<?>[] shards)
+    {
+        int count = 0;
+        for (UnifiedSet<?> shard : shards)
+        {
+            count += shard.occupied;
+        }
+        return count;
+    }
+
+    private static boolean isHashPartition(UnifiedSet<?> set, int partition, int partitionCount)
+    {
+        for (Object each : set)
+        {
+            if (UnifiedSet.hashPartition(each, partitionCount) != partition)
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final class AddToShardProcedure<K> implements IntProcedure
+    {
+        private final K[] elements;
+        private final UnifiedSet<K> shard;
+        private final int partition;
+        private final int partitionCount;
+
+        private AddToShardProcedure(K[] elements, UnifiedSet<K> shard, int partition, int partitionCount)
+        {
+            this.elements = elements;
+            this.shard = shard;
+            this.partition = partition;
+            this.partitionCount = partitionCount;
+        }
+
+        public void value(int index)
+        {
+            K element = this.elements[index];
+            assert UnifiedSet.hashPartition(element, this.partitionCount) == this.partition
+                    : "Element " + index + " is not in partition " + this.partition;
+            this.shard.add(element);
+        }
+    }
+
     private int fastCeil(float v)
     {
         int possibleResult = (int) v;
@@ -244,10 +440,14 @@ public class UnifiedSet<K>
         // This function ensures that hashCodes that differ only by
         // constant multiples at each bit position have a bounded
         // number of collisions (approximately 8 at default load factor).
-        int h = key.hashCode();
+        return UnifiedSet.spread(key.hashCode()) & (this.table.length - 1);
+    }
+
+    private static int spread(int hashCode)
+    {
+        int h = hashCode;
         h ^= (h >>> 20) ^ (h >>> 12);
-        h = h ^ (h >>> 7) ^ (h >>> 4);
-        return h & (this.table.length - 1);
+        return h ^ (h >>> 7) ^ (h >>> 4);
     }
 
     public void clear()
@@ -349,6 +549,7 @@ public class UnifiedSet<K>
         }
         ChainedBucket newBucket = new ChainedBucket(this.table[index], realKey);
         this.table[index] = newBucket;
+        CollectionMetrics.chainCreated(this);
         if (++this.occupied > this.maxSize)
         {
             this.rehash();
@@ -364,6 +565,7 @@ public class UnifiedSet<K>
     protected void rehash(int newCapacity)
     {
         int oldLength = this.table.length;
+        CollectionMetrics.rehashed(this, oldLength, newCapacity, this.occupied);
         Object[] old = this.table;
         this.allocate(newCapacity);
         this.occupied = 0;
@@ -464,6 +666,30 @@ public class UnifiedSet<K>
         while (true);
     }
 
+    /**
+     * Returns the number of JVM words that is used by this set.  A word is 4 bytes in a 32bit VM and 8 bytes in a 64bit
+     * VM. Each array and each chained bucket has a 2 word header, and a chained bucket has 4 slots, thus the formula is:
+     * words = (internal table length + 2) + 6 * number of chained buckets
+     *
+     * @return the number of JVM words that is used by this set.
+     * @since 1.1
+     */
+    public int getSetMemoryUsedInWords()
+    {
+        int headerSize = 2;
+        int sizeInWords = this.table.length + headerSize;
+        for (int i = 0; i < this.table.length; i++)
+        {
+            Object cur = this.table[i];
+            while (cur instanceof ChainedBucket)
+            {
+                sizeInWords += headerSize + 4;
+                cur = ((ChainedBucket) cur).three;
+            }
+        }
+        return sizeInWords;
+    }
+
     public int getBatchCount(int batchSize)
     {
         return Math.max(1, this.table.length / batchSize);
@@ -928,6 +1154,21 @@ public class UnifiedSet<K>
         return IterableIterate.foldLeft(initialValue, this, function);
     }
 
+    public LazyIntIterable transformToInt(IntFunction<? super K> function)
+    {
+        return new CollectIntIterable<K>(this, function);
+    }
+
+    public LazyLongIterable transformToLong(LongFunction<? super K> function)
+    {
+        return new CollectLongIterable<K>(this, function);
+    }
+
+    public LazyDoubleIterable transformToDouble(DoubleFunction<? super K> function)
+    {
+        return new CollectDoubleIterable<K>(this, function);
+    }
+
     public <IV, P> IV foldLeftWith(
             IV initialValue,
             Function3<? super IV, ? super K, ? super P, ? extends IV> function,
@@ -1087,9 +1328,22 @@ public class UnifiedSet<K>
     {
         if (iterable instanceof UnifiedSet)
         {
-            return this.copySet((UnifiedSet<?>) iterable);
+            UnifiedSet<?> unifiedSet = (UnifiedSet<?>) iterable;
+            CollectionMetrics.bulkCopied(this, unifiedSet.size());
+            if (this.occupied == 0 && this.getClass() == UnifiedSet.class
+                    && unifiedSet.table.length >= this.table.length
+                    && unifiedSet.table.length <= this.capacityFor(unifiedSet.occupied) << 1)
+            {
+                // every element would land in the same slot it has in the other set, so the table is copied as is,
+                // unless removals or a large initial capacity left it more than twice as long as its elements need
+                this.copyTable(unifiedSet);
+                return this.occupied > 0;
+            }
+            this.ensureCapacity(this.occupied + unifiedSet.occupied);
+            return this.copySet(unifiedSet);
         }
         int size = Iterate.sizeOf(iterable);
+        CollectionMetrics.bulkCopied(this, size);
         this.ensureCapacity(size);
         int oldSize = this.size();
         Iterate.forEach(iterable, CollectionAddProcedure.on(this));
@@ -1100,19 +1354,38 @@ public class UnifiedSet<K>
     {
         if (size > this.maxSize)
         {
-            size = (int) (size / this.loadFactor) + 1;
-            int capacity = Integer.highestOneBit(size);
-            if (size != capacity)
-            {
-                capacity <<= 1;
-            }
-            this.rehash(capacity);
+            this.rehash(this.capacityFor(size));
+        }
+    }
+
+    /**
+     * Returns the smallest capacity whose load factor allows for size elements.
+     */
+    private int capacityFor(int size)
+    {
+        int minimum = (int) (size / this.loadFactor) + 1;
+        int capacity = Integer.highestOneBit(minimum);
+        return minimum == capacity ? capacity : capacity << 1;
+    }
+
+    private void copyTable(UnifiedSet<?> unifiedSet)
+    {
+        Object[] source = unifiedSet.table;
+        this.allocate(source.length);
+        for (int i = 0; i < source.length; i++)
+        {
+            Object key = source[i];
+            this.table[i] = key instanceof ChainedBucket ? ((ChainedBucket) key).copy() : key;
+        }
+        this.occupied = unifiedSet.occupied;
+        if (this.occupied > this.maxSize)
+        {
+            this.rehash();
         }
     }
 
     protected boolean copySet(UnifiedSet<?> unifiedset)
     {
-        //todo: optimize for current size == 0
         boolean changed = false;
         for (int i = 0; i < unifiedset.table.length; i++)
         {
@@ -1966,6 +2239,35 @@ public class UnifiedSet<K>
             while (true);
         }
 
+        public int size()
+        {
+            int size = 0;
+            ChainedBucket bucket = this;
+            do
+            {
+                if (bucket.zero == null)
+                {
+                    return size;
+                }
+                if (bucket.one == null)
+                {
+                    return size + 1;
+                }
+                if (bucket.two == null)
+                {
+                    return size + 2;
+                }
+                if (bucket.three instanceof ChainedBucket)
+                {
+                    size += 3;
+                    bucket = (ChainedBucket) bucket.three;
+                    continue;
+                }
+                return bucket.three == null ? size + 3 : size + 4;
+            }
+            while (true);
+        }
+
         public ChainedBucket copy()
         {
             ChainedBucket result = new ChainedBucket();
@@ -2288,6 +2590,7 @@ public class UnifiedSet<K>
         }
         ChainedBucket newBucket = new ChainedBucket(this.table[index], realKey);
         this.table[index] = newBucket;
+        CollectionMetrics.chainCreated(this);
         if (++this.occupied > this.maxSize)
         {
             this.rehash();
@@ -0,0 +1,322 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.set.mutable.primitive;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+import net.jcip.annotations.NotThreadSafe;
+import ponzu.api.block.procedure.primitive.IntProcedure;
+
+/**
+ * IntHashSet is a set of primitive int values which uses open addressing with linear probing over a single int array.
+ * It is the primitive counterpart of UnifiedSet: no Integer objects or entries are created, and a lookup is a hash
+ * and a short scan of adjacent slots.  Zero is used to mark empty slots, so its membership is tracked separately.
+ *
+ * @since 1.1
+ */
+@NotThreadSafe
+public final class IntHashSet
+        implements Serializable
+{
+    private static final long serialVersionUID = 1L;
+    private static final int DEFAULT_INITIAL_CAPACITY = 8;
+
+    private int size;
+    private boolean containsZero;
+    private int[] table;
+
+    public IntHashSet()
+    {
+        this(DEFAULT_INITIAL_CAPACITY);
+    }
+
+    public IntHashSet(int initialCapacity)
+    {
+        if (initialCapacity < 0)
+        {
+            throw new IllegalArgumentException("initial capacity cannot be less than 0");
+        }
+        this.table = new int[IntHashSet.tableSizeFor(initialCapacity)];
+    }
+
+    public static IntHashSet newSetWith(int... elements)
+    {
+        IntHashSet set = new IntHashSet(elements.length);
+        set.addAll(elements);
+        return set;
+    }
+
+    /**
+     * Returns a power of two table length which keeps the load factor at or below one half for the given capacity.
+     */
+    private static int tableSizeFor(int capacity)
+    {
+        int tableSize = 4;
+        while (tableSize < capacity << 1 && tableSize < 1 << 30)
+        {
+            tableSize <<= 1;
+        }
+        return tableSize;
+    }
+
+    private int indexOf(int value)
+    {
+        int hash = value * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & (this.table.length - 1);
+    }
+
+    public int size()
+    {
+        return this.size;
+    }
+
+    public boolean isEmpty()
+    {
+        return this.size == 0;
+    }
+
+    public boolean notEmpty()
+    {
+        return this.size > 0;
+    }
+
+    public boolean contains(int value)
+    {
+        if (value == 0)
+        {
+            return this.containsZero;
+        }
+        int[] table = this.table;
+        int mask = table.length - 1;
+        for (int index = this.indexOf(value); ; index = index + 1 & mask)
+        {
+            int slot = table[index];
+            if (slot == value)
+            {
+                return true;
+            }
+            if (slot == 0)
+            {
+                return false;
+            }
+        }
+    }
+
+    public boolean add(int value)
+    {
+        if (value == 0)
+        {
+            if (this.containsZero)
+            {
+                return false;
+            }
+            this.containsZero = true;
+            this.size++;
+            return true;
+        }
+        int mask = this.table.length - 1;
+        for (int index = this.indexOf(value); ; index = index + 1 & mask)
+        {
+            int slot = this.table[index];
+            if (slot == value)
+            {
+                return false;
+            }
+            if (slot == 0)
+            {
+                this.table[index] = value;
+                this.size++;
+                if (this.size << 1 > this.table.length)
+                {
+                    this.rehash(this.table.length << 1);
+                }
+                return true;
+            }
+        }
+    }
+
+    public void addAll(int... values)
+    {
+        for (int value : values)
+        {
+            this.add(value);
+        }
+    }
+
+    public IntHashSet with(int value)
+    {
+        this.add(value);
+        return this;
+    }
+
+    public boolean remove(int value)
+    {
+        if (value == 0)
+        {
+            if (!this.containsZero)
+            {
+                return false;
+            }
+            this.containsZero = false;
+            this.size--;
+            return true;
+        }
+        int mask = this.table.length - 1;
+        for (int index = this.indexOf(value); ; index = index + 1 & mask)
+        {
+            int slot = this.table[index];
+            if (slot == 0)
+            {
+                return false;
+            }
+            if (slot == value)
+            {
+                this.removeAt(index);
+                this.size--;
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Empties the slot at the index and shifts back any later entries of the same probe run, so that no lookup
+     * stops early at the new gap.
+     */
+    private void removeAt(int index)
+    {
+        int mask = this.table.length - 1;
+        int gap = index;
+        this.table[gap] = 0;
+        for (int next = gap + 1 & mask; this.table[next] != 0; next = next + 1 & mask)
+        {
+            int home = this.indexOf(this.table[next]);
+            boolean canMove = gap <= next ? home <= gap || home > next : home <= gap && home > next;
+            if (canMove)
+            {
+                this.table[gap] = this.table[next];
+                this.table[next] = 0;
+                gap = next;
+            }
+        }
+    }
+
+    private void rehash(int newTableSize)
+    {
+        int[] oldTable = this.table;
+        this.table = new int[newTableSize];
+        int mask = newTableSize - 1;
+        for (int value : oldTable)
+        {
+            if (value != 0)
+            {
+                int index = this.indexOf(value);
+                while (this.table[index] != 0)
+                {
+                    index = index + 1 & mask;
+                }
+                this.table[index] = value;
+            }
+        }
+    }
+
+    public void clear()
+    {
+        Arrays.fill(this.table, 0);
+        this.containsZero = false;
+        this.size = 0;
+    }
+
+    public void forEach(IntProcedure procedure)
+    {
+        if (this.containsZero)
+        {
+            procedure.value(0);
+        }
+        for (int value : this.table)
+        {
+            if (value != 0)
+            {
+                procedure.value(value);
+            }
+        }
+    }
+
+    public int[] toArray()
+    {
+        int[] result = new int[this.size];
+        int index = 0;
+        if (this.containsZero)
+        {
+            result[index++] = 0;
+        }
+        for (int value : this.table)
+        {
+            if (value != 0)
+            {
+                result[index++] = value;
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object otherSet)
+    {
+        if (this == otherSet)
+        {
+            return true;
+        }
+        if (!(otherSet instanceof IntHashSet))
+        {
+            return false;
+        }
+        IntHashSet other = (IntHashSet) otherSet;
+        if (this.size != other.size || this.containsZero != other.containsZero)
+        {
+            return false;
+        }
+        for (int value : this.table)
+        {
+            if (value != 0 && !other.contains(value))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the sum of the values, which is the same as the hashCode of a Set of the equivalent Integers.
+     */
+    @Override
+    public int hashCode()
+    {
+        int hashCode = 0;
+        for (int value : this.table)
+        {
+            hashCode += value;
+        }
+        return hashCode;
+    }
+
+    @Override
+    public String toString()
+    {
+        return Arrays.toString(this.toArray());
+    }
+}
@@ -0,0 +1,435 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.set.sorted.immutable;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.SortedSet;
+
+import ponzu.api.block.procedure.ObjectIntProcedure;
+import ponzu.api.block.procedure.Procedure;
+import ponzu.api.block.procedure.Procedure2;
+import ponzu.api.set.sorted.ImmutableSortedSet;
+import ponzu.api.set.sorted.SortedSetIterable;
+import ponzu.impl.utility.internal.SortedSetIterables;
+import net.jcip.annotations.Immutable;
+
+/**
+ * An ImmutableSortedSet which stores its elements in a sorted array.  Lookups use binary search, and
+ * {@link #subSet(Object, Object)}, {@link #headSet(Object)} and {@link #tailSet(Object)} return views over a range
+ * of the same array without copying.  Like the views of a TreeSet, a view only accepts bounds within the range it was
+ * created with, and throws IllegalArgumentException for any other.
+ *
+ * @see ImmutableSortedSet
+ * @since 1.1
+ */
+@Immutable
+public final class ImmutableSortedArraySet<T>
+        extends AbstractImmutableSortedSet<T>
+        implements Serializable
+{
+    private static final long serialVersionUID = 1L;
+
+    private final T[] elements;
+    private final int fromIndex;
+    private final int toIndex;
+    private final Comparator<? super T> comparator;
+    private final transient boolean hasLowBound;
+    private final transient T lowBound;
+    private final transient boolean hasHighBound;
+    private final transient T highBound;
+
+    private ImmutableSortedArraySet(T[] elements, Comparator<? super T> comparator)
+    {
+        this(elements, 0, elements.length, comparator, false, null, false, null);
+    }
+
+    /**
+     * Creates a view of the range of elements from fromIndex to toIndex, which were selected by the lowBound, inclusive,
+     * and the highBound, exclusive, when there are bounds.
+     */
+    private ImmutableSortedArraySet(
+            T[] elements,
+            int fromIndex,
+            int toIndex,
+            Comparator<? super T> comparator,
+            boolean hasLowBound,
+            T lowBound,
+            boolean hasHighBound,
+            T highBound)
+    {
+        this.elements = elements;
+        this.fromIndex = fromIndex;
+        this.toIndex = toIndex;
+        this.comparator = comparator;
+        this.hasLowBound = hasLowBound;
+        this.lowBound = lowBound;
+        this.hasHighBound = hasHighBound;
+        this.highBound = highBound;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> ImmutableSortedSet<T> newSetWith(T... elements)
+    {
+        return ImmutableSortedArraySet.newSetWith(null, elements);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> ImmutableSortedSet<T> newSetWith(Comparator<? super T> comparator, T... elements)
+    {
+        T[] sorted = elements.clone();
+        Arrays.sort(sorted, comparator);
+        int size = ImmutableSortedArraySet.removeAdjacentDuplicates(sorted, comparator);
+        T[] unique = sorted;
+        if (size < sorted.length)
+        {
+            unique = (T[]) new Object[size];
+            System.arraycopy(sorted, 0, unique, 0, size);
+        }
+        return new ImmutableSortedArraySet<T>(unique, comparator);
+    }
+
+    /**
+     * Creates a set from a SortedSet, whose elements are already sorted and unique according to its comparator.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> ImmutableSortedSet<T> newSet(SortedSet<T> set)
+    {
+        T[] elements = (T[]) set.toArray();
+        return new ImmutableSortedArraySet<T>(elements, set.comparator());
+    }
+
+    /**
+     * Moves the first of each run of equal elements to the front of the sorted array, and returns the number of
+     * unique elements.  The first occurrence is kept, in the same way that a TreeSet ignores a duplicate add.
+     */
+    private static <T> int removeAdjacentDuplicates(T[] sorted, Comparator<? super T> comparator)
+    {
+        if (sorted.length == 0)
+        {
+            return 0;
+        }
+        int size = 1;
+        for (int i = 1; i < sorted.length; i++)
+        {
+            if (ImmutableSortedArraySet.compare(comparator, sorted[size - 1], sorted[i]) != 0)
+            {
+                sorted[size++] = sorted[i];
+            }
+        }
+        return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> int compare(Comparator<? super T> comparator, Object one, Object two)
+    {
+        if (comparator == null)
+        {
+            return ((Comparable<Object>) one).compareTo(two);
+        }
+        return comparator.compare((T) one, (T) two);
+    }
+
+    /**
+     * Returns the index of the element if it is in this set, or -(insertion point) - 1 if it is not, searching only
+     * the range covered by this set.
+     */
+    private int binarySearch(Object key)
+    {
+        int low = this.fromIndex;
+        int high = this.toIndex - 1;
+        while (low <= high)
+        {
+            int middle = (low + high) >>> 1;
+            int comparison = ImmutableSortedArraySet.compare(this.comparator, this.elements[middle], key);
+            if (comparison < 0)
+            {
+                low = middle + 1;
+            }
+            else if (comparison > 0)
+            {
+                high = middle - 1;
+            }
+            else
+            {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+
+    /**
+     * Returns the index of the first element which is not less than the key.
+     */
+    private int lowerBound(T key)
+    {
+        int index = this.binarySearch(key);
+        return index >= 0 ? index : -(index + 1);
+    }
+
+    public int size()
+    {
+        return this.toIndex - this.fromIndex;
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        return this.toIndex == this.fromIndex;
+    }
+
+    @Override
+    public boolean contains(Object object)
+    {
+        return this.binarySearch(object) >= 0;
+    }
+
+    @Override
+    public boolean equals(Object object)
+    {
+        if (object == this)
+        {
+            return true;
+        }
+        if (!(object instanceof Set))
+        {
+            return false;
+        }
+        Set<?> other = (Set<?>) object;
+        if (other.size() != this.size())
+        {
+            return false;
+        }
+        try
+        {
+            return this.containsAll(other);
+        }
+        catch (ClassCastException ignored)
+        {
+            return false;
+        }
+        catch (NullPointerException ignored)
+        {
+            return false;
+        }
+    }
+
+    @Override
+    public int hashCode()
+    {
+        int hashCode = 0;
+        for (int i = this.fromIndex; i < this.toIndex; i++)
+        {
+            T element = this.elements[i];
+            hashCode += element == null ? 0 : element.hashCode();
+        }
+        return hashCode;
+    }
+
+    @Override
+    public Iterator<T> iterator()
+    {
+        return new SortedArrayIterator();
+    }
+
+    public void forEach(Procedure<? super T> procedure)
+    {
+        for (int i = this.fromIndex; i < this.toIndex; i++)
+        {
+            procedure.value(this.elements[i]);
+        }
+    }
+
+    @Override
+    public void forEachWithIndex(ObjectIntProcedure<? super T> objectIntProcedure)
+    {
+        for (int i = this.fromIndex; i < this.toIndex; i++)
+        {
+            objectIntProcedure.value(this.elements[i], i - this.fromIndex);
+        }
+    }
+
+    @Override
+    public <P> void forEachWith(Procedure2<? super T, ? super P> procedure, P parameter)
+    {
+        for (int i = this.fromIndex; i < this.toIndex; i++)
+        {
+            procedure.value(this.elements[i], parameter);
+        }
+    }
+
+    @Override
+    public Object[] toArray()
+    {
+        Object[] result = new Object[this.size()];
+        System.arraycopy(this.elements, this.fromIndex, result, 0, result.length);
+        return result;
+    }
+
+    public T first()
+    {
+        if (this.isEmpty())
+        {
+            throw new NoSuchElementException();
+        }
+        return this.elements[this.fromIndex];
+    }
+
+    public T last()
+    {
+        if (this.isEmpty())
+        {
+            throw new NoSuchElementException();
+        }
+        return this.elements[this.toIndex - 1];
+    }
+
+    public Comparator<? super T> comparator()
+    {
+        return this.comparator;
+    }
+
+    public int compareTo(SortedSetIterable<T> otherSet)
+    {
+        return SortedSetIterables.compare(this, otherSet);
+    }
+
+    /**
+     * Returns a view of the elements from fromElement inclusive to toElement exclusive.
+     *
+     * @throws IllegalArgumentException if fromElement is greater than toElement, or if this set is itself a view and
+     *                                  either bound lies outside of its range
+     */
+    @Override
+    public SortedSet<T> subSet(T fromElement, T toElement)
+    {
+        if (ImmutableSortedArraySet.compare(this.comparator, fromElement, toElement) > 0)
+        {
+            throw new IllegalArgumentException("fromElement > toElement");
+        }
+        this.checkInRange(fromElement, false);
+        this.checkInRange(toElement, true);
+        return new ImmutableSortedArraySet<T>(
+                this.elements,
+                this.lowerBound(fromElement),
+                this.lowerBound(toElement),
+                this.comparator,
+                true,
+                fromElement,
+                true,
+                toElement);
+    }
+
+    /**
+     * @throws IllegalArgumentException if this set is itself a view and toElement lies outside of its range
+     */
+    @Override
+    public SortedSet<T> headSet(T toElement)
+    {
+        this.checkInRange(toElement, true);
+        return new ImmutableSortedArraySet<T>(
+                this.elements,
+                this.fromIndex,
+                this.lowerBound(toElement),
+                this.comparator,
+                this.hasLowBound,
+                this.lowBound,
+                true,
+                toElement);
+    }
+
+    /**
+     * @throws IllegalArgumentException if this set is itself a view and fromElement lies outside of its range
+     */
+    @Override
+    public SortedSet<T> tailSet(T fromElement)
+    {
+        this.checkInRange(fromElement, false);
+        return new ImmutableSortedArraySet<T>(
+                this.elements,
+                this.lowerBound(fromElement),
+                this.toIndex,
+                this.comparator,
+                true,
+                fromElement,
+                this.hasHighBound,
+                this.highBound);
+    }
+
+    /**
+     * Throws if the element lies outside of the bounds this view was created with.  The high bound is exclusive, so it
+     * is only accepted as the end of a new range.
+     */
+    private void checkInRange(T element, boolean isEnd)
+    {
+        if (this.hasLowBound && ImmutableSortedArraySet.compare(this.comparator, element, this.lowBound) < 0)
+        {
+            throw new IllegalArgumentException("Element " + element + " is below the range of this view");
+        }
+        if (this.hasHighBound)
+        {
+            int comparison = ImmutableSortedArraySet.compare(this.comparator, element, this.highBound);
+            if (comparison > 0 || comparison == 0 && !isEnd)
+            {
+                throw new IllegalArgumentException("Element " + element + " is above the range of this view");
+            }
+        }
+    }
+
+    /**
+     * Views are serialized as a copy of their range, rather than with the whole of the shared array.
+     */
+    @SuppressWarnings("unchecked")
+    private Object writeReplace()
+    {
+        if (this.fromIndex == 0 && this.toIndex == this.elements.length && !this.hasLowBound && !this.hasHighBound)
+        {
+            return this;
+        }
+        T[] copy = (T[]) new Object[this.size()];
+        System.arraycopy(this.elements, this.fromIndex, copy, 0, copy.length);
+        return new ImmutableSortedArraySet<T>(copy, this.comparator);
+    }
+
+    private final class SortedArrayIterator implements Iterator<T>
+    {
+        private int currentIndex = ImmutableSortedArraySet.this.fromIndex;
+
+        public boolean hasNext()
+        {
+            return this.currentIndex < ImmutableSortedArraySet.this.toIndex;
+        }
+
+        public T next()
+        {
+            if (!this.hasNext())
+            {
+                throw new NoSuchElementException();
+            }
+            return ImmutableSortedArraySet.this.elements[this.currentIndex++];
+        }
+
+        public void remove()
+        {
+            throw new UnsupportedOperationException("Cannot remove from an ImmutableSortedSet");
+        }
+    }
+}
@@ -0,0 +1,510 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.set.sorted.mutable;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.NavigableSet;
+import java.util.SortedSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+import ponzu.api.LazyIterable;
+import ponzu.api.block.function.Function;
+import ponzu.api.block.function.Function2;
+import ponzu.api.block.predicate.Predicate;
+import ponzu.api.block.predicate.Predicate2;
+import ponzu.api.list.MutableList;
+import ponzu.api.partition.set.sorted.PartitionMutableSortedSet;
+import ponzu.api.set.SetIterable;
+import ponzu.api.set.sorted.ImmutableSortedSet;
+import ponzu.api.set.sorted.MutableSortedSet;
+import ponzu.api.set.sorted.SortedSetIterable;
+import ponzu.api.tuple.Pair;
+import ponzu.impl.block.factory.Comparators;
+import ponzu.impl.block.factory.Functions;
+import ponzu.impl.block.procedure.CollectionAddProcedure;
+import ponzu.impl.block.procedure.checked.CheckedProcedure;
+import ponzu.impl.collection.mutable.AbstractMutableCollection;
+import ponzu.impl.factory.SortedSets;
+import ponzu.impl.list.mutable.FastList;
+import ponzu.impl.multimap.set.sorted.TreeSortedSetMultimap;
+import ponzu.impl.partition.set.sorted.PartitionTreeSortedSet;
+import ponzu.impl.utility.ArrayIterate;
+import ponzu.impl.utility.Iterate;
+import ponzu.impl.utility.internal.SetIterables;
+import ponzu.impl.utility.internal.SetIterate;
+import ponzu.impl.utility.internal.SortedSetIterables;
+import net.jcip.annotations.ThreadSafe;
+
+/**
+ * A MutableSortedSet which uses java.util.concurrent.ConcurrentSkipListSet for its underlying set.  Reads, writes and
+ * iteration do not lock, and subSet, headSet and tailSet return views which are themselves concurrent.  Iteration is
+ * weakly consistent, so filter, transform, groupBy and the other iteration protocols never block writers, but may or
+ * may not reflect updates made while they run.
+ * <p/>
+ * As with ConcurrentSkipListSet, null elements are not supported, and size() requires a traversal.
+ *
+ * @since 1.1
+ */
+@ThreadSafe
+public final class ConcurrentSkipListSortedSet<T>
+        extends AbstractMutableCollection<T>
+        implements Externalizable, MutableSortedSet<T>
+{
+    private static final long serialVersionUID = 1L;
+    private NavigableSet<T> delegate;
+
+    public ConcurrentSkipListSortedSet()
+    {
+        this.delegate = new ConcurrentSkipListSet<T>();
+    }
+
+    public ConcurrentSkipListSortedSet(Iterable<? extends T> iterable)
+    {
+        this.delegate = new ConcurrentSkipListSet<T>();
+        this.addAllIterable(iterable);
+    }
+
+    public ConcurrentSkipListSortedSet(Comparator<? super T> comparator)
+    {
+        this.delegate = new ConcurrentSkipListSet<T>(comparator);
+    }
+
+    public ConcurrentSkipListSortedSet(SortedSet<T> set)
+    {
+        this.delegate = new ConcurrentSkipListSet<T>(set);
+    }
+
+    public ConcurrentSkipListSortedSet(Comparator<? super T> comparator, Iterable<? extends T> iterable)
+    {
+        this(comparator);
+        this.addAllIterable(iterable);
+    }
+
+    private ConcurrentSkipListSortedSet(NavigableSet<T> delegate)
+    {
+        this.delegate = delegate;
+    }
+
+    public static <T> ConcurrentSkipListSortedSet<T> newSet()
+    {
+        return new ConcurrentSkipListSortedSet<T>();
+    }
+
+    public static <T> ConcurrentSkipListSortedSet<T> newSet(Comparator<? super T> comparator)
+    {
+        return new ConcurrentSkipListSortedSet<T>(comparator);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> ConcurrentSkipListSortedSet<T> newSet(Iterable<? extends T> source)
+    {
+        if (source instanceof SortedSet<?>)
+        {
+            return new ConcurrentSkipListSortedSet<T>((SortedSet<T>) source);
+        }
+        ConcurrentSkipListSortedSet<T> sortedSet = ConcurrentSkipListSortedSet.newSet();
+        Iterate.forEach(source, CollectionAddProcedure.on(sortedSet));
+        return sortedSet;
+    }
+
+    public static <T> ConcurrentSkipListSortedSet<T> newSet(Comparator<? super T> comparator, Iterable<? extends T> iterable)
+    {
+        return new ConcurrentSkipListSortedSet<T>(comparator, iterable);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> ConcurrentSkipListSortedSet<T> newSetWith(T... elements)
+    {
+        return new ConcurrentSkipListSortedSet<T>().with(elements);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> ConcurrentSkipListSortedSet<T> newSetWith(Comparator<? super T> comparator, T... elements)
+    {
+        return new ConcurrentSkipListSortedSet<T>(comparator).with(elements);
+    }
+
+    @Override
+    public MutableSortedSet<T> asUnmodifiable()
+    {
+        return UnmodifiableSortedSet.of(this);
+    }
+
+    @Override
+    public MutableSortedSet<T> asSynchronized()
+    {
+        return SynchronizedSortedSet.of(this);
+    }
+
+    public ImmutableSortedSet<T> toImmutable()
+    {
+        return SortedSets.immutable.ofSortedSet(this);
+    }
+
+    @Override
+    public boolean add(T element)
+    {
+        return this.delegate.add(element);
+    }
+
+    @Override
+    public boolean remove(Object element)
+    {
+        return this.delegate.remove(element);
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends T> collection)
+    {
+        return this.delegate.addAll(collection);
+    }
+
+    @Override
+    public boolean contains(Object o)
+    {
+        return this.delegate.contains(o);
+    }
+
+    @Override
+    public boolean containsAll(Collection<?> collection)
+    {
+        return this.delegate.containsAll(collection);
+    }
+
+    @Override
+    public void clear()
+    {
+        this.delegate.clear();
+    }
+
+    @Override
+    public ConcurrentSkipListSortedSet<T> clone()
+    {
+        return new ConcurrentSkipListSortedSet<T>((SortedSet<T>) this.delegate);
+    }
+
+    @Override
+    public boolean equals(Object object)
+    {
+        return this.delegate.equals(object);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return this.delegate.hashCode();
+    }
+
+    public ConcurrentSkipListSortedSet<T> with(T element)
+    {
+        this.delegate.add(element);
+        return this;
+    }
+
+    public ConcurrentSkipListSortedSet<T> with(T element1, T element2)
+    {
+        this.delegate.add(element1);
+        this.delegate.add(element2);
+        return this;
+    }
+
+    public ConcurrentSkipListSortedSet<T> with(T element1, T element2, T element3)
+    {
+        this.delegate.add(element1);
+        this.delegate.add(element2);
+        this.delegate.add(element3);
+        return this;
+    }
+
+    @SuppressWarnings("unchecked")
+    public ConcurrentSkipListSortedSet<T> with(T... elements)
+    {
+        ArrayIterate.forEach(elements, CollectionAddProcedure.on(this.delegate));
+        return this;
+    }
+
+    public ConcurrentSkipListSortedSet<T> without(T element)
+    {
+        this.remove(element);
+        return this;
+    }
+
+    public ConcurrentSkipListSortedSet<T> withAll(Iterable<? extends T> elements)
+    {
+        this.addAllIterable(elements);
+        return this;
+    }
+
+    public ConcurrentSkipListSortedSet<T> withoutAll(Iterable<? extends T> elements)
+    {
+        this.removeAllIterable(elements);
+        return this;
+    }
+
+    @Override
+    public ConcurrentSkipListSortedSet<T> newEmpty()
+    {
+        return ConcurrentSkipListSortedSet.newSet(this.delegate.comparator());
+    }
+
+    @Override
+    public ConcurrentSkipListSortedSet<T> filter(Predicate<? super T> predicate)
+    {
+        return Iterate.filter(this.delegate, predicate, this.newEmpty());
+    }
+
+    @Override
+    public ConcurrentSkipListSortedSet<T> filterNot(Predicate<? super T> predicate)
+    {
+        return Iterate.filterNot(this.delegate, predicate, this.newEmpty());
+    }
+
+    public PartitionMutableSortedSet<T> partition(Predicate<? super T> predicate)
+    {
+        return PartitionTreeSortedSet.of(this, predicate);
+    }
+
+    @Override
+    public <V> MutableList<V> transform(Function<? super T, ? extends V> function)
+    {
+        return Iterate.transform(this.delegate, function, FastList.<V>newList());
+    }
+
+    @Override
+    public <V> MutableList<V> flatTransform(Function<? super T, ? extends Iterable<V>> function)
+    {
+        return Iterate.flatTransform(this.delegate, function, FastList.<V>newList());
+    }
+
+    @Override
+    public <V> MutableList<V> transformIf(
+            Predicate<? super T> predicate,
+            Function<? super T, ? extends V> function)
+    {
+        return Iterate.tranformIf(this.delegate, predicate, function, FastList.<V>newList());
+    }
+
+    public <V> TreeSortedSetMultimap<V, T> groupBy(Function<? super T, ? extends V> function)
+    {
+        return Iterate.groupBy(this.delegate, function, TreeSortedSetMultimap.<V, T>newMultimap(this.comparator()));
+    }
+
+    public <V> TreeSortedSetMultimap<V, T> groupByEach(Function<? super T, ? extends Iterable<V>> function)
+    {
+        return Iterate.groupByEach(this.delegate, function, TreeSortedSetMultimap.<V, T>newMultimap(this.comparator()));
+    }
+
+    @Override
+    public <P> ConcurrentSkipListSortedSet<T> filterWith(Predicate2<? super T, ? super P> predicate, P parameter)
+    {
+        return Iterate.filterWith(this.delegate, predicate, parameter, this.newEmpty());
+    }
+
+    @Override
+    public <P> ConcurrentSkipListSortedSet<T> filterNotWith(Predicate2<? super T, ? super P> predicate, P parameter)
+    {
+        return Iterate.filterNotWith(this.delegate, predicate, parameter, this.newEmpty());
+    }
+
+    @Override
+    public <P, V> MutableList<V> transformWith(Function2<? super T, ? super P, ? extends V> function, P parameter)
+    {
+        return Iterate.transformWith(this.delegate, function, parameter, FastList.<V>newList());
+    }
+
+    public <S> ConcurrentSkipListSortedSet<Pair<T, S>> zip(Iterable<S> that)
+    {
+        Comparator<? super T> comparator = this.comparator();
+        if (comparator == null)
+        {
+            ConcurrentSkipListSortedSet<Pair<T, S>> pairs = ConcurrentSkipListSortedSet.newSet(Comparators.<Pair<T, S>, T>byFunction(Functions.<T>firstOfPair(), Comparators.<T>naturalOrder()));
+            return Iterate.zip(this, that, pairs);
+        }
+        return Iterate.zip(this, that, ConcurrentSkipListSortedSet.<Pair<T, S>>newSet(Comparators.<T>byFirstOfPair(comparator)));
+    }
+
+    public ConcurrentSkipListSortedSet<Pair<T, Integer>> zipWithIndex()
+    {
+        Comparator<? super T> comparator = this.comparator();
+        if (comparator == null)
+        {
+            ConcurrentSkipListSortedSet<Pair<T, Integer>> pairs = ConcurrentSkipListSortedSet.newSet(Comparators.<Pair<T, Integer>, T>byFunction(Functions.<T>firstOfPair(), Comparators.<T>naturalOrder()));
+            return Iterate.zipWithIndex(this, pairs);
+        }
+        return Iterate.zipWithIndex(this, ConcurrentSkipListSortedSet.<Pair<T, Integer>>newSet(Comparators.<T>byFirstOfPair(comparator)));
+    }
+
+    @Override
+    public boolean removeAllIterable(Iterable<?> iterable)
+    {
+        return SetIterate.removeAllIterable(this.delegate, iterable);
+    }
+
+    public Comparator<? super T> comparator()
+    {
+        return this.delegate.comparator();
+    }
+
+    public MutableSortedSet<T> subSet(T fromElement, T toElement)
+    {
+        return new ConcurrentSkipListSortedSet<T>(this.delegate.subSet(fromElement, true, toElement, false));
+    }
+
+    public MutableSortedSet<T> headSet(T toElement)
+    {
+        return new ConcurrentSkipListSortedSet<T>(this.delegate.headSet(toElement, false));
+    }
+
+    public MutableSortedSet<T> tailSet(T fromElement)
+    {
+        return new ConcurrentSkipListSortedSet<T>(this.delegate.tailSet(fromElement, true));
+    }
+
+    public T first()
+    {
+        return this.delegate.first();
+    }
+
+    public T last()
+    {
+        return this.delegate.last();
+    }
+
+    @Override
+    public T getFirst()
+    {
+        return this.first();
+    }
+
+    @Override
+    public T getLast()
+    {
+        return this.last();
+    }
+
+    @SuppressWarnings("unchecked")
+    public MutableSortedSet<SortedSetIterable<T>> powerSet()
+    {
+        return (MutableSortedSet<SortedSetIterable<T>>) (MutableSortedSet<?>) SortedSetIterables.powerSet(this);
+    }
+
+    public <B> LazyIterable<Pair<T, B>> cartesianProduct(SetIterable<B> set)
+    {
+        return SetIterables.cartesianProduct(this, set);
+    }
+
+    public ConcurrentSkipListSortedSet<T> union(SetIterable<? extends T> set)
+    {
+        return SetIterables.unionInto(this, set, this.newEmpty());
+    }
+
+    public ConcurrentSkipListSortedSet<T> intersect(SetIterable<? extends T> set)
+    {
+        return SetIterables.intersectInto(this, set, this.newEmpty());
+    }
+
+    public ConcurrentSkipListSortedSet<T> difference(SetIterable<? extends T> subtrahendSet)
+    {
+        return SetIterables.differenceInto(this, subtrahendSet, this.newEmpty());
+    }
+
+    public MutableSortedSet<T> symmetricDifference(SetIterable<? extends T> setB)
+    {
+        return SetIterables.symmetricDifferenceInto(this, setB, this.newEmpty());
+    }
+
+    public <R extends Set<T>> R unionInto(SetIterable<? extends T> set, R targetSet)
+    {
+        return SetIterables.unionInto(this, set, targetSet);
+    }
+
+    public <R extends Set<T>> R intersectInto(SetIterable<? extends T> set, R targetSet)
+    {
+        return SetIterables.intersectInto(this, set, targetSet);
+    }
+
+    public <R extends Set<T>> R differenceInto(SetIterable<? extends T> subtrahendSet, R targetSet)
+    {
+        return SetIterables.differenceInto(this, subtrahendSet, targetSet);
+    }
+
+    public <R extends Set<T>> R symmetricDifferenceInto(SetIterable<? extends T> set, R targetSet)
+    {
+        return SetIterables.symmetricDifferenceInto(this, set, targetSet);
+    }
+
+    public boolean isSubsetOf(SetIterable<? extends T> candidateSuperset)
+    {
+        return SetIterables.isSubsetOf(this, candidateSuperset);
+    }
+
+    public boolean isProperSubsetOf(SetIterable<? extends T> candidateSuperset)
+    {
+        return SetIterables.isProperSubsetOf(this, candidateSuperset);
+    }
+
+    @Override
+    public Iterator<T> iterator()
+    {
+        return this.delegate.iterator();
+    }
+
+    @Override
+    public int size()
+    {
+        return this.delegate.size();
+    }
+
+    public void writeExternal(final ObjectOutput out) throws IOException
+    {
+        // Snapshot the elements so the count written matches the elements written under concurrent updates
+        MutableList<T> elements = FastList.newList(this.delegate);
+        out.writeObject(this.comparator());
+        out.writeInt(elements.size());
+        elements.forEach(new CheckedProcedure<T>()
+        {
+            @Override
+            public void safeValue(T each) throws Exception
+            {
+                out.writeObject(each);
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException
+    {
+        this.delegate = new ConcurrentSkipListSet<T>((Comparator<T>) in.readObject());
+        int size = in.readInt();
+        for (int i = 0; i < size; i++)
+        {
+            this.add((T) in.readObject());
+        }
+    }
+
+    public int compareTo(SortedSetIterable<T> otherSet)
+    {
+        return SortedSetIterables.compare(this, otherSet);
+    }
+}
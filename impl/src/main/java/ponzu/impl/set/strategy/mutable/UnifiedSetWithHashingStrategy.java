@@ -29,7 +29,10 @@ import java.util.NoSuchElementException;
 import java.util.Set;
 
 import net.jcip.annotations.NotThreadSafe;
+import ponzu.api.LazyDoubleIterable;
+import ponzu.api.LazyIntIterable;
 import ponzu.api.LazyIterable;
+import ponzu.api.LazyLongIterable;
 import ponzu.api.RichIterable;
 import ponzu.api.bag.MutableBag;
 import ponzu.api.block.HashingStrategy;
@@ -37,8 +40,11 @@ import ponzu.api.block.function.Function;
 import ponzu.api.block.function.Function2;
 import ponzu.api.block.function.Function3;
 import ponzu.api.block.function.Generator;
+import ponzu.api.block.function.primitive.DoubleFunction;
 import ponzu.api.block.function.primitive.DoubleObjectToDoubleFunction;
+import ponzu.api.block.function.primitive.IntFunction;
 import ponzu.api.block.function.primitive.IntObjectToIntFunction;
+import ponzu.api.block.function.primitive.LongFunction;
 import ponzu.api.block.function.primitive.LongObjectToLongFunction;
 import ponzu.api.block.predicate.Predicate;
 import ponzu.api.block.predicate.Predicate2;
@@ -75,6 +81,9 @@ import ponzu.impl.block.procedure.SelectProcedure;
 import ponzu.impl.block.procedure.ZipWithIndexProcedure;
 import ponzu.impl.factory.HashingStrategySets;
 import ponzu.impl.factory.Lists;
+import ponzu.impl.lazy.primitive.CollectDoubleIterable;
+import ponzu.impl.lazy.primitive.CollectIntIterable;
+import ponzu.impl.lazy.primitive.CollectLongIterable;
 import ponzu.impl.list.mutable.FastList;
 import ponzu.impl.map.mutable.UnifiedMap;
 import ponzu.impl.map.sorted.mutable.TreeSortedMap;
@@ -110,6 +119,12 @@ public class UnifiedSetWithHashingStrategy<K>
 
     protected transient int occupied;
 
+    /**
+     * The hash codes of the elements stored directly in the table, or null if hash codes are not cached.  Elements
+     * in collision chains do not have a cached hash code.
+     */
+    protected transient int[] hashes;
+
     protected float loadFactor = DEFAULT_LOAD_FACTOR;
 
     protected int maxSize;
@@ -164,6 +179,10 @@ public class UnifiedSetWithHashingStrategy<K>
         this.loadFactor = set.loadFactor;
         this.occupied = set.occupied;
         this.table = new Object[set.table.length];
+        if (set.hashes != null && set.hashingStrategy == hashingStrategy)
+        {
+            this.hashes = set.hashes.clone();
+        }
 
         for (int i = 0; i < set.table.length; i++)
         {
@@ -225,6 +244,47 @@ public class UnifiedSetWithHashingStrategy<K>
         return UnifiedSetWithHashingStrategy.<K>newSet(hashingStrategy, elements.length).with(elements);
     }
 
+    /**
+     * Creates a set which stores the hash code of each element in an int array alongside the table.  The set never
+     * recomputes the hash code of an element stored directly in the table when it grows, and compares cached hash
+     * codes before calling {@link HashingStrategy#equals(Object, Object)}, which suits strategies whose hash codes
+     * are expensive to compute.  Elements in collision chains are rehashed as usual.  The cache itself is not
+     * serialized, but a deserialized copy caches hash codes again.
+     *
+     * @since 1.1
+     */
+    public static <K> UnifiedSetWithHashingStrategy<K> newSetWithCachedHashCodes(HashingStrategy<? super K> hashingStrategy)
+    {
+        return UnifiedSetWithHashingStrategy.<K>newSet(hashingStrategy).cacheHashCodes();
+    }
+
+    /**
+     * @see #newSetWithCachedHashCodes(HashingStrategy)
+     * @since 1.1
+     */
+    public static <K> UnifiedSetWithHashingStrategy<K> newSetWithCachedHashCodes(HashingStrategy<? super K> hashingStrategy, int size)
+    {
+        return UnifiedSetWithHashingStrategy.<K>newSet(hashingStrategy, size).cacheHashCodes();
+    }
+
+    private UnifiedSetWithHashingStrategy<K> cacheHashCodes()
+    {
+        if (this.occupied != 0)
+        {
+            throw new IllegalStateException("Hash codes can only be cached from an empty set");
+        }
+        this.hashes = new int[this.table.length];
+        return this;
+    }
+
+    /**
+     * @since 1.1
+     */
+    public boolean isCachingHashCodes()
+    {
+        return this.hashes != null;
+    }
+
     private int fastCeil(float v)
     {
         int possibleResult = (int) v;
@@ -249,6 +309,10 @@ public class UnifiedSetWithHashingStrategy<K>
     protected int allocate(int capacity)
     {
         this.table = new Object[capacity];
+        if (this.hashes != null)
+        {
+            this.hashes = new int[capacity];
+        }
         this.computeMaxSize(capacity);
 
         return capacity;
@@ -261,11 +325,16 @@ public class UnifiedSetWithHashingStrategy<K>
     }
 
     protected final int index(K key)
+    {
+        return this.indexFor(this.hashingStrategy.computeHashCode(key));
+    }
+
+    private int indexFor(int hashCode)
     {
         // This function ensures that hashCodes that differ only by
         // constant multiples at each bit position have a bounded
         // number of collisions (approximately 8 at default load factor).
-        int h = this.hashingStrategy.computeHashCode(key);
+        int h = hashCode;
         h ^= (h >>> 20) ^ (h >>> 12);
         h = h ^ (h >>> 7) ^ (h >>> 4);
         return h & (this.table.length - 1);
@@ -288,12 +357,17 @@ public class UnifiedSetWithHashingStrategy<K>
 
     public boolean add(K key)
     {
-        int index = this.index(key);
+        int hashCode = this.hashingStrategy.computeHashCode(key);
+        int index = this.indexFor(hashCode);
         Object cur = this.table[index];
 
         if (cur == null)
         {
             this.table[index] = this.toSentinelIfNull(key);
+            if (this.hashes != null)
+            {
+                this.hashes[index] = hashCode;
+            }
             if (++this.occupied > this.maxSize)
             {
                 this.rehash();
@@ -304,7 +378,7 @@ public class UnifiedSetWithHashingStrategy<K>
         {
             return this.chainedAdd(key, index);
         }
-        return !this.existsAndEqual(cur, key) && this.chainedAdd(key, index);
+        return !this.slotEquals(cur, key, index, hashCode) && this.chainedAdd(key, index);
     }
 
     private boolean chainedAdd(K key, int index)
@@ -389,6 +463,7 @@ public class UnifiedSetWithHashingStrategy<K>
     {
         int oldLength = this.table.length;
         Object[] old = this.table;
+        int[] oldHashes = this.hashes;
         this.allocate(newCapacity);
         this.occupied = 0;
 
@@ -433,6 +508,13 @@ public class UnifiedSetWithHashingStrategy<K>
                 }
                 while (true);
             }
+            else if (oldHashes != null)
+            {
+                if (oldKey != null)
+                {
+                    this.addRehashed(oldKey, oldHashes[i]);
+                }
+            }
             else if (oldKey != null)
             {
                 this.add(this.nonSentinel(oldKey));
@@ -440,16 +522,35 @@ public class UnifiedSetWithHashingStrategy<K>
         }
     }
 
+    /**
+     * Adds an element which is known not to be in the set, using its cached hash code.
+     */
+    private void addRehashed(Object key, int hashCode)
+    {
+        int index = this.indexFor(hashCode);
+        if (this.table[index] == null)
+        {
+            this.table[index] = key;
+            this.hashes[index] = hashCode;
+            this.occupied++;
+        }
+        else
+        {
+            this.chainedAdd(this.nonSentinel(key), index);
+        }
+    }
+
     public boolean contains(Object key)
     {
-        int index = this.index((K) key);
+        int hashCode = this.hashingStrategy.computeHashCode((K) key);
+        int index = this.indexFor(hashCode);
         Object cur = this.table[index];
 
         if (cur instanceof ChainedBucket)
         {
             return this.chainContains((ChainedBucket) cur, (K) key);
         }
-        return this.existsAndEqual(cur, (K) key);
+        return this.slotEquals(cur, (K) key, index, hashCode);
     }
 
     private boolean chainContains(ChainedBucket bucket, K key)
@@ -662,7 +763,8 @@ public class UnifiedSetWithHashingStrategy<K>
 
     public UnifiedSetWithHashingStrategy<K> newEmpty()
     {
-        return UnifiedSetWithHashingStrategy.newSet(this.hashingStrategy);
+        UnifiedSetWithHashingStrategy<K> result = UnifiedSetWithHashingStrategy.newSet(this.hashingStrategy);
+        return this.hashes == null ? result : result.cacheHashCodes();
     }
 
     public K getFirst()
@@ -954,6 +1056,21 @@ public class UnifiedSetWithHashingStrategy<K>
         return IterableIterate.foldLeft(initialValue, this, function);
     }
 
+    public LazyIntIterable transformToInt(IntFunction<? super K> function)
+    {
+        return new CollectIntIterable<K>(this, function);
+    }
+
+    public LazyLongIterable transformToLong(LongFunction<? super K> function)
+    {
+        return new CollectLongIterable<K>(this, function);
+    }
+
+    public LazyDoubleIterable transformToDouble(DoubleFunction<? super K> function)
+    {
+        return new CollectDoubleIterable<K>(this, function);
+    }
+
     public <IV, P> IV foldLeftWith(
             IV initialValue,
             Function3<? super IV, ? super K, ? super P, ? extends IV> function,
@@ -1207,7 +1324,8 @@ public class UnifiedSetWithHashingStrategy<K>
 
     public boolean remove(Object key)
     {
-        int index = this.index((K) key);
+        int hashCode = this.hashingStrategy.computeHashCode((K) key);
+        int index = this.indexFor(hashCode);
 
         Object cur = this.table[index];
         if (cur != null)
@@ -1216,7 +1334,7 @@ public class UnifiedSetWithHashingStrategy<K>
             {
                 return this.removeFromChain((ChainedBucket) cur, (K) key, index);
             }
-            if (this.existsAndEqual(cur, (K) key))
+            if (this.slotEquals(cur, (K) key, index, hashCode))
             {
                 this.table[index] = null;
                 this.occupied--;
@@ -1370,7 +1488,9 @@ public class UnifiedSetWithHashingStrategy<K>
             }
             else if (key != null)
             {
-                hashCode += this.hashingStrategy.computeHashCode(this.nonSentinel(key));
+                hashCode += this.hashes == null
+                        ? this.hashingStrategy.computeHashCode(this.nonSentinel(key))
+                        : this.hashes[i];
             }
         }
         return hashCode;
@@ -1417,8 +1537,16 @@ public class UnifiedSetWithHashingStrategy<K>
     {
         this.hashingStrategy = (HashingStrategy<? super K>) in.readObject();
         int size = in.readInt();
-        this.loadFactor = in.readFloat();
+        float serializedLoadFactor = in.readFloat();
+        // A set which caches hash codes writes its load factor negated, so sets without the cache keep the
+        // original serialized form
+        boolean cachingHashCodes = serializedLoadFactor < 0.0f;
+        this.loadFactor = Math.abs(serializedLoadFactor);
         this.init(Math.max((int) (size / this.loadFactor) + 1, DEFAULT_INITIAL_CAPACITY));
+        if (cachingHashCodes)
+        {
+            this.cacheHashCodes();
+        }
         for (int i = 0; i < size; i++)
         {
             this.add((K) in.readObject());
@@ -1429,7 +1557,7 @@ public class UnifiedSetWithHashingStrategy<K>
     {
         out.writeObject(this.hashingStrategy);
         out.writeInt(this.size());
-        out.writeFloat(this.loadFactor);
+        out.writeFloat(this.hashes == null ? this.loadFactor : -this.loadFactor);
         for (int i = 0; i < this.table.length; i++)
         {
             Object o = this.table[i];
@@ -1544,7 +1672,8 @@ public class UnifiedSetWithHashingStrategy<K>
 
     private void addIfFound(K key, UnifiedSetWithHashingStrategy<K> other)
     {
-        int index = this.index(key);
+        int hashCode = this.hashingStrategy.computeHashCode(key);
+        int index = this.indexFor(hashCode);
 
         Object cur = this.table[index];
         if (cur != null)
@@ -1554,7 +1683,7 @@ public class UnifiedSetWithHashingStrategy<K>
                 this.addIfFoundFromChain((ChainedBucket) cur, key, other);
                 return;
             }
-            if (this.existsAndEqual(cur, key))
+            if (this.slotEquals(cur, key, index, hashCode))
             {
                 other.add(this.nonSentinel(cur));
             }
@@ -1625,6 +1754,10 @@ public class UnifiedSetWithHashingStrategy<K>
     {
         int retainedSize = Iterate.sizeOf(iterable);
         UnifiedSetWithHashingStrategy<K> retainedCopy = new UnifiedSetWithHashingStrategy<K>(this.hashingStrategy, retainedSize, this.loadFactor);
+        if (this.hashes != null)
+        {
+            retainedCopy.cacheHashCodes();
+        }
         for (Object key : iterable)
         {
             this.addIfFound((K) key, retainedCopy);
@@ -1634,6 +1767,7 @@ public class UnifiedSetWithHashingStrategy<K>
             this.maxSize = retainedCopy.maxSize;
             this.occupied = retainedCopy.occupied;
             this.table = retainedCopy.table;
+            this.hashes = retainedCopy.hashes;
             return true;
         }
         return false;
@@ -2183,7 +2317,8 @@ public class UnifiedSetWithHashingStrategy<K>
 
     public K get(K key)
     {
-        int index = this.index(key);
+        int hashCode = this.hashingStrategy.computeHashCode(key);
+        int index = this.indexFor(hashCode);
         Object cur = this.table[index];
 
         Object result = null;
@@ -2193,7 +2328,7 @@ public class UnifiedSetWithHashingStrategy<K>
             {
                 result = this.chainedGet(key, (ChainedBucket) cur);
             }
-            else if (this.existsAndEqual(cur, key))
+            else if (this.slotEquals(cur, key, index, hashCode))
             {
                 result = cur;
             }
@@ -2245,19 +2380,24 @@ public class UnifiedSetWithHashingStrategy<K>
 
     public K put(K key)
     {
-        int index = this.index(key);
+        int hashCode = this.hashingStrategy.computeHashCode(key);
+        int index = this.indexFor(hashCode);
         Object cur = this.table[index];
 
         if (cur == null)
         {
             this.table[index] = this.toSentinelIfNull(key);
+            if (this.hashes != null)
+            {
+                this.hashes[index] = hashCode;
+            }
             if (++this.occupied > this.maxSize)
             {
                 this.rehash();
             }
             return this.nonSentinel(key);
         }
-        else if (cur instanceof ChainedBucket || !this.eq(cur, key))
+        else if (cur instanceof ChainedBucket || !this.slotEquals(cur, key, index, hashCode))
         {
             return this.nonSentinel(this.chainedPut(key, index));
         }
@@ -2339,7 +2479,8 @@ public class UnifiedSetWithHashingStrategy<K>
 
     public K removeFromPool(K key)
     {
-        int index = this.index(key);
+        int hashCode = this.hashingStrategy.computeHashCode(key);
+        int index = this.indexFor(hashCode);
         Object cur = this.table[index];
         if (cur != null)
         {
@@ -2347,7 +2488,7 @@ public class UnifiedSetWithHashingStrategy<K>
             {
                 return this.nonSentinel(this.removeFromChainForPool((ChainedBucket) cur, key, index));
             }
-            if (this.existsAndEqual(cur, key))
+            if (this.slotEquals(cur, key, index, hashCode))
             {
                 this.table[index] = null;
                 this.occupied--;
@@ -2469,6 +2610,14 @@ public class UnifiedSetWithHashingStrategy<K>
         while (true);
     }
 
+    /**
+     * Compares a key with the element stored directly in a table slot, comparing cached hash codes first.
+     */
+    private boolean slotEquals(Object cur, K key, int index, int hashCode)
+    {
+        return (this.hashes == null || this.hashes[index] == hashCode) && this.existsAndEqual(cur, key);
+    }
+
     private boolean existsAndEqual(Object object1, K object2)
     {
         return object1 != null && this.eq(object1, object2);
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.tuple;
+
+import java.util.Map;
+
+import ponzu.api.tuple.Pair;
+import ponzu.impl.block.factory.Comparators;
+
+/**
+ * The equality, hashing and conversions shared by the Pair implementations that store their elements as primitives.
+ * Two Pairs are equal, and hash alike, whenever their boxed elements are, whichever implementation holds them.
+ */
+abstract class AbstractPair<T1, T2>
+        implements Pair<T1, T2>
+{
+    private static final long serialVersionUID = 1L;
+
+    static int longHash(long value)
+    {
+        return (int) (value ^ value >>> 32);
+    }
+
+    static int nullSafeHash(Object value)
+    {
+        return value == null ? 0 : value.hashCode();
+    }
+
+    public void put(Map<T1, T2> map)
+    {
+        map.put(this.getOne(), this.getTwo());
+    }
+
+    public Map.Entry<T1, T2> toEntry()
+    {
+        return ImmutableEntry.of(this.getOne(), this.getTwo());
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o)
+        {
+            return true;
+        }
+        if (!(o instanceof Pair))
+        {
+            return false;
+        }
+
+        Pair<?, ?> that = (Pair<?, ?>) o;
+
+        return Comparators.nullSafeEquals(this.getOne(), that.getOne())
+                && Comparators.nullSafeEquals(this.getTwo(), that.getTwo());
+    }
+
+    @Override
+    public abstract int hashCode();
+
+    @SuppressWarnings("unchecked")
+    public int compareTo(Pair<T1, T2> other)
+    {
+        int i = ((Comparable<T1>) this.getOne()).compareTo(other.getOne());
+        if (i != 0)
+        {
+            return i;
+        }
+        return ((Comparable<T2>) this.getTwo()).compareTo(other.getTwo());
+    }
+}
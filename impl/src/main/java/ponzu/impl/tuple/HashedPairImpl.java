@@ -0,0 +1,51 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.tuple;
+
+/**
+ * A PairImpl that computes its hashCode once, when it is created.  Its elements must not change in a way that affects
+ * their hashCodes.
+ */
+final class HashedPairImpl<T1, T2>
+        extends PairImpl<T1, T2>
+{
+    private static final long serialVersionUID = 1L;
+
+    private final int hashCode;
+
+    HashedPairImpl(T1 newOne, T2 newTwo)
+    {
+        super(newOne, newTwo);
+        this.hashCode = super.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (o instanceof HashedPairImpl && ((HashedPairImpl<?, ?>) o).hashCode != this.hashCode)
+        {
+            return false;
+        }
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return this.hashCode;
+    }
+}
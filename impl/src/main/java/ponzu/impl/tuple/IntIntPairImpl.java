@@ -0,0 +1,81 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.tuple;
+
+import ponzu.api.tuple.primitive.IntIntPair;
+
+/**
+ * A Pair of two ints that stores them unboxed.
+ */
+final class IntIntPairImpl
+        extends AbstractPair<Integer, Integer>
+        implements IntIntPair
+{
+    private static final long serialVersionUID = 1L;
+
+    private final int one;
+    private final int two;
+
+    IntIntPairImpl(int newOne, int newTwo)
+    {
+        this.one = newOne;
+        this.two = newTwo;
+    }
+
+    public Integer getOne()
+    {
+        return Integer.valueOf(this.one);
+    }
+
+    public int getOneInt()
+    {
+        return this.one;
+    }
+
+    public Integer getTwo()
+    {
+        return Integer.valueOf(this.two);
+    }
+
+    public int getTwoInt()
+    {
+        return this.two;
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (o instanceof IntIntPair)
+        {
+            IntIntPair that = (IntIntPair) o;
+            return this.one == that.getOneInt() && this.two == that.getTwoInt();
+        }
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return 29 * this.one + this.two;
+    }
+
+    @Override
+    public String toString()
+    {
+        return this.one + ":" + this.two;
+    }
+}
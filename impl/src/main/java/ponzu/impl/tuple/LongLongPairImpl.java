@@ -0,0 +1,81 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.tuple;
+
+import ponzu.api.tuple.primitive.LongLongPair;
+
+/**
+ * A Pair of two longs that stores them unboxed.
+ */
+final class LongLongPairImpl
+        extends AbstractPair<Long, Long>
+        implements LongLongPair
+{
+    private static final long serialVersionUID = 1L;
+
+    private final long one;
+    private final long two;
+
+    LongLongPairImpl(long newOne, long newTwo)
+    {
+        this.one = newOne;
+        this.two = newTwo;
+    }
+
+    public Long getOne()
+    {
+        return Long.valueOf(this.one);
+    }
+
+    public long getOneLong()
+    {
+        return this.one;
+    }
+
+    public Long getTwo()
+    {
+        return Long.valueOf(this.two);
+    }
+
+    public long getTwoLong()
+    {
+        return this.two;
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (o instanceof LongLongPair)
+        {
+            LongLongPair that = (LongLongPair) o;
+            return this.one == that.getOneLong() && this.two == that.getTwoLong();
+        }
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return 29 * AbstractPair.longHash(this.one) + AbstractPair.longHash(this.two);
+    }
+
+    @Override
+    public String toString()
+    {
+        return this.one + ":" + this.two;
+    }
+}
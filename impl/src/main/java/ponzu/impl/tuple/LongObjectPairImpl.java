@@ -0,0 +1,65 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.tuple;
+
+import ponzu.api.tuple.primitive.LongObjectPair;
+
+/**
+ * A Pair of a long and an object that stores the long unboxed.
+ */
+final class LongObjectPairImpl<T>
+        extends AbstractPair<Long, T>
+        implements LongObjectPair<T>
+{
+    private static final long serialVersionUID = 1L;
+
+    private final long one;
+    private final T two;
+
+    LongObjectPairImpl(long newOne, T newTwo)
+    {
+        this.one = newOne;
+        this.two = newTwo;
+    }
+
+    public Long getOne()
+    {
+        return Long.valueOf(this.one);
+    }
+
+    public long getOneLong()
+    {
+        return this.one;
+    }
+
+    public T getTwo()
+    {
+        return this.two;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return 29 * AbstractPair.longHash(this.one) + AbstractPair.nullSafeHash(this.two);
+    }
+
+    @Override
+    public String toString()
+    {
+        return this.one + ":" + this.two;
+    }
+}
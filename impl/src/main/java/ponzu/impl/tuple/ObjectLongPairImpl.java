@@ -0,0 +1,65 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.tuple;
+
+import ponzu.api.tuple.primitive.ObjectLongPair;
+
+/**
+ * A Pair of an object and a long that stores the long unboxed.
+ */
+final class ObjectLongPairImpl<T>
+        extends AbstractPair<T, Long>
+        implements ObjectLongPair<T>
+{
+    private static final long serialVersionUID = 1L;
+
+    private final T one;
+    private final long two;
+
+    ObjectLongPairImpl(T newOne, long newTwo)
+    {
+        this.one = newOne;
+        this.two = newTwo;
+    }
+
+    public T getOne()
+    {
+        return this.one;
+    }
+
+    public Long getTwo()
+    {
+        return Long.valueOf(this.two);
+    }
+
+    public long getTwoLong()
+    {
+        return this.two;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return 29 * AbstractPair.nullSafeHash(this.one) + AbstractPair.longHash(this.two);
+    }
+
+    @Override
+    public String toString()
+    {
+        return this.one + ":" + this.two;
+    }
+}
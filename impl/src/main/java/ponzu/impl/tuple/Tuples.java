@@ -20,6 +20,12 @@ import java.util.Map;
 
 import ponzu.api.tuple.Pair;
 import ponzu.api.tuple.Twin;
+import ponzu.api.tuple.primitive.IntIntPair;
+import ponzu.api.tuple.primitive.IntObjectPair;
+import ponzu.api.tuple.primitive.LongLongPair;
+import ponzu.api.tuple.primitive.LongObjectPair;
+import ponzu.api.tuple.primitive.ObjectIntPair;
+import ponzu.api.tuple.primitive.ObjectLongPair;
 
 /**
  * A PairImpl is a container that holds two related objects.  It is the equivalent of an Association in Smalltalk, or an
@@ -45,4 +51,47 @@ public final class Tuples
     {
         return new TwinImpl<T>(one, two);
     }
+
+    /**
+     * Returns a Pair that computes its hashCode once instead of on every call, which suits immutable pairs used as
+     * composite map keys.  The elements must not change in a way that affects their hashCodes.
+     */
+    public static <T1, T2> Pair<T1, T2> hashedPair(T1 one, T2 two)
+    {
+        return new HashedPairImpl<T1, T2>(one, two);
+    }
+
+    /**
+     * Returns a Pair that stores its int element unboxed.  The primitive pairs are equal to, and hash like, any Pair
+     * holding the same boxed values.
+     */
+    public static <T> ObjectIntPair<T> objectIntPair(T one, int two)
+    {
+        return new ObjectIntPairImpl<T>(one, two);
+    }
+
+    public static <T> IntObjectPair<T> intObjectPair(int one, T two)
+    {
+        return new IntObjectPairImpl<T>(one, two);
+    }
+
+    public static IntIntPair intIntPair(int one, int two)
+    {
+        return new IntIntPairImpl(one, two);
+    }
+
+    public static <T> ObjectLongPair<T> objectLongPair(T one, long two)
+    {
+        return new ObjectLongPairImpl<T>(one, two);
+    }
+
+    public static <T> LongObjectPair<T> longObjectPair(long one, T two)
+    {
+        return new LongObjectPairImpl<T>(one, two);
+    }
+
+    public static LongLongPair longLongPair(long one, long two)
+    {
+        return new LongLongPairImpl(one, two);
+    }
 }
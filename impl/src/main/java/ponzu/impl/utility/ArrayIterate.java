@@ -1215,7 +1215,7 @@ public final class ArrayIterate
     {
         for (int i = 0; i < array.length; i++)
         {
-            targetCollection.add(Tuples.pair(array[i], i));
+            targetCollection.add(Tuples.objectIntPair(array[i], i));
         }
         return targetCollection;
     }
@@ -1203,7 +1203,7 @@ public final class ArrayListIterate
             T[] elements = ArrayListIterate.getInternalArray(list);
             for (int i = 0; i < size; i++)
             {
-                targetCollection.add(Tuples.pair(elements[i], i));
+                targetCollection.add(Tuples.objectIntPair(elements[i], i));
             }
             return targetCollection;
         }
@@ -0,0 +1,230 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.utility;
+
+/**
+ * A window onto a range of characters of another CharSequence which does not copy them.  The tokenising methods on
+ * {@link StringIterate} which accept a CharSequence pass each token as a slice, and reuse a single slice for every
+ * token, so a slice passed to a procedure must not be retained beyond the call.  Use {@link #toString()} to keep a
+ * copy of the token.
+ *
+ * @since 1.1
+ */
+public final class CharSequenceSlice
+        implements CharSequence
+{
+    private CharSequence source;
+    private int start;
+    private int end;
+
+    public CharSequenceSlice(CharSequence source, int start, int end)
+    {
+        if (start < 0 || end > source.length() || start > end)
+        {
+            throw new IndexOutOfBoundsException("start: " + start + " end: " + end + " length: " + source.length());
+        }
+        this.source = source;
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * Moves this slice to a new range, so that one slice can be reused for many tokens.  The range is not checked.
+     */
+    public void reset(CharSequence newSource, int newStart, int newEnd)
+    {
+        this.source = newSource;
+        this.start = newStart;
+        this.end = newEnd;
+    }
+
+    public CharSequence getSource()
+    {
+        return this.source;
+    }
+
+    /**
+     * Returns the index in the source of the first character of this slice.
+     */
+    public int getStart()
+    {
+        return this.start;
+    }
+
+    /**
+     * Returns the index in the source after the last character of this slice.
+     */
+    public int getEnd()
+    {
+        return this.end;
+    }
+
+    public int length()
+    {
+        return this.end - this.start;
+    }
+
+    public boolean isEmpty()
+    {
+        return this.end == this.start;
+    }
+
+    public char charAt(int index)
+    {
+        if (index < 0 || index >= this.end - this.start)
+        {
+            throw new IndexOutOfBoundsException("Index: " + index + " Size: " + this.length());
+        }
+        return this.source.charAt(this.start + index);
+    }
+
+    /**
+     * Returns a new slice over the same source.  The characters are not copied.
+     */
+    public CharSequenceSlice subSequence(int subStart, int subEnd)
+    {
+        if (subStart < 0 || subEnd > this.length() || subStart > subEnd)
+        {
+            throw new IndexOutOfBoundsException("start: " + subStart + " end: " + subEnd + " length: " + this.length());
+        }
+        return new CharSequenceSlice(this.source, this.start + subStart, this.start + subEnd);
+    }
+
+    /**
+     * Narrows this slice in place to exclude leading and trailing characters less than or equal to a space, in the
+     * same way as {@link String#trim()}.
+     *
+     * @return this slice
+     */
+    public CharSequenceSlice trim()
+    {
+        while (this.start < this.end && this.source.charAt(this.start) <= ' ')
+        {
+            this.start++;
+        }
+        while (this.start < this.end && this.source.charAt(this.end - 1) <= ' ')
+        {
+            this.end--;
+        }
+        return this;
+    }
+
+    /**
+     * Returns true if this slice contains exactly the characters of the specified sequence.
+     */
+    public boolean contentEquals(CharSequence other)
+    {
+        int length = this.end - this.start;
+        if (other.length() != length)
+        {
+            return false;
+        }
+        for (int i = 0; i < length; i++)
+        {
+            if (this.source.charAt(this.start + i) != other.charAt(i))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the same value as {@link String#hashCode()} would for the characters of this slice.
+     */
+    public int contentHashCode()
+    {
+        int hashCode = 0;
+        for (int i = this.start; i < this.end; i++)
+        {
+            hashCode = 31 * hashCode + this.source.charAt(i);
+        }
+        return hashCode;
+    }
+
+    /**
+     * Parses this slice as a signed decimal int, in the same way as {@link Integer#parseInt(String)}, without creating
+     * a String.
+     */
+    public int parseInt()
+    {
+        long result = this.parseLong(Integer.MIN_VALUE, Integer.MAX_VALUE);
+        return (int) result;
+    }
+
+    /**
+     * Parses this slice as a signed decimal long, in the same way as {@link Long#parseLong(String)}, without creating
+     * a String.
+     */
+    public long parseLong()
+    {
+        return this.parseLong(Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    private long parseLong(long minValue, long maxValue)
+    {
+        int index = this.start;
+        if (index == this.end)
+        {
+            throw this.numberFormatException();
+        }
+        boolean negative = false;
+        char first = this.source.charAt(index);
+        if (first == '-' || first == '+')
+        {
+            negative = first == '-';
+            index++;
+            if (index == this.end)
+            {
+                throw this.numberFormatException();
+            }
+        }
+        // Accumulate negatively, as the magnitude of the minimum value is one greater than the maximum
+        long limit = negative ? minValue : -maxValue;
+        long multiplyLimit = limit / 10;
+        long result = 0;
+        for (; index < this.end; index++)
+        {
+            int digit = this.source.charAt(index) - '0';
+            if (digit < 0 || digit > 9 || result < multiplyLimit)
+            {
+                throw this.numberFormatException();
+            }
+            result *= 10;
+            if (result < limit + digit)
+            {
+                throw this.numberFormatException();
+            }
+            result -= digit;
+        }
+        return negative ? result : -result;
+    }
+
+    private NumberFormatException numberFormatException()
+    {
+        return new NumberFormatException("For input string: \"" + this + '"');
+    }
+
+    /**
+     * Returns a copy of the characters of this slice.
+     */
+    @Override
+    public String toString()
+    {
+        return this.source.subSequence(this.start, this.end).toString();
+    }
+}
@@ -20,21 +20,30 @@ import java.util.Collections;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.StringTokenizer;
+import java.util.concurrent.Executor;
 
 import ponzu.api.block.function.Function;
 import ponzu.api.block.function.Function2;
 import ponzu.api.block.procedure.Procedure;
+import ponzu.api.block.procedure.primitive.IntProcedure;
 import ponzu.api.list.MutableList;
 import ponzu.api.map.MutableMap;
 import ponzu.api.set.MutableSet;
 import ponzu.impl.block.function.primitive.CharFunction;
 import ponzu.impl.block.function.primitive.CodePointFunction;
 import ponzu.impl.block.predicate.CodePointPredicate;
+import ponzu.impl.block.predicate.primitive.AsciiCharPredicate;
 import ponzu.impl.block.predicate.primitive.CharPredicate;
+import ponzu.impl.block.procedure.CollectionAddProcedure;
 import ponzu.impl.block.procedure.primitive.CharProcedure;
 import ponzu.impl.block.procedure.primitive.CodePointProcedure;
 import ponzu.impl.factory.Lists;
+import ponzu.impl.list.mutable.FastList;
 import ponzu.impl.map.mutable.UnifiedMap;
+import ponzu.impl.parallel.Combiner;
+import ponzu.impl.parallel.ParallelIterate;
+import ponzu.impl.parallel.ProcedureFactory;
+import ponzu.impl.parallel.SectionTaskRunner;
 import ponzu.impl.set.mutable.UnifiedSet;
 
 /**
@@ -45,6 +54,8 @@ import ponzu.impl.set.mutable.UnifiedSet;
  */
 public final class StringIterate
 {
+    private static final int MINIMUM_SECTION_LENGTH = 1 << 16;
+
     private StringIterate()
     {
         throw new AssertionError("Suppress default constructor for noninstantiability");
@@ -104,6 +115,11 @@ public final class StringIterate
     public static MutableList<String> tokensToList(String string, String separator)
     {
         MutableList<String> list = Lists.mutable.of();
+        if (separator.length() == 1)
+        {
+            StringIterate.forEachSubstring(string, separator.charAt(0), false, CollectionAddProcedure.on(list));
+            return list;
+        }
         for (StringTokenizer stringTokenizer = new StringTokenizer(string, separator); stringTokenizer.hasMoreTokens(); )
         {
             String token = stringTokenizer.nextToken();
@@ -230,6 +246,11 @@ public final class StringIterate
      */
     public static void forEachToken(String string, String separator, Procedure<String> procedure)
     {
+        if (separator.length() == 1)
+        {
+            StringIterate.forEachSubstring(string, separator.charAt(0), false, procedure);
+            return;
+        }
         for (StringTokenizer stringTokenizer = new StringTokenizer(string, separator); stringTokenizer.hasMoreTokens(); )
         {
             String token = stringTokenizer.nextToken();
@@ -263,6 +284,11 @@ public final class StringIterate
      */
     public static void forEachTrimmedToken(String string, String separator, Procedure<String> procedure)
     {
+        if (separator.length() == 1)
+        {
+            StringIterate.forEachSubstring(string, separator.charAt(0), true, procedure);
+            return;
+        }
         for (StringTokenizer stringTokenizer = new StringTokenizer(string, separator); stringTokenizer.hasMoreTokens(); )
         {
             String token = stringTokenizer.nextToken().trim();
@@ -270,6 +296,265 @@ public final class StringIterate
         }
     }
 
+    /**
+     * Splits on a single separator with {@link String#indexOf(int, int)} rather than a StringTokenizer.  Empty tokens
+     * are skipped, as they are by StringTokenizer.
+     */
+    private static void forEachSubstring(String string, char separator, boolean trim, Procedure<String> procedure)
+    {
+        int length = string.length();
+        int start = 0;
+        while (start < length)
+        {
+            int end = string.indexOf(separator, start);
+            if (end < 0)
+            {
+                end = length;
+            }
+            if (end > start)
+            {
+                String token = string.substring(start, end);
+                procedure.value(trim ? token.trim() : token);
+            }
+            start = end + 1;
+        }
+    }
+
+    /**
+     * For each token in the {@code string} separated by the specified {@code separator}, execute the specified
+     * {@link Procedure}.  Empty tokens are skipped.  The tokens are not copied: the same {@link CharSequenceSlice} is
+     * reset to each token in turn, so it must not be retained by the procedure.
+     *
+     * @since 1.1
+     */
+    public static void forEachToken(
+            CharSequence string,
+            char separator,
+            Procedure<? super CharSequenceSlice> procedure)
+    {
+        StringIterate.forEachTokenInRange(
+                string,
+                0,
+                string.length(),
+                separator,
+                new CharSequenceSlice(string, 0, 0),
+                procedure);
+    }
+
+    /**
+     * For each token in the {@code string} separated by any character accepted by {@code separators}, execute the
+     * specified {@link Procedure}.  Empty tokens are skipped.  The same {@link CharSequenceSlice} is reset to each
+     * token in turn, so it must not be retained by the procedure.
+     *
+     * @since 1.1
+     */
+    public static void forEachToken(
+            CharSequence string,
+            CharPredicate separators,
+            Procedure<? super CharSequenceSlice> procedure)
+    {
+        AsciiCharPredicate asciiSeparators = AsciiCharPredicate.of(separators);
+        CharSequenceSlice slice = new CharSequenceSlice(string, 0, 0);
+        int length = string.length();
+        int start = 0;
+        for (int i = 0; i < length; i++)
+        {
+            if (asciiSeparators.accept(string.charAt(i)))
+            {
+                if (i > start)
+                {
+                    slice.reset(string, start, i);
+                    procedure.value(slice);
+                }
+                start = i + 1;
+            }
+        }
+        if (length > start)
+        {
+            slice.reset(string, start, length);
+            procedure.value(slice);
+        }
+    }
+
+    /**
+     * Converts a sequence of tokens separated by the specified separator to a {@link MutableList}, skipping empty
+     * tokens.
+     *
+     * @since 1.1
+     */
+    public static MutableList<String> tokensToList(CharSequence string, char separator)
+    {
+        final MutableList<String> list = Lists.mutable.of();
+        StringIterate.forEachToken(string, separator, new Procedure<CharSequenceSlice>()
+        {
+            public void value(CharSequenceSlice each)
+            {
+                list.add(each.toString());
+            }
+        });
+        return list;
+    }
+
+    /**
+     * Converts a sequence of tokens separated by the specified separator to a {@link MutableList} in the original
+     * order, tokenising sections of large inputs in parallel on the specified executor.
+     *
+     * @since 1.1
+     */
+    public static MutableList<String> tokensToListInParallel(
+            final CharSequence string,
+            final char separator,
+            Executor executor)
+    {
+        final int[] boundaries = StringIterate.sectionBoundaries(string, separator);
+        int sectionCount = boundaries.length - 1;
+        if (sectionCount == 1)
+        {
+            return StringIterate.tokensToList(string, separator);
+        }
+        final MutableList<MutableList<String>> sections =
+                FastList.newList(Collections.<MutableList<String>>nCopies(sectionCount, null));
+        new SectionTaskRunner(sectionCount).execute(new IntProcedure()
+        {
+            public void value(int section)
+            {
+                final MutableList<String> tokens = Lists.mutable.of();
+                StringIterate.forEachTokenInRange(
+                        string,
+                        boundaries[section],
+                        boundaries[section + 1],
+                        separator,
+                        new CharSequenceSlice(string, 0, 0),
+                        new Procedure<CharSequenceSlice>()
+                        {
+                            public void value(CharSequenceSlice each)
+                            {
+                                tokens.add(each.toString());
+                            }
+                        });
+                sections.set(section, tokens);
+            }
+        }, executor);
+        int size = 0;
+        for (MutableList<String> section : sections)
+        {
+            size += section.size();
+        }
+        MutableList<String> result = FastList.newList(size);
+        for (MutableList<String> section : sections)
+        {
+            result.addAll(section);
+        }
+        return result;
+    }
+
+    /**
+     * Tokenises sections of the {@code string} in parallel on the specified executor.  Each section is split at a
+     * separator and passed to its own procedure created by the {@code procedureFactory}, with its own
+     * {@link CharSequenceSlice}.  The procedures are then passed to the {@code combiner} in the order of their
+     * sections.  Empty tokens are skipped.
+     *
+     * @since 1.1
+     */
+    public static <BT extends Procedure<? super CharSequenceSlice>> void forEachTokenInParallel(
+            final CharSequence string,
+            final char separator,
+            final ProcedureFactory<BT> procedureFactory,
+            Combiner<BT> combiner,
+            Executor executor)
+    {
+        final int[] boundaries = StringIterate.sectionBoundaries(string, separator);
+        int sectionCount = boundaries.length - 1;
+        final MutableList<BT> procedures = FastList.newList(Collections.<BT>nCopies(sectionCount, null));
+        new SectionTaskRunner(sectionCount).execute(new IntProcedure()
+        {
+            public void value(int section)
+            {
+                BT procedure = procedureFactory.create();
+                StringIterate.forEachTokenInRange(
+                        string,
+                        boundaries[section],
+                        boundaries[section + 1],
+                        separator,
+                        new CharSequenceSlice(string, 0, 0),
+                        procedure);
+                procedures.set(section, procedure);
+            }
+        }, executor);
+        if (combiner.useCombineOne())
+        {
+            for (BT each : procedures)
+            {
+                combiner.combineOne(each);
+            }
+        }
+        else
+        {
+            combiner.combineAll(procedures);
+        }
+    }
+
+    /**
+     * Splits the string into one section per task, each of at least MINIMUM_SECTION_LENGTH characters.  Every boundary
+     * other than the first and last is the index of a separator, so no token spans two sections.
+     */
+    private static int[] sectionBoundaries(CharSequence string, char separator)
+    {
+        int length = string.length();
+        int sectionCount = Math.max(1, Math.min(
+                ParallelIterate.getDefaultTaskCount(),
+                length / MINIMUM_SECTION_LENGTH));
+        int[] boundaries = new int[sectionCount + 1];
+        for (int i = 1; i < sectionCount; i++)
+        {
+            int nominal = (int) ((long) length * i / sectionCount);
+            boundaries[i] = StringIterate.indexOf(string, separator, Math.max(nominal, boundaries[i - 1]), length);
+        }
+        boundaries[sectionCount] = length;
+        return boundaries;
+    }
+
+    private static void forEachTokenInRange(
+            CharSequence string,
+            int from,
+            int to,
+            char separator,
+            CharSequenceSlice slice,
+            Procedure<? super CharSequenceSlice> procedure)
+    {
+        int start = from;
+        while (start < to)
+        {
+            int end = StringIterate.indexOf(string, separator, start, to);
+            if (end > start)
+            {
+                slice.reset(string, start, end);
+                procedure.value(slice);
+            }
+            start = end + 1;
+        }
+    }
+
+    /**
+     * @return the index of the first {@code separator} in the range, or {@code to} if there is none
+     */
+    private static int indexOf(CharSequence string, char separator, int from, int to)
+    {
+        if (string instanceof String)
+        {
+            int index = ((String) string).indexOf(separator, from);
+            return index < 0 || index > to ? to : index;
+        }
+        for (int i = from; i < to; i++)
+        {
+            if (string.charAt(i) == separator)
+            {
+                return i;
+            }
+        }
+        return to;
+    }
+
     /**
      * For each character in the {@code string}, execute the {@link CharProcedure}.
      */
@@ -323,6 +608,28 @@ public final class StringIterate
      * Count the number of elements that return true for the specified {@code predicate}.
      */
     public static int count(String string, CharPredicate predicate)
+    {
+        if (predicate instanceof AsciiCharPredicate)
+        {
+            return StringIterate.count(string, (AsciiCharPredicate) predicate);
+        }
+        int count = 0;
+        int size = string.length();
+        for (int i = 0; i < size; i++)
+        {
+            if (predicate.accept(string.charAt(i)))
+            {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Calls the final {@link AsciiCharPredicate#accept(char)} directly, so that the table lookup is inlined into the
+     * loop.
+     */
+    private static int count(String string, AsciiCharPredicate predicate)
     {
         int count = 0;
         int size = string.length();
@@ -336,6 +643,19 @@ public final class StringIterate
         return count;
     }
 
+    private static boolean anySatisfy(String string, AsciiCharPredicate predicate)
+    {
+        int size = string.length();
+        for (int i = 0; i < size; i++)
+        {
+            if (predicate.accept(string.charAt(i)))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Count the number of elements that return true for the specified {@code predicate}.
      */
@@ -433,15 +753,14 @@ public final class StringIterate
     /**
      * Count the number of occurrences of the specified char.
      */
-    public static int occurrencesOf(String string, final char value)
+    public static int occurrencesOf(String string, char value)
     {
-        return count(string, new CharPredicate()
+        int count = 0;
+        for (int index = string.indexOf(value); index >= 0; index = string.indexOf(value, index + 1))
         {
-            public boolean accept(char character)
-            {
-                return value == character;
-            }
-        });
+            count++;
+        }
+        return count;
     }
 
     /**
@@ -475,6 +794,10 @@ public final class StringIterate
      */
     public static boolean anySatisfy(String string, CharPredicate predicate)
     {
+        if (predicate instanceof AsciiCharPredicate)
+        {
+            return StringIterate.anySatisfy(string, (AsciiCharPredicate) predicate);
+        }
         int size = string.length();
         for (int i = 0; i < size; i++)
         {
@@ -627,7 +627,7 @@ public final class IteratorIterate
         int index = 0;
         while (iterator.hasNext())
         {
-            target.add(Tuples.pair(iterator.next(), index));
+            target.add(Tuples.objectIntPair(iterator.next(), index));
             index += 1;
         }
         return target;
@@ -954,7 +954,7 @@ public final class RandomAccessListIterate
         int size = list.size();
         for (int i = 0; i < size; i++)
         {
-            target.add(Tuples.pair(list.get(i), i));
+            target.add(Tuples.objectIntPair(list.get(i), i));
         }
         return target;
     }
@@ -0,0 +1,227 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.block.factory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import ponzu.api.block.function.Function;
+import ponzu.api.block.predicate.Predicate;
+import ponzu.api.list.MutableList;
+import ponzu.impl.list.Interval;
+import ponzu.impl.list.mutable.FastList;
+import ponzu.impl.parallel.ParallelIterate;
+import ponzu.impl.test.SerializeTestHelper;
+import ponzu.impl.test.Verify;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PredicateCompilerTest
+{
+    private static Predicates<Integer> complexPredicate(Function<Integer, Integer> function)
+    {
+        return Predicates.and(
+                Predicates.attributeBetweenInclusive(function, 10, 80),
+                Predicates.or(
+                        Predicates.attributeEqual(function, 20),
+                        Predicates.and(Predicates.attributeGreaterThan(function, 30), Predicates.attributeLessThan(function, 60)),
+                        Predicates.not(Predicates.attributeLessThan(function, 75))),
+                Predicates.neither(Predicates.attributeEqual(function, 50), Predicates.attributeEqual(function, 51)));
+    }
+
+    @Test
+    public void compileMatchesOriginal()
+    {
+        Predicates<Integer> original = complexPredicate(Functions.getIntegerPassThru());
+        Predicate<Integer> compiled = PredicateCompiler.compile(original);
+        Predicate<Integer> adaptive = PredicateCompiler.compileAdaptive(original);
+        for (int i = -10; i < 100; i++)
+        {
+            Assert.assertEquals(original.accept(i), compiled.accept(i));
+        }
+        for (int repeat = 0; repeat < 50; repeat++)
+        {
+            for (int i = -10; i < 100; i++)
+            {
+                Assert.assertEquals(original.accept(i), adaptive.accept(i));
+            }
+        }
+        MutableList<Integer> expected = Interval.fromTo(-10, 100).filter(original).toList();
+        Assert.assertEquals(expected, Interval.fromTo(-10, 100).filter(compiled).toList());
+        Assert.assertEquals(expected, Interval.fromTo(-10, 100).filter(adaptive).toList());
+    }
+
+    @Test
+    public void attributeIsEvaluatedOncePerElement()
+    {
+        CountingFunction function = new CountingFunction();
+        Predicates<Integer> original = complexPredicate(function);
+        Predicate<Integer> compiled = PredicateCompiler.compile(original);
+
+        Assert.assertTrue(original.accept(40));
+        int originalCount = function.count.getAndSet(0);
+        Assert.assertTrue(originalCount > 1);
+
+        Assert.assertTrue(compiled.accept(40));
+        Assert.assertEquals(1, function.count.getAndSet(0));
+        Assert.assertFalse(compiled.accept(5));
+        Assert.assertEquals(1, function.count.get());
+    }
+
+    @Test
+    public void nullAttributeValuesAreShared()
+    {
+        Function<Object, Object> toNull = new Function<Object, Object>()
+        {
+            public Object valueOf(Object object)
+            {
+                return null;
+            }
+        };
+        Predicate<Object> compiled = PredicateCompiler.compile(Predicates.and(
+                Predicates.attributeIsNull(toNull),
+                Predicates.not(Predicates.attributeNotNull(toNull))));
+        Assert.assertTrue(compiled.accept("anything"));
+    }
+
+    @Test
+    public void flattensNestedJunctions()
+    {
+        Predicates<Object> nested = Predicates.and(
+                Predicates.and(Predicates.notNull(), Predicates.instanceOf(Integer.class)),
+                Predicates.and(Predicates.notEqual(1), Predicates.notEqual(2)));
+        Predicate<Object> compiled = PredicateCompiler.compile(nested);
+        String description = compiled.toString();
+        Assert.assertEquals(description, 1, description.split("and\\(").length - 1);
+        Assert.assertTrue(compiled.accept(3));
+        Assert.assertFalse(compiled.accept(2));
+        Assert.assertFalse(compiled.accept("3"));
+        Assert.assertFalse(compiled.accept(null));
+    }
+
+    @Test
+    public void adaptiveMovesMostSelectiveOperandFirst()
+    {
+        final AtomicInteger rarelyFalseCount = new AtomicInteger();
+        final AtomicInteger oftenFalseCount = new AtomicInteger();
+        Predicate<Integer> rarelyFalse = new Predicate<Integer>()
+        {
+            public boolean accept(Integer each)
+            {
+                rarelyFalseCount.incrementAndGet();
+                return each % 100 != 0;
+            }
+        };
+        Predicate<Integer> oftenFalse = new Predicate<Integer>()
+        {
+            public boolean accept(Integer each)
+            {
+                oftenFalseCount.incrementAndGet();
+                return each % 100 == 1;
+            }
+        };
+        Predicate<Integer> adaptive = PredicateCompiler.compileAdaptive(Predicates.and(rarelyFalse, oftenFalse));
+        Interval.oneTo(10000).filter(adaptive).toList();
+        rarelyFalseCount.set(0);
+        oftenFalseCount.set(0);
+        Verify.assertSize(100, Interval.oneTo(10000).filter(adaptive).toList());
+        Assert.assertEquals(10000, oftenFalseCount.get());
+        Assert.assertEquals(100, rarelyFalseCount.get());
+    }
+
+    @Test
+    public void adaptiveIsSharedBetweenThreads()
+    {
+        Predicates<Integer> original = complexPredicate(Functions.getIntegerPassThru());
+        Predicate<Integer> adaptive = PredicateCompiler.compileAdaptive(original);
+        MutableList<Integer> elements = Interval.fromTo(-100000, 100000).toList();
+        MutableList<Integer> expected = elements.filter(original);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try
+        {
+            for (int repeat = 0; repeat < 5; repeat++)
+            {
+                Assert.assertEquals(expected, ParallelIterate.filter(elements, adaptive, null, 1000, executor, false));
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void nestedEvaluationKeepsOuterAttributes()
+    {
+        final MutableList<Predicate<Integer>> compiled = FastList.newList();
+        Function<Integer, Integer> nesting = new Function<Integer, Integer>()
+        {
+            public Integer valueOf(Integer each)
+            {
+                // Evaluates the same compiled predicate on another element while this one is being evaluated
+                compiled.getFirst().accept(-each);
+                return each;
+            }
+        };
+        Function<Integer, Integer> passThru = Functions.getIntegerPassThru();
+        compiled.add(PredicateCompiler.compile(Predicates.and(
+                Predicates.attributeGreaterThan(passThru, 0),
+                Predicates.attributeGreaterThan(nesting, 0),
+                Predicates.attributeGreaterThan(passThru, 50))));
+        Assert.assertTrue(compiled.getFirst().accept(60));
+        Assert.assertFalse(compiled.getFirst().accept(40));
+        Assert.assertFalse(compiled.getFirst().accept(-60));
+    }
+
+    @Test
+    public void opaquePredicatesAreLeaves()
+    {
+        Predicate<Object> opaque = new Predicate<Object>()
+        {
+            public boolean accept(Object each)
+            {
+                return each != null;
+            }
+        };
+        Predicate<Object> compiled = PredicateCompiler.compile(opaque);
+        Assert.assertTrue(compiled.accept(1));
+        Assert.assertFalse(compiled.accept(null));
+    }
+
+    @Test
+    public void serialization()
+    {
+        Predicate<Integer> compiled = PredicateCompiler.compileAdaptive(complexPredicate(Functions.getIntegerPassThru()));
+        Predicate<Integer> deserialized = SerializeTestHelper.serializeDeserialize(compiled);
+        Assert.assertTrue(deserialized.accept(40));
+        Assert.assertFalse(deserialized.accept(50));
+    }
+
+    private static final class CountingFunction
+            implements Function<Integer, Integer>
+    {
+        private static final long serialVersionUID = 1L;
+        private final AtomicInteger count = new AtomicInteger();
+
+        public Integer valueOf(Integer each)
+        {
+            this.count.incrementAndGet();
+            return each;
+        }
+    }
+}
@@ -22,11 +22,13 @@ import ponzu.api.block.function.Function;
 import ponzu.api.block.predicate.Predicate;
 import ponzu.api.collection.MutableCollection;
 import ponzu.api.list.MutableList;
+import ponzu.api.set.MutableSet;
 import ponzu.api.tuple.Pair;
 import ponzu.api.tuple.Twin;
 import ponzu.impl.factory.Lists;
 import ponzu.impl.list.Interval;
 import ponzu.impl.list.mutable.FastList;
+import ponzu.impl.set.mutable.UnifiedSet;
 import ponzu.impl.tuple.Tuples;
 import ponzu.impl.utility.ListIterate;
 import org.junit.Assert;
@@ -538,6 +540,49 @@ public class PredicatesTest
         assertToString(Predicates.in(Interval.oneTo(3)));
     }
 
+    @Test
+    public void inLargeIterables()
+    {
+        Predicate<Object> integers = Predicates.in(Interval.oneTo(100).toList());
+        assertAccepts(integers, 1, 50, 100);
+        assertRejects(integers, 0, 101, 50L, "50", null);
+        assertToString(integers);
+
+        Predicate<Object> longs = Predicates.in(FastList.newListWith(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L));
+        assertAccepts(longs, 1L, 10L);
+        assertRejects(longs, 0L, 11L, 1, null);
+
+        Predicate<Object> mixed = Predicates.in(new Object[]{"1", 2, 3L, null, "5", "6", "7", "8", "9"});
+        assertAccepts(mixed, "1", 2, 3L, null);
+        assertRejects(mixed, 1, "2", 3);
+        assertToString(mixed);
+
+        Predicate<Object> notIn = Predicates.notIn(Interval.oneTo(100).toList());
+        assertAccepts(notIn, 0, 101, 50L);
+        assertRejects(notIn, 1, 100);
+    }
+
+    @Test
+    public void inSmallArraySupportsNull()
+    {
+        assertAccepts(Predicates.in(new Object[]{null, "a"}), null, "a");
+        assertRejects(Predicates.in(new Object[]{"a"}), (Object) null);
+    }
+
+    @Test
+    public void inCopiesListButNotSet()
+    {
+        MutableList<Integer> list = FastList.newListWith(1, 2);
+        Predicate<Object> inList = Predicates.in(list);
+        list.add(3);
+        assertRejects(inList, 3);
+
+        MutableSet<Integer> set = UnifiedSet.newSetWith(1, 2);
+        Predicate<Object> inSet = Predicates.in(set);
+        set.add(3);
+        assertAccepts(inSet, 3);
+    }
+
     @Test
     public void attributeIn()
     {
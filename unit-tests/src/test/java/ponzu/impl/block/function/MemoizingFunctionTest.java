@@ -0,0 +1,223 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.block.function;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import ponzu.api.block.function.Function;
+import ponzu.impl.block.factory.Functions;
+import ponzu.impl.list.Interval;
+import ponzu.impl.test.SerializeTestHelper;
+import ponzu.impl.test.Verify;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MemoizingFunctionTest
+{
+    private final AtomicInteger evaluations = new AtomicInteger();
+
+    private final Function<Integer, String> countingToString = new Function<Integer, String>()
+    {
+        public String valueOf(Integer each)
+        {
+            MemoizingFunctionTest.this.evaluations.incrementAndGet();
+            return each == null ? null : each.toString();
+        }
+    };
+
+    @Test
+    public void cachesResults()
+    {
+        MemoizingFunction<Integer, String> function = Functions.memoize(this.countingToString, 10, EvictionPolicy.LRU);
+        Assert.assertEquals("1", function.valueOf(1));
+        Assert.assertEquals("1", function.valueOf(1));
+        Assert.assertEquals("2", function.valueOf(2));
+        Assert.assertEquals(2, this.evaluations.get());
+        Assert.assertEquals(1L, function.getHitCount());
+        Assert.assertEquals(2L, function.getMissCount());
+        Assert.assertEquals(0L, function.getEvictionCount());
+        Assert.assertEquals(2, function.size());
+    }
+
+    @Test
+    public void cachesNullArgumentsAndResults()
+    {
+        MemoizingFunction<Integer, String> function = Functions.memoize(this.countingToString, 10, EvictionPolicy.FIFO);
+        Assert.assertNull(function.valueOf(null));
+        Assert.assertNull(function.valueOf(null));
+        Assert.assertEquals(1, this.evaluations.get());
+        Assert.assertEquals(1L, function.getHitCount());
+    }
+
+    @Test
+    public void stripedCachesNullResults()
+    {
+        MemoizingFunction<Integer, String> function =
+                Functions.memoizeStriped(this.countingToString, 10, EvictionPolicy.LRU);
+        Assert.assertNull(function.valueOf(null));
+        Assert.assertNull(function.valueOf(null));
+        Assert.assertEquals(1, this.evaluations.get());
+        Assert.assertEquals(1L, function.getHitCount());
+        Assert.assertEquals(1L, function.getMissCount());
+        Assert.assertEquals(0L, function.getStatistics().getExpirationCount());
+    }
+
+    @Test
+    public void leastRecentlyUsed()
+    {
+        MemoizingFunction<Integer, String> function = Functions.memoize(this.countingToString, 2, EvictionPolicy.LRU);
+        function.valueOf(1);
+        function.valueOf(2);
+        function.valueOf(1);
+        function.valueOf(3);
+        Assert.assertEquals(1L, function.getEvictionCount());
+        this.evaluations.set(0);
+        function.valueOf(1);
+        function.valueOf(3);
+        Assert.assertEquals(0, this.evaluations.get());
+        function.valueOf(2);
+        Assert.assertEquals(1, this.evaluations.get());
+    }
+
+    @Test
+    public void firstInFirstOut()
+    {
+        MemoizingFunction<Integer, String> function = Functions.memoize(this.countingToString, 2, EvictionPolicy.FIFO);
+        function.valueOf(1);
+        function.valueOf(2);
+        function.valueOf(1);
+        function.valueOf(3);
+        this.evaluations.set(0);
+        function.valueOf(2);
+        function.valueOf(3);
+        Assert.assertEquals(0, this.evaluations.get());
+        function.valueOf(1);
+        Assert.assertEquals(1, this.evaluations.get());
+    }
+
+    @Test
+    public void leastFrequentlyUsed()
+    {
+        MemoizingFunction<Integer, String> function = Functions.memoize(this.countingToString, 3, EvictionPolicy.LFU);
+        function.valueOf(1);
+        function.valueOf(1);
+        function.valueOf(1);
+        function.valueOf(2);
+        function.valueOf(2);
+        function.valueOf(3);
+        function.valueOf(4);
+        function.valueOf(5);
+        Assert.assertEquals(2L, function.getEvictionCount());
+        this.evaluations.set(0);
+        function.valueOf(1);
+        function.valueOf(2);
+        function.valueOf(5);
+        Assert.assertEquals(0, this.evaluations.get());
+        function.valueOf(3);
+        Assert.assertEquals(1, this.evaluations.get());
+    }
+
+    @Test
+    public void staysWithinMaxSize()
+    {
+        for (EvictionPolicy policy : EvictionPolicy.values())
+        {
+            MemoizingFunction<Integer, String> function = Functions.memoize(this.countingToString, 16, policy);
+            for (int i = 0; i < 1000; i++)
+            {
+                Assert.assertEquals(String.valueOf(i % 100), function.valueOf(i % 100));
+                Assert.assertEquals(String.valueOf(i % 7), function.valueOf(i % 7));
+            }
+            Assert.assertEquals(16, function.size());
+            Assert.assertEquals(2000L, function.getHitCount() + function.getMissCount());
+        }
+    }
+
+    @Test
+    public void clear()
+    {
+        MemoizingFunction<Integer, String> function = Functions.memoize(this.countingToString, 10, EvictionPolicy.LFU);
+        function.valueOf(1);
+        function.valueOf(1);
+        function.clear();
+        Assert.assertEquals(0, function.size());
+        function.valueOf(1);
+        Assert.assertEquals(2, this.evaluations.get());
+        Assert.assertEquals(1L, function.getHitCount());
+    }
+
+    @Test
+    public void striped() throws InterruptedException
+    {
+        final MemoizingFunction<Integer, String> function =
+                Functions.memoizeStriped(Functions.getToString(), 1000, EvictionPolicy.LRU);
+        Assert.assertTrue(function.isStriped());
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int i = 0; i < 8; i++)
+        {
+            executor.execute(new Runnable()
+            {
+                public void run()
+                {
+                    for (Integer each : Interval.oneTo(5000))
+                    {
+                        Assert.assertEquals(String.valueOf(each % 2000), function.valueOf(each % 2000));
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        Assert.assertTrue(executor.awaitTermination(30L, TimeUnit.SECONDS));
+        Assert.assertEquals(1000, function.size());
+        Assert.assertEquals(40000L, function.getHitCount() + function.getMissCount());
+    }
+
+    @Test
+    public void illegalArguments()
+    {
+        Verify.assertThrows(IllegalArgumentException.class, new Runnable()
+        {
+            public void run()
+            {
+                Functions.memoize(Functions.getToString(), 0, EvictionPolicy.LRU);
+            }
+        });
+        Verify.assertThrows(IllegalArgumentException.class, new Runnable()
+        {
+            public void run()
+            {
+                Functions.memoize(Functions.getToString(), 1, null);
+            }
+        });
+    }
+
+    @Test
+    public void serialization()
+    {
+        MemoizingFunction<Object, String> function = Functions.memoizeStriped(Functions.getToString(), 100, EvictionPolicy.LFU);
+        function.valueOf(1);
+        MemoizingFunction<Object, String> deserialized = SerializeTestHelper.serializeDeserialize(function);
+        Assert.assertEquals(0, deserialized.size());
+        Assert.assertEquals("2", deserialized.valueOf(2));
+        Assert.assertEquals(100, deserialized.getMaxSize());
+        Assert.assertEquals(EvictionPolicy.LFU, deserialized.getEvictionPolicy());
+        Assert.assertTrue(deserialized.isStriped());
+    }
+}
@@ -48,6 +48,7 @@ import ponzu.impl.block.factory.Functions;
 import ponzu.impl.block.factory.IntegerPredicates;
 import ponzu.impl.block.factory.Predicates;
 import ponzu.impl.block.factory.Predicates2;
+import ponzu.impl.block.factory.PrimitiveFunctions;
 import ponzu.impl.block.function.AddFunction;
 import ponzu.impl.block.function.Constant;
 import ponzu.impl.block.function.NegativeIntervalFunction;
@@ -662,6 +663,16 @@ public abstract class AbstractCollectionTestCase
         Assert.assertEquals(6.0d, sum, 0.001);
     }
 
+    @Test
+    public void transformToInt()
+    {
+        MutableCollection<Integer> objects = this.newWith(1, 2, 3);
+        Assert.assertEquals(6L, objects.transformToInt(PrimitiveFunctions.unboxIntegerToInt()).sum());
+        Assert.assertEquals(3, objects.transformToInt(PrimitiveFunctions.unboxIntegerToInt()).max());
+        Assert.assertEquals(1L, objects.transformToLong(PrimitiveFunctions.unboxIntegerToLong()).min());
+        Assert.assertEquals(2.0d, objects.transformToDouble(PrimitiveFunctions.unboxIntegerToDouble()).average(), 0.0);
+    }
+
     @Test
     public void injectIntoWith()
     {
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.factory;
+
+import ponzu.api.bag.MutableBag;
+import ponzu.api.list.MutableList;
+import ponzu.api.map.MutableMap;
+import ponzu.api.set.MutableSet;
+import ponzu.impl.bag.mutable.HashBag;
+import ponzu.impl.list.Interval;
+import ponzu.impl.list.mutable.FastList;
+import ponzu.impl.map.mutable.UnifiedMap;
+import ponzu.impl.set.mutable.UnifiedSet;
+import ponzu.impl.test.Verify;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SizeHintsTest
+{
+    private static final String NAME = SizeHintsTest.class.getName();
+
+    @After
+    public void tearDown()
+    {
+        SizeHints.clear(NAME);
+    }
+
+    @Test
+    public void unknownName()
+    {
+        Assert.assertEquals(0, SizeHints.getSizeHint(NAME));
+        Verify.assertThrows(IllegalArgumentException.class, new Runnable()
+        {
+            public void run()
+            {
+                SizeHints.getSizeHint(null);
+            }
+        });
+        Verify.assertThrows(IllegalArgumentException.class, new Runnable()
+        {
+            public void run()
+            {
+                SizeHints.recordSize(NAME, -1);
+            }
+        });
+    }
+
+    @Test
+    public void recordSize()
+    {
+        SizeHints.recordSize(NAME, 1000);
+        Assert.assertEquals(1000, SizeHints.getSizeHint(NAME));
+        SizeHints.recordSize(NAME, 900);
+        SizeHints.recordSize(NAME, 1000);
+        Assert.assertEquals(1000, SizeHints.getSizeHint(NAME));
+    }
+
+    @Test
+    public void percentileIgnoresRareOutliers()
+    {
+        for (int i = 0; i < 100; i++)
+        {
+            SizeHints.recordSize(NAME, i % 20 == 0 ? 100000 : 100);
+        }
+        Assert.assertEquals(100, SizeHints.getSizeHint(NAME));
+    }
+
+    @Test
+    public void olderSizesDecay()
+    {
+        for (int i = 0; i < 50; i++)
+        {
+            SizeHints.recordSize(NAME, 100);
+        }
+        Assert.assertEquals(100, SizeHints.getSizeHint(NAME));
+        for (int i = 0; i < 30; i++)
+        {
+            SizeHints.recordSize(NAME, 5000);
+        }
+        Assert.assertEquals(5000, SizeHints.getSizeHint(NAME));
+        for (int i = 0; i < 30; i++)
+        {
+            SizeHints.recordSize(NAME, 200);
+        }
+        Assert.assertEquals(200, SizeHints.getSizeHint(NAME));
+    }
+
+    @Test
+    public void listsLearnFromDoneLists()
+    {
+        MutableList<Integer> first = Lists.mutable.ofSizeHint(NAME);
+        Verify.assertInstanceOf(FastList.class, first);
+        first.addAll(Interval.oneTo(500));
+        Assert.assertEquals(0, SizeHints.getSizeHint(NAME));
+        Assert.assertSame(first, SizeHints.done(NAME, first));
+        Assert.assertEquals(500, SizeHints.getSizeHint(NAME));
+        MutableList<Integer> second = Lists.mutable.ofSizeHint(NAME);
+        Verify.assertEmpty(second);
+        second.addAll(Interval.oneTo(700));
+        SizeHints.done(NAME, second);
+        Assert.assertEquals(700, SizeHints.getSizeHint(NAME));
+    }
+
+    @Test
+    public void partlyFilledListsAreNotMeasured()
+    {
+        SizeHints.recordSize(NAME, 1000);
+        MutableList<Integer> list = Lists.mutable.ofSizeHint(NAME);
+        list.add(1);
+        Lists.mutable.ofSizeHint(NAME);
+        list.addAll(Interval.fromTo(2, 1000));
+        SizeHints.done(NAME, list);
+        Assert.assertEquals(1000, SizeHints.getSizeHint(NAME));
+    }
+
+    @Test
+    public void setsMapsAndBags()
+    {
+        MutableSet<Integer> set = Sets.mutable.ofSizeHint(NAME);
+        Verify.assertInstanceOf(UnifiedSet.class, set);
+        set.addAll(Interval.oneTo(300));
+        SizeHints.done(NAME, set);
+        Assert.assertEquals(300, SizeHints.getSizeHint(NAME));
+        SizeHints.clear(NAME);
+
+        MutableMap<Integer, String> map = Maps.mutable.ofSizeHint(NAME);
+        Verify.assertInstanceOf(UnifiedMap.class, map);
+        map.put(1, "1");
+        map.put(2, "2");
+        SizeHints.done(NAME, map);
+        Assert.assertEquals(2, SizeHints.getSizeHint(NAME));
+        SizeHints.clear(NAME);
+
+        MutableBag<Integer> bag = Bags.mutable.ofSizeHint(NAME);
+        Verify.assertInstanceOf(HashBag.class, bag);
+        bag.addOccurrences(1, 10);
+        bag.addOccurrences(2, 10);
+        SizeHints.done(NAME, bag);
+        Assert.assertEquals(2, SizeHints.getSizeHint(NAME));
+    }
+}
@@ -0,0 +1,232 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.io;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Iterator;
+
+import ponzu.api.block.function.Function;
+import ponzu.api.block.procedure.Procedure;
+import ponzu.api.list.MutableList;
+import ponzu.impl.block.factory.Predicates;
+import ponzu.impl.factory.Lists;
+import ponzu.impl.list.mutable.FastList;
+import ponzu.impl.parallel.ParallelIterate;
+import ponzu.impl.test.Verify;
+import ponzu.impl.utility.CharSequenceSlice;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TextFileTest
+{
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static File newFile(String contents) throws IOException
+    {
+        File file = File.createTempFile("TextFileTest", ".txt");
+        file.deleteOnExit();
+        FileOutputStream stream = new FileOutputStream(file);
+        try
+        {
+            stream.write(contents.getBytes(UTF_8));
+        }
+        finally
+        {
+            stream.close();
+        }
+        return file;
+    }
+
+    private static MutableList<TextFile> textFiles(String contents) throws IOException
+    {
+        File file = TextFileTest.newFile(contents);
+        return FastList.newListWith(TextFile.of(file), TextFile.mapped(file));
+    }
+
+    @Test
+    public void lines() throws IOException
+    {
+        for (TextFile textFile : TextFileTest.textFiles("a\r\n\nbé€\nlast"))
+        {
+            Assert.assertEquals(FastList.newListWith("a", "", "bé€", "last"), textFile.lines().toList());
+            Assert.assertEquals(4, textFile.lines().size());
+            Assert.assertEquals("a", textFile.lines().getFirst());
+        }
+        for (TextFile textFile : TextFileTest.textFiles("a\nb\n"))
+        {
+            Assert.assertEquals(FastList.newListWith("a", "b"), textFile.lines().toList());
+            Assert.assertEquals(2, textFile.countLines());
+        }
+        for (TextFile textFile : TextFileTest.textFiles(""))
+        {
+            Assert.assertTrue(textFile.lines().isEmpty());
+            Assert.assertEquals(0, textFile.lines().size());
+            Assert.assertNull(textFile.lines().getFirst());
+            Verify.assertEmpty(textFile.lines().toList());
+        }
+    }
+
+    @Test
+    public void largeFile() throws IOException
+    {
+        StringBuilder builder = new StringBuilder();
+        MutableList<String> expected = Lists.mutable.of();
+        for (int i = 0; i < 50000; i++)
+        {
+            String line = i % 1000 == 0 ? TextFileTest.repeat('é', 20000 + i) : "line " + i + " €";
+            expected.add(line);
+            builder.append(line).append('\n');
+        }
+        for (TextFile textFile : TextFileTest.textFiles(builder.toString()))
+        {
+            Assert.assertEquals(expected, textFile.lines().toList());
+            MutableList<String> iterated = Lists.mutable.of();
+            for (Iterator<String> iterator = textFile.lines().iterator(); iterator.hasNext(); )
+            {
+                iterated.add(iterator.next());
+            }
+            Assert.assertEquals(expected, iterated);
+            for (int sectionCount = 1; sectionCount < 8; sectionCount++)
+            {
+                MutableList<String> sections = Lists.mutable.of();
+                for (int section = 0; section < sectionCount; section++)
+                {
+                    textFile.lines().batchForEach(new CollectProcedure(sections), section, sectionCount);
+                }
+                Assert.assertEquals(expected, sections);
+            }
+            Assert.assertEquals(50000, ParallelIterate.count(textFile.lines(), Predicates.alwaysTrue()));
+        }
+    }
+
+    private static String repeat(char c, int length)
+    {
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++)
+        {
+            builder.append(c);
+        }
+        return builder.toString();
+    }
+
+    @Test
+    public void records() throws IOException
+    {
+        for (TextFile textFile : TextFileTest.textFiles("1,Ted,1.5\n2,,2.5\n"))
+        {
+            MutableList<String> records = textFile.transformRecords(',', new Function<DelimitedRecord, String>()
+            {
+                public String valueOf(DelimitedRecord record)
+                {
+                    return record.getInt(0) + ":" + record.getString(1) + ":" + record.getDouble(2) + ":" + record.size();
+                }
+            }).toList();
+            Assert.assertEquals(FastList.newListWith("1:Ted:1.5:3", "2::2.5:3"), records);
+
+            final long[] sum = new long[1];
+            textFile.forEachRecord(',', new Procedure<DelimitedRecord>()
+            {
+                public void value(DelimitedRecord record)
+                {
+                    sum[0] += record.getLong(0);
+                }
+            });
+            Assert.assertEquals(3L, sum[0]);
+        }
+    }
+
+    @Test
+    public void manyFields()
+    {
+        DelimitedRecord record = new DelimitedRecord('|');
+        String line = "0|1|2|3|4|5|6|7|8|9|10|";
+        record.reset(new CharSequenceSlice(line, 0, line.length()));
+        Assert.assertEquals(12, record.size());
+        Assert.assertEquals(10, record.getInt(10));
+        Assert.assertEquals(0, record.get(11).length());
+        Assert.assertEquals(line, record.toString());
+        Verify.assertThrows(IndexOutOfBoundsException.class, new Runnable()
+        {
+            public void run()
+            {
+                new DelimitedRecord(',').reset(new CharSequenceSlice("a", 0, 1)).get(1);
+            }
+        });
+    }
+
+    @Test
+    public void forEachLine() throws IOException
+    {
+        for (TextFile textFile : TextFileTest.textFiles("a\nbb\nccc"))
+        {
+            final int[] length = new int[1];
+            textFile.forEachLine(new Procedure<CharSequenceSlice>()
+            {
+                public void value(CharSequenceSlice line)
+                {
+                    length[0] += line.length();
+                }
+            });
+            Assert.assertEquals(6, length[0]);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unsupportedCharset() throws IOException
+    {
+        TextFile.of(TextFileTest.newFile(""), Charset.forName("UTF-16"));
+    }
+
+    @Test
+    public void batchCount() throws IOException
+    {
+        for (TextFile textFile : TextFileTest.textFiles(TextFileTest.repeat('x', 64 * 1000)))
+        {
+            Assert.assertEquals(1000, textFile.lines().getBatchCount(1));
+            Assert.assertEquals(10, textFile.lines().getBatchCount(100));
+            Assert.assertEquals(1, textFile.lines().getBatchCount(Integer.MAX_VALUE));
+        }
+        // the batch count comes from the length of the file, which is not read
+        Assert.assertEquals(1, TextFile.of(new File("does-not-exist.txt")).lines().getBatchCount(100));
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void missingFile()
+    {
+        TextFile.of(new File("does-not-exist.txt")).lines().toList();
+    }
+
+    private static final class CollectProcedure implements Procedure<String>
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final MutableList<String> target;
+
+        private CollectProcedure(MutableList<String> target)
+        {
+            this.target = target;
+        }
+
+        public void value(String each)
+        {
+            this.target.add(each);
+        }
+    }
+}
@@ -41,6 +41,7 @@ import ponzu.impl.block.factory.Functions;
 import ponzu.impl.block.factory.IntegerPredicates;
 import ponzu.impl.block.factory.Predicates;
 import ponzu.impl.block.factory.Predicates2;
+import ponzu.impl.block.factory.PrimitiveFunctions;
 import ponzu.impl.block.function.AddFunction;
 import ponzu.impl.block.function.Constant;
 import ponzu.impl.block.function.NegativeIntervalFunction;
@@ -375,6 +376,15 @@ public abstract class AbstractLazyIterableTestCase
         Assert.assertEquals(Integer.valueOf(7), result);
     }
 
+    @Test
+    public void transformToInt()
+    {
+        RichIterable<Integer> objects = this.newWith(1, 2, 3);
+        Assert.assertEquals(6L, objects.transformToInt(PrimitiveFunctions.unboxIntegerToInt()).sum());
+        Assert.assertEquals(6L, objects.transformToLong(PrimitiveFunctions.unboxIntegerToLong()).sum());
+        Assert.assertEquals(6.0d, objects.transformToDouble(PrimitiveFunctions.unboxIntegerToDouble()).sum(), 0.0);
+    }
+
     @Test
     public void toList()
     {
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ponzu.impl.lazy.primitive;
+
+import java.util.NoSuchElementException;
+
+import ponzu.api.LazyDoubleIterable;
+import ponzu.api.block.predicate.primitive.DoublePredicate;
+import ponzu.impl.block.factory.PrimitiveFunctions;
+import ponzu.impl.list.Interval;
+import ponzu.impl.list.mutable.FastList;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CollectDoubleIterableTest
+{
+    private final LazyDoubleIterable doubleIterable = Interval.oneTo(5).transformToDouble(PrimitiveFunctions.unboxIntegerToDouble());
+
+    @Test
+    public void filter()
+    {
+        LazyDoubleIterable odds = this.doubleIterable.filter(new DoublePredicate()
+        {
+            public boolean accept(double value)
+            {
+                return value % 2 != 0;
+            }
+        });
+        Assert.assertEquals(3, odds.size());
+        Assert.assertEquals(3.0d, odds.average(), 0.0);
+    }
+
+    @Test
+    public void sum()
+    {
+        Assert.assertEquals(15.0d, this.doubleIterable.sum(), 0.0);
+    }
+
+    @Test
+    public void minAndMax()
+    {
+        Assert.assertEquals(1.0d, this.doubleIterable.min(), 0.0);
+        Assert.assertEquals(5.0d, this.doubleIterable.max(), 0.0);
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void maxThrowsOnEmpty()
+    {
+        FastList.<Integer>newList().transformToDouble(PrimitiveFunctions.unboxIntegerToDouble()).max();
+    }
+
+    @Test
+    public void toArray()
+    {
+        Assert.assertArrayEquals(new double[]{1.0d, 2.0d, 3.0d, 4.0d, 5.0d}, this.doubleIterable.toArray(), 0.0);
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ponzu.impl.lazy.primitive;
+
+import java.util.NoSuchElementException;
+
+import ponzu.api.LazyIntIterable;
+import ponzu.api.block.function.primitive.IntToObjectFunction;
+import ponzu.api.block.function.primitive.ObjectIntToObjectFunction;
+import ponzu.api.block.predicate.primitive.IntPredicate;
+import ponzu.api.block.procedure.primitive.IntProcedure;
+import ponzu.api.iterator.IntIterator;
+import ponzu.impl.block.factory.PrimitiveFunctions;
+import ponzu.impl.list.mutable.FastList;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CollectIntIterableTest
+{
+    private static final IntPredicate IS_EVEN = new IntPredicate()
+    {
+        public boolean accept(int value)
+        {
+            return value % 2 == 0;
+        }
+    };
+
+    private final LazyIntIterable intIterable =
+            new CollectIntIterable<Integer>(FastList.newListWith(1, 2, 3, 4, 5), PrimitiveFunctions.unboxIntegerToInt());
+
+    @Test
+    public void intIterator()
+    {
+        long sum = 0L;
+        IntIterator iterator = this.intIterable.intIterator();
+        while (iterator.hasNext())
+        {
+            sum += iterator.next();
+        }
+        Assert.assertEquals(15L, sum);
+    }
+
+    @Test
+    public void forEach()
+    {
+        final long[] sum = new long[1];
+        this.intIterable.forEach(new IntProcedure()
+        {
+            public void value(int each)
+            {
+                sum[0] += each;
+            }
+        });
+        Assert.assertEquals(15L, sum[0]);
+    }
+
+    @Test
+    public void size()
+    {
+        Assert.assertEquals(5, this.intIterable.size());
+        Assert.assertFalse(this.intIterable.isEmpty());
+        Assert.assertTrue(this.intIterable.notEmpty());
+        Assert.assertTrue(FastList.<Integer>newList().transformToInt(PrimitiveFunctions.unboxIntegerToInt()).isEmpty());
+    }
+
+    @Test
+    public void count()
+    {
+        Assert.assertEquals(2, this.intIterable.count(IS_EVEN));
+        Assert.assertTrue(this.intIterable.anySatisfy(IS_EVEN));
+        Assert.assertFalse(this.intIterable.allSatisfy(IS_EVEN));
+    }
+
+    @Test
+    public void filter()
+    {
+        LazyIntIterable evens = this.intIterable.filter(IS_EVEN);
+        Assert.assertArrayEquals(new int[]{2, 4}, evens.toArray());
+        Assert.assertEquals(6L, evens.sum());
+    }
+
+    @Test
+    public void transform()
+    {
+        Assert.assertEquals(
+                FastList.newListWith("1", "2", "3", "4", "5"),
+                this.intIterable.transform(new IntToObjectFunction<String>()
+                {
+                    public String valueOf(int intParameter)
+                    {
+                        return String.valueOf(intParameter);
+                    }
+                }).toList());
+    }
+
+    @Test
+    public void sum()
+    {
+        Assert.assertEquals(15L, this.intIterable.sum());
+        LazyIntIterable large = FastList.newListWith(Integer.MAX_VALUE - 1, Integer.MAX_VALUE)
+                .transformToInt(PrimitiveFunctions.unboxIntegerToInt());
+        Assert.assertEquals(2L * Integer.MAX_VALUE - 1L, large.sum());
+    }
+
+    @Test
+    public void minAndMax()
+    {
+        LazyIntIterable iterable = FastList.newListWith(3, -1, 5, 2).transformToInt(PrimitiveFunctions.unboxIntegerToInt());
+        Assert.assertEquals(-1, iterable.min());
+        Assert.assertEquals(5, iterable.max());
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void minThrowsOnEmpty()
+    {
+        FastList.<Integer>newList().transformToInt(PrimitiveFunctions.unboxIntegerToInt()).min();
+    }
+
+    @Test
+    public void average()
+    {
+        Assert.assertEquals(3.0d, this.intIterable.average(), 0.0);
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void averageThrowsOnEmpty()
+    {
+        FastList.<Integer>newList().transformToInt(PrimitiveFunctions.unboxIntegerToInt()).average();
+    }
+
+    @Test
+    public void toArray()
+    {
+        Assert.assertArrayEquals(new int[]{1, 2, 3, 4, 5}, this.intIterable.toArray());
+    }
+
+    @Test
+    public void foldLeft()
+    {
+        StringBuilder result = this.intIterable.foldLeft(new StringBuilder(), new ObjectIntToObjectFunction<StringBuilder, StringBuilder>()
+        {
+            public StringBuilder valueOf(StringBuilder builder, int intParameter)
+            {
+                return builder.append(intParameter);
+            }
+        });
+        Assert.assertEquals("12345", result.toString());
+    }
+
+    @Test
+    public void testToString()
+    {
+        Assert.assertEquals("[1, 2, 3, 4, 5]", this.intIterable.toString());
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ponzu.impl.lazy.primitive;
+
+import ponzu.api.LazyIterable;
+import ponzu.api.block.function.primitive.IntToObjectFunction;
+import ponzu.impl.block.factory.PrimitiveFunctions;
+import ponzu.impl.lazy.AbstractLazyIterableTestCase;
+import ponzu.impl.list.mutable.FastList;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CollectIntToObjectIterableTest extends AbstractLazyIterableTestCase
+{
+    private static final IntToObjectFunction<Integer> BOX = new IntToObjectFunction<Integer>()
+    {
+        private static final long serialVersionUID = 1L;
+
+        public Integer valueOf(int intParameter)
+        {
+            return intParameter;
+        }
+    };
+
+    @Override
+    protected LazyIterable<Integer> newWith(Integer... integers)
+    {
+        return new CollectIntToObjectIterable<Integer>(
+                new CollectIntIterable<Integer>(FastList.newListWith(integers), PrimitiveFunctions.unboxIntegerToInt()),
+                BOX);
+    }
+
+    @Override
+    @Test
+    public void iterator()
+    {
+        StringBuilder builder = new StringBuilder();
+        for (Integer each : this.newWith(1, 2, 3))
+        {
+            builder.append(each);
+        }
+        Assert.assertEquals("123", builder.toString());
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ponzu.impl.lazy.primitive;
+
+import java.util.NoSuchElementException;
+
+import ponzu.api.LazyLongIterable;
+import ponzu.api.block.predicate.primitive.LongPredicate;
+import ponzu.impl.block.factory.PrimitiveFunctions;
+import ponzu.impl.list.Interval;
+import ponzu.impl.list.mutable.FastList;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CollectLongIterableTest
+{
+    private final LazyLongIterable longIterable = Interval.oneTo(5).transformToLong(PrimitiveFunctions.unboxIntegerToLong());
+
+    @Test
+    public void filter()
+    {
+        LazyLongIterable odds = this.longIterable.filter(new LongPredicate()
+        {
+            public boolean accept(long value)
+            {
+                return value % 2 != 0;
+            }
+        });
+        Assert.assertEquals(3, odds.size());
+        Assert.assertEquals(3.0d, odds.average(), 0.0);
+    }
+
+    @Test
+    public void sum()
+    {
+        Assert.assertEquals(15L, this.longIterable.sum());
+        Assert.assertEquals(2L * Integer.MAX_VALUE, FastList.newListWith(Integer.MAX_VALUE, Integer.MAX_VALUE).transformToLong(PrimitiveFunctions.unboxIntegerToLong()).sum());
+    }
+
+    @Test
+    public void minAndMax()
+    {
+        Assert.assertEquals(1L, this.longIterable.min());
+        Assert.assertEquals(5L, this.longIterable.max());
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void maxThrowsOnEmpty()
+    {
+        FastList.<Integer>newList().transformToLong(PrimitiveFunctions.unboxIntegerToLong()).max();
+    }
+
+    @Test
+    public void toArray()
+    {
+        Assert.assertArrayEquals(new long[]{1L, 2L, 3L, 4L, 5L}, this.longIterable.toArray());
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ponzu.impl.lazy.primitive;
+
+import java.util.NoSuchElementException;
+
+import ponzu.api.LazyIntIterable;
+import ponzu.api.block.predicate.primitive.IntPredicate;
+import ponzu.api.block.procedure.primitive.IntProcedure;
+import ponzu.api.iterator.IntIterator;
+import ponzu.impl.block.factory.PrimitiveFunctions;
+import ponzu.impl.list.Interval;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SelectIntIterableTest
+{
+    private final LazyIntIterable intIterable = new SelectIntIterable(
+            Interval.oneTo(10).transformToInt(PrimitiveFunctions.unboxIntegerToInt()),
+            new IntPredicate()
+            {
+                public boolean accept(int value)
+                {
+                    return value > 7;
+                }
+            });
+
+    @Test
+    public void intIterator()
+    {
+        IntIterator iterator = this.intIterable.intIterator();
+        Assert.assertTrue(iterator.hasNext());
+        Assert.assertTrue(iterator.hasNext());
+        Assert.assertEquals(8, iterator.next());
+        Assert.assertEquals(9, iterator.next());
+        Assert.assertEquals(10, iterator.next());
+        Assert.assertFalse(iterator.hasNext());
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void intIteratorThrowsWhenExhausted()
+    {
+        IntIterator iterator = this.intIterable.intIterator();
+        for (int i = 0; i < 4; i++)
+        {
+            iterator.next();
+        }
+    }
+
+    @Test
+    public void forEach()
+    {
+        final StringBuilder builder = new StringBuilder();
+        this.intIterable.forEach(new IntProcedure()
+        {
+            public void value(int each)
+            {
+                builder.append(each);
+            }
+        });
+        Assert.assertEquals("8910", builder.toString());
+    }
+
+    @Test
+    public void aggregates()
+    {
+        Assert.assertEquals(3, this.intIterable.size());
+        Assert.assertEquals(27L, this.intIterable.sum());
+        Assert.assertEquals(8, this.intIterable.min());
+        Assert.assertEquals(10, this.intIterable.max());
+        Assert.assertEquals(9.0d, this.intIterable.average(), 0.0);
+        Assert.assertArrayEquals(new int[]{8, 9, 10}, this.intIterable.toArray());
+    }
+}
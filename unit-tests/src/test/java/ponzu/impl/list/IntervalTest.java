@@ -21,12 +21,19 @@ import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import ponzu.api.LazyIterable;
 import ponzu.api.block.procedure.ObjectIntProcedure;
+import ponzu.api.block.procedure.Procedure;
 import ponzu.api.block.procedure.Procedure2;
 import ponzu.api.list.MutableList;
 import ponzu.api.set.MutableSet;
@@ -151,6 +158,129 @@ public class IntervalTest
         Assert.assertEquals(FastList.<String>newListWith(null, null, null), result);
     }
 
+    @Test
+    @SuppressWarnings("deprecation")
+    public void forEachWithImplIntProcedure()
+    {
+        final long[] sum = new long[1];
+        Interval.fromTo(1, 10).forEach(new ponzu.impl.block.procedure.primitive.IntProcedure()
+        {
+            public void value(int each)
+            {
+                sum[0] += each;
+            }
+        });
+        Assert.assertEquals(55L, sum[0]);
+    }
+
+    @Test
+    public void forEachWithExecutorOnLargeInterval()
+    {
+        final AtomicLong sum = new AtomicLong();
+        ExecutorService service = Executors.newFixedThreadPool(4);
+        Interval.fromTo(-1000, 1000000).forEach(new Procedure<Integer>()
+        {
+            public void value(Integer each)
+            {
+                sum.addAndGet(each.longValue());
+            }
+        }, service);
+        service.shutdown();
+        Assert.assertEquals(500000500000L - 500500L, sum.get());
+    }
+
+    @Test
+    public void forEachWithExecutorPropagatesException()
+    {
+        Verify.assertThrowsWithCause(RuntimeException.class, IllegalArgumentException.class, new Runnable()
+        {
+            public void run()
+            {
+                Interval.oneTo(100000).forEach(new Procedure<Integer>()
+                {
+                    public void value(Integer each)
+                    {
+                        if (each.intValue() == 50000)
+                        {
+                            throw new IllegalArgumentException();
+                        }
+                    }
+                }, Executors.newSingleThreadExecutor());
+            }
+        });
+    }
+
+    @Test
+    public void forEachWithExecutorWhenInterrupted()
+    {
+        final AtomicInteger count = new AtomicInteger();
+        final Executor callerRuns = new Executor()
+        {
+            public void execute(Runnable command)
+            {
+                command.run();
+            }
+        };
+        Verify.assertThrowsWithCause(RuntimeException.class, CancellationException.class, new Runnable()
+        {
+            public void run()
+            {
+                Interval.oneTo(1000).forEach(new Procedure<Integer>()
+                {
+                    public void value(Integer each)
+                    {
+                        if (count.incrementAndGet() == 760)
+                        {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                }, callerRuns);
+            }
+        });
+        Assert.assertTrue(Thread.interrupted());
+        Assert.assertEquals(760, count.get());
+    }
+
+    @Test
+    public void runAsync() throws Exception
+    {
+        final AtomicInteger count = new AtomicInteger();
+        ExecutorService service = Executors.newFixedThreadPool(2);
+        Future<Void> future = Interval.oneTo(100000).runAsync(new Runnable()
+        {
+            public void run()
+            {
+                count.incrementAndGet();
+            }
+        }, service);
+        future.get();
+        Assert.assertTrue(future.isDone());
+        Assert.assertEquals(100000, count.get());
+        service.shutdown();
+    }
+
+    @Test
+    public void runAsyncCancel() throws InterruptedException
+    {
+        final AtomicInteger count = new AtomicInteger();
+        final CountDownLatch started = new CountDownLatch(1);
+        ExecutorService service = Executors.newSingleThreadExecutor();
+        Future<Void> future = Interval.oneTo(Integer.MAX_VALUE - 1).runAsync(new Runnable()
+        {
+            public void run()
+            {
+                count.incrementAndGet();
+                started.countDown();
+            }
+        }, service);
+        started.await();
+        Assert.assertTrue(future.cancel(true));
+        Assert.assertTrue(future.isCancelled());
+        service.shutdown();
+        Assert.assertTrue(service.awaitTermination(20, TimeUnit.SECONDS));
+        Assert.assertTrue(count.get() < Integer.MAX_VALUE - 1);
+    }
+
     @Test
     public void reverseForEachOnFromToInterval()
     {
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.list.mutable.primitive;
+
+import ponzu.api.LazyIntIterable;
+import ponzu.api.block.predicate.primitive.IntPredicate;
+import ponzu.api.block.procedure.primitive.IntProcedure;
+import ponzu.impl.test.Verify;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class IntArrayListTest
+{
+    @Test
+    public void addAndGet()
+    {
+        IntArrayList list = new IntArrayList(0);
+        Assert.assertTrue(list.isEmpty());
+        for (int i = 0; i < 100; i++)
+        {
+            list.add(i);
+        }
+        Assert.assertEquals(100, list.size());
+        Assert.assertTrue(list.notEmpty());
+        Assert.assertEquals(0, list.get(0));
+        Assert.assertEquals(99, list.get(99));
+        Assert.assertTrue(list.contains(50));
+        Assert.assertFalse(list.contains(100));
+        Verify.assertThrows(IndexOutOfBoundsException.class, new Runnable()
+        {
+            public void run()
+            {
+                IntArrayList.newListWith(1).get(1);
+            }
+        });
+    }
+
+    @Test
+    public void addAllAndWith()
+    {
+        IntArrayList list = IntArrayList.newListWith(1, 2);
+        Assert.assertTrue(list.addAll(3, 4));
+        Assert.assertFalse(list.addAll());
+        Assert.assertEquals(IntArrayList.newListWith(1, 2, 3, 4, 5), list.with(5));
+        list.trimToSize();
+        Assert.assertArrayEquals(new int[]{1, 2, 3, 4, 5}, list.toArray());
+        list.clear();
+        Assert.assertTrue(list.isEmpty());
+    }
+
+    @Test
+    public void forEachCountAndSum()
+    {
+        IntArrayList list = IntArrayList.newListWith(1, 2, 3, 4);
+        final long[] sum = new long[1];
+        list.forEach(new IntProcedure()
+        {
+            public void value(int each)
+            {
+                sum[0] += each;
+            }
+        });
+        Assert.assertEquals(10L, sum[0]);
+        Assert.assertEquals(10L, list.sum());
+        Assert.assertEquals(2, list.count(new IntPredicate()
+        {
+            public boolean accept(int value)
+            {
+                return value > 2;
+            }
+        }));
+    }
+
+    @Test
+    public void asLazy()
+    {
+        IntArrayList list = IntArrayList.newListWith(1, 2, 3);
+        LazyIntIterable lazy = list.asLazy();
+        list.add(4);
+        Assert.assertEquals(4, lazy.size());
+        Assert.assertEquals(10L, lazy.sum());
+        Assert.assertEquals(4, lazy.max());
+        Assert.assertArrayEquals(new int[]{1, 2, 3, 4}, lazy.toArray());
+        Assert.assertEquals("[1, 2, 3, 4]", lazy.toString());
+    }
+
+    @Test
+    public void equalsAndHashCode()
+    {
+        Verify.assertEqualsAndHashCode(IntArrayList.newListWith(1, 2, 3), IntArrayList.newListWith(1, 2, 3));
+        Verify.assertNotEquals(IntArrayList.newListWith(1, 2, 3), IntArrayList.newListWith(1, 2));
+        Verify.assertNotEquals(IntArrayList.newListWith(1, 2, 3), IntArrayList.newListWith(1, 2, 4));
+        Verify.assertPostSerializedEqualsAndHashCode(IntArrayList.newListWith(1, 2, 3));
+        Assert.assertEquals("[1, 2, 3]", IntArrayList.newListWith(1, 2, 3).toString());
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.list.mutable.primitive;
+
+import ponzu.api.LazyLongIterable;
+import ponzu.api.block.predicate.primitive.LongPredicate;
+import ponzu.api.block.procedure.primitive.LongProcedure;
+import ponzu.impl.test.Verify;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LongArrayListTest
+{
+    @Test
+    public void addAndGet()
+    {
+        LongArrayList list = new LongArrayList(0);
+        Assert.assertTrue(list.isEmpty());
+        for (long i = 0L; i < 100L; i++)
+        {
+            list.add(i);
+        }
+        Assert.assertEquals(100, list.size());
+        Assert.assertTrue(list.notEmpty());
+        Assert.assertEquals(0L, list.get(0));
+        Assert.assertEquals(99L, list.get(99));
+        Assert.assertTrue(list.contains(50L));
+        Assert.assertFalse(list.contains(100L));
+        Verify.assertThrows(IndexOutOfBoundsException.class, new Runnable()
+        {
+            public void run()
+            {
+                LongArrayList.newListWith(1L).get(1);
+            }
+        });
+    }
+
+    @Test
+    public void addAllAndWith()
+    {
+        LongArrayList list = LongArrayList.newListWith(1L, 2L);
+        Assert.assertTrue(list.addAll(3L, Long.MAX_VALUE));
+        Assert.assertFalse(list.addAll());
+        Assert.assertEquals(
+                LongArrayList.newListWith(1L, 2L, 3L, Long.MAX_VALUE, Long.MIN_VALUE),
+                list.with(Long.MIN_VALUE));
+        list.trimToSize();
+        Assert.assertArrayEquals(new long[]{1L, 2L, 3L, Long.MAX_VALUE, Long.MIN_VALUE}, list.toArray());
+        list.clear();
+        Assert.assertTrue(list.isEmpty());
+        Assert.assertEquals(0, list.toArray().length);
+    }
+
+    @Test
+    public void ensureCapacity()
+    {
+        LongArrayList list = LongArrayList.newListWith(1L, 2L, 3L);
+        list.ensureCapacity(1000);
+        Assert.assertEquals(LongArrayList.newListWith(1L, 2L, 3L), list);
+        list.trimToSize();
+        Assert.assertEquals(LongArrayList.newListWith(1L, 2L, 3L, 4L), list.with(4L));
+    }
+
+    @Test
+    public void forEachCountAndSum()
+    {
+        LongArrayList list = LongArrayList.newListWith(1L, 2L, 3L, (long) Integer.MAX_VALUE + 1L);
+        final long[] sum = new long[1];
+        list.forEach(new LongProcedure()
+        {
+            public void value(long each)
+            {
+                sum[0] += each;
+            }
+        });
+        Assert.assertEquals(2147483654L, sum[0]);
+        Assert.assertEquals(2147483654L, list.sum());
+        Assert.assertEquals(2, list.count(new LongPredicate()
+        {
+            public boolean accept(long value)
+            {
+                return value > 2L;
+            }
+        }));
+    }
+
+    @Test
+    public void asLazy()
+    {
+        LongArrayList list = LongArrayList.newListWith(1L, 2L, 3L);
+        LazyLongIterable lazy = list.asLazy();
+        list.add(4L);
+        Assert.assertEquals(4, lazy.size());
+        Assert.assertEquals(10L, lazy.sum());
+        Assert.assertEquals(4L, lazy.max());
+        Assert.assertArrayEquals(new long[]{1L, 2L, 3L, 4L}, lazy.toArray());
+        Assert.assertEquals("[1, 2, 3, 4]", lazy.toString());
+    }
+
+    @Test
+    public void equalsAndHashCode()
+    {
+        Verify.assertEqualsAndHashCode(LongArrayList.newListWith(1L, 2L, 3L), LongArrayList.newListWith(1L, 2L, 3L));
+        Verify.assertNotEquals(LongArrayList.newListWith(1L, 2L, 3L), LongArrayList.newListWith(1L, 2L));
+        Verify.assertNotEquals(LongArrayList.newListWith(1L, 2L, 3L), LongArrayList.newListWith(1L, 2L, 4L));
+        Verify.assertNotEquals(LongArrayList.newListWith(1L), LongArrayList.newListWith(1L + (1L << 32)));
+        Verify.assertPostSerializedEqualsAndHashCode(LongArrayList.newListWith(1L, 2L, 3L));
+        Assert.assertEquals("[1, 2, 3]", LongArrayList.newListWith(1L, 2L, 3L).toString());
+    }
+}
@@ -0,0 +1,353 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.list.primitive;
+
+import java.math.BigInteger;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import ponzu.api.block.function.primitive.IntToObjectFunction;
+import ponzu.api.block.predicate.primitive.IntPredicate;
+import ponzu.api.block.procedure.primitive.IntProcedure;
+import ponzu.api.iterator.IntIterator;
+import ponzu.impl.block.procedure.CollectionAddProcedure;
+import ponzu.impl.list.Interval;
+import ponzu.impl.list.mutable.FastList;
+import ponzu.impl.list.mutable.primitive.IntArrayList;
+import ponzu.impl.parallel.ParallelIterate;
+import ponzu.impl.test.Verify;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class IntIntervalTest
+{
+    @Test
+    public void factories()
+    {
+        Assert.assertArrayEquals(new int[]{1, 2, 3}, IntInterval.oneTo(3).toArray());
+        Assert.assertArrayEquals(new int[]{0, 1, 2, 3}, IntInterval.zeroTo(3).toArray());
+        Assert.assertArrayEquals(new int[]{3, 2, 1}, IntInterval.fromTo(3, 1).toArray());
+        Assert.assertArrayEquals(new int[]{1, 4, 7, 10}, IntInterval.fromToBy(1, 10, 3).toArray());
+        Assert.assertArrayEquals(new int[]{10, 7, 4, 1}, IntInterval.fromToBy(10, 0, -3).toArray());
+    }
+
+    @Test
+    public void illegalArguments()
+    {
+        Verify.assertThrows(IllegalArgumentException.class, new Runnable()
+        {
+            public void run()
+            {
+                IntInterval.fromToBy(1, 5, 0);
+            }
+        });
+        Verify.assertThrows(IllegalArgumentException.class, new Runnable()
+        {
+            public void run()
+            {
+                IntInterval.fromToBy(5, 1, 1);
+            }
+        });
+        Verify.assertThrows(IllegalArgumentException.class, new Runnable()
+        {
+            public void run()
+            {
+                IntInterval.fromTo(Integer.MIN_VALUE, Integer.MAX_VALUE);
+            }
+        });
+        Verify.assertThrows(IllegalArgumentException.class, new Runnable()
+        {
+            public void run()
+            {
+                IntInterval.oneTo(0);
+            }
+        });
+    }
+
+    @Test
+    public void sizeAndGet()
+    {
+        IntInterval interval = IntInterval.fromToBy(1, 10, 2);
+        Assert.assertEquals(5, interval.size());
+        Assert.assertFalse(interval.isEmpty());
+        Assert.assertEquals(1, interval.get(0));
+        Assert.assertEquals(9, interval.get(4));
+        Assert.assertEquals(9, interval.getLast());
+        Verify.assertThrows(IndexOutOfBoundsException.class, new Runnable()
+        {
+            public void run()
+            {
+                IntInterval.oneTo(3).get(3);
+            }
+        });
+    }
+
+    @Test
+    public void contains()
+    {
+        IntInterval interval = IntInterval.fromToBy(1, 10, 3);
+        Assert.assertTrue(interval.contains(1));
+        Assert.assertTrue(interval.contains(10));
+        Assert.assertFalse(interval.contains(2));
+        Assert.assertFalse(interval.contains(13));
+        Assert.assertFalse(interval.contains(-2));
+        Assert.assertTrue(IntInterval.fromTo(5, -5).contains(-5));
+    }
+
+    @Test
+    public void forEachAtEndOfRange()
+    {
+        final IntArrayList result = new IntArrayList();
+        IntInterval.fromTo(Integer.MAX_VALUE - 2, Integer.MAX_VALUE).forEach(new IntProcedure()
+        {
+            public void value(int each)
+            {
+                result.add(each);
+            }
+        });
+        Assert.assertEquals(IntArrayList.newListWith(Integer.MAX_VALUE - 2, Integer.MAX_VALUE - 1, Integer.MAX_VALUE), result);
+        Assert.assertEquals(IntArrayList.newListWith(Integer.MIN_VALUE + 1, Integer.MIN_VALUE), IntInterval.fromTo(Integer.MIN_VALUE + 1, Integer.MIN_VALUE).toList());
+    }
+
+    @Test
+    public void intIterator()
+    {
+        IntIterator iterator = IntInterval.fromTo(Integer.MAX_VALUE - 1, Integer.MAX_VALUE).intIterator();
+        Assert.assertEquals(Integer.MAX_VALUE - 1, iterator.next());
+        Assert.assertEquals(Integer.MAX_VALUE, iterator.next());
+        Assert.assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    public void forEachBoxed()
+    {
+        FastList<Integer> result = FastList.newList();
+        IntInterval.oneTo(3).forEach(CollectionAddProcedure.on(result));
+        Assert.assertEquals(FastList.newListWith(1, 2, 3), result);
+    }
+
+    @Test
+    public void sum()
+    {
+        Assert.assertEquals(55L, IntInterval.oneTo(10).sum());
+        Assert.assertEquals(25L, IntInterval.fromToBy(1, 10, 2).sum());
+        Assert.assertEquals(-55L, IntInterval.fromTo(-1, -10).sum());
+        Assert.assertEquals(Integer.MAX_VALUE, IntInterval.fromTo(Integer.MAX_VALUE, Integer.MAX_VALUE).sum());
+        long expected = 0L;
+        for (int i = -17; i <= 1001; i += 7)
+        {
+            expected += i;
+        }
+        Assert.assertEquals(expected, IntInterval.fromToBy(-17, 1001, 7).sum());
+        Assert.assertEquals(-2147483648L, IntInterval.fromToBy(Integer.MIN_VALUE, Integer.MAX_VALUE, 4).sum());
+    }
+
+    @Test
+    public void minMaxAverage()
+    {
+        IntInterval interval = IntInterval.fromToBy(10, 1, -2);
+        Assert.assertEquals(2, interval.min());
+        Assert.assertEquals(10, interval.max());
+        Assert.assertEquals(6.0, interval.average(), 0.0);
+    }
+
+    @Test
+    public void filter()
+    {
+        IntPredicate isEven = new IntPredicate()
+        {
+            public boolean accept(int value)
+            {
+                return value % 2 == 0;
+            }
+        };
+        Assert.assertEquals(IntArrayList.newListWith(2, 4, 6), IntInterval.oneTo(7).filter(isEven, new IntArrayList()));
+        Assert.assertArrayEquals(new int[]{2, 4, 6}, IntInterval.oneTo(7).filter(isEven).toArray());
+    }
+
+    @Test
+    public void batchForEach()
+    {
+        final IntArrayList result = new IntArrayList();
+        IntProcedure procedure = new IntProcedure()
+        {
+            public void value(int each)
+            {
+                result.add(each);
+            }
+        };
+        IntInterval interval = IntInterval.oneTo(10);
+        Assert.assertEquals(3, interval.getBatchCount(3));
+        Assert.assertEquals(1, interval.getBatchCount(20));
+        interval.batchForEachInt(procedure, 0, 3);
+        Assert.assertEquals(IntArrayList.newListWith(1, 2, 3), result);
+        interval.batchForEachInt(procedure, 2, 3);
+        Assert.assertEquals(IntArrayList.newListWith(1, 2, 3, 7, 8, 9, 10), result);
+        FastList<Integer> boxed = FastList.newList();
+        interval.batchForEach(CollectionAddProcedure.on(boxed), 1, 3);
+        Assert.assertEquals(FastList.newListWith(4, 5, 6), boxed);
+    }
+
+    @Test
+    public void forEachWithExecutorWhenInterrupted()
+    {
+        final AtomicInteger count = new AtomicInteger();
+        final Executor callerRuns = new Executor()
+        {
+            public void execute(Runnable command)
+            {
+                command.run();
+            }
+        };
+        Verify.assertThrowsWithCause(RuntimeException.class, CancellationException.class, new Runnable()
+        {
+            public void run()
+            {
+                IntInterval.oneTo(1000).forEach(new IntProcedure()
+                {
+                    public void value(int each)
+                    {
+                        if (count.incrementAndGet() == 760)
+                        {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                }, callerRuns);
+            }
+        });
+        Assert.assertTrue(Thread.interrupted());
+        Assert.assertEquals(760, count.get());
+    }
+
+    @Test
+    public void forEachWithExecutor()
+    {
+        final AtomicLong sum = new AtomicLong();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try
+        {
+            IntInterval interval = IntInterval.fromToBy(-999, 100000, 3);
+            interval.forEach(new IntProcedure()
+            {
+                public void value(int each)
+                {
+                    sum.addAndGet(each);
+                }
+            }, executor);
+            Assert.assertEquals(interval.sum(), sum.get());
+
+            final IntArrayList single = new IntArrayList();
+            IntInterval.oneTo(3).forEach(new IntProcedure()
+            {
+                public void value(int each)
+                {
+                    single.add(each);
+                }
+            }, Executors.newSingleThreadExecutor());
+            Assert.assertEquals(IntArrayList.newListWith(1, 2, 3), single);
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void forEachWithExecutorPropagatesFailure()
+    {
+        Verify.assertThrowsWithCause(RuntimeException.class, IllegalStateException.class, new Runnable()
+        {
+            public void run()
+            {
+                IntInterval.oneTo(1000).forEach(new IntProcedure()
+                {
+                    public void value(int each)
+                    {
+                        if (each == 500)
+                        {
+                            throw new IllegalStateException();
+                        }
+                    }
+                }, ParallelIterate.newPooledExecutor(2, "IntIntervalTest", true));
+            }
+        });
+    }
+
+    @Test
+    public void productAndFactorial()
+    {
+        Assert.assertEquals(BigInteger.valueOf(3628800L), IntInterval.oneTo(10).factorial());
+        Assert.assertEquals(BigInteger.ONE, IntInterval.zeroTo(5).factorial());
+        Assert.assertEquals(BigInteger.valueOf(-6L), IntInterval.fromTo(-1, -3).product());
+        Assert.assertEquals(BigInteger.ZERO, IntInterval.fromTo(-3, 3).product());
+        Assert.assertEquals(Interval.oneTo(40).factorial(), IntInterval.oneTo(40).factorial());
+        BigInteger expected = BigInteger.ONE;
+        for (int i = 1; i <= 60; i++)
+        {
+            expected = expected.multiply(BigInteger.valueOf((long) i * 1000003L));
+        }
+        Assert.assertEquals(expected, IntInterval.fromToBy(1000003, 60000180, 1000003).product());
+        Verify.assertThrows(IllegalStateException.class, new Runnable()
+        {
+            public void run()
+            {
+                IntInterval.fromTo(-1, 5).factorial();
+            }
+        });
+        try
+        {
+            IntInterval.fromToBy(1, 9, 2).factorial();
+            Assert.fail();
+        }
+        catch (IllegalStateException e)
+        {
+            Assert.assertEquals("Cannot calculate factorial on ranges with a step other than 1: 2", e.getMessage());
+        }
+    }
+
+    @Test
+    public void equalsAndHashCode()
+    {
+        Verify.assertEqualsAndHashCode(IntInterval.oneTo(5), IntInterval.fromToBy(1, 5, 1));
+        Verify.assertEqualsAndHashCode(IntInterval.fromToBy(1, 6, 2), IntInterval.fromToBy(1, 5, 2));
+        Verify.assertEqualsAndHashCode(IntInterval.fromToBy(1, 1, 1), IntInterval.fromToBy(1, 1, -1));
+        Verify.assertNotEquals(IntInterval.oneTo(5), IntInterval.zeroTo(5));
+        Verify.assertPostSerializedEqualsAndHashCode(IntInterval.oneTo(5));
+    }
+
+    @Test
+    public void testToString()
+    {
+        Assert.assertEquals("IntInterval from: 1 to: 10 step: 3 size: 4", IntInterval.fromToBy(1, 10, 3).toString());
+    }
+
+    @Test
+    public void transform()
+    {
+        Assert.assertEquals(FastList.newListWith("1", "2", "3"), IntInterval.oneTo(3).transform(new IntToObjectFunction<String>()
+        {
+            public String valueOf(int intParameter)
+            {
+                return String.valueOf(intParameter);
+            }
+        }).toList());
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.list.primitive;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import ponzu.api.block.predicate.primitive.LongPredicate;
+import ponzu.api.block.procedure.primitive.LongProcedure;
+import ponzu.api.iterator.LongIterator;
+import ponzu.impl.block.procedure.CollectionAddProcedure;
+import ponzu.impl.list.mutable.FastList;
+import ponzu.impl.list.mutable.primitive.LongArrayList;
+import ponzu.impl.test.Verify;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LongIntervalTest
+{
+    @Test
+    public void factories()
+    {
+        Assert.assertArrayEquals(new long[]{1L, 2L, 3L}, LongInterval.oneTo(3L).toArray());
+        Assert.assertArrayEquals(new long[]{0L, 1L, 2L}, LongInterval.zeroTo(2L).toArray());
+        Assert.assertArrayEquals(new long[]{3L, 2L, 1L}, LongInterval.fromTo(3L, 1L).toArray());
+        Assert.assertArrayEquals(new long[]{1L, 4L, 7L, 10L}, LongInterval.fromToBy(1L, 10L, 3L).toArray());
+    }
+
+    @Test
+    public void illegalArguments()
+    {
+        Verify.assertThrows(IllegalArgumentException.class, new Runnable()
+        {
+            public void run()
+            {
+                LongInterval.fromToBy(1L, 5L, 0L);
+            }
+        });
+        Verify.assertThrows(IllegalArgumentException.class, new Runnable()
+        {
+            public void run()
+            {
+                LongInterval.fromToBy(1L, 5L, -1L);
+            }
+        });
+        Verify.assertThrows(IllegalArgumentException.class, new Runnable()
+        {
+            public void run()
+            {
+                LongInterval.fromTo(Long.MIN_VALUE, Long.MAX_VALUE);
+            }
+        });
+    }
+
+    @Test
+    public void moreThanIntegerMaxValueElements()
+    {
+        final LongInterval interval = LongInterval.fromTo(1L, Long.MAX_VALUE);
+        Assert.assertEquals(Long.MAX_VALUE, interval.longSize());
+        Assert.assertEquals(Long.MAX_VALUE, interval.get(Long.MAX_VALUE - 1L));
+        Assert.assertEquals(Long.MAX_VALUE, interval.getLast());
+        Assert.assertEquals(Integer.MAX_VALUE, interval.getBatchCount(1));
+        Assert.assertTrue(interval.contains(Integer.MAX_VALUE + 1L));
+        Assert.assertEquals(Long.MAX_VALUE - 1L, LongInterval.fromTo(0L, Long.MAX_VALUE - 2L).longSize());
+        Verify.assertThrows(ArithmeticException.class, new Runnable()
+        {
+            public void run()
+            {
+                interval.size();
+            }
+        });
+        Verify.assertThrows(ArithmeticException.class, new Runnable()
+        {
+            public void run()
+            {
+                interval.toArray();
+            }
+        });
+        Assert.assertEquals(Integer.MAX_VALUE, LongInterval.oneTo(Integer.MAX_VALUE).size());
+        Assert.assertEquals(Integer.MAX_VALUE + 1L, LongInterval.zeroTo(Integer.MAX_VALUE).longSize());
+    }
+
+    @Test
+    public void wideRange()
+    {
+        LongInterval interval = LongInterval.fromToBy(Long.MIN_VALUE, Long.MAX_VALUE, Long.MAX_VALUE);
+        Assert.assertEquals(3, interval.size());
+        Assert.assertArrayEquals(new long[]{Long.MIN_VALUE, -1L, Long.MAX_VALUE - 1L}, interval.toArray());
+        Assert.assertTrue(interval.contains(-1L));
+        Assert.assertFalse(interval.contains(0L));
+        Assert.assertFalse(interval.contains(Long.MAX_VALUE));
+        Assert.assertEquals(Long.MAX_VALUE - 1L, interval.getLast());
+        Assert.assertEquals(Long.MIN_VALUE + -1L + Long.MAX_VALUE - 1L, interval.sum());
+    }
+
+    @Test
+    public void longIterator()
+    {
+        LongIterator iterator = LongInterval.fromTo(Long.MAX_VALUE - 1L, Long.MAX_VALUE).longIterator();
+        Assert.assertEquals(Long.MAX_VALUE - 1L, iterator.next());
+        Assert.assertEquals(Long.MAX_VALUE, iterator.next());
+        Assert.assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    public void sumMinMaxAverage()
+    {
+        Assert.assertEquals(5000050000L, LongInterval.oneTo(100000L).sum());
+        Assert.assertEquals(25L, LongInterval.fromToBy(1L, 10L, 2L).sum());
+        LongInterval interval = LongInterval.fromToBy(10L, 1L, -2L);
+        Assert.assertEquals(2L, interval.min());
+        Assert.assertEquals(10L, interval.max());
+        Assert.assertEquals(6.0, interval.average(), 0.0);
+    }
+
+    @Test
+    public void filter()
+    {
+        LongPredicate isOdd = new LongPredicate()
+        {
+            public boolean accept(long value)
+            {
+                return value % 2L != 0L;
+            }
+        };
+        Assert.assertEquals(LongArrayList.newListWith(1L, 3L, 5L), LongInterval.oneTo(6L).filter(isOdd, new LongArrayList()));
+        Assert.assertEquals(3, LongInterval.oneTo(6L).filter(isOdd).size());
+    }
+
+    @Test
+    public void batchForEach()
+    {
+        final LongArrayList result = new LongArrayList();
+        LongInterval interval = LongInterval.oneTo(10L);
+        Assert.assertEquals(2, interval.getBatchCount(5));
+        interval.batchForEachLong(new LongProcedure()
+        {
+            public void value(long each)
+            {
+                result.add(each);
+            }
+        }, 1, 2);
+        Assert.assertEquals(LongArrayList.newListWith(6L, 7L, 8L, 9L, 10L), result);
+        FastList<Long> boxed = FastList.newList();
+        interval.batchForEach(CollectionAddProcedure.on(boxed), 0, 5);
+        Assert.assertEquals(FastList.newListWith(1L, 2L), boxed);
+    }
+
+    @Test
+    public void forEachWithExecutor()
+    {
+        final AtomicLong sum = new AtomicLong();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try
+        {
+            LongInterval interval = LongInterval.fromToBy(1L, 1000000000L, 7919L);
+            interval.forEach(new LongProcedure()
+            {
+                public void value(long each)
+                {
+                    sum.addAndGet(each);
+                }
+            }, executor);
+            Assert.assertEquals(interval.sum(), sum.get());
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void equalsAndHashCode()
+    {
+        Verify.assertEqualsAndHashCode(LongInterval.oneTo(5L), LongInterval.fromToBy(1L, 5L, 1L));
+        Verify.assertEqualsAndHashCode(LongInterval.fromToBy(1L, 6L, 2L), LongInterval.fromToBy(1L, 5L, 2L));
+        Verify.assertNotEquals(LongInterval.oneTo(5L), LongInterval.zeroTo(5L));
+        Verify.assertPostSerializedEqualsAndHashCode(LongInterval.oneTo(5L));
+    }
+
+    @Test
+    public void testToString()
+    {
+        Assert.assertEquals("LongInterval from: 1 to: 10 step: 3 size: 4", LongInterval.fromToBy(1L, 10L, 3L).toString());
+    }
+}
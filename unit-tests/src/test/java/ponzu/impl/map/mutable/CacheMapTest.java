@@ -0,0 +1,375 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.map.mutable;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+import ponzu.api.block.function.Generator;
+import ponzu.api.block.procedure.Procedure2;
+import ponzu.api.map.MutableMap;
+import ponzu.impl.block.factory.Functions;
+import ponzu.impl.block.factory.Predicates;
+import ponzu.impl.block.function.EvictionPolicy;
+import ponzu.impl.list.Interval;
+import ponzu.impl.list.mutable.FastList;
+import ponzu.impl.test.SerializeTestHelper;
+import ponzu.impl.test.Verify;
+import ponzu.impl.tuple.ImmutableEntry;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * JUnit test for {@link CacheMap}.
+ */
+public class CacheMapTest extends MutableMapTestCase
+{
+    @Override
+    public <K, V> MutableMap<K, V> newMap()
+    {
+        return CacheMap.newCache(100);
+    }
+
+    @Override
+    public <K, V> MutableMap<K, V> newMapWithKeyValue(K key, V value)
+    {
+        return CacheMap.<K, V>newCache(100).withKeyValue(key, value);
+    }
+
+    @Override
+    public <K, V> MutableMap<K, V> newMapWithKeysValues(K key1, V value1, K key2, V value2)
+    {
+        return CacheMap.<K, V>newCache(100).withKeyValue(key1, value1).withKeyValue(key2, value2);
+    }
+
+    @Override
+    public <K, V> MutableMap<K, V> newMapWithKeysValues(K key1, V value1, K key2, V value2, K key3, V value3)
+    {
+        return CacheMap.<K, V>newCache(100)
+                .withKeyValue(key1, value1)
+                .withKeyValue(key2, value2)
+                .withKeyValue(key3, value3);
+    }
+
+    @Override
+    public <K, V> MutableMap<K, V> newMapWithKeysValues(K key1, V value1, K key2, V value2, K key3, V value3, K key4, V value4)
+    {
+        return CacheMap.<K, V>newCache(100)
+                .withKeyValue(key1, value1)
+                .withKeyValue(key2, value2)
+                .withKeyValue(key3, value3)
+                .withKeyValue(key4, value4);
+    }
+
+    @Test
+    public void leastRecentlyUsed()
+    {
+        CacheMap<Integer, String> cache = CacheMap.newCache(2, EvictionPolicy.LRU);
+        cache.put(1, "1");
+        cache.put(2, "2");
+        cache.get(1);
+        cache.put(3, "3");
+        Verify.assertContainsAllKeyValues(cache, 1, "1", 3, "3");
+        Verify.assertSize(2, cache);
+    }
+
+    @Test
+    public void firstInFirstOut()
+    {
+        CacheMap<Integer, String> cache = CacheMap.newCache(2, EvictionPolicy.FIFO);
+        cache.put(1, "1");
+        cache.put(2, "2");
+        cache.get(1);
+        cache.put(3, "3");
+        Verify.assertContainsAllKeyValues(cache, 2, "2", 3, "3");
+    }
+
+    @Test
+    public void leastFrequentlyUsed()
+    {
+        CacheMap<Integer, String> cache = CacheMap.newCache(3, EvictionPolicy.LFU);
+        cache.put(1, "1");
+        cache.put(2, "2");
+        cache.put(3, "3");
+        cache.get(1);
+        cache.get(1);
+        cache.get(3);
+        cache.put(4, "4");
+        Verify.assertContainsAllKeyValues(cache, 1, "1", 3, "3", 4, "4");
+        cache.get(4);
+        cache.get(4);
+        cache.put(5, "5");
+        Verify.assertContainsAllKeyValues(cache, 1, "1", 4, "4", 5, "5");
+    }
+
+    @Test
+    public void tinyLfuKeepsFrequentKeysDuringScan()
+    {
+        CacheMap<Integer, Integer> cache = CacheMap.newCache(100, EvictionPolicy.TINY_LFU);
+        for (int round = 0; round < 10; round++)
+        {
+            for (int i = 0; i < 50; i++)
+            {
+                cache.getIfAbsentPut(i, new PassThruGenerator(i));
+            }
+        }
+        for (int i = 1000; i < 2000; i++)
+        {
+            cache.getIfAbsentPut(i, new PassThruGenerator(i));
+        }
+        Verify.assertSize(100, cache);
+        for (int i = 0; i < 50; i++)
+        {
+            Verify.assertContainsKey(i, cache);
+        }
+    }
+
+    @Test
+    public void tinyLfuWithLargeMaxSize()
+    {
+        CacheMap<Integer, Integer> cache = CacheMap.newCache(Integer.MAX_VALUE, EvictionPolicy.TINY_LFU);
+        for (int i = 0; i < 1000; i++)
+        {
+            cache.getIfAbsentPut(i % 100, new PassThruGenerator(i));
+        }
+        Verify.assertSize(100, cache);
+        Assert.assertEquals(Integer.valueOf(99), cache.get(99));
+    }
+
+    @Test
+    public void maxSizeIsNeverExceeded()
+    {
+        for (EvictionPolicy policy : EvictionPolicy.values())
+        {
+            CacheMap<Integer, Integer> cache = CacheMap.newCache(10, policy);
+            for (int i = 0; i < 1000; i++)
+            {
+                cache.put(i % 37, i);
+                cache.get(i % 5);
+                Assert.assertTrue(cache.size() <= 10);
+            }
+            Verify.assertSize(10, cache);
+            Assert.assertEquals(cache.size(), cache.keySet().size());
+        }
+    }
+
+    @Test
+    public void expireAfterWrite()
+    {
+        FastList<Integer> expired = FastList.newList();
+        ManualTicker ticker = new ManualTicker();
+        CacheMap<Integer, String> cache = CacheMap.<Integer, String>newCache(
+                10, EvictionPolicy.LRU, 50L, TimeUnit.MILLISECONDS, ticker)
+                .withEvictionListener(new AddKeyProcedure(expired));
+        cache.put(1, "1");
+        ticker.advance(10L, TimeUnit.MILLISECONDS);
+        cache.put(2, "2");
+        ticker.advance(39L, TimeUnit.MILLISECONDS);
+        Assert.assertEquals("1", cache.get(1));
+        ticker.advance(1L, TimeUnit.MILLISECONDS);
+        Assert.assertNull(cache.get(1));
+        Assert.assertEquals(FastList.newListWith(1), expired);
+        cache.put(1, "1");
+        ticker.advance(10L, TimeUnit.MILLISECONDS);
+        cache.put(3, "3");
+        Verify.assertContainsAllKeyValues(cache, 1, "1", 3, "3");
+        Verify.assertSize(2, cache);
+        Assert.assertEquals(FastList.newListWith(1, 2), expired);
+        Assert.assertEquals(2L, cache.getStatistics().getExpirationCount());
+        Assert.assertEquals(50L, cache.getExpireAfterWrite(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void cleanUpExpiresIdleEntries()
+    {
+        ManualTicker ticker = new ManualTicker();
+        CacheMap<Integer, String> cache = CacheMap.newCache(10, EvictionPolicy.FIFO, 1L, TimeUnit.SECONDS, ticker);
+        cache.put(1, "1");
+        ticker.advance(1L, TimeUnit.SECONDS);
+        Assert.assertEquals(0L, cache.getStatistics().getExpirationCount());
+        cache.cleanUp();
+        Assert.assertEquals(1L, cache.getStatistics().getExpirationCount());
+        Verify.assertEmpty(cache);
+    }
+
+    @Test
+    public void evictionListener()
+    {
+        FastList<Integer> evicted = FastList.newList();
+        CacheMap<Integer, String> cache = CacheMap.<Integer, String>newCache(2).withEvictionListener(new AddKeyProcedure(evicted));
+        cache.put(1, "1");
+        cache.put(2, "2");
+        cache.remove(2);
+        cache.put(3, "3");
+        cache.put(4, "4");
+        Assert.assertEquals(FastList.newListWith(1), evicted);
+    }
+
+    @Test
+    public void statistics()
+    {
+        CacheMap<Integer, Integer> cache = CacheMap.newCache(2);
+        Assert.assertEquals(Integer.valueOf(1), cache.getIfAbsentPut(1, new PassThruGenerator(1)));
+        Assert.assertEquals(Integer.valueOf(1), cache.getIfAbsentPut(1, new PassThruGenerator(2)));
+        Assert.assertNull(cache.get(2));
+        cache.put(2, 2);
+        cache.put(3, 3);
+        Assert.assertEquals(new CacheStatistics(1L, 2L, 1L, 0L), cache.getStatistics());
+        Assert.assertEquals(1.0 / 3.0, cache.getStatistics().getHitRate(), 0.0);
+        Assert.assertEquals(3L, cache.getStatistics().getRequestCount());
+    }
+
+    @Test
+    public void iteratorRemoveKeepsEvictionOrderConsistent()
+    {
+        CacheMap<Integer, Integer> cache = CacheMap.newCache(3, EvictionPolicy.LFU);
+        cache.put(1, 1);
+        cache.put(2, 2);
+        cache.put(3, 3);
+        Iterator<Integer> iterator = cache.keySet().iterator();
+        while (iterator.hasNext())
+        {
+            if (iterator.next() == 2)
+            {
+                iterator.remove();
+            }
+        }
+        cache.entrySet().remove(ImmutableEntry.of(3, 3));
+        cache.put(4, 4);
+        cache.put(5, 5);
+        cache.put(6, 6);
+        Verify.assertSize(3, cache);
+        Assert.assertEquals(Interval.fromTo(4, 6).toSet(), cache.keySet());
+    }
+
+    @Test
+    public void cloneKeepsConfigurationAndOrder()
+    {
+        CacheMap<Integer, String> cache = CacheMap.newCache(3, EvictionPolicy.LRU);
+        cache.put(1, "1");
+        cache.put(2, "2");
+        cache.put(3, "3");
+        cache.get(1);
+        CacheMap<Integer, String> clone = cache.clone();
+        Verify.assertEqualsAndHashCode(cache, clone);
+        clone.put(4, "4");
+        Verify.assertContainsAllKeyValues(clone, 1, "1", 3, "3", 4, "4");
+        Assert.assertEquals(3, clone.getMaxSize());
+        Assert.assertEquals(EvictionPolicy.LRU, clone.getEvictionPolicy());
+    }
+
+    @Test
+    public void serializationKeepsOrder()
+    {
+        CacheMap<Integer, String> cache = CacheMap.newCache(3, EvictionPolicy.LRU);
+        cache.put(1, "1");
+        cache.put(2, "2");
+        cache.put(3, "3");
+        cache.get(1);
+        CacheMap<Integer, String> deserialized = SerializeTestHelper.serializeDeserialize(cache);
+        Verify.assertEqualsAndHashCode(cache, deserialized);
+        deserialized.put(4, "4");
+        Verify.assertContainsAllKeyValues(deserialized, 1, "1", 3, "3", 4, "4");
+    }
+
+    @Test
+    public void illegalArguments()
+    {
+        Verify.assertThrows(IllegalArgumentException.class, new Runnable()
+        {
+            public void run()
+            {
+                CacheMap.newCache(0);
+            }
+        });
+        Verify.assertThrows(IllegalArgumentException.class, new Runnable()
+        {
+            public void run()
+            {
+                CacheMap.newCache(1, null);
+            }
+        });
+        Verify.assertThrows(IllegalArgumentException.class, new Runnable()
+        {
+            public void run()
+            {
+                CacheMap.newCache(1, EvictionPolicy.LRU, -1L, TimeUnit.SECONDS);
+            }
+        });
+    }
+
+    @Test
+    public void usableAsMutableMap()
+    {
+        MutableMap<String, Integer> cache = CacheMap.newCache(10);
+        cache.transformKeysAndValues(FastList.newListWith(1, 2, 3), Functions.getToString(), Functions.getIntegerPassThru());
+        Assert.assertEquals(UnifiedMap.newWithKeysValues("1", 1, "2", 2, "3", 3), cache);
+        Assert.assertEquals(FastList.newListWith(2), cache.filter(Predicates.equal(2)));
+        Verify.assertInstanceOf(CacheMap.class, cache.newEmpty());
+    }
+
+    private static final class PassThruGenerator implements Generator<Integer>
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final Integer value;
+
+        private PassThruGenerator(Integer value)
+        {
+            this.value = value;
+        }
+
+        public Integer value()
+        {
+            return this.value;
+        }
+    }
+
+    private static final class ManualTicker implements CacheTicker
+    {
+        private static final long serialVersionUID = 1L;
+
+        private long nanos;
+
+        public long read()
+        {
+            return this.nanos;
+        }
+
+        private void advance(long duration, TimeUnit unit)
+        {
+            this.nanos += unit.toNanos(duration);
+        }
+    }
+
+    private static final class AddKeyProcedure implements Procedure2<Integer, Object>
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final FastList<Integer> keys;
+
+        private AddKeyProcedure(FastList<Integer> keys)
+        {
+            this.keys = keys;
+        }
+
+        public void value(Integer key, Object value)
+        {
+            this.keys.add(key);
+        }
+    }
+}
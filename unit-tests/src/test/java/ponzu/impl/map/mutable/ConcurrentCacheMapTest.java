@@ -0,0 +1,156 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.map.mutable;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import ponzu.api.block.function.Function;
+import ponzu.api.map.ConcurrentMutableMap;
+import ponzu.impl.block.function.EvictionPolicy;
+import ponzu.impl.test.SerializeTestHelper;
+import ponzu.impl.test.Verify;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * JUnit test for {@link ConcurrentCacheMap}.
+ */
+public class ConcurrentCacheMapTest extends MutableMapTestCase
+{
+    @Override
+    public <K, V> ConcurrentMutableMap<K, V> newMap()
+    {
+        return ConcurrentCacheMap.newCache(100);
+    }
+
+    @Override
+    public <K, V> ConcurrentMutableMap<K, V> newMapWithKeyValue(K key, V value)
+    {
+        return ConcurrentCacheMap.<K, V>newCache(100).withKeyValue(key, value);
+    }
+
+    @Override
+    public <K, V> ConcurrentMutableMap<K, V> newMapWithKeysValues(K key1, V value1, K key2, V value2)
+    {
+        return ConcurrentCacheMap.<K, V>newCache(100).withKeyValue(key1, value1).withKeyValue(key2, value2);
+    }
+
+    @Override
+    public <K, V> ConcurrentMutableMap<K, V> newMapWithKeysValues(K key1, V value1, K key2, V value2, K key3, V value3)
+    {
+        return ConcurrentCacheMap.<K, V>newCache(100)
+                .withKeyValue(key1, value1)
+                .withKeyValue(key2, value2)
+                .withKeyValue(key3, value3);
+    }
+
+    @Override
+    public <K, V> ConcurrentMutableMap<K, V> newMapWithKeysValues(K key1, V value1, K key2, V value2, K key3, V value3, K key4, V value4)
+    {
+        return ConcurrentCacheMap.<K, V>newCache(100)
+                .withKeyValue(key1, value1)
+                .withKeyValue(key2, value2)
+                .withKeyValue(key3, value3)
+                .withKeyValue(key4, value4);
+    }
+
+    @Test
+    public void putIfAbsent()
+    {
+        ConcurrentMutableMap<Integer, Integer> map = this.newMapWithKeysValues(1, 1, 2, 2);
+        Assert.assertEquals(Integer.valueOf(1), map.putIfAbsent(1, 1));
+        Assert.assertNull(map.putIfAbsent(3, 3));
+    }
+
+    @Test
+    public void replace()
+    {
+        ConcurrentMutableMap<Integer, Integer> map = this.newMapWithKeysValues(1, 1, 2, 2);
+        Assert.assertEquals(Integer.valueOf(1), map.replace(1, 1));
+        Assert.assertNull(map.replace(3, 3));
+        Verify.assertSize(2, map);
+    }
+
+    @Test
+    public void replaceWithOldValue()
+    {
+        ConcurrentMutableMap<Integer, Integer> map = this.newMapWithKeysValues(1, 1, 2, 2);
+        Assert.assertTrue(map.replace(1, 1, 1));
+        Assert.assertFalse(map.replace(2, 3, 3));
+    }
+
+    @Test
+    public void removeWithKeyValue()
+    {
+        ConcurrentMutableMap<Integer, Integer> map = this.newMapWithKeysValues(1, 1, 2, 2);
+        Assert.assertTrue(map.remove(1, 1));
+        Assert.assertFalse(map.remove(2, 3));
+    }
+
+    @Test
+    public void loadsEachKeyOnceUnderContention() throws InterruptedException
+    {
+        final ConcurrentCacheMap<Integer, Integer> cache = ConcurrentCacheMap.newCache(1000, EvictionPolicy.TINY_LFU);
+        final AtomicInteger loads = new AtomicInteger();
+        final Function<Integer, Integer> loader = new Function<Integer, Integer>()
+        {
+            public Integer valueOf(Integer each)
+            {
+                loads.incrementAndGet();
+                return each * 2;
+            }
+        };
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int i = 0; i < 8; i++)
+        {
+            executor.execute(new Runnable()
+            {
+                public void run()
+                {
+                    for (int j = 0; j < 500; j++)
+                    {
+                        Assert.assertEquals(Integer.valueOf(j * 2), cache.getIfAbsentPutWith(j, loader, j));
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        Assert.assertTrue(executor.awaitTermination(30L, TimeUnit.SECONDS));
+        Assert.assertEquals(500, loads.get());
+        Verify.assertSize(500, cache);
+        Assert.assertEquals(4000L, cache.getStatistics().getRequestCount());
+        Assert.assertEquals(500L, cache.getStatistics().getMissCount());
+    }
+
+    @Test
+    public void boundedAndSerializable()
+    {
+        ConcurrentCacheMap<Integer, String> cache = ConcurrentCacheMap.newCache(2, EvictionPolicy.FIFO);
+        cache.put(1, "1");
+        cache.put(2, "2");
+        cache.put(3, "3");
+        Verify.assertContainsAllKeyValues(cache, 2, "2", 3, "3");
+        Assert.assertEquals(1L, cache.getStatistics().getEvictionCount());
+        Verify.assertEqualsAndHashCode(cache, cache.clone());
+        Verify.assertPostSerializedEqualsAndHashCode(cache);
+        Verify.assertInstanceOf(ConcurrentCacheMap.class, SerializeTestHelper.serializeDeserialize(cache));
+        Verify.assertInstanceOf(ConcurrentCacheMap.class, cache.newEmpty());
+    }
+}
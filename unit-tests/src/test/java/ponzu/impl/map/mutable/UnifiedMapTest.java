@@ -19,6 +19,8 @@ package ponzu.impl.map.mutable;
 import java.util.Collection;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.junit.Assert;
 import org.junit.Test;
@@ -30,8 +32,10 @@ import ponzu.impl.math.IntegerSum;
 import ponzu.impl.math.Sum;
 import ponzu.impl.math.SumProcedure;
 import ponzu.impl.parallel.BatchIterable;
+import ponzu.impl.parallel.HashPartitionRunner;
 import ponzu.impl.test.Verify;
 import ponzu.impl.tuple.Tuples;
+import ponzu.impl.utility.ArrayIterate;
 
 public class UnifiedMapTest extends UnifiedMapTestCase
 {
@@ -371,6 +375,175 @@ public class UnifiedMapTest extends UnifiedMapTestCase
         return map;
     }
 
+    @Test
+    public void newMapFromHashPartitions()
+    {
+        UnifiedMap<Integer, String>[] partitions = new UnifiedMap[4];
+        for (int i = 0; i < partitions.length; i++)
+        {
+            partitions[i] = UnifiedMap.newMap();
+        }
+        UnifiedMap<Integer, String> expected = UnifiedMap.newMap();
+        for (int i = 1; i <= 10000; i++)
+        {
+            partitions[UnifiedMap.hashPartition(i, partitions.length)].put(i, String.valueOf(i));
+            expected.put(i, String.valueOf(i));
+        }
+        partitions[UnifiedMap.hashPartition(null, partitions.length)].put(null, "null");
+        expected.put(null, "null");
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try
+        {
+            UnifiedMap<Integer, String> map = UnifiedMap.newMapFromHashPartitions(partitions, executor);
+            Verify.assertMapsEqual(expected, map);
+            Verify.assertSize(10001, map);
+            map.put(10001, "10001");
+            Verify.assertSize(10002, map);
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+        Verify.assertThrows(IllegalArgumentException.class, new Runnable()
+        {
+            public void run()
+            {
+                UnifiedMap.hashPartition(1, 6);
+            }
+        });
+    }
+
+    @Test
+    public void newMapFromHashPartitionsAssertsPartitions()
+    {
+        if (!UnifiedMap.class.desiredAssertionStatus())
+        {
+            return;
+        }
+        final UnifiedMap<Integer, String>[] partitions = new UnifiedMap[2];
+        partitions[0] = UnifiedMap.newWithKeysValues(1, "1", 2, "2", 3, "3");
+        partitions[1] = UnifiedMap.newMap();
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try
+        {
+            Verify.assertThrowsWithCause(RuntimeException.class, AssertionError.class, new Runnable()
+            {
+                public void run()
+                {
+                    UnifiedMap.newMapFromHashPartitions(partitions, executor);
+                }
+            });
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void newMapFromArrays()
+    {
+        UnifiedMap<Integer, String> map = UnifiedMap.newMapFromArrays(
+                new Integer[]{1, 2, null, 1},
+                new String[]{"1", "2", "null", "one"});
+        Verify.assertMapsEqual(UnifiedMap.newWithKeysValues(1, "one", 2, "2", null, "null"), map);
+        Verify.assertThrows(IllegalArgumentException.class, new Runnable()
+        {
+            public void run()
+            {
+                UnifiedMap.newMapFromArrays(new Integer[]{1}, new String[0], null);
+            }
+        });
+    }
+
+    @Test
+    public void newMapFromArraysInParallel()
+    {
+        int size = HashPartitionRunner.MIN_PARALLEL_SIZE + 1000;
+        Integer[] keys = new Integer[size];
+        String[] values = new String[size];
+        UnifiedMap<Integer, String> expected = UnifiedMap.newMap();
+        for (int i = 0; i < size; i++)
+        {
+            // the last 500 keys repeat the first 500, so their later values must win, and 7 is replaced by null
+            keys[i] = i == 7 ? null : i % (size - 500);
+            values[i] = String.valueOf(i);
+            expected.put(keys[i], values[i]);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try
+        {
+            UnifiedMap<Integer, String> map = UnifiedMap.newMapFromArrays(keys, values, executor);
+            Verify.assertMapsEqual(expected, map);
+            Verify.assertSize(size - 499, map);
+            map.put(-1, "-1");
+            Verify.assertSize(size - 498, map);
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void putAllFromUnifiedMap()
+    {
+        // 0 and 34 share a slot, so the source has a chain
+        UnifiedMap<Integer, Integer> source = UnifiedMap.<Integer, Integer>newMap(16).withKeysValues(0, 0, 34, 34, 1, 1);
+        source.put(null, null);
+
+        UnifiedMap<Integer, Integer> copy = UnifiedMap.newMap();
+        copy.putAll(source);
+        Verify.assertMapsEqual(source, copy);
+        copy.remove(34);
+        copy.put(2, 2);
+        Verify.assertSize(4, copy);
+        Verify.assertMapsEqual(UnifiedMap.newWithKeysValues(0, 0, 34, 34, 1, 1, null, null), source);
+
+        UnifiedMap<Integer, Integer> presized = UnifiedMap.newMap(1000);
+        presized.putAll(source);
+        Verify.assertMapsEqual(source, presized);
+
+        UnifiedMap<Integer, Integer> target = UnifiedMap.newWithKeysValues(2, 2, 34, -34);
+        target.putAll(source);
+        Verify.assertMapsEqual(UnifiedMap.newWithKeysValues(0, 0, 34, 34, 1, 1, 2, 2).withKeysValues(null, null), target);
+
+        Verify.assertMapsEqual(source, source.clone());
+    }
+
+    @Test
+    public void putAllCopiesOnlyDenseTables()
+    {
+        UnifiedMap<String, String> dense = UnifiedMap.newMap();
+        for (int i = 0; i < 100; i++)
+        {
+            dense.put(String.valueOf(i), String.valueOf(i));
+        }
+        Assert.assertTrue(ArrayIterate.contains(dense.table, UnifiedMap.CHAINED_KEY));
+        UnifiedMap<String, String> denseCopy = UnifiedMap.newMap();
+        denseCopy.putAll(dense);
+        Verify.assertMapsEqual(dense, denseCopy);
+        Assert.assertEquals(dense.table.length, denseCopy.table.length);
+
+        int defaultLength = UnifiedMap.newMap().table.length;
+        UnifiedMap<String, String> sparse = UnifiedMap.newMap(100000);
+        sparse.put("1", "1");
+        UnifiedMap<String, String> sparseCopy = UnifiedMap.newMap();
+        sparseCopy.putAll(sparse);
+        Verify.assertMapsEqual(sparse, sparseCopy);
+        Assert.assertEquals(defaultLength, sparseCopy.table.length);
+
+        dense.remove("0");
+        for (int i = 3; i < 100; i++)
+        {
+            dense.remove(String.valueOf(i));
+        }
+        UnifiedMap<String, String> afterRemovals = UnifiedMap.newMap();
+        afterRemovals.putAll(dense);
+        Verify.assertMapsEqual(UnifiedMap.newWithKeysValues("1", "1", "2", "2"), afterRemovals);
+        Assert.assertEquals(defaultLength, afterRemovals.table.length);
+    }
+
     private static final class EntrySumProcedure implements Procedure<Map.Entry<Integer, Integer>>
     {
         private static final long serialVersionUID = 1L;
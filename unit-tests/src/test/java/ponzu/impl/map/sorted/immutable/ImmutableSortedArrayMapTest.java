@@ -0,0 +1,165 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.map.sorted.immutable;
+
+import java.util.Comparator;
+import java.util.Set;
+import java.util.SortedMap;
+
+import ponzu.api.map.sorted.ImmutableSortedMap;
+import ponzu.impl.block.factory.Comparators;
+import ponzu.impl.list.mutable.FastList;
+import ponzu.impl.map.mutable.UnifiedMap;
+import ponzu.impl.map.sorted.ImmutableSortedMapTestCase;
+import ponzu.impl.map.sorted.mutable.TreeSortedMap;
+import ponzu.impl.set.mutable.UnifiedSet;
+import ponzu.impl.test.Verify;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ImmutableSortedArrayMapTest extends ImmutableSortedMapTestCase
+{
+    @Override
+    protected ImmutableSortedMap<Integer, String> classUnderTest()
+    {
+        return ImmutableSortedArrayMap.newMap(TreeSortedMap.newMapWith(1, "1", 2, "2", 3, "3", 4, "4"));
+    }
+
+    @Override
+    protected ImmutableSortedMap<Integer, String> classUnderTest(Comparator<? super Integer> comparator)
+    {
+        return ImmutableSortedArrayMap.newMap(TreeSortedMap.<Integer, String>newMap(comparator).with(1, "1", 2, "2", 3, "3", 4, "4"));
+    }
+
+    @Override
+    protected int size()
+    {
+        return 4;
+    }
+
+    @Test
+    @Override
+    public void testToString()
+    {
+        Assert.assertEquals("{1=1, 2=2, 3=3, 4=4}", this.classUnderTest().toString());
+        Assert.assertEquals("{4=4, 3=3, 2=2, 1=1}", this.classUnderTest(Comparators.<Integer>reverseNaturalOrder()).toString());
+    }
+
+    @Test
+    public void getWithMissingKeys()
+    {
+        ImmutableSortedMap<Integer, String> map = this.classUnderTest();
+        Assert.assertNull(map.get(0));
+        Assert.assertNull(map.get(5));
+        Assert.assertFalse(map.containsKey(0));
+        Assert.assertTrue(map.containsValue("3"));
+        Assert.assertFalse(map.containsValue("5"));
+    }
+
+    @Test
+    public void keySetIsAViewOfTheRange()
+    {
+        SortedMap<Integer, String> subMap = this.classUnderTest(Comparators.<Integer>reverseNaturalOrder()).castToSortedMap().subMap(3, 1);
+        final Set<Integer> keys = subMap.keySet();
+        Verify.assertSize(2, keys);
+        Assert.assertEquals(FastList.newListWith(3, 2), FastList.newList(keys));
+        Assert.assertTrue(keys.contains(2));
+        Assert.assertFalse(keys.contains(1));
+        Assert.assertFalse(keys.contains(4));
+        Assert.assertEquals(UnifiedSet.newSetWith(2, 3), keys);
+        Verify.assertThrows(UnsupportedOperationException.class, new Runnable()
+        {
+            public void run()
+            {
+                keys.remove(2);
+            }
+        });
+    }
+
+    @Test
+    public void serialization()
+    {
+        ImmutableSortedMap<Integer, String> map = this.classUnderTest();
+        Verify.assertPostSerializedEqualsAndHashCode(map);
+        Verify.assertPostSerializedEqualsAndHashCode(map.castToSortedMap().subMap(2, 4));
+    }
+
+    @Test
+    public void subMap()
+    {
+        SortedMap<Integer, String> map = this.classUnderTest().castToSortedMap();
+        SortedMap<Integer, String> subMap = map.subMap(2, 4);
+        Verify.assertEqualsAndHashCode(UnifiedMap.newWithKeysValues(2, "2", 3, "3"), subMap);
+        Assert.assertEquals(Integer.valueOf(2), subMap.firstKey());
+        Assert.assertEquals(Integer.valueOf(3), subMap.lastKey());
+        Assert.assertNull(subMap.get(1));
+        Assert.assertFalse(subMap.containsKey(4));
+        Assert.assertEquals("{2=2, 3=3}", subMap.toString());
+        Verify.assertListsEqual(FastList.newListWith("2", "3"), FastList.newList(subMap.values()));
+        Verify.assertEmpty(map.subMap(5, 10));
+        Assert.assertEquals(map, map.subMap(0, 10));
+    }
+
+    @Test
+    public void headMap()
+    {
+        SortedMap<Integer, String> map = this.classUnderTest().castToSortedMap();
+        Verify.assertEqualsAndHashCode(UnifiedMap.newWithKeysValues(1, "1", 2, "2"), map.headMap(3));
+        Verify.assertEqualsAndHashCode(UnifiedMap.newWithKeysValues(1, "1"), map.headMap(3).headMap(2));
+        Verify.assertEmpty(map.headMap(1));
+    }
+
+    @Test
+    public void tailMap()
+    {
+        SortedMap<Integer, String> map = this.classUnderTest().castToSortedMap();
+        Verify.assertEqualsAndHashCode(UnifiedMap.newWithKeysValues(3, "3", 4, "4"), map.tailMap(3));
+        Verify.assertEmpty(map.tailMap(5));
+        SortedMap<Integer, String> reversed = this.classUnderTest(Comparators.<Integer>reverseNaturalOrder()).castToSortedMap();
+        Verify.assertEqualsAndHashCode(UnifiedMap.newWithKeysValues(2, "2", 1, "1"), reversed.tailMap(2));
+    }
+
+    @Test
+    public void viewsRejectBoundsOutsideOfTheirRange()
+    {
+        SortedMap<Integer, String> map = this.classUnderTest().castToSortedMap();
+        final SortedMap<Integer, String> subMap = map.subMap(2, 4);
+        Verify.assertEmpty(subMap.subMap(2, 2));
+        Verify.assertEqualsAndHashCode(UnifiedMap.newWithKeysValues(3, "3"), subMap.tailMap(3).headMap(4));
+        Verify.assertThrows(IllegalArgumentException.class, new Runnable()
+        {
+            public void run()
+            {
+                subMap.subMap(3, 10);
+            }
+        });
+        Verify.assertThrows(IllegalArgumentException.class, new Runnable()
+        {
+            public void run()
+            {
+                subMap.headMap(1);
+            }
+        });
+        Verify.assertThrows(IllegalArgumentException.class, new Runnable()
+        {
+            public void run()
+            {
+                subMap.tailMap(4);
+            }
+        });
+    }
+}
@@ -0,0 +1,229 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.map.sorted.mutable;
+
+import java.util.Comparator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import ponzu.api.block.function.Function;
+import ponzu.api.block.function.Generator;
+import ponzu.api.block.predicate.Predicate2;
+import ponzu.api.map.sorted.MutableSortedMap;
+import ponzu.api.multimap.list.MutableListMultimap;
+import ponzu.impl.block.factory.Comparators;
+import ponzu.impl.list.mutable.FastList;
+import ponzu.impl.map.mutable.UnifiedMap;
+import ponzu.impl.test.SerializeTestHelper;
+import ponzu.impl.test.Verify;
+import ponzu.impl.tuple.Tuples;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ConcurrentSkipListSortedMapTest extends MutableSortedMapTestCase
+{
+    @Override
+    public <K, V> ConcurrentSkipListSortedMap<K, V> newMap()
+    {
+        return ConcurrentSkipListSortedMap.newMap();
+    }
+
+    @Override
+    public <K, V> ConcurrentSkipListSortedMap<K, V> newMapWithKeyValue(K key, V value)
+    {
+        return ConcurrentSkipListSortedMap.newMapWith(key, value);
+    }
+
+    @Override
+    public <K, V> ConcurrentSkipListSortedMap<K, V> newMapWithKeysValues(K key1, V value1, K key2, V value2)
+    {
+        return ConcurrentSkipListSortedMap.newMapWith(key1, value1, key2, value2);
+    }
+
+    @Override
+    public <K, V> ConcurrentSkipListSortedMap<K, V> newMapWithKeysValues(
+            K key1, V value1, K key2, V value2, K key3,
+            V value3)
+    {
+        return ConcurrentSkipListSortedMap.newMapWith(key1, value1, key2, value2, key3, value3);
+    }
+
+    @Override
+    public <K, V> ConcurrentSkipListSortedMap<K, V> newMapWithKeysValues(
+            K key1, V value1, K key2, V value2, K key3,
+            V value3, K key4, V value4)
+    {
+        return ConcurrentSkipListSortedMap.newMapWith(key1, value1, key2, value2, key3, value3, key4, value4);
+    }
+
+    @Override
+    public <K, V> ConcurrentSkipListSortedMap<K, V> newMap(Comparator<? super K> comparator)
+    {
+        return ConcurrentSkipListSortedMap.newMap(comparator);
+    }
+
+    @Override
+    public <K, V> ConcurrentSkipListSortedMap<K, V> newMapWithKeyValue(Comparator<? super K> comparator, K key, V value)
+    {
+        return ConcurrentSkipListSortedMap.<K, V>newMap(comparator).with(key, value);
+    }
+
+    @Override
+    public <K, V> ConcurrentSkipListSortedMap<K, V> newMapWithKeysValues(Comparator<? super K> comparator, K key1, V value1, K key2, V value2)
+    {
+        return ConcurrentSkipListSortedMap.<K, V>newMap(comparator).with(key1, value1, key2, value2);
+    }
+
+    @Override
+    public <K, V> ConcurrentSkipListSortedMap<K, V> newMapWithKeysValues(Comparator<? super K> comparator,
+            K key1, V value1, K key2, V value2, K key3,
+            V value3)
+    {
+        return ConcurrentSkipListSortedMap.<K, V>newMap(comparator).with(key1, value1, key2, value2, key3, value3);
+    }
+
+    @Override
+    public <K, V> ConcurrentSkipListSortedMap<K, V> newMapWithKeysValues(Comparator<? super K> comparator,
+            K key1, V value1, K key2, V value2, K key3,
+            V value3, K key4, V value4)
+    {
+        return ConcurrentSkipListSortedMap.<K, V>newMap(comparator).with(key1, value1, key2, value2, key3, value3, key4, value4);
+    }
+
+    @Override
+    @Test
+    public void removeNullFromValues()
+    {
+        // ConcurrentSkipListMaps do not support null values
+    }
+
+    @Test
+    public void testConstructors()
+    {
+        UnifiedMap<Integer, String> unifiedMap = UnifiedMap.newWithKeysValues(1, "One", 2, "Two", 3, "Three");
+        ConcurrentSkipListSortedMap<Integer, String> sortedMap = ConcurrentSkipListSortedMap.newMap(unifiedMap);
+        ConcurrentSkipListSortedMap<Integer, String> revSortedMap = ConcurrentSkipListSortedMap.newMap(Comparators.<Integer>reverseNaturalOrder(),
+                unifiedMap);
+
+        Verify.assertMapsEqual(unifiedMap, sortedMap);
+        Verify.assertMapsEqual(unifiedMap, revSortedMap);
+        Verify.assertListsEqual(FastList.newListWith(1, 2, 3), sortedMap.keySet().toList());
+        Verify.assertListsEqual(FastList.newListWith(3, 2, 1), revSortedMap.keySet().toList());
+
+        ConcurrentSkipListSortedMap<Integer, String> sortedMap2 = ConcurrentSkipListSortedMap.newMap(revSortedMap);
+        Assert.assertEquals(revSortedMap.comparator(), sortedMap2.comparator());
+        Verify.assertMapsEqual(revSortedMap, sortedMap2);
+    }
+
+    @Override
+    @Test
+    public void testClone()
+    {
+        super.testClone();
+        ConcurrentSkipListSortedMap<Integer, Integer> sortedMap = ConcurrentSkipListSortedMap.<Integer, Integer>newMapWith(Tuples.pair(1, 4), Tuples.pair(2, 3), Tuples.pair(3, 2), Tuples.pair(4, 1));
+        MutableSortedMap<Integer, Integer> clone = sortedMap.clone();
+        Assert.assertNotSame(sortedMap, clone);
+        Assert.assertEquals(sortedMap, clone);
+        sortedMap.removeKey(1);
+        Assert.assertTrue(clone.containsKey(1));
+    }
+
+    @Test
+    public void rangeViewsAreLiveAndConcurrent()
+    {
+        ConcurrentSkipListSortedMap<Integer, String> map = ConcurrentSkipListSortedMap.newMapWith(1, "1", 2, "2", 3, "3", 4, "4");
+        MutableSortedMap<Integer, String> headMap = map.headMap(3);
+        MutableSortedMap<Integer, String> tailMap = map.tailMap(3);
+        Verify.assertInstanceOf(ConcurrentSkipListSortedMap.class, headMap);
+        Verify.assertInstanceOf(ConcurrentSkipListSortedMap.class, map.subMap(2, 4));
+        Verify.assertMapsEqual(UnifiedMap.newWithKeysValues(1, "1", 2, "2"), headMap);
+        map.put(0, "0");
+        map.put(5, "5");
+        Verify.assertListsEqual(FastList.newListWith(0, 1, 2), headMap.keySet().toList());
+        Verify.assertListsEqual(FastList.newListWith("3", "4", "5"), tailMap.valuesView().toList());
+        Verify.assertMapsEqual(UnifiedMap.newWithKeysValues(3, "3", 4, "4"), tailMap.headMap(5).filterNot(new Predicate2<Integer, String>()
+        {
+            public boolean accept(Integer key, String value)
+            {
+                return key > 4;
+            }
+        }));
+    }
+
+    @Test
+    public void concurrentPutsAndIteration() throws InterruptedException
+    {
+        final ConcurrentSkipListSortedMap<Integer, Integer> map = ConcurrentSkipListSortedMap.newMap();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int i = 0; i < 4; i++)
+        {
+            final int offset = i;
+            executor.execute(new Runnable()
+            {
+                public void run()
+                {
+                    for (int j = offset; j < 10000; j += 4)
+                    {
+                        map.put(j, j);
+                        map.keysView().getFirst();
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        Assert.assertTrue(executor.awaitTermination(30L, TimeUnit.SECONDS));
+        Verify.assertSize(10000, map);
+        Assert.assertEquals(Integer.valueOf(0), map.firstKey());
+        Assert.assertEquals(Integer.valueOf(9999), map.lastKey());
+        MutableListMultimap<Boolean, Integer> evenOdd = map.groupBy(new Function<Integer, Boolean>()
+        {
+            public Boolean valueOf(Integer each)
+            {
+                return each % 2 == 0;
+            }
+        });
+        Verify.assertSize(5000, evenOdd.get(Boolean.TRUE));
+    }
+
+    @Test
+    public void getIfAbsentPutIsAtomic()
+    {
+        ConcurrentSkipListSortedMap<Integer, String> map = ConcurrentSkipListSortedMap.newMapWith(1, "1");
+        Assert.assertEquals("1", map.getIfAbsentPut(1, new Generator<String>()
+        {
+            public String value()
+            {
+                return "one";
+            }
+        }));
+        Assert.assertNull(map.putIfAbsent(2, "2"));
+        Assert.assertEquals("2", map.putIfAbsent(2, "two"));
+        Assert.assertTrue(map.replace(2, "2", "two"));
+        Assert.assertFalse(map.remove(2, "2"));
+        Assert.assertEquals("two", map.get(2));
+    }
+
+    @Test
+    public void serialization()
+    {
+        ConcurrentSkipListSortedMap<Integer, String> map = ConcurrentSkipListSortedMap.newMapWith(Comparators.<Integer>reverseNaturalOrder(), 1, "1", 2, "2");
+        ConcurrentSkipListSortedMap<Integer, String> deserialized = SerializeTestHelper.serializeDeserialize(map);
+        Verify.assertMapsEqual(map, deserialized);
+        Verify.assertListsEqual(FastList.newListWith(2, 1), deserialized.keySet().toList());
+    }
+}
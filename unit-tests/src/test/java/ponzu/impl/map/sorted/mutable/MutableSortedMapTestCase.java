@@ -47,7 +47,7 @@ import ponzu.impl.list.Interval;
 import ponzu.impl.list.mutable.FastList;
 import ponzu.impl.map.MapIterableTestCase;
 import ponzu.impl.map.mutable.UnifiedMap;
-import ponzu.impl.map.sorted.immutable.ImmutableTreeMap;
+import ponzu.impl.map.sorted.immutable.ImmutableSortedArrayMap;
 import ponzu.impl.set.mutable.UnifiedSet;
 import ponzu.impl.set.sorted.mutable.TreeSortedSet;
 import ponzu.impl.test.SerializeTestHelper;
@@ -116,7 +116,7 @@ public abstract class MutableSortedMapTestCase extends MapIterableTestCase
         ImmutableSortedMap<Integer, String> result = sortedMap.toImmutable();
         Verify.assertSize(1, result.castToSortedMap());
         Assert.assertEquals("One", result.get(1));
-        Verify.assertInstanceOf(ImmutableTreeMap.class, result);
+        Verify.assertInstanceOf(ImmutableSortedArrayMap.class, result);
     }
 
     @Test
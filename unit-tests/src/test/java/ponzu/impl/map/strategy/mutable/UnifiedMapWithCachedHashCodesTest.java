@@ -0,0 +1,193 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.map.strategy.mutable;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import ponzu.api.block.HashingStrategy;
+import ponzu.api.map.MutableMap;
+import ponzu.impl.block.factory.HashingStrategies;
+import ponzu.impl.list.mutable.FastList;
+import ponzu.impl.test.SerializeTestHelper;
+import ponzu.impl.test.Verify;
+import org.apache.commons.codec.binary.Base64;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * JUnit test suite for {@link UnifiedMapWithHashingStrategy#newMapWithCachedHashCodes(HashingStrategy)}.
+ */
+public class UnifiedMapWithCachedHashCodesTest extends UnifiedMapWithHashingStrategyTest
+{
+    private static <K, V> UnifiedMapWithHashingStrategy<K, V> newCachingMap()
+    {
+        return UnifiedMapWithHashingStrategy.newMapWithCachedHashCodes(
+                HashingStrategies.nullSafeHashingStrategy(HashingStrategies.<K>defaultStrategy()));
+    }
+
+    @Override
+    public <K, V> MutableMap<K, V> newMap()
+    {
+        return UnifiedMapWithCachedHashCodesTest.newCachingMap();
+    }
+
+    @Override
+    public <K, V> MutableMap<K, V> newMapWithKeyValue(K key, V value)
+    {
+        return UnifiedMapWithCachedHashCodesTest.<K, V>newCachingMap().withKeysValues(key, value);
+    }
+
+    @Override
+    public <K, V> MutableMap<K, V> newMapWithKeysValues(K key1, V value1, K key2, V value2)
+    {
+        return UnifiedMapWithCachedHashCodesTest.<K, V>newCachingMap().withKeysValues(key1, value1, key2, value2);
+    }
+
+    @Override
+    public <K, V> MutableMap<K, V> newMapWithKeysValues(K key1, V value1, K key2, V value2, K key3, V value3)
+    {
+        return UnifiedMapWithCachedHashCodesTest.<K, V>newCachingMap().withKeysValues(key1, value1, key2, value2, key3, value3);
+    }
+
+    @Override
+    public <K, V> MutableMap<K, V> newMapWithKeysValues(
+            K key1, V value1, K key2, V value2, K key3, V value3, K key4, V value4)
+    {
+        return UnifiedMapWithCachedHashCodesTest.<K, V>newCachingMap().withKeysValues(key1, value1, key2, value2, key3, value3, key4, value4);
+    }
+
+    @Test
+    public void hashCodesAreNotRecomputedWhenGrowing()
+    {
+        CountingHashingStrategy strategy = new CountingHashingStrategy(Integer.MAX_VALUE);
+        UnifiedMapWithHashingStrategy<Integer, String> map = UnifiedMapWithHashingStrategy.newMapWithCachedHashCodes(strategy);
+        Assert.assertTrue(map.isCachingHashCodes());
+        for (int i = 0; i < 1000; i++)
+        {
+            map.put(i, String.valueOf(i));
+        }
+        Assert.assertEquals(1000, strategy.hashCount);
+        Assert.assertEquals(0, strategy.equalsCount);
+        Assert.assertEquals("999", map.get(999));
+        Assert.assertFalse(UnifiedMapWithHashingStrategy.newMap(strategy).isCachingHashCodes());
+    }
+
+    @Test
+    public void collisions()
+    {
+        Random random = new Random(42L);
+        UnifiedMapWithHashingStrategy<Integer, Integer> map =
+                UnifiedMapWithHashingStrategy.newMapWithCachedHashCodes(new CountingHashingStrategy(64));
+        Map<Integer, Integer> expected = new HashMap<Integer, Integer>();
+        for (int i = 0; i < 20000; i++)
+        {
+            Integer key = random.nextInt(2000);
+            if (random.nextInt(3) == 0)
+            {
+                Assert.assertEquals(expected.remove(key), map.remove(key));
+            }
+            else
+            {
+                Assert.assertEquals(expected.put(key, i), map.put(key, i));
+            }
+            Assert.assertEquals(expected.size(), map.size());
+        }
+        Verify.assertMapsEqual(expected, map);
+        for (int i = 0; i < 2000; i++)
+        {
+            Assert.assertEquals(expected.containsKey(i), map.containsKey(i));
+            Assert.assertEquals(expected.get(i), map.get(i));
+        }
+        UnifiedMapWithHashingStrategy<Integer, Integer> clone = map.clone();
+        Assert.assertTrue(clone.isCachingHashCodes());
+        Verify.assertMapsEqual(expected, clone);
+        Assert.assertTrue(map.keySet().retainAll(FastList.newListWith(1, 2, 3, 4, 5)));
+        Assert.assertTrue(map.isCachingHashCodes());
+        for (int i = 0; i < 100; i++)
+        {
+            Assert.assertEquals(i >= 1 && i <= 5 && expected.containsKey(i), map.containsKey(i));
+        }
+    }
+
+    @Test
+    public void serialization()
+    {
+        UnifiedMapWithHashingStrategy<Integer, String> map =
+                UnifiedMapWithHashingStrategy.newMapWithCachedHashCodes(new CountingHashingStrategy(8));
+        for (int i = 0; i < 100; i++)
+        {
+            map.put(i, String.valueOf(i));
+        }
+        UnifiedMapWithHashingStrategy<Integer, String> deserialized = SerializeTestHelper.serializeDeserialize(map);
+        Assert.assertTrue(deserialized.isCachingHashCodes());
+        Verify.assertMapsEqual(map, deserialized);
+        deserialized.put(100, "100");
+        Assert.assertEquals("100", deserialized.get(100));
+
+        UnifiedMapWithHashingStrategy<Integer, String> uncached =
+                UnifiedMapWithHashingStrategy.<Integer, String>newMap(new CountingHashingStrategy(8)).withKeysValues(1, "1");
+        Assert.assertFalse(SerializeTestHelper.serializeDeserialize(uncached).isCachingHashCodes());
+    }
+
+    @Test
+    public void serializedFormWithoutCacheIsUnchanged()
+    {
+        // Written by UnifiedMapWithHashingStrategy before hash code caching was added
+        String baselineForm = "rO0ABXNyAD1wb256dS5pbXBsLm1hcC5zdHJhdGVneS5tdXRhYmxlLlVuaWZpZWRNYXBXaXRoSGFz\n"
+                + "aGluZ1N0cmF0ZWd5AAAAAAAAAAEMAAB4cHNyADpwb256dS5pbXBsLmJsb2NrLmZhY3RvcnkuSGFz\n"
+                + "aGluZ1N0cmF0ZWdpZXMkRGVmYXVsdFN0cmF0ZWd5AAAAAAAAAAECAAB4cHcIAAAAAj9AAABzcgAR\n"
+                + "amF2YS5sYW5nLkludGVnZXIS4qCk94GHOAIAAUkABXZhbHVleHIAEGphdmEubGFuZy5OdW1iZXKG\n"
+                + "rJUdC5TgiwIAAHhwAAAAAXQAA29uZXNxAH4ABAAAAAJ0AAN0d294";
+        UnifiedMapWithHashingStrategy<Integer, String> map = UnifiedMapWithHashingStrategy.newWithKeysValues(
+                HashingStrategies.<Integer>defaultStrategy(),
+                1, "one",
+                2, "two");
+        Verify.assertSerializedForm(1L, baselineForm, map);
+        UnifiedMapWithHashingStrategy<Integer, String> deserialized =
+                (UnifiedMapWithHashingStrategy<Integer, String>) SerializeTestHelper.deserialize(Base64.decodeBase64(baselineForm));
+        Verify.assertMapsEqual(map, deserialized);
+        Assert.assertFalse(deserialized.isCachingHashCodes());
+    }
+
+    private static final class CountingHashingStrategy implements HashingStrategy<Integer>
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final int modulus;
+        private int hashCount;
+        private int equalsCount;
+
+        private CountingHashingStrategy(int modulus)
+        {
+            this.modulus = modulus;
+        }
+
+        public int computeHashCode(Integer object)
+        {
+            this.hashCount++;
+            return object % this.modulus;
+        }
+
+        public boolean equals(Integer object1, Integer object2)
+        {
+            this.equalsCount++;
+            return object1.equals(object2);
+        }
+    }
+}
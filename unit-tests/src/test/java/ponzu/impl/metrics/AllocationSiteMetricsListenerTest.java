@@ -0,0 +1,157 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.metrics;
+
+import java.util.Collection;
+import java.util.Map;
+
+import ponzu.impl.list.Interval;
+import ponzu.impl.list.mutable.FastList;
+import ponzu.impl.map.mutable.UnifiedMap;
+import ponzu.impl.set.mutable.UnifiedSet;
+import ponzu.impl.test.Verify;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AllocationSiteMetricsListenerTest
+{
+    private final AllocationSiteMetricsListener listener = new AllocationSiteMetricsListener(
+            "ponzu.impl.list.", "ponzu.impl.map.", "ponzu.impl.set.", "ponzu.impl.utility.", "java.", "sun.", "jdk.");
+
+    @Before
+    public void setUp()
+    {
+        CollectionMetrics.setListener(this.listener);
+    }
+
+    @After
+    public void tearDown()
+    {
+        CollectionMetrics.setListener(null);
+    }
+
+    @Test
+    public void disabled()
+    {
+        CollectionMetrics.setListener(null);
+        Assert.assertFalse(CollectionMetrics.isEnabled());
+        fill(FastList.<Integer>newList(), 100);
+        fill(UnifiedSet.<Integer>newSet(), 100);
+        Verify.assertEmpty(this.listener.getReport(), this.listener.getSites());
+    }
+
+    @Test
+    public void fastListResizes()
+    {
+        Assert.assertSame(this.listener, CollectionMetrics.getListener());
+        FastList<Integer> list = fill(FastList.<Integer>newList(), 100);
+        AllocationSiteMetricsListener.SiteStatistics fill = this.getSite(FastList.class, "fill");
+        Assert.assertTrue(fill.getResizeCount() > 1);
+        Assert.assertTrue(fill.getMaxCapacity() >= 100);
+        Assert.assertEquals(0, fill.getBulkCopyCount());
+
+        list.addAll(Interval.oneTo(50));
+        AllocationSiteMetricsListener.SiteStatistics addAll = this.getSite(FastList.class, "fastListResizes");
+        Assert.assertEquals(1, addAll.getBulkCopyCount());
+        Assert.assertEquals(50, addAll.getCopiedElementCount());
+        Assert.assertTrue(addAll.getMaxCapacity() >= 150);
+
+        this.listener.clear();
+        fill(FastList.<Integer>newList(100), 100);
+        Verify.assertEmpty(this.listener.getReport(), this.listener.getSites());
+    }
+
+    @Test
+    public void unifiedSetRehashesAndChains()
+    {
+        fill(UnifiedSet.<Integer>newSet(), 100);
+        AllocationSiteMetricsListener.SiteStatistics statistics = this.getSite(UnifiedSet.class, "fill");
+        Assert.assertTrue(statistics.getRehashCount() > 0);
+        Assert.assertTrue(statistics.getMaxCapacity() >= 128);
+
+        this.listener.clear();
+        fill(UnifiedSet.<Integer>newSet(100), 100);
+        Verify.assertEmpty(this.listener.getReport(), this.listener.getSites());
+
+        UnifiedSet.<Integer>newSet(16).with(0, 34);
+        Assert.assertEquals(1, this.getSite(UnifiedSet.class, "unifiedSetRehashesAndChains").getChainCount());
+    }
+
+    @Test
+    public void unifiedMapRehashesChainsAndCopies()
+    {
+        UnifiedMap.<Integer, Integer>newMap(16).withKeysValues(0, 0, 34, 34);
+        Assert.assertEquals(1, this.getSite(UnifiedMap.class, "unifiedMapRehashesChainsAndCopies").getChainCount());
+
+        this.listener.clear();
+        UnifiedMap<Integer, Integer> source = UnifiedMap.newMap(100);
+        for (int i = 0; i < 100; i++)
+        {
+            source.put(i, i);
+        }
+        Verify.assertEmpty(this.listener.getReport(), this.listener.getSites());
+        UnifiedMap.<Integer, Integer>newMap().putAll(source);
+        AllocationSiteMetricsListener.SiteStatistics statistics = this.getSite(UnifiedMap.class, "unifiedMapRehashesChainsAndCopies");
+        Assert.assertEquals(1, statistics.getBulkCopyCount());
+        Assert.assertEquals(100, statistics.getCopiedElementCount());
+        Assert.assertEquals(0, statistics.getRehashCount());
+
+        this.listener.clear();
+        UnifiedMap.newWithKeysValues(-1, -1).putAll(source);
+        Assert.assertEquals(1, this.getSite(UnifiedMap.class, "unifiedMapRehashesChainsAndCopies").getRehashCount());
+    }
+
+    @Test
+    public void report()
+    {
+        fill(FastList.<Integer>newList(), 10);
+        fill(UnifiedSet.<Integer>newSet(), 1000);
+        String report = this.listener.getReport();
+        Verify.assertContains("Collection growth by site:", report);
+        Verify.assertContains(FastList.class.getName() + " at " + AllocationSiteMetricsListenerTest.class.getName() + ".fill", report);
+        Verify.assertContains(UnifiedSet.class.getName() + " at " + AllocationSiteMetricsListenerTest.class.getName() + ".fill", report);
+        Verify.assertContains("resizes=", report);
+        Assert.assertTrue(report.indexOf(UnifiedSet.class.getName()) < report.indexOf(FastList.class.getName()));
+    }
+
+    private static <C extends Collection<Integer>> C fill(C collection, int count)
+    {
+        for (int i = 0; i < count; i++)
+        {
+            collection.add(i);
+        }
+        return collection;
+    }
+
+    private AllocationSiteMetricsListener.SiteStatistics getSite(Class<?> collectionClass, String methodName)
+    {
+        String prefix = collectionClass.getName() + " at " + AllocationSiteMetricsListenerTest.class.getName() + '.' + methodName + '(';
+        AllocationSiteMetricsListener.SiteStatistics result = null;
+        for (Map.Entry<String, AllocationSiteMetricsListener.SiteStatistics> entry : this.listener.getSites().entrySet())
+        {
+            if (entry.getKey().startsWith(prefix))
+            {
+                Assert.assertNull("More than one site starts with " + prefix, result);
+                result = entry.getValue();
+            }
+        }
+        Assert.assertNotNull("No site starts with " + prefix + " in " + this.listener.getReport(), result);
+        return result;
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2012 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.multimap.bag;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import ponzu.api.block.function.Function;
+import ponzu.api.block.procedure.Procedure;
+import ponzu.api.collection.MutableCollection;
+import ponzu.api.multimap.Multimap;
+import ponzu.api.multimap.MutableMultimap;
+import ponzu.api.tuple.Pair;
+import ponzu.impl.bag.mutable.HashBag;
+import ponzu.impl.block.factory.Predicates;
+import ponzu.impl.list.Interval;
+import ponzu.impl.multimap.AbstractMutableMultimapTestCase;
+import ponzu.impl.test.Verify;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test of {@link ConcurrentHashBagMultimap}.
+ */
+public class ConcurrentHashBagMultimapTest extends AbstractMutableMultimapTestCase
+{
+    @Override
+    public <K, V> ConcurrentHashBagMultimap<K, V> newMultimap()
+    {
+        return ConcurrentHashBagMultimap.newMultimap();
+    }
+
+    @Override
+    public <K, V> ConcurrentHashBagMultimap<K, V> newMultimapWithKeyValue(K key, V value)
+    {
+        ConcurrentHashBagMultimap<K, V> mutableMultimap = this.newMultimap();
+        mutableMultimap.put(key, value);
+        return mutableMultimap;
+    }
+
+    @Override
+    public <K, V> ConcurrentHashBagMultimap<K, V> newMultimapWithKeysValues(K key1, V value1, K key2, V value2)
+    {
+        ConcurrentHashBagMultimap<K, V> mutableMultimap = this.newMultimap();
+        mutableMultimap.put(key1, value1);
+        mutableMultimap.put(key2, value2);
+        return mutableMultimap;
+    }
+
+    @Override
+    protected <V> MutableCollection<V> createCollection(V... args)
+    {
+        return HashBag.newBagWith(args);
+    }
+
+    @Override
+    public <K, V> Multimap<K, V> newMultimap(Pair<K, V>... pairs)
+    {
+        return ConcurrentHashBagMultimap.newMultimap(pairs);
+    }
+
+    @Override
+    public <K, V> ConcurrentHashBagMultimap<K, V> newMultimapWithKeysValues(
+            K key1, V value1,
+            K key2, V value2,
+            K key3, V value3)
+    {
+        ConcurrentHashBagMultimap<K, V> mutableMultimap = this.newMultimap();
+        mutableMultimap.put(key1, value1);
+        mutableMultimap.put(key2, value2);
+        mutableMultimap.put(key3, value3);
+        return mutableMultimap;
+    }
+
+    @Override
+    public <K, V> ConcurrentHashBagMultimap<K, V> newMultimapWithKeysValues(
+            K key1, V value1,
+            K key2, V value2,
+            K key3, V value3,
+            K key4, V value4)
+    {
+        ConcurrentHashBagMultimap<K, V> mutableMultimap = this.newMultimap();
+        mutableMultimap.put(key1, value1);
+        mutableMultimap.put(key2, value2);
+        mutableMultimap.put(key3, value3);
+        mutableMultimap.put(key4, value4);
+        return mutableMultimap;
+    }
+
+    @Test
+    @Override
+    public void testClear()
+    {
+        MutableMultimap<Integer, Object> multimap =
+                this.<Integer, Object>newMultimapWithKeysValues(1, "One", 2, "Two", 3, "Three", 4, "Four");
+        multimap.clear();
+        Verify.assertEmpty(multimap);
+    }
+
+    @Test
+    @Override
+    public void testToString()
+    {
+        MutableMultimap<String, Integer> multimap =
+                this.newMultimapWithKeysValues("One", 1, "One", 2);
+        String toString = multimap.toString();
+        Assert.assertTrue("{One=[1, 2]}".equals(toString) || "{One=[2, 1]}".equals(toString));
+    }
+
+    @Test
+    public void concurrentPutsAndRemoves()
+    {
+        final ConcurrentHashBagMultimap<Integer, Integer> multimap = ConcurrentHashBagMultimap.newMultimap();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        Interval.oneTo(20000).forEach(new Procedure<Integer>()
+        {
+            public void value(Integer each)
+            {
+                multimap.put(each % 4, each % 3);
+                multimap.put(each % 4, -1);
+                multimap.remove(each % 4, -1);
+            }
+        }, executor);
+        executor.shutdown();
+        Verify.assertSize(20000, multimap);
+        Assert.assertFalse(multimap.containsValue(-1));
+        Assert.assertEquals(Interval.oneTo(20000).count(Predicates.attributeEqual(new Function<Integer, Integer>()
+        {
+            public Integer valueOf(Integer each)
+            {
+                return each % 12;
+            }
+        }, 1)), multimap.get(1).occurrencesOf(1));
+    }
+
+    @Test
+    public void serialization()
+    {
+        ConcurrentHashBagMultimap<String, Integer> multimap = this.newMultimapWithKeysValues("One", 1, "One", 1, "Two", 2);
+        Verify.assertPostSerializedEqualsAndHashCode(multimap);
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.multimap.list;
+
+import ponzu.api.collection.MutableCollection;
+import ponzu.api.multimap.Multimap;
+import ponzu.api.tuple.Pair;
+import ponzu.impl.list.mutable.FastList;
+import ponzu.impl.multimap.AbstractMutableMultimapTestCase;
+import ponzu.impl.test.Verify;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test of {@link CompactFastListMultimap}.
+ */
+public class CompactFastListMultimapTest extends AbstractMutableMultimapTestCase
+{
+    @Override
+    public <K, V> CompactFastListMultimap<K, V> newMultimap()
+    {
+        return CompactFastListMultimap.newMultimap();
+    }
+
+    @Override
+    public <K, V> CompactFastListMultimap<K, V> newMultimapWithKeyValue(K key, V value)
+    {
+        CompactFastListMultimap<K, V> mutableMultimap = this.newMultimap();
+        mutableMultimap.put(key, value);
+        return mutableMultimap;
+    }
+
+    @Override
+    public <K, V> CompactFastListMultimap<K, V> newMultimapWithKeysValues(K key1, V value1, K key2, V value2)
+    {
+        CompactFastListMultimap<K, V> mutableMultimap = this.newMultimap();
+        mutableMultimap.put(key1, value1);
+        mutableMultimap.put(key2, value2);
+        return mutableMultimap;
+    }
+
+    @Override
+    protected <V> MutableCollection<V> createCollection(V... args)
+    {
+        return FastList.newListWith(args);
+    }
+
+    @Override
+    public <K, V> Multimap<K, V> newMultimap(Pair<K, V>... pairs)
+    {
+        return CompactFastListMultimap.newMultimap(pairs);
+    }
+
+    @Override
+    public <K, V> CompactFastListMultimap<K, V> newMultimapWithKeysValues(
+            K key1, V value1,
+            K key2, V value2,
+            K key3, V value3)
+    {
+        CompactFastListMultimap<K, V> mutableMultimap = this.newMultimap();
+        mutableMultimap.put(key1, value1);
+        mutableMultimap.put(key2, value2);
+        mutableMultimap.put(key3, value3);
+        return mutableMultimap;
+    }
+
+    @Override
+    public <K, V> CompactFastListMultimap<K, V> newMultimapWithKeysValues(
+            K key1, V value1,
+            K key2, V value2,
+            K key3, V value3,
+            K key4, V value4)
+    {
+        CompactFastListMultimap<K, V> mutableMultimap = this.newMultimap();
+        mutableMultimap.put(key1, value1);
+        mutableMultimap.put(key2, value2);
+        mutableMultimap.put(key3, value3);
+        mutableMultimap.put(key4, value4);
+        return mutableMultimap;
+    }
+
+    @Test
+    public void promoteAndDemote()
+    {
+        CompactFastListMultimap<String, Integer> multimap = CompactFastListMultimap.newMultimap();
+        multimap.put("One", 1);
+        multimap.put("Two", 2);
+        multimap.put("Two", 2);
+        Assert.assertEquals(1, multimap.sizeSingleValued());
+        Assert.assertEquals(FastList.newListWith(2, 2), multimap.get("Two"));
+        Assert.assertTrue(multimap.remove("Two", 2));
+        Assert.assertEquals(2, multimap.sizeSingleValued());
+        Assert.assertEquals(FastList.newListWith(2), multimap.get("Two"));
+        Verify.assertSize(2, multimap);
+        Assert.assertFalse(multimap.remove("One", 2));
+        Assert.assertTrue(multimap.remove("One", 1));
+        Assert.assertFalse(multimap.containsKey("One"));
+    }
+
+    @Test
+    public void nullValues()
+    {
+        CompactFastListMultimap<String, Integer> multimap = CompactFastListMultimap.newMultimap();
+        multimap.put("One", null);
+        Assert.assertTrue(multimap.containsKeyAndValue("One", null));
+        Assert.assertEquals(FastList.newListWith((Integer) null), multimap.get("One"));
+        multimap.put("One", null);
+        Assert.assertEquals(FastList.newListWith(null, null), multimap.get("One"));
+        Assert.assertTrue(multimap.remove("One", null));
+        Assert.assertTrue(multimap.remove("One", null));
+        Verify.assertEmpty(multimap);
+    }
+
+    @Test
+    public void serialization()
+    {
+        CompactFastListMultimap<String, Integer> multimap = CompactFastListMultimap.newMultimap();
+        multimap.putAll("One", FastList.newListWith(1, 2, 3));
+        multimap.put("Two", 2);
+        Verify.assertPostSerializedEqualsAndHashCode(multimap);
+    }
+
+    @Test
+    public void memoryUsedInWords()
+    {
+        CompactFastListMultimap<String, Integer> multimap = CompactFastListMultimap.newMultimap();
+        Assert.assertEquals(0.0, multimap.getMemoryUsedInWordsPerEntry(), 0.0);
+        multimap.put("One", 1);
+        multimap.put("Two", 2);
+        Assert.assertEquals(34, multimap.getMultimapMemoryUsedInWords());
+        Assert.assertEquals(17.0, multimap.getMemoryUsedInWordsPerEntry(), 0.0);
+        multimap.put("Two", 2);
+        Assert.assertEquals(34 + 8, multimap.getMultimapMemoryUsedInWords());
+        Assert.assertEquals(14.0, multimap.getMemoryUsedInWordsPerEntry(), 0.0);
+        multimap.remove("Two", 2);
+        Assert.assertEquals(34, multimap.getMultimapMemoryUsedInWords());
+    }
+}
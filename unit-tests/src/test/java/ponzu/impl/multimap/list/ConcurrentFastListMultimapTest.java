@@ -0,0 +1,196 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.multimap.list;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import ponzu.api.block.procedure.Procedure;
+import ponzu.api.block.procedure.Procedure2;
+import ponzu.api.collection.MutableCollection;
+import ponzu.api.list.MutableList;
+import ponzu.api.multimap.Multimap;
+import ponzu.api.multimap.MutableMultimap;
+import ponzu.api.tuple.Pair;
+import ponzu.impl.list.Interval;
+import ponzu.impl.list.mutable.FastList;
+import ponzu.impl.multimap.AbstractMutableMultimapTestCase;
+import ponzu.impl.test.Verify;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test of {@link ConcurrentFastListMultimap}.
+ */
+public class ConcurrentFastListMultimapTest extends AbstractMutableMultimapTestCase
+{
+    @Override
+    public <K, V> ConcurrentFastListMultimap<K, V> newMultimap()
+    {
+        return ConcurrentFastListMultimap.newMultimap();
+    }
+
+    @Override
+    public <K, V> ConcurrentFastListMultimap<K, V> newMultimapWithKeyValue(K key, V value)
+    {
+        ConcurrentFastListMultimap<K, V> mutableMultimap = this.newMultimap();
+        mutableMultimap.put(key, value);
+        return mutableMultimap;
+    }
+
+    @Override
+    public <K, V> ConcurrentFastListMultimap<K, V> newMultimapWithKeysValues(K key1, V value1, K key2, V value2)
+    {
+        ConcurrentFastListMultimap<K, V> mutableMultimap = this.newMultimap();
+        mutableMultimap.put(key1, value1);
+        mutableMultimap.put(key2, value2);
+        return mutableMultimap;
+    }
+
+    @Override
+    protected <V> MutableCollection<V> createCollection(V... args)
+    {
+        return FastList.newListWith(args);
+    }
+
+    @Override
+    public <K, V> Multimap<K, V> newMultimap(Pair<K, V>... pairs)
+    {
+        return ConcurrentFastListMultimap.newMultimap(pairs);
+    }
+
+    @Override
+    public <K, V> ConcurrentFastListMultimap<K, V> newMultimapWithKeysValues(
+            K key1, V value1,
+            K key2, V value2,
+            K key3, V value3)
+    {
+        ConcurrentFastListMultimap<K, V> mutableMultimap = this.newMultimap();
+        mutableMultimap.put(key1, value1);
+        mutableMultimap.put(key2, value2);
+        mutableMultimap.put(key3, value3);
+        return mutableMultimap;
+    }
+
+    @Override
+    public <K, V> ConcurrentFastListMultimap<K, V> newMultimapWithKeysValues(
+            K key1, V value1,
+            K key2, V value2,
+            K key3, V value3,
+            K key4, V value4)
+    {
+        ConcurrentFastListMultimap<K, V> mutableMultimap = this.newMultimap();
+        mutableMultimap.put(key1, value1);
+        mutableMultimap.put(key2, value2);
+        mutableMultimap.put(key3, value3);
+        mutableMultimap.put(key4, value4);
+        return mutableMultimap;
+    }
+
+    @Test
+    @Override
+    public void testClear()
+    {
+        MutableMultimap<Integer, Object> multimap =
+                this.<Integer, Object>newMultimapWithKeysValues(1, "One", 2, "Two", 3, "Three", 4, "Four");
+        multimap.clear();
+        Verify.assertEmpty(multimap);
+    }
+
+    @Test
+    @Override
+    public void testToString()
+    {
+        MutableMultimap<String, Integer> multimap =
+                this.newMultimapWithKeysValues("One", 1, "One", 2);
+        Assert.assertEquals("{One=[1, 2]}", multimap.toString());
+    }
+
+    @Test
+    public void getReturnsSnapshot()
+    {
+        ConcurrentFastListMultimap<String, Integer> multimap = this.newMultimapWithKeysValues("One", 1, "One", 2);
+        MutableList<Integer> snapshot = multimap.get("One");
+        multimap.put("One", 3);
+        Assert.assertEquals(FastList.newListWith(1, 2), snapshot);
+        Assert.assertEquals(FastList.newListWith(1, 2, 3), multimap.get("One"));
+        Verify.assertThrows(UnsupportedOperationException.class, new Runnable()
+        {
+            public void run()
+            {
+                ConcurrentFastListMultimap.<String, Integer>newMultimap().get("One").add(1);
+            }
+        });
+    }
+
+    @Test
+    public void removePreservesOrder()
+    {
+        ConcurrentFastListMultimap<String, Integer> multimap = ConcurrentFastListMultimap.newMultimap();
+        multimap.putAll("One", FastList.newListWith(1, 2, 3, 2, 4));
+        Assert.assertTrue(multimap.remove("One", 2));
+        Assert.assertEquals(FastList.newListWith(1, 3, 2, 4), multimap.get("One"));
+        Verify.assertSize(4, multimap);
+        Assert.assertTrue(multimap.remove("One", 4));
+        Assert.assertEquals(FastList.newListWith(1, 3, 2), multimap.get("One"));
+    }
+
+    @Test
+    public void concurrentPuts()
+    {
+        final ConcurrentFastListMultimap<Integer, Integer> multimap = ConcurrentFastListMultimap.newMultimap();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        Interval.oneTo(40000).forEach(new Procedure<Integer>()
+        {
+            public void value(Integer each)
+            {
+                multimap.put(each % 10, each);
+                if (each % 1000 == 0)
+                {
+                    multimap.forEachKeyValue(new Procedure2<Integer, Integer>()
+                    {
+                        public void value(Integer key, Integer value)
+                        {
+                            Assert.assertEquals(key.intValue(), value.intValue() % 10);
+                        }
+                    });
+                }
+            }
+        }, executor);
+        Verify.assertSize(40000, multimap);
+        Assert.assertEquals(10, multimap.sizeDistinct());
+        Verify.assertSize(4000, multimap.get(3));
+
+        final AtomicInteger count = new AtomicInteger();
+        multimap.forEachKeyValue(new Procedure2<Integer, Integer>()
+        {
+            public void value(Integer key, Integer value)
+            {
+                count.incrementAndGet();
+            }
+        }, executor);
+        Assert.assertEquals(40000, count.get());
+        executor.shutdown();
+    }
+
+    @Test
+    public void serialization()
+    {
+        ConcurrentFastListMultimap<String, Integer> multimap = this.newMultimapWithKeysValues("One", 1, "One", 2, "Two", 2);
+        Verify.assertPostSerializedEqualsAndHashCode(multimap);
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.multimap.set;
+
+import ponzu.api.collection.MutableCollection;
+import ponzu.api.multimap.Multimap;
+import ponzu.api.tuple.Pair;
+import ponzu.impl.multimap.AbstractMutableMultimapTestCase;
+import ponzu.impl.set.mutable.UnifiedSet;
+import ponzu.impl.test.Verify;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test of {@link CompactUnifiedSetMultimap}.
+ */
+public class CompactUnifiedSetMultimapTest extends AbstractMutableMultimapTestCase
+{
+    @Override
+    public <K, V> CompactUnifiedSetMultimap<K, V> newMultimap()
+    {
+        return CompactUnifiedSetMultimap.newMultimap();
+    }
+
+    @Override
+    public <K, V> CompactUnifiedSetMultimap<K, V> newMultimapWithKeyValue(K key, V value)
+    {
+        CompactUnifiedSetMultimap<K, V> mutableMultimap = this.newMultimap();
+        mutableMultimap.put(key, value);
+        return mutableMultimap;
+    }
+
+    @Override
+    public <K, V> CompactUnifiedSetMultimap<K, V> newMultimapWithKeysValues(K key1, V value1, K key2, V value2)
+    {
+        CompactUnifiedSetMultimap<K, V> mutableMultimap = this.newMultimap();
+        mutableMultimap.put(key1, value1);
+        mutableMultimap.put(key2, value2);
+        return mutableMultimap;
+    }
+
+    @Override
+    protected <V> MutableCollection<V> createCollection(V... args)
+    {
+        return UnifiedSet.newSetWith(args);
+    }
+
+    @Override
+    public <K, V> Multimap<K, V> newMultimap(Pair<K, V>... pairs)
+    {
+        return CompactUnifiedSetMultimap.newMultimap(pairs);
+    }
+
+    @Override
+    public <K, V> CompactUnifiedSetMultimap<K, V> newMultimapWithKeysValues(
+            K key1, V value1,
+            K key2, V value2,
+            K key3, V value3)
+    {
+        CompactUnifiedSetMultimap<K, V> mutableMultimap = this.newMultimap();
+        mutableMultimap.put(key1, value1);
+        mutableMultimap.put(key2, value2);
+        mutableMultimap.put(key3, value3);
+        return mutableMultimap;
+    }
+
+    @Override
+    public <K, V> CompactUnifiedSetMultimap<K, V> newMultimapWithKeysValues(
+            K key1, V value1,
+            K key2, V value2,
+            K key3, V value3,
+            K key4, V value4)
+    {
+        CompactUnifiedSetMultimap<K, V> mutableMultimap = this.newMultimap();
+        mutableMultimap.put(key1, value1);
+        mutableMultimap.put(key2, value2);
+        mutableMultimap.put(key3, value3);
+        mutableMultimap.put(key4, value4);
+        return mutableMultimap;
+    }
+
+    @Test
+    public void putDuplicateToSingleValuedKey()
+    {
+        CompactUnifiedSetMultimap<String, Integer> multimap = CompactUnifiedSetMultimap.newMultimap();
+        Assert.assertTrue(multimap.put("One", 1));
+        Assert.assertFalse(multimap.put("One", 1));
+        Assert.assertEquals(1, multimap.sizeSingleValued());
+        Assert.assertTrue(multimap.put("One", 2));
+        Assert.assertFalse(multimap.put("One", 2));
+        Assert.assertEquals(0, multimap.sizeSingleValued());
+        Assert.assertEquals(UnifiedSet.newSetWith(1, 2), multimap.get("One"));
+        Verify.assertSize(2, multimap);
+    }
+
+    @Test
+    public void memoryUsedInWords()
+    {
+        CompactUnifiedSetMultimap<String, Integer> multimap = CompactUnifiedSetMultimap.newMultimap();
+        multimap.put("One", 1);
+        Assert.assertEquals(34, multimap.getMultimapMemoryUsedInWords());
+        multimap.put("One", 2);
+        int expected = 34 + 6 + UnifiedSet.<Integer>newSet(2).with(1, 2).getSetMemoryUsedInWords();
+        Assert.assertEquals(expected, multimap.getMultimapMemoryUsedInWords());
+        Assert.assertEquals(expected / 2.0, multimap.getMemoryUsedInWordsPerEntry(), 0.0);
+    }
+}
@@ -0,0 +1,338 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.parallel;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Proxy;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Collection;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import ponzu.api.block.procedure.Procedure;
+import ponzu.api.list.MutableList;
+import ponzu.impl.block.factory.Predicates;
+import ponzu.impl.list.Interval;
+import ponzu.impl.list.mutable.FastList;
+import ponzu.impl.set.mutable.UnifiedSet;
+import ponzu.impl.test.Verify;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ParallelExecutionStatisticsTest
+{
+    private static final Executor CALLER_RUNS = new Executor()
+    {
+        public void execute(Runnable command)
+        {
+            command.run();
+        }
+    };
+
+    private final MutableList<ParallelExecutionStatistics> recorded = FastList.<ParallelExecutionStatistics>newList().asSynchronized();
+    private ExecutorService executor;
+
+    @Before
+    public void setUp()
+    {
+        this.executor = Executors.newFixedThreadPool(2);
+        ParallelIterate.setExecutionListener(new ParallelExecutionListener()
+        {
+            public void executed(ParallelExecutionStatistics statistics)
+            {
+                ParallelExecutionStatisticsTest.this.recorded.add(statistics);
+            }
+        });
+    }
+
+    @After
+    public void tearDown()
+    {
+        ParallelIterate.setExecutionListener(null);
+        ParallelIterate.setAdaptiveBatchSizing(false);
+        this.executor.shutdown();
+    }
+
+    @Test
+    public void forkedExecution()
+    {
+        final AtomicInteger count = new AtomicInteger();
+        ParallelIterate.forEach(Interval.oneTo(20000).toList(), new Procedure<Integer>()
+        {
+            public void value(Integer each)
+            {
+                count.incrementAndGet();
+            }
+        }, 1000, this.executor);
+        Assert.assertEquals(20000, count.get());
+
+        Verify.assertSize(1, this.recorded);
+        ParallelExecutionStatistics statistics = this.recorded.getFirst();
+        Assert.assertTrue(statistics.isForked());
+        Assert.assertEquals(20000, statistics.getElementCount());
+        Assert.assertEquals(1000, statistics.getMinForkSize());
+        Assert.assertEquals(20, statistics.getTaskCount());
+        Assert.assertEquals(20, statistics.getBatchSizes().length);
+        Assert.assertEquals(20, statistics.getTaskDurationNanos().length);
+        int total = 0;
+        for (int batchSize : statistics.getBatchSizes())
+        {
+            total += batchSize;
+        }
+        Assert.assertEquals(20000, total);
+        Assert.assertTrue(statistics.getSkew() >= 1.0);
+        Assert.assertTrue(statistics.getMaxTaskDurationNanos() <= statistics.getTotalTaskDurationNanos());
+        Assert.assertEquals(0, statistics.getRejectedCount());
+        Verify.assertContains("tasks=20", statistics.toString());
+    }
+
+    @Test
+    public void callerRuns()
+    {
+        Collection<Integer> result = ParallelIterate.filter(
+                Interval.oneTo(100).toList(),
+                Predicates.greaterThan(50),
+                FastList.<Integer>newList(),
+                10,
+                CALLER_RUNS,
+                false);
+        Assert.assertEquals(Interval.fromTo(51, 100), result);
+
+        Verify.assertSize(1, this.recorded);
+        ParallelExecutionStatistics statistics = this.recorded.getFirst();
+        Assert.assertEquals(statistics.getTaskCount(), statistics.getCallerRunsCount());
+        Assert.assertEquals(10, statistics.getTaskCount());
+    }
+
+    @Test
+    public void rejectedExecution()
+    {
+        final Executor rejecting = new Executor()
+        {
+            public void execute(Runnable command)
+            {
+                throw new RejectedExecutionException();
+            }
+        };
+        Verify.assertThrows(RejectedExecutionException.class, new Runnable()
+        {
+            public void run()
+            {
+                ParallelIterate.forEach(Interval.oneTo(100).toList(), new CountingProcedure(), 10, rejecting);
+            }
+        });
+        Verify.assertSize(1, this.recorded);
+        ParallelExecutionStatistics statistics = this.recorded.getFirst();
+        Assert.assertEquals(1, statistics.getRejectedCount());
+        Assert.assertEquals(0, statistics.getCallerRunsCount());
+    }
+
+    @Test
+    public void droppedTasks()
+    {
+        final Executor dropping = new Executor()
+        {
+            public void execute(Runnable command)
+            {
+            }
+        };
+        Thread.currentThread().interrupt();
+        Verify.assertThrows(RuntimeException.class, new Runnable()
+        {
+            public void run()
+            {
+                ParallelIterate.forEach(Interval.oneTo(100).toList(), new CountingProcedure(), 10, dropping);
+            }
+        });
+        Thread.interrupted();
+        Verify.assertSize(1, this.recorded);
+        ParallelExecutionStatistics statistics = this.recorded.getFirst();
+        Assert.assertEquals(10, statistics.getTaskCount());
+        Assert.assertEquals(0, statistics.getCallerRunsCount());
+        Assert.assertTrue(statistics.getTotalTaskDurationNanos() > 0L);
+    }
+
+    @Test
+    public void serialExecution()
+    {
+        ParallelIterate.forEach(Interval.oneTo(10).toList(), new CountingProcedure(), 100, this.executor);
+
+        Verify.assertSize(1, this.recorded);
+        ParallelExecutionStatistics statistics = this.recorded.getFirst();
+        Assert.assertFalse(statistics.isForked());
+        Assert.assertEquals(0, statistics.getTaskCount());
+        Assert.assertArrayEquals(new int[]{10}, statistics.getBatchSizes());
+        Assert.assertEquals(1.0, statistics.getSkew(), 0.0);
+    }
+
+    @Test
+    public void noStatisticsWithoutListener()
+    {
+        ParallelIterate.setExecutionListener(null);
+        ParallelIterate.forEach(Interval.oneTo(100).toList(), new CountingProcedure(), 10, this.executor);
+        Verify.assertEmpty(this.recorded);
+    }
+
+    @Test
+    public void adaptiveBatchSizer()
+    {
+        AdaptiveBatchSizer sizer = new AdaptiveBatchSizer(10000);
+        Assert.assertEquals(10000, sizer.getBatchSize(String.class, null));
+
+        sizer.record(String.class, null, 1000, 1000L * 1000L);
+        Assert.assertEquals(1000, sizer.getBatchSize(String.class, null));
+
+        sizer.record(String.class, null, 1000, 5L * 1000L * 1000L);
+        Assert.assertEquals(500, sizer.getBatchSize(String.class, null));
+        Assert.assertEquals(10000, sizer.getBatchSize(String.class, Integer.class));
+
+        sizer.record(String.class, Integer.class, 1, 1000L * 1000L * 1000L);
+        Assert.assertEquals(AdaptiveBatchSizer.MIN_BATCH_SIZE, sizer.getBatchSize(String.class, Integer.class));
+
+        sizer.record(Integer.class, null, 1000, 0L);
+        Assert.assertEquals(AdaptiveBatchSizer.MAX_BATCH_SIZE, sizer.getBatchSize(Integer.class, null));
+        Assert.assertEquals(3, sizer.size());
+
+        sizer.clear();
+        Assert.assertEquals(10000, sizer.getBatchSize(String.class, null));
+    }
+
+    @Test
+    public void adaptiveBatchSizerDoesNotKeepClassesAlive() throws InterruptedException
+    {
+        AdaptiveBatchSizer sizer = new AdaptiveBatchSizer(10000);
+        ClassLoader classLoader = new URLClassLoader(new URL[0], ProcedureFactory.class.getClassLoader());
+        Class<?> factoryClass = Proxy.getProxyClass(classLoader, ProcedureFactory.class);
+        Class<?> blockClass = Proxy.getProxyClass(classLoader, Procedure.class);
+        sizer.record(factoryClass, blockClass, 1000, 1000L * 1000L);
+        sizer.record(String.class, blockClass, 1000, 1000L * 1000L);
+        Assert.assertEquals(2, sizer.size());
+
+        WeakReference<ClassLoader> reference = new WeakReference<ClassLoader>(classLoader);
+        classLoader = null;
+        factoryClass = null;
+        blockClass = null;
+        for (int i = 0; i < 100 && reference.get() != null; i++)
+        {
+            System.gc();
+            Thread.sleep(10L);
+        }
+        Assert.assertNull(reference.get());
+        Assert.assertEquals(0, sizer.size());
+    }
+
+    @Test
+    public void adaptiveBatchSizing()
+    {
+        ParallelIterate.setAdaptiveBatchSizing(true);
+        Assert.assertTrue(ParallelIterate.isAdaptiveBatchSizing());
+        MutableList<Integer> list = Interval.oneTo(50000).toList();
+        for (int i = 0; i < 3; i++)
+        {
+            Collection<Integer> result = ParallelIterate.filter(
+                    list,
+                    Predicates.greaterThan(25000),
+                    FastList.<Integer>newList(),
+                    ParallelIterate.DEFAULT_MIN_FORK_SIZE,
+                    this.executor,
+                    false);
+            Assert.assertEquals(Interval.fromTo(25001, 50000), result);
+        }
+        Assert.assertEquals(ParallelIterate.DEFAULT_MIN_FORK_SIZE, this.recorded.getFirst().getMinForkSize());
+        int adaptedMinForkSize = this.recorded.getLast().getMinForkSize();
+        Assert.assertTrue(adaptedMinForkSize >= AdaptiveBatchSizer.MIN_BATCH_SIZE);
+        Assert.assertTrue(adaptedMinForkSize <= AdaptiveBatchSizer.MAX_BATCH_SIZE);
+
+        ParallelIterate.setAdaptiveBatchSizing(false);
+        Assert.assertEquals(0, ParallelIterate.ADAPTIVE_BATCH_SIZER.size());
+    }
+
+    @Test
+    public void adaptiveTaskCountFollowsBatchSize()
+    {
+        ParallelIterate.setAdaptiveBatchSizing(true);
+        ParallelIterate.ADAPTIVE_BATCH_SIZER.record(PassThruProcedureFactory.class, CountingProcedure.class, 1000, 10L * 1000L * 1000L);
+        ParallelIterate.forEach(Interval.oneTo(50000).toList(), new CountingProcedure(), ParallelIterate.DEFAULT_MIN_FORK_SIZE, this.executor);
+
+        Verify.assertSize(1, this.recorded);
+        ParallelExecutionStatistics statistics = this.recorded.getFirst();
+        Assert.assertEquals(100, statistics.getMinForkSize());
+        Assert.assertEquals(500, statistics.getTaskCount());
+    }
+
+    @Test
+    public void batchSizesAreMeasured()
+    {
+        UnifiedSet<Integer> set = UnifiedSet.newSet(Interval.oneTo(20000));
+        for (int i = 1; i <= 20000; i += 3)
+        {
+            set.remove(i);
+        }
+        ParallelIterate.forEach(set, new CountingProcedure(), 1000, this.executor);
+
+        Verify.assertSize(1, this.recorded);
+        ParallelExecutionStatistics statistics = this.recorded.getFirst();
+        int taskCount = statistics.getTaskCount();
+        int[] expected = new int[taskCount];
+        for (int i = 0; i < taskCount; i++)
+        {
+            CountingProcedure counter = new CountingProcedure();
+            set.batchForEach(counter, i, taskCount);
+            expected[i] = counter.count.get();
+        }
+        Assert.assertArrayEquals(expected, statistics.getBatchSizes());
+    }
+
+    @Test
+    public void adaptiveBlockClassTellsBlocksApart()
+    {
+        Class<?> greaterThan = ParallelIterate.adaptiveBlockClass(new SelectProcedureFactory<Integer>(Predicates.greaterThan(1), 10));
+        Class<?> lessThan = ParallelIterate.adaptiveBlockClass(new SelectProcedureFactory<Integer>(Predicates.lessThan(1), 10));
+        Assert.assertSame(greaterThan, ParallelIterate.adaptiveBlockClass(new SelectProcedureFactory<Integer>(Predicates.greaterThan(2), 100)));
+        Assert.assertNotSame(greaterThan, lessThan);
+        Assert.assertSame(greaterThan, ParallelIterate.adaptiveBlockClass(new RejectProcedureFactory<Integer>(Predicates.greaterThan(1), 10)));
+
+        Assert.assertSame(CountingProcedure.class, ParallelIterate.adaptiveBlockClass(new PassThruProcedureFactory<CountingProcedure>(new CountingProcedure())));
+
+        ProcedureFactory<CountingProcedure> anonymous = new ProcedureFactory<CountingProcedure>()
+        {
+            public CountingProcedure create()
+            {
+                return new CountingProcedure();
+            }
+        };
+        Assert.assertNull(ParallelIterate.adaptiveBlockClass(anonymous));
+    }
+
+    private static final class CountingProcedure implements Procedure<Integer>
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        public void value(Integer each)
+        {
+            this.count.incrementAndGet();
+        }
+    }
+}
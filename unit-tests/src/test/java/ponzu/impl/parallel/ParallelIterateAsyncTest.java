@@ -0,0 +1,343 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.parallel;
+
+import java.util.Collection;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import ponzu.api.block.function.Function;
+import ponzu.api.block.procedure.Procedure;
+import ponzu.api.list.MutableList;
+import ponzu.api.multimap.MutableMultimap;
+import ponzu.impl.block.factory.Predicates;
+import ponzu.impl.list.Interval;
+import ponzu.impl.list.mutable.FastList;
+import ponzu.impl.set.mutable.UnifiedSet;
+import ponzu.impl.test.Verify;
+import ponzu.impl.utility.Iterate;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ParallelIterateAsyncTest
+{
+    private static final MutableList<Integer> LIST = Interval.oneTo(20000).toList();
+
+    private static final Function<Integer, Integer> MOD_10 = new Function<Integer, Integer>()
+    {
+        public Integer valueOf(Integer each)
+        {
+            return each % 10;
+        }
+    };
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(3);
+
+    @After
+    public void tearDown()
+    {
+        this.executor.shutdownNow();
+    }
+
+    @Test
+    public void filterAsync() throws Exception
+    {
+        Future<Collection<Integer>> ordered = ParallelIterate.filterAsync(LIST, Predicates.greaterThan(10000));
+        Future<FastList<Integer>> target = ParallelIterate.filterAsync(
+                LIST,
+                Predicates.lessThan(100),
+                FastList.<Integer>newList(),
+                500,
+                this.executor,
+                true);
+        Assert.assertEquals(Interval.fromTo(10001, 20000), ordered.get());
+        Verify.assertSetsEqual(Interval.oneTo(99).toSet(), UnifiedSet.newSet(target.get()));
+        Assert.assertTrue(ordered.isDone());
+        Assert.assertFalse(ordered.isCancelled());
+    }
+
+    @Test
+    public void filterAsyncOnSet() throws Exception
+    {
+        UnifiedSet<Integer> set = UnifiedSet.newSet(LIST);
+        Future<Collection<Integer>> result = ParallelIterate.filterAsync(set, Predicates.greaterThan(19990));
+        Verify.assertSetsEqual(Interval.fromTo(19991, 20000).toSet(), (UnifiedSet<Integer>) result.get());
+    }
+
+    @Test
+    public void transformAsync() throws Exception
+    {
+        Future<Collection<Integer>> result = ParallelIterate.transformAsync(LIST, MOD_10);
+        Assert.assertEquals(Iterate.transform(LIST, MOD_10), result.get(10L, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void groupByAsync() throws Exception
+    {
+        Future<MutableMultimap<Integer, Integer>> result = ParallelIterate.groupByAsync(LIST, MOD_10, 1000, this.executor);
+        MutableMultimap<Integer, Integer> multimap = result.get();
+        Assert.assertEquals(10, multimap.sizeDistinct());
+        Verify.assertSize(2000, multimap.get(3));
+    }
+
+    @Test
+    public void forEachAsync() throws Exception
+    {
+        final AtomicInteger count = new AtomicInteger();
+        Future<Void> result = ParallelIterate.forEachAsync(LIST, new Procedure<Integer>()
+        {
+            public void value(Integer each)
+            {
+                count.incrementAndGet();
+            }
+        }, 100, this.executor);
+        Assert.assertNull(result.get());
+        Assert.assertEquals(20000, count.get());
+    }
+
+    @Test
+    public void forEachAsyncWithCombiner() throws Exception
+    {
+        Future<CountCombiner<Integer>> result = ParallelIterate.forEachAsync(
+                LIST,
+                new CountProcedureFactory<Integer>(Predicates.greaterThan(15000)),
+                new CountCombiner<Integer>());
+        Assert.assertEquals(5000, result.get().getCount());
+    }
+
+    @Test
+    public void severalAsyncCallsJoinedLater() throws Exception
+    {
+        Future<Collection<Integer>> small = ParallelIterate.filterAsync(LIST, Predicates.lessThan(11));
+        Future<Collection<Integer>> large = ParallelIterate.filterAsync(LIST, Predicates.greaterThan(19990));
+        Future<MutableMultimap<Integer, Integer>> groups = ParallelIterate.groupByAsync(LIST, MOD_10);
+        Assert.assertEquals(Interval.oneTo(10), small.get());
+        Assert.assertEquals(Interval.fromTo(19991, 20000), large.get());
+        Assert.assertEquals(10, groups.get().sizeDistinct());
+    }
+
+    @Test
+    public void cancelStopsPendingBatches() throws Exception
+    {
+        ExecutorService singleThread = Executors.newSingleThreadExecutor();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger count = new AtomicInteger();
+        Future<Void> result = ParallelIterate.forEachAsync(Interval.oneTo(100).toList(), new Procedure<Integer>()
+        {
+            public void value(Integer each)
+            {
+                if (each == 1)
+                {
+                    started.countDown();
+                    try
+                    {
+                        release.await();
+                    }
+                    catch (InterruptedException e)
+                    {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                count.incrementAndGet();
+            }
+        }, 10, singleThread);
+        Assert.assertTrue(started.await(10L, TimeUnit.SECONDS));
+        Assert.assertTrue(result.cancel(false));
+        Assert.assertTrue(result.isCancelled());
+        Assert.assertTrue(result.isDone());
+        release.countDown();
+        singleThread.shutdown();
+        Assert.assertTrue(singleThread.awaitTermination(10L, TimeUnit.SECONDS));
+        Assert.assertEquals(10, count.get());
+        try
+        {
+            result.get();
+            Assert.fail();
+        }
+        catch (CancellationException ignored)
+        {
+        }
+    }
+
+    @Test
+    public void failureCompletesFuture() throws Exception
+    {
+        final RuntimeException failure = new RuntimeException("expected");
+        Future<Void> result = ParallelIterate.forEachAsync(LIST, new Procedure<Integer>()
+        {
+            public void value(Integer each)
+            {
+                if (each == 5000)
+                {
+                    throw failure;
+                }
+            }
+        }, 1000, this.executor);
+        try
+        {
+            result.get(10L, TimeUnit.SECONDS);
+            Assert.fail();
+        }
+        catch (ExecutionException e)
+        {
+            Assert.assertSame(failure, e.getCause());
+        }
+    }
+
+    @Test
+    public void failureDoesNotInterruptRunningBatches() throws Exception
+    {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicBoolean interrupted = new AtomicBoolean();
+        final AtomicInteger firstBatchCount = new AtomicInteger();
+        Future<Void> result = ParallelIterate.forEachAsync(Interval.oneTo(2000).toList(), new Procedure<Integer>()
+        {
+            public void value(Integer each)
+            {
+                if (each == 1)
+                {
+                    started.countDown();
+                    try
+                    {
+                        release.await();
+                    }
+                    catch (InterruptedException ignored)
+                    {
+                        interrupted.set(true);
+                    }
+                }
+                if (each <= 1000)
+                {
+                    firstBatchCount.incrementAndGet();
+                    return;
+                }
+                try
+                {
+                    started.await();
+                }
+                catch (InterruptedException e)
+                {
+                    throw new RuntimeException(e);
+                }
+                throw new IllegalStateException("expected");
+            }
+        }, 1000, this.executor);
+        try
+        {
+            result.get(10L, TimeUnit.SECONDS);
+            Assert.fail();
+        }
+        catch (ExecutionException e)
+        {
+            Verify.assertInstanceOf(IllegalStateException.class, e.getCause());
+        }
+        release.countDown();
+        this.executor.shutdown();
+        Assert.assertTrue(this.executor.awaitTermination(10L, TimeUnit.SECONDS));
+        Assert.assertFalse(interrupted.get());
+        Assert.assertEquals(1000, firstBatchCount.get());
+    }
+
+    @Test
+    public void emptyInputs() throws Exception
+    {
+        this.assertEmptyInputCompletes(UnifiedSet.<Integer>newSet());
+        this.assertEmptyInputCompletes(FastList.<Integer>newList());
+    }
+
+    private void assertEmptyInputCompletes(Iterable<Integer> empty) throws Exception
+    {
+        final AtomicInteger count = new AtomicInteger();
+        Procedure<Integer> counting = new Procedure<Integer>()
+        {
+            public void value(Integer each)
+            {
+                count.incrementAndGet();
+            }
+        };
+        Assert.assertNull(ParallelIterate.forEachAsync(empty, counting).get(10L, TimeUnit.SECONDS));
+        Assert.assertNull(ParallelIterate.forEachAsync(empty, counting, 100, this.executor).get(10L, TimeUnit.SECONDS));
+        Assert.assertEquals(0, count.get());
+        Assert.assertEquals(0, ParallelIterate.forEachAsync(
+                empty,
+                new CountProcedureFactory<Integer>(Predicates.greaterThan(0)),
+                new CountCombiner<Integer>()).get(10L, TimeUnit.SECONDS).getCount());
+        Verify.assertEmpty(ParallelIterate.filterAsync(empty, Predicates.greaterThan(0)).get(10L, TimeUnit.SECONDS));
+        Verify.assertEmpty(ParallelIterate.filterAsync(
+                empty,
+                Predicates.greaterThan(0),
+                FastList.<Integer>newList(),
+                100,
+                this.executor,
+                true).get(10L, TimeUnit.SECONDS));
+        Verify.assertEmpty(ParallelIterate.transformAsync(empty, MOD_10).get(10L, TimeUnit.SECONDS));
+        Verify.assertEmpty(ParallelIterate.transformAsync(
+                empty,
+                MOD_10,
+                FastList.<Integer>newList(),
+                100,
+                this.executor,
+                true).get(10L, TimeUnit.SECONDS));
+        Assert.assertTrue(ParallelIterate.groupByAsync(empty, MOD_10).get(10L, TimeUnit.SECONDS).isEmpty());
+    }
+
+    @Test
+    public void rejectedSectionFailsFuture() throws Exception
+    {
+        final RejectedExecutionException rejection = new RejectedExecutionException("expected");
+        final AtomicInteger executed = new AtomicInteger();
+        Executor rejectAfterFirst = new Executor()
+        {
+            public void execute(Runnable command)
+            {
+                if (executed.getAndIncrement() > 0)
+                {
+                    throw rejection;
+                }
+                command.run();
+            }
+        };
+        Future<Void> result = ParallelIterate.forEachAsync(LIST, new Procedure<Integer>()
+        {
+            public void value(Integer each)
+            {
+            }
+        }, 1000, rejectAfterFirst);
+        try
+        {
+            result.get(10L, TimeUnit.SECONDS);
+            Assert.fail();
+        }
+        catch (ExecutionException e)
+        {
+            Assert.assertSame(rejection, e.getCause());
+        }
+        Assert.assertEquals(2, executed.get());
+    }
+}
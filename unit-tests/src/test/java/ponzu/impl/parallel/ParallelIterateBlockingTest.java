@@ -0,0 +1,187 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.parallel;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import ponzu.api.block.procedure.Procedure;
+import ponzu.api.list.MutableList;
+import ponzu.impl.list.Interval;
+import ponzu.impl.list.mutable.FastList;
+import ponzu.impl.test.Verify;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ParallelIterateBlockingTest
+{
+    @Test
+    public void forEachBlocking()
+    {
+        BlockingProcedure procedure = new BlockingProcedure();
+        ParallelIterate.forEachBlocking(Interval.oneTo(40), procedure, 8);
+        Assert.assertEquals(40, procedure.count.get());
+        Assert.assertTrue(procedure.maxInFlight.get() > 1);
+        Assert.assertTrue(procedure.maxInFlight.get() <= 8);
+    }
+
+    @Test
+    public void forEachBlockingWithCombiner()
+    {
+        SumCombiner combiner = new SumCombiner();
+        ParallelIterate.forEachBlocking(Interval.oneTo(100).toList(), new ProcedureFactory<SumProcedure>()
+        {
+            public SumProcedure create()
+            {
+                return new SumProcedure();
+            }
+        }, combiner, 16);
+        Assert.assertEquals(5050L, combiner.sum);
+        Assert.assertEquals(16, combiner.procedureCount);
+    }
+
+    @Test
+    public void forEachBlockingRejectsNonPositiveConcurrency()
+    {
+        Verify.assertThrows(IllegalArgumentException.class, new Runnable()
+        {
+            public void run()
+            {
+                ParallelIterate.forEachBlocking(Interval.oneTo(10), new BlockingProcedure(), 0);
+            }
+        });
+        Verify.assertThrows(IllegalArgumentException.class, new Runnable()
+        {
+            public void run()
+            {
+                ParallelIterate.newBlockingExecutor(0, "test");
+            }
+        });
+    }
+
+    @Test
+    public void newBlockingExecutorLimitsConcurrency() throws InterruptedException
+    {
+        ExecutorService executor = ParallelIterate.newBlockingExecutor(3, "test");
+        this.assertConcurrencyLimited(executor, 3);
+    }
+
+    @Test
+    public void elasticExecutorLimitsConcurrency() throws InterruptedException
+    {
+        this.assertConcurrencyLimited(BlockingExecutors.newElasticExecutor(3, "test"), 3);
+    }
+
+    @Test
+    public void concurrencyLimitedExecutorService() throws InterruptedException
+    {
+        ExecutorService executor = new BlockingExecutors.ConcurrencyLimitedExecutorService(Executors.newCachedThreadPool(), 2);
+        this.assertConcurrencyLimited(executor, 2);
+    }
+
+    private void assertConcurrencyLimited(ExecutorService executor, int maxConcurrency) throws InterruptedException
+    {
+        final BlockingProcedure procedure = new BlockingProcedure();
+        for (int i = 0; i < 12; i++)
+        {
+            executor.execute(new Runnable()
+            {
+                public void run()
+                {
+                    procedure.value(null);
+                }
+            });
+        }
+        executor.shutdown();
+        Assert.assertTrue(executor.awaitTermination(10L, TimeUnit.SECONDS));
+        Assert.assertEquals(12, procedure.count.get());
+        Assert.assertTrue(procedure.maxInFlight.get() <= maxConcurrency);
+    }
+
+    private static final class BlockingProcedure implements Procedure<Object>
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final AtomicInteger count = new AtomicInteger();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger maxInFlight = new AtomicInteger();
+        private final CountDownLatch firstTwoStarted = new CountDownLatch(2);
+
+        /**
+         * The first call waits until a second call has started, so at least two calls are in flight at once whenever
+         * the executor runs two tasks concurrently, however the threads are scheduled.
+         */
+        public void value(Object each)
+        {
+            int current = this.inFlight.incrementAndGet();
+            int max = this.maxInFlight.get();
+            while (current > max && !this.maxInFlight.compareAndSet(max, current))
+            {
+                max = this.maxInFlight.get();
+            }
+            try
+            {
+                this.firstTwoStarted.countDown();
+                this.firstTwoStarted.await(10L, TimeUnit.SECONDS);
+                Thread.sleep(5L);
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+            this.inFlight.decrementAndGet();
+            this.count.incrementAndGet();
+        }
+    }
+
+    private static final class SumProcedure implements Procedure<Integer>
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final MutableList<Integer> values = FastList.newList();
+
+        public void value(Integer each)
+        {
+            this.values.add(each);
+        }
+    }
+
+    private static final class SumCombiner extends AbstractProcedureCombiner<SumProcedure>
+    {
+        private static final long serialVersionUID = 1L;
+
+        private long sum;
+        private int procedureCount;
+
+        private SumCombiner()
+        {
+            super(true);
+        }
+
+        public void combineOne(SumProcedure procedure)
+        {
+            for (Integer value : procedure.values)
+            {
+                this.sum += value;
+            }
+            this.procedureCount++;
+        }
+    }
+}
@@ -22,10 +22,16 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import ponzu.api.LazyIterable;
 import ponzu.api.block.function.Function;
 import ponzu.api.block.function.Function2;
+import ponzu.api.block.function.Generator;
+import ponzu.api.block.function.primitive.DoubleFunction;
+import ponzu.api.block.function.primitive.IntFunction;
+import ponzu.api.block.function.primitive.LongFunction;
 import ponzu.api.block.predicate.Predicate;
 import ponzu.api.block.procedure.ObjectIntProcedure;
 import ponzu.api.block.procedure.Procedure;
@@ -33,10 +39,16 @@ import ponzu.api.list.MutableList;
 import ponzu.api.map.MutableMap;
 import ponzu.api.multimap.Multimap;
 import ponzu.api.multimap.MutableMultimap;
+import ponzu.api.partition.PartitionMutableCollection;
 import ponzu.api.set.MutableSet;
+import ponzu.impl.bag.mutable.HashBag;
 import ponzu.impl.block.factory.Functions;
+import ponzu.impl.block.factory.IntegerPredicates;
 import ponzu.impl.block.factory.Predicates;
 import ponzu.impl.block.factory.StringFunctions;
+import ponzu.impl.block.procedure.CollectionAddProcedure;
+import ponzu.impl.block.procedure.HashPartitionedMapProcedure;
+import ponzu.impl.block.procedure.HashPartitionedSetProcedure;
 import ponzu.impl.factory.Lists;
 import ponzu.impl.list.Interval;
 import ponzu.impl.list.mutable.FastList;
@@ -44,6 +56,8 @@ import ponzu.impl.map.mutable.UnifiedMap;
 import ponzu.impl.multimap.bag.HashBagMultimap;
 import ponzu.impl.multimap.bag.SynchronizedPutHashBagMultimap;
 import ponzu.impl.multimap.set.SynchronizedPutUnifiedSetMultimap;
+import ponzu.impl.partition.list.PartitionFastList;
+import ponzu.impl.partition.set.PartitionUnifiedSet;
 import ponzu.impl.set.mutable.MultiReaderUnifiedSet;
 import ponzu.impl.set.mutable.UnifiedSet;
 import ponzu.impl.test.Verify;
@@ -454,6 +468,285 @@ public class ParallelIterateTest
         Verify.assertContains(String.valueOf(159), result);
     }
 
+    @Test
+    public void aggregate()
+    {
+        Generator<String> emptyString = new Generator<String>()
+        {
+            public String value()
+            {
+                return "";
+            }
+        };
+        Function2<String, Integer, String> append = new Function2<String, Integer, String>()
+        {
+            public String value(String string, Integer each)
+            {
+                return string + each + ',';
+            }
+        };
+        Function2<String, String, String> concatenate = new Function2<String, String, String>()
+        {
+            public String value(String one, String two)
+            {
+                return one + two;
+            }
+        };
+        MutableList<Integer> list = Interval.oneTo(1000).toList();
+        String expected = list.foldLeft("", append);
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try
+        {
+            Assert.assertEquals(expected, ParallelIterate.aggregate(list, emptyString, append, concatenate, 50, executor));
+            Assert.assertEquals(expected, ParallelIterate.aggregate(list, emptyString, append, concatenate));
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+
+        Generator<Long> zero = new Generator<Long>()
+        {
+            public Long value()
+            {
+                return 0L;
+            }
+        };
+        Function2<Long, Integer, Long> sum = new Function2<Long, Integer, Long>()
+        {
+            public Long value(Long total, Integer each)
+            {
+                return total + each;
+            }
+        };
+        Function2<Long, Long, Long> add = new Function2<Long, Long, Long>()
+        {
+            public Long value(Long one, Long two)
+            {
+                return one + two;
+            }
+        };
+        UnifiedSet<Integer> set = UnifiedSet.newSet(Interval.oneTo(20000));
+        Assert.assertEquals(Long.valueOf(200010000L), ParallelIterate.aggregate(set, zero, sum, add, 100, ParallelIterate.EXECUTOR_SERVICE));
+        MutableMap<String, Integer> map = Interval.oneTo(20000).toMap(Functions.getToString(), Functions.getIntegerPassThru());
+        Assert.assertEquals(Long.valueOf(200010000L), ParallelIterate.aggregate(map, zero, sum, add, 100, ParallelIterate.EXECUTOR_SERVICE));
+    }
+
+    @Test
+    public void sumOfIntAndLong()
+    {
+        IntFunction<Integer> intValue = new IntFunction<Integer>()
+        {
+            public int intValueOf(Integer each)
+            {
+                return each;
+            }
+        };
+        LongFunction<Integer> longValue = new LongFunction<Integer>()
+        {
+            public long longValueOf(Integer each)
+            {
+                return each.longValue() << 32;
+            }
+        };
+        MutableList<Integer> list = Interval.oneTo(20000).toList();
+        UnifiedSet<Integer> set = UnifiedSet.newSet(list);
+        LazyIterable<Integer> lazy = LazyIterate.adapt(set);
+        for (Iterable<Integer> iterable : Lists.fixedSize.<Iterable<Integer>>of(list, set, lazy))
+        {
+            Assert.assertEquals(200010000L, ParallelIterate.sumOfInt(iterable, intValue));
+            Assert.assertEquals(200010000L, ParallelIterate.sumOfInt(iterable, intValue, 100, ParallelIterate.EXECUTOR_SERVICE));
+            Assert.assertEquals(200010000L << 32, ParallelIterate.sumOfLong(iterable, longValue));
+            Assert.assertEquals(200010000L << 32, ParallelIterate.sumOfLong(iterable, longValue, 100, ParallelIterate.EXECUTOR_SERVICE));
+        }
+        Assert.assertEquals(
+                (long) Integer.MAX_VALUE * 3,
+                ParallelIterate.sumOfInt(Lists.fixedSize.of(Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE), intValue));
+    }
+
+    @Test
+    public void sumOfDouble()
+    {
+        DoubleFunction<Integer> tenth = new DoubleFunction<Integer>()
+        {
+            public double doubleValueOf(Integer each)
+            {
+                return 0.1;
+            }
+        };
+        MutableList<Integer> list = Interval.oneTo(100000).toList();
+        double naiveSum = 0.0;
+        for (int i = 0; i < list.size(); i++)
+        {
+            naiveSum += 0.1;
+        }
+        Assert.assertTrue(Math.abs(naiveSum - 10000.0) > 1.0e-9);
+        Assert.assertEquals(10000.0, ParallelIterate.sumOfDouble(list, tenth), 1.0e-9);
+        Assert.assertEquals(10000.0, ParallelIterate.sumOfDouble(list, tenth, 777, ParallelIterate.EXECUTOR_SERVICE), 1.0e-9);
+        Assert.assertEquals(10000.0, ParallelIterate.sumOfDouble(UnifiedSet.newSet(list), tenth, 100, ParallelIterate.EXECUTOR_SERVICE), 1.0e-9);
+        Assert.assertEquals(0.0, ParallelIterate.sumOfDouble(FastList.<Integer>newList(), tenth), 0.0);
+    }
+
+    @Test
+    public void toSet()
+    {
+        MutableList<Integer> list = Interval.oneTo(20000).toList();
+        list.addAll(Interval.oneTo(10000));
+        list.add(null);
+        UnifiedSet<Integer> expected = UnifiedSet.newSet(list);
+        Verify.assertSetsEqual(expected, ParallelIterate.toSet(list));
+        Verify.assertSetsEqual(expected, ParallelIterate.toSet(list, 1000, ParallelIterate.EXECUTOR_SERVICE));
+        Verify.assertSetsEqual(expected, ParallelIterate.toSet(list, 1000, 30, 8, ParallelIterate.EXECUTOR_SERVICE));
+        Verify.assertSetsEqual(expected, ParallelIterate.toSet(UnifiedSet.newSet(list), 1000, 16, 4, ParallelIterate.EXECUTOR_SERVICE));
+        Verify.assertSetsEqual(
+                UnifiedSet.newSet(Interval.oneTo(100000)),
+                ParallelIterate.toSet(Interval.oneTo(100000).toList(), 5000, ParallelIterate.EXECUTOR_SERVICE));
+        Verify.assertEmpty(ParallelIterate.toSet(FastList.<Integer>newList()));
+    }
+
+    @Test
+    public void toBag()
+    {
+        MutableList<Integer> list = Interval.oneTo(20000).toList();
+        list.addAll(Interval.oneTo(10000));
+        list.add(null);
+        HashBag<Integer> bag = ParallelIterate.toBag(list, 1000, ParallelIterate.EXECUTOR_SERVICE);
+        Assert.assertEquals(HashBag.newBag(list), bag);
+        Assert.assertEquals(2, bag.occurrencesOf(1));
+        Assert.assertEquals(1, bag.occurrencesOf(20000));
+        Assert.assertEquals(1, bag.occurrencesOf(null));
+        Assert.assertEquals(HashBag.newBag(list), ParallelIterate.toBag(list));
+        Verify.assertEmpty(ParallelIterate.toBag(FastList.<Integer>newList()));
+    }
+
+    @Test
+    public void toMap()
+    {
+        Function<Integer, Integer> modTenThousand = new Function<Integer, Integer>()
+        {
+            public Integer valueOf(Integer each)
+            {
+                return each % 10000;
+            }
+        };
+        MutableList<Integer> list = Interval.oneTo(30000).toList();
+        MutableMap<Integer, Integer> expected = UnifiedMap.newMap();
+        for (Integer each : list)
+        {
+            expected.put(each % 10000, each);
+        }
+        Verify.assertMapsEqual(expected, ParallelIterate.toMap(list, modTenThousand, Functions.<Integer>getPassThru()));
+        Verify.assertMapsEqual(expected, ParallelIterate.toMap(list, modTenThousand, Functions.<Integer>getPassThru(), 1000, ParallelIterate.EXECUTOR_SERVICE));
+        Verify.assertMapsEqual(expected, ParallelIterate.toMap(list, modTenThousand, Functions.<Integer>getPassThru(), 1000, 30, 8, ParallelIterate.EXECUTOR_SERVICE));
+        Verify.assertEmpty(ParallelIterate.toMap(FastList.<Integer>newList(), modTenThousand, Functions.<Integer>getPassThru()));
+    }
+
+    @Test
+    public void combineOneAccumulates()
+    {
+        ToSetCombiner<Integer> setCombiner = new ToSetCombiner<Integer>(ParallelIterate.EXECUTOR_SERVICE);
+        ToMapCombiner<Integer, Integer, Integer> mapCombiner =
+                new ToMapCombiner<Integer, Integer, Integer>(ParallelIterate.EXECUTOR_SERVICE);
+        ToBagCombiner<Integer> bagCombiner = new ToBagCombiner<Integer>(ParallelIterate.EXECUTOR_SERVICE);
+        for (int batch = 0; batch < 3; batch++)
+        {
+            HashPartitionedSetProcedure<Integer> setProcedure = new HashPartitionedSetProcedure<Integer>(4);
+            HashPartitionedMapProcedure<Integer, Integer, Integer> mapProcedure =
+                    new HashPartitionedMapProcedure<Integer, Integer, Integer>(
+                            Functions.<Integer>getPassThru(),
+                            Functions.getFixedValue(batch),
+                            4);
+            CollectionAddProcedure<Integer> bagProcedure = CollectionAddProcedure.on(HashBag.<Integer>newBag());
+            for (Integer each : Interval.fromTo(batch * 10, batch * 10 + 14))
+            {
+                setProcedure.value(each);
+                mapProcedure.value(each);
+                bagProcedure.value(each);
+            }
+            setCombiner.combineOne(setProcedure);
+            mapCombiner.combineOne(mapProcedure);
+            bagCombiner.combineOne(bagProcedure);
+        }
+        Verify.assertSetsEqual(UnifiedSet.newSet(Interval.fromTo(0, 34)), setCombiner.getResult());
+        Verify.assertSize(35, mapCombiner.getResult());
+        Assert.assertEquals(Integer.valueOf(0), mapCombiner.getResult().get(5));
+        Assert.assertEquals(Integer.valueOf(1), mapCombiner.getResult().get(14));
+        Assert.assertEquals(Integer.valueOf(2), mapCombiner.getResult().get(34));
+        Verify.assertSize(45, bagCombiner.getResult());
+        Assert.assertEquals(2, bagCombiner.getResult().occurrencesOf(10));
+
+        HashPartitionedSetProcedure<Integer> setProcedure = new HashPartitionedSetProcedure<Integer>(4);
+        setProcedure.value(100);
+        setCombiner.combineAll(FastList.newListWith(setProcedure));
+        Verify.assertSize(36, setCombiner.getResult());
+        Verify.assertContains(100, setCombiner.getResult());
+    }
+
+    @Test
+    public void partition()
+    {
+        MutableList<Integer> list = Interval.oneTo(20000).toList();
+        PartitionMutableCollection<Integer> partition = ParallelIterate.partition(list, Predicates.greaterThan(15000));
+        Verify.assertInstanceOf(PartitionFastList.class, partition);
+        Assert.assertEquals(Interval.fromTo(15001, 20000), partition.getSelected());
+        Assert.assertEquals(Interval.oneTo(15000), partition.getRejected());
+
+        PartitionMutableCollection<Integer> smallBatches =
+                ParallelIterate.partition(list, IntegerPredicates.isEven(), 777, ParallelIterate.EXECUTOR_SERVICE, false);
+        Assert.assertEquals(list.filter(IntegerPredicates.isEven()), smallBatches.getSelected());
+        Assert.assertEquals(list.filterNot(IntegerPredicates.isEven()), smallBatches.getRejected());
+
+        PartitionMutableCollection<Integer> reordered =
+                ParallelIterate.partition(list, IntegerPredicates.isEven(), 777, ParallelIterate.EXECUTOR_SERVICE, true);
+        Verify.assertSize(10000, reordered.getSelected());
+        Assert.assertEquals(UnifiedSet.newSet(list.filter(IntegerPredicates.isEven())), UnifiedSet.newSet(reordered.getSelected()));
+
+        UnifiedSet<Integer> set = UnifiedSet.newSet(list);
+        PartitionMutableCollection<Integer> setPartition = ParallelIterate.partition(set, Predicates.lessThan(101), 1000, ParallelIterate.EXECUTOR_SERVICE, false);
+        Verify.assertInstanceOf(PartitionUnifiedSet.class, setPartition);
+        Assert.assertEquals(UnifiedSet.newSet(Interval.oneTo(100)), setPartition.getSelected());
+        Verify.assertSize(19900, setPartition.getRejected());
+
+        PartitionMutableCollection<Integer> empty = ParallelIterate.partition(FastList.<Integer>newList(), Predicates.alwaysTrue());
+        Verify.assertEmpty(empty.getSelected());
+        Verify.assertEmpty(empty.getRejected());
+    }
+
+    @Test
+    public void orderedListOutputs()
+    {
+        MutableList<Integer> list = Interval.oneTo(20000).toList();
+        Collection<Integer> filtered = ParallelIterate.filter(list, IntegerPredicates.isOdd(), null, 777, ParallelIterate.EXECUTOR_SERVICE, false);
+        Verify.assertInstanceOf(FastList.class, filtered);
+        Assert.assertEquals(list.filter(IntegerPredicates.isOdd()), filtered);
+
+        Collection<Integer> filteredNot = ParallelIterate.filterNot(list, IntegerPredicates.isOdd(), null, 777, ParallelIterate.EXECUTOR_SERVICE, false);
+        Verify.assertInstanceOf(FastList.class, filteredNot);
+        Assert.assertEquals(list.filterNot(IntegerPredicates.isOdd()), filteredNot);
+
+        Collection<String> transformed = ParallelIterate.transform(list, Functions.getToString(), null, 777, ParallelIterate.EXECUTOR_SERVICE, false);
+        Verify.assertInstanceOf(FastList.class, transformed);
+        Assert.assertEquals(list.transform(Functions.getToString()), transformed);
+
+        Collection<String> transformedIf = ParallelIterate.transformIf(
+                list,
+                IntegerPredicates.isEven(),
+                Functions.getToString(),
+                null,
+                777,
+                ParallelIterate.EXECUTOR_SERVICE,
+                false);
+        Verify.assertInstanceOf(FastList.class, transformedIf);
+        Assert.assertEquals(list.transformIf(IntegerPredicates.isEven(), Functions.getToString()), transformedIf);
+
+        Collection<String> flatTransformed = ParallelIterate.flatTransform(list, INT_TO_TWO_STRINGS, null, 777, ParallelIterate.EXECUTOR_SERVICE, false);
+        Verify.assertInstanceOf(FastList.class, flatTransformed);
+        Assert.assertEquals(list.flatTransform(INT_TO_TWO_STRINGS), flatTransformed);
+
+        Verify.assertEmpty(ParallelIterate.filter(FastList.<Integer>newList(), IntegerPredicates.isOdd()));
+        Verify.assertEmpty(ParallelIterate.transform(FastList.<Integer>newList(), Functions.getToString()));
+    }
+
     private static List<Integer> createIntegerList(int size)
     {
         return Collections.nCopies(size, Integer.valueOf(1));
@@ -16,18 +16,187 @@
 
 package ponzu.impl.parallel;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
+import ponzu.api.block.function.Function2;
+import ponzu.api.block.function.Function3;
+import ponzu.api.block.function.Generator;
+import ponzu.api.block.predicate.Predicate2;
 import ponzu.api.block.procedure.Procedure2;
+import ponzu.api.list.MutableList;
 import ponzu.api.map.MutableMap;
+import ponzu.impl.block.factory.HashingStrategies;
+import ponzu.impl.list.mutable.FastList;
 import ponzu.impl.map.mutable.UnifiedMap;
+import ponzu.impl.map.strategy.mutable.UnifiedMapWithHashingStrategy;
 import ponzu.impl.test.Verify;
+import ponzu.impl.utility.MapIterate;
+import org.junit.After;
+import org.junit.Assert;
 import org.junit.Test;
 
 public class ParallelMapIterateTest
 {
+    private static final int SIZE = 20000;
+
+    private static final Predicate2<Integer, String> KEY_IS_EVEN = new Predicate2<Integer, String>()
+    {
+        public boolean accept(Integer key, String value)
+        {
+            return key % 2 == 0;
+        }
+    };
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(3);
+
+    @After
+    public void tearDown()
+    {
+        this.executor.shutdown();
+    }
+
+    private static MutableList<Map<Integer, String>> maps()
+    {
+        MutableMap<Integer, String> unifiedMap = UnifiedMap.newMap();
+        MutableMap<Integer, String> strategyMap =
+                UnifiedMapWithHashingStrategy.newMap(HashingStrategies.<Integer>defaultStrategy());
+        Map<Integer, String> hashMap = new HashMap<Integer, String>();
+        for (int i = 1; i <= SIZE; i++)
+        {
+            String value = String.valueOf(i);
+            unifiedMap.put(i, value);
+            strategyMap.put(i, value);
+            hashMap.put(i, value);
+        }
+        MutableMap<Integer, String> small = UnifiedMap.newWithKeysValues(1, "1", 2, "2", 65, "65");
+        return FastList.newListWith(unifiedMap, strategyMap, hashMap, small);
+    }
+
+    @Test
+    public void forEachKeyValueWithFactoryAndCombiner()
+    {
+        for (Map<Integer, String> map : maps())
+        {
+            final MutableMap<Integer, String> collected = UnifiedMap.newMap();
+            final int[] sections = new int[1];
+            ParallelMapIterate.forEachKeyValue(map, new Procedure2Factory<MapPutProcedure>()
+            {
+                public MapPutProcedure create()
+                {
+                    return new MapPutProcedure();
+                }
+            }, new AbstractProcedureCombiner<MapPutProcedure>(true)
+            {
+                public void combineOne(MapPutProcedure procedure)
+                {
+                    sections[0]++;
+                    int sizeBefore = collected.size();
+                    collected.putAll(procedure.map);
+                    Assert.assertEquals(sizeBefore + procedure.map.size(), collected.size());
+                }
+            }, 1, 7, this.executor);
+            Verify.assertMapsEqual(map, collected);
+            Assert.assertTrue(sections[0] > 1);
+        }
+    }
+
+    @Test
+    public void filter()
+    {
+        for (Map<Integer, String> map : maps())
+        {
+            Assert.assertEquals(
+                    MapIterate.filterMapOnEntry(map, KEY_IS_EVEN),
+                    ParallelMapIterate.filter(map, KEY_IS_EVEN, 1, 5, this.executor));
+            Assert.assertEquals(MapIterate.filterMapOnEntry(map, KEY_IS_EVEN), ParallelMapIterate.filter(map, KEY_IS_EVEN));
+        }
+    }
+
+    @Test
+    public void transformValues()
+    {
+        Function2<Integer, String, String> function = new Function2<Integer, String, String>()
+        {
+            public String value(Integer key, String value)
+            {
+                return key + ":" + value;
+            }
+        };
+        for (Map<Integer, String> map : maps())
+        {
+            Assert.assertEquals(
+                    MapIterate.transformValues(map, function),
+                    ParallelMapIterate.transformValues(map, function, 1, 5, this.executor));
+            Assert.assertEquals(MapIterate.transformValues(map, function), ParallelMapIterate.transformValues(map, function));
+        }
+    }
+
+    @Test
+    public void count()
+    {
+        for (Map<Integer, String> map : maps())
+        {
+            int expected = MapIterate.filterMapOnEntry(map, KEY_IS_EVEN).size();
+            Assert.assertEquals(expected, ParallelMapIterate.count(map, KEY_IS_EVEN, 1, 5, this.executor));
+            Assert.assertEquals(expected, ParallelMapIterate.count(map, KEY_IS_EVEN));
+        }
+    }
+
+    @Test
+    public void foldLeft()
+    {
+        Generator<Long> zero = new Generator<Long>()
+        {
+            public Long value()
+            {
+                return 0L;
+            }
+        };
+        Function3<Long, Integer, String, Long> sumKeysAndValues = new Function3<Long, Integer, String, Long>()
+        {
+            public Long value(Long sum, Integer key, String value)
+            {
+                return sum + key + Integer.parseInt(value);
+            }
+        };
+        Function2<Long, Long, Long> add = new Function2<Long, Long, Long>()
+        {
+            public Long value(Long one, Long two)
+            {
+                return one + two;
+            }
+        };
+        for (Map<Integer, String> map : maps())
+        {
+            long expected = 0L;
+            for (Map.Entry<Integer, String> entry : map.entrySet())
+            {
+                expected += entry.getKey() + Integer.parseInt(entry.getValue());
+            }
+            Assert.assertEquals(
+                    Long.valueOf(expected),
+                    ParallelMapIterate.foldLeft(map, zero, sumKeysAndValues, add, 1, 5, this.executor));
+            Assert.assertEquals(Long.valueOf(expected), ParallelMapIterate.foldLeft(map, zero, sumKeysAndValues, add));
+        }
+    }
+
+    private static final class MapPutProcedure implements Procedure2<Integer, String>
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final MutableMap<Integer, String> map = UnifiedMap.newMap();
+
+        public void value(Integer key, String value)
+        {
+            this.map.put(key, value);
+        }
+    }
+
     @Test
     public void forEachKeyValueWithNoParameters()
     {
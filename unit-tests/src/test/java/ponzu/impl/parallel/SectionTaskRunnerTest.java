@@ -0,0 +1,116 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.parallel;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import ponzu.api.block.procedure.primitive.IntProcedure;
+import ponzu.impl.test.Verify;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SectionTaskRunnerTest
+{
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final AtomicBoolean firstSectionTimedOut = new AtomicBoolean();
+    private final IllegalStateException failure = new IllegalStateException("expected");
+
+    @After
+    public void tearDown()
+    {
+        this.release.countDown();
+        this.executor.shutdownNow();
+    }
+
+    /**
+     * Section 0 waits until the test has seen the failure of section 1.
+     */
+    private final IntProcedure slowFirstSectionFailingSecond = new IntProcedure()
+    {
+        public void value(int sectionIndex)
+        {
+            if (sectionIndex == 1)
+            {
+                throw SectionTaskRunnerTest.this.failure;
+            }
+            try
+            {
+                if (!SectionTaskRunnerTest.this.release.await(10L, TimeUnit.SECONDS))
+                {
+                    SectionTaskRunnerTest.this.firstSectionTimedOut.set(true);
+                }
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+    };
+
+    @Test
+    public void executeRethrowsAnyFailureWithoutWaitingForEarlierSections()
+    {
+        try
+        {
+            new SectionTaskRunner(2).execute(this.slowFirstSectionFailingSecond, this.executor);
+            Assert.fail();
+        }
+        catch (RuntimeException e)
+        {
+            Assert.assertSame(this.failure, e.getCause());
+        }
+        this.release.countDown();
+        Assert.assertFalse(this.firstSectionTimedOut.get());
+    }
+
+    @Test
+    public void submitFailsWithoutWaitingForEarlierSections() throws Exception
+    {
+        Future<Void> future = new SectionTaskRunner(2).submit(this.slowFirstSectionFailingSecond, this.executor);
+        try
+        {
+            future.get(5L, TimeUnit.SECONDS);
+            Assert.fail();
+        }
+        catch (ExecutionException e)
+        {
+            Assert.assertSame(this.failure, e.getCause());
+        }
+        this.release.countDown();
+        Assert.assertFalse(this.firstSectionTimedOut.get());
+    }
+
+    @Test
+    public void sectionCountMustBePositive()
+    {
+        Verify.assertThrows(IllegalArgumentException.class, new Runnable()
+        {
+            public void run()
+            {
+                new SectionTaskRunner(0);
+            }
+        });
+    }
+}
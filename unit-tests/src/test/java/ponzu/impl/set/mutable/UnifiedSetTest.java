@@ -18,8 +18,11 @@ package ponzu.impl.set.mutable;
 
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import ponzu.api.block.procedure.Procedure;
+import ponzu.api.list.MutableList;
 import ponzu.api.set.MutableSet;
 import ponzu.api.set.Pool;
 import ponzu.impl.block.factory.Comparators;
@@ -31,6 +34,7 @@ import ponzu.impl.list.mutable.FastList;
 import ponzu.impl.math.IntegerSum;
 import ponzu.impl.math.Sum;
 import ponzu.impl.math.SumProcedure;
+import ponzu.impl.parallel.HashPartitionRunner;
 import ponzu.impl.test.Verify;
 import ponzu.impl.test.domain.Key;
 import ponzu.impl.utility.ArrayIterate;
@@ -519,4 +523,190 @@ public class UnifiedSetTest extends AbstractMutableSetTestCase
         Assert.assertFalse(setWithNull.retainAll(FastList.newListWith((Object) null)));
         Assert.assertEquals(UnifiedSet.newSetWith((Object) null), setWithNull);
     }
+
+    @Test
+    public void newSetFromHashPartitions()
+    {
+        MutableList<Integer> elements = Interval.oneTo(10000).toList();
+        elements.add(null);
+        UnifiedSet<Integer>[] partitions = new UnifiedSet[8];
+        for (int i = 0; i < partitions.length; i++)
+        {
+            partitions[i] = UnifiedSet.newSet();
+        }
+        for (Integer each : elements)
+        {
+            int partition = UnifiedSet.hashPartition(each, partitions.length);
+            Assert.assertTrue(partition >= 0 && partition < partitions.length);
+            partitions[partition].add(each);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try
+        {
+            UnifiedSet<Integer> set = UnifiedSet.newSetFromHashPartitions(partitions, executor);
+            Verify.assertSetsEqual(UnifiedSet.newSet(elements), set);
+            Verify.assertSize(10001, set);
+            set.add(10001);
+            Verify.assertSize(10002, set);
+            Verify.assertContains(10001, set);
+            Verify.assertSetsEqual(
+                    UnifiedSet.newSetWith(1, 2),
+                    UnifiedSet.newSetFromHashPartitions(new UnifiedSet[]{UnifiedSet.newSetWith(1, 2)}, executor));
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void newSetFromHashPartitionsAssertsPartitions()
+    {
+        if (!UnifiedSet.class.desiredAssertionStatus())
+        {
+            return;
+        }
+        final UnifiedSet<Integer>[] partitions = new UnifiedSet[2];
+        partitions[0] = UnifiedSet.newSetWith(1, 2, 3);
+        partitions[1] = UnifiedSet.newSet();
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try
+        {
+            Verify.assertThrowsWithCause(RuntimeException.class, AssertionError.class, new Runnable()
+            {
+                public void run()
+                {
+                    UnifiedSet.newSetFromHashPartitions(partitions, executor);
+                }
+            });
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void hashPartitionRequiresPowerOfTwo()
+    {
+        Verify.assertThrows(IllegalArgumentException.class, new Runnable()
+        {
+            public void run()
+            {
+                UnifiedSet.hashPartition(1, 3);
+            }
+        });
+        Verify.assertThrows(IllegalArgumentException.class, new Runnable()
+        {
+            public void run()
+            {
+                UnifiedSet.newSetFromHashPartitions(new UnifiedSet[3], null);
+            }
+        });
+    }
+
+    @Test
+    public void newSetFromArray()
+    {
+        Verify.assertSetsEqual(
+                UnifiedSet.newSetWith(1, 2, null),
+                UnifiedSet.newSetFromArray(new Integer[]{1, 2, null, 1}));
+        Verify.assertEmpty(UnifiedSet.newSetFromArray(new Integer[0], null));
+    }
+
+    @Test
+    public void newSetFromArrayInParallel()
+    {
+        int size = HashPartitionRunner.MIN_PARALLEL_SIZE + 1000;
+        Integer[] elements = new Integer[size];
+        for (int i = 0; i < size; i++)
+        {
+            // the last 500 elements repeat the first 500, and 7 is replaced by null
+            elements[i] = i == 7 ? null : i % (size - 500);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try
+        {
+            UnifiedSet<Integer> set = UnifiedSet.newSetFromArray(elements, executor);
+            Verify.assertSetsEqual(UnifiedSet.newSetWith(elements), set);
+            Verify.assertSize(size - 499, set);
+            set.add(-1);
+            Verify.assertSize(size - 498, set);
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void addAllFromUnifiedSet()
+    {
+        // 0 and 34 share a slot, so the source has a chain
+        UnifiedSet<Integer> source = UnifiedSet.<Integer>newSet(16).with(0, 34, 1, null);
+
+        UnifiedSet<Integer> copy = UnifiedSet.newSet();
+        Assert.assertTrue(copy.addAll(source));
+        Verify.assertSetsEqual(source, copy);
+        copy.remove(34);
+        copy.add(2);
+        Verify.assertSize(4, copy);
+        Verify.assertSetsEqual(UnifiedSet.newSetWith(0, 34, 1, null), source);
+
+        UnifiedSet<Integer> presized = UnifiedSet.newSet(1000);
+        Assert.assertTrue(presized.addAll(source));
+        Verify.assertSetsEqual(source, presized);
+
+        UnifiedSet<Integer> target = UnifiedSet.newSetWith(2, 34);
+        Assert.assertTrue(target.addAll(source));
+        Verify.assertSetsEqual(UnifiedSet.newSetWith(0, 34, 1, 2, null), target);
+
+        Assert.assertFalse(UnifiedSet.newSet().addAll(UnifiedSet.newSet()));
+    }
+
+    @Test
+    public void addAllCopiesOnlyDenseTables()
+    {
+        // the strings 0 to 99 chain in a few buckets
+        UnifiedSet<String> dense = UnifiedSet.newSet();
+        for (int i = 0; i < 100; i++)
+        {
+            dense.add(String.valueOf(i));
+        }
+        UnifiedSet<String> denseCopy = UnifiedSet.newSet();
+        Assert.assertTrue(denseCopy.addAll(dense));
+        Verify.assertSetsEqual(dense, denseCopy);
+        Assert.assertEquals(dense.table.length, denseCopy.table.length);
+
+        int defaultLength = UnifiedSet.newSet().table.length;
+        UnifiedSet<String> sparse = UnifiedSet.newSet(100000);
+        sparse.add("1");
+        UnifiedSet<String> sparseCopy = UnifiedSet.newSet();
+        Assert.assertTrue(sparseCopy.addAll(sparse));
+        Verify.assertSetsEqual(sparse, sparseCopy);
+        Assert.assertEquals(defaultLength, sparseCopy.table.length);
+
+        dense.remove("0");
+        for (int i = 3; i < 100; i++)
+        {
+            dense.remove(String.valueOf(i));
+        }
+        UnifiedSet<String> afterRemovals = UnifiedSet.newSet();
+        Assert.assertTrue(afterRemovals.addAll(dense));
+        Verify.assertSetsEqual(UnifiedSet.newSetWith("1", "2"), afterRemovals);
+        Assert.assertEquals(defaultLength, afterRemovals.table.length);
+    }
+
+    @Test
+    public void getSetMemoryUsedInWords()
+    {
+        UnifiedSet<Integer> set = UnifiedSet.newSet();
+        Assert.assertEquals(18, set.getSetMemoryUsedInWords());
+        set.add(COLLISION_1);
+        Assert.assertEquals(18, set.getSetMemoryUsedInWords());
+        set.add(COLLISION_2);
+        Assert.assertEquals(24, set.getSetMemoryUsedInWords());
+        set.addAll(COLLISIONS);
+        Assert.assertEquals(30, set.getSetMemoryUsedInWords());
+    }
 }
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.set.mutable;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import ponzu.api.block.HashingStrategy;
+import ponzu.api.set.MutableSet;
+import ponzu.impl.block.factory.HashingStrategies;
+import ponzu.impl.list.mutable.FastList;
+import ponzu.impl.set.strategy.mutable.UnifiedSetWithHashingStrategy;
+import ponzu.impl.test.SerializeTestHelper;
+import ponzu.impl.test.Verify;
+import org.apache.commons.codec.binary.Base64;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * JUnit test suite for {@link UnifiedSetWithHashingStrategy#newSetWithCachedHashCodes(HashingStrategy)}.
+ */
+public class UnifiedSetWithCachedHashCodesTest extends AbstractMutableSetTestCase
+{
+    @Override
+    protected <T> MutableSet<T> classUnderTest()
+    {
+        return UnifiedSetWithHashingStrategy.newSetWithCachedHashCodes(
+                HashingStrategies.nullSafeHashingStrategy(HashingStrategies.<T>defaultStrategy()));
+    }
+
+    @Test
+    public void hashCodesAreNotRecomputedWhenGrowing()
+    {
+        CountingHashingStrategy strategy = new CountingHashingStrategy(Integer.MAX_VALUE);
+        UnifiedSetWithHashingStrategy<Integer> set = UnifiedSetWithHashingStrategy.newSetWithCachedHashCodes(strategy);
+        Assert.assertTrue(set.isCachingHashCodes());
+        for (int i = 0; i < 1000; i++)
+        {
+            set.add(i);
+        }
+        Assert.assertEquals(1000, strategy.hashCount);
+        Assert.assertEquals(0, strategy.equalsCount);
+        Verify.assertContains(999, set);
+
+        UnifiedSetWithHashingStrategy<Integer> uncached = UnifiedSetWithHashingStrategy.newSet(new CountingHashingStrategy(Integer.MAX_VALUE));
+        Assert.assertFalse(uncached.isCachingHashCodes());
+    }
+
+    @Test
+    public void collisions()
+    {
+        Random random = new Random(42L);
+        UnifiedSetWithHashingStrategy<Integer> set =
+                UnifiedSetWithHashingStrategy.newSetWithCachedHashCodes(new CountingHashingStrategy(64));
+        Set<Integer> expected = new HashSet<Integer>();
+        for (int i = 0; i < 20000; i++)
+        {
+            Integer value = random.nextInt(2000);
+            if (random.nextInt(3) == 0)
+            {
+                Assert.assertEquals(expected.remove(value), set.remove(value));
+            }
+            else
+            {
+                Assert.assertEquals(expected.add(value), set.add(value));
+            }
+            Assert.assertEquals(expected.size(), set.size());
+        }
+        Verify.assertSetsEqual(expected, set);
+        int expectedHashCode = 0;
+        for (Integer each : expected)
+        {
+            expectedHashCode += each % 64;
+        }
+        Assert.assertEquals(expectedHashCode, set.hashCode());
+        for (int i = 0; i < 2000; i++)
+        {
+            Assert.assertEquals(expected.contains(i), set.contains(i));
+        }
+        UnifiedSetWithHashingStrategy<Integer> clone = set.clone();
+        Assert.assertTrue(clone.isCachingHashCodes());
+        Verify.assertSetsEqual(expected, clone);
+        Assert.assertTrue(set.newEmpty().isCachingHashCodes());
+    }
+
+    @Test
+    public void poolOperations()
+    {
+        UnifiedSetWithHashingStrategy<Integer> set =
+                UnifiedSetWithHashingStrategy.newSetWithCachedHashCodes(new CountingHashingStrategy(Integer.MAX_VALUE), 4);
+        Integer first = new Integer(1000);
+        Assert.assertSame(first, set.put(first));
+        Assert.assertSame(first, set.put(new Integer(1000)));
+        Assert.assertSame(first, set.get(new Integer(1000)));
+        Assert.assertSame(first, set.removeFromPool(new Integer(1000)));
+        Assert.assertNull(set.get(1000));
+    }
+
+    @Test
+    public void retainAll()
+    {
+        UnifiedSetWithHashingStrategy<Integer> set =
+                UnifiedSetWithHashingStrategy.newSetWithCachedHashCodes(new CountingHashingStrategy(8));
+        for (int i = 0; i < 100; i++)
+        {
+            set.add(i);
+        }
+        Assert.assertTrue(set.retainAll(FastList.newListWith(1, 2, 3, 50)));
+        Verify.assertSetsEqual(UnifiedSet.newSetWith(1, 2, 3, 50), set);
+        Assert.assertTrue(set.isCachingHashCodes());
+        set.add(70);
+        Verify.assertContains(70, set);
+    }
+
+    @Test
+    public void serialization()
+    {
+        UnifiedSetWithHashingStrategy<Integer> set =
+                UnifiedSetWithHashingStrategy.newSetWithCachedHashCodes(new CountingHashingStrategy(8));
+        for (int i = 0; i < 100; i++)
+        {
+            set.add(i);
+        }
+        UnifiedSetWithHashingStrategy<Integer> deserialized = SerializeTestHelper.serializeDeserialize(set);
+        Assert.assertTrue(deserialized.isCachingHashCodes());
+        Verify.assertSetsEqual(set, deserialized);
+        Assert.assertEquals(set.hashCode(), deserialized.hashCode());
+        deserialized.add(100);
+        Verify.assertContains(100, deserialized);
+
+        UnifiedSetWithHashingStrategy<Integer> uncached =
+                UnifiedSetWithHashingStrategy.<Integer>newSet(new CountingHashingStrategy(8)).with(1, 2, 3);
+        Assert.assertFalse(SerializeTestHelper.serializeDeserialize(uncached).isCachingHashCodes());
+    }
+
+    @Test
+    public void serializedFormWithoutCacheIsUnchanged()
+    {
+        // Written by UnifiedSetWithHashingStrategy before hash code caching was added
+        String baselineForm = "rO0ABXNyAD1wb256dS5pbXBsLnNldC5zdHJhdGVneS5tdXRhYmxlLlVuaWZpZWRTZXRXaXRoSGFz\n"
+                + "aGluZ1N0cmF0ZWd5AAAAAAAAAAEMAAB4cHNyADpwb256dS5pbXBsLmJsb2NrLmZhY3RvcnkuSGFz\n"
+                + "aGluZ1N0cmF0ZWdpZXMkRGVmYXVsdFN0cmF0ZWd5AAAAAAAAAAECAAB4cHcIAAAAAj9AAABzcgAR\n"
+                + "amF2YS5sYW5nLkludGVnZXIS4qCk94GHOAIAAUkABXZhbHVleHIAEGphdmEubGFuZy5OdW1iZXKG\n"
+                + "rJUdC5TgiwIAAHhwAAAAAXNxAH4ABAAAAAJ4";
+        UnifiedSetWithHashingStrategy<Integer> set =
+                UnifiedSetWithHashingStrategy.newSetWith(HashingStrategies.<Integer>defaultStrategy(), 1, 2);
+        Verify.assertSerializedForm(1L, baselineForm, set);
+        UnifiedSetWithHashingStrategy<Integer> deserialized =
+                (UnifiedSetWithHashingStrategy<Integer>) SerializeTestHelper.deserialize(Base64.decodeBase64(baselineForm));
+        Verify.assertSetsEqual(set, deserialized);
+        Assert.assertFalse(deserialized.isCachingHashCodes());
+    }
+
+    private static final class CountingHashingStrategy implements HashingStrategy<Integer>
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final int modulus;
+        private int hashCount;
+        private int equalsCount;
+
+        private CountingHashingStrategy(int modulus)
+        {
+            this.modulus = modulus;
+        }
+
+        public int computeHashCode(Integer object)
+        {
+            this.hashCount++;
+            return object % this.modulus;
+        }
+
+        public boolean equals(Integer object1, Integer object2)
+        {
+            this.equalsCount++;
+            return object1.equals(object2);
+        }
+    }
+}
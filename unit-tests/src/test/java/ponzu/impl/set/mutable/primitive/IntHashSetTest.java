@@ -0,0 +1,137 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.set.mutable.primitive;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import ponzu.api.block.procedure.primitive.IntProcedure;
+import ponzu.impl.set.mutable.UnifiedSet;
+import ponzu.impl.test.Verify;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class IntHashSetTest
+{
+    @Test
+    public void addAndContains()
+    {
+        IntHashSet set = new IntHashSet();
+        Assert.assertTrue(set.isEmpty());
+        Assert.assertTrue(set.add(1));
+        Assert.assertFalse(set.add(1));
+        Assert.assertTrue(set.add(0));
+        Assert.assertFalse(set.add(0));
+        Assert.assertTrue(set.add(-1));
+        Assert.assertTrue(set.add(Integer.MIN_VALUE));
+        Assert.assertEquals(4, set.size());
+        Assert.assertTrue(set.notEmpty());
+        Assert.assertTrue(set.contains(0));
+        Assert.assertTrue(set.contains(Integer.MIN_VALUE));
+        Assert.assertFalse(set.contains(2));
+    }
+
+    @Test
+    public void growsAndKeepsAllValues()
+    {
+        IntHashSet set = new IntHashSet(0);
+        for (int i = -5000; i < 5000; i++)
+        {
+            set.add(i * 31);
+        }
+        Assert.assertEquals(10000, set.size());
+        for (int i = -5000; i < 5000; i++)
+        {
+            Assert.assertTrue(set.contains(i * 31));
+            Assert.assertFalse(set.contains(i * 31 + 1));
+        }
+    }
+
+    @Test
+    public void remove()
+    {
+        IntHashSet set = IntHashSet.newSetWith(0, 1, 2, 3);
+        Assert.assertTrue(set.remove(0));
+        Assert.assertFalse(set.remove(0));
+        Assert.assertTrue(set.remove(2));
+        Assert.assertFalse(set.remove(5));
+        Assert.assertEquals(IntHashSet.newSetWith(1, 3), set);
+    }
+
+    @Test
+    public void randomAddAndRemoveMatchesUnifiedSet()
+    {
+        Random random = new Random(42L);
+        IntHashSet set = new IntHashSet();
+        UnifiedSet<Integer> expected = UnifiedSet.newSet();
+        for (int i = 0; i < 100000; i++)
+        {
+            int value = random.nextInt(512) - 256;
+            if (random.nextBoolean())
+            {
+                Assert.assertEquals(expected.add(value), set.add(value));
+            }
+            else
+            {
+                Assert.assertEquals(expected.remove(value), set.remove(value));
+            }
+        }
+        Assert.assertEquals(expected.size(), set.size());
+        for (int value = -256; value < 256; value++)
+        {
+            Assert.assertEquals(expected.contains(value), set.contains(value));
+        }
+    }
+
+    @Test
+    public void forEachAndToArray()
+    {
+        IntHashSet set = IntHashSet.newSetWith(3, 0, 2, 1);
+        final int[] sum = new int[1];
+        set.forEach(new IntProcedure()
+        {
+            public void value(int each)
+            {
+                sum[0] += each;
+            }
+        });
+        Assert.assertEquals(6, sum[0]);
+        int[] array = set.toArray();
+        Arrays.sort(array);
+        Assert.assertArrayEquals(new int[]{0, 1, 2, 3}, array);
+    }
+
+    @Test
+    public void clear()
+    {
+        IntHashSet set = IntHashSet.newSetWith(0, 1, 2);
+        set.clear();
+        Assert.assertEquals(0, set.size());
+        Assert.assertTrue(set.isEmpty());
+        Assert.assertFalse(set.contains(0));
+        Assert.assertFalse(set.contains(1));
+    }
+
+    @Test
+    public void equalsAndHashCode()
+    {
+        Verify.assertEqualsAndHashCode(IntHashSet.newSetWith(1, 2, 3), IntHashSet.newSetWith(3, 2, 1));
+        Assert.assertEquals(UnifiedSet.newSetWith(0, 1, 2, -3).hashCode(), IntHashSet.newSetWith(0, 1, 2, -3).hashCode());
+        Verify.assertNotEquals(IntHashSet.newSetWith(1, 2), IntHashSet.newSetWith(0, 1, 2));
+        Verify.assertPostSerializedEqualsAndHashCode(IntHashSet.newSetWith(0, 1, 2));
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.set.mutable.primitive;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import ponzu.api.block.procedure.primitive.LongProcedure;
+import ponzu.impl.set.mutable.UnifiedSet;
+import ponzu.impl.test.Verify;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LongHashSetTest
+{
+    @Test
+    public void addAndContains()
+    {
+        LongHashSet set = new LongHashSet();
+        Assert.assertTrue(set.isEmpty());
+        Assert.assertTrue(set.add(1));
+        Assert.assertFalse(set.add(1));
+        Assert.assertTrue(set.add(0));
+        Assert.assertFalse(set.add(0));
+        Assert.assertTrue(set.add(-1));
+        Assert.assertTrue(set.add(Long.MIN_VALUE));
+        Assert.assertEquals(4, set.size());
+        Assert.assertTrue(set.notEmpty());
+        Assert.assertTrue(set.contains(0));
+        Assert.assertTrue(set.contains(Long.MIN_VALUE));
+        Assert.assertFalse(set.contains(2));
+    }
+
+    @Test
+    public void growsAndKeepsAllValues()
+    {
+        LongHashSet set = new LongHashSet(0);
+        for (int i = -5000; i < 5000; i++)
+        {
+            set.add(i * 31L << 20);
+        }
+        Assert.assertEquals(10000, set.size());
+        for (int i = -5000; i < 5000; i++)
+        {
+            Assert.assertTrue(set.contains(i * 31L << 20));
+            Assert.assertFalse(set.contains((i * 31L << 20) + 1L));
+        }
+    }
+
+    @Test
+    public void remove()
+    {
+        LongHashSet set = LongHashSet.newSetWith(0, 1, 2, 3);
+        Assert.assertTrue(set.remove(0));
+        Assert.assertFalse(set.remove(0));
+        Assert.assertTrue(set.remove(2));
+        Assert.assertFalse(set.remove(5));
+        Assert.assertEquals(LongHashSet.newSetWith(1, 3), set);
+    }
+
+    @Test
+    public void randomAddAndRemoveMatchesUnifiedSet()
+    {
+        Random random = new Random(42L);
+        LongHashSet set = new LongHashSet();
+        UnifiedSet<Long> expected = UnifiedSet.newSet();
+        for (int i = 0; i < 100000; i++)
+        {
+            long value = random.nextInt(512) - 256L;
+            if (random.nextBoolean())
+            {
+                Assert.assertEquals(expected.add(value), set.add(value));
+            }
+            else
+            {
+                Assert.assertEquals(expected.remove(value), set.remove(value));
+            }
+        }
+        Assert.assertEquals(expected.size(), set.size());
+        for (long value = -256L; value < 256L; value++)
+        {
+            Assert.assertEquals(expected.contains(value), set.contains(value));
+        }
+    }
+
+    @Test
+    public void forEachAndToArray()
+    {
+        LongHashSet set = LongHashSet.newSetWith(3, 0, 2, 1);
+        final long[] sum = new long[1];
+        set.forEach(new LongProcedure()
+        {
+            public void value(long each)
+            {
+                sum[0] += each;
+            }
+        });
+        Assert.assertEquals(6L, sum[0]);
+        long[] array = set.toArray();
+        Arrays.sort(array);
+        Assert.assertArrayEquals(new long[]{0L, 1L, 2L, 3L}, array);
+    }
+
+    @Test
+    public void clear()
+    {
+        LongHashSet set = LongHashSet.newSetWith(0, 1, 2);
+        set.clear();
+        Assert.assertEquals(0, set.size());
+        Assert.assertTrue(set.isEmpty());
+        Assert.assertFalse(set.contains(0));
+        Assert.assertFalse(set.contains(1));
+    }
+
+    @Test
+    public void equalsAndHashCode()
+    {
+        Verify.assertEqualsAndHashCode(LongHashSet.newSetWith(1, 2, 3), LongHashSet.newSetWith(3, 2, 1));
+        Assert.assertEquals(UnifiedSet.newSetWith(0L, 1L, 2L, -3L, Long.MIN_VALUE).hashCode(), LongHashSet.newSetWith(0L, 1L, 2L, -3L, Long.MIN_VALUE).hashCode());
+        Verify.assertNotEquals(LongHashSet.newSetWith(1, 2), LongHashSet.newSetWith(0, 1, 2));
+        Verify.assertPostSerializedEqualsAndHashCode(LongHashSet.newSetWith(0, 1, 2));
+    }
+}
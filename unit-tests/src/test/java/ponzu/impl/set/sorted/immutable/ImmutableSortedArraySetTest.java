@@ -0,0 +1,178 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.set.sorted.immutable;
+
+import java.util.Comparator;
+import java.util.NoSuchElementException;
+import java.util.SortedSet;
+
+import ponzu.api.set.sorted.ImmutableSortedSet;
+import ponzu.impl.block.factory.Comparators;
+import ponzu.impl.factory.SortedSets;
+import ponzu.impl.list.mutable.FastList;
+import ponzu.impl.set.mutable.UnifiedSet;
+import ponzu.impl.set.sorted.mutable.TreeSortedSet;
+import ponzu.impl.test.Verify;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ImmutableSortedArraySetTest
+        extends AbstractImmutableSortedSetTestCase
+{
+    @Override
+    protected ImmutableSortedSet<Integer> classUnderTest()
+    {
+        return ImmutableSortedArraySet.newSetWith(1, 2, 3, 4);
+    }
+
+    @Override
+    protected ImmutableSortedSet<Integer> classUnderTest(Comparator<? super Integer> comparator)
+    {
+        return ImmutableSortedArraySet.newSetWith(comparator, 1, 2, 3, 4);
+    }
+
+    @Test
+    public void factoriesUseSortedArraySet()
+    {
+        Verify.assertInstanceOf(ImmutableSortedArraySet.class, SortedSets.immutable.of(3, 1, 2));
+        Verify.assertInstanceOf(ImmutableSortedArraySet.class, TreeSortedSet.newSetWith(3, 1, 2).toImmutable());
+    }
+
+    @Test
+    public void newSetWithSortsAndRemovesDuplicates()
+    {
+        ImmutableSortedSet<Integer> set = ImmutableSortedArraySet.newSetWith(4, 2, 3, 2, 1, 4, 4);
+        Verify.assertListsEqual(FastList.newListWith(1, 2, 3, 4), set.toList());
+        Verify.assertSize(4, set.castToSortedSet());
+        ImmutableSortedSet<Integer> reversed = ImmutableSortedArraySet.newSetWith(Comparators.<Integer>reverseNaturalOrder(), 1, 3, 1, 2);
+        Verify.assertListsEqual(FastList.newListWith(3, 2, 1), reversed.toList());
+    }
+
+    @Test
+    public void containsUsesComparator()
+    {
+        ImmutableSortedSet<Integer> set = this.classUnderTest(Comparators.<Integer>reverseNaturalOrder());
+        Assert.assertTrue(set.contains(1));
+        Assert.assertTrue(set.contains(4));
+        Assert.assertFalse(set.contains(0));
+        Assert.assertFalse(set.contains(5));
+    }
+
+    @Test
+    public void serialization()
+    {
+        ImmutableSortedSet<Integer> set = this.classUnderTest();
+        Verify.assertPostSerializedEqualsAndHashCode(set);
+        Verify.assertPostSerializedEqualsAndHashCode(set.castToSortedSet().subSet(2, 4));
+    }
+
+    @Override
+    @Test
+    public void subSet()
+    {
+        SortedSet<Integer> set = this.classUnderTest().castToSortedSet();
+        SortedSet<Integer> subSet = set.subSet(2, 4);
+        Verify.assertEqualsAndHashCode(UnifiedSet.newSetWith(2, 3), subSet);
+        Assert.assertEquals(Integer.valueOf(2), subSet.first());
+        Assert.assertEquals(Integer.valueOf(3), subSet.last());
+        Assert.assertFalse(subSet.contains(1));
+        Assert.assertFalse(subSet.contains(4));
+        Verify.assertEqualsAndHashCode(UnifiedSet.newSetWith(3), subSet.subSet(3, 4));
+        Verify.assertEmpty(set.subSet(5, 10));
+        Assert.assertEquals(set, set.subSet(0, 10));
+        Verify.assertThrows(IllegalArgumentException.class, new Runnable()
+        {
+            public void run()
+            {
+                ImmutableSortedArraySetTest.this.classUnderTest().castToSortedSet().subSet(3, 2);
+            }
+        });
+    }
+
+    @Override
+    @Test
+    public void headSet()
+    {
+        SortedSet<Integer> set = this.classUnderTest().castToSortedSet();
+        Verify.assertEqualsAndHashCode(UnifiedSet.newSetWith(1, 2, 3), set.headSet(4));
+        Verify.assertEqualsAndHashCode(UnifiedSet.newSetWith(1, 2), set.headSet(4).headSet(3));
+        Verify.assertEmpty(set.headSet(1));
+        final SortedSet<Integer> empty = set.headSet(0);
+        Verify.assertEmpty(empty);
+        Verify.assertThrows(NoSuchElementException.class, new Runnable()
+        {
+            public void run()
+            {
+                empty.first();
+            }
+        });
+        SortedSet<Integer> reversed = this.classUnderTest(Comparators.<Integer>reverseNaturalOrder()).castToSortedSet();
+        Verify.assertListsEqual(FastList.newListWith(4, 3), FastList.newList(reversed.headSet(2)));
+    }
+
+    @Override
+    @Test
+    public void tailSet()
+    {
+        SortedSet<Integer> set = this.classUnderTest().castToSortedSet();
+        Verify.assertEqualsAndHashCode(UnifiedSet.newSetWith(2, 3, 4), set.tailSet(2));
+        Verify.assertEqualsAndHashCode(UnifiedSet.newSetWith(3, 4), set.tailSet(2).tailSet(3));
+        Verify.assertEmpty(set.tailSet(5));
+        Assert.assertEquals(set, set.tailSet(1));
+        Verify.assertListsEqual(FastList.newListWith(3, 4), FastList.newList(set.tailSet(3)));
+    }
+
+    @Test
+    public void viewsRejectBoundsOutsideOfTheirRange()
+    {
+        SortedSet<Integer> set = this.classUnderTest().castToSortedSet();
+        final SortedSet<Integer> subSet = set.subSet(2, 4);
+        Verify.assertEmpty(subSet.subSet(2, 2));
+        Verify.assertEmpty(subSet.tailSet(2).headSet(2));
+        Verify.assertEqualsAndHashCode(UnifiedSet.newSetWith(2, 3), subSet.headSet(4));
+        Verify.assertThrows(IllegalArgumentException.class, new Runnable()
+        {
+            public void run()
+            {
+                subSet.subSet(3, 10);
+            }
+        });
+        Verify.assertThrows(IllegalArgumentException.class, new Runnable()
+        {
+            public void run()
+            {
+                subSet.headSet(1);
+            }
+        });
+        Verify.assertThrows(IllegalArgumentException.class, new Runnable()
+        {
+            public void run()
+            {
+                subSet.tailSet(4);
+            }
+        });
+        final SortedSet<Integer> outsideOfTheElements = set.subSet(0, 10);
+        Verify.assertEqualsAndHashCode(UnifiedSet.newSetWith(1, 2, 3, 4), outsideOfTheElements.tailSet(0));
+        Verify.assertThrows(IllegalArgumentException.class, new Runnable()
+        {
+            public void run()
+            {
+                outsideOfTheElements.headSet(11);
+            }
+        });
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2011 Goldman Sachs.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ponzu.impl.set.sorted.mutable;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import ponzu.api.block.predicate.Predicate;
+import ponzu.api.set.sorted.MutableSortedSet;
+import ponzu.impl.list.mutable.FastList;
+import ponzu.impl.test.Verify;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ConcurrentSkipListSortedSetTest extends AbstractSortedSetTestCase
+{
+    @Override
+    protected <T> ConcurrentSkipListSortedSet<T> classUnderTest()
+    {
+        return ConcurrentSkipListSortedSet.newSet();
+    }
+
+    @Override
+    protected <T> ConcurrentSkipListSortedSet<T> classUnderTest(T... elements)
+    {
+        return ConcurrentSkipListSortedSet.newSetWith(elements);
+    }
+
+    @Override
+    protected <T> ConcurrentSkipListSortedSet<T> classUnderTest(Comparator<? super T> comparator, T... elements)
+    {
+        return ConcurrentSkipListSortedSet.newSetWith(comparator, elements);
+    }
+
+    @Override
+    @Test
+    public void asSynchronized()
+    {
+        Verify.assertInstanceOf(SynchronizedSortedSet.class, this.classUnderTest().asSynchronized());
+    }
+
+    @Override
+    @Test
+    public void asUnmodifiable()
+    {
+        Verify.assertInstanceOf(UnmodifiableSortedSet.class, this.classUnderTest().asUnmodifiable());
+    }
+
+    @Test
+    public void sortedSetIterableConstructor()
+    {
+        ConcurrentSkipListSortedSet<Integer> sortedSetA = ConcurrentSkipListSortedSet.newSet(Collections.<Integer>reverseOrder());
+        ConcurrentSkipListSortedSet<Integer> sortedSetB = ConcurrentSkipListSortedSet.newSet(sortedSetA.with(1).with(2, 3).with(4, 5, 6));
+        Verify.assertSortedSetsEqual(sortedSetA, sortedSetB);
+        Assert.assertEquals(Integer.valueOf(6), sortedSetB.first());
+    }
+
+    @Test
+    public void rangeViewsAreLiveAndConcurrent()
+    {
+        ConcurrentSkipListSortedSet<Integer> set = ConcurrentSkipListSortedSet.newSetWith(1, 2, 3, 4);
+        MutableSortedSet<Integer> headSet = set.headSet(3);
+        MutableSortedSet<Integer> tailSet = set.tailSet(3);
+        Verify.assertInstanceOf(ConcurrentSkipListSortedSet.class, headSet);
+        Verify.assertInstanceOf(ConcurrentSkipListSortedSet.class, set.subSet(2, 4));
+        set.add(0);
+        set.add(5);
+        Verify.assertSortedSetsEqual(TreeSortedSet.newSetWith(0, 1, 2), headSet);
+        Verify.assertSortedSetsEqual(TreeSortedSet.newSetWith(3, 4, 5), tailSet);
+        Verify.assertSortedSetsEqual(TreeSortedSet.newSetWith(4), tailSet.headSet(5).filter(new Predicate<Integer>()
+        {
+            public boolean accept(Integer each)
+            {
+                return each % 2 == 0;
+            }
+        }));
+    }
+
+    @Test
+    public void concurrentAddsAndIteration() throws InterruptedException
+    {
+        final ConcurrentSkipListSortedSet<Integer> set = ConcurrentSkipListSortedSet.newSet();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int i = 0; i < 4; i++)
+        {
+            final int offset = i;
+            executor.execute(new Runnable()
+            {
+                public void run()
+                {
+                    for (int j = offset; j < 10000; j += 4)
+                    {
+                        set.add(j);
+                        set.tailSet(j).getFirst();
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        Assert.assertTrue(executor.awaitTermination(30L, TimeUnit.SECONDS));
+        Verify.assertSize(10000, set);
+        Assert.assertEquals(FastList.newListWith(0, 1, 2), set.headSet(3).toList());
+        Assert.assertEquals(Integer.valueOf(9999), set.last());
+    }
+
+    @Test
+    public void serialization()
+    {
+        MutableSortedSet<Integer> set = this.newWith(1, 2, 3, 4, 5);
+        Verify.assertPostSerializedEqualsAndHashCode(set);
+    }
+}
@@ -21,8 +21,16 @@ import java.util.Map;
 import ponzu.api.map.MutableMap;
 import ponzu.api.tuple.Pair;
 import ponzu.api.tuple.Twin;
+import ponzu.api.tuple.primitive.IntIntPair;
+import ponzu.api.tuple.primitive.IntObjectPair;
+import ponzu.api.tuple.primitive.LongLongPair;
+import ponzu.api.tuple.primitive.LongObjectPair;
+import ponzu.api.tuple.primitive.ObjectIntPair;
+import ponzu.api.tuple.primitive.ObjectLongPair;
 import ponzu.impl.block.factory.Functions;
+import ponzu.impl.list.mutable.FastList;
 import ponzu.impl.map.mutable.UnifiedMap;
+import ponzu.impl.set.mutable.UnifiedSet;
 import ponzu.impl.test.Verify;
 import org.junit.Assert;
 import org.junit.Test;
@@ -93,4 +101,80 @@ public class TuplesTest
         Assert.assertEquals("One", Functions.<String>firstOfPair().valueOf(pair));
         Assert.assertSame(two, Functions.<Integer>secondOfPair().valueOf(pair));
     }
+
+    @Test
+    public void primitivePairs()
+    {
+        ObjectIntPair<String> objectInt = Tuples.objectIntPair("1", 2);
+        Assert.assertEquals(2, objectInt.getTwoInt());
+        Verify.assertEqualsAndHashCode(Tuples.pair("1", 2), objectInt);
+
+        IntObjectPair<String> intObject = Tuples.intObjectPair(1, "2");
+        Assert.assertEquals(1, intObject.getOneInt());
+        Verify.assertEqualsAndHashCode(Tuples.pair(1, "2"), intObject);
+
+        IntIntPair intInt = Tuples.intIntPair(1, 2);
+        Assert.assertEquals(1, intInt.getOneInt());
+        Assert.assertEquals(2, intInt.getTwoInt());
+        Verify.assertEqualsAndHashCode(Tuples.pair(1, 2), intInt);
+        Verify.assertEqualsAndHashCode(Tuples.intIntPair(1, 2), intInt);
+        Verify.assertNotEquals(Tuples.intIntPair(2, 1), intInt);
+
+        ObjectLongPair<String> objectLong = Tuples.objectLongPair(null, 2L);
+        Assert.assertEquals(2L, objectLong.getTwoLong());
+        Verify.assertEqualsAndHashCode(Tuples.pair(null, 2L), objectLong);
+
+        LongObjectPair<String> longObject = Tuples.longObjectPair(Long.MAX_VALUE, "2");
+        Assert.assertEquals(Long.MAX_VALUE, longObject.getOneLong());
+        Verify.assertEqualsAndHashCode(Tuples.pair(Long.MAX_VALUE, "2"), longObject);
+
+        LongLongPair longLong = Tuples.longLongPair(-1L, 2L);
+        Assert.assertEquals(-1L, longLong.getOneLong());
+        Verify.assertEqualsAndHashCode(Tuples.pair(-1L, 2L), longLong);
+        Verify.assertNotEquals(Tuples.pair(-1, 2), longLong);
+
+        Assert.assertEquals("1:2", Tuples.intIntPair(1, 2).toString());
+        Assert.assertEquals(Tuples.pair(1, 2).toEntry(), intInt.toEntry());
+        Assert.assertTrue(Tuples.intIntPair(1, 2).compareTo(Tuples.pair(1, 3)) < 0);
+        Verify.assertPostSerializedEqualsAndHashCode(objectInt);
+        Verify.assertPostSerializedEqualsAndHashCode(longLong);
+    }
+
+    @Test
+    public void hashedPair()
+    {
+        Pair<String, Integer> pair = Tuples.hashedPair("1", 2);
+        Verify.assertEqualsAndHashCode(Tuples.pair("1", 2), pair);
+        Verify.assertEqualsAndHashCode(Tuples.hashedPair("1", 2), pair);
+        Verify.assertNotEquals(Tuples.hashedPair("1", 3), pair);
+        Verify.assertPostSerializedEqualsAndHashCode(pair);
+        MutableMap<Pair<String, Integer>, String> map = UnifiedMap.newWithKeysValues(pair, "value");
+        Assert.assertEquals("value", map.get(Tuples.pair("1", 2)));
+    }
+
+    @Test
+    public void zipWithIndexUsesPrimitivePairs()
+    {
+        Verify.assertInstanceOf(ObjectIntPair.class, FastList.newListWith("a", "b").zipWithIndex().getLast());
+        Verify.assertInstanceOf(ObjectIntPair.class, FastList.newListWith("a", "b").asLazy().zipWithIndex().getFirst());
+        Assert.assertEquals(FastList.newListWith(Tuples.pair("a", 0), Tuples.pair("b", 1)), FastList.newListWith("a", "b").zipWithIndex());
+    }
+
+    @Test
+    public void keyValuesView()
+    {
+        UnifiedMap<Integer, String> map = UnifiedMap.newWithKeysValues(1, "1", 2, "2", null, "3");
+        Assert.assertEquals(
+                UnifiedSet.newSetWith(Tuples.pair(1, "1"), Tuples.pair(2, "2"), Tuples.<Integer, String>pair(null, "3")),
+                map.keyValuesView().toSet());
+        Assert.assertEquals(
+                UnifiedSet.newSetWith(Tuples.pair(1, "1"), Tuples.pair(2, "2"), Tuples.<Integer, String>pair(null, "3")),
+                UnifiedSet.newSet(map.keyValuesView()));
+        Assert.assertEquals(3, map.keyValuesView().size());
+
+        UnifiedMap<String, Integer> collisions = UnifiedMap.newWithKeysValues("Aa", 1, "BB", 2, "C#", 3);
+        Assert.assertEquals(
+                UnifiedSet.newSetWith(Tuples.pair("Aa", 1), Tuples.pair("BB", 2), Tuples.pair("C#", 3)),
+                UnifiedSet.newSet(collisions.keyValuesView()));
+    }
 }
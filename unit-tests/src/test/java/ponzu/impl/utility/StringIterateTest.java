@@ -16,7 +16,12 @@
 
 package ponzu.impl.utility;
 
+import java.nio.CharBuffer;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 import ponzu.api.block.function.Function;
+import ponzu.api.block.procedure.Procedure;
 import ponzu.api.list.MutableList;
 import ponzu.api.map.MutableMap;
 import ponzu.api.set.MutableSet;
@@ -25,12 +30,15 @@ import ponzu.impl.block.function.AddFunction;
 import ponzu.impl.block.function.primitive.CharFunction;
 import ponzu.impl.block.function.primitive.CodePointFunction;
 import ponzu.impl.block.predicate.CodePointPredicate;
+import ponzu.impl.block.predicate.primitive.AsciiCharPredicate;
 import ponzu.impl.block.predicate.primitive.CharPredicate;
 import ponzu.impl.block.procedure.checked.CheckedProcedure;
 import ponzu.impl.block.procedure.primitive.CharProcedure;
 import ponzu.impl.block.procedure.primitive.CodePointProcedure;
 import ponzu.impl.factory.Lists;
 import ponzu.impl.list.mutable.FastList;
+import ponzu.impl.parallel.AbstractProcedureCombiner;
+import ponzu.impl.parallel.ProcedureFactory;
 import ponzu.impl.test.Verify;
 import org.junit.Assert;
 import org.junit.Test;
@@ -472,4 +480,181 @@ public class StringIterateTest
     {
         Assert.assertEquals("Token2", StringIterate.getLastToken("Token1DelimiterToken2", "Delimiter"));
     }
+
+    @Test
+    public void tokensToListWithSingleCharacterSeparator()
+    {
+        Assert.assertEquals(FastList.newListWith("a", "b", "c"), StringIterate.tokensToList(",a,,b,c,", ","));
+        Assert.assertEquals(FastList.newListWith("a", "b"), StringIterate.tokensToList("a;,b", ";,"));
+        Assert.assertEquals(FastList.newListWith(), StringIterate.tokensToList(",,", ","));
+        Assert.assertEquals(FastList.newListWith("a", "", "b"), StringIterate.csvTrimmedTokensToList(" a , , b"));
+    }
+
+    @Test
+    public void forEachTokenSlice()
+    {
+        final MutableList<String> tokens = Lists.mutable.of();
+        final MutableList<Integer> starts = Lists.mutable.of();
+        StringIterate.forEachToken(new StringBuilder(",12,,-3,"), ',', new Procedure<CharSequenceSlice>()
+        {
+            public void value(CharSequenceSlice each)
+            {
+                tokens.add(each.toString());
+                starts.add(each.getStart());
+            }
+        });
+        Assert.assertEquals(FastList.newListWith("12", "-3"), tokens);
+        Assert.assertEquals(FastList.newListWith(1, 5), starts);
+        Assert.assertEquals(FastList.newListWith("a", "b"), StringIterate.tokensToList(CharBuffer.wrap("a b"), ' '));
+    }
+
+    @Test
+    public void forEachTokenWithSeparatorPredicate()
+    {
+        final MutableList<String> tokens = Lists.mutable.of();
+        StringIterate.forEachToken("a b\tc;;d", AsciiCharPredicate.anyOf(" \t;"), new Procedure<CharSequenceSlice>()
+        {
+            public void value(CharSequenceSlice each)
+            {
+                tokens.add(each.toString());
+            }
+        });
+        Assert.assertEquals(FastList.newListWith("a", "b", "c", "d"), tokens);
+    }
+
+    @Test
+    public void charSequenceSlice()
+    {
+        CharSequenceSlice slice = new CharSequenceSlice("x -42 y", 1, 6);
+        Assert.assertEquals(" -42 ", slice.toString());
+        Assert.assertEquals(-42, slice.trim().parseInt());
+        Assert.assertEquals("-42", slice.toString());
+        Assert.assertTrue(slice.contentEquals("-42"));
+        Assert.assertFalse(slice.contentEquals("-43"));
+        Assert.assertEquals("-42".hashCode(), slice.contentHashCode());
+        Assert.assertEquals('4', slice.charAt(1));
+        Assert.assertEquals("42", slice.subSequence(1, 3).toString());
+        Assert.assertEquals(Long.MIN_VALUE, new CharSequenceSlice(String.valueOf(Long.MIN_VALUE), 0, 20).parseLong());
+        Assert.assertEquals(Integer.MAX_VALUE, new CharSequenceSlice("+2147483647", 0, 11).parseInt());
+        Verify.assertThrows(NumberFormatException.class, new Runnable()
+        {
+            public void run()
+            {
+                new CharSequenceSlice("2147483648", 0, 10).parseInt();
+            }
+        });
+        Verify.assertThrows(NumberFormatException.class, new Runnable()
+        {
+            public void run()
+            {
+                new CharSequenceSlice("1x", 0, 2).parseLong();
+            }
+        });
+        Verify.assertThrows(NumberFormatException.class, new Runnable()
+        {
+            public void run()
+            {
+                new CharSequenceSlice("-", 0, 1).parseInt();
+            }
+        });
+        Verify.assertThrows(IndexOutOfBoundsException.class, new Runnable()
+        {
+            public void run()
+            {
+                new CharSequenceSlice("abc", 1, 2).charAt(1);
+            }
+        });
+    }
+
+    @Test
+    public void tokensToListInParallel()
+    {
+        StringBuilder builder = new StringBuilder();
+        MutableList<String> expected = Lists.mutable.of();
+        for (int i = 0; i < 100000; i++)
+        {
+            expected.add(String.valueOf(i));
+            builder.append(i).append(i % 7 == 0 ? ",," : ",");
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try
+        {
+            Assert.assertEquals(expected, StringIterate.tokensToListInParallel(builder, ',', executor));
+            Assert.assertEquals(FastList.newListWith("a", "b"), StringIterate.tokensToListInParallel("a,b", ',', executor));
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void forEachTokenInParallel()
+    {
+        StringBuilder builder = new StringBuilder();
+        long expected = 0;
+        for (int i = 0; i < 100000; i++)
+        {
+            expected += i;
+            builder.append(i).append(' ');
+        }
+        final long[] total = new long[1];
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try
+        {
+            StringIterate.forEachTokenInParallel(builder, ' ', new ProcedureFactory<SumProcedure>()
+            {
+                public SumProcedure create()
+                {
+                    return new SumProcedure();
+                }
+            }, new AbstractProcedureCombiner<SumProcedure>(true)
+            {
+                public void combineOne(SumProcedure procedure)
+                {
+                    total[0] += procedure.sum;
+                }
+            }, executor);
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+        Assert.assertEquals(expected, total[0]);
+    }
+
+    private static final class SumProcedure implements Procedure<CharSequenceSlice>
+    {
+        private long sum;
+
+        public void value(CharSequenceSlice each)
+        {
+            this.sum += each.parseLong();
+        }
+    }
+
+    @Test
+    public void asciiCharPredicate()
+    {
+        Assert.assertEquals(3, StringIterate.count("a1b22", AsciiCharPredicate.IS_ASCII_DIGIT));
+        Assert.assertEquals(2, StringIterate.count("a1B\u00e9", AsciiCharPredicate.IS_ASCII_LETTER));
+        Assert.assertEquals(3, StringIterate.count("a1B\u00e9", AsciiCharPredicate.of(CharPredicate.IS_LETTER)));
+        Assert.assertEquals(2, StringIterate.count("a \tb", AsciiCharPredicate.IS_ASCII_WHITESPACE));
+        Assert.assertEquals(1, StringIterate.count("aB", AsciiCharPredicate.IS_ASCII_UPPERCASE));
+        Assert.assertEquals(1, StringIterate.count("aB", AsciiCharPredicate.IS_ASCII_LOWERCASE));
+        Assert.assertEquals(4, StringIterate.count("a1B\u00e9", AsciiCharPredicate.IS_ASCII_LETTER_OR_DIGIT.not()
+                .or(AsciiCharPredicate.IS_ASCII_LETTER_OR_DIGIT)));
+        Assert.assertEquals(2, StringIterate.count("x\u00e9y\u00e8", AsciiCharPredicate.anyOf("y\u00e9")));
+        Assert.assertTrue(StringIterate.anySatisfy("abc", AsciiCharPredicate.range('c', 'd')));
+        Assert.assertFalse(StringIterate.anySatisfy("abc", AsciiCharPredicate.range('d', 'e')));
+        Assert.assertTrue(AsciiCharPredicate.IS_ASCII_DIGIT.not().accept('\u00e9'));
+        Assert.assertSame(AsciiCharPredicate.IS_ASCII_DIGIT, AsciiCharPredicate.of(AsciiCharPredicate.IS_ASCII_DIGIT));
+        Verify.assertThrows(IllegalArgumentException.class, new Runnable()
+        {
+            public void run()
+            {
+                AsciiCharPredicate.range('b', 'a');
+            }
+        });
+    }
 }